@@ -18,6 +18,7 @@
 
 package org.killbill.billing.account.api.svcs;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -85,6 +86,17 @@ public class DefaultAccountInternalApi extends DefaultAccountApiBase implements
         return super.getAccountByRecordId(recordId, context);
     }
 
+    @Override
+    public List<Account> getAccountsByIds(final Collection<UUID> accountIds, final InternalTenantContext context) {
+        return ImmutableList.<Account>copyOf(Collections2.transform(accountDao.getByIds(accountIds, context),
+                                                                    new Function<AccountModelDao, Account>() {
+                                                                        @Override
+                                                                        public Account apply(final AccountModelDao input) {
+                                                                            return new DefaultAccount(input);
+                                                                        }
+                                                                    }));
+    }
+
     @Override
     public void updateBCD(final String externalKey, final int bcd,
                           final InternalCallContext context) throws AccountApiException {
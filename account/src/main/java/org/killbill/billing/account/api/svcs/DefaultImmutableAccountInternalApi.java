@@ -41,6 +41,7 @@ import org.killbill.billing.util.entity.dao.EntitySqlDao;
 import org.killbill.billing.util.entity.dao.EntitySqlDaoTransactionWrapper;
 import org.killbill.billing.util.entity.dao.EntitySqlDaoTransactionalJdbiWrapper;
 import org.killbill.billing.util.entity.dao.EntitySqlDaoWrapperFactory;
+import org.killbill.billing.util.metrics.BillingMetrics;
 import org.killbill.clock.Clock;
 import org.skife.jdbi.v2.IDBI;
 
@@ -60,9 +61,10 @@ public class DefaultImmutableAccountInternalApi implements ImmutableAccountInter
                                               @Named(MAIN_RO_IDBI_NAMED) final IDBI roDbi,
                                               final Clock clock,
                                               final NonEntityDao nonEntityDao,
-                                              final CacheControllerDispatcher cacheControllerDispatcher) {
+                                              final CacheControllerDispatcher cacheControllerDispatcher,
+                                              final BillingMetrics billingMetrics) {
         // This API will directly issue queries instead of relying on the DAO (introduced to avoid Guice circular dependencies with InternalCallContextFactory)
-        this.transactionalSqlDao = new EntitySqlDaoTransactionalJdbiWrapper(dbi, roDbi, clock, cacheControllerDispatcher, nonEntityDao, null);
+        this.transactionalSqlDao = new EntitySqlDaoTransactionalJdbiWrapper(dbi, roDbi, clock, cacheControllerDispatcher, nonEntityDao, null, billingMetrics);
         this.nonEntityDao = nonEntityDao;
         this.accountCacheController = cacheControllerDispatcher.getCacheController(CacheType.ACCOUNT_IMMUTABLE);
         this.recordIdCacheController = cacheControllerDispatcher.getCacheController(CacheType.RECORD_ID);
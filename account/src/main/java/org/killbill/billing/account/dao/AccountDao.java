@@ -18,6 +18,7 @@
 
 package org.killbill.billing.account.dao;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -59,6 +60,11 @@ public interface AccountDao extends EntityDao<AccountModelDao, Account, AccountA
 
     List<AccountModelDao> getAccountsByParentId(UUID parentAccountId, InternalTenantContext context);
 
+    /**
+     * @return the accounts found in the tenant (unknown ids are ignored)
+     */
+    List<AccountModelDao> getByIds(Collection<UUID> accountIds, InternalTenantContext context);
+
     List<AuditLogWithHistory> getAuditLogsWithHistoryForId(UUID accountId, AuditLevel auditLevel, InternalTenantContext context) throws AccountApiException;
 
     List<AuditLogWithHistory> getEmailAuditLogsWithHistoryForId(UUID accountEmailId, AuditLevel auditLevel, InternalTenantContext context) throws AccountApiException;
@@ -134,6 +134,15 @@ public class AccountModelDao extends EntityModelDaoBase implements TimeZoneAware
         this(UUIDs.randomUUID(), null, null, account, true);
     }
 
+    public AccountModelDao(final AccountModelDao other) {
+        this(other.getId(), other.getCreatedDate(), other.getUpdatedDate(), other.externalKey, other.email, other.name, other.firstNameLength,
+             other.currency, other.parentAccountId, other.isPaymentDelegatedToParent, other.billingCycleDayLocal, other.paymentMethodId,
+             other.referenceTime, other.timeZone, other.locale, other.address1, other.address2, other.companyName, other.city,
+             other.stateOrProvince, other.country, other.postalCode, other.phone, other.notes, other.migrated, false);
+        setRecordId(other.getRecordId());
+        setTenantRecordId(other.getTenantRecordId());
+    }
+
     public void mergeWithDelegate(final AccountModelDao currentAccount) {
         setExternalKey(currentAccount.getExternalKey());
 
@@ -18,6 +18,7 @@
 
 package org.killbill.billing.account.dao;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -32,6 +33,7 @@ import org.skife.jdbi.v2.sqlobject.Bind;
 import org.killbill.commons.jdbi.binder.SmartBindBean;
 import org.skife.jdbi.v2.sqlobject.SqlQuery;
 import org.skife.jdbi.v2.sqlobject.SqlUpdate;
+import org.skife.jdbi.v2.unstable.BindIn;
 
 @KillBillSqlDaoStringTemplate
 public interface AccountSqlDao extends EntitySqlDao<AccountModelDao, Account> {
@@ -59,6 +61,10 @@ public interface AccountSqlDao extends EntitySqlDao<AccountModelDao, Account> {
                                       @Bind("paymentMethodId") String paymentMethodId,
                                       @SmartBindBean final InternalCallContext context);
 
+    @SqlQuery
+    List<AccountModelDao> getByIds(@BindIn("ids") final Collection<String> ids,
+                                   @SmartBindBean final InternalTenantContext context);
+
     @SqlQuery
     List<AccountModelDao> getAccountsByParentId(@Bind("parentAccountId") UUID parentAccountId,
                                                 @SmartBindBean final InternalTenantContext context);
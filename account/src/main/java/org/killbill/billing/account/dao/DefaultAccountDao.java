@@ -18,7 +18,9 @@
 
 package org.killbill.billing.account.dao;
 
+import java.util.Collection;
 import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.UUID;
 
@@ -35,6 +37,7 @@ import org.killbill.billing.account.api.user.DefaultAccountCreationEvent;
 import org.killbill.billing.account.api.user.DefaultAccountCreationEvent.DefaultAccountData;
 import org.killbill.billing.callcontext.InternalCallContext;
 import org.killbill.billing.callcontext.InternalTenantContext;
+import org.killbill.billing.callcontext.RequestReadCache;
 import org.killbill.billing.entity.EntityPersistenceException;
 import org.killbill.billing.events.AccountChangeInternalEvent;
 import org.killbill.billing.events.AccountCreationInternalEvent;
@@ -56,6 +59,7 @@ import org.killbill.billing.util.entity.dao.EntityDaoBase;
 import org.killbill.billing.util.entity.dao.EntitySqlDaoTransactionWrapper;
 import org.killbill.billing.util.entity.dao.EntitySqlDaoTransactionalJdbiWrapper;
 import org.killbill.billing.util.entity.dao.EntitySqlDaoWrapperFactory;
+import org.killbill.billing.util.metrics.BillingMetrics;
 import org.killbill.bus.api.PersistentBus;
 import org.killbill.bus.api.PersistentBus.EventBusException;
 import org.killbill.clock.Clock;
@@ -63,7 +67,10 @@ import org.skife.jdbi.v2.IDBI;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.base.Functions;
+import com.google.common.collect.Collections2;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
 import com.google.inject.Inject;
 
 import static org.killbill.billing.util.glue.IDBISetup.MAIN_RO_IDBI_NAMED;
@@ -72,6 +79,10 @@ public class DefaultAccountDao extends EntityDaoBase<AccountModelDao, Account, A
 
     private static final Logger log = LoggerFactory.getLogger(DefaultAccountDao.class);
 
+    private static final String ACCOUNT_BY_ID_REQUEST_CACHE = "AccountById";
+    private static final String ACCOUNT_BY_RECORD_ID_REQUEST_CACHE = "AccountByRecordId";
+    private static final int MAX_IDS_PER_QUERY = 1000;
+
     private final CacheController<Long, ImmutableAccountData> accountImmutableCacheController;
     private final PersistentBus eventBus;
     private final InternalCallContextFactory internalCallContextFactory;
@@ -80,8 +91,9 @@ public class DefaultAccountDao extends EntityDaoBase<AccountModelDao, Account, A
 
     @Inject
     public DefaultAccountDao(final IDBI dbi, @Named(MAIN_RO_IDBI_NAMED) final IDBI roDbi, final PersistentBus eventBus, final Clock clock, final CacheControllerDispatcher cacheControllerDispatcher,
-                             final InternalCallContextFactory internalCallContextFactory, final NonEntityDao nonEntityDao, final AuditDao auditDao) {
-        super(new EntitySqlDaoTransactionalJdbiWrapper(dbi, roDbi, clock, cacheControllerDispatcher, nonEntityDao, internalCallContextFactory), AccountSqlDao.class);
+                             final InternalCallContextFactory internalCallContextFactory, final NonEntityDao nonEntityDao, final AuditDao auditDao,
+                             final BillingMetrics billingMetrics) {
+        super(new EntitySqlDaoTransactionalJdbiWrapper(dbi, roDbi, clock, cacheControllerDispatcher, nonEntityDao, internalCallContextFactory, billingMetrics), AccountSqlDao.class);
         this.accountImmutableCacheController = cacheControllerDispatcher.getCacheController(CacheType.ACCOUNT_IMMUTABLE);
         this.eventBus = eventBus;
         this.internalCallContextFactory = internalCallContextFactory;
@@ -144,6 +156,41 @@ public class DefaultAccountDao extends EntityDaoBase<AccountModelDao, Account, A
         });
     }
 
+    @Override
+    public AccountModelDao getById(final UUID id, final InternalTenantContext context) throws AccountApiException {
+        // The cached row is shared for the duration of the request: callers get their own copy, as some of them update it
+        final RequestReadCache requestReadCache = context.getRequestReadCache();
+        if (requestReadCache != null) {
+            final AccountModelDao cached = requestReadCache.get(ACCOUNT_BY_ID_REQUEST_CACHE, context, id);
+            if (cached != null) {
+                return new AccountModelDao(cached);
+            }
+        }
+
+        final AccountModelDao accountModelDao = super.getById(id, context);
+        if (requestReadCache != null) {
+            requestReadCache.put(ACCOUNT_BY_ID_REQUEST_CACHE, context, id, accountModelDao == null ? null : new AccountModelDao(accountModelDao));
+        }
+        return accountModelDao;
+    }
+
+    @Override
+    public AccountModelDao getByRecordId(final Long recordId, final InternalTenantContext context) {
+        final RequestReadCache requestReadCache = context.getRequestReadCache();
+        if (requestReadCache != null) {
+            final AccountModelDao cached = requestReadCache.get(ACCOUNT_BY_RECORD_ID_REQUEST_CACHE, context, recordId);
+            if (cached != null) {
+                return new AccountModelDao(cached);
+            }
+        }
+
+        final AccountModelDao accountModelDao = super.getByRecordId(recordId, context);
+        if (requestReadCache != null) {
+            requestReadCache.put(ACCOUNT_BY_RECORD_ID_REQUEST_CACHE, context, recordId, accountModelDao == null ? null : new AccountModelDao(accountModelDao));
+        }
+        return accountModelDao;
+    }
+
     @Override
     public Pagination<AccountModelDao> searchAccounts(final String searchKey, final Long offset, final Long limit, final InternalTenantContext context) {
         final boolean userIsFeelingLucky = limit == 1 && offset == -1;
@@ -331,6 +378,25 @@ public class DefaultAccountDao extends EntityDaoBase<AccountModelDao, Account, A
         });
     }
 
+    @Override
+    public List<AccountModelDao> getByIds(final Collection<UUID> accountIds, final InternalTenantContext context) {
+        if (accountIds.isEmpty()) {
+            return ImmutableList.<AccountModelDao>of();
+        }
+
+        return transactionalSqlDao.execute(true, new EntitySqlDaoTransactionWrapper<List<AccountModelDao>>() {
+            @Override
+            public List<AccountModelDao> inTransaction(final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory) throws Exception {
+                final AccountSqlDao accountSqlDao = entitySqlDaoWrapperFactory.become(AccountSqlDao.class);
+                final List<AccountModelDao> accounts = new LinkedList<AccountModelDao>();
+                for (final List<UUID> chunk : Iterables.partition(accountIds, MAX_IDS_PER_QUERY)) {
+                    accounts.addAll(accountSqlDao.getByIds(ImmutableList.<String>copyOf(Collections2.transform(chunk, Functions.toStringFunction())), context));
+                }
+                return accounts;
+            }
+        });
+    }
+
     @Override
     public List<AuditLogWithHistory> getAuditLogsWithHistoryForId(final UUID accountId, final AuditLevel auditLevel, final InternalTenantContext context) throws AccountApiException {
         return transactionalSqlDao.execute(true, AccountApiException.class, new EntitySqlDaoTransactionWrapper<List<AuditLogWithHistory>>() {
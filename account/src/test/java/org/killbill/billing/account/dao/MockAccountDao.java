@@ -189,6 +189,16 @@ public class MockAccountDao extends MockEntityDaoBase<AccountModelDao, Account,
         }));
     }
 
+    @Override
+    public List<AccountModelDao> getByIds(final Collection<UUID> accountIds, final InternalTenantContext context) {
+        return ImmutableList.<AccountModelDao>copyOf(Iterables.<AccountModelDao>filter(accountSqlDao.getAll(context), new Predicate<AccountModelDao>() {
+            @Override
+            public boolean apply(final AccountModelDao input) {
+                return accountIds.contains(input.getId());
+            }
+        }));
+    }
+
     @Override
     public List<AuditLogWithHistory> getAuditLogsWithHistoryForId(final UUID accountId, final AuditLevel auditLevel, final InternalTenantContext context) throws AccountApiException {
         throw new UnsupportedOperationException();
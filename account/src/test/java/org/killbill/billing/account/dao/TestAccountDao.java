@@ -292,6 +292,34 @@ public class TestAccountDao extends AccountTestSuiteWithEmbeddedDB {
         Assert.assertNull(newAccountWithPMNull.getPaymentMethodId());
     }
 
+    @Test(groups = "slow", description = "Test Account DAO: retrieve several accounts at once")
+    public void testGetByIds() throws Exception {
+        final AccountModelDao accountWithPaymentMethod = createTestAccount();
+        accountDao.create(accountWithPaymentMethod, internalCallContext);
+        refreshCallContext(accountWithPaymentMethod.getId());
+        final UUID paymentMethodId = UUID.randomUUID();
+        accountDao.updatePaymentMethod(accountWithPaymentMethod.getId(), paymentMethodId, internalCallContext);
+
+        final AccountModelDao accountWithoutPaymentMethod = createTestAccount();
+        accountDao.create(accountWithoutPaymentMethod, internalCallContext);
+        refreshCallContext(accountWithoutPaymentMethod.getId());
+        accountDao.updatePaymentMethod(accountWithoutPaymentMethod.getId(), null, internalCallContext);
+
+        Assert.assertEquals(accountDao.getByIds(ImmutableList.<UUID>of(), internalCallContext).size(), 0);
+
+        // Unknown ids are ignored
+        final List<AccountModelDao> accounts = accountDao.getByIds(ImmutableList.<UUID>of(accountWithPaymentMethod.getId(), accountWithoutPaymentMethod.getId(), UUID.randomUUID()), internalCallContext);
+        Assert.assertEquals(accounts.size(), 2);
+        for (final AccountModelDao account : accounts) {
+            if (account.getId().equals(accountWithPaymentMethod.getId())) {
+                Assert.assertEquals(account.getPaymentMethodId(), paymentMethodId);
+            } else {
+                Assert.assertEquals(account.getId(), accountWithoutPaymentMethod.getId());
+                Assert.assertNull(account.getPaymentMethodId());
+            }
+        }
+    }
+
     @Test(groups = "slow", description = "Test Account DAO: basic update (2)")
     public void testShouldBeAbleToUpdateSomeFields() throws Exception {
         final AccountModelDao account = createTestAccount();
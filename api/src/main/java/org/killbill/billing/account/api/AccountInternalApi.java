@@ -18,6 +18,7 @@
 
 package org.killbill.billing.account.api;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -32,6 +33,9 @@ public interface AccountInternalApi extends ImmutableAccountInternalApi {
 
     Account getAccountByRecordId(Long recordId, InternalTenantContext context) throws AccountApiException;
 
+    // Unknown ids are ignored
+    List<Account> getAccountsByIds(Collection<UUID> accountIds, InternalTenantContext context);
+
     void updateBCD(String key, int bcd, InternalCallContext context) throws AccountApiException;
 
     int getBCD(InternalTenantContext context) throws AccountApiException;
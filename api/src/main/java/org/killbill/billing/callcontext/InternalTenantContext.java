@@ -59,6 +59,14 @@ public class InternalTenantContext extends TimeAwareContext {
         return tenantRecordId;
     }
 
+    // The cache isn't captured by the context: like its invalidation (see EntitySqlDaoTransactionalJdbiWrapper), it is bound to
+    // the current thread, so that a context handed over to another thread never reads entries that thread cannot invalidate
+    @Nullable
+    public RequestReadCache getRequestReadCache() {
+        final RequestReadCache requestReadCache = RequestReadCache.getCurrent();
+        return requestReadCache != null && !requestReadCache.isClosed() ? requestReadCache : null;
+    }
+
     @Override
     public String toString() {
         final StringBuilder sb = new StringBuilder();
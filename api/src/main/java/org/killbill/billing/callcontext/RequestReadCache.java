@@ -0,0 +1,170 @@
+/*
+ * Copyright 2014-2019 Groupon, Inc
+ * Copyright 2014-2019 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.callcontext;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nullable;
+
+/**
+ * Read cache scoped to a single request (API call, bus event, notification).
+ * <p>
+ * The cache is opened by the request entry point and bound to the request thread: DAOs called on that thread by the
+ * different modules share the rows already read (see {@link InternalTenantContext#getRequestReadCache()}). Any read-write
+ * transaction on that thread clears it (see EntitySqlDaoTransactionalJdbiWrapper). Work handed over to other threads
+ * doesn't see it.
+ * <p>
+ * Internal use only
+ */
+public class RequestReadCache {
+
+    private static final ThreadLocal<RequestReadCache> CURRENT = new ThreadLocal<RequestReadCache>();
+
+    private final ConcurrentMap<CacheKey, Object> entries = new ConcurrentHashMap<CacheKey, Object>();
+    private final AtomicLong nbReads = new AtomicLong();
+    private final AtomicLong nbHits = new AtomicLong();
+    private final AtomicLong nbInvalidations = new AtomicLong();
+
+    private volatile boolean closed = false;
+
+    /**
+     * Open a new cache for the current thread.
+     *
+     * @return the new cache, or null if one is already opened (nested call): only the outermost caller should close it
+     */
+    public static RequestReadCache open() {
+        if (CURRENT.get() != null) {
+            return null;
+        }
+
+        final RequestReadCache requestReadCache = new RequestReadCache();
+        CURRENT.set(requestReadCache);
+        return requestReadCache;
+    }
+
+    public static RequestReadCache getCurrent() {
+        return CURRENT.get();
+    }
+
+    public void close() {
+        closed = true;
+        entries.clear();
+        if (CURRENT.get() == this) {
+            CURRENT.remove();
+        }
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Nullable
+    public <T> T get(final String namespace, final InternalTenantContext context, final Object key) {
+        nbReads.incrementAndGet();
+        final Object value = entries.get(new CacheKey(namespace, context, key));
+        if (value != null) {
+            nbHits.incrementAndGet();
+        }
+        return (T) value;
+    }
+
+    public <T> void put(final String namespace, final InternalTenantContext context, final Object key, @Nullable final T value) {
+        if (closed || value == null) {
+            return;
+        }
+        entries.put(new CacheKey(namespace, context, key), value);
+    }
+
+    public void invalidateAll() {
+        if (!entries.isEmpty()) {
+            nbInvalidations.incrementAndGet();
+            entries.clear();
+        }
+    }
+
+    public long getNbReads() {
+        return nbReads.get();
+    }
+
+    // Number of duplicate reads avoided
+    public long getNbHits() {
+        return nbHits.get();
+    }
+
+    public long getNbInvalidations() {
+        return nbInvalidations.get();
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("RequestReadCache{");
+        sb.append("nbReads=").append(nbReads);
+        sb.append(", nbHits=").append(nbHits);
+        sb.append(", nbInvalidations=").append(nbInvalidations);
+        sb.append('}');
+        return sb.toString();
+    }
+
+    private static final class CacheKey {
+
+        private final String namespace;
+        private final Long tenantRecordId;
+        private final Long accountRecordId;
+        private final Object key;
+
+        private CacheKey(final String namespace, final InternalTenantContext context, final Object key) {
+            this.namespace = namespace;
+            this.tenantRecordId = context.getTenantRecordId();
+            this.accountRecordId = context.getAccountRecordId();
+            this.key = key;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+
+            final CacheKey that = (CacheKey) o;
+            if (!namespace.equals(that.namespace)) {
+                return false;
+            }
+            if (tenantRecordId != null ? !tenantRecordId.equals(that.tenantRecordId) : that.tenantRecordId != null) {
+                return false;
+            }
+            if (accountRecordId != null ? !accountRecordId.equals(that.accountRecordId) : that.accountRecordId != null) {
+                return false;
+            }
+            return key != null ? key.equals(that.key) : that.key == null;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = namespace.hashCode();
+            result = 31 * result + (tenantRecordId != null ? tenantRecordId.hashCode() : 0);
+            result = 31 * result + (accountRecordId != null ? accountRecordId.hashCode() : 0);
+            result = 31 * result + (key != null ? key.hashCode() : 0);
+            return result;
+        }
+    }
+}
@@ -23,4 +23,7 @@ public interface CatalogInternalApi {
 
     public Catalog getFullCatalog(boolean useDefaultCatalog, final boolean filterTemplateCatalog, InternalTenantContext context) throws CatalogApiException;
 
+    // Bulk load the override definitions of these plans (names without an override suffix are ignored)
+    public void preloadOverriddenPlans(Iterable<String> planNames, InternalTenantContext context);
+
 }
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2014-2019 Groupon, Inc
+ * Copyright 2014-2019 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.customfield;
+
+import java.util.List;
+
+import org.killbill.billing.util.api.CustomFieldApiException;
+import org.killbill.billing.util.callcontext.CallContext;
+import org.killbill.billing.util.customfield.CustomField;
+
+/**
+ * The interface {@code BulkCustomFieldUserApi} writes custom fields spanning many objects at once (e.g. after a migration).
+ * <p/>
+ * Unlike {@code CustomFieldUserApi}, the fields don't need to belong to the same object or account: they are
+ * written with batched statements (including their history and audit entries) in a single transaction.
+ */
+public interface BulkCustomFieldUserApi {
+
+    /**
+     * @param customFields the custom fields to add, each of them referencing its object
+     * @param context      the user callcontext
+     * @throws CustomFieldApiException if one of the fields already exists
+     */
+    public void addCustomFieldsToObjects(List<CustomField> customFields, CallContext context) throws CustomFieldApiException;
+
+    /**
+     * @param customFields the custom fields to remove (unknown fields are ignored)
+     * @param context      the user callcontext
+     * @throws CustomFieldApiException if the fields cannot be removed
+     */
+    public void removeCustomFieldsFromObjects(List<CustomField> customFields, CallContext context) throws CustomFieldApiException;
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2014-2019 Groupon, Inc
+ * Copyright 2014-2019 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.invoice.api;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.UUID;
+
+import org.joda.time.DateTime;
+
+/**
+ * Verification report of the materialized balances of an account: the persisted values are compared
+ * against values recomputed from scratch from all invoices, items and payments.
+ */
+public interface AccountBalanceLedger {
+
+    public UUID getAccountId();
+
+    /**
+     * @return the persisted account balance, or null if the account balances haven't been materialized yet
+     */
+    public BigDecimal getMaterializedBalance();
+
+    public BigDecimal getComputedBalance();
+
+    /**
+     * @return the persisted account CBA, or null if the account balances haven't been materialized yet
+     */
+    public BigDecimal getMaterializedCBA();
+
+    public BigDecimal getComputedCBA();
+
+    /**
+     * @return the persisted balances (null if missing) of the invoices whose balance drifted
+     */
+    public Map<UUID, BigDecimal> getDriftedMaterializedInvoiceBalances();
+
+    /**
+     * @return the recomputed balances of the invoices whose balance drifted
+     */
+    public Map<UUID, BigDecimal> getDriftedComputedInvoiceBalances();
+
+    public DateTime getMaterializedDate();
+
+    public boolean hasDrift();
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2014-2019 Groupon, Inc
+ * Copyright 2014-2019 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.invoice.api;
+
+import java.util.UUID;
+
+import org.killbill.billing.util.callcontext.CallContext;
+import org.killbill.billing.util.callcontext.TenantContext;
+
+public interface AccountBalanceLedgerInternalApi {
+
+    /**
+     * Recompute the balances of the account from scratch and compare them against the materialized ones.
+     *
+     * @param accountId the account id
+     * @param context   the tenant context
+     * @return the verification report
+     */
+    public AccountBalanceLedger verifyAccountBalanceLedger(UUID accountId, TenantContext context);
+
+    /**
+     * Rebuild the materialized balances of the account from scratch (e.g. to backfill accounts invoiced before
+     * the balances were materialized, or to fix a drift).
+     *
+     * @param accountId the account id
+     * @param context   the call context
+     * @return the verification report, after the rebuild
+     */
+    public AccountBalanceLedger rebuildAccountBalanceLedger(UUID accountId, CallContext context);
+}
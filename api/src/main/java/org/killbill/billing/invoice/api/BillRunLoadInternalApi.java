@@ -0,0 +1,38 @@
+/*
+ * Copyright 2014-2019 Groupon, Inc
+ * Copyright 2014-2019 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.invoice.api;
+
+import java.util.List;
+
+import org.joda.time.DateTime;
+import org.killbill.billing.util.callcontext.TenantContext;
+
+public interface BillRunLoadInternalApi {
+
+    /**
+     * Compute the density of the upcoming (invoice generation) next billing date notifications of the tenant, to verify
+     * how the invoicing load will be spread (see org.killbill.invoice.billRun.smoothingWindow).
+     *
+     * @param from          start of the projection (inclusive)
+     * @param to            end of the projection (exclusive)
+     * @param bucketMinutes size of each bucket, in minutes
+     * @param context       the tenant context
+     * @return the buckets, in chronological order (empty buckets included)
+     */
+    public List<BillRunLoadBucket> getProjectedLoad(DateTime from, DateTime to, int bucketMinutes, TenantContext context);
+}
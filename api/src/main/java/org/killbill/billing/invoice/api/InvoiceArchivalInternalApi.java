@@ -0,0 +1,45 @@
+/*
+ * Copyright 2014-2019 Groupon, Inc
+ * Copyright 2014-2019 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.invoice.api;
+
+import java.util.UUID;
+
+import org.killbill.billing.util.callcontext.CallContext;
+import org.killbill.billing.util.callcontext.TenantContext;
+
+public interface InvoiceArchivalInternalApi {
+
+    /**
+     * Move the closed invoices of the account older than the per-tenant horizon (org.killbill.invoice.archival.horizonMonths)
+     * to the archive tables. This is a no-op if archival is disabled for the tenant. Invoices with payments which can still
+     * be refunded or charged back (org.killbill.invoice.archival.paymentActivityMonths) are kept in the live tables.
+     *
+     * @param accountId the account id
+     * @param context   the call context
+     * @return the archive of the account, after archival
+     * @throws InvoiceApiException if the account lock cannot be acquired
+     */
+    public InvoiceArchive archiveInvoices(UUID accountId, CallContext context) throws InvoiceApiException;
+
+    /**
+     * @param accountId the account id
+     * @param context   the tenant context
+     * @return the archive of the account
+     */
+    public InvoiceArchive getInvoiceArchive(UUID accountId, TenantContext context);
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2014-2019 Groupon, Inc
+ * Copyright 2014-2019 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.invoice.api;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import org.joda.time.DateTime;
+import org.joda.time.LocalDate;
+
+/**
+ * Archived invoices of an account, along with the totals carried forward in the live tables.
+ */
+public interface InvoiceArchive {
+
+    public UUID getAccountId();
+
+    /**
+     * @return the latest date covered by the archived invoices (the invoice generator won't bill these periods again), or null if nothing was archived
+     */
+    public LocalDate getArchivedUpTo();
+
+    public int getNbInvoices();
+
+    /**
+     * @return the balance carried forward (zero, since only closed invoices are archived)
+     */
+    public BigDecimal getBalance();
+
+    /**
+     * @return the credit generated (or consumed) by the archived invoices, still part of the account CBA
+     */
+    public BigDecimal getCBA();
+
+    public DateTime getUpdatedDate();
+
+    public List<Invoice> getInvoices();
+}
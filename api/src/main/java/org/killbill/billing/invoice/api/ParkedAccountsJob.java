@@ -0,0 +1,52 @@
+/*
+ * Copyright 2014-2019 Groupon, Inc
+ * Copyright 2014-2019 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.invoice.api;
+
+import java.util.UUID;
+
+import org.joda.time.DateTime;
+
+public interface ParkedAccountsJob {
+
+    public UUID getId();
+
+    public String getState();
+
+    public boolean isEnumerationCompleted();
+
+    public int getNbAccounts();
+
+    public int getNbProcessed();
+
+    public int getNbSucceeded();
+
+    public int getNbNothingToDo();
+
+    public int getNbFailed();
+
+    public DateTime getCreatedDate();
+
+    public DateTime getUpdatedDate();
+
+    public DateTime getCompletedDate();
+
+    /**
+     * @return number of accounts processed per second, since the job started (until it completed, if it did)
+     */
+    public double getThroughput();
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2014-2019 Groupon, Inc
+ * Copyright 2014-2019 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.invoice.api;
+
+import java.util.UUID;
+
+import org.killbill.billing.util.callcontext.CallContext;
+import org.killbill.billing.util.callcontext.TenantContext;
+
+public interface ParkedAccountsJobInternalApi {
+
+    /**
+     * Start an asynchronous job re-invoicing all parked accounts of the tenant. The accounts are enumerated in
+     * chunks, which are processed by the invoice notification queue (i.e. across all nodes).
+     *
+     * @param context the call context
+     * @return the job id, to poll its progress
+     */
+    public UUID startParkedAccountsJob(CallContext context);
+
+    /**
+     * @param jobId   the job id
+     * @param context the tenant context
+     * @return the job, or null if no such job exists for that tenant
+     */
+    public ParkedAccountsJob getParkedAccountsJob(UUID jobId, TenantContext context);
+}
@@ -24,6 +24,7 @@ import org.killbill.billing.callcontext.InternalTenantContext;
 import org.killbill.billing.catalog.api.Catalog;
 import org.killbill.billing.entitlement.api.BlockingState;
 import org.killbill.billing.entitlement.api.BlockingStateType;
+import org.killbill.billing.subscription.api.SubscriptionBaseAccountGraph;
 
 public interface BlockingInternalApi {
 
@@ -31,5 +32,8 @@ public interface BlockingInternalApi {
 
     public List<BlockingState> getBlockingAllForAccount(final Catalog catalog, InternalTenantContext context);
 
+    // Special signature to re-use the subscriptions already loaded by the caller
+    public List<BlockingState> getBlockingAllForAccount(final Catalog catalog, SubscriptionBaseAccountGraph accountGraph, InternalTenantContext context);
+
     public void setBlockingState(BlockingState state, InternalCallContext context);
 }
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2014-2019 Groupon, Inc
+ * Copyright 2014-2019 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.subscription.api;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.killbill.billing.subscription.api.user.SubscriptionBaseBundle;
+
+// Bundles and subscriptions of an account, loaded at once so they can be shared by callers working on the same account
+public interface SubscriptionBaseAccountGraph {
+
+    public List<SubscriptionBaseBundle> getBundles();
+
+    // Map bundle id -> subscriptions (bundles without subscriptions are not present)
+    public Map<UUID, List<SubscriptionBase>> getSubscriptionsByBundleId();
+}
@@ -72,6 +72,8 @@ public interface SubscriptionBaseInternalApi {
 
     public Map<UUID, List<SubscriptionBase>> getSubscriptionsForAccount(final Catalog catalog, final InternalTenantContext context) throws SubscriptionBaseApiException;
 
+    public SubscriptionBaseAccountGraph getAccountGraph(final Catalog catalog, final InternalTenantContext context) throws SubscriptionBaseApiException;
+
     public SubscriptionBase getBaseSubscription(UUID bundleId, InternalTenantContext context) throws SubscriptionBaseApiException;
 
     public SubscriptionBase getSubscriptionFromId(UUID id, InternalTenantContext context) throws SubscriptionBaseApiException;
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2014-2019 Groupon, Inc
+ * Copyright 2014-2019 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.tag;
+
+import java.util.Collection;
+import java.util.UUID;
+
+import org.killbill.billing.ObjectType;
+import org.killbill.billing.util.api.TagApiException;
+import org.killbill.billing.util.callcontext.CallContext;
+
+/**
+ * The interface {@code BulkTagUserApi} applies the same tag to many objects at once (e.g. WRITTEN_OFF on a set of invoices).
+ * <p/>
+ * The tag definition is validated once, and all the rows (including their history and audit entries) are written
+ * with batched statements in a single transaction: either all objects are updated, or none is.
+ */
+public interface BulkTagUserApi {
+
+    /**
+     * @param objectIds       the unique ids of the objects to tag
+     * @param objectType      the type of these objects
+     * @param tagDefinitionId the tag definition to apply (objects which already have this tag are left untouched)
+     * @param context         the user callcontext
+     * @throws TagApiException if the tag definition doesn't exist
+     */
+    public void addTagToObjects(Collection<UUID> objectIds, ObjectType objectType, UUID tagDefinitionId, CallContext context) throws TagApiException;
+
+    /**
+     * @param objectIds       the unique ids of the tagged objects
+     * @param objectType      the type of these objects
+     * @param tagDefinitionId the tag definition to remove
+     * @param context         the user callcontext
+     * @throws TagApiException if the tag definition doesn't exist, if one of the objects doesn't have the tag, or when removing
+     *                         AUTO_PAY_OFF, if one of the accounts doesn't have a default payment method
+     */
+    public void removeTagFromObjects(Collection<UUID> objectIds, ObjectType objectType, UUID tagDefinitionId, CallContext context) throws TagApiException;
+}
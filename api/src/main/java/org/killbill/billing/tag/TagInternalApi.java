@@ -17,6 +17,7 @@
 package org.killbill.billing.tag;
 
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import org.killbill.billing.ObjectType;
@@ -45,6 +46,28 @@ public interface TagInternalApi {
 
     public List<Tag> getTagsForAccount(boolean includedDeleted, InternalTenantContext context);
 
+    /**
+     * Return the active control tags for a given object type in the account, served from a per-account cache
+     * (only invalidated on the local node, so not suitable to compute persisted state such as balances)
+     *
+     * @param objectType the object type
+     * @param context    call callcontext
+     * @return the control tags
+     */
+    public List<Tag> getControlTagsForAccountType(ObjectType objectType, InternalTenantContext context);
+
+    /**
+     * Return a page of the active tags of the tenant for a given definition, ordered by record id (keyset pagination)
+     *
+     * @param tagDefinitionId the tag definition id
+     * @param objectType      the object type
+     * @param fromRecordId    record id of the last tag of the previous page, or null for the first page
+     * @param limit           maximum number of tags to return
+     * @param context         call callcontext
+     * @return mapping tag record id -> tag, in ascending record id order
+     */
+    public Map<Long, Tag> getTagsForTagDefinition(UUID tagDefinitionId, ObjectType objectType, Long fromRecordId, Long limit, InternalTenantContext context);
+
     public void addTag(final UUID objectId, final ObjectType objectType, UUID tagDefinitionId, InternalCallContext context) throws TagApiException;
 
     public void removeTag(final UUID objectId, final ObjectType objectType, final UUID tagDefinitionId, InternalCallContext context) throws TagApiException;
@@ -22,6 +22,7 @@ import javax.inject.Inject;
 
 import org.killbill.billing.beatrix.bus.api.BeatrixService;
 import org.killbill.billing.beatrix.extbus.BeatrixListener;
+import org.killbill.billing.beatrix.extbus.ExternalBusEventBatcher;
 import org.killbill.billing.platform.api.LifecycleHandlerType;
 import org.killbill.billing.platform.api.LifecycleHandlerType.LifecycleLevel;
 import org.killbill.bus.api.PersistentBus;
@@ -30,12 +31,14 @@ public class DefaultBeatrixService implements BeatrixService {
 
 
     private final BeatrixListener beatrixListener;
+    private final ExternalBusEventBatcher externalBusEventBatcher;
     private final PersistentBus eventBus;
 
     @Inject
-    public DefaultBeatrixService(final PersistentBus eventBus, final BeatrixListener beatrixListener) {
+    public DefaultBeatrixService(final PersistentBus eventBus, final BeatrixListener beatrixListener, final ExternalBusEventBatcher externalBusEventBatcher) {
         this.eventBus = eventBus;
         this.beatrixListener = beatrixListener;
+        this.externalBusEventBatcher = externalBusEventBatcher;
     }
 
     @Override
@@ -50,6 +53,7 @@ public class DefaultBeatrixService implements BeatrixService {
 
     @LifecycleHandlerType(LifecycleLevel.INIT_SERVICE)
     public void registerForNotifications() {
+        externalBusEventBatcher.initialize();
         try {
             eventBus.register(beatrixListener);
         } catch (final PersistentBus.EventBusException e) {
@@ -64,5 +68,11 @@ public class DefaultBeatrixService implements BeatrixService {
         } catch (final PersistentBus.EventBusException e) {
             throw new RuntimeException("Unable to unregister to the EventBus!", e);
         }
+
+        try {
+            externalBusEventBatcher.stop();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 }
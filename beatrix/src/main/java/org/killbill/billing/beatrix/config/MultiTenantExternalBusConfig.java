@@ -0,0 +1,82 @@
+/*
+ * Copyright 2014-2019 Groupon, Inc
+ * Copyright 2014-2019 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.beatrix.config;
+
+import java.util.List;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import org.killbill.billing.beatrix.glue.BeatrixModule;
+import org.killbill.billing.callcontext.InternalTenantContext;
+import org.killbill.billing.util.config.definition.ExternalBusConfig;
+import org.killbill.billing.util.config.definition.KillbillConfig;
+import org.killbill.billing.util.config.tenant.CacheConfig;
+import org.killbill.billing.util.config.tenant.MultiTenantConfigBase;
+import org.skife.config.Param;
+import org.skife.config.TimeSpan;
+
+public class MultiTenantExternalBusConfig extends MultiTenantConfigBase implements ExternalBusConfig {
+
+    private final ExternalBusConfig staticConfig;
+
+    @Inject
+    public MultiTenantExternalBusConfig(@Named(BeatrixModule.STATIC_CONFIG) final ExternalBusConfig staticConfig, final CacheConfig cacheConfig) {
+        super(cacheConfig);
+        this.staticConfig = staticConfig;
+    }
+
+    @Override
+    public List<String> getSkippedEventTypes() {
+        return staticConfig.getSkippedEventTypes();
+    }
+
+    @Override
+    public List<String> getSkippedEventTypes(@Param("dummy") final InternalTenantContext tenantContext) {
+        final String result = getStringTenantConfig("getSkippedEventTypes", tenantContext);
+        if (result != null) {
+            return convertToListString(result, "getSkippedEventTypes");
+        }
+        return getSkippedEventTypes();
+    }
+
+    @Override
+    public boolean isBatchEnabled() {
+        return staticConfig.isBatchEnabled();
+    }
+
+    @Override
+    public int getBatchSize() {
+        return staticConfig.getBatchSize();
+    }
+
+    @Override
+    public TimeSpan getBatchMaxDelay() {
+        return staticConfig.getBatchMaxDelay();
+    }
+
+    @Override
+    public int getMainBusThreadNb() {
+        return staticConfig.getMainBusThreadNb();
+    }
+
+    @Override
+    protected Class<? extends KillbillConfig> getConfigClass() {
+        return ExternalBusConfig.class;
+    }
+}
@@ -18,11 +18,13 @@
 
 package org.killbill.billing.beatrix.extbus;
 
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.annotation.Nullable;
 import javax.inject.Inject;
-import javax.inject.Named;
 
 import org.killbill.billing.ObjectType;
 import org.killbill.billing.callcontext.InternalCallContext;
@@ -54,7 +56,6 @@ import org.killbill.billing.events.TenantConfigChangeInternalEvent;
 import org.killbill.billing.events.TenantConfigDeletionInternalEvent;
 import org.killbill.billing.events.UserTagCreationInternalEvent;
 import org.killbill.billing.events.UserTagDeletionInternalEvent;
-import org.killbill.billing.lifecycle.glue.BusModule;
 import org.killbill.billing.notification.plugin.api.BlockingStateMetadata;
 import org.killbill.billing.notification.plugin.api.BroadcastMetadata;
 import org.killbill.billing.notification.plugin.api.ExtBusEventType;
@@ -69,14 +70,15 @@ import org.killbill.billing.util.callcontext.CallOrigin;
 import org.killbill.billing.util.callcontext.InternalCallContextFactory;
 import org.killbill.billing.util.callcontext.TenantContext;
 import org.killbill.billing.util.callcontext.UserType;
+import org.killbill.billing.util.config.definition.ExternalBusConfig;
 import org.killbill.bus.api.BusEvent;
-import org.killbill.bus.api.PersistentBus;
 import org.killbill.bus.api.PersistentBus.EventBusException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.joda.JodaModule;
 import com.google.common.eventbus.AllowConcurrentEvents;
@@ -86,15 +88,21 @@ public class BeatrixListener {
 
     private static final Logger log = LoggerFactory.getLogger(BeatrixListener.class);
 
-    private final PersistentBus externalBus;
+    private final ExternalBusEventBatcher externalBusEventBatcher;
+    private final ExternalBusConfig externalBusConfig;
     private final InternalCallContextFactory internalCallContextFactory;
 
+    // Writers are immutable and thread-safe: build them once per metadata class instead of resolving the serializers for each event
+    private final ConcurrentMap<Class<?>, ObjectWriter> metadataWriters = new ConcurrentHashMap<Class<?>, ObjectWriter>();
+
     protected ObjectMapper objectMapper;
 
     @Inject
-    public BeatrixListener(@Named(BusModule.EXTERNAL_BUS_NAMED) final PersistentBus externalBus,
+    public BeatrixListener(final ExternalBusEventBatcher externalBusEventBatcher,
+                           final ExternalBusConfig externalBusConfig,
                            final InternalCallContextFactory internalCallContextFactory) {
-        this.externalBus = externalBus;
+        this.externalBusEventBatcher = externalBusEventBatcher;
+        this.externalBusConfig = externalBusConfig;
         this.internalCallContextFactory = internalCallContextFactory;
         this.objectMapper = new ObjectMapper();
         objectMapper.registerModule(new JodaModule());
@@ -109,7 +117,7 @@ public class BeatrixListener {
             final BusEvent externalEvent = computeExtBusEventEntryFromBusInternalEvent(event, internalContext);
             if (externalEvent != null) {
                 log.info("Sending extBusEvent='{}' from busEvent='{}'", externalEvent, event);
-                externalBus.post(externalEvent);
+                externalBusEventBatcher.post(externalEvent);
             }
         } catch (final EventBusException e) {
             //
@@ -167,7 +175,7 @@ public class BeatrixListener {
 
                 SubscriptionMetadata.ActionType actionType = (event instanceof EffectiveSubscriptionInternalEvent) ? ActionType.EFFECTIVE : ActionType.REQUESTED;
                 final SubscriptionMetadata subscriptionMetadataObj = new SubscriptionMetadata(actionType, realEventST.getBundleExternalKey());
-                metaData = objectMapper.writeValueAsString(subscriptionMetadataObj);
+                metaData = writeMetadata(subscriptionMetadataObj);
                 break;
 
             case BLOCKING_STATE:
@@ -197,7 +205,7 @@ public class BeatrixListener {
                     final BlockingStateMetadata blockingStateMetadata = new BlockingStateMetadata(realEventBS.getBlockableId(), realEventBS.getService(), realEventBS.getStateName(), realEventBS.getBlockingType(), realEventBS.getEffectiveDate(),
                                                                                         realEventBS.isTransitionedToBlockedBilling(), realEventBS.isTransitionedToUnblockedBilling(),
                                                                                         realEventBS.isTransitionedToBlockedEntitlement(), realEventBS.isTransitionedToUnblockedEntitlement());
-                    metaData = objectMapper.writeValueAsString(blockingStateMetadata);
+                    metaData = writeMetadata(blockingStateMetadata);
                 }
                 break;
 
@@ -218,7 +226,7 @@ public class BeatrixListener {
                 final InvoiceNotificationMetadata invoiceNotificationMetadata = new InvoiceNotificationMetadata(realEventInvNotification.getTargetDate(),
                                                                                                 realEventInvNotification.getAmountOwed(),
                                                                                                 realEventInvNotification.getCurrency());
-                metaData = objectMapper.writeValueAsString(invoiceNotificationMetadata);
+                metaData = writeMetadata(invoiceNotificationMetadata);
                 break;
 
 
@@ -235,7 +243,7 @@ public class BeatrixListener {
                 objectId = realEventInvPay.getInvoiceId();
                 eventBusType = ExtBusEventType.INVOICE_PAYMENT_SUCCESS;
                 final InvoicePaymentMetadata invoicePaymentInfoMetaDataObj = new InvoicePaymentMetadata(realEventInvPay.getPaymentId(), realEventInvPay.getType(), realEventInvPay.getPaymentDate(), realEventInvPay.getAmount(), realEventInvPay.getCurrency(), realEventInvPay.getLinkedInvoicePaymentId(), realEventInvPay.getPaymentCookieId(), realEventInvPay.getProcessedCurrency());
-                metaData = objectMapper.writeValueAsString(invoicePaymentInfoMetaDataObj);
+                metaData = writeMetadata(invoicePaymentInfoMetaDataObj);
                 break;
 
             case INVOICE_PAYMENT_ERROR:
@@ -244,7 +252,7 @@ public class BeatrixListener {
                 objectId = realEventInvPayErr.getInvoiceId();
                 eventBusType = ExtBusEventType.INVOICE_PAYMENT_FAILED;
                 final InvoicePaymentMetadata invoicePaymentErrorMetaDataObj = new InvoicePaymentMetadata(realEventInvPayErr.getPaymentId(), realEventInvPayErr.getType(), realEventInvPayErr.getPaymentDate(), realEventInvPayErr.getAmount(), realEventInvPayErr.getCurrency(), realEventInvPayErr.getLinkedInvoicePaymentId(), realEventInvPayErr.getPaymentCookieId(), realEventInvPayErr.getProcessedCurrency());
-                metaData = objectMapper.writeValueAsString(invoicePaymentErrorMetaDataObj);
+                metaData = writeMetadata(invoicePaymentErrorMetaDataObj);
                 break;
 
             case PAYMENT_INFO:
@@ -253,7 +261,7 @@ public class BeatrixListener {
                 objectId = realEventPay.getPaymentId();
                 eventBusType = ExtBusEventType.PAYMENT_SUCCESS;
                 final PaymentMetadata paymentInfoMetaDataObj = new PaymentMetadata(realEventPay.getPaymentTransactionId(), realEventPay.getAmount(), realEventPay.getCurrency(), realEventPay.getStatus(), realEventPay.getTransactionType(), realEventPay.getEffectiveDate());
-                metaData = objectMapper.writeValueAsString(paymentInfoMetaDataObj);
+                metaData = writeMetadata(paymentInfoMetaDataObj);
                 break;
 
             case PAYMENT_ERROR:
@@ -263,7 +271,7 @@ public class BeatrixListener {
                 eventBusType = ExtBusEventType.PAYMENT_FAILED;
                 accountId = realEventPayErr.getAccountId();
                 final PaymentMetadata paymentErrorMetaDataObj = new PaymentMetadata(realEventPayErr.getPaymentTransactionId(), realEventPayErr.getAmount(), realEventPayErr.getCurrency(), realEventPayErr.getStatus(), realEventPayErr.getTransactionType(), realEventPayErr.getEffectiveDate());
-                metaData = objectMapper.writeValueAsString(paymentErrorMetaDataObj);
+                metaData = writeMetadata(paymentErrorMetaDataObj);
                 break;
 
             case PAYMENT_PLUGIN_ERROR:
@@ -272,7 +280,7 @@ public class BeatrixListener {
                 objectId = realEventPayPluginErr.getPaymentId();
                 eventBusType = ExtBusEventType.PAYMENT_FAILED;
                 final PaymentMetadata pluginErrorMetaDataObj = new PaymentMetadata(realEventPayPluginErr.getPaymentTransactionId(), realEventPayPluginErr.getAmount(), realEventPayPluginErr.getCurrency(), realEventPayPluginErr.getStatus(), realEventPayPluginErr.getTransactionType(), realEventPayPluginErr.getEffectiveDate());
-                metaData = objectMapper.writeValueAsString(pluginErrorMetaDataObj);
+                metaData = writeMetadata(pluginErrorMetaDataObj);
                 break;
 
             case OVERDUE_CHANGE:
@@ -346,21 +354,38 @@ public class BeatrixListener {
                 objectId = null;
                 eventBusType = ExtBusEventType.BROADCAST_SERVICE;
                 final BroadcastMetadata broadcastMetadata = new BroadcastMetadata(realBroadcastEvent.getServiceName(), realBroadcastEvent.getType(), realBroadcastEvent.getJsonEvent());
-                metaData = objectMapper.writeValueAsString(broadcastMetadata);
+                metaData = writeMetadata(broadcastMetadata);
                 break;
 
             default:
         }
 
+        if (eventBusType == null || isSkipped(eventBusType, context)) {
+            return null;
+        }
+
         final TenantContext tenantContext = internalCallContextFactory.createTenantContext(context);
         // See #275
         accountId = (accountId == null) ?
                     getAccountId(event.getBusEventType(), objectId, objectType, tenantContext) :
                     accountId;
 
-        return eventBusType != null ?
-               new DefaultBusExternalEvent(objectId, objectType, eventBusType, accountId, tenantContext.getTenantId(), metaData, context.getAccountRecordId(), context.getTenantRecordId(), context.getUserToken()) :
-               null;
+        return new DefaultBusExternalEvent(objectId, objectType, eventBusType, accountId, tenantContext.getTenantId(), metaData, context.getAccountRecordId(), context.getTenantRecordId(), context.getUserToken());
+    }
+
+    // Tenants can opt-out of event types no plugin consumes
+    private boolean isSkipped(final ExtBusEventType eventBusType, final InternalCallContext context) {
+        final List<String> skippedEventTypes = externalBusConfig.getSkippedEventTypes(context);
+        return skippedEventTypes != null && skippedEventTypes.contains(eventBusType.name());
+    }
+
+    private String writeMetadata(final Object metadata) throws JsonProcessingException {
+        ObjectWriter writer = metadataWriters.get(metadata.getClass());
+        if (writer == null) {
+            writer = objectMapper.writerFor(metadata.getClass());
+            metadataWriters.putIfAbsent(metadata.getClass(), writer);
+        }
+        return writer.writeValueAsString(metadata);
     }
 
     private UUID getAccountId(final BusInternalEventType eventType, @Nullable final UUID objectId, final ObjectType objectType, final TenantContext context) {
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2014-2019 Groupon, Inc
+ * Copyright 2014-2019 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.beatrix.extbus;
+
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import org.killbill.billing.lifecycle.glue.BusModule;
+import org.killbill.billing.util.batch.BatchCollector;
+import org.killbill.billing.util.batch.BatchCollector.BatchDispatcher;
+import org.killbill.billing.util.batch.BatchItem;
+import org.killbill.billing.util.config.definition.ExternalBusConfig;
+import org.killbill.billing.util.metrics.BillingMetrics;
+import org.killbill.bus.api.BusEvent;
+import org.killbill.bus.api.PersistentBus;
+import org.killbill.bus.api.PersistentBus.EventBusException;
+import org.killbill.commons.concurrent.Executors;
+import org.skife.jdbi.v2.Handle;
+import org.skife.jdbi.v2.IDBI;
+import org.skife.jdbi.v2.TransactionCallback;
+import org.skife.jdbi.v2.TransactionStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Posts the events to the external bus.
+ * <p>
+ * When batching is enabled, the internal bus dispatch threads hand their external event over to a {@link BatchCollector}
+ * and wait until it has been posted. All events of a batch are inserted in a single transaction, instead of one
+ * transaction per event. The batch size defaults to the number of main bus threads, so that a batch is posted as soon as
+ * all of them are waiting.
+ */
+public class ExternalBusEventBatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(ExternalBusEventBatcher.class);
+
+    private static final long TIMEOUT_EXECUTOR_SEC = 3L;
+
+    private final PersistentBus externalBus;
+    private final IDBI dbi;
+    private final ExternalBusConfig externalBusConfig;
+    private final BillingMetrics billingMetrics;
+    private final BatchCollector<PendingEvent> batchCollector;
+
+    // Only set when batching is enabled
+    private volatile ScheduledExecutorService executor;
+
+    @Inject
+    public ExternalBusEventBatcher(@Named(BusModule.EXTERNAL_BUS_NAMED) final PersistentBus externalBus,
+                                   final IDBI dbi,
+                                   final ExternalBusConfig externalBusConfig,
+                                   final BillingMetrics billingMetrics) {
+        this.externalBus = externalBus;
+        this.dbi = dbi;
+        this.externalBusConfig = externalBusConfig;
+        this.billingMetrics = billingMetrics;
+        this.batchCollector = new BatchCollector<PendingEvent>("external bus",
+                                                               new BatchDispatcher<PendingEvent>() {
+                                                                   @Override
+                                                                   public void dispatch(final List<PendingEvent> batch) {
+                                                                       postBatch(batch);
+                                                                   }
+                                                               });
+    }
+
+    public void initialize() {
+        if (externalBusConfig.isBatchEnabled()) {
+            executor = Executors.newSingleThreadScheduledExecutor("ExtBusEventBatch");
+        }
+    }
+
+    public void stop() throws InterruptedException {
+        final ScheduledExecutorService currentExecutor = executor;
+        if (currentExecutor == null) {
+            return;
+        }
+        executor = null;
+
+        currentExecutor.shutdownNow();
+        currentExecutor.awaitTermination(TIMEOUT_EXECUTOR_SEC, TimeUnit.SECONDS);
+
+        // Don't leave the bus threads waiting
+        final List<PendingEvent> remainingEvents = batchCollector.drainPendingItems();
+        if (!remainingEvents.isEmpty()) {
+            postBatch(remainingEvents);
+        }
+    }
+
+    public void post(final BusEvent event) throws EventBusException {
+        final ScheduledExecutorService currentExecutor = executor;
+        final int batchSize = BatchCollector.getBatchSize(externalBusConfig.getBatchSize(), externalBusConfig.getMainBusThreadNb());
+        if (currentExecutor == null || batchSize <= 1) {
+            externalBus.post(event);
+            return;
+        }
+
+        // The thread filling up the batch posts it
+        final PendingEvent pendingEvent = new PendingEvent(event);
+        batchCollector.add(pendingEvent, batchSize, externalBusConfig.getBatchMaxDelay().getMillis(), currentExecutor);
+
+        final Exception failure;
+        try {
+            failure = pendingEvent.awaitCompletion();
+        } catch (final InterruptedException e) {
+            // The bus will retry the event
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the external bus batch, event=" + event, e);
+        }
+        if (failure instanceof EventBusException) {
+            throw (EventBusException) failure;
+        } else if (failure != null) {
+            throw (RuntimeException) failure;
+        }
+    }
+
+    private void postBatch(final List<PendingEvent> batch) {
+        final long startNanos = System.nanoTime();
+        try {
+            dbi.inTransaction(new TransactionCallback<Void>() {
+                @Override
+                public Void inTransaction(final Handle handle, final TransactionStatus status) throws Exception {
+                    for (final PendingEvent pendingEvent : batch) {
+                        externalBus.postFromTransaction(pendingEvent.getEvent(), handle.getConnection());
+                    }
+                    return null;
+                }
+            });
+            for (final PendingEvent pendingEvent : batch) {
+                pendingEvent.complete();
+            }
+        } catch (final RuntimeException e) {
+            log.warn("Failed to post a batch of {} external bus events, posting them one at a time", batch.size(), e);
+            for (final PendingEvent pendingEvent : batch) {
+                postOne(pendingEvent);
+            }
+        } finally {
+            // Make sure nobody is left waiting, whatever happened
+            for (final PendingEvent pendingEvent : batch) {
+                if (!pendingEvent.isCompleted()) {
+                    pendingEvent.fail(new IllegalStateException("External bus batch aborted for " + pendingEvent.getEvent()));
+                }
+            }
+            billingMetrics.recordValue("killbill.beatrix.extbus.batch.size", batch.size());
+            billingMetrics.recordDuration("killbill.beatrix.extbus.batch", System.nanoTime() - startNanos);
+        }
+    }
+
+    private void postOne(final PendingEvent pendingEvent) {
+        try {
+            externalBus.post(pendingEvent.getEvent());
+            pendingEvent.complete();
+        } catch (final EventBusException e) {
+            pendingEvent.fail(e);
+        } catch (final RuntimeException e) {
+            pendingEvent.fail(e);
+        }
+    }
+
+    private static final class PendingEvent extends BatchItem {
+
+        private final BusEvent event;
+
+        private PendingEvent(final BusEvent event) {
+            this.event = event;
+        }
+
+        private BusEvent getEvent() {
+            return event;
+        }
+    }
+}
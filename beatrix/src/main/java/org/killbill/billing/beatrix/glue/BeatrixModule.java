@@ -20,25 +20,41 @@ package org.killbill.billing.beatrix.glue;
 
 import org.killbill.billing.beatrix.DefaultBeatrixService;
 import org.killbill.billing.beatrix.bus.api.BeatrixService;
+import org.killbill.billing.beatrix.config.MultiTenantExternalBusConfig;
 import org.killbill.billing.beatrix.extbus.BeatrixListener;
+import org.killbill.billing.beatrix.extbus.ExternalBusEventBatcher;
 import org.killbill.billing.platform.api.KillbillConfigSource;
+import org.killbill.billing.util.config.definition.ExternalBusConfig;
 import org.killbill.billing.util.glue.KillBillModule;
+import org.skife.config.ConfigurationObjectFactory;
+
+import com.google.inject.name.Names;
 
 public class BeatrixModule extends KillBillModule {
 
+    public static final String STATIC_CONFIG = "StaticConfig";
+
     public BeatrixModule(final KillbillConfigSource configSource) {
         super(configSource);
     }
 
     @Override
     protected void configure() {
+        installConfig();
         installExternalBus();
     }
 
+    protected void installConfig() {
+        final ExternalBusConfig externalBusConfig = new ConfigurationObjectFactory(skifeConfigSource).build(ExternalBusConfig.class);
+        bind(ExternalBusConfig.class).annotatedWith(Names.named(STATIC_CONFIG)).toInstance(externalBusConfig);
+        bind(ExternalBusConfig.class).to(MultiTenantExternalBusConfig.class).asEagerSingleton();
+    }
+
     protected void installExternalBus() {
         bind(BeatrixService.class).to(DefaultBeatrixService.class);
         bind(DefaultBeatrixService.class).asEagerSingleton();
 
+        bind(ExternalBusEventBatcher.class).asEagerSingleton();
         bind(BeatrixListener.class).asEagerSingleton();
     }
 }
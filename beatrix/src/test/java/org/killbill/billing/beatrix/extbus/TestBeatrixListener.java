@@ -59,6 +59,8 @@ import org.killbill.billing.util.callcontext.CallOrigin;
 import org.killbill.billing.util.callcontext.InternalCallContextFactory;
 import org.killbill.billing.util.callcontext.TenantContext;
 import org.killbill.billing.util.callcontext.UserType;
+import org.killbill.billing.util.config.definition.ExternalBusConfig;
+import org.killbill.billing.util.metrics.BillingMetrics;
 import org.killbill.bus.api.BusEvent;
 import org.killbill.bus.api.PersistentBus;
 import org.killbill.bus.api.PersistentBus.EventBusException;
@@ -68,6 +70,8 @@ import org.testng.annotations.Test;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.google.common.collect.ImmutableList;
 
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyObject;
@@ -107,17 +111,24 @@ public class TestBeatrixListener {
 
     private BeatrixListener beatrixListener;
     private PersistentBus externalBus;
+    private ExternalBusConfig externalBusConfig;
     private InternalCallContextFactory internalCallContextFactory;
     private TenantContext tenantContext;
     private ObjectMapper objectMapper;
+    private ObjectWriter objectWriter;
 
     @BeforeMethod(groups = "fast")
     public void setUp() throws Exception {
         externalBus = mock(PersistentBus.class);
+        externalBusConfig = mock(ExternalBusConfig.class);
         internalCallContextFactory = mock(InternalCallContextFactory.class);
-        beatrixListener = new BeatrixListener(externalBus, internalCallContextFactory);
+        // Batching disabled (batcher not initialized): events are posted directly
+        final ExternalBusEventBatcher externalBusEventBatcher = new ExternalBusEventBatcher(externalBus, null, externalBusConfig, new BillingMetrics());
+        beatrixListener = new BeatrixListener(externalBusEventBatcher, externalBusConfig, internalCallContextFactory);
 
         objectMapper = mock(ObjectMapper.class);
+        objectWriter = mock(ObjectWriter.class);
+        when(objectMapper.writerFor(any(Class.class))).thenReturn(objectWriter);
         beatrixListener.objectMapper = objectMapper;
 
         InternalCallContext internalContext = new InternalCallContext(
@@ -272,7 +283,7 @@ public class TestBeatrixListener {
         provideCommonInvoicePaymentInfo(event);
 
         ArgumentCaptor<InvoicePaymentMetadata> metadataCaptor = ArgumentCaptor.forClass(InvoicePaymentMetadata.class);
-        when(objectMapper.writeValueAsString(metadataCaptor.capture())).thenReturn(METADATA);
+        when(objectWriter.writeValueAsString(metadataCaptor.capture())).thenReturn(METADATA);
 
         when(internalCallContextFactory.getAccountId(
                 OBJECT_ID,
@@ -306,7 +317,7 @@ public class TestBeatrixListener {
         provideCommonInvoicePaymentInfo(event);
 
         ArgumentCaptor<InvoicePaymentMetadata> metadataCaptor = ArgumentCaptor.forClass(InvoicePaymentMetadata.class);
-        when(objectMapper.writeValueAsString(metadataCaptor.capture())).thenReturn(METADATA);
+        when(objectWriter.writeValueAsString(metadataCaptor.capture())).thenReturn(METADATA);
 
         when(internalCallContextFactory.getAccountId(
                 OBJECT_ID,
@@ -340,7 +351,7 @@ public class TestBeatrixListener {
         provideCommonPaymentInfo(event);
 
         ArgumentCaptor<PaymentMetadata> metadataCaptor = ArgumentCaptor.forClass(PaymentMetadata.class);
-        when(objectMapper.writeValueAsString(metadataCaptor.capture())).thenReturn(METADATA);
+        when(objectWriter.writeValueAsString(metadataCaptor.capture())).thenReturn(METADATA);
 
         when(internalCallContextFactory.getAccountId(
                 OBJECT_ID,
@@ -375,7 +386,7 @@ public class TestBeatrixListener {
         provideCommonPaymentInfo(event);
 
         ArgumentCaptor<PaymentMetadata> metadataCaptor = ArgumentCaptor.forClass(PaymentMetadata.class);
-        when(objectMapper.writeValueAsString(metadataCaptor.capture())).thenReturn(METADATA);
+        when(objectWriter.writeValueAsString(metadataCaptor.capture())).thenReturn(METADATA);
 
         ArgumentCaptor<BusEvent> eventCaptor = ArgumentCaptor.forClass(BusEvent.class);
 
@@ -403,7 +414,7 @@ public class TestBeatrixListener {
         provideCommonPaymentInfo(event);
 
         ArgumentCaptor<PaymentMetadata> metadataCaptor = ArgumentCaptor.forClass(PaymentMetadata.class);
-        when(objectMapper.writeValueAsString(metadataCaptor.capture())).thenReturn(METADATA);
+        when(objectWriter.writeValueAsString(metadataCaptor.capture())).thenReturn(METADATA);
 
         when(internalCallContextFactory.getAccountId(
                 OBJECT_ID,
@@ -670,7 +681,7 @@ public class TestBeatrixListener {
         when(event.getJsonEvent()).thenReturn(BROADCAST_EVENT_JSON);
 
         ArgumentCaptor<BroadcastMetadata> metadataCaptor = ArgumentCaptor.forClass(BroadcastMetadata.class);
-        when(objectMapper.writeValueAsString(metadataCaptor.capture())).thenReturn(METADATA);
+        when(objectWriter.writeValueAsString(metadataCaptor.capture())).thenReturn(METADATA);
 
         ArgumentCaptor<BusEvent> eventCaptor = ArgumentCaptor.forClass(BusEvent.class);
 
@@ -700,11 +711,25 @@ public class TestBeatrixListener {
         verify(externalBus, never()).post(any(BusEvent.class));
     }
 
+    @Test(groups = "fast")
+    public void testSkippedEventType() throws Exception {
+        AccountCreationInternalEvent event = mock(AccountCreationInternalEvent.class);
+        provideCommonBusEventInfo(event);
+        when(event.getBusEventType()).thenReturn(BusInternalEventType.ACCOUNT_CREATE);
+        when(event.getId()).thenReturn(ACCOUNT_ID);
+
+        when(externalBusConfig.getSkippedEventTypes(any(InternalCallContext.class))).thenReturn(ImmutableList.<String>of(ExtBusEventType.ACCOUNT_CREATION.name()));
+
+        beatrixListener.handleAllInternalKillbillEvents(event);
+
+        verify(externalBus, never()).post(any(BusEvent.class));
+    }
+
     @Test(groups = "fast")
     public void testJsonProcessingException() throws Exception {
         InvoicePaymentInfoInternalEvent event = mock(InvoicePaymentInfoInternalEvent.class);
         when(event.getBusEventType()).thenReturn(BusInternalEventType.INVOICE_PAYMENT_INFO);
-        when(objectMapper.writeValueAsString(anyObject())).thenThrow(JsonProcessingException.class);
+        when(objectWriter.writeValueAsString(anyObject())).thenThrow(JsonProcessingException.class);
 
         // Just make sure exception gets swallowed.
         beatrixListener.handleAllInternalKillbillEvents(event);
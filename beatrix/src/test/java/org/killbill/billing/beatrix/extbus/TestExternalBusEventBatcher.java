@@ -0,0 +1,193 @@
+/*
+ * Copyright 2014-2019 Groupon, Inc
+ * Copyright 2014-2019 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.beatrix.extbus;
+
+import java.sql.Connection;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.killbill.billing.util.config.definition.ExternalBusConfig;
+import org.killbill.billing.util.metrics.BillingMetrics;
+import org.killbill.bus.api.BusEvent;
+import org.killbill.bus.api.PersistentBus;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.skife.config.TimeSpan;
+import org.skife.jdbi.v2.Handle;
+import org.skife.jdbi.v2.IDBI;
+import org.skife.jdbi.v2.TransactionCallback;
+import org.skife.jdbi.v2.exceptions.TransactionFailedException;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class TestExternalBusEventBatcher {
+
+    private PersistentBus externalBus;
+    private IDBI dbi;
+    private Handle handle;
+    private ExternalBusConfig externalBusConfig;
+    private ExternalBusEventBatcher externalBusEventBatcher;
+
+    @BeforeMethod(groups = "fast")
+    public void setUp() throws Exception {
+        externalBus = Mockito.mock(PersistentBus.class);
+        handle = Mockito.mock(Handle.class);
+        Mockito.when(handle.getConnection()).thenReturn(Mockito.mock(Connection.class));
+        dbi = Mockito.mock(IDBI.class);
+        Mockito.when(dbi.inTransaction(Mockito.<TransactionCallback<Object>>any())).thenAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(final InvocationOnMock invocation) throws Throwable {
+                return ((TransactionCallback) invocation.getArguments()[0]).inTransaction(handle, null);
+            }
+        });
+
+        externalBusConfig = Mockito.mock(ExternalBusConfig.class);
+        Mockito.when(externalBusConfig.isBatchEnabled()).thenReturn(true);
+        Mockito.when(externalBusConfig.getBatchSize()).thenReturn(3);
+        Mockito.when(externalBusConfig.getBatchMaxDelay()).thenReturn(new TimeSpan("100ms"));
+        Mockito.when(externalBusConfig.getMainBusThreadNb()).thenReturn(30);
+
+        externalBusEventBatcher = new ExternalBusEventBatcher(externalBus, dbi, externalBusConfig, new BillingMetrics());
+        externalBusEventBatcher.initialize();
+    }
+
+    @AfterMethod(groups = "fast")
+    public void tearDown() throws Exception {
+        externalBusEventBatcher.stop();
+    }
+
+    @Test(groups = "fast")
+    public void testEventsArePostedInASingleTransaction() throws Exception {
+        final List<BusEvent> events = postConcurrently(3);
+
+        Mockito.verify(dbi, Mockito.times(1)).inTransaction(Mockito.<TransactionCallback<Object>>any());
+        for (final BusEvent event : events) {
+            Mockito.verify(externalBus, Mockito.times(1)).postFromTransaction(Mockito.eq(event), Mockito.<Connection>any());
+        }
+        Mockito.verify(externalBus, Mockito.never()).post(Mockito.<BusEvent>any());
+    }
+
+    @Test(groups = "fast")
+    public void testPartialBatchIsPostedAfterMaxDelay() throws Exception {
+        final List<BusEvent> events = postConcurrently(2);
+
+        Mockito.verify(dbi, Mockito.times(1)).inTransaction(Mockito.<TransactionCallback<Object>>any());
+        for (final BusEvent event : events) {
+            Mockito.verify(externalBus, Mockito.times(1)).postFromTransaction(Mockito.eq(event), Mockito.<Connection>any());
+        }
+    }
+
+    @Test(groups = "fast")
+    public void testDefaultBatchSizeIsBusThreadNb() throws Exception {
+        // The batch is posted as soon as all bus threads are waiting, long before the maximum delay
+        Mockito.when(externalBusConfig.getBatchSize()).thenReturn(0);
+        Mockito.when(externalBusConfig.getMainBusThreadNb()).thenReturn(3);
+        Mockito.when(externalBusConfig.getBatchMaxDelay()).thenReturn(new TimeSpan("1m"));
+
+        final List<BusEvent> events = postConcurrently(3);
+
+        Mockito.verify(dbi, Mockito.times(1)).inTransaction(Mockito.<TransactionCallback<Object>>any());
+        for (final BusEvent event : events) {
+            Mockito.verify(externalBus, Mockito.times(1)).postFromTransaction(Mockito.eq(event), Mockito.<Connection>any());
+        }
+    }
+
+    @Test(groups = "fast")
+    public void testFallbackToSinglePostsWhenBatchFails() throws Exception {
+        Mockito.doThrow(new TransactionFailedException("Deadlock")).when(dbi).inTransaction(Mockito.<TransactionCallback<Object>>any());
+
+        final List<BusEvent> events = postConcurrently(3);
+
+        for (final BusEvent event : events) {
+            Mockito.verify(externalBus, Mockito.times(1)).post(event);
+        }
+    }
+
+    @Test(groups = "fast")
+    public void testBatchingDisabled() throws Exception {
+        externalBusEventBatcher.stop();
+        Mockito.when(externalBusConfig.isBatchEnabled()).thenReturn(false);
+        externalBusEventBatcher.initialize();
+
+        final BusEvent event = Mockito.mock(BusEvent.class);
+        externalBusEventBatcher.post(event);
+
+        Mockito.verify(externalBus, Mockito.times(1)).post(event);
+        Mockito.verify(dbi, Mockito.never()).inTransaction(Mockito.<TransactionCallback<Object>>any());
+    }
+
+    @Test(groups = "fast")
+    public void testBatchingDisabledWithSingleBusThread() throws Exception {
+        Mockito.when(externalBusConfig.getMainBusThreadNb()).thenReturn(1);
+
+        final BusEvent event = Mockito.mock(BusEvent.class);
+        externalBusEventBatcher.post(event);
+
+        Mockito.verify(externalBus, Mockito.times(1)).post(event);
+        Mockito.verify(dbi, Mockito.never()).inTransaction(Mockito.<TransactionCallback<Object>>any());
+    }
+
+    @Test(groups = "fast")
+    public void testInterruptReportedToBusThread() throws Exception {
+        final BusEvent event = Mockito.mock(BusEvent.class);
+
+        Thread.currentThread().interrupt();
+        try {
+            externalBusEventBatcher.post(event);
+            Assert.fail("Interruption should be propagated so that the bus retries the event");
+        } catch (final IllegalStateException e) {
+            Assert.assertTrue(e.getCause() instanceof InterruptedException);
+            // The interrupt flag is restored (and cleared here)
+            Assert.assertTrue(Thread.interrupted());
+        }
+    }
+
+    private List<BusEvent> postConcurrently(final int nbEvents) throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(nbEvents);
+        try {
+            final List<BusEvent> events = new LinkedList<BusEvent>();
+            final List<Future<Void>> futures = new LinkedList<Future<Void>>();
+            for (int i = 0; i < nbEvents; i++) {
+                final BusEvent event = Mockito.mock(BusEvent.class);
+                events.add(event);
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        externalBusEventBatcher.post(event);
+                        return null;
+                    }
+                }));
+            }
+            for (final Future<Void> future : futures) {
+                // Each thread only returns once its event has been posted
+                future.get(5, TimeUnit.SECONDS);
+            }
+            return events;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -1097,6 +1097,36 @@ public class TestIntegrationBase extends BeatrixTestSuiteWithEmbeddedDB implemen
             return defaultInvoiceConfig.getMaxRawUsagePreviousPeriod();
         }
 
+        @Override
+        public int getUsageClosedPeriods() {
+            return defaultInvoiceConfig.getUsageClosedPeriods();
+        }
+
+        @Override
+        public int getUsageClosedPeriods(final InternalTenantContext tenantContext) {
+            return defaultInvoiceConfig.getUsageClosedPeriods();
+        }
+
+        @Override
+        public int getArchivalHorizonMonths() {
+            return defaultInvoiceConfig.getArchivalHorizonMonths();
+        }
+
+        @Override
+        public int getArchivalHorizonMonths(final InternalTenantContext tenantContext) {
+            return defaultInvoiceConfig.getArchivalHorizonMonths();
+        }
+
+        @Override
+        public int getArchivalPaymentActivityMonths() {
+            return defaultInvoiceConfig.getArchivalPaymentActivityMonths();
+        }
+
+        @Override
+        public int getArchivalPaymentActivityMonths(final InternalTenantContext tenantContext) {
+            return defaultInvoiceConfig.getArchivalPaymentActivityMonths();
+        }
+
         @Override
         public int getMaxGlobalLockRetries() {
             return defaultInvoiceConfig.getMaxGlobalLockRetries();
@@ -1147,6 +1177,56 @@ public class TestIntegrationBase extends BeatrixTestSuiteWithEmbeddedDB implemen
             return getItemResultBehaviorMode();
         }
 
+        @Override
+        public boolean isTriggerCoalescingEnabled() {
+            return defaultInvoiceConfig.isTriggerCoalescingEnabled();
+        }
+
+        @Override
+        public boolean isTriggerCoalescingEnabled(final InternalTenantContext tenantContext) {
+            return isTriggerCoalescingEnabled();
+        }
+
+        @Override
+        public TimeSpan getBillRunSmoothingWindow() {
+            return defaultInvoiceConfig.getBillRunSmoothingWindow();
+        }
+
+        @Override
+        public TimeSpan getBillRunSmoothingWindow(final InternalTenantContext tenantContext) {
+            return getBillRunSmoothingWindow();
+        }
+
+        @Override
+        public int getParkedAccountsJobChunkSize() {
+            return defaultInvoiceConfig.getParkedAccountsJobChunkSize();
+        }
+
+        @Override
+        public int getParkedAccountsJobNbThreads() {
+            return defaultInvoiceConfig.getParkedAccountsJobNbThreads();
+        }
+
+        @Override
+        public boolean isParentCommitPipelineEnabled() {
+            return defaultInvoiceConfig.isParentCommitPipelineEnabled();
+        }
+
+        @Override
+        public int getParentCommitPipelineNbThreads() {
+            return defaultInvoiceConfig.getParentCommitPipelineNbThreads();
+        }
+
+        @Override
+        public int getParentCommitPipelineBatchSize() {
+            return defaultInvoiceConfig.getParentCommitPipelineBatchSize();
+        }
+
+        @Override
+        public List<TimeSpan> getParentCommitPipelineRetrySchedule() {
+            return defaultInvoiceConfig.getParentCommitPipelineRetrySchedule();
+        }
+
         public void setInvoicingSystemEnabled(final boolean invoicingSystemEnabled) {
             isInvoicingSystemEnabled = invoicingSystemEnabled;
         }
@@ -124,7 +124,15 @@ public class StandaloneCatalogWithPriceOverride extends StandaloneCatalog implem
 
         try {
             return priceOverride.getOverriddenPlan(planName, this, internalTenantContext);
+        } catch (final CatalogApiException e) {
+            if (e.getCode() != ErrorCode.CAT_NO_SUCH_PLAN.getCode()) {
+                throw e;
+            } else {
+                // Ambiguous name? See https://github.com/killbill/killbill/issues/842.
+                return null;
+            }
         } catch (final RuntimeException e) {
+            // Dry-run plans are resolved through the cache loader, which wraps the exception
             if (e.getCause() == null ||
                 e.getCause().getCause() == null ||
                 !(e.getCause().getCause() instanceof CatalogApiException) ||
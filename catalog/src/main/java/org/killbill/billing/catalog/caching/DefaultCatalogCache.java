@@ -144,6 +144,7 @@ public class DefaultCatalogCache implements CatalogCache {
         if (!InternalCallContextFactory.INTERNAL_TENANT_RECORD_ID.equals(tenantContext.getTenantRecordId())) {
             cacheController.remove(tenantContext.getTenantRecordId());
         }
+        priceOverride.clearOverriddenPlans(tenantContext.getTenantRecordId());
     }
 
     private DefaultVersionedCatalog getCatalogFromPlugins(final InternalTenantContext internalTenantContext) throws CatalogApiException {
@@ -18,7 +18,13 @@
 package org.killbill.billing.catalog.caching;
 
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.regex.Matcher;
 
 import javax.inject.Inject;
@@ -55,30 +61,120 @@ import org.killbill.billing.util.cache.CacheController;
 import org.killbill.billing.util.cache.CacheControllerDispatcher;
 import org.killbill.billing.util.cache.CacheLoaderArgument;
 import org.killbill.billing.util.cache.OverriddenPlanCacheLoader.LoaderCallback;
+import org.killbill.billing.util.config.definition.CatalogConfig;
 
 import com.google.common.base.Predicate;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.ListMultimap;
 
 public class DefaultOverriddenPlanCache implements OverriddenPlanCache {
 
+    // Dry-run plans only: persisted overrides are kept in the per-tenant caches below
     private final CacheController<String, Plan> cacheController;
     private final LoaderCallback loaderCallback;
     private final CatalogOverrideDao overrideDao;
+    private final ConcurrentMap<Long, TenantOverriddenPlans> overriddenPlansPerTenant;
+    private final int maxCachedPlansPerTenant;
 
     @Inject
-    public DefaultOverriddenPlanCache(final CatalogOverrideDao overrideDao, final CacheControllerDispatcher cacheControllerDispatcher) {
+    public DefaultOverriddenPlanCache(final CatalogOverrideDao overrideDao, final CacheControllerDispatcher cacheControllerDispatcher, final CatalogConfig catalogConfig) {
         this.overrideDao = overrideDao;
         this.cacheController = cacheControllerDispatcher.getCacheController(CacheType.OVERRIDDEN_PLAN);
+        this.overriddenPlansPerTenant = new ConcurrentHashMap<Long, TenantOverriddenPlans>();
+        this.maxCachedPlansPerTenant = catalogConfig.getMaxCachedOverriddenPlansPerTenant();
         this.loaderCallback = new LoaderCallback() {
             @Override
             public Plan loadPlan(final String planName, final StaticCatalog catalog, final InternalTenantContext context) throws CatalogApiException {
-                return loadOverriddenPlan(planName, (StandaloneCatalog) catalog, context);
+                return loadOverriddenPlan(planName, (StandaloneCatalog) catalog, getTenantOverriddenPlans(context), context);
             }
         };
     }
 
     @Override
-    public DefaultPlan getOverriddenPlan(final String planName, final StandaloneCatalog catalog, final InternalTenantContext context) {
+    public DefaultPlan getOverriddenPlan(final String planName, final StandaloneCatalog catalog, final InternalTenantContext context) throws CatalogApiException {
+        if (cacheController.isKeyInCache(planName)) {
+            return getDryRunPlan(planName, catalog, context);
+        }
+
+        final TenantOverriddenPlans tenantOverriddenPlans = getTenantOverriddenPlans(context);
+        final String key = getPlanKey(planName, catalog);
+        DefaultPlan defaultPlan = tenantOverriddenPlans.plans.getIfPresent(key);
+        if (defaultPlan == null) {
+            defaultPlan = loadOverriddenPlan(planName, catalog, tenantOverriddenPlans, context);
+            tenantOverriddenPlans.plans.put(key, defaultPlan);
+        } else {
+            defaultPlan.initialize(catalog);
+        }
+        return defaultPlan;
+    }
+
+    @Override
+    public Map<String, DefaultPlan> getOverriddenPlans(final Iterable<String> planNames, final StandaloneCatalog catalog, final InternalTenantContext context) throws CatalogApiException {
+        preloadOverriddenPlans(planNames, context);
+
+        final Map<String, DefaultPlan> result = new LinkedHashMap<String, DefaultPlan>();
+        for (final String planName : planNames) {
+            if (result.containsKey(planName)) {
+                continue;
+            }
+            try {
+                result.put(planName, getOverriddenPlan(planName, catalog, context));
+            } catch (final CatalogApiException e) {
+                // Not an overridden plan (or ambiguous name, see https://github.com/killbill/killbill/issues/842)
+                if (e.getCode() != ErrorCode.CAT_NO_SUCH_PLAN.getCode()) {
+                    throw e;
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void preloadOverriddenPlans(final Iterable<String> planNames, final InternalTenantContext context) {
+        final TenantOverriddenPlans tenantOverriddenPlans = getTenantOverriddenPlans(context);
+
+        final Set<Long> missingPlanDefRecordIds = new HashSet<Long>();
+        for (final String planName : planNames) {
+            if (planName == null || cacheController.isKeyInCache(planName)) {
+                continue;
+            }
+            final Matcher m = DefaultPriceOverride.CUSTOM_PLAN_NAME_PATTERN.matcher(planName);
+            if (!m.matches()) {
+                continue;
+            }
+            final Long planDefRecordId = Long.parseLong(m.group(2));
+            if (tenantOverriddenPlans.phaseDefs.getIfPresent(planDefRecordId) == null) {
+                missingPlanDefRecordIds.add(planDefRecordId);
+            }
+        }
+        if (missingPlanDefRecordIds.isEmpty()) {
+            return;
+        }
+
+        final ListMultimap<Long, CatalogOverridePhaseDefinitionModelDao> phaseDefsPerPlan = ArrayListMultimap.<Long, CatalogOverridePhaseDefinitionModelDao>create();
+        for (final CatalogOverridePhaseDefinitionModelDao phaseDef : overrideDao.getOverriddenPlansPhases(missingPlanDefRecordIds, context)) {
+            phaseDefsPerPlan.put(phaseDef.getTargetPlanDefRecordId(), phaseDef);
+        }
+        // Names matching the pattern with no override definition are regular catalog plans: nothing to cache for these
+        for (final Long planDefRecordId : phaseDefsPerPlan.keySet()) {
+            tenantOverriddenPlans.phaseDefs.put(planDefRecordId, phaseDefsPerPlan.get(planDefRecordId));
+        }
+    }
+
+    @Override
+    public void clearOverriddenPlans(final Long tenantRecordId) {
+        overriddenPlansPerTenant.remove(tenantRecordId);
+    }
+
+    @Override
+    public void addDryRunPlan(final String planName, final Plan plan) {
+        cacheController.putIfAbsent(planName, plan);
+    }
+
+    private DefaultPlan getDryRunPlan(final String planName, final StandaloneCatalog catalog, final InternalTenantContext context) {
         final ObjectType irrelevant = null;
         final Object[] args = new Object[2];
         args[0] = loaderCallback;
@@ -90,12 +186,25 @@ public class DefaultOverriddenPlanCache implements OverriddenPlanCache {
         return defaultPlan;
     }
 
-    @Override
-    public void addDryRunPlan(final String planName, final Plan plan) {
-        cacheController.putIfAbsent(planName, plan);
+    private TenantOverriddenPlans getTenantOverriddenPlans(final InternalTenantContext context) {
+        final Long tenantRecordId = context.getTenantRecordId();
+        TenantOverriddenPlans tenantOverriddenPlans = overriddenPlansPerTenant.get(tenantRecordId);
+        if (tenantOverriddenPlans == null) {
+            final TenantOverriddenPlans newTenantOverriddenPlans = new TenantOverriddenPlans(maxCachedPlansPerTenant);
+            tenantOverriddenPlans = overriddenPlansPerTenant.putIfAbsent(tenantRecordId, newTenantOverriddenPlans);
+            if (tenantOverriddenPlans == null) {
+                tenantOverriddenPlans = newTenantOverriddenPlans;
+            }
+        }
+        return tenantOverriddenPlans;
+    }
+
+    // The materialized plan depends on the parent plan, hence on the catalog version
+    private String getPlanKey(final String planName, final StandaloneCatalog catalog) {
+        return planName + "@" + catalog.getEffectiveDate().getTime();
     }
 
-    private DefaultPlan loadOverriddenPlan(final String planName, final StandaloneCatalog catalog, final InternalTenantContext context) throws CatalogApiException {
+    private DefaultPlan loadOverriddenPlan(final String planName, final StandaloneCatalog catalog, final TenantOverriddenPlans tenantOverriddenPlans, final InternalTenantContext context) throws CatalogApiException {
         final Matcher m = DefaultPriceOverride.CUSTOM_PLAN_NAME_PATTERN.matcher(planName);
         if (!m.matches()) {
             throw new CatalogApiException(ErrorCode.CAT_NO_SUCH_PLAN, planName);
@@ -103,7 +212,11 @@ public class DefaultOverriddenPlanCache implements OverriddenPlanCache {
         final String parentPlanName = m.group(1);
         final Long planDefRecordId = Long.parseLong(m.group(2));
 
-        final List<CatalogOverridePhaseDefinitionModelDao> phaseDefs = overrideDao.getOverriddenPlanPhases(planDefRecordId, context);
+        List<CatalogOverridePhaseDefinitionModelDao> phaseDefs = tenantOverriddenPlans.phaseDefs.getIfPresent(planDefRecordId);
+        if (phaseDefs == null) {
+            phaseDefs = overrideDao.getOverriddenPlanPhases(planDefRecordId, context);
+            tenantOverriddenPlans.phaseDefs.put(planDefRecordId, phaseDefs);
+        }
         final DefaultPlan defaultPlan = catalog.findCurrentPlan(parentPlanName);
         final PlanPhasePriceOverride[] overrides = createOverrides(defaultPlan, phaseDefs, context);
         final DefaultPlan result = new DefaultPlan(catalog, planName, defaultPlan, overrides);
@@ -218,4 +331,16 @@ public class DefaultOverriddenPlanCache implements OverriddenPlanCache {
         }
         return blockPriceOverrides;
     }
+
+    private static final class TenantOverriddenPlans {
+
+        // Override definitions are immutable once created, so they don't depend on the catalog version
+        private final Cache<Long, List<CatalogOverridePhaseDefinitionModelDao>> phaseDefs;
+        private final Cache<String, DefaultPlan> plans;
+
+        private TenantOverriddenPlans(final int maxSize) {
+            this.phaseDefs = CacheBuilder.newBuilder().maximumSize(maxSize).<Long, List<CatalogOverridePhaseDefinitionModelDao>>build();
+            this.plans = CacheBuilder.newBuilder().maximumSize(maxSize).<String, DefaultPlan>build();
+        }
+    }
 }
@@ -17,6 +17,8 @@
 
 package org.killbill.billing.catalog.caching;
 
+import java.util.Map;
+
 import org.killbill.billing.callcontext.InternalTenantContext;
 import org.killbill.billing.catalog.DefaultPlan;
 import org.killbill.billing.catalog.StandaloneCatalog;
@@ -27,5 +29,11 @@ public interface OverriddenPlanCache {
 
     DefaultPlan getOverriddenPlan(final String planName, final StandaloneCatalog catalog, final InternalTenantContext context) throws CatalogApiException;
 
+    Map<String, DefaultPlan> getOverriddenPlans(final Iterable<String> planNames, final StandaloneCatalog catalog, final InternalTenantContext context) throws CatalogApiException;
+
+    void preloadOverriddenPlans(final Iterable<String> planNames, final InternalTenantContext context);
+
+    void clearOverriddenPlans(final Long tenantRecordId);
+
     void addDryRunPlan(final String planName, final Plan plan);
 }
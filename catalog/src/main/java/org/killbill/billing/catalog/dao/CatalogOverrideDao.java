@@ -17,6 +17,7 @@
 
 package org.killbill.billing.catalog.dao;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.joda.time.DateTime;
@@ -31,6 +32,9 @@ public interface CatalogOverrideDao {
 
     public List<CatalogOverridePhaseDefinitionModelDao> getOverriddenPlanPhases(final Long planDefRecordId, final InternalTenantContext context);
 
+    // Bulk version of getOverriddenPlanPhases: each phase definition has its targetPlanDefRecordId populated
+    public List<CatalogOverridePhaseDefinitionModelDao> getOverriddenPlansPhases(final Collection<Long> planDefRecordIds, final InternalTenantContext context);
+
     public List<CatalogOverrideUsageDefinitionModelDao> getOverriddenPhaseUsages(final Long phaseDefRecordId, final InternalTenantContext context);
 
     public List<CatalogOverrideTierDefinitionModelDao> getOverriddenUsageTiers(final Long usageDefRecordId, final InternalTenantContext context);
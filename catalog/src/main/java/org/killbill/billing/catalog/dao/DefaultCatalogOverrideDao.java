@@ -18,6 +18,7 @@
 package org.killbill.billing.catalog.dao;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 import org.joda.time.DateTime;
@@ -40,6 +41,7 @@ import org.skife.jdbi.v2.IDBI;
 import org.skife.jdbi.v2.TransactionCallback;
 import org.skife.jdbi.v2.TransactionStatus;
 
+import com.google.common.collect.ImmutableList;
 import com.google.inject.Inject;
 
 public class DefaultCatalogOverrideDao implements CatalogOverrideDao {
@@ -337,6 +339,20 @@ public class DefaultCatalogOverrideDao implements CatalogOverrideDao {
         });
     }
 
+    @Override
+    public List<CatalogOverridePhaseDefinitionModelDao> getOverriddenPlansPhases(final Collection<Long> planDefRecordIds, final InternalTenantContext context) {
+        if (planDefRecordIds.isEmpty()) {
+            return ImmutableList.<CatalogOverridePhaseDefinitionModelDao>of();
+        }
+        return dbi.inTransaction(new TransactionCallback<List<CatalogOverridePhaseDefinitionModelDao>>() {
+            @Override
+            public List<CatalogOverridePhaseDefinitionModelDao> inTransaction(final Handle handle, final TransactionStatus status) throws Exception {
+                final CatalogOverridePhaseDefinitionSqlDao sqlDao = handle.attach(CatalogOverridePhaseDefinitionSqlDao.class);
+                return sqlDao.getOverriddenPlansPhases(planDefRecordIds, context);
+            }
+        });
+    }
+
     @Override
     public List<CatalogOverrideUsageDefinitionModelDao> getOverriddenPhaseUsages(final Long phaseDefRecordId, final InternalTenantContext context) {
         return dbi.inTransaction(new TransactionCallback<List<CatalogOverrideUsageDefinitionModelDao>>() {
@@ -19,6 +19,7 @@ package org.killbill.billing.catalog.override;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Pattern;
 
@@ -221,4 +222,19 @@ public class DefaultPriceOverride implements PriceOverride {
     public DefaultPlan getOverriddenPlan(final String planName, final StandaloneCatalog catalog, final InternalTenantContext context) throws CatalogApiException {
         return overriddenPlanCache.getOverriddenPlan(planName, catalog, context);
     }
+
+    @Override
+    public Map<String, DefaultPlan> getOverriddenPlans(final Iterable<String> planNames, final StandaloneCatalog catalog, final InternalTenantContext context) throws CatalogApiException {
+        return overriddenPlanCache.getOverriddenPlans(planNames, catalog, context);
+    }
+
+    @Override
+    public void preloadOverriddenPlans(final Iterable<String> planNames, final InternalTenantContext context) {
+        overriddenPlanCache.preloadOverriddenPlans(planNames, context);
+    }
+
+    @Override
+    public void clearOverriddenPlans(final Long tenantRecordId) {
+        overriddenPlanCache.clearOverriddenPlans(tenantRecordId);
+    }
 }
@@ -18,6 +18,7 @@
 package org.killbill.billing.catalog.override;
 
 import java.util.List;
+import java.util.Map;
 
 import org.joda.time.DateTime;
 import org.killbill.billing.callcontext.InternalCallContext;
@@ -33,4 +34,10 @@ public interface PriceOverride {
     DefaultPlan getOrCreateOverriddenPlan(final StandaloneCatalog catalog, final Plan parentPlan, final DateTime catalogEffectiveDate, final List<PlanPhasePriceOverride> overrides, final InternalCallContext context) throws CatalogApiException;
 
     DefaultPlan getOverriddenPlan(final String planName, final StandaloneCatalog catalog, final InternalTenantContext context) throws CatalogApiException;
+
+    Map<String, DefaultPlan> getOverriddenPlans(final Iterable<String> planNames, final StandaloneCatalog catalog, final InternalTenantContext context) throws CatalogApiException;
+
+    void preloadOverriddenPlans(final Iterable<String> planNames, final InternalTenantContext context);
+
+    void clearOverriddenPlans(final Long tenantRecordId);
 }
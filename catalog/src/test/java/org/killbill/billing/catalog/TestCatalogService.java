@@ -34,6 +34,10 @@ public class TestCatalogService extends CatalogTestSuiteNoDB {
                 return "versionedCatalog";
             }
 
+            @Override
+            public int getMaxCachedOverriddenPlansPerTenant() {
+                return 10000;
+            }
         }, tenantInternalApi, catalogCache, cacheInvalidationCallback);
         service.loadCatalog();
         Assert.assertNotNull(service.getFullCatalog(true, true, internalCallContext));
@@ -48,6 +52,10 @@ public class TestCatalogService extends CatalogTestSuiteNoDB {
                 return "WeaponsHire.xml";
             }
 
+            @Override
+            public int getMaxCachedOverriddenPlansPerTenant() {
+                return 10000;
+            }
         },  tenantInternalApi, catalogCache, cacheInvalidationCallback);
         service.loadCatalog();
         Assert.assertNotNull(service.getFullCatalog(true, true, internalCallContext));
@@ -20,6 +20,7 @@ package org.killbill.billing.catalog;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.regex.Matcher;
 
 import org.joda.time.DateTime;
@@ -39,11 +40,14 @@ import org.killbill.xmlloader.XMLLoader;
 import org.testng.annotations.Test;
 
 import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import com.google.common.io.Resources;
 
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
 
 public class TestDefaultPriceOverride extends CatalogTestSuiteWithEmbeddedDB {
@@ -102,6 +106,37 @@ public class TestDefaultPriceOverride extends CatalogTestSuiteWithEmbeddedDB {
         }
     }
 
+    @Test(groups = "slow")
+    public void testGetOverriddenPlans() throws Exception {
+
+        final StandaloneCatalog catalog = XMLLoader.getObjectFromString(Resources.getResource("SpyCarAdvanced.xml").toExternalForm(), StandaloneCatalog.class);
+        catalog.initialize(catalog);
+
+        final Plan plan = catalog.findCurrentPlan("discount-standard-monthly");
+
+        final List<PlanPhasePriceOverride> overrides1 = ImmutableList.<PlanPhasePriceOverride>of(new DefaultPlanPhasePriceOverride(plan.getAllPhases()[0].getName(), Currency.USD, BigDecimal.ONE, null, null));
+        final DefaultPlan overriddenPlan1 = priceOverride.getOrCreateOverriddenPlan(catalog, plan, new DateTime(catalog.getEffectiveDate()), overrides1, internalCallContext);
+
+        final List<PlanPhasePriceOverride> overrides2 = ImmutableList.<PlanPhasePriceOverride>of(new DefaultPlanPhasePriceOverride(plan.getAllPhases()[2].getName(), Currency.USD, null, new BigDecimal("142.41"), null));
+        final DefaultPlan overriddenPlan2 = priceOverride.getOrCreateOverriddenPlan(catalog, plan, new DateTime(catalog.getEffectiveDate()), overrides2, internalCallContext);
+
+        // Regular plan names are ignored
+        final List<String> planNames = ImmutableList.<String>of(overriddenPlan1.getName(), plan.getName(), overriddenPlan2.getName(), overriddenPlan1.getName());
+        final Map<String, DefaultPlan> overriddenPlans = priceOverride.getOverriddenPlans(planNames, catalog, internalCallContext);
+        assertEquals(overriddenPlans.size(), 2);
+        assertEquals(overriddenPlans.get(overriddenPlan1.getName()).getAllPhases()[0].getFixed().getPrice().getPrice(Currency.USD).compareTo(BigDecimal.ONE), 0);
+        assertEquals(overriddenPlans.get(overriddenPlan2.getName()).getFinalPhase().getRecurring().getRecurringPrice().getPrice(Currency.USD).compareTo(new BigDecimal("142.41")), 0);
+
+        // Materialized plans are cached
+        assertSame(priceOverride.getOverriddenPlan(overriddenPlan1.getName(), catalog, internalCallContext), overriddenPlans.get(overriddenPlan1.getName()));
+        assertSame(priceOverride.getOverriddenPlan(overriddenPlan2.getName(), catalog, internalCallContext), overriddenPlans.get(overriddenPlan2.getName()));
+
+        priceOverride.clearOverriddenPlans(internalCallContext.getTenantRecordId());
+        final DefaultPlan reloadedPlan1 = priceOverride.getOverriddenPlan(overriddenPlan1.getName(), catalog, internalCallContext);
+        assertNotSame(reloadedPlan1, overriddenPlans.get(overriddenPlan1.getName()));
+        assertEquals(reloadedPlan1.getName(), overriddenPlan1.getName());
+    }
+
     @Test(groups = "slow", expectedExceptions = CatalogApiException.class)
     public void testWithInvalidPriceOverride() throws Exception {
 
@@ -29,6 +29,7 @@ import org.killbill.billing.entitlement.api.BlockingStateType;
 import org.killbill.billing.entitlement.dao.BlockingStateDao;
 import org.killbill.billing.entitlement.engine.core.EntitlementUtils;
 import org.killbill.billing.junction.BlockingInternalApi;
+import org.killbill.billing.subscription.api.SubscriptionBaseAccountGraph;
 
 import com.google.inject.Inject;
 
@@ -53,6 +54,11 @@ public class DefaultInternalBlockingApi implements BlockingInternalApi {
         return dao.getBlockingAllForAccountRecordId(catalog, context);
     }
 
+    @Override
+    public List<BlockingState> getBlockingAllForAccount(final Catalog catalog, final SubscriptionBaseAccountGraph accountGraph, final InternalTenantContext context) {
+        return dao.getBlockingAllForAccountRecordId(catalog, accountGraph, context);
+    }
+
     @Override
     public void setBlockingState(final BlockingState state, final InternalCallContext context) {
         entitlementUtils.setBlockingStateAndPostBlockingTransitionEvent(state, context);
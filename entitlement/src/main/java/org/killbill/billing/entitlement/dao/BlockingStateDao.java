@@ -29,6 +29,7 @@ import org.killbill.billing.catalog.api.Catalog;
 import org.killbill.billing.entitlement.api.BlockingState;
 import org.killbill.billing.entitlement.api.BlockingStateType;
 import org.killbill.billing.entitlement.api.EntitlementApiException;
+import org.killbill.billing.subscription.api.SubscriptionBaseAccountGraph;
 import org.killbill.billing.util.entity.dao.EntityDao;
 
 import com.google.common.base.Optional;
@@ -65,6 +66,16 @@ public interface BlockingStateDao extends EntityDao<BlockingStateModelDao, Block
      */
     public List<BlockingState> getBlockingAllForAccountRecordId(Catalog catalog, InternalTenantContext context);
 
+    /**
+     * Same as above, re-using the bundles and subscriptions already loaded by the caller
+     *
+     * @param catalog      full catalog
+     * @param accountGraph bundles and subscriptions for that account
+     * @param context      call context
+     * @return list of all blocking states for that account
+     */
+    public List<BlockingState> getBlockingAllForAccountRecordId(Catalog catalog, SubscriptionBaseAccountGraph accountGraph, InternalTenantContext context);
+
     /**
      * Set new blocking states
      *
@@ -36,6 +36,7 @@ import org.killbill.billing.ErrorCode;
 import org.killbill.billing.ObjectType;
 import org.killbill.billing.callcontext.InternalCallContext;
 import org.killbill.billing.callcontext.InternalTenantContext;
+import org.killbill.billing.callcontext.RequestReadCache;
 import org.killbill.billing.catalog.api.Catalog;
 import org.killbill.billing.entitlement.DefaultEntitlementService;
 import org.killbill.billing.entitlement.api.BlockingApiException;
@@ -47,6 +48,7 @@ import org.killbill.billing.entitlement.block.BlockingChecker.BlockingAggregator
 import org.killbill.billing.entitlement.block.StatelessBlockingChecker;
 import org.killbill.billing.entitlement.engine.core.BlockingTransitionNotificationKey;
 import org.killbill.billing.platform.api.KillbillService.KILLBILL_SERVICES;
+import org.killbill.billing.subscription.api.SubscriptionBaseAccountGraph;
 import org.killbill.billing.util.cache.Cachable.CacheType;
 import org.killbill.billing.util.cache.CacheController;
 import org.killbill.billing.util.cache.CacheControllerDispatcher;
@@ -56,6 +58,7 @@ import org.killbill.billing.util.entity.dao.EntityDaoBase;
 import org.killbill.billing.util.entity.dao.EntitySqlDaoTransactionWrapper;
 import org.killbill.billing.util.entity.dao.EntitySqlDaoTransactionalJdbiWrapper;
 import org.killbill.billing.util.entity.dao.EntitySqlDaoWrapperFactory;
+import org.killbill.billing.util.metrics.BillingMetrics;
 import org.killbill.bus.api.BusEvent;
 import org.killbill.bus.api.PersistentBus;
 import org.killbill.bus.api.PersistentBus.EventBusException;
@@ -82,6 +85,8 @@ public class DefaultBlockingStateDao extends EntityDaoBase<BlockingStateModelDao
 
     private static final Logger log = LoggerFactory.getLogger(DefaultBlockingStateDao.class);
 
+    private static final String BLOCKING_STATES_FOR_ACCOUNT_REQUEST_CACHE = "BlockingStatesForAccount";
+
     // Assume the input is blocking states for a single blockable id
     private static final Ordering<BlockingStateModelDao> BLOCKING_STATE_MODEL_DAO_ORDERING = Ordering.<BlockingStateModelDao>from(new Comparator<BlockingStateModelDao>() {
         @Override
@@ -118,8 +123,9 @@ public class DefaultBlockingStateDao extends EntityDaoBase<BlockingStateModelDao
     private final StatelessBlockingChecker statelessBlockingChecker = new StatelessBlockingChecker();
 
     public DefaultBlockingStateDao(final IDBI dbi, @Named(MAIN_RO_IDBI_NAMED) final IDBI roDbi, final Clock clock, final NotificationQueueService notificationQueueService, final PersistentBus eventBus,
-                                   final CacheControllerDispatcher cacheControllerDispatcher, final NonEntityDao nonEntityDao, final InternalCallContextFactory internalCallContextFactory) {
-        super(new EntitySqlDaoTransactionalJdbiWrapper(dbi, roDbi, clock, cacheControllerDispatcher, nonEntityDao, internalCallContextFactory), BlockingStateSqlDao.class);
+                                   final CacheControllerDispatcher cacheControllerDispatcher, final NonEntityDao nonEntityDao, final InternalCallContextFactory internalCallContextFactory,
+                                   final BillingMetrics billingMetrics) {
+        super(new EntitySqlDaoTransactionalJdbiWrapper(dbi, roDbi, clock, cacheControllerDispatcher, nonEntityDao, internalCallContextFactory, billingMetrics), BlockingStateSqlDao.class);
         this.clock = clock;
         this.notificationQueueService = notificationQueueService;
         this.eventBus = eventBus;
@@ -180,8 +186,30 @@ public class DefaultBlockingStateDao extends EntityDaoBase<BlockingStateModelDao
                                                                    }));
     }
 
+    @Override
+    public List<BlockingState> getBlockingAllForAccountRecordId(final Catalog catalog, final SubscriptionBaseAccountGraph accountGraph, final InternalTenantContext context) {
+        return getBlockingAllForAccountRecordId(catalog, context);
+    }
+
     @Override
     public List<BlockingState> getBlockingAllForAccountRecordId(final Catalog catalog, final InternalTenantContext context) {
+        final RequestReadCache requestReadCache = context.getRequestReadCache();
+        if (requestReadCache != null) {
+            final List<BlockingState> cached = requestReadCache.get(BLOCKING_STATES_FOR_ACCOUNT_REQUEST_CACHE, context, null);
+            if (cached != null) {
+                // Callers are allowed to modify the list
+                return new ArrayList<BlockingState>(cached);
+            }
+        }
+
+        final List<BlockingState> blockingStates = getBlockingAllForAccountRecordIdFromDisk(context);
+        if (requestReadCache != null) {
+            requestReadCache.put(BLOCKING_STATES_FOR_ACCOUNT_REQUEST_CACHE, context, null, ImmutableList.<BlockingState>copyOf(blockingStates));
+        }
+        return blockingStates;
+    }
+
+    private List<BlockingState> getBlockingAllForAccountRecordIdFromDisk(final InternalTenantContext context) {
         return transactionalSqlDao.execute(true, new EntitySqlDaoTransactionWrapper<List<BlockingState>>() {
             @Override
             public List<BlockingState> inTransaction(final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory) throws Exception {
@@ -55,6 +55,7 @@ import org.killbill.billing.entitlement.dao.DefaultBlockingStateDao;
 import org.killbill.billing.entitlement.dao.OptimizedProxyBlockingStateDao;
 import org.killbill.billing.entitlement.dao.ProxyBlockingStateDao;
 import org.killbill.billing.subscription.api.SubscriptionBase;
+import org.killbill.billing.subscription.api.SubscriptionBaseAccountGraph;
 import org.killbill.billing.subscription.api.SubscriptionBaseInternalApi;
 import org.killbill.billing.subscription.api.user.SubscriptionBaseApiException;
 import org.killbill.billing.subscription.api.user.SubscriptionBaseBundle;
@@ -64,6 +65,7 @@ import org.killbill.billing.util.cache.CacheControllerDispatcher;
 import org.killbill.billing.util.callcontext.InternalCallContextFactory;
 import org.killbill.billing.util.callcontext.TenantContext;
 import org.killbill.billing.util.dao.NonEntityDao;
+import org.killbill.billing.util.metrics.BillingMetrics;
 import org.killbill.bus.api.PersistentBus;
 import org.killbill.clock.Clock;
 import org.killbill.notificationq.api.NotificationQueueService;
@@ -100,15 +102,16 @@ public class EventsStreamBuilder {
                                final PersistentBus eventBus,
                                final CacheControllerDispatcher cacheControllerDispatcher,
                                final NonEntityDao nonEntityDao,
-                               final InternalCallContextFactory internalCallContextFactory) {
+                               final InternalCallContextFactory internalCallContextFactory,
+                               final BillingMetrics billingMetrics) {
         this.accountInternalApi = accountInternalApi;
         this.subscriptionInternalApi = subscriptionInternalApi;
         this.catalogInternalApi = catalogInternalApi;
         this.checker = checker;
         this.clock = clock;
         this.internalCallContextFactory = internalCallContextFactory;
-        this.defaultBlockingStateDao = new DefaultBlockingStateDao(dbi, roDbi, clock, notificationQueueService, eventBus, cacheControllerDispatcher, nonEntityDao, internalCallContextFactory);
-        this.blockingStateDao = new OptimizedProxyBlockingStateDao(this, subscriptionInternalApi, dbi, roDbi, clock, notificationQueueService, eventBus, cacheControllerDispatcher, nonEntityDao, internalCallContextFactory);
+        this.defaultBlockingStateDao = new DefaultBlockingStateDao(dbi, roDbi, clock, notificationQueueService, eventBus, cacheControllerDispatcher, nonEntityDao, internalCallContextFactory, billingMetrics);
+        this.blockingStateDao = new OptimizedProxyBlockingStateDao(this, subscriptionInternalApi, dbi, roDbi, clock, notificationQueueService, eventBus, cacheControllerDispatcher, nonEntityDao, internalCallContextFactory, billingMetrics);
     }
 
     public EventsStream refresh(final EventsStream eventsStream, final TenantContext tenantContext) throws EntitlementApiException {
@@ -133,19 +136,20 @@ public class EventsStreamBuilder {
     }
 
     public AccountEventsStreams buildForAccount(final InternalTenantContext internalTenantContext) throws EntitlementApiException {
-        // Retrieve the subscriptions (map bundle id -> subscriptions)
-        final Map<UUID, List<SubscriptionBase>> subscriptions;
+        // Retrieve the bundles and subscriptions at once
         try {
             final Catalog catalog = getCatalog(internalTenantContext);
-            subscriptions = subscriptionInternalApi.getSubscriptionsForAccount(catalog, internalTenantContext);
-            return buildForAccount(subscriptions, catalog, internalTenantContext);
+            final SubscriptionBaseAccountGraph accountGraph = subscriptionInternalApi.getAccountGraph(catalog, internalTenantContext);
+            return buildForAccount(accountGraph, catalog, internalTenantContext);
         } catch (final SubscriptionBaseApiException e) {
             throw new EntitlementApiException(e);
         }
     }
 
     // Special signature for ProxyBlockingStateDao to save a DAO call
-    public AccountEventsStreams buildForAccount(final Map<UUID, List<SubscriptionBase>> subscriptions, final Catalog catalog, final InternalTenantContext internalTenantContext) throws EntitlementApiException {
+    public AccountEventsStreams buildForAccount(final SubscriptionBaseAccountGraph accountGraph, final Catalog catalog, final InternalTenantContext internalTenantContext) throws EntitlementApiException {
+        final Map<UUID, List<SubscriptionBase>> subscriptions = accountGraph.getSubscriptionsByBundleId();
+
         // Retrieve the account
         final ImmutableAccountData account;
         final int accountBCD;
@@ -161,11 +165,9 @@ public class EventsStreamBuilder {
             return new DefaultAccountEventsStreams(account);
         }
 
-        // Retrieve the bundles
-        final List<SubscriptionBaseBundle> bundles = subscriptionInternalApi.getBundlesForAccount(account.getId(), internalTenantContext);
         // Map bundle id -> bundles
         final Map<UUID, SubscriptionBaseBundle> bundlesPerId = new HashMap<UUID, SubscriptionBaseBundle>();
-        for (final SubscriptionBaseBundle bundle : bundles) {
+        for (final SubscriptionBaseBundle bundle : accountGraph.getBundles()) {
             bundlesPerId.put(bundle.getId(), bundle);
         }
 
@@ -254,7 +256,7 @@ public class EventsStreamBuilder {
             }
         }
 
-        return new DefaultAccountEventsStreams(account, bundles, subscriptionsPerBundle, eventsStreamPerBundle);
+        return new DefaultAccountEventsStreams(account, accountGraph.getBundles(), subscriptionsPerBundle, eventsStreamPerBundle);
     }
 
     public EventsStream buildForEntitlement(final UUID entitlementId, final InternalTenantContext internalTenantContext) throws EntitlementApiException {
@@ -33,6 +33,7 @@ import org.killbill.billing.catalog.api.Catalog;
 import org.killbill.billing.entitlement.api.BlockingState;
 import org.killbill.billing.entitlement.api.BlockingStateType;
 import org.killbill.billing.entitlement.api.EntitlementApiException;
+import org.killbill.billing.subscription.api.SubscriptionBaseAccountGraph;
 import org.killbill.billing.util.entity.dao.MockEntityDaoBase;
 
 import com.google.common.base.MoreObjects;
@@ -85,6 +86,11 @@ public class MockBlockingStateDao extends MockEntityDaoBase<BlockingStateModelDa
         return MoreObjects.firstNonNull(blockingStatesPerAccountRecordId.get(context.getAccountRecordId()), ImmutableList.<BlockingState>of());
     }
 
+    @Override
+    public List<BlockingState> getBlockingAllForAccountRecordId(final Catalog catalog, final SubscriptionBaseAccountGraph accountGraph, final InternalTenantContext context) {
+        return getBlockingAllForAccountRecordId(catalog, context);
+    }
+
     @Override
     public synchronized void setBlockingStatesAndPostBlockingTransitionEvent(final Map<BlockingState, Optional<UUID>> states, final InternalCallContext context) {
         for (final BlockingState state : states.keySet()) {
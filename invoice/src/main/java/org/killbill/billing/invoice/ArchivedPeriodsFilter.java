@@ -0,0 +1,182 @@
+/*
+ * Copyright 2014-2019 Groupon, Inc
+ * Copyright 2014-2019 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.invoice;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.killbill.billing.ErrorCode;
+import org.killbill.billing.invoice.api.Invoice;
+import org.killbill.billing.invoice.api.InvoiceApiException;
+import org.killbill.billing.invoice.api.InvoiceItem;
+import org.killbill.billing.invoice.api.InvoiceItemType;
+import org.killbill.billing.invoice.dao.InvoiceItemModelDao;
+import org.killbill.billing.invoice.generator.InvoiceWithMetadata;
+import org.killbill.billing.invoice.model.DefaultInvoice;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Objects;
+
+/**
+ * The items of the archived invoices are not part of the existing invoices anymore, so the generator proposes them again.
+ * <p/>
+ * Proposed items identical to an archived item (same subscription, type, period, plan, phase and amount) are dropped.
+ * Any other proposed item overlapping a period archived for the same subscription (e.g. a backdated change) would require
+ * to repair an archived item: the generation fails instead of double billing the period. Items for periods (or subscriptions)
+ * which were never archived, as well as repairs and adjustments of live items, are kept as-is.
+ * <p/>
+ * The archived items are expected to be restricted to the subscriptions and periods of the proposed items (see
+ * InvoiceDao#getArchivedPeriodItems): they are indexed by subscription and type, so that each proposed item is only
+ * compared with the archived items of its own subscription.
+ */
+class ArchivedPeriodsFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(ArchivedPeriodsFilter.class);
+
+    private ArchivedPeriodsFilter() {}
+
+    static InvoiceWithMetadata filter(final InvoiceWithMetadata invoiceWithMetadata,
+                                      final Iterable<Invoice> existingInvoices,
+                                      final Iterable<InvoiceItemModelDao> archivedItems) throws InvoiceApiException {
+        final DefaultInvoice invoice = invoiceWithMetadata.getInvoice();
+        if (invoice == null || !archivedItems.iterator().hasNext()) {
+            return invoiceWithMetadata;
+        }
+
+        final Map<ArchivedItemKey, List<InvoiceItemModelDao>> archivedItemsByKey = new HashMap<ArchivedItemKey, List<InvoiceItemModelDao>>();
+        for (final InvoiceItemModelDao archivedItem : archivedItems) {
+            if (!isPeriodItem(archivedItem.getType()) || archivedItem.getSubscriptionId() == null) {
+                continue;
+            }
+            final ArchivedItemKey key = new ArchivedItemKey(archivedItem.getSubscriptionId(), archivedItem.getType());
+            List<InvoiceItemModelDao> items = archivedItemsByKey.get(key);
+            if (items == null) {
+                items = new LinkedList<InvoiceItemModelDao>();
+                archivedItemsByKey.put(key, items);
+            }
+            items.add(archivedItem);
+        }
+
+        final Set<UUID> existingItemIds = new HashSet<UUID>();
+        for (final Invoice existingInvoice : existingInvoices) {
+            for (final InvoiceItem existingItem : existingInvoice.getInvoiceItems()) {
+                existingItemIds.add(existingItem.getId());
+            }
+        }
+
+        final List<InvoiceItem> filteredItems = new LinkedList<InvoiceItem>();
+        for (final InvoiceItem invoiceItem : invoice.getInvoiceItems()) {
+            // Items already on an existing (DRAFT) invoice are kept as-is
+            final List<InvoiceItemModelDao> candidates = existingItemIds.contains(invoiceItem.getId()) || !isPeriodItem(invoiceItem.getInvoiceItemType()) ?
+                                                         null :
+                                                         archivedItemsByKey.get(new ArchivedItemKey(invoiceItem.getSubscriptionId(), invoiceItem.getInvoiceItemType()));
+            if (candidates == null) {
+                filteredItems.add(invoiceItem);
+                continue;
+            }
+
+            InvoiceItemModelDao overlappingArchivedItem = null;
+            boolean isArchivedItem = false;
+            for (final InvoiceItemModelDao archivedItem : candidates) {
+                if (isSameItem(archivedItem, invoiceItem)) {
+                    isArchivedItem = true;
+                    break;
+                } else if (overlappingArchivedItem == null && overlaps(archivedItem, invoiceItem)) {
+                    overlappingArchivedItem = archivedItem;
+                }
+            }
+
+            if (isArchivedItem) {
+                log.info("Ignoring item already billed on an archived invoice: {}", invoiceItem);
+            } else if (overlappingArchivedItem != null) {
+                throw new InvoiceApiException(ErrorCode.UNEXPECTED_ERROR,
+                                              String.format("ARCHIVED PERIOD Item %s overlaps archived item %s for subscriptionId='%s': the archived invoices can't be repaired",
+                                                            invoiceItem, overlappingArchivedItem.getId(), invoiceItem.getSubscriptionId()));
+            } else {
+                filteredItems.add(invoiceItem);
+            }
+        }
+
+        if (filteredItems.size() == invoice.getInvoiceItems().size()) {
+            return invoiceWithMetadata;
+        }
+
+        final DefaultInvoice filteredInvoice = new DefaultInvoice(invoice.getId(), invoice.getAccountId(), null, invoice.getInvoiceDate(), invoice.getTargetDate(), invoice.getCurrency(), false, invoice.getStatus());
+        filteredInvoice.addInvoiceItems(filteredItems);
+        return new InvoiceWithMetadata(filteredInvoice, invoiceWithMetadata.getTrackingIds(), invoiceWithMetadata.getPerSubscriptionFutureNotificationDates());
+    }
+
+    // Items the generator derives from the billing events
+    static boolean isPeriodItem(final InvoiceItemType type) {
+        return type == InvoiceItemType.RECURRING || type == InvoiceItemType.USAGE || type == InvoiceItemType.FIXED;
+    }
+
+    private static boolean isSameItem(final InvoiceItemModelDao archivedItem, final InvoiceItem invoiceItem) {
+        return archivedItem.getType() == invoiceItem.getInvoiceItemType() &&
+               Objects.equal(archivedItem.getStartDate(), invoiceItem.getStartDate()) &&
+               Objects.equal(archivedItem.getEndDate(), invoiceItem.getEndDate()) &&
+               Objects.equal(archivedItem.getPlanName(), invoiceItem.getPlanName()) &&
+               Objects.equal(archivedItem.getPhaseName(), invoiceItem.getPhaseName()) &&
+               archivedItem.getAmount().compareTo(invoiceItem.getAmount()) == 0;
+    }
+
+    // FIXED, RECURRING and USAGE items of a subscription legitimately coexist: only compare items of the same type
+    private static boolean overlaps(final InvoiceItemModelDao archivedItem, final InvoiceItem invoiceItem) {
+        if (archivedItem.getType() != invoiceItem.getInvoiceItemType() || archivedItem.getStartDate() == null || invoiceItem.getStartDate() == null) {
+            return false;
+        } else if (invoiceItem.getInvoiceItemType() == InvoiceItemType.FIXED || archivedItem.getEndDate() == null || invoiceItem.getEndDate() == null) {
+            return archivedItem.getStartDate().equals(invoiceItem.getStartDate());
+        } else {
+            return invoiceItem.getStartDate().isBefore(archivedItem.getEndDate()) && archivedItem.getStartDate().isBefore(invoiceItem.getEndDate());
+        }
+    }
+
+    private static final class ArchivedItemKey {
+
+        private final UUID subscriptionId;
+        private final InvoiceItemType type;
+
+        private ArchivedItemKey(final UUID subscriptionId, final InvoiceItemType type) {
+            this.subscriptionId = subscriptionId;
+            this.type = type;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            final ArchivedItemKey that = (ArchivedItemKey) o;
+            return Objects.equal(subscriptionId, that.subscriptionId) && type == that.type;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(subscriptionId, type);
+        }
+    }
+}
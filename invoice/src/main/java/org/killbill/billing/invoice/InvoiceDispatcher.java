@@ -64,6 +64,7 @@ import org.killbill.billing.invoice.api.InvoiceStatus;
 import org.killbill.billing.invoice.api.user.DefaultInvoiceNotificationInternalEvent;
 import org.killbill.billing.invoice.api.user.DefaultNullInvoiceEvent;
 import org.killbill.billing.invoice.calculator.InvoiceCalculatorUtils;
+import org.killbill.billing.invoice.dao.InvoiceArchiveSummaryModelDao;
 import org.killbill.billing.invoice.dao.InvoiceDao;
 import org.killbill.billing.invoice.dao.InvoiceItemModelDao;
 import org.killbill.billing.invoice.dao.InvoiceModelDao;
@@ -95,6 +96,7 @@ import org.killbill.billing.util.callcontext.InternalCallContextFactory;
 import org.killbill.billing.util.callcontext.TenantContext;
 import org.killbill.billing.util.config.definition.InvoiceConfig;
 import org.killbill.billing.util.globallocker.LockerType;
+import org.killbill.billing.util.metrics.BillingMetrics;
 import org.killbill.bus.api.PersistentBus;
 import org.killbill.bus.api.PersistentBus.EventBusException;
 import org.killbill.clock.Clock;
@@ -144,6 +146,8 @@ public class InvoiceDispatcher {
     private final NotificationQueueService notificationQueueService;
     private final InvoiceConfig invoiceConfig;
     private final ParkedAccountsManager parkedAccountsManager;
+    private final InvoiceTriggerCoalescer invoiceTriggerCoalescer;
+    private final BillingMetrics billingMetrics;
 
     @Inject
     public InvoiceDispatcher(final InvoiceGenerator generator,
@@ -158,7 +162,9 @@ public class InvoiceDispatcher {
                              final NotificationQueueService notificationQueueService,
                              final InvoiceConfig invoiceConfig,
                              final Clock clock,
-                             final ParkedAccountsManager parkedAccountsManager) {
+                             final ParkedAccountsManager parkedAccountsManager,
+                             final InvoiceTriggerCoalescer invoiceTriggerCoalescer,
+                             final BillingMetrics billingMetrics) {
         this.generator = generator;
         this.billingApi = billingApi;
         this.subscriptionApi = SubscriptionApi;
@@ -172,6 +178,8 @@ public class InvoiceDispatcher {
         this.notificationQueueService = notificationQueueService;
         this.invoiceConfig = invoiceConfig;
         this.parkedAccountsManager = parkedAccountsManager;
+        this.invoiceTriggerCoalescer = invoiceTriggerCoalescer;
+        this.billingMetrics = billingMetrics;
     }
 
     public void processSubscriptionStartRequestedDate(final RequestedSubscriptionInternalEvent transition, final InternalCallContext context) {
@@ -279,7 +287,21 @@ public class InvoiceDispatcher {
             return null;
         }
 
-        return processAccount(false, accountId, targetDate, dryRunArguments, isRescheduled, context);
+        if (dryRunArguments != null) {
+            return processAccount(false, accountId, targetDate, dryRunArguments, isRescheduled, context);
+        }
+
+        // Merge triggers received for the same account while an invoice run is in flight (if configured)
+        return invoiceTriggerCoalescer.coalesce(accountId,
+                                                targetDate,
+                                                isRescheduled,
+                                                context,
+                                                new InvoiceTriggerCoalescer.InvoiceTrigger() {
+                                                    @Override
+                                                    public Invoice run(final LocalDate mergedTargetDate, final boolean mergedIsRescheduled) throws InvoiceApiException {
+                                                        return processAccount(false, accountId, mergedTargetDate, null, mergedIsRescheduled, context);
+                                                    }
+                                                });
     }
 
     public Invoice processAccount(final boolean isApiCall,
@@ -664,7 +686,44 @@ public class InvoiceDispatcher {
             targetInvoiceId = null;
         }
 
-        return generator.generateInvoice(account, billingEvents, existingInvoices, targetInvoiceId, targetDate, account.getCurrency(), context);
+        final long startNanos = System.nanoTime();
+        final InvoiceWithMetadata invoiceWithMetadata = generator.generateInvoice(account, billingEvents, existingInvoices, targetInvoiceId, targetDate, account.getCurrency(), context);
+        billingMetrics.recordDuration("killbill.invoice.generation", System.nanoTime() - startNanos);
+        if (invoiceWithMetadata.getInvoice() != null) {
+            billingMetrics.recordValue("killbill.invoice.generation.items", invoiceWithMetadata.getInvoice().getInvoiceItems().size());
+        }
+        return filterArchivedPeriods(invoiceWithMetadata, existingInvoices, context);
+    }
+
+    // The items of the archived invoices are not part of the existing invoices anymore: make sure the generator doesn't bill these periods again
+    private InvoiceWithMetadata filterArchivedPeriods(final InvoiceWithMetadata invoiceWithMetadata, final List<Invoice> existingInvoices, final InternalCallContext context) throws InvoiceApiException {
+        if (invoiceWithMetadata.getInvoice() == null) {
+            return invoiceWithMetadata;
+        }
+        final InvoiceArchiveSummaryModelDao archiveSummary = invoiceDao.getArchiveSummary(context);
+        if (archiveSummary == null) {
+            return invoiceWithMetadata;
+        }
+
+        // Archived items all end by archivedUpTo: only the proposed items starting by then can match (or overlap) one of them
+        final Set<UUID> subscriptionIds = new HashSet<UUID>();
+        LocalDate fromDate = null;
+        for (final InvoiceItem invoiceItem : invoiceWithMetadata.getInvoice().getInvoiceItems()) {
+            if (ArchivedPeriodsFilter.isPeriodItem(invoiceItem.getInvoiceItemType()) &&
+                invoiceItem.getSubscriptionId() != null &&
+                invoiceItem.getStartDate() != null &&
+                !invoiceItem.getStartDate().isAfter(archiveSummary.getArchivedUpTo())) {
+                subscriptionIds.add(invoiceItem.getSubscriptionId());
+                if (fromDate == null || invoiceItem.getStartDate().isBefore(fromDate)) {
+                    fromDate = invoiceItem.getStartDate();
+                }
+            }
+        }
+        if (subscriptionIds.isEmpty()) {
+            return invoiceWithMetadata;
+        }
+
+        return ArchivedPeriodsFilter.filter(invoiceWithMetadata, existingInvoices, invoiceDao.getArchivedPeriodItems(subscriptionIds, fromDate, context));
     }
 
     private FutureAccountNotifications createNextFutureNotificationDate(final DateTime rescheduleDate, final BillingEventSet billingEvents, final InternalCallContext context) {
@@ -1022,7 +1081,8 @@ public class InvoiceDispatcher {
             final boolean isEventDryRunForNotifications = input.getEvent().isDryRunForInvoiceNotification() != null ?
                                                           input.getEvent().isDryRunForInvoiceNotification() : false;
             if (isEventForSubscription && !isEventDryRunForNotifications) {
-                effectiveDates.add(input.getEffectiveDate());
+                // The notification may fire later than the billing date (see BillRunSmoothingPolicy)
+                effectiveDates.add(input.getEvent().getTargetDate() != null ? input.getEvent().getTargetDate() : input.getEffectiveDate());
             }
         }
         return effectiveDates;
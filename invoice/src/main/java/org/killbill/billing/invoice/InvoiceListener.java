@@ -20,12 +20,15 @@ package org.killbill.billing.invoice;
 
 import java.util.UUID;
 
+import javax.annotation.Nullable;
+
 import org.joda.time.DateTime;
 import org.killbill.billing.ErrorCode;
 import org.killbill.billing.account.api.Account;
 import org.killbill.billing.account.api.AccountApiException;
 import org.killbill.billing.account.api.AccountInternalApi;
 import org.killbill.billing.callcontext.InternalCallContext;
+import org.killbill.billing.callcontext.RequestReadCache;
 import org.killbill.billing.events.BlockingTransitionInternalEvent;
 import org.killbill.billing.events.EffectiveSubscriptionInternalEvent;
 import org.killbill.billing.events.InvoiceCreationInternalEvent;
@@ -40,6 +43,8 @@ import org.killbill.billing.subscription.api.SubscriptionBaseTransitionType;
 import org.killbill.billing.util.callcontext.CallOrigin;
 import org.killbill.billing.util.callcontext.InternalCallContextFactory;
 import org.killbill.billing.util.callcontext.UserType;
+import org.killbill.billing.util.config.definition.RequestCacheConfig;
+import org.killbill.billing.util.metrics.BillingMetrics;
 import org.killbill.clock.Clock;
 import org.killbill.notificationq.api.NotificationQueueService;
 import org.killbill.notificationq.api.NotificationQueueService.NoSuchNotificationQueue;
@@ -64,6 +69,9 @@ public class InvoiceListener extends RetryableService implements InvoiceListener
     private final InvoiceDispatcher dispatcher;
     private final InternalCallContextFactory internalCallContextFactory;
     private final InvoiceInternalApi invoiceApi;
+    private final RequestCacheConfig requestCacheConfig;
+    private final BillingMetrics billingMetrics;
+    private final Clock clock;
     private final RetryableSubscriber retryableSubscriber;
     private final SubscriberQueueHandler subscriberQueueHandler = new SubscriberQueueHandler();
 
@@ -73,9 +81,14 @@ public class InvoiceListener extends RetryableService implements InvoiceListener
                            final InvoiceDispatcher dispatcher,
                            final InvoiceInternalApi invoiceApi,
                            final NotificationQueueService notificationQueueService,
+                           final RequestCacheConfig requestCacheConfig,
+                           final BillingMetrics billingMetrics,
                            final Clock clock) {
         super(notificationQueueService);
         this.dispatcher = dispatcher;
+        this.requestCacheConfig = requestCacheConfig;
+        this.billingMetrics = billingMetrics;
+        this.clock = clock;
         this.internalCallContextFactory = internalCallContextFactory;
         this.invoiceApi = invoiceApi;
 
@@ -197,27 +210,52 @@ public class InvoiceListener extends RetryableService implements InvoiceListener
     @AllowConcurrentEvents
     @Subscribe
     public void handleSubscriptionTransition(final EffectiveSubscriptionInternalEvent event) {
-        retryableSubscriber.handleEvent(event);
+        recordLag(event.getClass().getSimpleName(), event.getEffectiveTransitionTime());
+        final long startNanos = System.nanoTime();
+        final RequestReadCache requestReadCache = openRequestReadCache();
+        try {
+            retryableSubscriber.handleEvent(event);
+        } finally {
+            closeRequestReadCache(requestReadCache, event.getClass().getSimpleName(), startNanos);
+        }
     }
 
     @AllowConcurrentEvents
     @Subscribe
     public void handleBlockingStateTransition(final BlockingTransitionInternalEvent event) {
-        retryableSubscriber.handleEvent(event);
+        recordLag(event.getClass().getSimpleName(), event.getEffectiveDate());
+        final long startNanos = System.nanoTime();
+        final RequestReadCache requestReadCache = openRequestReadCache();
+        try {
+            retryableSubscriber.handleEvent(event);
+        } finally {
+            closeRequestReadCache(requestReadCache, event.getClass().getSimpleName(), startNanos);
+        }
     }
 
     @AllowConcurrentEvents
     @Subscribe
     public void handleSubscriptionTransition(final RequestedSubscriptionInternalEvent event) {
-        retryableSubscriber.handleEvent(event);
+        recordLag(event.getClass().getSimpleName(), event.getEffectiveTransitionTime());
+        final long startNanos = System.nanoTime();
+        final RequestReadCache requestReadCache = openRequestReadCache();
+        try {
+            retryableSubscriber.handleEvent(event);
+        } finally {
+            closeRequestReadCache(requestReadCache, event.getClass().getSimpleName(), startNanos);
+        }
     }
 
     public void handleNextBillingDateEvent(final UUID subscriptionId, final DateTime eventDateTime, final boolean isRescheduled, final UUID userToken, final Long accountRecordId, final Long tenantRecordId) {
-        final InternalCallContext context = internalCallContextFactory.createInternalCallContext(tenantRecordId, accountRecordId, "Next Billing Date", CallOrigin.INTERNAL, UserType.SYSTEM, userToken);
+        final long startNanos = System.nanoTime();
+        final RequestReadCache requestReadCache = openRequestReadCache();
         try {
+            final InternalCallContext context = internalCallContextFactory.createInternalCallContext(tenantRecordId, accountRecordId, "Next Billing Date", CallOrigin.INTERNAL, UserType.SYSTEM, userToken);
             dispatcher.processSubscriptionForInvoiceGeneration(subscriptionId, context.toLocalDate(eventDateTime), isRescheduled, context);
         } catch (final InvoiceApiException e) {
             log.warn("Unable to process subscriptionId='{}', eventDateTime='{}'", subscriptionId, eventDateTime, e);
+        } finally {
+            closeRequestReadCache(requestReadCache, "NextBillingDate", startNanos);
         }
     }
 
@@ -233,7 +271,32 @@ public class InvoiceListener extends RetryableService implements InvoiceListener
     @AllowConcurrentEvents
     @Subscribe
     public void handleChildrenInvoiceCreationEvent(final InvoiceCreationInternalEvent event) {
-        retryableSubscriber.handleEvent(event);
+        final long startNanos = System.nanoTime();
+        final RequestReadCache requestReadCache = openRequestReadCache();
+        try {
+            retryableSubscriber.handleEvent(event);
+        } finally {
+            closeRequestReadCache(requestReadCache, event.getClass().getSimpleName(), startNanos);
+        }
+    }
+
+    private void recordLag(final String eventType, final DateTime effectiveDate) {
+        billingMetrics.recordLag("killbill.invoice.listener." + eventType + ".lag", effectiveDate, clock.getUTCNow());
+    }
+
+    private RequestReadCache openRequestReadCache() {
+        return requestCacheConfig.isRequestReadCacheEnabled() ? RequestReadCache.open() : null;
+    }
+
+    private void closeRequestReadCache(@Nullable final RequestReadCache requestReadCache, final String eventType, final long startNanos) {
+        billingMetrics.recordDuration("killbill.invoice.listener." + eventType, System.nanoTime() - startNanos);
+        if (requestReadCache == null) {
+            return;
+        }
+        requestReadCache.close();
+        billingMetrics.incrementCounter("killbill.cache.request.reads", requestReadCache.getNbReads());
+        billingMetrics.incrementCounter("killbill.cache.request.hits", requestReadCache.getNbHits());
+        billingMetrics.incrementCounter("killbill.cache.request.invalidations", requestReadCache.getNbInvalidations());
     }
 
     private boolean isChildrenAccountAndPaymentDelegated(final Account account) {
@@ -255,6 +318,12 @@ public class InvoiceListener extends RetryableService implements InvoiceListener
     @AllowConcurrentEvents
     @Subscribe
     public void handleChildrenInvoiceAdjustmentEvent(final DefaultInvoiceAdjustmentEvent event) {
-        retryableSubscriber.handleEvent(event);
+        final long startNanos = System.nanoTime();
+        final RequestReadCache requestReadCache = openRequestReadCache();
+        try {
+            retryableSubscriber.handleEvent(event);
+        } finally {
+            closeRequestReadCache(requestReadCache, event.getClass().getSimpleName(), startNanos);
+        }
     }
 }
@@ -22,8 +22,11 @@ import java.util.UUID;
 
 import org.killbill.billing.ObjectType;
 import org.killbill.billing.callcontext.InternalCallContext;
+import org.killbill.billing.events.ControlTagCreationInternalEvent;
 import org.killbill.billing.events.ControlTagDeletionInternalEvent;
+import org.killbill.billing.events.TagInternalEvent;
 import org.killbill.billing.invoice.api.InvoiceApiException;
+import org.killbill.billing.invoice.dao.InvoiceDao;
 import org.killbill.billing.platform.api.KillbillService;
 import org.killbill.billing.platform.api.LifecycleHandlerType;
 import org.killbill.billing.platform.api.LifecycleHandlerType.LifecycleLevel;
@@ -53,6 +56,8 @@ public class InvoiceTagHandler extends RetryableService implements KillbillServi
     private static final Logger log = LoggerFactory.getLogger(InvoiceTagHandler.class);
 
     private final InvoiceDispatcher dispatcher;
+    private final InvoiceDao invoiceDao;
+    private final InternalCallContextFactory internalCallContextFactory;
     private final RetryableSubscriber retryableSubscriber;
 
     private final SubscriberQueueHandler subscriberQueueHandler = new SubscriberQueueHandler();
@@ -60,10 +65,13 @@ public class InvoiceTagHandler extends RetryableService implements KillbillServi
     @Inject
     public InvoiceTagHandler(final Clock clock,
                              final InvoiceDispatcher dispatcher,
+                             final InvoiceDao invoiceDao,
                              final NotificationQueueService notificationQueueService,
                              final InternalCallContextFactory internalCallContextFactory) {
         super(notificationQueueService);
         this.dispatcher = dispatcher;
+        this.invoiceDao = invoiceDao;
+        this.internalCallContextFactory = internalCallContextFactory;
 
         final SubscriberAction<ControlTagDeletionInternalEvent> action = new SubscriberAction<ControlTagDeletionInternalEvent>() {
             @Override
@@ -72,10 +80,21 @@ public class InvoiceTagHandler extends RetryableService implements KillbillServi
                     final UUID accountId = event.getObjectId();
                     final InternalCallContext context = internalCallContextFactory.createInternalCallContext(event.getSearchKey2(), event.getSearchKey1(), "InvoiceTagHandler", CallOrigin.INTERNAL, UserType.SYSTEM, event.getUserToken());
                     processUnpaid_AUTO_INVOICING_OFF_invoices(accountId, context);
+                } else if (isInvoiceWrittenOffEvent(event)) {
+                    refreshBalances(event);
                 }
             }
         };
         subscriberQueueHandler.subscribe(ControlTagDeletionInternalEvent.class, action);
+        final SubscriberAction<ControlTagCreationInternalEvent> creationAction = new SubscriberAction<ControlTagCreationInternalEvent>() {
+            @Override
+            public void run(final ControlTagCreationInternalEvent event) {
+                if (isInvoiceWrittenOffEvent(event)) {
+                    refreshBalances(event);
+                }
+            }
+        };
+        subscriberQueueHandler.subscribe(ControlTagCreationInternalEvent.class, creationAction);
         this.retryableSubscriber = new RetryableSubscriber(clock, this, subscriberQueueHandler);
     }
 
@@ -100,6 +119,12 @@ public class InvoiceTagHandler extends RetryableService implements KillbillServi
         retryableSubscriber.handleEvent(event);
     }
 
+    @AllowConcurrentEvents
+    @Subscribe
+    public void process_WRITTEN_OFF_creation(final ControlTagCreationInternalEvent event) {
+        retryableSubscriber.handleEvent(event);
+    }
+
     @LifecycleHandlerType(LifecycleLevel.START_SERVICE)
     public void start() {
         super.start();
@@ -117,4 +142,14 @@ public class InvoiceTagHandler extends RetryableService implements KillbillServi
             log.warn("Failed to process tag removal AUTO_INVOICING_OFF for accountId='{}'", accountId, e);
         }
     }
+
+    private boolean isInvoiceWrittenOffEvent(final TagInternalEvent event) {
+        return event.getTagDefinition().getName().equals(ControlTagType.WRITTEN_OFF.toString()) && event.getObjectType() == ObjectType.INVOICE;
+    }
+
+    // WRITTEN_OFF invoices are excluded from the account balance
+    private void refreshBalances(final TagInternalEvent event) {
+        final InternalCallContext context = internalCallContextFactory.createInternalCallContext(event.getSearchKey2(), event.getSearchKey1(), "InvoiceTagHandler", CallOrigin.INTERNAL, UserType.SYSTEM, event.getUserToken());
+        invoiceDao.refreshInvoiceBalance(event.getObjectId(), context);
+    }
 }
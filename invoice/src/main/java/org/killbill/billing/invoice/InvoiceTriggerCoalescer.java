@@ -0,0 +1,274 @@
+/*
+ * Copyright 2014-2019 Groupon, Inc
+ * Copyright 2014-2019 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.invoice;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+
+import org.joda.time.LocalDate;
+import org.killbill.billing.callcontext.InternalCallContext;
+import org.killbill.billing.invoice.api.Invoice;
+import org.killbill.billing.invoice.api.InvoiceApiException;
+import org.killbill.billing.util.config.definition.InvoiceConfig;
+import org.killbill.billing.util.metrics.BillingMetrics;
+import org.killbill.clock.Clock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Merges the invoice triggers (subscription transitions, blocking states, next billing date notifications) received
+ * for the same account into as few invoice runs as possible, without delaying any of them.
+ * <p/>
+ * At most one run per account is in flight, and at most one is pending behind it:
+ * <ul>
+ * <li>if no run is in flight, the trigger runs the invoice generation right away</li>
+ * <li>otherwise, the first trigger creates the pending run: once the in-flight run completes, it runs the generation
+ * at the latest target date of all the triggers merged in the meantime</li>
+ * <li>subsequent triggers are merged into the pending run and wait for its outcome: its invoice is returned, and its
+ * failure is rethrown, to all of them</li>
+ * </ul>
+ * The in-flight run may not see the changes behind the triggers received after it started, hence the pending run.
+ * <p/>
+ * The pending run is executed with the {@link InternalCallContext} of the trigger which created it: the user token,
+ * created by, reason and comment of the merged triggers don't appear in the audit logs nor in the bus events of the
+ * resulting invoice. Their user tokens are logged along with the pending run, so that they can be correlated.
+ */
+public class InvoiceTriggerCoalescer {
+
+    private static final Logger log = LoggerFactory.getLogger(InvoiceTriggerCoalescer.class);
+
+    static final String TRIGGERS_METRIC_NAME = "killbill.invoice.coalescer.triggers";
+    static final String RUNS_METRIC_NAME = "killbill.invoice.coalescer.runs";
+    static final String COALESCED_METRIC_NAME = "killbill.invoice.coalescer.coalesced";
+
+    public interface InvoiceTrigger {
+
+        Invoice run(LocalDate targetDate, boolean isRescheduled) throws InvoiceApiException;
+    }
+
+    private final InvoiceConfig invoiceConfig;
+    private final Clock clock;
+    private final BillingMetrics billingMetrics;
+
+    // State transitions are short: a single monitor is used for all accounts
+    private final Map<UUID, AccountRuns> accountRuns = new HashMap<UUID, AccountRuns>();
+
+    @Inject
+    public InvoiceTriggerCoalescer(final InvoiceConfig invoiceConfig, final Clock clock, final BillingMetrics billingMetrics) {
+        this.invoiceConfig = invoiceConfig;
+        this.clock = clock;
+        this.billingMetrics = billingMetrics;
+    }
+
+    public Invoice coalesce(final UUID accountId,
+                            @Nullable final LocalDate targetDate,
+                            final boolean isRescheduled,
+                            final InternalCallContext context,
+                            final InvoiceTrigger invoiceTrigger) throws InvoiceApiException {
+        if (!invoiceConfig.isTriggerCoalescingEnabled(context)) {
+            return invoiceTrigger.run(targetDate, isRescheduled);
+        }
+
+        billingMetrics.incrementCounter(TRIGGERS_METRIC_NAME);
+
+        // A null targetDate means today (see InvoiceDispatcher#processAccountWithLock)
+        final LocalDate resolvedTargetDate = targetDate != null ? targetDate : context.toLocalDate(clock.getUTCNow());
+
+        final Run run;
+        final Run previousRun;
+        final boolean isLeader;
+        synchronized (accountRuns) {
+            AccountRuns runs = accountRuns.get(accountId);
+            if (runs == null) {
+                runs = new AccountRuns();
+                accountRuns.put(accountId, runs);
+            }
+
+            if (runs.running == null) {
+                run = new Run(resolvedTargetDate, isRescheduled);
+                runs.running = run;
+                previousRun = null;
+                isLeader = true;
+            } else if (runs.pending == null) {
+                run = new Run(resolvedTargetDate, isRescheduled);
+                runs.pending = run;
+                previousRun = runs.running;
+                isLeader = true;
+            } else {
+                run = runs.pending;
+                run.merge(resolvedTargetDate, isRescheduled, context.getUserToken());
+                previousRun = null;
+                isLeader = false;
+            }
+        }
+
+        if (!isLeader) {
+            billingMetrics.incrementCounter(COALESCED_METRIC_NAME);
+            log.debug("Coalesced invoice trigger for accountId='{}', targetDate='{}'", accountId, resolvedTargetDate);
+            return run.awaitOutcome();
+        }
+
+        if (previousRun != null) {
+            // The in-flight run hands over to this one when it completes
+            previousRun.awaitCompletion();
+        }
+
+        try {
+            billingMetrics.incrementCounter(RUNS_METRIC_NAME);
+            if (run.getNbMerged() > 0) {
+                log.info("Coalesced {} invoice triggers for accountId='{}' into a single run, targetDate='{}', userToken='{}', mergedUserTokens='{}'",
+                         run.getNbMerged() + 1, accountId, run.getTargetDate(), context.getUserToken(), run.getMergedUserTokens());
+            }
+            final Invoice invoice = invoiceTrigger.run(run.getTargetDate(), run.isRescheduled());
+            run.setInvoice(invoice);
+            return invoice;
+        } catch (final InvoiceApiException e) {
+            run.setFailure(e);
+            throw e;
+        } catch (final RuntimeException e) {
+            run.setFailure(e);
+            throw e;
+        } finally {
+            synchronized (accountRuns) {
+                final AccountRuns runs = accountRuns.get(accountId);
+                // Promote the pending run before waking it up, so that no trigger is merged into it anymore
+                if (runs.pending != null) {
+                    runs.running = runs.pending;
+                    runs.pending = null;
+                } else {
+                    accountRuns.remove(accountId);
+                }
+            }
+            run.complete();
+        }
+    }
+
+    private static final class AccountRuns {
+
+        private Run running;
+        private Run pending;
+    }
+
+    private static final class Run {
+
+        private LocalDate targetDate;
+        private boolean isRescheduled;
+        private int nbMerged;
+        // Merged triggers run under the context of the leader
+        private final Set<UUID> mergedUserTokens;
+
+        private boolean completed;
+        private boolean succeeded;
+        private Invoice invoice;
+        private InvoiceApiException invoiceApiException;
+        private RuntimeException runtimeException;
+
+        private Run(final LocalDate targetDate, final boolean isRescheduled) {
+            this.targetDate = targetDate;
+            this.isRescheduled = isRescheduled;
+            this.nbMerged = 0;
+            this.mergedUserTokens = new LinkedHashSet<UUID>();
+            this.completed = false;
+            this.succeeded = false;
+        }
+
+        private synchronized void merge(final LocalDate otherTargetDate, final boolean otherIsRescheduled, @Nullable final UUID otherUserToken) {
+            if (otherTargetDate.compareTo(targetDate) > 0) {
+                targetDate = otherTargetDate;
+            }
+            // The merged run is only considered as rescheduled if all the triggers were
+            isRescheduled = isRescheduled && otherIsRescheduled;
+            nbMerged++;
+            if (otherUserToken != null) {
+                mergedUserTokens.add(otherUserToken);
+            }
+        }
+
+        private synchronized LocalDate getTargetDate() {
+            return targetDate;
+        }
+
+        private synchronized boolean isRescheduled() {
+            return isRescheduled;
+        }
+
+        private synchronized int getNbMerged() {
+            return nbMerged;
+        }
+
+        private synchronized Set<UUID> getMergedUserTokens() {
+            return ImmutableSet.<UUID>copyOf(mergedUserTokens);
+        }
+
+        private synchronized void setInvoice(final Invoice invoice) {
+            this.invoice = invoice;
+            this.succeeded = true;
+        }
+
+        private synchronized void setFailure(final InvoiceApiException e) {
+            this.invoiceApiException = e;
+        }
+
+        private synchronized void setFailure(final RuntimeException e) {
+            this.runtimeException = e;
+        }
+
+        private synchronized void complete() {
+            if (!succeeded && invoiceApiException == null && runtimeException == null) {
+                // Never leave the merged triggers without outcome (e.g. on Error)
+                runtimeException = new IllegalStateException("Coalesced invoice run didn't complete");
+            }
+            completed = true;
+            notifyAll();
+        }
+
+        // The wait isn't interruptible: the interrupt status is restored afterwards
+        private synchronized void awaitCompletion() {
+            boolean interrupted = false;
+            while (!completed) {
+                try {
+                    wait();
+                } catch (final InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private synchronized Invoice awaitOutcome() throws InvoiceApiException {
+            awaitCompletion();
+            if (invoiceApiException != null) {
+                throw invoiceApiException;
+            } else if (runtimeException != null) {
+                throw runtimeException;
+            } else {
+                return invoice;
+            }
+        }
+    }
+}
@@ -0,0 +1,294 @@
+/*
+ * Copyright 2014-2019 Groupon, Inc
+ * Copyright 2014-2019 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.invoice;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.inject.Inject;
+
+import org.joda.time.DateTime;
+import org.killbill.billing.ErrorCode;
+import org.killbill.billing.callcontext.InternalCallContext;
+import org.killbill.billing.invoice.api.InvoiceApiException;
+import org.killbill.billing.invoice.dao.InvoiceDao;
+import org.killbill.billing.invoice.dao.InvoiceParentChildModelDao;
+import org.killbill.billing.invoice.notification.ParentInvoiceCommitmentPoster;
+import org.killbill.billing.util.callcontext.CallOrigin;
+import org.killbill.billing.util.callcontext.InternalCallContextFactory;
+import org.killbill.billing.util.callcontext.UserType;
+import org.killbill.billing.util.config.definition.InvoiceConfig;
+import org.killbill.billing.util.globallocker.LockerType;
+import org.killbill.billing.util.metrics.BillingMetrics;
+import org.killbill.clock.Clock;
+import org.killbill.commons.locker.GlobalLock;
+import org.killbill.commons.locker.GlobalLocker;
+import org.killbill.commons.locker.LockFailedException;
+import org.skife.config.TimeSpan;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+/**
+ * Commits parent invoices on behalf of the parent invoice commitment queue, when the pipeline is enabled.
+ * <p/>
+ * The parent invoice is committed in a single transaction (status, CBA, creation event and balances of the parent account),
+ * which also returns the child accounts of the parent invoices whose balances changed. Instead of being refreshed one at a time
+ * within that transaction, the child accounts are then split in batches, refreshed concurrently by a bounded pool of workers,
+ * each child account in its own transaction and under its own account lock. The child accounts which couldn't be refreshed
+ * (e.g. lock not acquired) are retried later, through the same queue (see org.killbill.invoice.parentCommit.pipeline.retrySchedule).
+ */
+public class ParentInvoiceCommitPipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(ParentInvoiceCommitPipeline.class);
+
+    private static final String PARENT_COMMIT_USER = "Commit Invoice";
+    private static final String PARENT_COMMIT_THREAD_PREFIX = "parent-commit-th-";
+    private static final String PARENT_COMMIT_TH_GROUP_NAME = "parent-commit-grp";
+    private static final long TIMEOUT_EXECUTOR_SEC = 3L;
+
+    private static final String METRIC_PREFIX = "killbill.invoice.parentCommit.";
+
+    interface ChildAccountStep {
+
+        void process(UUID childAccountId) throws Exception;
+    }
+
+    private final InvoiceDao invoiceDao;
+    private final GlobalLocker locker;
+    private final InternalCallContextFactory internalCallContextFactory;
+    private final ParentInvoiceCommitmentPoster parentInvoiceCommitmentPoster;
+    private final InvoiceConfig invoiceConfig;
+    private final BillingMetrics billingMetrics;
+    private final Clock clock;
+
+    private final AtomicLong nbCommits = new AtomicLong();
+    private final AtomicLong nbChildAccounts = new AtomicLong();
+    private final AtomicLong nbFailedChildAccounts = new AtomicLong();
+    private final AtomicLong nbAbandonedChildAccounts = new AtomicLong();
+
+    private volatile ExecutorService workersExecutorService;
+
+    @Inject
+    public ParentInvoiceCommitPipeline(final InvoiceDao invoiceDao,
+                                       final GlobalLocker locker,
+                                       final InternalCallContextFactory internalCallContextFactory,
+                                       final ParentInvoiceCommitmentPoster parentInvoiceCommitmentPoster,
+                                       final InvoiceConfig invoiceConfig,
+                                       final BillingMetrics billingMetrics,
+                                       final Clock clock) {
+        this.invoiceDao = invoiceDao;
+        this.locker = locker;
+        this.internalCallContextFactory = internalCallContextFactory;
+        this.parentInvoiceCommitmentPoster = parentInvoiceCommitmentPoster;
+        this.invoiceConfig = invoiceConfig;
+        this.billingMetrics = billingMetrics;
+        this.clock = clock;
+
+        billingMetrics.registerGauge(METRIC_PREFIX + "commits", nbCommits);
+        billingMetrics.registerGauge(METRIC_PREFIX + "childAccounts", nbChildAccounts);
+        billingMetrics.registerGauge(METRIC_PREFIX + "failedChildAccounts", nbFailedChildAccounts);
+        billingMetrics.registerGauge(METRIC_PREFIX + "abandonedChildAccounts", nbAbandonedChildAccounts);
+    }
+
+    public void initialize() {
+        final int nbThreads = invoiceConfig.getParentCommitPipelineNbThreads();
+        workersExecutorService = Executors.newFixedThreadPool(nbThreads,
+                                                              new ThreadFactory() {
+                                                                  @Override
+                                                                  public Thread newThread(final Runnable r) {
+                                                                      final Thread th = new Thread(new ThreadGroup(PARENT_COMMIT_TH_GROUP_NAME), r);
+                                                                      th.setName(PARENT_COMMIT_THREAD_PREFIX + th.getId());
+                                                                      return th;
+                                                                  }
+                                                              });
+    }
+
+    public void stop() throws InterruptedException {
+        if (workersExecutorService != null) {
+            workersExecutorService.shutdownNow();
+            workersExecutorService.awaitTermination(TIMEOUT_EXECUTOR_SEC, TimeUnit.SECONDS);
+            workersExecutorService = null;
+        }
+    }
+
+    public void commitParentInvoice(final UUID parentInvoiceId, final UUID userToken, final Long accountRecordId, final Long tenantRecordId) {
+        final InternalCallContext context = internalCallContextFactory.createInternalCallContext(tenantRecordId, accountRecordId, PARENT_COMMIT_USER, CallOrigin.INTERNAL, UserType.SYSTEM, userToken);
+
+        final long commitStartNanos = System.nanoTime();
+        final Map<UUID, Collection<UUID>> childInvoiceIdsByChildAccountId;
+        try {
+            childInvoiceIdsByChildAccountId = invoiceDao.commitParentInvoice(parentInvoiceId, context);
+        } catch (final InvoiceApiException e) {
+            // In case we commit parent invoice earlier we expect to see an INVOICE_INVALID_STATUS status
+            if (ErrorCode.INVOICE_INVALID_STATUS.getCode() != e.getCode()) {
+                log.error(e.getMessage());
+            }
+            return;
+        }
+        billingMetrics.recordDuration(METRIC_PREFIX + "commitPhase", System.nanoTime() - commitStartNanos);
+        nbCommits.incrementAndGet();
+
+        refreshChildAccounts(parentInvoiceId, childInvoiceIdsByChildAccountId, 0, context);
+    }
+
+    public void retryChildAccounts(final UUID parentInvoiceId, final List<UUID> childAccountIds, final int retryNb, final UUID userToken, final Long accountRecordId, final Long tenantRecordId) {
+        final InternalCallContext context = internalCallContextFactory.createInternalCallContext(tenantRecordId, accountRecordId, PARENT_COMMIT_USER, CallOrigin.INTERNAL, UserType.SYSTEM, userToken);
+
+        final List<InvoiceParentChildModelDao> invoiceRelations;
+        try {
+            invoiceRelations = invoiceDao.getChildInvoicesByParentInvoiceId(parentInvoiceId, context);
+        } catch (final InvoiceApiException e) {
+            log.warn("Failed to retrieve the child invoices of parent invoiceId='{}'", parentInvoiceId, e);
+            scheduleRetry(parentInvoiceId, childAccountIds, retryNb + 1, context);
+            return;
+        }
+
+        final Map<UUID, Collection<UUID>> childInvoiceIdsByChildAccountId = new HashMap<UUID, Collection<UUID>>();
+        for (final UUID childAccountId : childAccountIds) {
+            childInvoiceIdsByChildAccountId.put(childAccountId, new LinkedList<UUID>());
+        }
+        for (final InvoiceParentChildModelDao invoiceRelation : invoiceRelations) {
+            final Collection<UUID> childInvoiceIds = childInvoiceIdsByChildAccountId.get(invoiceRelation.getChildAccountId());
+            if (childInvoiceIds != null) {
+                childInvoiceIds.add(invoiceRelation.getChildInvoiceId());
+            }
+        }
+
+        refreshChildAccounts(parentInvoiceId, childInvoiceIdsByChildAccountId, retryNb, context);
+    }
+
+    // Return the child accounts which failed
+    List<UUID> processChildAccounts(final Collection<UUID> childAccountIds, final ChildAccountStep step) throws InterruptedException {
+        if (childAccountIds.isEmpty()) {
+            return ImmutableList.<UUID>of();
+        }
+
+        final List<List<UUID>> batches = Lists.partition(ImmutableList.<UUID>copyOf(childAccountIds), Math.max(1, invoiceConfig.getParentCommitPipelineBatchSize()));
+        final ExecutorService executorService = workersExecutorService;
+        final List<UUID> failedChildAccountIds = new LinkedList<UUID>();
+        if (executorService == null) {
+            // Not initialized (or stopped): process the batches inline
+            for (final List<UUID> batch : batches) {
+                failedChildAccountIds.addAll(processBatch(batch, step));
+            }
+            return failedChildAccountIds;
+        }
+
+        final List<Future<List<UUID>>> futures = new ArrayList<Future<List<UUID>>>(batches.size());
+        for (final List<UUID> batch : batches) {
+            futures.add(executorService.submit(new Callable<List<UUID>>() {
+                @Override
+                public List<UUID> call() {
+                    return processBatch(batch, step);
+                }
+            }));
+        }
+
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                failedChildAccountIds.addAll(futures.get(i).get());
+            } catch (final ExecutionException e) {
+                log.warn("Failed to process batch of child accounts", e.getCause());
+                failedChildAccountIds.addAll(batches.get(i));
+            }
+        }
+        return failedChildAccountIds;
+    }
+
+    private List<UUID> processBatch(final Iterable<UUID> childAccountIds, final ChildAccountStep step) {
+        final List<UUID> failedChildAccountIds = new LinkedList<UUID>();
+        for (final UUID childAccountId : childAccountIds) {
+            try {
+                step.process(childAccountId);
+            } catch (final Exception e) {
+                log.warn("Failed to process childAccountId='{}'", childAccountId, e);
+                failedChildAccountIds.add(childAccountId);
+            }
+        }
+        return failedChildAccountIds;
+    }
+
+    private void refreshChildAccounts(final UUID parentInvoiceId, final Map<UUID, Collection<UUID>> childInvoiceIdsByChildAccountId, final int retryNb, final InternalCallContext context) {
+        final long childrenStartNanos = System.nanoTime();
+        List<UUID> failedChildAccountIds;
+        try {
+            failedChildAccountIds = processChildAccounts(childInvoiceIdsByChildAccountId.keySet(),
+                                                         new ChildAccountStep() {
+                                                             @Override
+                                                             public void process(final UUID childAccountId) throws LockFailedException {
+                                                                 refreshChildAccount(childAccountId, childInvoiceIdsByChildAccountId.get(childAccountId), context);
+                                                             }
+                                                         });
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Interrupted while refreshing the child accounts of parent invoiceId='{}'", parentInvoiceId);
+            // Refreshing a child account is idempotent: retry all of them
+            failedChildAccountIds = ImmutableList.<UUID>copyOf(childInvoiceIdsByChildAccountId.keySet());
+        }
+        final long childrenNanos = System.nanoTime() - childrenStartNanos;
+
+        billingMetrics.recordDuration(METRIC_PREFIX + "childrenPhase", childrenNanos);
+        nbChildAccounts.addAndGet(childInvoiceIdsByChildAccountId.size());
+        nbFailedChildAccounts.addAndGet(failedChildAccountIds.size());
+        log.info("Refreshed child accounts of parent invoiceId='{}': retryNb={}, nbChildAccounts={}, nbFailed={}, childrenMs={}",
+                 parentInvoiceId, retryNb, childInvoiceIdsByChildAccountId.size(), failedChildAccountIds.size(), TimeUnit.NANOSECONDS.toMillis(childrenNanos));
+
+        if (!failedChildAccountIds.isEmpty()) {
+            scheduleRetry(parentInvoiceId, failedChildAccountIds, retryNb + 1, context);
+        }
+    }
+
+    private void scheduleRetry(final UUID parentInvoiceId, final List<UUID> failedChildAccountIds, final int retryNb, final InternalCallContext context) {
+        final List<TimeSpan> retrySchedule = invoiceConfig.getParentCommitPipelineRetrySchedule();
+        if (retryNb > retrySchedule.size()) {
+            nbAbandonedChildAccounts.addAndGet(failedChildAccountIds.size());
+            log.error("Giving up refreshing the balances of childAccountIds={} for parent invoiceId='{}' after {} retries: they need to be rebuilt",
+                      failedChildAccountIds, parentInvoiceId, retrySchedule.size());
+            return;
+        }
+
+        final DateTime retryDate = clock.getUTCNow().plus(retrySchedule.get(retryNb - 1).getMillis());
+        parentInvoiceCommitmentPoster.insertChildAccountsRetry(parentInvoiceId, failedChildAccountIds, retryNb, retryDate, context);
+    }
+
+    private void refreshChildAccount(final UUID childAccountId, final Collection<UUID> childInvoiceIds, final InternalCallContext parentContext) throws LockFailedException {
+        // On failure, the child account is retried later
+        final GlobalLock lock = locker.lockWithNumberOfTries(LockerType.ACCNT_INV_PAY.toString(), childAccountId.toString(), invoiceConfig.getMaxGlobalLockRetries());
+        try {
+            invoiceDao.refreshChildAccountBalance(childAccountId, childInvoiceIds, parentContext);
+        } finally {
+            lock.release();
+        }
+    }
+}
@@ -0,0 +1,277 @@
+/*
+ * Copyright 2014-2019 Groupon, Inc
+ * Copyright 2014-2019 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.invoice;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Inject;
+
+import org.killbill.billing.ErrorCode;
+import org.killbill.billing.ObjectType;
+import org.killbill.billing.callcontext.InternalCallContext;
+import org.killbill.billing.callcontext.InternalTenantContext;
+import org.killbill.billing.invoice.api.Invoice;
+import org.killbill.billing.invoice.api.InvoiceApiException;
+import org.killbill.billing.invoice.dao.ParkedAccountsJobDao;
+import org.killbill.billing.invoice.dao.ParkedAccountsJobDao.ConnectionCallback;
+import org.killbill.billing.invoice.dao.ParkedAccountsJobModelDao;
+import org.killbill.billing.invoice.notification.ParkedAccountsJobNotificationKey;
+import org.killbill.billing.invoice.notification.ParkedAccountsJobNotifier;
+import org.killbill.billing.platform.api.KillbillService.KILLBILL_SERVICES;
+import org.killbill.billing.util.UUIDs;
+import org.killbill.billing.util.callcontext.CallOrigin;
+import org.killbill.billing.util.callcontext.InternalCallContextFactory;
+import org.killbill.billing.util.callcontext.UserType;
+import org.killbill.billing.util.config.definition.InvoiceConfig;
+import org.killbill.billing.util.tag.Tag;
+import org.killbill.clock.Clock;
+import org.killbill.notificationq.api.NotificationQueue;
+import org.killbill.notificationq.api.NotificationQueueService;
+import org.killbill.notificationq.api.NotificationQueueService.NoSuchNotificationQueue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterables;
+
+/**
+ * Re-invoices all parked accounts of a tenant, asynchronously.
+ * <p/>
+ * The job is driven by the parked accounts job notification queue, so that chunks are picked up by any node:
+ * an ENUMERATE notification reads the next page of parked accounts (keyset pagination on the PARK tags), records the
+ * cursor in the job table and posts a PROCESS notification for that chunk, as well as the ENUMERATE notification for
+ * the next page (both in the same transaction). Each PROCESS notification is handled by a bounded pool of workers on the
+ * node which picked it up, and the job counters are updated once the chunk has been processed (only once per chunk, even
+ * if the notification is redelivered).
+ */
+public class ParkedAccountsJobProcessor {
+
+    private static final Logger log = LoggerFactory.getLogger(ParkedAccountsJobProcessor.class);
+
+    private static final String PARKED_ACCOUNTS_JOB_USER = "ParkedAccountsJob";
+    private static final String PARKED_ACCOUNTS_JOB_THREAD_PREFIX = "parked-accounts-job-th-";
+    private static final String PARKED_ACCOUNTS_JOB_TH_GROUP_NAME = "parked-accounts-job-grp";
+    private static final long TIMEOUT_EXECUTOR_SEC = 3L;
+    private static final Long NO_ACCOUNT_RECORD_ID = 0L;
+
+    private enum Outcome {
+        SUCCEEDED,
+        NOTHING_TO_DO,
+        FAILED
+    }
+
+    private final ParkedAccountsManager parkedAccountsManager;
+    private final ParkedAccountsJobDao parkedAccountsJobDao;
+    private final InvoiceDispatcher dispatcher;
+    private final NotificationQueueService notificationQueueService;
+    private final InternalCallContextFactory internalCallContextFactory;
+    private final InvoiceConfig invoiceConfig;
+    private final Clock clock;
+
+    private volatile ExecutorService workersExecutorService;
+
+    @Inject
+    public ParkedAccountsJobProcessor(final ParkedAccountsManager parkedAccountsManager,
+                                      final ParkedAccountsJobDao parkedAccountsJobDao,
+                                      final InvoiceDispatcher dispatcher,
+                                      final NotificationQueueService notificationQueueService,
+                                      final InternalCallContextFactory internalCallContextFactory,
+                                      final InvoiceConfig invoiceConfig,
+                                      final Clock clock) {
+        this.parkedAccountsManager = parkedAccountsManager;
+        this.parkedAccountsJobDao = parkedAccountsJobDao;
+        this.dispatcher = dispatcher;
+        this.notificationQueueService = notificationQueueService;
+        this.internalCallContextFactory = internalCallContextFactory;
+        this.invoiceConfig = invoiceConfig;
+        this.clock = clock;
+    }
+
+    public void initialize() {
+        final int nbThreads = invoiceConfig.getParkedAccountsJobNbThreads();
+        workersExecutorService = Executors.newFixedThreadPool(nbThreads,
+                                                              new ThreadFactory() {
+                                                                  @Override
+                                                                  public Thread newThread(final Runnable r) {
+                                                                      final Thread th = new Thread(new ThreadGroup(PARKED_ACCOUNTS_JOB_TH_GROUP_NAME), r);
+                                                                      th.setName(PARKED_ACCOUNTS_JOB_THREAD_PREFIX + th.getId());
+                                                                      return th;
+                                                                  }
+                                                              });
+    }
+
+    public void stop() throws InterruptedException {
+        if (workersExecutorService != null) {
+            workersExecutorService.shutdownNow();
+            workersExecutorService.awaitTermination(TIMEOUT_EXECUTOR_SEC, TimeUnit.SECONDS);
+            workersExecutorService = null;
+        }
+    }
+
+    public UUID startJob(final InternalCallContext context) {
+        final UUID jobId = UUIDs.randomUUID();
+        final ParkedAccountsJobModelDao job = new ParkedAccountsJobModelDao(jobId, context.getCreatedBy(), clock.getUTCNow(), context.getTenantRecordId());
+        parkedAccountsJobDao.create(job,
+                                    new ConnectionCallback() {
+                                        @Override
+                                        public void withConnection(final Connection connection) throws Exception {
+                                            recordNotification(connection, ParkedAccountsJobNotificationKey.enumerate(jobId, 0L), context.getUserToken(), context.getTenantRecordId());
+                                        }
+                                    });
+        log.info("Started parked accounts jobId='{}'", jobId);
+        return jobId;
+    }
+
+    public ParkedAccountsJobModelDao getJob(final UUID jobId, final InternalTenantContext context) {
+        return parkedAccountsJobDao.getById(jobId, context.getTenantRecordId());
+    }
+
+    public void processNotification(final ParkedAccountsJobNotificationKey key, final UUID userToken, final Long tenantRecordId) throws InterruptedException, ExecutionException {
+        switch (key.getStep()) {
+            case ENUMERATE:
+                enumerate(key.getUuidKey(), key.getFromRecordId(), userToken, tenantRecordId);
+                break;
+            case PROCESS:
+                process(key.getUuidKey(), key.getFromRecordId(), key.getAccountIds(), key.getAccountRecordIds(), userToken, tenantRecordId);
+                break;
+            default:
+                log.warn("Unexpected step {} for parked accounts jobId='{}'", key.getStep(), key.getUuidKey());
+        }
+    }
+
+    private void enumerate(final UUID jobId, final Long fromRecordId, final UUID userToken, final Long tenantRecordId) {
+        final int chunkSize = invoiceConfig.getParkedAccountsJobChunkSize();
+        final InternalTenantContext tenantContext = internalCallContextFactory.createInternalTenantContext(tenantRecordId, null);
+        final Map<Long, Tag> parkedAccounts = parkedAccountsManager.getParkedAccounts(fromRecordId, chunkSize, tenantContext);
+
+        final boolean isLastPage = parkedAccounts.size() < chunkSize;
+        final Long lastRecordId = parkedAccounts.isEmpty() ? fromRecordId : Iterables.getLast(parkedAccounts.keySet());
+        final Collection<UUID> parkedAccountIds = new ArrayList<UUID>(parkedAccounts.size());
+        for (final Tag tag : parkedAccounts.values()) {
+            parkedAccountIds.add(tag.getObjectId());
+        }
+        // One bulk lookup for the page (accounts which no longer exist are ignored)
+        final Map<UUID, Long> recordIdsByAccountId = parkedAccountIds.isEmpty() ?
+                                                     ImmutableMap.<UUID, Long>of() :
+                                                     internalCallContextFactory.getRecordIdsFromObjects(parkedAccountIds, ObjectType.ACCOUNT, internalCallContextFactory.createTenantContext(tenantContext));
+        final List<UUID> accountIds = new ArrayList<UUID>(parkedAccountIds.size());
+        final List<Long> accountRecordIds = new ArrayList<Long>(parkedAccountIds.size());
+        for (final UUID accountId : parkedAccountIds) {
+            final Long accountRecordId = recordIdsByAccountId.get(accountId);
+            if (accountRecordId != null) {
+                accountIds.add(accountId);
+                accountRecordIds.add(accountRecordId);
+            }
+        }
+
+        // Only count the accounts of the chunk (deleted accounts are never processed), so that the job can complete
+        final boolean recorded = parkedAccountsJobDao.recordEnumeratedPage(jobId,
+                                                                           fromRecordId,
+                                                                           lastRecordId,
+                                                                           accountIds.size(),
+                                                                           isLastPage,
+                                                                           new ConnectionCallback() {
+                                                                               @Override
+                                                                               public void withConnection(final Connection connection) throws Exception {
+                                                                                   if (!accountIds.isEmpty()) {
+                                                                                       recordNotification(connection, ParkedAccountsJobNotificationKey.process(jobId, fromRecordId, accountIds, accountRecordIds), userToken, tenantRecordId);
+                                                                                   }
+                                                                                   if (!isLastPage) {
+                                                                                       recordNotification(connection, ParkedAccountsJobNotificationKey.enumerate(jobId, lastRecordId), userToken, tenantRecordId);
+                                                                                   }
+                                                                               }
+                                                                           },
+                                                                           tenantRecordId);
+        if (!recorded) {
+            log.info("Ignoring already enumerated page fromRecordId='{}' for parked accounts jobId='{}'", fromRecordId, jobId);
+        }
+    }
+
+    private void process(final UUID jobId, final Long fromRecordId, final List<UUID> accountIds, final List<Long> accountRecordIds, final UUID userToken, final Long tenantRecordId) throws InterruptedException, ExecutionException {
+        final List<Future<Outcome>> futures = new ArrayList<Future<Outcome>>(accountIds.size());
+        for (int i = 0; i < accountIds.size(); i++) {
+            final UUID accountId = accountIds.get(i);
+            final Long accountRecordId = accountRecordIds.get(i);
+            futures.add(workersExecutorService.submit(new Callable<Outcome>() {
+                @Override
+                public Outcome call() {
+                    return processAccount(accountId, accountRecordId, userToken, tenantRecordId);
+                }
+            }));
+        }
+
+        int nbSucceeded = 0;
+        int nbNothingToDo = 0;
+        int nbFailed = 0;
+        for (final Future<Outcome> future : futures) {
+            switch (future.get()) {
+                case SUCCEEDED:
+                    nbSucceeded++;
+                    break;
+                case NOTHING_TO_DO:
+                    nbNothingToDo++;
+                    break;
+                default:
+                    nbFailed++;
+            }
+        }
+
+        final boolean recorded = parkedAccountsJobDao.recordProcessedAccounts(jobId, fromRecordId, nbSucceeded, nbNothingToDo, nbFailed, tenantRecordId);
+        if (!recorded) {
+            log.info("Ignoring already processed chunk fromRecordId='{}' for parked accounts jobId='{}'", fromRecordId, jobId);
+        }
+    }
+
+    private Outcome processAccount(final UUID accountId, final Long accountRecordId, final UUID userToken, final Long tenantRecordId) {
+        try {
+            final InternalCallContext context = internalCallContextFactory.createInternalCallContext(tenantRecordId, accountRecordId, PARKED_ACCOUNTS_JOB_USER, CallOrigin.INTERNAL, UserType.SYSTEM, userToken);
+            // Same semantics as the invoice API: the account is un-parked if the invoice generation succeeds
+            final Invoice invoice = dispatcher.processAccount(true, accountId, clock.getUTCToday(), null, false, context);
+            return invoice == null ? Outcome.NOTHING_TO_DO : Outcome.SUCCEEDED;
+        } catch (final InvoiceApiException e) {
+            if (e.getCode() == ErrorCode.INVOICE_NOTHING_TO_DO.getCode()) {
+                return Outcome.NOTHING_TO_DO;
+            }
+            log.warn("Unable to trigger invoice generation for accountId='{}'", accountId, e);
+            return Outcome.FAILED;
+        } catch (final RuntimeException e) {
+            log.warn("Unable to trigger invoice generation for accountId='{}'", accountId, e);
+            return Outcome.FAILED;
+        }
+    }
+
+    private void recordNotification(final Connection connection, final ParkedAccountsJobNotificationKey key, final UUID userToken, final Long tenantRecordId) throws NoSuchNotificationQueue, IOException {
+        final NotificationQueue queue = notificationQueueService.getNotificationQueue(KILLBILL_SERVICES.INVOICE_SERVICE.getServiceName(),
+                                                                                     ParkedAccountsJobNotifier.PARKED_ACCOUNTS_JOB_NOTIFIER_QUEUE);
+        // Job notifications aren't tied to a single account
+        queue.recordFutureNotificationFromTransaction(connection, clock.getUTCNow(), key, userToken, NO_ACCOUNT_RECORD_ID, tenantRecordId);
+    }
+}
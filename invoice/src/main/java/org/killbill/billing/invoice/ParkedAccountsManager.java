@@ -17,11 +17,13 @@
 
 package org.killbill.billing.invoice;
 
+import java.util.Map;
 import java.util.UUID;
 
 import org.killbill.billing.ErrorCode;
 import org.killbill.billing.ObjectType;
 import org.killbill.billing.callcontext.InternalCallContext;
+import org.killbill.billing.callcontext.InternalTenantContext;
 import org.killbill.billing.tag.TagInternalApi;
 import org.killbill.billing.util.api.TagApiException;
 import org.killbill.billing.util.api.TagDefinitionApiException;
@@ -66,4 +68,9 @@ public class ParkedAccountsManager {
                                           }
                                       }).orNull() != null;
     }
+
+    // Keyset pagination over the parked accounts of the tenant (tag record id -> PARK tag): the record id of the last tag returned is the cursor for the next page
+    public Map<Long, Tag> getParkedAccounts(final Long fromTagRecordId, final int limit, final InternalTenantContext internalTenantContext) {
+        return tagApi.getTagsForTagDefinition(PARK_TAG_DEFINITION_ID, ObjectType.ACCOUNT, fromTagRecordId, (long) limit, internalTenantContext);
+    }
 }
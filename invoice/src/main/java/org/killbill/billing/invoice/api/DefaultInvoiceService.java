@@ -19,6 +19,7 @@
 package org.killbill.billing.invoice.api;
 
 import org.killbill.billing.invoice.notification.ParentInvoiceCommitmentNotifier;
+import org.killbill.billing.invoice.notification.ParkedAccountsJobNotifier;
 import org.killbill.bus.api.PersistentBus;
 import org.killbill.billing.invoice.InvoiceListener;
 import org.killbill.billing.invoice.InvoiceTagHandler;
@@ -37,15 +38,18 @@ public class DefaultInvoiceService implements InvoiceService {
     private final InvoiceTagHandler tagHandler;
     private final PersistentBus eventBus;
     private final ParentInvoiceCommitmentNotifier parentInvoiceNotifier;
+    private final ParkedAccountsJobNotifier parkedAccountsJobNotifier;
 
     @Inject
     public DefaultInvoiceService(final InvoiceListener invoiceListener, final InvoiceTagHandler tagHandler, final PersistentBus eventBus,
-                                 final NextBillingDateNotifier dateNotifier, final ParentInvoiceCommitmentNotifier parentInvoiceNotifier) {
+                                 final NextBillingDateNotifier dateNotifier, final ParentInvoiceCommitmentNotifier parentInvoiceNotifier,
+                                 final ParkedAccountsJobNotifier parkedAccountsJobNotifier) {
         this.invoiceListener = invoiceListener;
         this.tagHandler = tagHandler;
         this.eventBus = eventBus;
         this.dateNotifier = dateNotifier;
         this.parentInvoiceNotifier = parentInvoiceNotifier;
+        this.parkedAccountsJobNotifier = parkedAccountsJobNotifier;
     }
 
     @Override
@@ -68,12 +72,14 @@ public class DefaultInvoiceService implements InvoiceService {
         }
         dateNotifier.initialize();
         parentInvoiceNotifier.initialize();
+        parkedAccountsJobNotifier.initialize();
     }
 
     @LifecycleHandlerType(LifecycleLevel.START_SERVICE)
     public void start() {
         dateNotifier.start();
         parentInvoiceNotifier.start();
+        parkedAccountsJobNotifier.start();
     }
 
     @LifecycleHandlerType(LifecycleLevel.STOP_SERVICE)
@@ -86,5 +92,6 @@ public class DefaultInvoiceService implements InvoiceService {
         }
         dateNotifier.stop();
         parentInvoiceNotifier.stop();
+        parkedAccountsJobNotifier.stop();
     }
 }
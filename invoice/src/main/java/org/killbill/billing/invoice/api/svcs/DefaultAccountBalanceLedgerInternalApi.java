@@ -0,0 +1,54 @@
+/*
+ * Copyright 2014-2019 Groupon, Inc
+ * Copyright 2014-2019 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.killbill.billing.invoice.api.svcs;
+
+import java.util.UUID;
+
+import javax.inject.Inject;
+
+import org.killbill.billing.callcontext.InternalCallContext;
+import org.killbill.billing.invoice.api.AccountBalanceLedger;
+import org.killbill.billing.invoice.api.AccountBalanceLedgerInternalApi;
+import org.killbill.billing.invoice.dao.InvoiceDao;
+import org.killbill.billing.util.callcontext.CallContext;
+import org.killbill.billing.util.callcontext.InternalCallContextFactory;
+import org.killbill.billing.util.callcontext.TenantContext;
+
+public class DefaultAccountBalanceLedgerInternalApi implements AccountBalanceLedgerInternalApi {
+
+    private final InvoiceDao dao;
+    private final InternalCallContextFactory internalCallContextFactory;
+
+    @Inject
+    public DefaultAccountBalanceLedgerInternalApi(final InvoiceDao dao,
+                                                  final InternalCallContextFactory internalCallContextFactory) {
+        this.dao = dao;
+        this.internalCallContextFactory = internalCallContextFactory;
+    }
+
+    @Override
+    public AccountBalanceLedger verifyAccountBalanceLedger(final UUID accountId, final TenantContext context) {
+        return dao.verifyAccountBalances(accountId, internalCallContextFactory.createInternalTenantContext(accountId, context));
+    }
+
+    @Override
+    public AccountBalanceLedger rebuildAccountBalanceLedger(final UUID accountId, final CallContext context) {
+        final InternalCallContext internalCallContext = internalCallContextFactory.createInternalCallContext(accountId, context);
+        dao.refreshAccountBalances(internalCallContext);
+        return dao.verifyAccountBalances(accountId, internalCallContext);
+    }
+}
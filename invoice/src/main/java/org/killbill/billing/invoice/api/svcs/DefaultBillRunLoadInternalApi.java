@@ -0,0 +1,118 @@
+/*
+ * Copyright 2014-2019 Groupon, Inc
+ * Copyright 2014-2019 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.invoice.api.svcs;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import javax.inject.Inject;
+
+import org.joda.time.DateTime;
+import org.killbill.billing.callcontext.InternalTenantContext;
+import org.killbill.billing.invoice.api.BillRunLoadBucket;
+import org.killbill.billing.invoice.api.BillRunLoadInternalApi;
+import org.killbill.billing.invoice.model.DefaultBillRunLoadBucket;
+import org.killbill.billing.invoice.notification.DefaultNextBillingDateNotifier;
+import org.killbill.billing.invoice.notification.NextBillingDateNotificationKey;
+import org.killbill.billing.platform.api.KillbillService.KILLBILL_SERVICES;
+import org.killbill.billing.util.callcontext.InternalCallContextFactory;
+import org.killbill.billing.util.callcontext.TenantContext;
+import org.killbill.notificationq.api.NotificationEventWithMetadata;
+import org.killbill.notificationq.api.NotificationQueue;
+import org.killbill.notificationq.api.NotificationQueueService;
+import org.killbill.notificationq.api.NotificationQueueService.NoSuchNotificationQueue;
+
+import com.google.common.base.Preconditions;
+
+public class DefaultBillRunLoadInternalApi implements BillRunLoadInternalApi {
+
+    // Keep the response (and the bookkeeping) bounded, e.g. one month with 5 minutes buckets
+    private static final int MAX_NB_BUCKETS = 10000;
+
+    private final NotificationQueueService notificationQueueService;
+    private final InternalCallContextFactory internalCallContextFactory;
+
+    @Inject
+    public DefaultBillRunLoadInternalApi(final NotificationQueueService notificationQueueService,
+                                         final InternalCallContextFactory internalCallContextFactory) {
+        this.notificationQueueService = notificationQueueService;
+        this.internalCallContextFactory = internalCallContextFactory;
+    }
+
+    @Override
+    public List<BillRunLoadBucket> getProjectedLoad(final DateTime from, final DateTime to, final int bucketMinutes, final TenantContext context) {
+        Preconditions.checkArgument(from != null && to != null && from.compareTo(to) < 0, "from should be before to");
+        Preconditions.checkArgument(bucketMinutes > 0, "bucketMinutes should be positive");
+        final long bucketMillis = bucketMinutes * 60L * 1000L;
+        Preconditions.checkArgument((to.getMillis() - from.getMillis()) / bucketMillis < MAX_NB_BUCKETS, "Too many buckets, use a larger bucketMinutes or a shorter period");
+
+        final InternalTenantContext internalTenantContext = internalCallContextFactory.createInternalTenantContextWithoutAccountRecordId(context);
+        final NotificationQueue nextBillingQueue;
+        try {
+            nextBillingQueue = notificationQueueService.getNotificationQueue(KILLBILL_SERVICES.INVOICE_SERVICE.getServiceName(),
+                                                                             DefaultNextBillingDateNotifier.NEXT_BILLING_DATE_NOTIFIER_QUEUE);
+        } catch (final NoSuchNotificationQueue e) {
+            throw new IllegalStateException(e);
+        }
+
+        final Iterable<NotificationEventWithMetadata<NextBillingDateNotificationKey>> futureNotifications = nextBillingQueue.getFutureNotificationForSearchKey2(to, internalTenantContext.getTenantRecordId());
+        return computeProjectedLoad(futureNotifications, from, to, bucketMillis);
+    }
+
+    static List<BillRunLoadBucket> computeProjectedLoad(final Iterable<NotificationEventWithMetadata<NextBillingDateNotificationKey>> futureNotifications,
+                                                        final DateTime from,
+                                                        final DateTime to,
+                                                        final long bucketMillis) {
+        final int nbBuckets = (int) ((to.getMillis() - from.getMillis() + bucketMillis - 1) / bucketMillis);
+        final int[] nbNotificationsPerBucket = new int[nbBuckets];
+        final List<Set<Long>> accountsPerBucket = new ArrayList<Set<Long>>(nbBuckets);
+        for (int i = 0; i < nbBuckets; i++) {
+            accountsPerBucket.add(null);
+        }
+
+        // Stream the entries (and go through all of them, to release the connection)
+        final Iterator<NotificationEventWithMetadata<NextBillingDateNotificationKey>> iterator = futureNotifications.iterator();
+        while (iterator.hasNext()) {
+            final NotificationEventWithMetadata<NextBillingDateNotificationKey> notification = iterator.next();
+            final DateTime effectiveDate = notification.getEffectiveDate();
+            final boolean isDryRunForInvoiceNotification = notification.getEvent().isDryRunForInvoiceNotification() != null && notification.getEvent().isDryRunForInvoiceNotification();
+            if (isDryRunForInvoiceNotification || effectiveDate.compareTo(from) < 0 || effectiveDate.compareTo(to) >= 0) {
+                continue;
+            }
+
+            final int bucket = (int) ((effectiveDate.getMillis() - from.getMillis()) / bucketMillis);
+            nbNotificationsPerBucket[bucket]++;
+            if (accountsPerBucket.get(bucket) == null) {
+                accountsPerBucket.set(bucket, new HashSet<Long>());
+            }
+            accountsPerBucket.get(bucket).add(notification.getSearchKey1());
+        }
+
+        final List<BillRunLoadBucket> buckets = new ArrayList<BillRunLoadBucket>(nbBuckets);
+        for (int i = 0; i < nbBuckets; i++) {
+            final DateTime startDate = from.plus(i * bucketMillis);
+            final DateTime endDate = i == nbBuckets - 1 ? to : startDate.plus(bucketMillis);
+            final int nbAccounts = accountsPerBucket.get(i) == null ? 0 : accountsPerBucket.get(i).size();
+            buckets.add(new DefaultBillRunLoadBucket(startDate, endDate, nbNotificationsPerBucket[i], nbAccounts));
+        }
+        return buckets;
+    }
+}
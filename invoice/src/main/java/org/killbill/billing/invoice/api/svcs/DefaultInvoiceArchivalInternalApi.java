@@ -0,0 +1,118 @@
+/*
+ * Copyright 2014-2019 Groupon, Inc
+ * Copyright 2014-2019 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.invoice.api.svcs;
+
+import java.util.List;
+import java.util.UUID;
+
+import javax.inject.Inject;
+
+import org.joda.time.DateTime;
+import org.joda.time.LocalDate;
+import org.killbill.billing.ErrorCode;
+import org.killbill.billing.callcontext.InternalCallContext;
+import org.killbill.billing.callcontext.InternalTenantContext;
+import org.killbill.billing.invoice.api.Invoice;
+import org.killbill.billing.invoice.api.InvoiceApiException;
+import org.killbill.billing.invoice.api.InvoiceArchivalInternalApi;
+import org.killbill.billing.invoice.api.InvoiceArchive;
+import org.killbill.billing.invoice.dao.InvoiceDao;
+import org.killbill.billing.invoice.dao.InvoiceModelDao;
+import org.killbill.billing.invoice.model.DefaultInvoice;
+import org.killbill.billing.invoice.model.DefaultInvoiceArchive;
+import org.killbill.billing.util.callcontext.CallContext;
+import org.killbill.billing.util.callcontext.InternalCallContextFactory;
+import org.killbill.billing.util.callcontext.TenantContext;
+import org.killbill.billing.util.config.definition.InvoiceConfig;
+import org.killbill.billing.util.globallocker.LockerType;
+import org.killbill.commons.locker.GlobalLock;
+import org.killbill.commons.locker.GlobalLocker;
+import org.killbill.commons.locker.LockFailedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+public class DefaultInvoiceArchivalInternalApi implements InvoiceArchivalInternalApi {
+
+    private static final Logger log = LoggerFactory.getLogger(DefaultInvoiceArchivalInternalApi.class);
+
+    private final InvoiceDao dao;
+    private final InvoiceConfig invoiceConfig;
+    private final GlobalLocker locker;
+    private final InternalCallContextFactory internalCallContextFactory;
+
+    @Inject
+    public DefaultInvoiceArchivalInternalApi(final InvoiceDao dao,
+                                             final InvoiceConfig invoiceConfig,
+                                             final GlobalLocker locker,
+                                             final InternalCallContextFactory internalCallContextFactory) {
+        this.dao = dao;
+        this.invoiceConfig = invoiceConfig;
+        this.locker = locker;
+        this.internalCallContextFactory = internalCallContextFactory;
+    }
+
+    @Override
+    public InvoiceArchive archiveInvoices(final UUID accountId, final CallContext context) throws InvoiceApiException {
+        final InternalCallContext internalCallContext = internalCallContextFactory.createInternalCallContext(accountId, context);
+
+        final int horizonMonths = invoiceConfig.getArchivalHorizonMonths(internalCallContext);
+        if (horizonMonths <= 0) {
+            log.info("Invoice archival is disabled, ignoring archival request for accountId='{}'", accountId);
+            return getInvoiceArchive(accountId, internalCallContext);
+        }
+        final LocalDate horizonDate = internalCallContext.toLocalDate(internalCallContext.getCreatedDate()).minusMonths(horizonMonths);
+        // The archived invoice payments can't be refunded nor charged back anymore
+        final DateTime paymentActivityDate = internalCallContext.getCreatedDate().minusMonths(Math.max(0, invoiceConfig.getArchivalPaymentActivityMonths(internalCallContext)));
+
+        // Same lock as the invoice generation and the payment flows, so that no invoice is modified concurrently
+        GlobalLock lock = null;
+        try {
+            lock = locker.lockWithNumberOfTries(LockerType.ACCNT_INV_PAY.toString(), accountId.toString(), invoiceConfig.getMaxGlobalLockRetries());
+
+            dao.archiveInvoices(horizonDate, paymentActivityDate, internalCallContext);
+        } catch (final LockFailedException e) {
+            throw new InvoiceApiException(e, ErrorCode.UNEXPECTED_ERROR, String.format("Failed to lock accountId='%s' for archival", accountId));
+        } finally {
+            if (lock != null) {
+                lock.release();
+            }
+        }
+
+        return getInvoiceArchive(accountId, internalCallContext);
+    }
+
+    @Override
+    public InvoiceArchive getInvoiceArchive(final UUID accountId, final TenantContext context) {
+        return getInvoiceArchive(accountId, internalCallContextFactory.createInternalTenantContext(accountId, context));
+    }
+
+    private InvoiceArchive getInvoiceArchive(final UUID accountId, final InternalTenantContext context) {
+        final List<Invoice> invoices = ImmutableList.<Invoice>copyOf(Lists.<InvoiceModelDao, Invoice>transform(dao.getArchivedInvoices(context),
+                                                                                                             new Function<InvoiceModelDao, Invoice>() {
+                                                                                                                 @Override
+                                                                                                                 public Invoice apply(final InvoiceModelDao input) {
+                                                                                                                     return new DefaultInvoice(input);
+                                                                                                                 }
+                                                                                                             }));
+        return new DefaultInvoiceArchive(accountId, dao.getArchiveSummary(context), invoices);
+    }
+}
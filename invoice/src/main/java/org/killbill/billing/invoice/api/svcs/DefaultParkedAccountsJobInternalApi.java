@@ -0,0 +1,59 @@
+/*
+ * Copyright 2014-2019 Groupon, Inc
+ * Copyright 2014-2019 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.invoice.api.svcs;
+
+import java.util.UUID;
+
+import javax.inject.Inject;
+
+import org.killbill.billing.invoice.ParkedAccountsJobProcessor;
+import org.killbill.billing.invoice.api.ParkedAccountsJob;
+import org.killbill.billing.invoice.api.ParkedAccountsJobInternalApi;
+import org.killbill.billing.invoice.dao.ParkedAccountsJobModelDao;
+import org.killbill.billing.invoice.model.DefaultParkedAccountsJob;
+import org.killbill.billing.util.callcontext.CallContext;
+import org.killbill.billing.util.callcontext.InternalCallContextFactory;
+import org.killbill.billing.util.callcontext.TenantContext;
+import org.killbill.clock.Clock;
+
+public class DefaultParkedAccountsJobInternalApi implements ParkedAccountsJobInternalApi {
+
+    private final ParkedAccountsJobProcessor processor;
+    private final InternalCallContextFactory internalCallContextFactory;
+    private final Clock clock;
+
+    @Inject
+    public DefaultParkedAccountsJobInternalApi(final ParkedAccountsJobProcessor processor,
+                                               final InternalCallContextFactory internalCallContextFactory,
+                                               final Clock clock) {
+        this.processor = processor;
+        this.internalCallContextFactory = internalCallContextFactory;
+        this.clock = clock;
+    }
+
+    @Override
+    public UUID startParkedAccountsJob(final CallContext context) {
+        return processor.startJob(internalCallContextFactory.createInternalCallContextWithoutAccountRecordId(context));
+    }
+
+    @Override
+    public ParkedAccountsJob getParkedAccountsJob(final UUID jobId, final TenantContext context) {
+        final ParkedAccountsJobModelDao job = processor.getJob(jobId, internalCallContextFactory.createInternalTenantContextWithoutAccountRecordId(context));
+        return job == null ? null : new DefaultParkedAccountsJob(job, clock.getUTCNow());
+    }
+}
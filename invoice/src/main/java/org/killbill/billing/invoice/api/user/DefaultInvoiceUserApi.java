@@ -272,6 +272,8 @@ public class DefaultInvoiceUserApi implements InvoiceUserApi {
         // Note: the tagApi is audited
         final InternalCallContext internalContext = internalCallContextFactory.createInternalCallContext(invoiceId, ObjectType.INVOICE, context);
         tagApi.addTag(invoiceId, ObjectType.INVOICE, ControlTagType.WRITTEN_OFF.getId(), internalContext);
+        // Refresh the balances before notifying overdue (the bus event for the tag is processed asynchronously)
+        dao.refreshInvoiceBalance(invoiceId, internalContext);
 
         // Retrieve the invoice for the account id
         final Invoice invoice = new DefaultInvoice(dao.getById(invoiceId, internalContext));
@@ -284,6 +286,8 @@ public class DefaultInvoiceUserApi implements InvoiceUserApi {
         // Note: the tagApi is audited
         final InternalCallContext internalContext = internalCallContextFactory.createInternalCallContext(invoiceId, ObjectType.INVOICE, context);
         tagApi.removeTag(invoiceId, ObjectType.INVOICE, ControlTagType.WRITTEN_OFF.getId(), internalContext);
+        // Refresh the balances before notifying overdue (the bus event for the tag is processed asynchronously)
+        dao.refreshInvoiceBalance(invoiceId, internalContext);
 
         // Retrieve the invoice for the account id
         final Invoice invoice = new DefaultInvoice(dao.getById(invoiceId, internalContext));
@@ -111,6 +111,48 @@ public class MultiTenantInvoiceConfig extends MultiTenantConfigBase implements I
         return getMaxRawUsagePreviousPeriod();
     }
 
+    @Override
+    public int getUsageClosedPeriods() {
+        return staticConfig.getUsageClosedPeriods();
+    }
+
+    @Override
+    public int getUsageClosedPeriods(final InternalTenantContext tenantContext) {
+        final String result = getStringTenantConfig("getUsageClosedPeriods", tenantContext);
+        if (result != null) {
+            return Integer.parseInt(result);
+        }
+        return getUsageClosedPeriods();
+    }
+
+    @Override
+    public int getArchivalHorizonMonths() {
+        return staticConfig.getArchivalHorizonMonths();
+    }
+
+    @Override
+    public int getArchivalHorizonMonths(final InternalTenantContext tenantContext) {
+        final String result = getStringTenantConfig("getArchivalHorizonMonths", tenantContext);
+        if (result != null) {
+            return Integer.parseInt(result);
+        }
+        return getArchivalHorizonMonths();
+    }
+
+    @Override
+    public int getArchivalPaymentActivityMonths() {
+        return staticConfig.getArchivalPaymentActivityMonths();
+    }
+
+    @Override
+    public int getArchivalPaymentActivityMonths(final InternalTenantContext tenantContext) {
+        final String result = getStringTenantConfig("getArchivalPaymentActivityMonths", tenantContext);
+        if (result != null) {
+            return Integer.parseInt(result);
+        }
+        return getArchivalPaymentActivityMonths();
+    }
+
     @Override
     public boolean isEmailNotificationsEnabled() {
         return staticConfig.isEmailNotificationsEnabled();
@@ -188,6 +230,64 @@ public class MultiTenantInvoiceConfig extends MultiTenantConfigBase implements I
         return UsageDetailMode.AGGREGATE;
     }
 
+    @Override
+    public boolean isTriggerCoalescingEnabled() {
+        return staticConfig.isTriggerCoalescingEnabled();
+    }
+
+    @Override
+    public boolean isTriggerCoalescingEnabled(final InternalTenantContext tenantContext) {
+        final String result = getStringTenantConfig("isTriggerCoalescingEnabled", tenantContext);
+        if (result != null) {
+            return Boolean.parseBoolean(result);
+        }
+        return isTriggerCoalescingEnabled();
+    }
+
+    @Override
+    public TimeSpan getBillRunSmoothingWindow() {
+        return staticConfig.getBillRunSmoothingWindow();
+    }
+
+    @Override
+    public TimeSpan getBillRunSmoothingWindow(final InternalTenantContext tenantContext) {
+        final String result = getStringTenantConfig("getBillRunSmoothingWindow", tenantContext);
+        if (result != null) {
+            return new TimeSpan(result);
+        }
+        return getBillRunSmoothingWindow();
+    }
+
+    @Override
+    public int getParkedAccountsJobChunkSize() {
+        return staticConfig.getParkedAccountsJobChunkSize();
+    }
+
+    @Override
+    public int getParkedAccountsJobNbThreads() {
+        return staticConfig.getParkedAccountsJobNbThreads();
+    }
+
+    @Override
+    public boolean isParentCommitPipelineEnabled() {
+        return staticConfig.isParentCommitPipelineEnabled();
+    }
+
+    @Override
+    public int getParentCommitPipelineNbThreads() {
+        return staticConfig.getParentCommitPipelineNbThreads();
+    }
+
+    @Override
+    public int getParentCommitPipelineBatchSize() {
+        return staticConfig.getParentCommitPipelineBatchSize();
+    }
+
+    @Override
+    public List<TimeSpan> getParentCommitPipelineRetrySchedule() {
+        return staticConfig.getParentCommitPipelineRetrySchedule();
+    }
+
     @Override
     protected Class<? extends KillbillConfig> getConfigClass() {
         return InvoiceConfig.class;
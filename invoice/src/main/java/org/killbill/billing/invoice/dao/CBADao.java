@@ -20,7 +20,9 @@ package org.killbill.billing.invoice.dao;
 
 import java.math.BigDecimal;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 import javax.annotation.Nullable;
@@ -110,7 +112,8 @@ public class CBADao {
 
     // We let the code below rehydrate the invoice before we can add the CBA item
     // PERF: when possible, prefer the method below to avoid re-fetching the invoice
-    public void doCBAComplexityFromTransaction(final UUID invoiceId,
+    // Return the ids of the invoices on which a CBA item was created
+    public Set<UUID> doCBAComplexityFromTransaction(final UUID invoiceId,
                                                final List<Tag> invoicesTags,
                                                final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory,
                                                final InternalCallContext context) throws EntityPersistenceException, InvoiceApiException {
@@ -118,34 +121,38 @@ public class CBADao {
         final InvoiceModelDao invoice = transInvoiceDao.getById(invoiceId.toString(), context);
         invoiceDaoHelper.populateChildren(invoice, invoicesTags, entitySqlDaoWrapperFactory, context);
 
-        doCBAComplexityFromTransaction(invoice, invoicesTags, entitySqlDaoWrapperFactory, context);
+        return doCBAComplexityFromTransaction(invoice, invoicesTags, entitySqlDaoWrapperFactory, context);
     }
 
-    public void doCBAComplexityFromTransaction(final List<Tag> invoicesTags,
-                                               final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory,
-                                               final InternalCallContext context) throws EntityPersistenceException, InvoiceApiException {
-        doCBAComplexityFromTransaction((InvoiceModelDao) null, invoicesTags, entitySqlDaoWrapperFactory, context);
+    public Set<UUID> doCBAComplexityFromTransaction(final List<Tag> invoicesTags,
+                                                    final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory,
+                                                    final InternalCallContext context) throws EntityPersistenceException, InvoiceApiException {
+        return doCBAComplexityFromTransaction((InvoiceModelDao) null, invoicesTags, entitySqlDaoWrapperFactory, context);
     }
 
     // Note! We expect an *up-to-date* invoice, with all the items and payments except the CBA, that we will compute in that method
-    public void doCBAComplexityFromTransaction(@Nullable final InvoiceModelDao invoice,
-                                               final List<Tag> invoicesTags,
-                                               final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory,
-                                               final InternalCallContext context) throws EntityPersistenceException, InvoiceApiException {
+    public Set<UUID> doCBAComplexityFromTransaction(@Nullable final InvoiceModelDao invoice,
+                                                    final List<Tag> invoicesTags,
+                                                    final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory,
+                                                    final InternalCallContext context) throws EntityPersistenceException, InvoiceApiException {
+        final Set<UUID> invoiceIdsWithCBAItem = new HashSet<UUID>();
+
         // PERF: It is expensive to retrieve and construct all invoice objects. To check if there is effectively something to use, compute the CBA by the database first
         BigDecimal remainingAccountCBA = getAccountCBAFromTransaction(entitySqlDaoWrapperFactory, context);
 
         if (invoice != null) {
             // Generate or use CBA for that specific invoice
-            remainingAccountCBA = computeCBAComplexityAndCreateCBAItem(remainingAccountCBA, invoice, entitySqlDaoWrapperFactory, context);
+            remainingAccountCBA = computeCBAComplexityAndCreateCBAItem(remainingAccountCBA, invoice, invoiceIdsWithCBAItem, entitySqlDaoWrapperFactory, context);
         }
 
-        useExistingCBAFromTransaction(remainingAccountCBA, invoicesTags, entitySqlDaoWrapperFactory, context);
+        useExistingCBAFromTransaction(remainingAccountCBA, invoicesTags, invoiceIdsWithCBAItem, entitySqlDaoWrapperFactory, context);
+        return invoiceIdsWithCBAItem;
     }
 
     // Distribute account CBA across all COMMITTED unpaid invoices
     private void useExistingCBAFromTransaction(final BigDecimal accountCBA,
                                                final List<Tag> invoicesTags,
+                                               final Set<UUID> invoiceIdsWithCBAItem,
                                                final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory,
                                                final InternalCallContext context) throws InvoiceApiException, EntityPersistenceException {
         if (accountCBA.compareTo(BigDecimal.ZERO) <= 0) {
@@ -166,7 +173,7 @@ public class CBADao {
 
         BigDecimal remainingAccountCBA = accountCBA;
         for (final InvoiceModelDao unpaidInvoice : orderedUnpaidInvoices) {
-            remainingAccountCBA = computeCBAComplexityAndCreateCBAItem(remainingAccountCBA, unpaidInvoice, entitySqlDaoWrapperFactory, context);
+            remainingAccountCBA = computeCBAComplexityAndCreateCBAItem(remainingAccountCBA, unpaidInvoice, invoiceIdsWithCBAItem, entitySqlDaoWrapperFactory, context);
             if (remainingAccountCBA.compareTo(BigDecimal.ZERO) <= 0) {
                 break;
             }
@@ -176,11 +183,13 @@ public class CBADao {
     // Return the updated account CBA
     private BigDecimal computeCBAComplexityAndCreateCBAItem(final BigDecimal accountCBA,
                                                             final InvoiceModelDao invoice,
+                                                            final Set<UUID> invoiceIdsWithCBAItem,
                                                             final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory,
                                                             final InternalCallContext context) throws EntityPersistenceException, InvoiceApiException {
         final InvoiceItemModelDao cbaItem = computeCBAComplexity(invoice, accountCBA, entitySqlDaoWrapperFactory, context);
         if (cbaItem != null) {
             createCBAItem(invoice, cbaItem, entitySqlDaoWrapperFactory, context);
+            invoiceIdsWithCBAItem.add(invoice.getId());
             return accountCBA.add(cbaItem.getAmount());
         } else {
             return accountCBA;
@@ -20,6 +20,7 @@ package org.killbill.billing.invoice.dao;
 
 import java.math.BigDecimal;
 import java.util.Collection;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -44,6 +45,7 @@ import org.killbill.billing.catalog.api.Currency;
 import org.killbill.billing.entity.EntityPersistenceException;
 import org.killbill.billing.invoice.InvoiceDispatcher.FutureAccountNotifications;
 import org.killbill.billing.invoice.InvoicePluginDispatcher;
+import org.killbill.billing.invoice.api.AccountBalanceLedger;
 import org.killbill.billing.invoice.api.DefaultInvoicePaymentErrorEvent;
 import org.killbill.billing.invoice.api.DefaultInvoicePaymentInfoEvent;
 import org.killbill.billing.invoice.api.Invoice;
@@ -74,6 +76,7 @@ import org.killbill.billing.util.entity.dao.EntityDaoBase;
 import org.killbill.billing.util.entity.dao.EntitySqlDaoTransactionWrapper;
 import org.killbill.billing.util.entity.dao.EntitySqlDaoTransactionalJdbiWrapper;
 import org.killbill.billing.util.entity.dao.EntitySqlDaoWrapperFactory;
+import org.killbill.billing.util.metrics.BillingMetrics;
 import org.killbill.billing.util.tag.Tag;
 import org.killbill.bus.api.BusEvent;
 import org.killbill.bus.api.PersistentBus;
@@ -87,6 +90,7 @@ import com.google.common.base.Function;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Predicate;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Ordering;
@@ -118,6 +122,7 @@ public class DefaultInvoiceDao extends EntityDaoBase<InvoiceModelDao, Invoice, I
     private final InternalCallContextFactory internalCallContextFactory;
     private final InvoiceDaoHelper invoiceDaoHelper;
     private final CBADao cbaDao;
+    private final InvoiceBalanceDao invoiceBalanceDao;
     private final InvoiceConfig invoiceConfig;
     private final Clock clock;
     private final CacheController<String, UUID> objectIdCacheController;
@@ -137,9 +142,11 @@ public class DefaultInvoiceDao extends EntityDaoBase<InvoiceModelDao, Invoice, I
                              final InvoiceConfig invoiceConfig,
                              final InvoiceDaoHelper invoiceDaoHelper,
                              final CBADao cbaDao,
+                             final InvoiceBalanceDao invoiceBalanceDao,
                              final ParentInvoiceCommitmentPoster parentInvoiceCommitmentPoster,
-                             final InternalCallContextFactory internalCallContextFactory) {
-        super(new EntitySqlDaoTransactionalJdbiWrapper(dbi, roDbi, clock, cacheControllerDispatcher, nonEntityDao, internalCallContextFactory), InvoiceSqlDao.class);
+                             final InternalCallContextFactory internalCallContextFactory,
+                             final BillingMetrics billingMetrics) {
+        super(new EntitySqlDaoTransactionalJdbiWrapper(dbi, roDbi, clock, cacheControllerDispatcher, nonEntityDao, internalCallContextFactory, billingMetrics), InvoiceSqlDao.class);
         this.tagInternalApi = tagInternalApi;
         this.nextBillingDatePoster = nextBillingDatePoster;
         this.eventBus = eventBus;
@@ -147,6 +154,7 @@ public class DefaultInvoiceDao extends EntityDaoBase<InvoiceModelDao, Invoice, I
         this.internalCallContextFactory = internalCallContextFactory;
         this.invoiceDaoHelper = invoiceDaoHelper;
         this.cbaDao = cbaDao;
+        this.invoiceBalanceDao = invoiceBalanceDao;
         this.clock = clock;
         this.objectIdCacheController = cacheControllerDispatcher.getCacheController(CacheType.OBJECT_ID);
         this.nonEntityDao = nonEntityDao;
@@ -330,6 +338,8 @@ public class DefaultInvoiceDao extends EntityDaoBase<InvoiceModelDao, Invoice, I
         final Collection<UUID> allInvoiceIds = new HashSet<UUID>();
         // Track invoices that are committed but were not created or reused -- to sent the InvoiceAdjustment bus event
         final Collection<UUID> adjustedCommittedInvoiceIds = new HashSet<UUID>();
+        // Track all invoices whose balance may have changed -- to refresh the materialized balances
+        final Collection<UUID> balanceInvoiceIds = new HashSet<UUID>();
 
         final Collection<UUID> invoiceIdsReferencedFromItems = new HashSet<UUID>();
         for (final InvoiceModelDao invoiceModelDao : invoices) {
@@ -343,7 +353,7 @@ public class DefaultInvoiceDao extends EntityDaoBase<InvoiceModelDao, Invoice, I
         }
         final UUID accountId = invoices.iterator().next().getAccountId();
 
-        final List<Tag> invoicesTags = getInvoicesTags(context);
+        final List<Tag> invoicesTags = getInvoicesTagsForUpdate(context);
 
         final Map<UUID, InvoiceModelDao> invoiceByInvoiceId = new HashMap<UUID, InvoiceModelDao>();
         return transactionalSqlDao.execute(false, new EntitySqlDaoTransactionWrapper<List<InvoiceItemModelDao>>() {
@@ -358,6 +368,7 @@ public class DefaultInvoiceDao extends EntityDaoBase<InvoiceModelDao, Invoice, I
                     final boolean isNotShellInvoice = invoiceIdsReferencedFromItems.remove(invoiceModelDao.getId());
 
                     final InvoiceModelDao invoiceOnDisk = invoiceSqlDao.getById(invoiceModelDao.getId().toString(), context);
+                    balanceInvoiceIds.add(invoiceModelDao.getId());
                     if (isNotShellInvoice) {
                         // Create the invoice if this is not a shell invoice and it does not already exist
                         if (invoiceOnDisk == null) {
@@ -383,6 +394,7 @@ public class DefaultInvoiceDao extends EntityDaoBase<InvoiceModelDao, Invoice, I
                                    (invoiceItemModelDao.getAmount().compareTo(existingInvoiceItem.getAmount()) != 0)) {
                             if (checkAgainstExistingInvoiceItemState(existingInvoiceItem, invoiceItemModelDao)) {
                                 transInvoiceItemSqlDao.updateItemFields(invoiceItemModelDao.getId().toString(), invoiceItemModelDao.getAmount(), invoiceItemModelDao.getDescription(), invoiceItemModelDao.getItemDetails(), context);
+                                balanceInvoiceIds.add(invoiceItemModelDao.getInvoiceId());
                             }
                         }
                     }
@@ -407,13 +419,14 @@ public class DefaultInvoiceDao extends EntityDaoBase<InvoiceModelDao, Invoice, I
 
                 for (final UUID adjustedInvoiceId : allInvoiceIds) {
                     final boolean newInvoice = createdInvoiceIds.contains(adjustedInvoiceId);
+                    balanceInvoiceIds.add(adjustedInvoiceId);
                     if (newInvoice) {
                         // New invoice, so no associated payment yet: no need to refresh the invoice state
-                        cbaDao.doCBAComplexityFromTransaction(invoiceByInvoiceId.get(adjustedInvoiceId), invoicesTags, entitySqlDaoWrapperFactory, context);
+                        balanceInvoiceIds.addAll(cbaDao.doCBAComplexityFromTransaction(invoiceByInvoiceId.get(adjustedInvoiceId), invoicesTags, entitySqlDaoWrapperFactory, context));
                     } else {
                         // Existing invoice (e.g. we're processing an adjustment): refresh the invoice state to get the correct balance
                         // Should we maybe enforce callers (e.g. InvoiceApiHelper) to properly populate these invoices?
-                        cbaDao.doCBAComplexityFromTransaction(adjustedInvoiceId, invoicesTags, entitySqlDaoWrapperFactory, context);
+                        balanceInvoiceIds.addAll(cbaDao.doCBAComplexityFromTransaction(adjustedInvoiceId, invoicesTags, entitySqlDaoWrapperFactory, context));
                     }
 
                     if (adjustedCommittedInvoiceIds.contains(adjustedInvoiceId)) {
@@ -428,6 +441,8 @@ public class DefaultInvoiceDao extends EntityDaoBase<InvoiceModelDao, Invoice, I
                     trackingIdsSqlDao.create(trackingIds, context);
                 }
 
+                invoiceBalanceDao.refreshFromTransaction(balanceInvoiceIds, invoicesTags, entitySqlDaoWrapperFactory, context);
+
                 return createdInvoiceItems;
             }
         });
@@ -490,29 +505,15 @@ public class DefaultInvoiceDao extends EntityDaoBase<InvoiceModelDao, Invoice, I
         return transactionalSqlDao.execute(true, new EntitySqlDaoTransactionWrapper<BigDecimal>() {
             @Override
             public BigDecimal inTransaction(final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory) throws Exception {
-                BigDecimal cba = BigDecimal.ZERO;
+                final AccountBalanceModelDao accountBalance = invoiceBalanceDao.getAccountBalanceFromTransaction(entitySqlDaoWrapperFactory, context);
+                if (accountBalance != null) {
+                    final Map<UUID, InvoiceBalanceModelDao> invoiceBalances = invoiceBalanceDao.getInvoiceBalancesFromTransaction(entitySqlDaoWrapperFactory, context);
+                    return InvoiceBalanceDao.computeAccountBalance(invoiceBalances.values(), invoicesTags, accountBalance.getCba());
+                }
 
-                BigDecimal accountBalance = BigDecimal.ZERO;
+                // Balances not materialized yet for that account, compute them on the fly
                 final List<InvoiceModelDao> invoices = invoiceDaoHelper.getAllInvoicesByAccountFromTransaction(false, invoicesTags, entitySqlDaoWrapperFactory, context);
-                for (final InvoiceModelDao cur : invoices) {
-
-                    // Skip DRAFT OR VOID invoices
-                    if (cur.getStatus().equals(InvoiceStatus.DRAFT) || cur.getStatus().equals(InvoiceStatus.VOID)) {
-                        continue;
-                    }
-
-                    final boolean hasZeroParentBalance =
-                            cur.getParentInvoice() != null &&
-                            (cur.getParentInvoice().isWrittenOff() ||
-                             cur.getParentInvoice().getStatus() == InvoiceStatus.DRAFT ||
-                             cur.getParentInvoice().getStatus() == InvoiceStatus.VOID ||
-                             InvoiceModelDaoHelper.getRawBalanceForRegularInvoice(cur.getParentInvoice()).compareTo(BigDecimal.ZERO) == 0);
-
-                    // invoices that are WRITTEN_OFF or paid children invoices are excluded from balance computation but the cba summation needs to be included
-                    accountBalance = cur.isWrittenOff() || hasZeroParentBalance ? BigDecimal.ZERO : accountBalance.add(InvoiceModelDaoHelper.getRawBalanceForRegularInvoice(cur));
-                    cba = cba.add(InvoiceModelDaoHelper.getCBAAmount(cur));
-                }
-                return accountBalance.subtract(cba);
+                return InvoiceBalanceDao.computeAccountBalance(invoices, cbaDao.getAccountCBAFromTransaction(entitySqlDaoWrapperFactory, context));
             }
         });
     }
@@ -522,6 +523,10 @@ public class DefaultInvoiceDao extends EntityDaoBase<InvoiceModelDao, Invoice, I
         return transactionalSqlDao.execute(true, new EntitySqlDaoTransactionWrapper<BigDecimal>() {
             @Override
             public BigDecimal inTransaction(final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory) throws Exception {
+                final AccountBalanceModelDao accountBalance = invoiceBalanceDao.getAccountBalanceFromTransaction(entitySqlDaoWrapperFactory, context);
+                if (accountBalance != null) {
+                    return accountBalance.getCba();
+                }
                 return cbaDao.getAccountCBAFromTransaction(entitySqlDaoWrapperFactory, context);
             }
         });
@@ -534,7 +539,37 @@ public class DefaultInvoiceDao extends EntityDaoBase<InvoiceModelDao, Invoice, I
         return transactionalSqlDao.execute(true, new EntitySqlDaoTransactionWrapper<List<InvoiceModelDao>>() {
             @Override
             public List<InvoiceModelDao> inTransaction(final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory) throws Exception {
-                return invoiceDaoHelper.getUnpaidInvoicesByAccountFromTransaction(accountId, invoicesTags, entitySqlDaoWrapperFactory, upToDate, context);
+                final List<InvoiceModelDao> invoices = entitySqlDaoWrapperFactory.become(InvoiceSqlDao.class).getByAccountRecordId(context);
+                final Map<UUID, InvoiceBalanceModelDao> invoiceBalances = invoiceBalanceDao.getInvoiceBalancesFromTransaction(entitySqlDaoWrapperFactory, context);
+
+                final List<InvoiceModelDao> candidates = new LinkedList<InvoiceModelDao>();
+                for (final InvoiceModelDao invoice : invoices) {
+                    if (InvoiceStatus.VOID.equals(invoice.getStatus())) {
+                        continue;
+                    }
+
+                    final InvoiceBalanceModelDao invoiceBalance = invoiceBalances.get(invoice.getId());
+                    if (invoiceBalance == null) {
+                        // Balances not (fully) materialized for that account, look at all invoices
+                        return invoiceDaoHelper.getUnpaidInvoicesByAccountFromTransaction(accountId, invoicesTags, entitySqlDaoWrapperFactory, upToDate, context);
+                    }
+
+                    // Same criteria as InvoiceDaoHelper#getUnpaidInvoicesByAccountFromTransaction, using the materialized balances
+                    final BigDecimal balance = invoiceBalance.getParentBalance() != null ? invoiceBalance.getParentBalance() : invoiceBalance.getBalance();
+                    if (InvoiceStatus.COMMITTED.equals(invoice.getStatus()) &&
+                        balance.compareTo(BigDecimal.ZERO) > 0 &&
+                        (upToDate == null || invoice.getTargetDate() == null || !invoice.getTargetDate().isAfter(upToDate))) {
+                        candidates.add(invoice);
+                    }
+                }
+
+                if (candidates.isEmpty()) {
+                    return ImmutableList.<InvoiceModelDao>of();
+                }
+
+                // Only hydrate the candidates, and re-check them against their actual state (e.g. WRITTEN_OFF)
+                invoiceDaoHelper.populateChildren(candidates, invoicesTags, entitySqlDaoWrapperFactory, context);
+                return invoiceDaoHelper.getUnpaidInvoicesByAccountFromTransaction(candidates, upToDate);
             }
         });
     }
@@ -598,7 +633,7 @@ public class DefaultInvoiceDao extends EntityDaoBase<InvoiceModelDao, Invoice, I
             throw new InvoiceApiException(ErrorCode.INVOICE_ITEMS_ADJUSTMENT_MISSING);
         }
 
-        final List<Tag> invoicesTags = getInvoicesTags(context);
+        final List<Tag> invoicesTags = getInvoicesTagsForUpdate(context);
 
         return transactionalSqlDao.execute(false, InvoiceApiException.class, new EntitySqlDaoTransactionWrapper<InvoicePaymentModelDao>() {
             @Override
@@ -665,13 +700,16 @@ public class DefaultInvoiceDao extends EntityDaoBase<InvoiceModelDao, Invoice, I
                 }
 
                 // The invoice object has been kept up-to-date
-                cbaDao.doCBAComplexityFromTransaction(invoice, invoicesTags, entitySqlDaoWrapperFactory, context);
+                final Set<UUID> balanceInvoiceIds = new HashSet<UUID>(cbaDao.doCBAComplexityFromTransaction(invoice, invoicesTags, entitySqlDaoWrapperFactory, context));
+                balanceInvoiceIds.add(invoice.getId());
 
                 if (isInvoiceAdjusted) {
                     notifyBusOfInvoiceAdjustment(entitySqlDaoWrapperFactory, invoice.getId(), invoice.getAccountId(), context.getUserToken(), context);
                 }
                 notifyBusOfInvoicePayment(entitySqlDaoWrapperFactory, refund, invoice.getAccountId(), context.getUserToken(), context);
 
+                invoiceBalanceDao.refreshFromTransaction(balanceInvoiceIds, invoicesTags, entitySqlDaoWrapperFactory, context);
+
                 return refund;
             }
         });
@@ -679,7 +717,7 @@ public class DefaultInvoiceDao extends EntityDaoBase<InvoiceModelDao, Invoice, I
 
     @Override
     public InvoicePaymentModelDao postChargeback(final UUID paymentId, final String chargebackTransactionExternalKey, final BigDecimal amount, final Currency currency, final InternalCallContext context) throws InvoiceApiException {
-        final List<Tag> invoicesTags = getInvoicesTags(context);
+        final List<Tag> invoicesTags = getInvoicesTagsForUpdate(context);
 
         return transactionalSqlDao.execute(false, InvoiceApiException.class, new EntitySqlDaoTransactionWrapper<InvoicePaymentModelDao>() {
             @Override
@@ -723,10 +761,13 @@ public class DefaultInvoiceDao extends EntityDaoBase<InvoiceModelDao, Invoice, I
                 // Notify the bus since the balance of the invoice changed
                 final UUID accountId = transactional.getAccountIdFromInvoicePaymentId(chargeBack.getId().toString(), context);
 
-                cbaDao.doCBAComplexityFromTransaction(payment.getInvoiceId(), invoicesTags, entitySqlDaoWrapperFactory, context);
+                final Set<UUID> balanceInvoiceIds = new HashSet<UUID>(cbaDao.doCBAComplexityFromTransaction(payment.getInvoiceId(), invoicesTags, entitySqlDaoWrapperFactory, context));
+                balanceInvoiceIds.add(payment.getInvoiceId());
 
                 notifyBusOfInvoicePayment(entitySqlDaoWrapperFactory, chargeBack, accountId, context.getUserToken(), context);
 
+                invoiceBalanceDao.refreshFromTransaction(balanceInvoiceIds, invoicesTags, entitySqlDaoWrapperFactory, context);
+
                 return chargeBack;
             }
         });
@@ -734,7 +775,7 @@ public class DefaultInvoiceDao extends EntityDaoBase<InvoiceModelDao, Invoice, I
 
     @Override
     public InvoicePaymentModelDao postChargebackReversal(final UUID paymentId, final String chargebackTransactionExternalKey, final InternalCallContext context) throws InvoiceApiException {
-        final List<Tag> invoicesTags = getInvoicesTags(context);
+        final List<Tag> invoicesTags = getInvoicesTagsForUpdate(context);
 
         return transactionalSqlDao.execute(false, InvoiceApiException.class, new EntitySqlDaoTransactionWrapper<InvoicePaymentModelDao>() {
             @Override
@@ -761,10 +802,13 @@ public class DefaultInvoiceDao extends EntityDaoBase<InvoiceModelDao, Invoice, I
                 // Notify the bus since the balance of the invoice changed
                 final UUID accountId = transactional.getAccountIdFromInvoicePaymentId(chargebackReversed.getId().toString(), context);
 
-                cbaDao.doCBAComplexityFromTransaction(chargebackReversed.getInvoiceId(), invoicesTags, entitySqlDaoWrapperFactory, context);
+                final Set<UUID> balanceInvoiceIds = new HashSet<UUID>(cbaDao.doCBAComplexityFromTransaction(chargebackReversed.getInvoiceId(), invoicesTags, entitySqlDaoWrapperFactory, context));
+                balanceInvoiceIds.add(chargebackReversed.getInvoiceId());
 
                 notifyBusOfInvoicePayment(entitySqlDaoWrapperFactory, chargebackReversed, accountId, context.getUserToken(), context);
 
+                invoiceBalanceDao.refreshFromTransaction(balanceInvoiceIds, invoicesTags, entitySqlDaoWrapperFactory, context);
+
                 return chargebackReversed;
             }
         });
@@ -772,10 +816,15 @@ public class DefaultInvoiceDao extends EntityDaoBase<InvoiceModelDao, Invoice, I
 
     @Override
     public InvoiceItemModelDao doCBAComplexity(final InvoiceModelDao invoice, final InternalCallContext context) throws InvoiceApiException {
+        final List<Tag> invoicesTags = getInvoicesTagsForUpdate(context);
+
         return transactionalSqlDao.execute(false, InvoiceApiException.class, new EntitySqlDaoTransactionWrapper<InvoiceItemModelDao>() {
             @Override
             public InvoiceItemModelDao inTransaction(final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory) throws Exception {
                 final InvoiceItemModelDao cbaNewItem = cbaDao.computeCBAComplexity(invoice, null, entitySqlDaoWrapperFactory, context);
+                if (cbaNewItem != null) {
+                    invoiceBalanceDao.refreshFromTransaction(ImmutableList.<UUID>of(invoice.getId()), invoicesTags, entitySqlDaoWrapperFactory, context);
+                }
                 return cbaNewItem;
             }
         });
@@ -879,6 +928,9 @@ public class DefaultInvoiceDao extends EntityDaoBase<InvoiceModelDao, Invoice, I
     }
 
     private void notifyOfPaymentCompletionInternal(final InvoicePaymentModelDao invoicePayment, final boolean completion, final InternalCallContext context) {
+        // Only completed payments impact the balances
+        final List<Tag> invoicesTags = completion ? getInvoicesTagsForUpdate(context) : ImmutableList.<Tag>of();
+
         transactionalSqlDao.execute(false, new EntitySqlDaoTransactionWrapper<Void>() {
             @Override
             public Void inTransaction(final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory) throws Exception {
@@ -921,6 +973,10 @@ public class DefaultInvoiceDao extends EntityDaoBase<InvoiceModelDao, Invoice, I
                 if (completion) {
                     final UUID accountId = nonEntityDao.retrieveIdFromObjectInTransaction(context.getAccountRecordId(), ObjectType.ACCOUNT, objectIdCacheController, entitySqlDaoWrapperFactory.getHandle());
                     notifyBusOfInvoicePayment(entitySqlDaoWrapperFactory, invoicePayment, accountId, context.getUserToken(), context);
+
+                    if (invoicePayment.getPaymentId() != null) {
+                        invoiceBalanceDao.refreshFromTransaction(ImmutableList.<UUID>of(invoicePayment.getInvoiceId()), invoicesTags, entitySqlDaoWrapperFactory, context);
+                    }
                 }
                 return null;
             }
@@ -944,7 +1000,7 @@ public class DefaultInvoiceDao extends EntityDaoBase<InvoiceModelDao, Invoice, I
 
     @Override
     public void deleteCBA(final UUID accountId, final UUID invoiceId, final UUID invoiceItemId, final InternalCallContext context) throws InvoiceApiException {
-        final List<Tag> invoicesTags = getInvoicesTags(context);
+        final List<Tag> invoicesTags = getInvoicesTagsForUpdate(context);
 
         transactionalSqlDao.execute(false, InvoiceApiException.class, new EntitySqlDaoTransactionWrapper<Void>() {
             @Override
@@ -972,6 +1028,8 @@ public class DefaultInvoiceDao extends EntityDaoBase<InvoiceModelDao, Invoice, I
                                                                                null, null, null, null, null, null, null, context.getCreatedDate().toLocalDate(),
                                                                                null, cbaItem.getAmount().negate(), null, cbaItem.getCurrency(), cbaItem.getId());
                 createInvoiceItemFromTransaction(invoiceItemSqlDao, cbaAdjItem, context);
+                final Collection<UUID> balanceInvoiceIds = new HashSet<UUID>();
+                balanceInvoiceIds.add(invoice.getId());
 
                 // Verify the final invoice balance is not negative
                 invoiceDaoHelper.populateChildren(invoice, invoicesTags, entitySqlDaoWrapperFactory, context);
@@ -1029,12 +1087,15 @@ public class DefaultInvoiceDao extends EntityDaoBase<InvoiceModelDao, Invoice, I
                                                                                            context.getCreatedDate().toLocalDate(), null,
                                                                                            positiveCBAAdjItemAmount, null, cbaItem.getCurrency(), cbaItem.getId());
                         createInvoiceItemFromTransaction(invoiceItemSqlDao, nextCBAAdjItem, context);
+                        balanceInvoiceIds.add(invoiceFollowing.getId());
                         if (positiveRemainderToAdjust.compareTo(BigDecimal.ZERO) == 0) {
                             break;
                         }
                     }
                 }
 
+                invoiceBalanceDao.refreshFromTransaction(balanceInvoiceIds, invoicesTags, entitySqlDaoWrapperFactory, context);
+
                 return null;
             }
         });
@@ -1042,12 +1103,13 @@ public class DefaultInvoiceDao extends EntityDaoBase<InvoiceModelDao, Invoice, I
 
     @Override
     public void consumeExstingCBAOnAccountWithUnpaidInvoices(final UUID accountId, final InternalCallContext context) {
-        final List<Tag> invoicesTags = getInvoicesTags(context);
+        final List<Tag> invoicesTags = getInvoicesTagsForUpdate(context);
 
         transactionalSqlDao.execute(false, new EntitySqlDaoTransactionWrapper<Void>() {
             @Override
             public Void inTransaction(final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory) throws Exception {
-                cbaDao.doCBAComplexityFromTransaction(invoicesTags, entitySqlDaoWrapperFactory, context);
+                final Set<UUID> balanceInvoiceIds = cbaDao.doCBAComplexityFromTransaction(invoicesTags, entitySqlDaoWrapperFactory, context);
+                invoiceBalanceDao.refreshFromTransaction(balanceInvoiceIds, invoicesTags, entitySqlDaoWrapperFactory, context);
                 return null;
             }
         });
@@ -1148,11 +1210,33 @@ public class DefaultInvoiceDao extends EntityDaoBase<InvoiceModelDao, Invoice, I
     @Override
     public void changeInvoiceStatus(final UUID invoiceId, final InvoiceStatus newStatus,
                                     final InternalCallContext context) throws InvoiceApiException {
-        final List<Tag> invoicesTags = getInvoicesTags(context);
+        doChangeInvoiceStatus(invoiceId, newStatus, true, context);
+    }
 
-        transactionalSqlDao.execute(false, InvoiceApiException.class, new EntitySqlDaoTransactionWrapper<Void>() {
+    @Override
+    public Map<UUID, Collection<UUID>> commitParentInvoice(final UUID parentInvoiceId, final InternalCallContext context) throws InvoiceApiException {
+        return doChangeInvoiceStatus(parentInvoiceId, InvoiceStatus.COMMITTED, false, context);
+    }
+
+    @Override
+    public void refreshChildAccountBalance(final UUID childAccountId, final Collection<UUID> childInvoiceIds, final InternalCallContext parentContext) {
+        transactionalSqlDao.execute(false, new EntitySqlDaoTransactionWrapper<Void>() {
             @Override
             public Void inTransaction(final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory) throws Exception {
+                invoiceBalanceDao.refreshChildAccountFromTransaction(childAccountId, childInvoiceIds, entitySqlDaoWrapperFactory, parentContext);
+                return null;
+            }
+        });
+    }
+
+    // Return the child invoices left to refresh, per child account id (none if refreshChildren is true)
+    private Map<UUID, Collection<UUID>> doChangeInvoiceStatus(final UUID invoiceId, final InvoiceStatus newStatus, final boolean refreshChildren,
+                                                              final InternalCallContext context) throws InvoiceApiException {
+        final List<Tag> invoicesTags = getInvoicesTagsForUpdate(context);
+
+        return transactionalSqlDao.execute(false, InvoiceApiException.class, new EntitySqlDaoTransactionWrapper<Map<UUID, Collection<UUID>>>() {
+            @Override
+            public Map<UUID, Collection<UUID>> inTransaction(final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory) throws Exception {
                 final InvoiceSqlDao transactional = entitySqlDaoWrapperFactory.become(InvoiceSqlDao.class);
 
                 // Retrieve the invoice and make sure it belongs to the right account
@@ -1168,7 +1252,8 @@ public class DefaultInvoiceDao extends EntityDaoBase<InvoiceModelDao, Invoice, I
 
                 transactional.updateStatus(invoiceId.toString(), newStatus.toString(), context);
 
-                cbaDao.doCBAComplexityFromTransaction(invoicesTags, entitySqlDaoWrapperFactory, context);
+                final Set<UUID> balanceInvoiceIds = new HashSet<UUID>(cbaDao.doCBAComplexityFromTransaction(invoicesTags, entitySqlDaoWrapperFactory, context));
+                balanceInvoiceIds.add(invoiceId);
 
                 // Invoice creation event sent on COMMITTED
                 if (InvoiceStatus.COMMITTED.equals(newStatus)) {
@@ -1178,7 +1263,14 @@ public class DefaultInvoiceDao extends EntityDaoBase<InvoiceModelDao, Invoice, I
                     final InvoiceTrackingSqlDao trackingSqlDao = entitySqlDaoWrapperFactory.become(InvoiceTrackingSqlDao.class);
                     trackingSqlDao.deactivateForInvoice(invoiceId.toString(), context);
                 }
-                return null;
+
+                // The balance of the children accounts depends on the status of the parent invoice
+                if (refreshChildren) {
+                    invoiceBalanceDao.refreshFromTransaction(balanceInvoiceIds, invoicesTags, entitySqlDaoWrapperFactory, context);
+                    return ImmutableMap.<UUID, Collection<UUID>>of();
+                } else {
+                    return invoiceBalanceDao.refreshParentAccountFromTransaction(balanceInvoiceIds, invoicesTags, entitySqlDaoWrapperFactory, context);
+                }
             }
         });
     }
@@ -1217,6 +1309,9 @@ public class DefaultInvoiceDao extends EntityDaoBase<InvoiceModelDao, Invoice, I
             public Void inTransaction(final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory) throws Exception {
                 final InvoiceParentChildrenSqlDao transactional = entitySqlDaoWrapperFactory.become(InvoiceParentChildrenSqlDao.class);
                 createAndRefresh(transactional, invoiceRelation, context);
+
+                // The child invoice balance now depends on the parent invoice
+                invoiceBalanceDao.refreshChildAccountFromTransaction(invoiceRelation.getChildAccountId(), ImmutableList.<UUID>of(invoiceRelation.getChildInvoiceId()), entitySqlDaoWrapperFactory, context);
                 return null;
             }
         });
@@ -1252,6 +1347,8 @@ public class DefaultInvoiceDao extends EntityDaoBase<InvoiceModelDao, Invoice, I
 
     @Override
     public void updateInvoiceItemAmount(final UUID invoiceItemId, final BigDecimal amount, final InternalCallContext context) throws InvoiceApiException {
+        final List<Tag> invoicesTags = getInvoicesTagsForUpdate(context);
+
         transactionalSqlDao.execute(false, InvoiceApiException.class, new EntitySqlDaoTransactionWrapper<Void>() {
             @Override
             public Void inTransaction(final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory) throws Exception {
@@ -1265,6 +1362,9 @@ public class DefaultInvoiceDao extends EntityDaoBase<InvoiceModelDao, Invoice, I
                 }
 
                 transactional.updateItemFields(invoiceItemId.toString(), amount, null, null, context);
+
+                // Typically a parent summary item: make sure the children accounts are refreshed as well
+                invoiceBalanceDao.refreshFromTransaction(ImmutableList.<UUID>of(invoiceItem.getInvoiceId()), invoicesTags, entitySqlDaoWrapperFactory, context);
                 return null;
             }
         });
@@ -1277,8 +1377,8 @@ public class DefaultInvoiceDao extends EntityDaoBase<InvoiceModelDao, Invoice, I
         final InternalTenantContext internalTenantContext = internalCallContextFactory.createInternalTenantContext(childAccount.getParentAccountId(), childAccountContext);
         final InternalCallContext parentAccountContext = internalCallContextFactory.createInternalCallContext(internalTenantContext.getAccountRecordId(), childAccountContext);
 
-        final List<Tag> parentInvoicesTags = getInvoicesTags(parentAccountContext);
-        final List<Tag> childInvoicesTags = getInvoicesTags(childAccountContext);
+        final List<Tag> parentInvoicesTags = getInvoicesTagsForUpdate(parentAccountContext);
+        final List<Tag> childInvoicesTags = getInvoicesTagsForUpdate(childAccountContext);
 
         transactionalSqlDao.execute(false, new EntitySqlDaoTransactionWrapper<Void>() {
             @Override
@@ -1289,7 +1389,8 @@ public class DefaultInvoiceDao extends EntityDaoBase<InvoiceModelDao, Invoice, I
                 // create child and parent invoices
 
                 final DateTime childCreatedDate = childAccountContext.getCreatedDate();
-                final BigDecimal accountCBA = getAccountCBA(childAccount.getId(), childAccountContext);
+                // Read the child CBA from the current transaction, instead of a separate one
+                final BigDecimal accountCBA = cbaDao.getAccountCBAFromTransaction(entitySqlDaoWrapperFactory, childAccountContext);
 
                 // create external charge to child account
                 final LocalDate childInvoiceDate = childAccountContext.toLocalDate(childAccountContext.getCreatedDate());
@@ -1348,12 +1449,17 @@ public class DefaultInvoiceDao extends EntityDaoBase<InvoiceModelDao, Invoice, I
                 parentInvoice.addInvoiceItem(parentCreditItem);
 
                 // add CBA complexity and notify bus on child invoice creation
-                cbaDao.doCBAComplexityFromTransaction(childInvoice, childInvoicesTags, entitySqlDaoWrapperFactory, childAccountContext);
+                final Set<UUID> childBalanceInvoiceIds = new HashSet<UUID>(cbaDao.doCBAComplexityFromTransaction(childInvoice, childInvoicesTags, entitySqlDaoWrapperFactory, childAccountContext));
+                childBalanceInvoiceIds.add(childInvoice.getId());
                 notifyBusOfInvoiceCreation(entitySqlDaoWrapperFactory, childInvoice, childAccountContext);
 
-                cbaDao.doCBAComplexityFromTransaction(parentInvoice, parentInvoicesTags, entitySqlDaoWrapperFactory, parentAccountContext);
+                final Set<UUID> parentBalanceInvoiceIds = new HashSet<UUID>(cbaDao.doCBAComplexityFromTransaction(parentInvoice, parentInvoicesTags, entitySqlDaoWrapperFactory, parentAccountContext));
+                parentBalanceInvoiceIds.add(parentInvoice.getId());
                 notifyBusOfInvoiceCreation(entitySqlDaoWrapperFactory, parentInvoice, parentAccountContext);
 
+                invoiceBalanceDao.refreshFromTransaction(childBalanceInvoiceIds, childInvoicesTags, entitySqlDaoWrapperFactory, childAccountContext);
+                invoiceBalanceDao.refreshFromTransaction(parentBalanceInvoiceIds, parentInvoicesTags, entitySqlDaoWrapperFactory, parentAccountContext);
+
                 return null;
             }
         });
@@ -1381,8 +1487,252 @@ public class DefaultInvoiceDao extends EntityDaoBase<InvoiceModelDao, Invoice, I
         });
     }
 
+    @Override
+    public void refreshAccountBalances(final InternalCallContext context) {
+        final List<Tag> invoicesTags = getInvoicesTagsForUpdate(context);
+
+        transactionalSqlDao.execute(false, new EntitySqlDaoTransactionWrapper<Void>() {
+            @Override
+            public Void inTransaction(final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory) throws Exception {
+                invoiceBalanceDao.rebuildFromTransaction(invoicesTags, entitySqlDaoWrapperFactory, context);
+                return null;
+            }
+        });
+    }
+
+    @Override
+    public void refreshInvoiceBalance(final UUID invoiceId, final InternalCallContext context) {
+        final List<Tag> invoicesTags = getInvoicesTagsForUpdate(context);
+
+        transactionalSqlDao.execute(false, new EntitySqlDaoTransactionWrapper<Void>() {
+            @Override
+            public Void inTransaction(final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory) throws Exception {
+                invoiceBalanceDao.refreshFromTransaction(ImmutableList.<UUID>of(invoiceId), invoicesTags, entitySqlDaoWrapperFactory, context);
+                return null;
+            }
+        });
+    }
+
+    @Override
+    public AccountBalanceLedger verifyAccountBalances(final UUID accountId, final InternalTenantContext context) {
+        final List<Tag> invoicesTags = getInvoicesTagsForUpdate(context);
+
+        return transactionalSqlDao.execute(true, new EntitySqlDaoTransactionWrapper<AccountBalanceLedger>() {
+            @Override
+            public AccountBalanceLedger inTransaction(final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory) throws Exception {
+                return invoiceBalanceDao.verifyFromTransaction(accountId, invoicesTags, entitySqlDaoWrapperFactory, context);
+            }
+        });
+    }
+
+    @Override
+    public List<UUID> archiveInvoices(final LocalDate horizonDate, final DateTime paymentActivityDate, final InternalCallContext context) {
+        final List<Tag> invoicesTags = getInvoicesTagsForUpdate(context);
+
+        return transactionalSqlDao.execute(false, new EntitySqlDaoTransactionWrapper<List<UUID>>() {
+            @Override
+            public List<UUID> inTransaction(final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory) throws Exception {
+                final List<InvoiceModelDao> invoices = invoiceDaoHelper.getAllInvoicesByAccountFromTransaction(true, invoicesTags, entitySqlDaoWrapperFactory, context);
+                final List<InvoiceModelDao> invoicesToArchive = getInvoicesToArchive(invoices, horizonDate, paymentActivityDate);
+                if (invoicesToArchive.isEmpty()) {
+                    return ImmutableList.<UUID>of();
+                }
+
+                final List<UUID> invoiceIds = new LinkedList<UUID>();
+                final Collection<String> invoiceIdsAsString = new LinkedList<String>();
+                BigDecimal archivedBalance = BigDecimal.ZERO;
+                BigDecimal archivedCBA = BigDecimal.ZERO;
+                LocalDate archivedUpTo = null;
+                for (final InvoiceModelDao invoice : invoicesToArchive) {
+                    invoiceIds.add(invoice.getId());
+                    invoiceIdsAsString.add(invoice.getId().toString());
+                    if (invoice.getStatus() == InvoiceStatus.COMMITTED) {
+                        archivedBalance = archivedBalance.add(InvoiceModelDaoHelper.getRawBalanceForRegularInvoice(invoice));
+                        archivedCBA = archivedCBA.add(InvoiceModelDaoHelper.getCBAAmount(invoice));
+                    }
+                    if (archivedUpTo == null || archivedUpTo.compareTo(invoice.getInvoiceDate()) < 0) {
+                        archivedUpTo = invoice.getInvoiceDate();
+                    }
+                    for (final InvoiceItemModelDao invoiceItem : invoice.getInvoiceItems()) {
+                        final LocalDate itemDate = invoiceItem.getEndDate() != null ? invoiceItem.getEndDate() : invoiceItem.getStartDate();
+                        if (itemDate != null && archivedUpTo.compareTo(itemDate) < 0) {
+                            archivedUpTo = itemDate;
+                        }
+                    }
+                }
+
+                // Move the rows (children first), the audit logs and history rows are left untouched
+                final InvoiceArchiveSqlDao invoiceArchiveSqlDao = entitySqlDaoWrapperFactory.getHandle().attach(InvoiceArchiveSqlDao.class);
+                final Date archivedDate = context.getCreatedDate().toDate();
+                invoiceArchiveSqlDao.archiveInvoicePayments(invoiceIdsAsString, archivedDate, context);
+                invoiceArchiveSqlDao.archiveInvoiceItems(invoiceIdsAsString, archivedDate, context);
+                invoiceArchiveSqlDao.archiveInvoices(invoiceIdsAsString, archivedDate, context);
+                invoiceArchiveSqlDao.deleteInvoicePayments(invoiceIdsAsString, context);
+                invoiceArchiveSqlDao.deleteInvoiceItems(invoiceIdsAsString, context);
+                invoiceArchiveSqlDao.deleteInvoices(invoiceIdsAsString, context);
+
+                // Carry the credit forward, so that InvoiceItemSqlDao#getAccountCBA (and therefore the account balance) is unchanged
+                final InvoiceArchiveSummaryModelDao summary = invoiceArchiveSqlDao.getSummary(context);
+                if (summary == null) {
+                    invoiceArchiveSqlDao.createSummary(archivedUpTo.toDate(), invoiceIds.size(), archivedBalance, archivedCBA, archivedDate, context);
+                } else {
+                    invoiceArchiveSqlDao.updateSummary(summary.getArchivedUpTo().compareTo(archivedUpTo) > 0 ? summary.getArchivedUpTo().toDate() : archivedUpTo.toDate(),
+                                                       summary.getNbInvoices() + invoiceIds.size(),
+                                                       summary.getBalance().add(archivedBalance),
+                                                       summary.getCba().add(archivedCBA),
+                                                       archivedDate,
+                                                       context);
+                }
+
+                invoiceBalanceDao.rebuildFromTransaction(invoicesTags, entitySqlDaoWrapperFactory, context);
+
+                log.info("Archived invoiceIds={} for accountRecordId='{}' (horizonDate={})", invoiceIds, context.getAccountRecordId(), horizonDate);
+                return invoiceIds;
+            }
+        });
+    }
+
+    @Override
+    public List<InvoiceModelDao> getArchivedInvoices(final InternalTenantContext context) {
+        return transactionalSqlDao.execute(true, new EntitySqlDaoTransactionWrapper<List<InvoiceModelDao>>() {
+            @Override
+            public List<InvoiceModelDao> inTransaction(final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory) throws Exception {
+                final InvoiceArchiveSqlDao invoiceArchiveSqlDao = entitySqlDaoWrapperFactory.getHandle().attach(InvoiceArchiveSqlDao.class);
+
+                final List<InvoiceModelDao> invoices = invoiceArchiveSqlDao.getArchivedInvoices(context);
+                final Map<UUID, InvoiceModelDao> invoicesById = new HashMap<UUID, InvoiceModelDao>();
+                for (final InvoiceModelDao invoice : invoices) {
+                    invoicesById.put(invoice.getId(), invoice);
+                }
+                for (final InvoiceItemModelDao invoiceItem : invoiceArchiveSqlDao.getArchivedInvoiceItems(context)) {
+                    final InvoiceModelDao invoice = invoicesById.get(invoiceItem.getInvoiceId());
+                    if (invoice != null) {
+                        invoice.addInvoiceItem(invoiceItem);
+                    }
+                }
+                for (final InvoicePaymentModelDao invoicePayment : invoiceArchiveSqlDao.getArchivedInvoicePayments(context)) {
+                    final InvoiceModelDao invoice = invoicesById.get(invoicePayment.getInvoiceId());
+                    if (invoice != null) {
+                        invoice.addPayments(ImmutableList.<InvoicePaymentModelDao>of(invoicePayment));
+                    }
+                }
+                return invoices;
+            }
+        });
+    }
+
+    @Override
+    public List<InvoiceItemModelDao> getArchivedPeriodItems(final Collection<UUID> subscriptionIds, final LocalDate fromDate, final InternalTenantContext context) {
+        if (subscriptionIds.isEmpty()) {
+            return ImmutableList.<InvoiceItemModelDao>of();
+        }
+
+        final Collection<String> subscriptionIdsAsString = new LinkedList<String>();
+        for (final UUID subscriptionId : subscriptionIds) {
+            subscriptionIdsAsString.add(subscriptionId.toString());
+        }
+        return transactionalSqlDao.execute(true, new EntitySqlDaoTransactionWrapper<List<InvoiceItemModelDao>>() {
+            @Override
+            public List<InvoiceItemModelDao> inTransaction(final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory) throws Exception {
+                return entitySqlDaoWrapperFactory.getHandle().attach(InvoiceArchiveSqlDao.class).getArchivedPeriodItems(subscriptionIdsAsString, fromDate.toDate(), context);
+            }
+        });
+    }
+
+    @Override
+    public InvoiceArchiveSummaryModelDao getArchiveSummary(final InternalTenantContext context) {
+        return transactionalSqlDao.execute(true, new EntitySqlDaoTransactionWrapper<InvoiceArchiveSummaryModelDao>() {
+            @Override
+            public InvoiceArchiveSummaryModelDao inTransaction(final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory) throws Exception {
+                return entitySqlDaoWrapperFactory.getHandle().attach(InvoiceArchiveSqlDao.class).getSummary(context);
+            }
+        });
+    }
+
+    // Closed (paid, without any pending payment) or VOID invoices, whose items all end before the horizon and whose payments can't be refunded or charged back anymore
+    private static List<InvoiceModelDao> getInvoicesToArchive(final Iterable<InvoiceModelDao> invoices, final LocalDate horizonDate, final DateTime paymentActivityDate) {
+        final Map<UUID, InvoiceModelDao> invoicesToArchive = new HashMap<UUID, InvoiceModelDao>();
+        for (final InvoiceModelDao invoice : invoices) {
+            if (isArchivable(invoice, horizonDate, paymentActivityDate)) {
+                invoicesToArchive.put(invoice.getId(), invoice);
+            }
+        }
+
+        // Items (e.g. adjustments or repairs) of the remaining invoices must keep pointing to live items
+        boolean hasChanged = true;
+        while (hasChanged) {
+            hasChanged = false;
+            final Collection<UUID> linkedItemIds = new HashSet<UUID>();
+            for (final InvoiceModelDao invoice : invoices) {
+                if (!invoicesToArchive.containsKey(invoice.getId())) {
+                    for (final InvoiceItemModelDao invoiceItem : invoice.getInvoiceItems()) {
+                        if (invoiceItem.getLinkedItemId() != null) {
+                            linkedItemIds.add(invoiceItem.getLinkedItemId());
+                        }
+                    }
+                }
+            }
+
+            final Iterator<InvoiceModelDao> iterator = invoicesToArchive.values().iterator();
+            while (iterator.hasNext()) {
+                for (final InvoiceItemModelDao invoiceItem : iterator.next().getInvoiceItems()) {
+                    if (linkedItemIds.contains(invoiceItem.getId())) {
+                        iterator.remove();
+                        hasChanged = true;
+                        break;
+                    }
+                }
+            }
+        }
+
+        final List<InvoiceModelDao> result = new LinkedList<InvoiceModelDao>();
+        for (final InvoiceModelDao invoice : invoices) {
+            if (invoicesToArchive.containsKey(invoice.getId())) {
+                result.add(invoice);
+            }
+        }
+        return result;
+    }
+
+    private static boolean isArchivable(final InvoiceModelDao invoice, final LocalDate horizonDate, final DateTime paymentActivityDate) {
+        // Parent and children invoices are managed across accounts
+        if (invoice.isParentInvoice() || invoice.getParentInvoice() != null) {
+            return false;
+        }
+
+        if (invoice.getStatus() == InvoiceStatus.DRAFT ||
+            (invoice.getStatus() == InvoiceStatus.COMMITTED && InvoiceModelDaoHelper.getRawBalanceForRegularInvoice(invoice).compareTo(BigDecimal.ZERO) != 0) ||
+            !invoice.getInvoiceDate().isBefore(horizonDate)) {
+            return false;
+        }
+
+        for (final InvoiceItemModelDao invoiceItem : invoice.getInvoiceItems()) {
+            final LocalDate itemDate = invoiceItem.getEndDate() != null ? invoiceItem.getEndDate() : invoiceItem.getStartDate();
+            if (itemDate != null && itemDate.isAfter(horizonDate)) {
+                return false;
+            }
+        }
+
+        for (final InvoicePaymentModelDao invoicePayment : invoice.getInvoicePayments()) {
+            if (!Boolean.TRUE.equals(invoicePayment.getSuccess())) {
+                return false;
+            }
+            // Refunds and chargebacks look up the invoice payments of the payment in the live tables only
+            if (invoicePayment.getPaymentDate() != null && invoicePayment.getPaymentDate().compareTo(paymentActivityDate) >= 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     // PERF: fetch tags once. See also https://github.com/killbill/killbill/issues/720.
     private List<Tag> getInvoicesTags(final InternalTenantContext context) {
+        return tagInternalApi.getControlTagsForAccountType(ObjectType.INVOICE, context);
+    }
+
+    // The control tags cache is only invalidated on the local node: balances (and anything else persisted) are always
+    // computed from the tags in the database
+    private List<Tag> getInvoicesTagsForUpdate(final InternalTenantContext context) {
         return tagInternalApi.getTagsForAccountType(ObjectType.INVOICE, false, context);
     }
 
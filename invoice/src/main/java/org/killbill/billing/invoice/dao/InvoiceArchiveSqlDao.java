@@ -0,0 +1,116 @@
+/*
+ * Copyright 2014-2019 Groupon, Inc
+ * Copyright 2014-2019 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.invoice.dao;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+import org.killbill.billing.callcontext.InternalTenantContext;
+import org.killbill.billing.invoice.dao.InvoiceArchiveSqlDao.InvoiceArchiveSummaryModelDaoMapper;
+import org.killbill.billing.util.dao.MapperBase;
+import org.killbill.commons.jdbi.binder.SmartBindBean;
+import org.killbill.commons.jdbi.template.KillBillSqlDaoStringTemplate;
+import org.skife.jdbi.v2.StatementContext;
+import org.skife.jdbi.v2.sqlobject.Bind;
+import org.skife.jdbi.v2.sqlobject.SqlQuery;
+import org.skife.jdbi.v2.sqlobject.SqlUpdate;
+import org.skife.jdbi.v2.sqlobject.customizers.RegisterMapper;
+import org.skife.jdbi.v2.tweak.ResultSetMapper;
+import org.skife.jdbi.v2.unstable.BindIn;
+
+// Not an EntitySqlDao: rows are moved as-is (record_id included) so that audit logs and history rows keep resolving
+@KillBillSqlDaoStringTemplate
+@RegisterMapper(InvoiceArchiveSummaryModelDaoMapper.class)
+public interface InvoiceArchiveSqlDao {
+
+    @SqlUpdate
+    public int archiveInvoices(@BindIn("invoiceIds") final Collection<String> invoiceIds,
+                               @Bind("archivedDate") final Date archivedDate,
+                               @SmartBindBean final InternalTenantContext context);
+
+    @SqlUpdate
+    public int archiveInvoiceItems(@BindIn("invoiceIds") final Collection<String> invoiceIds,
+                                   @Bind("archivedDate") final Date archivedDate,
+                                   @SmartBindBean final InternalTenantContext context);
+
+    @SqlUpdate
+    public int archiveInvoicePayments(@BindIn("invoiceIds") final Collection<String> invoiceIds,
+                                      @Bind("archivedDate") final Date archivedDate,
+                                      @SmartBindBean final InternalTenantContext context);
+
+    @SqlUpdate
+    public int deleteInvoicePayments(@BindIn("invoiceIds") final Collection<String> invoiceIds,
+                                     @SmartBindBean final InternalTenantContext context);
+
+    @SqlUpdate
+    public int deleteInvoiceItems(@BindIn("invoiceIds") final Collection<String> invoiceIds,
+                                  @SmartBindBean final InternalTenantContext context);
+
+    @SqlUpdate
+    public int deleteInvoices(@BindIn("invoiceIds") final Collection<String> invoiceIds,
+                              @SmartBindBean final InternalTenantContext context);
+
+    @SqlQuery
+    public List<InvoiceModelDao> getArchivedInvoices(@SmartBindBean final InternalTenantContext context);
+
+    @SqlQuery
+    public List<InvoiceItemModelDao> getArchivedInvoiceItems(@SmartBindBean final InternalTenantContext context);
+
+    @SqlQuery
+    public List<InvoiceItemModelDao> getArchivedPeriodItems(@BindIn("subscriptionIds") final Collection<String> subscriptionIds,
+                                                            @Bind("fromDate") final Date fromDate,
+                                                            @SmartBindBean final InternalTenantContext context);
+
+    @SqlQuery
+    public List<InvoicePaymentModelDao> getArchivedInvoicePayments(@SmartBindBean final InternalTenantContext context);
+
+    @SqlQuery
+    public InvoiceArchiveSummaryModelDao getSummary(@SmartBindBean final InternalTenantContext context);
+
+    @SqlUpdate
+    public void createSummary(@Bind("archivedUpTo") final Date archivedUpTo,
+                              @Bind("nbInvoices") final int nbInvoices,
+                              @Bind("balance") final BigDecimal balance,
+                              @Bind("cba") final BigDecimal cba,
+                              @Bind("updatedDate") final Date updatedDate,
+                              @SmartBindBean final InternalTenantContext context);
+
+    @SqlUpdate
+    public int updateSummary(@Bind("archivedUpTo") final Date archivedUpTo,
+                             @Bind("nbInvoices") final int nbInvoices,
+                             @Bind("balance") final BigDecimal balance,
+                             @Bind("cba") final BigDecimal cba,
+                             @Bind("updatedDate") final Date updatedDate,
+                             @SmartBindBean final InternalTenantContext context);
+
+    public static class InvoiceArchiveSummaryModelDaoMapper extends MapperBase implements ResultSetMapper<InvoiceArchiveSummaryModelDao> {
+
+        @Override
+        public InvoiceArchiveSummaryModelDao map(final int index, final ResultSet r, final StatementContext ctx) throws SQLException {
+            return new InvoiceArchiveSummaryModelDao(getDate(r, "archived_up_to"),
+                                                     r.getInt("nb_invoices"),
+                                                     r.getBigDecimal("balance"),
+                                                     r.getBigDecimal("cba"),
+                                                     getDateTime(r, "updated_date"));
+        }
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2014-2019 Groupon, Inc
+ * Copyright 2014-2019 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.invoice.dao;
+
+import java.math.BigDecimal;
+
+import org.joda.time.DateTime;
+import org.joda.time.LocalDate;
+
+// Carried-forward totals of the invoices moved to the archive tables of an account (see InvoiceDao#archiveInvoices)
+public class InvoiceArchiveSummaryModelDao {
+
+    private final LocalDate archivedUpTo;
+    private final int nbInvoices;
+    private final BigDecimal balance;
+    private final BigDecimal cba;
+    private final DateTime updatedDate;
+
+    public InvoiceArchiveSummaryModelDao(final LocalDate archivedUpTo, final int nbInvoices, final BigDecimal balance, final BigDecimal cba, final DateTime updatedDate) {
+        this.archivedUpTo = archivedUpTo;
+        this.nbInvoices = nbInvoices;
+        this.balance = balance;
+        this.cba = cba;
+        this.updatedDate = updatedDate;
+    }
+
+    public LocalDate getArchivedUpTo() {
+        return archivedUpTo;
+    }
+
+    public int getNbInvoices() {
+        return nbInvoices;
+    }
+
+    public BigDecimal getBalance() {
+        return balance;
+    }
+
+    public BigDecimal getCba() {
+        return cba;
+    }
+
+    public DateTime getUpdatedDate() {
+        return updatedDate;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("InvoiceArchiveSummaryModelDao{");
+        sb.append("archivedUpTo=").append(archivedUpTo);
+        sb.append(", nbInvoices=").append(nbInvoices);
+        sb.append(", balance=").append(balance);
+        sb.append(", cba=").append(cba);
+        sb.append(", updatedDate=").append(updatedDate);
+        sb.append('}');
+        return sb.toString();
+    }
+}
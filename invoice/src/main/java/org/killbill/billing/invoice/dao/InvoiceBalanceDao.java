@@ -0,0 +1,490 @@
+/*
+ * Copyright 2014-2019 Groupon, Inc
+ * Copyright 2014-2019 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.invoice.dao;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.UUID;
+
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+
+import org.killbill.billing.ObjectType;
+import org.killbill.billing.callcontext.InternalCallContext;
+import org.killbill.billing.callcontext.InternalTenantContext;
+import org.killbill.billing.invoice.api.InvoiceStatus;
+import org.killbill.billing.invoice.model.DefaultAccountBalanceLedger;
+import org.killbill.billing.tag.TagInternalApi;
+import org.killbill.billing.util.callcontext.InternalCallContextFactory;
+import org.killbill.billing.util.entity.dao.EntitySqlDaoWrapperFactory;
+import org.killbill.billing.util.tag.ControlTagType;
+import org.killbill.billing.util.tag.Tag;
+import org.skife.jdbi.v2.Handle;
+import org.skife.jdbi.v2.exceptions.UnableToExecuteStatementException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Maintains the materialized invoice and account balances (invoice_balances and invoice_account_balances tables).
+ * <p/>
+ * The DefaultInvoiceDao write transactions pass the invoices they changed: only these invoices are re-hydrated, and the
+ * difference with their materialized rows is applied to the account row, so that neither the writes nor the hot read
+ * paths (account balance, account CBA, unpaid invoices) have to load all invoices, items and payments of the account.
+ * The whole account is only recomputed the first time it is materialized, and on rebuild (e.g. admin API, archival).
+ */
+public class InvoiceBalanceDao {
+
+    private static final Logger log = LoggerFactory.getLogger(InvoiceBalanceDao.class);
+
+    private static final String MATERIALIZE_ACCOUNT_CHECKPOINT = "materialize_account_balances";
+
+    private final InvoiceDaoHelper invoiceDaoHelper;
+    private final TagInternalApi tagInternalApi;
+    private final InternalCallContextFactory internalCallContextFactory;
+
+    @Inject
+    public InvoiceBalanceDao(final InvoiceDaoHelper invoiceDaoHelper,
+                             final TagInternalApi tagInternalApi,
+                             final InternalCallContextFactory internalCallContextFactory) {
+        this.invoiceDaoHelper = invoiceDaoHelper;
+        this.tagInternalApi = tagInternalApi;
+        this.internalCallContextFactory = internalCallContextFactory;
+    }
+
+    /**
+     * Refresh the materialized balances of the specified invoices, and apply the difference to the account balances.
+     * The child invoices of parent invoices whose balance or status changed are also refreshed, since the balance of a
+     * child account depends on the state of the parent invoices.
+     *
+     * @param invoiceIds                 the invoices changed by the current transaction
+     * @param invoicesTags               the invoice tags of the account
+     * @param entitySqlDaoWrapperFactory the EntitySqlDaoWrapperFactory from the current transaction
+     * @param context                    the call context of the account
+     */
+    public void refreshFromTransaction(final Collection<UUID> invoiceIds,
+                                       final List<Tag> invoicesTags,
+                                       final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory,
+                                       final InternalCallContext context) {
+        final Map<UUID, Collection<UUID>> childInvoiceIdsByChildAccountId = refreshParentAccountFromTransaction(invoiceIds, invoicesTags, entitySqlDaoWrapperFactory, context);
+        refreshChildAccountsFromTransaction(childInvoiceIdsByChildAccountId, entitySqlDaoWrapperFactory, context);
+    }
+
+    /**
+     * Refresh the materialized balances of the specified invoices only, leaving the child accounts to the caller
+     * (see ParentInvoiceCommitPipeline, which refreshes them concurrently, outside of this transaction).
+     *
+     * @param invoiceIds                 the invoices changed by the current transaction
+     * @param invoicesTags               the invoice tags of the account
+     * @param entitySqlDaoWrapperFactory the EntitySqlDaoWrapperFactory from the current transaction
+     * @param context                    the call context of the account
+     * @return the child invoices whose balances need to be refreshed, per child account id
+     */
+    public Map<UUID, Collection<UUID>> refreshParentAccountFromTransaction(final Collection<UUID> invoiceIds,
+                                                                           final List<Tag> invoicesTags,
+                                                                           final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory,
+                                                                           final InternalCallContext context) {
+        final Collection<UUID> changedInvoiceIds = applyFromTransaction(invoiceIds, invoicesTags, true, entitySqlDaoWrapperFactory, context);
+        return getChildInvoiceIdsFromTransaction(changedInvoiceIds, entitySqlDaoWrapperFactory, context);
+    }
+
+    public void refreshChildAccountFromTransaction(final UUID childAccountId,
+                                                   final Collection<UUID> childInvoiceIds,
+                                                   final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory,
+                                                   final InternalCallContext parentContext) {
+        final Long childAccountRecordId = internalCallContextFactory.getRecordIdFromObject(childAccountId, ObjectType.ACCOUNT, internalCallContextFactory.createTenantContext(parentContext));
+        final InternalCallContext childContext = internalCallContextFactory.createInternalCallContext(childAccountRecordId, parentContext);
+        final List<Tag> childInvoicesTags = tagInternalApi.getTagsForAccountType(ObjectType.INVOICE, false, childContext);
+
+        applyFromTransaction(childInvoiceIds, childInvoicesTags, true, entitySqlDaoWrapperFactory, childContext);
+    }
+
+    /**
+     * Recompute all materialized balances of the account from scratch (backfill, admin API, archival), as well as the
+     * balances of the child invoices whose parent invoice changed.
+     *
+     * @param invoicesTags               the invoice tags of the account
+     * @param entitySqlDaoWrapperFactory the EntitySqlDaoWrapperFactory from the current transaction
+     * @param context                    the call context of the account
+     */
+    public void rebuildFromTransaction(final List<Tag> invoicesTags,
+                                       final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory,
+                                       final InternalCallContext context) {
+        final Collection<UUID> changedInvoiceIds = rebuildAccountFromTransaction(invoicesTags, entitySqlDaoWrapperFactory, context);
+        refreshChildAccountsFromTransaction(getChildInvoiceIdsFromTransaction(changedInvoiceIds, entitySqlDaoWrapperFactory, context), entitySqlDaoWrapperFactory, context);
+    }
+
+    @Nullable
+    public AccountBalanceModelDao getAccountBalanceFromTransaction(final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory, final InternalTenantContext context) {
+        return getSqlDao(entitySqlDaoWrapperFactory).getAccountBalance(context);
+    }
+
+    public Map<UUID, InvoiceBalanceModelDao> getInvoiceBalancesFromTransaction(final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory, final InternalTenantContext context) {
+        return toMap(getSqlDao(entitySqlDaoWrapperFactory).getInvoiceBalances(context));
+    }
+
+    // Recompute all balances from scratch and compare them against the materialized ones
+    public DefaultAccountBalanceLedger verifyFromTransaction(final UUID accountId,
+                                                             final List<Tag> invoicesTags,
+                                                             final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory,
+                                                             final InternalTenantContext context) {
+        final ComputedBalances computedBalances = computeFromTransaction(invoicesTags, entitySqlDaoWrapperFactory, context);
+        final Map<UUID, InvoiceBalanceModelDao> materializedInvoiceBalances = getInvoiceBalancesFromTransaction(entitySqlDaoWrapperFactory, context);
+        final AccountBalanceModelDao materializedAccountBalance = getAccountBalanceFromTransaction(entitySqlDaoWrapperFactory, context);
+
+        final Map<UUID, BigDecimal> driftedMaterializedInvoiceBalances = new LinkedHashMap<UUID, BigDecimal>();
+        final Map<UUID, BigDecimal> driftedComputedInvoiceBalances = new LinkedHashMap<UUID, BigDecimal>();
+        for (final InvoiceBalanceModelDao computedInvoiceBalance : computedBalances.invoiceBalances.values()) {
+            final InvoiceBalanceModelDao materializedInvoiceBalance = materializedInvoiceBalances.get(computedInvoiceBalance.getInvoiceId());
+            if (hasChanged(materializedInvoiceBalance, computedInvoiceBalance)) {
+                driftedMaterializedInvoiceBalances.put(computedInvoiceBalance.getInvoiceId(), materializedInvoiceBalance == null ? null : materializedInvoiceBalance.getBalance());
+                driftedComputedInvoiceBalances.put(computedInvoiceBalance.getInvoiceId(), computedInvoiceBalance.getBalance());
+            }
+        }
+
+        return new DefaultAccountBalanceLedger(accountId,
+                                               materializedAccountBalance,
+                                               computedBalances.accountBalance,
+                                               computedBalances.accountCBA,
+                                               driftedMaterializedInvoiceBalances,
+                                               driftedComputedInvoiceBalances);
+    }
+
+    /**
+     * Same logic as the account balance computed on the fly, but summing the balance of all eligible invoices.
+     *
+     * @param invoices   all invoices of the account
+     * @param accountCBA the account CBA (see InvoiceItemSqlDao#getAccountCBA), which includes the credit carried forward by archived invoices
+     * @return the account balance
+     */
+    public static BigDecimal computeAccountBalance(final Iterable<InvoiceModelDao> invoices, final BigDecimal accountCBA) {
+        BigDecimal accountBalance = BigDecimal.ZERO;
+        for (final InvoiceModelDao cur : invoices) {
+            // invoices that are DRAFT, VOID, WRITTEN_OFF or paid children invoices are excluded from balance computation
+            if (!cur.isWrittenOff() && isInAccountBalance(cur)) {
+                accountBalance = accountBalance.add(InvoiceModelDaoHelper.getRawBalanceForRegularInvoice(cur));
+            }
+        }
+        return accountBalance.subtract(accountCBA);
+    }
+
+    /**
+     * Compute the account balance from the materialized invoice balances. The WRITTEN_OFF tags are re-applied at read time,
+     * as they are managed outside of the invoice module (tags added through the TagUserApi are only reported asynchronously).
+     *
+     * @param invoiceBalances the materialized invoice balances of the account
+     * @param invoicesTags    the invoice tags of the account
+     * @param accountCBA      the materialized account CBA
+     * @return the account balance
+     */
+    public static BigDecimal computeAccountBalance(final Iterable<InvoiceBalanceModelDao> invoiceBalances, final Iterable<Tag> invoicesTags, final BigDecimal accountCBA) {
+        final Collection<UUID> writtenOffInvoiceIds = new HashSet<UUID>();
+        for (final Tag tag : invoicesTags) {
+            if (ControlTagType.WRITTEN_OFF.getId().equals(tag.getTagDefinitionId())) {
+                writtenOffInvoiceIds.add(tag.getObjectId());
+            }
+        }
+
+        BigDecimal accountBalance = BigDecimal.ZERO;
+        for (final InvoiceBalanceModelDao invoiceBalance : invoiceBalances) {
+            if (invoiceBalance.isInAccountBalance() && !writtenOffInvoiceIds.contains(invoiceBalance.getInvoiceId())) {
+                accountBalance = accountBalance.add(invoiceBalance.getBalance());
+            }
+        }
+        return accountBalance.subtract(accountCBA);
+    }
+
+    // COMMITTED invoices, unless the parent invoice has been paid (the balance is then carried by the parent account)
+    private static boolean isInAccountBalance(final InvoiceModelDao invoice) {
+        if (invoice.getStatus() != InvoiceStatus.COMMITTED) {
+            return false;
+        }
+
+        final boolean hasZeroParentBalance =
+                invoice.getParentInvoice() != null &&
+                (invoice.getParentInvoice().isWrittenOff() ||
+                 invoice.getParentInvoice().getStatus() == InvoiceStatus.DRAFT ||
+                 invoice.getParentInvoice().getStatus() == InvoiceStatus.VOID ||
+                 InvoiceModelDaoHelper.getRawBalanceForRegularInvoice(invoice.getParentInvoice()).compareTo(BigDecimal.ZERO) == 0);
+        return !hasZeroParentBalance;
+    }
+
+    // Return the ids of the invoices whose materialized balance changed
+    private Collection<UUID> applyFromTransaction(final Collection<UUID> invoiceIds,
+                                                  final List<Tag> invoicesTags,
+                                                  final boolean materializeIfMissing,
+                                                  final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory,
+                                                  final InternalCallContext context) {
+        if (invoiceIds.isEmpty()) {
+            return ImmutableList.<UUID>of();
+        }
+
+        final InvoiceBalanceSqlDao invoiceBalanceSqlDao = getSqlDao(entitySqlDaoWrapperFactory);
+        if (materializeIfMissing && invoiceBalanceSqlDao.getAccountBalance(context) == null) {
+            // First write for that account since the balances were introduced: materialize all of them once
+            return materializeAccountFromTransaction(invoiceIds, invoicesTags, entitySqlDaoWrapperFactory, context);
+        }
+
+        final Collection<String> invoiceIdsAsStrings = new HashSet<String>();
+        for (final UUID invoiceId : invoiceIds) {
+            invoiceIdsAsStrings.add(invoiceId.toString());
+        }
+        final List<InvoiceModelDao> invoices = entitySqlDaoWrapperFactory.become(InvoiceSqlDao.class).getByIds(invoiceIdsAsStrings, context);
+        invoiceDaoHelper.populateChildren(invoices, invoicesTags, entitySqlDaoWrapperFactory, context);
+        final Map<UUID, InvoiceBalanceModelDao> materializedInvoiceBalances = toMap(invoiceBalanceSqlDao.getInvoiceBalancesByIds(invoiceIdsAsStrings, context));
+
+        BigDecimal accountBalanceDelta = BigDecimal.ZERO;
+        BigDecimal accountCBADelta = BigDecimal.ZERO;
+        final Collection<UUID> changedInvoiceIds = new HashSet<UUID>();
+        for (final InvoiceModelDao invoice : invoices) {
+            final InvoiceBalanceModelDao computedInvoiceBalance = computeInvoiceBalance(invoice, context);
+            final InvoiceBalanceModelDao materializedInvoiceBalance = materializedInvoiceBalances.get(invoice.getId());
+            if (!hasChanged(materializedInvoiceBalance, computedInvoiceBalance)) {
+                continue;
+            }
+
+            saveInvoiceBalance(invoiceBalanceSqlDao, materializedInvoiceBalance, computedInvoiceBalance, context);
+            changedInvoiceIds.add(invoice.getId());
+
+            accountBalanceDelta = accountBalanceDelta.add(computedInvoiceBalance.getAccountBalanceContribution());
+            accountCBADelta = accountCBADelta.add(computedInvoiceBalance.getCba());
+            if (materializedInvoiceBalance != null) {
+                accountBalanceDelta = accountBalanceDelta.subtract(materializedInvoiceBalance.getAccountBalanceContribution());
+                accountCBADelta = accountCBADelta.subtract(materializedInvoiceBalance.getCba());
+            }
+        }
+
+        if (accountBalanceDelta.compareTo(BigDecimal.ZERO) != 0 || accountCBADelta.compareTo(BigDecimal.ZERO) != 0) {
+            // The account balance is net of the CBA
+            invoiceBalanceSqlDao.applyAccountBalanceDelta(accountBalanceDelta.subtract(accountCBADelta), accountCBADelta, context.getCreatedDate().toDate(), context);
+        }
+
+        log.debug("Refreshed balances for accountRecordId='{}': balanceDelta={}, cbaDelta={}, changedInvoiceIds={}",
+                  context.getAccountRecordId(), accountBalanceDelta, accountCBADelta, changedInvoiceIds);
+        return changedInvoiceIds;
+    }
+
+    // Concurrent transactions may both find the account not materialized yet: the loser (unique index on account_record_id)
+    // discards its own rebuild and applies its changes on top of the rows of the winner instead
+    private Collection<UUID> materializeAccountFromTransaction(final Collection<UUID> invoiceIds,
+                                                               final List<Tag> invoicesTags,
+                                                               final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory,
+                                                               final InternalCallContext context) {
+        final Handle handle = entitySqlDaoWrapperFactory.getHandle();
+        handle.checkpoint(MATERIALIZE_ACCOUNT_CHECKPOINT);
+        try {
+            final Collection<UUID> changedInvoiceIds = rebuildAccountFromTransaction(invoicesTags, entitySqlDaoWrapperFactory, context);
+            handle.release(MATERIALIZE_ACCOUNT_CHECKPOINT);
+            return changedInvoiceIds;
+        } catch (final UnableToExecuteStatementException e) {
+            if (!isUniqueConstraintViolation(e)) {
+                throw e;
+            }
+            log.info("Balances for accountRecordId='{}' materialized concurrently, applying changes for invoiceIds={}", context.getAccountRecordId(), invoiceIds);
+            handle.rollback(MATERIALIZE_ACCOUNT_CHECKPOINT);
+            return applyFromTransaction(invoiceIds, invoicesTags, false, entitySqlDaoWrapperFactory, context);
+        }
+    }
+
+    // Return the ids of the invoices whose materialized balance changed
+    private Collection<UUID> rebuildAccountFromTransaction(final List<Tag> invoicesTags,
+                                                           final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory,
+                                                           final InternalCallContext context) {
+        final InvoiceBalanceSqlDao invoiceBalanceSqlDao = getSqlDao(entitySqlDaoWrapperFactory);
+
+        final ComputedBalances computedBalances = computeFromTransaction(invoicesTags, entitySqlDaoWrapperFactory, context);
+        final Map<UUID, InvoiceBalanceModelDao> materializedInvoiceBalances = getInvoiceBalancesFromTransaction(entitySqlDaoWrapperFactory, context);
+
+        final Collection<UUID> changedInvoiceIds = new HashSet<UUID>();
+        for (final InvoiceBalanceModelDao computedInvoiceBalance : computedBalances.invoiceBalances.values()) {
+            final InvoiceBalanceModelDao materializedInvoiceBalance = materializedInvoiceBalances.get(computedInvoiceBalance.getInvoiceId());
+            if (hasChanged(materializedInvoiceBalance, computedInvoiceBalance)) {
+                saveInvoiceBalance(invoiceBalanceSqlDao, materializedInvoiceBalance, computedInvoiceBalance, context);
+                changedInvoiceIds.add(computedInvoiceBalance.getInvoiceId());
+            }
+        }
+
+        // Invoices moved to the archive tables
+        for (final UUID invoiceId : materializedInvoiceBalances.keySet()) {
+            if (!computedBalances.invoiceBalances.containsKey(invoiceId)) {
+                invoiceBalanceSqlDao.deleteInvoiceBalance(invoiceId.toString(), context);
+            }
+        }
+
+        final AccountBalanceModelDao materializedAccountBalance = invoiceBalanceSqlDao.getAccountBalance(context);
+        if (materializedAccountBalance == null) {
+            invoiceBalanceSqlDao.createAccountBalance(computedBalances.accountBalance, computedBalances.accountCBA, context.getCreatedDate().toDate(), context);
+        } else if (materializedAccountBalance.getBalance().compareTo(computedBalances.accountBalance) != 0 ||
+                   materializedAccountBalance.getCba().compareTo(computedBalances.accountCBA) != 0) {
+            invoiceBalanceSqlDao.updateAccountBalance(computedBalances.accountBalance, computedBalances.accountCBA, context.getCreatedDate().toDate(), context);
+        }
+
+        log.debug("Rebuilt balances for accountRecordId='{}': balance={}, cba={}, changedInvoiceIds={}",
+                  context.getAccountRecordId(), computedBalances.accountBalance, computedBalances.accountCBA, changedInvoiceIds);
+        return changedInvoiceIds;
+    }
+
+    private ComputedBalances computeFromTransaction(final List<Tag> invoicesTags,
+                                                    final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory,
+                                                    final InternalTenantContext context) {
+        // VOID invoices are materialized as well, so that the balances can be looked-up for any invoice of the account
+        final List<InvoiceModelDao> invoices = invoiceDaoHelper.getAllInvoicesByAccountFromTransaction(true, invoicesTags, entitySqlDaoWrapperFactory, context);
+
+        final Map<UUID, InvoiceBalanceModelDao> invoiceBalances = new HashMap<UUID, InvoiceBalanceModelDao>();
+        for (final InvoiceModelDao invoice : invoices) {
+            invoiceBalances.put(invoice.getId(), computeInvoiceBalance(invoice, context));
+        }
+
+        // Same query as InvoiceDao#getAccountCBA
+        final BigDecimal accountCBA = entitySqlDaoWrapperFactory.become(InvoiceItemSqlDao.class).getAccountCBA(context);
+
+        return new ComputedBalances(invoiceBalances, computeAccountBalance(invoices, accountCBA), accountCBA);
+    }
+
+    private static InvoiceBalanceModelDao computeInvoiceBalance(final InvoiceModelDao invoice, final InternalTenantContext context) {
+        final BigDecimal parentBalance = invoice.getParentInvoice() == null ? null : InvoiceModelDaoHelper.getRawBalanceForRegularInvoice(invoice.getParentInvoice());
+        // Same criteria as InvoiceItemSqlDao#getAccountCBA
+        final BigDecimal cba = invoice.getStatus() == InvoiceStatus.COMMITTED ? InvoiceModelDaoHelper.getCBAAmount(invoice) : BigDecimal.ZERO;
+        return new InvoiceBalanceModelDao(invoice.getId(),
+                                          InvoiceModelDaoHelper.getRawBalanceForRegularInvoice(invoice),
+                                          parentBalance,
+                                          isInAccountBalance(invoice),
+                                          invoice.isWrittenOff(),
+                                          cba,
+                                          context.getCreatedDate());
+    }
+
+    private static void saveInvoiceBalance(final InvoiceBalanceSqlDao invoiceBalanceSqlDao,
+                                           @Nullable final InvoiceBalanceModelDao materializedInvoiceBalance,
+                                           final InvoiceBalanceModelDao computedInvoiceBalance,
+                                           final InternalCallContext context) {
+        if (materializedInvoiceBalance == null) {
+            invoiceBalanceSqlDao.createInvoiceBalance(computedInvoiceBalance.getInvoiceId().toString(),
+                                                      computedInvoiceBalance.getBalance(),
+                                                      computedInvoiceBalance.getParentBalance(),
+                                                      computedInvoiceBalance.isInAccountBalance(),
+                                                      computedInvoiceBalance.isWrittenOff(),
+                                                      computedInvoiceBalance.getCba(),
+                                                      context.getCreatedDate().toDate(),
+                                                      context);
+        } else {
+            invoiceBalanceSqlDao.updateInvoiceBalance(computedInvoiceBalance.getInvoiceId().toString(),
+                                                      computedInvoiceBalance.getBalance(),
+                                                      computedInvoiceBalance.getParentBalance(),
+                                                      computedInvoiceBalance.isInAccountBalance(),
+                                                      computedInvoiceBalance.isWrittenOff(),
+                                                      computedInvoiceBalance.getCba(),
+                                                      context.getCreatedDate().toDate(),
+                                                      context);
+        }
+    }
+
+    private Map<UUID, Collection<UUID>> getChildInvoiceIdsFromTransaction(final Collection<UUID> parentInvoiceIds,
+                                                                          final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory,
+                                                                          final InternalTenantContext context) {
+        final InvoiceParentChildrenSqlDao invoiceParentChildrenSqlDao = entitySqlDaoWrapperFactory.become(InvoiceParentChildrenSqlDao.class);
+        final Map<UUID, Collection<UUID>> childInvoiceIdsByChildAccountId = new LinkedHashMap<UUID, Collection<UUID>>();
+        for (final UUID parentInvoiceId : parentInvoiceIds) {
+            for (final InvoiceParentChildModelDao mapping : invoiceParentChildrenSqlDao.getChildInvoicesByParentInvoiceId(parentInvoiceId.toString(), context)) {
+                if (childInvoiceIdsByChildAccountId.get(mapping.getChildAccountId()) == null) {
+                    childInvoiceIdsByChildAccountId.put(mapping.getChildAccountId(), new LinkedHashSet<UUID>());
+                }
+                childInvoiceIdsByChildAccountId.get(mapping.getChildAccountId()).add(mapping.getChildInvoiceId());
+            }
+        }
+        return childInvoiceIdsByChildAccountId;
+    }
+
+    private void refreshChildAccountsFromTransaction(final Map<UUID, Collection<UUID>> childInvoiceIdsByChildAccountId,
+                                                     final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory,
+                                                     final InternalCallContext parentContext) {
+        for (final Entry<UUID, Collection<UUID>> entry : childInvoiceIdsByChildAccountId.entrySet()) {
+            refreshChildAccountFromTransaction(entry.getKey(), entry.getValue(), entitySqlDaoWrapperFactory, parentContext);
+        }
+    }
+
+    private static boolean hasChanged(@Nullable final InvoiceBalanceModelDao materializedInvoiceBalance, final InvoiceBalanceModelDao computedInvoiceBalance) {
+        if (materializedInvoiceBalance == null) {
+            return true;
+        }
+
+        if (materializedInvoiceBalance.getBalance().compareTo(computedInvoiceBalance.getBalance()) != 0 ||
+            materializedInvoiceBalance.getCba().compareTo(computedInvoiceBalance.getCba()) != 0 ||
+            materializedInvoiceBalance.isInAccountBalance() != computedInvoiceBalance.isInAccountBalance() ||
+            materializedInvoiceBalance.isWrittenOff() != computedInvoiceBalance.isWrittenOff()) {
+            return true;
+        }
+
+        final BigDecimal materializedParentBalance = materializedInvoiceBalance.getParentBalance();
+        final BigDecimal computedParentBalance = computedInvoiceBalance.getParentBalance();
+        if (materializedParentBalance == null || computedParentBalance == null) {
+            return materializedParentBalance != computedParentBalance;
+        } else {
+            return materializedParentBalance.compareTo(computedParentBalance) != 0;
+        }
+    }
+
+    private static boolean isUniqueConstraintViolation(final Throwable e) {
+        Throwable cur = e;
+        while (cur != null) {
+            // SQL state class 23: integrity constraint violation (MySQL, PostgreSQL and H2)
+            if (cur instanceof SQLException && ((SQLException) cur).getSQLState() != null && ((SQLException) cur).getSQLState().startsWith("23")) {
+                return true;
+            }
+            cur = cur.getCause();
+        }
+        return false;
+    }
+
+    private static Map<UUID, InvoiceBalanceModelDao> toMap(final Iterable<InvoiceBalanceModelDao> invoiceBalances) {
+        final Map<UUID, InvoiceBalanceModelDao> invoiceBalancesByInvoiceId = new HashMap<UUID, InvoiceBalanceModelDao>();
+        for (final InvoiceBalanceModelDao invoiceBalance : invoiceBalances) {
+            invoiceBalancesByInvoiceId.put(invoiceBalance.getInvoiceId(), invoiceBalance);
+        }
+        return invoiceBalancesByInvoiceId;
+    }
+
+    private InvoiceBalanceSqlDao getSqlDao(final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory) {
+        // Attach to the current handle, to read and write within the current transaction
+        return entitySqlDaoWrapperFactory.getHandle().attach(InvoiceBalanceSqlDao.class);
+    }
+
+    private static final class ComputedBalances {
+
+        private final Map<UUID, InvoiceBalanceModelDao> invoiceBalances;
+        private final BigDecimal accountBalance;
+        private final BigDecimal accountCBA;
+
+        private ComputedBalances(final Map<UUID, InvoiceBalanceModelDao> invoiceBalances,
+                                 final BigDecimal accountBalance,
+                                 final BigDecimal accountCBA) {
+            this.invoiceBalances = invoiceBalances;
+            this.accountBalance = accountBalance;
+            this.accountCBA = accountCBA;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2014-2019 Groupon, Inc
+ * Copyright 2014-2019 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.invoice.dao;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import javax.annotation.Nullable;
+
+import org.joda.time.DateTime;
+
+// Materialized raw balance of an invoice (see InvoiceModelDaoHelper#getRawBalanceForRegularInvoice)
+public class InvoiceBalanceModelDao {
+
+    private final UUID invoiceId;
+    private final BigDecimal balance;
+    private final BigDecimal parentBalance;
+    private final boolean inAccountBalance;
+    private final boolean writtenOff;
+    private final BigDecimal cba;
+    private final DateTime updatedDate;
+
+    public InvoiceBalanceModelDao(final UUID invoiceId, final BigDecimal balance, @Nullable final BigDecimal parentBalance, final boolean inAccountBalance,
+                                  final boolean writtenOff, final BigDecimal cba, final DateTime updatedDate) {
+        this.invoiceId = invoiceId;
+        this.balance = balance;
+        this.parentBalance = parentBalance;
+        this.inAccountBalance = inAccountBalance;
+        this.writtenOff = writtenOff;
+        this.cba = cba;
+        this.updatedDate = updatedDate;
+    }
+
+    public UUID getInvoiceId() {
+        return invoiceId;
+    }
+
+    public BigDecimal getBalance() {
+        return balance;
+    }
+
+    // Raw balance of the parent invoice, if any
+    public BigDecimal getParentBalance() {
+        return parentBalance;
+    }
+
+    // Whether the invoice contributes to the account balance, WRITTEN_OFF aside (COMMITTED, and the parent invoice, if any, has not been paid)
+    public boolean isInAccountBalance() {
+        return inAccountBalance;
+    }
+
+    // WRITTEN_OFF state used for the materialized account balance (the tags are re-applied at read time, see InvoiceBalanceDao)
+    public boolean isWrittenOff() {
+        return writtenOff;
+    }
+
+    // Contribution of the invoice to the account CBA (CBA_ADJ items of COMMITTED invoices, see InvoiceItemSqlDao#getAccountCBA)
+    public BigDecimal getCba() {
+        return cba;
+    }
+
+    // Contribution of the invoice to the materialized account balance
+    public BigDecimal getAccountBalanceContribution() {
+        return inAccountBalance && !writtenOff ? balance : BigDecimal.ZERO;
+    }
+
+    public DateTime getUpdatedDate() {
+        return updatedDate;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("InvoiceBalanceModelDao{");
+        sb.append("invoiceId=").append(invoiceId);
+        sb.append(", balance=").append(balance);
+        sb.append(", parentBalance=").append(parentBalance);
+        sb.append(", inAccountBalance=").append(inAccountBalance);
+        sb.append(", writtenOff=").append(writtenOff);
+        sb.append(", cba=").append(cba);
+        sb.append(", updatedDate=").append(updatedDate);
+        sb.append('}');
+        return sb.toString();
+    }
+}
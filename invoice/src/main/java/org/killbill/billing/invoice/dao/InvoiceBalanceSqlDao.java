@@ -0,0 +1,122 @@
+/*
+ * Copyright 2014-2019 Groupon, Inc
+ * Copyright 2014-2019 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.invoice.dao;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+import org.killbill.billing.callcontext.InternalTenantContext;
+import org.killbill.billing.invoice.dao.InvoiceBalanceSqlDao.AccountBalanceModelDaoMapper;
+import org.killbill.billing.invoice.dao.InvoiceBalanceSqlDao.InvoiceBalanceModelDaoMapper;
+import org.killbill.billing.util.dao.MapperBase;
+import org.killbill.commons.jdbi.binder.SmartBindBean;
+import org.killbill.commons.jdbi.template.KillBillSqlDaoStringTemplate;
+import org.skife.jdbi.v2.StatementContext;
+import org.skife.jdbi.v2.sqlobject.Bind;
+import org.skife.jdbi.v2.sqlobject.SqlQuery;
+import org.skife.jdbi.v2.sqlobject.SqlUpdate;
+import org.skife.jdbi.v2.sqlobject.customizers.RegisterMapper;
+import org.skife.jdbi.v2.tweak.ResultSetMapper;
+import org.skife.jdbi.v2.unstable.BindIn;
+
+// Not an EntitySqlDao: these tables are derived from invoices, items and payments, and are neither audited nor cached
+@KillBillSqlDaoStringTemplate
+@RegisterMapper({InvoiceBalanceModelDaoMapper.class, AccountBalanceModelDaoMapper.class})
+public interface InvoiceBalanceSqlDao {
+
+    @SqlQuery
+    public List<InvoiceBalanceModelDao> getInvoiceBalances(@SmartBindBean final InternalTenantContext context);
+
+    @SqlQuery
+    public List<InvoiceBalanceModelDao> getInvoiceBalancesByIds(@BindIn("invoiceIds") final Collection<String> invoiceIds,
+                                                               @SmartBindBean final InternalTenantContext context);
+
+    @SqlUpdate
+    public int updateInvoiceBalance(@Bind("invoiceId") final String invoiceId,
+                                    @Bind("balance") final BigDecimal balance,
+                                    @Bind("parentBalance") final BigDecimal parentBalance,
+                                    @Bind("inAccountBalance") final boolean inAccountBalance,
+                                    @Bind("writtenOff") final boolean writtenOff,
+                                    @Bind("cba") final BigDecimal cba,
+                                    @Bind("updatedDate") final Date updatedDate,
+                                    @SmartBindBean final InternalTenantContext context);
+
+    @SqlUpdate
+    public void createInvoiceBalance(@Bind("invoiceId") final String invoiceId,
+                                     @Bind("balance") final BigDecimal balance,
+                                     @Bind("parentBalance") final BigDecimal parentBalance,
+                                     @Bind("inAccountBalance") final boolean inAccountBalance,
+                                     @Bind("writtenOff") final boolean writtenOff,
+                                     @Bind("cba") final BigDecimal cba,
+                                     @Bind("updatedDate") final Date updatedDate,
+                                     @SmartBindBean final InternalTenantContext context);
+
+    @SqlUpdate
+    public int deleteInvoiceBalance(@Bind("invoiceId") final String invoiceId,
+                                    @SmartBindBean final InternalTenantContext context);
+
+    @SqlQuery
+    public AccountBalanceModelDao getAccountBalance(@SmartBindBean final InternalTenantContext context);
+
+    @SqlUpdate
+    public int updateAccountBalance(@Bind("balance") final BigDecimal balance,
+                                    @Bind("cba") final BigDecimal cba,
+                                    @Bind("updatedDate") final Date updatedDate,
+                                    @SmartBindBean final InternalTenantContext context);
+
+    // Deltas are applied in the database, so that concurrent transactions don't overwrite each other's changes
+    @SqlUpdate
+    public int applyAccountBalanceDelta(@Bind("balanceDelta") final BigDecimal balanceDelta,
+                                        @Bind("cbaDelta") final BigDecimal cbaDelta,
+                                        @Bind("updatedDate") final Date updatedDate,
+                                        @SmartBindBean final InternalTenantContext context);
+
+    @SqlUpdate
+    public void createAccountBalance(@Bind("balance") final BigDecimal balance,
+                                     @Bind("cba") final BigDecimal cba,
+                                     @Bind("updatedDate") final Date updatedDate,
+                                     @SmartBindBean final InternalTenantContext context);
+
+    public static class InvoiceBalanceModelDaoMapper extends MapperBase implements ResultSetMapper<InvoiceBalanceModelDao> {
+
+        @Override
+        public InvoiceBalanceModelDao map(final int index, final ResultSet r, final StatementContext ctx) throws SQLException {
+            return new InvoiceBalanceModelDao(getUUID(r, "invoice_id"),
+                                              r.getBigDecimal("balance"),
+                                              r.getBigDecimal("parent_balance"),
+                                              r.getBoolean("in_account_balance"),
+                                              r.getBoolean("written_off"),
+                                              r.getBigDecimal("cba"),
+                                              getDateTime(r, "updated_date"));
+        }
+    }
+
+    public static class AccountBalanceModelDaoMapper extends MapperBase implements ResultSetMapper<AccountBalanceModelDao> {
+
+        @Override
+        public AccountBalanceModelDao map(final int index, final ResultSet r, final StatementContext ctx) throws SQLException {
+            return new AccountBalanceModelDao(r.getBigDecimal("balance"),
+                                              r.getBigDecimal("cba"),
+                                              getDateTime(r, "updated_date"));
+        }
+    }
+}
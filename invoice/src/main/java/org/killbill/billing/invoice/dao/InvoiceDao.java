@@ -19,6 +19,7 @@
 package org.killbill.billing.invoice.dao;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -26,12 +27,14 @@ import java.util.UUID;
 
 import javax.annotation.Nullable;
 
+import org.joda.time.DateTime;
 import org.joda.time.LocalDate;
 import org.killbill.billing.account.api.Account;
 import org.killbill.billing.callcontext.InternalCallContext;
 import org.killbill.billing.callcontext.InternalTenantContext;
 import org.killbill.billing.catalog.api.Currency;
 import org.killbill.billing.invoice.InvoiceDispatcher.FutureAccountNotifications;
+import org.killbill.billing.invoice.api.AccountBalanceLedger;
 import org.killbill.billing.invoice.api.Invoice;
 import org.killbill.billing.invoice.api.InvoiceApiException;
 import org.killbill.billing.invoice.api.InvoiceStatus;
@@ -166,6 +169,25 @@ public interface InvoiceDao extends EntityDao<InvoiceModelDao, Invoice, InvoiceA
      */
     void changeInvoiceStatus(UUID invoiceId, InvoiceStatus newState, InternalCallContext context) throws InvoiceApiException;
 
+    /**
+     * Commit a parent invoice, without refreshing the balances of its child accounts
+     *
+     * @param parentInvoiceId the parent invoice id
+     * @param context the call context of the parent account
+     * @return the child invoices whose balances need to be refreshed, per child account id
+     * @throws InvoiceApiException if any unexpected error occurs
+     */
+    Map<UUID, Collection<UUID>> commitParentInvoice(UUID parentInvoiceId, InternalCallContext context) throws InvoiceApiException;
+
+    /**
+     * Refresh the materialized balances of a child account, e.g. after its parent invoice has been committed
+     *
+     * @param childAccountId  the child account id
+     * @param childInvoiceIds the child invoices to refresh
+     * @param parentContext   the call context of the parent account
+     */
+    void refreshChildAccountBalance(UUID childAccountId, Collection<UUID> childInvoiceIds, InternalCallContext parentContext);
+
     /**
      * Save parent/child invoice relationship
      *
@@ -226,4 +248,53 @@ public interface InvoiceDao extends EntityDao<InvoiceModelDao, Invoice, InvoiceA
 
     List<InvoiceTrackingModelDao> getTrackingsByDateRange(LocalDate startDate, LocalDate endDate, InternalCallContext context);
 
+    /**
+     * Recompute the materialized invoice and account balances from scratch
+     *
+     * @param context the call context of the account
+     */
+    void refreshAccountBalances(InternalCallContext context);
+
+    /**
+     * Refresh the materialized balance of an invoice (and the account balances accordingly), e.g. after a WRITTEN_OFF tag change
+     *
+     * @param invoiceId the invoice id
+     * @param context   the call context of the account
+     */
+    void refreshInvoiceBalance(UUID invoiceId, InternalCallContext context);
+
+    /**
+     * Compare the materialized invoice and account balances against balances recomputed from scratch
+     *
+     * @param accountId the account id
+     * @param context   the tenant context
+     * @return the verification report
+     */
+    AccountBalanceLedger verifyAccountBalances(UUID accountId, InternalTenantContext context);
+
+    /**
+     * Move the closed invoices of the account older than the horizon (with their items and payments) to the archive tables.
+     * The credit of these invoices is carried forward in the archive summary of the account.
+     *
+     * @param horizonDate         only invoices (and items) before that date are archived
+     * @param paymentActivityDate invoices with payments on or after that date are not archived, as these payments can still be refunded or charged back
+     * @param context             the call context of the account
+     * @return the ids of the archived invoices
+     */
+    List<UUID> archiveInvoices(LocalDate horizonDate, DateTime paymentActivityDate, InternalCallContext context);
+
+    List<InvoiceModelDao> getArchivedInvoices(InternalTenantContext context);
+
+    /**
+     * Retrieve the archived RECURRING, USAGE and FIXED items of the specified subscriptions which could overlap with items starting on or after fromDate.
+     *
+     * @param subscriptionIds the subscriptions of the proposed items
+     * @param fromDate        the earliest start date of the proposed items
+     * @param context         the tenant context of the account
+     * @return the archived items
+     */
+    List<InvoiceItemModelDao> getArchivedPeriodItems(Collection<UUID> subscriptionIds, LocalDate fromDate, InternalTenantContext context);
+
+    InvoiceArchiveSummaryModelDao getArchiveSummary(InternalTenantContext context);
+
 }
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2014-2019 Groupon, Inc
+ * Copyright 2014-2019 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.invoice.dao;
+
+import java.sql.Connection;
+import java.util.UUID;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import org.killbill.billing.util.entity.dao.DBRouter;
+import org.killbill.clock.Clock;
+import org.skife.jdbi.v2.Handle;
+import org.skife.jdbi.v2.IDBI;
+import org.skife.jdbi.v2.TransactionCallback;
+import org.skife.jdbi.v2.TransactionStatus;
+
+import static org.killbill.billing.util.glue.IDBISetup.MAIN_RO_IDBI_NAMED;
+
+public class ParkedAccountsJobDao {
+
+    // Used to record the job notifications in the same transaction as the job state change
+    public interface ConnectionCallback {
+
+        void withConnection(Connection connection) throws Exception;
+    }
+
+    private final DBRouter<ParkedAccountsJobSqlDao> dbRouter;
+    private final Clock clock;
+
+    @Inject
+    public ParkedAccountsJobDao(final IDBI dbi, @Named(MAIN_RO_IDBI_NAMED) final IDBI roDbi, final Clock clock) {
+        this.dbRouter = new DBRouter<ParkedAccountsJobSqlDao>(dbi, roDbi, ParkedAccountsJobSqlDao.class);
+        this.clock = clock;
+    }
+
+    public void create(final ParkedAccountsJobModelDao job, final ConnectionCallback callback) {
+        dbRouter.inTransaction(false, new TransactionCallback<Void>() {
+            @Override
+            public Void inTransaction(final Handle handle, final TransactionStatus status) throws Exception {
+                handle.attach(ParkedAccountsJobSqlDao.class).create(job);
+                callback.withConnection(handle.getConnection());
+                return null;
+            }
+        });
+    }
+
+    public ParkedAccountsJobModelDao getById(final UUID jobId, final Long tenantRecordId) {
+        // Progress is polled while workers update it: always read from the master
+        return dbRouter.inTransaction(false, new TransactionCallback<ParkedAccountsJobModelDao>() {
+            @Override
+            public ParkedAccountsJobModelDao inTransaction(final Handle handle, final TransactionStatus status) throws Exception {
+                return handle.attach(ParkedAccountsJobSqlDao.class).getById(jobId.toString(), tenantRecordId);
+            }
+        });
+    }
+
+    /**
+     * Advance the enumeration cursor of a job, and record the chunk of the page (if it has any account to process).
+     *
+     * @return false if the cursor was already moved past fromRecordId (i.e. the page has already been recorded), in which case the callback isn't invoked
+     */
+    public boolean recordEnumeratedPage(final UUID jobId, final Long fromRecordId, final Long lastEnumeratedRecordId, final int nbAccounts, final boolean enumerationCompleted,
+                                        final ConnectionCallback callback, final Long tenantRecordId) {
+        return dbRouter.inTransaction(false, new TransactionCallback<Boolean>() {
+            @Override
+            public Boolean inTransaction(final Handle handle, final TransactionStatus status) throws Exception {
+                final ParkedAccountsJobSqlDao sqlDao = handle.attach(ParkedAccountsJobSqlDao.class);
+                final int updated = sqlDao.recordEnumeratedPage(jobId.toString(), fromRecordId, lastEnumeratedRecordId, nbAccounts, enumerationCompleted, clock.getUTCNow().toDate(), tenantRecordId);
+                if (updated != 1) {
+                    return false;
+                }
+                if (nbAccounts > 0) {
+                    sqlDao.createChunk(jobId.toString(), fromRecordId, clock.getUTCNow().toDate(), tenantRecordId);
+                }
+
+                callback.withConnection(handle.getConnection());
+                if (enumerationCompleted) {
+                    // Nothing left to process (empty last page, or all chunks already processed)
+                    sqlDao.completeIfDone(jobId.toString(), clock.getUTCNow().toDate(), tenantRecordId);
+                }
+                return true;
+            }
+        });
+    }
+
+    /**
+     * Add the outcome of a processed chunk to the job counters.
+     *
+     * @return false if the chunk starting after fromRecordId was already recorded (i.e. redelivered process notification), in which case the counters aren't updated
+     */
+    public boolean recordProcessedAccounts(final UUID jobId, final Long fromRecordId, final int nbSucceeded, final int nbNothingToDo, final int nbFailed, final Long tenantRecordId) {
+        return dbRouter.inTransaction(false, new TransactionCallback<Boolean>() {
+            @Override
+            public Boolean inTransaction(final Handle handle, final TransactionStatus status) throws Exception {
+                final ParkedAccountsJobSqlDao sqlDao = handle.attach(ParkedAccountsJobSqlDao.class);
+                final int updated = sqlDao.markChunkProcessed(jobId.toString(), fromRecordId, clock.getUTCNow().toDate(), tenantRecordId);
+                if (updated != 1) {
+                    return false;
+                }
+
+                sqlDao.recordProcessedAccounts(jobId.toString(), nbSucceeded, nbNothingToDo, nbFailed, clock.getUTCNow().toDate(), tenantRecordId);
+                sqlDao.completeIfDone(jobId.toString(), clock.getUTCNow().toDate(), tenantRecordId);
+                return true;
+            }
+        });
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2014-2019 Groupon, Inc
+ * Copyright 2014-2019 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.invoice.dao;
+
+import java.util.UUID;
+
+import org.joda.time.DateTime;
+
+public class ParkedAccountsJobModelDao {
+
+    public enum ParkedAccountsJobState {
+        RUNNING,
+        COMPLETED
+    }
+
+    private Long recordId;
+    private UUID id;
+    private ParkedAccountsJobState state;
+    private boolean enumerationCompleted;
+    private Long lastEnumeratedRecordId;
+    private int nbAccounts;
+    private int nbProcessed;
+    private int nbSucceeded;
+    private int nbNothingToDo;
+    private int nbFailed;
+    private String createdBy;
+    private DateTime createdDate;
+    private DateTime updatedDate;
+    private DateTime completedDate;
+    private Long tenantRecordId;
+
+    public ParkedAccountsJobModelDao() { /* For the DAO mapper */ }
+
+    public ParkedAccountsJobModelDao(final UUID id, final String createdBy, final DateTime createdDate, final Long tenantRecordId) {
+        this.id = id;
+        this.state = ParkedAccountsJobState.RUNNING;
+        this.enumerationCompleted = false;
+        this.lastEnumeratedRecordId = 0L;
+        this.createdBy = createdBy;
+        this.createdDate = createdDate;
+        this.updatedDate = createdDate;
+        this.tenantRecordId = tenantRecordId;
+    }
+
+    public Long getRecordId() {
+        return recordId;
+    }
+
+    public void setRecordId(final Long recordId) {
+        this.recordId = recordId;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public void setId(final UUID id) {
+        this.id = id;
+    }
+
+    public ParkedAccountsJobState getState() {
+        return state;
+    }
+
+    public void setState(final ParkedAccountsJobState state) {
+        this.state = state;
+    }
+
+    public boolean isEnumerationCompleted() {
+        return enumerationCompleted;
+    }
+
+    public void setEnumerationCompleted(final boolean enumerationCompleted) {
+        this.enumerationCompleted = enumerationCompleted;
+    }
+
+    public Long getLastEnumeratedRecordId() {
+        return lastEnumeratedRecordId;
+    }
+
+    public void setLastEnumeratedRecordId(final Long lastEnumeratedRecordId) {
+        this.lastEnumeratedRecordId = lastEnumeratedRecordId;
+    }
+
+    public int getNbAccounts() {
+        return nbAccounts;
+    }
+
+    public void setNbAccounts(final int nbAccounts) {
+        this.nbAccounts = nbAccounts;
+    }
+
+    public int getNbProcessed() {
+        return nbProcessed;
+    }
+
+    public void setNbProcessed(final int nbProcessed) {
+        this.nbProcessed = nbProcessed;
+    }
+
+    public int getNbSucceeded() {
+        return nbSucceeded;
+    }
+
+    public void setNbSucceeded(final int nbSucceeded) {
+        this.nbSucceeded = nbSucceeded;
+    }
+
+    public int getNbNothingToDo() {
+        return nbNothingToDo;
+    }
+
+    public void setNbNothingToDo(final int nbNothingToDo) {
+        this.nbNothingToDo = nbNothingToDo;
+    }
+
+    public int getNbFailed() {
+        return nbFailed;
+    }
+
+    public void setNbFailed(final int nbFailed) {
+        this.nbFailed = nbFailed;
+    }
+
+    public String getCreatedBy() {
+        return createdBy;
+    }
+
+    public void setCreatedBy(final String createdBy) {
+        this.createdBy = createdBy;
+    }
+
+    public DateTime getCreatedDate() {
+        return createdDate;
+    }
+
+    public void setCreatedDate(final DateTime createdDate) {
+        this.createdDate = createdDate;
+    }
+
+    public DateTime getUpdatedDate() {
+        return updatedDate;
+    }
+
+    public void setUpdatedDate(final DateTime updatedDate) {
+        this.updatedDate = updatedDate;
+    }
+
+    public DateTime getCompletedDate() {
+        return completedDate;
+    }
+
+    public void setCompletedDate(final DateTime completedDate) {
+        this.completedDate = completedDate;
+    }
+
+    public Long getTenantRecordId() {
+        return tenantRecordId;
+    }
+
+    public void setTenantRecordId(final Long tenantRecordId) {
+        this.tenantRecordId = tenantRecordId;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("ParkedAccountsJobModelDao{");
+        sb.append("recordId=").append(recordId);
+        sb.append(", id=").append(id);
+        sb.append(", state=").append(state);
+        sb.append(", enumerationCompleted=").append(enumerationCompleted);
+        sb.append(", lastEnumeratedRecordId=").append(lastEnumeratedRecordId);
+        sb.append(", nbAccounts=").append(nbAccounts);
+        sb.append(", nbProcessed=").append(nbProcessed);
+        sb.append(", nbSucceeded=").append(nbSucceeded);
+        sb.append(", nbNothingToDo=").append(nbNothingToDo);
+        sb.append(", nbFailed=").append(nbFailed);
+        sb.append(", createdDate=").append(createdDate);
+        sb.append(", updatedDate=").append(updatedDate);
+        sb.append(", completedDate=").append(completedDate);
+        sb.append(", tenantRecordId=").append(tenantRecordId);
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2014-2019 Groupon, Inc
+ * Copyright 2014-2019 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.invoice.dao;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Date;
+
+import org.killbill.billing.invoice.dao.ParkedAccountsJobModelDao.ParkedAccountsJobState;
+import org.killbill.billing.invoice.dao.ParkedAccountsJobSqlDao.ParkedAccountsJobModelDaoMapper;
+import org.killbill.billing.util.dao.MapperBase;
+import org.killbill.commons.jdbi.binder.SmartBindBean;
+import org.killbill.commons.jdbi.template.KillBillSqlDaoStringTemplate;
+import org.skife.jdbi.v2.StatementContext;
+import org.skife.jdbi.v2.sqlobject.Bind;
+import org.skife.jdbi.v2.sqlobject.SqlQuery;
+import org.skife.jdbi.v2.sqlobject.SqlUpdate;
+import org.skife.jdbi.v2.sqlobject.customizers.RegisterMapper;
+import org.skife.jdbi.v2.tweak.ResultSetMapper;
+
+@KillBillSqlDaoStringTemplate
+@RegisterMapper(ParkedAccountsJobModelDaoMapper.class)
+public interface ParkedAccountsJobSqlDao {
+
+    @SqlUpdate
+    public void create(@SmartBindBean final ParkedAccountsJobModelDao job);
+
+    @SqlQuery
+    public ParkedAccountsJobModelDao getById(@Bind("id") final String id,
+                                             @Bind("tenantRecordId") final Long tenantRecordId);
+
+    // Only moves the cursor forward, so that a redelivered enumeration notification cannot count a page twice
+    @SqlUpdate
+    public int recordEnumeratedPage(@Bind("id") final String id,
+                                    @Bind("fromRecordId") final Long fromRecordId,
+                                    @Bind("lastEnumeratedRecordId") final Long lastEnumeratedRecordId,
+                                    @Bind("nbAccounts") final int nbAccounts,
+                                    @Bind("enumerationCompleted") final boolean enumerationCompleted,
+                                    @Bind("updatedDate") final Date updatedDate,
+                                    @Bind("tenantRecordId") final Long tenantRecordId);
+
+    @SqlUpdate
+    public void createChunk(@Bind("id") final String id,
+                            @Bind("fromRecordId") final Long fromRecordId,
+                            @Bind("updatedDate") final Date updatedDate,
+                            @Bind("tenantRecordId") final Long tenantRecordId);
+
+    // Only succeeds once per chunk, so that a redelivered process notification cannot count its accounts twice
+    @SqlUpdate
+    public int markChunkProcessed(@Bind("id") final String id,
+                                  @Bind("fromRecordId") final Long fromRecordId,
+                                  @Bind("updatedDate") final Date updatedDate,
+                                  @Bind("tenantRecordId") final Long tenantRecordId);
+
+    @SqlUpdate
+    public void recordProcessedAccounts(@Bind("id") final String id,
+                                        @Bind("nbSucceeded") final int nbSucceeded,
+                                        @Bind("nbNothingToDo") final int nbNothingToDo,
+                                        @Bind("nbFailed") final int nbFailed,
+                                        @Bind("updatedDate") final Date updatedDate,
+                                        @Bind("tenantRecordId") final Long tenantRecordId);
+
+    @SqlUpdate
+    public int completeIfDone(@Bind("id") final String id,
+                              @Bind("completedDate") final Date completedDate,
+                              @Bind("tenantRecordId") final Long tenantRecordId);
+
+    public static class ParkedAccountsJobModelDaoMapper extends MapperBase implements ResultSetMapper<ParkedAccountsJobModelDao> {
+
+        @Override
+        public ParkedAccountsJobModelDao map(final int index, final ResultSet r, final StatementContext ctx) throws SQLException {
+            final ParkedAccountsJobModelDao job = new ParkedAccountsJobModelDao();
+            job.setRecordId(r.getLong("record_id"));
+            job.setId(getUUID(r, "id"));
+            job.setState(ParkedAccountsJobState.valueOf(r.getString("state")));
+            job.setEnumerationCompleted(r.getBoolean("enumeration_completed"));
+            job.setLastEnumeratedRecordId(r.getLong("last_enumerated_record_id"));
+            job.setNbAccounts(r.getInt("nb_accounts"));
+            job.setNbProcessed(r.getInt("nb_processed"));
+            job.setNbSucceeded(r.getInt("nb_succeeded"));
+            job.setNbNothingToDo(r.getInt("nb_nothing_to_do"));
+            job.setNbFailed(r.getInt("nb_failed"));
+            job.setCreatedBy(r.getString("created_by"));
+            job.setCreatedDate(getDateTime(r, "created_date"));
+            job.setUpdatedDate(getDateTime(r, "updated_date"));
+            job.setCompletedDate(getDateTime(r, "completed_date"));
+            job.setTenantRecordId(r.getLong("tenant_record_id"));
+            return job;
+        }
+    }
+}
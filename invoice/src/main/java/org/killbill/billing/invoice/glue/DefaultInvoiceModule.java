@@ -22,30 +22,45 @@ import org.killbill.billing.glue.InvoiceModule;
 import org.killbill.billing.invoice.InvoiceDispatcher;
 import org.killbill.billing.invoice.InvoiceListener;
 import org.killbill.billing.invoice.InvoiceTagHandler;
+import org.killbill.billing.invoice.InvoiceTriggerCoalescer;
+import org.killbill.billing.invoice.ParkedAccountsJobProcessor;
 import org.killbill.billing.invoice.ParkedAccountsManager;
+import org.killbill.billing.invoice.ParentInvoiceCommitPipeline;
+import org.killbill.billing.invoice.api.AccountBalanceLedgerInternalApi;
+import org.killbill.billing.invoice.api.BillRunLoadInternalApi;
 import org.killbill.billing.invoice.api.DefaultInvoiceService;
 import org.killbill.billing.invoice.api.InvoiceApiHelper;
+import org.killbill.billing.invoice.api.InvoiceArchivalInternalApi;
 import org.killbill.billing.invoice.api.InvoiceInternalApi;
 import org.killbill.billing.invoice.api.InvoiceListenerService;
 import org.killbill.billing.invoice.api.InvoiceService;
 import org.killbill.billing.invoice.api.InvoiceUserApi;
+import org.killbill.billing.invoice.api.ParkedAccountsJobInternalApi;
 import org.killbill.billing.invoice.api.formatters.InvoiceFormatterFactory;
 import org.killbill.billing.invoice.api.formatters.ResourceBundleFactory;
+import org.killbill.billing.invoice.api.svcs.DefaultAccountBalanceLedgerInternalApi;
+import org.killbill.billing.invoice.api.svcs.DefaultBillRunLoadInternalApi;
+import org.killbill.billing.invoice.api.svcs.DefaultInvoiceArchivalInternalApi;
 import org.killbill.billing.invoice.api.svcs.DefaultInvoiceInternalApi;
+import org.killbill.billing.invoice.api.svcs.DefaultParkedAccountsJobInternalApi;
 import org.killbill.billing.invoice.api.user.DefaultInvoiceUserApi;
 import org.killbill.billing.invoice.config.MultiTenantInvoiceConfig;
 import org.killbill.billing.invoice.dao.CBADao;
 import org.killbill.billing.invoice.dao.DefaultInvoiceDao;
+import org.killbill.billing.invoice.dao.InvoiceBalanceDao;
 import org.killbill.billing.invoice.dao.InvoiceDao;
 import org.killbill.billing.invoice.dao.InvoiceDaoHelper;
+import org.killbill.billing.invoice.dao.ParkedAccountsJobDao;
 import org.killbill.billing.invoice.generator.DefaultInvoiceGenerator;
 import org.killbill.billing.invoice.generator.FixedAndRecurringInvoiceItemGenerator;
 import org.killbill.billing.invoice.generator.InvoiceGenerator;
 import org.killbill.billing.invoice.generator.UsageInvoiceItemGenerator;
+import org.killbill.billing.invoice.notification.BillRunSmoothingPolicy;
 import org.killbill.billing.invoice.notification.DefaultNextBillingDateNotifier;
 import org.killbill.billing.invoice.notification.DefaultNextBillingDatePoster;
 import org.killbill.billing.invoice.notification.NextBillingDateNotifier;
 import org.killbill.billing.invoice.notification.NextBillingDatePoster;
+import org.killbill.billing.invoice.notification.ParkedAccountsJobNotifier;
 import org.killbill.billing.invoice.plugin.api.InvoicePluginApi;
 import org.killbill.billing.invoice.template.bundles.DefaultResourceBundleFactory;
 import org.killbill.billing.invoice.usage.RawUsageOptimizer;
@@ -71,6 +86,8 @@ public class DefaultInvoiceModule extends KillBillModule implements InvoiceModul
         bind(InvoiceDao.class).to(DefaultInvoiceDao.class).asEagerSingleton();
         bind(InvoiceDaoHelper.class).asEagerSingleton();
         bind(CBADao.class).asEagerSingleton();
+        bind(InvoiceBalanceDao.class).asEagerSingleton();
+        bind(ParkedAccountsJobDao.class).asEagerSingleton();
     }
 
     @Override
@@ -81,6 +98,10 @@ public class DefaultInvoiceModule extends KillBillModule implements InvoiceModul
     @Override
     public void installInvoiceInternalApi() {
         bind(InvoiceInternalApi.class).to(DefaultInvoiceInternalApi.class).asEagerSingleton();
+        bind(ParkedAccountsJobInternalApi.class).to(DefaultParkedAccountsJobInternalApi.class).asEagerSingleton();
+        bind(AccountBalanceLedgerInternalApi.class).to(DefaultAccountBalanceLedgerInternalApi.class).asEagerSingleton();
+        bind(InvoiceArchivalInternalApi.class).to(DefaultInvoiceArchivalInternalApi.class).asEagerSingleton();
+        bind(BillRunLoadInternalApi.class).to(DefaultBillRunLoadInternalApi.class).asEagerSingleton();
     }
 
     protected void installConfig() {
@@ -106,12 +127,14 @@ public class DefaultInvoiceModule extends KillBillModule implements InvoiceModul
     protected void installNotifiers() {
         bind(NextBillingDateNotifier.class).to(DefaultNextBillingDateNotifier.class).asEagerSingleton();
         bind(NextBillingDatePoster.class).to(DefaultNextBillingDatePoster.class).asEagerSingleton();
+        bind(BillRunSmoothingPolicy.class).asEagerSingleton();
         final TranslatorConfig config = new ConfigurationObjectFactory(skifeConfigSource).build(TranslatorConfig.class);
         bind(TranslatorConfig.class).toInstance(config);
         bind(InvoiceFormatterFactory.class).to(config.getInvoiceFormatterFactoryClass()).asEagerSingleton();
     }
 
     protected void installInvoiceDispatcher() {
+        bind(InvoiceTriggerCoalescer.class).asEagerSingleton();
         bind(InvoiceDispatcher.class).asEagerSingleton();
     }
 
@@ -151,5 +174,8 @@ public class DefaultInvoiceModule extends KillBillModule implements InvoiceModul
         bind(RawUsageOptimizer.class).asEagerSingleton();
         bind(InvoiceApiHelper.class).asEagerSingleton();
         bind(ParkedAccountsManager.class).asEagerSingleton();
+        bind(ParkedAccountsJobProcessor.class).asEagerSingleton();
+        bind(ParkedAccountsJobNotifier.class).asEagerSingleton();
+        bind(ParentInvoiceCommitPipeline.class).asEagerSingleton();
     }
 }
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2014-2019 Groupon, Inc
+ * Copyright 2014-2019 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.killbill.billing.invoice.model;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.UUID;
+
+import javax.annotation.Nullable;
+
+import org.joda.time.DateTime;
+import org.killbill.billing.invoice.api.AccountBalanceLedger;
+import org.killbill.billing.invoice.dao.AccountBalanceModelDao;
+
+public class DefaultAccountBalanceLedger implements AccountBalanceLedger {
+
+    private final UUID accountId;
+    private final AccountBalanceModelDao materializedAccountBalance;
+    private final BigDecimal computedBalance;
+    private final BigDecimal computedCBA;
+    private final Map<UUID, BigDecimal> driftedMaterializedInvoiceBalances;
+    private final Map<UUID, BigDecimal> driftedComputedInvoiceBalances;
+
+    public DefaultAccountBalanceLedger(final UUID accountId,
+                                       @Nullable final AccountBalanceModelDao materializedAccountBalance,
+                                       final BigDecimal computedBalance,
+                                       final BigDecimal computedCBA,
+                                       final Map<UUID, BigDecimal> driftedMaterializedInvoiceBalances,
+                                       final Map<UUID, BigDecimal> driftedComputedInvoiceBalances) {
+        this.accountId = accountId;
+        this.materializedAccountBalance = materializedAccountBalance;
+        this.computedBalance = computedBalance;
+        this.computedCBA = computedCBA;
+        this.driftedMaterializedInvoiceBalances = driftedMaterializedInvoiceBalances;
+        this.driftedComputedInvoiceBalances = driftedComputedInvoiceBalances;
+    }
+
+    @Override
+    public UUID getAccountId() {
+        return accountId;
+    }
+
+    @Override
+    public BigDecimal getMaterializedBalance() {
+        return materializedAccountBalance == null ? null : materializedAccountBalance.getBalance();
+    }
+
+    @Override
+    public BigDecimal getComputedBalance() {
+        return computedBalance;
+    }
+
+    @Override
+    public BigDecimal getMaterializedCBA() {
+        return materializedAccountBalance == null ? null : materializedAccountBalance.getCba();
+    }
+
+    @Override
+    public BigDecimal getComputedCBA() {
+        return computedCBA;
+    }
+
+    @Override
+    public Map<UUID, BigDecimal> getDriftedMaterializedInvoiceBalances() {
+        return driftedMaterializedInvoiceBalances;
+    }
+
+    @Override
+    public Map<UUID, BigDecimal> getDriftedComputedInvoiceBalances() {
+        return driftedComputedInvoiceBalances;
+    }
+
+    @Override
+    public DateTime getMaterializedDate() {
+        return materializedAccountBalance == null ? null : materializedAccountBalance.getUpdatedDate();
+    }
+
+    @Override
+    public boolean hasDrift() {
+        return materializedAccountBalance == null ||
+               materializedAccountBalance.getBalance().compareTo(computedBalance) != 0 ||
+               materializedAccountBalance.getCba().compareTo(computedCBA) != 0 ||
+               !driftedComputedInvoiceBalances.isEmpty();
+    }
+}
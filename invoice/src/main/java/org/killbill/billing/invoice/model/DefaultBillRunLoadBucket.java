@@ -0,0 +1,67 @@
+/*
+ * Copyright 2014-2019 Groupon, Inc
+ * Copyright 2014-2019 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.invoice.model;
+
+import org.joda.time.DateTime;
+import org.killbill.billing.invoice.api.BillRunLoadBucket;
+
+public class DefaultBillRunLoadBucket implements BillRunLoadBucket {
+
+    private final DateTime startDate;
+    private final DateTime endDate;
+    private final int nbNotifications;
+    private final int nbAccounts;
+
+    public DefaultBillRunLoadBucket(final DateTime startDate, final DateTime endDate, final int nbNotifications, final int nbAccounts) {
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.nbNotifications = nbNotifications;
+        this.nbAccounts = nbAccounts;
+    }
+
+    @Override
+    public DateTime getStartDate() {
+        return startDate;
+    }
+
+    @Override
+    public DateTime getEndDate() {
+        return endDate;
+    }
+
+    @Override
+    public int getNbNotifications() {
+        return nbNotifications;
+    }
+
+    @Override
+    public int getNbAccounts() {
+        return nbAccounts;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("DefaultBillRunLoadBucket{");
+        sb.append("startDate=").append(startDate);
+        sb.append(", endDate=").append(endDate);
+        sb.append(", nbNotifications=").append(nbNotifications);
+        sb.append(", nbAccounts=").append(nbAccounts);
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2014-2019 Groupon, Inc
+ * Copyright 2014-2019 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.invoice.model;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import javax.annotation.Nullable;
+
+import org.joda.time.DateTime;
+import org.joda.time.LocalDate;
+import org.killbill.billing.invoice.api.Invoice;
+import org.killbill.billing.invoice.api.InvoiceArchive;
+import org.killbill.billing.invoice.dao.InvoiceArchiveSummaryModelDao;
+
+public class DefaultInvoiceArchive implements InvoiceArchive {
+
+    private final UUID accountId;
+    private final InvoiceArchiveSummaryModelDao summary;
+    private final List<Invoice> invoices;
+
+    public DefaultInvoiceArchive(final UUID accountId, @Nullable final InvoiceArchiveSummaryModelDao summary, final List<Invoice> invoices) {
+        this.accountId = accountId;
+        this.summary = summary;
+        this.invoices = invoices;
+    }
+
+    @Override
+    public UUID getAccountId() {
+        return accountId;
+    }
+
+    @Override
+    public LocalDate getArchivedUpTo() {
+        return summary == null ? null : summary.getArchivedUpTo();
+    }
+
+    @Override
+    public int getNbInvoices() {
+        return summary == null ? 0 : summary.getNbInvoices();
+    }
+
+    @Override
+    public BigDecimal getBalance() {
+        return summary == null ? BigDecimal.ZERO : summary.getBalance();
+    }
+
+    @Override
+    public BigDecimal getCBA() {
+        return summary == null ? BigDecimal.ZERO : summary.getCba();
+    }
+
+    @Override
+    public DateTime getUpdatedDate() {
+        return summary == null ? null : summary.getUpdatedDate();
+    }
+
+    @Override
+    public List<Invoice> getInvoices() {
+        return invoices;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("DefaultInvoiceArchive{");
+        sb.append("accountId=").append(accountId);
+        sb.append(", summary=").append(summary);
+        sb.append(", nbInvoices=").append(invoices.size());
+        sb.append('}');
+        return sb.toString();
+    }
+}
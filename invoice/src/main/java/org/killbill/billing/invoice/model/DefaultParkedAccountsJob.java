@@ -0,0 +1,97 @@
+/*
+ * Copyright 2014-2019 Groupon, Inc
+ * Copyright 2014-2019 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.invoice.model;
+
+import java.util.UUID;
+
+import org.joda.time.DateTime;
+import org.killbill.billing.invoice.api.ParkedAccountsJob;
+import org.killbill.billing.invoice.dao.ParkedAccountsJobModelDao;
+
+public class DefaultParkedAccountsJob implements ParkedAccountsJob {
+
+    private final ParkedAccountsJobModelDao job;
+    private final DateTime now;
+
+    public DefaultParkedAccountsJob(final ParkedAccountsJobModelDao job, final DateTime now) {
+        this.job = job;
+        this.now = now;
+    }
+
+    @Override
+    public UUID getId() {
+        return job.getId();
+    }
+
+    @Override
+    public String getState() {
+        return job.getState().toString();
+    }
+
+    @Override
+    public boolean isEnumerationCompleted() {
+        return job.isEnumerationCompleted();
+    }
+
+    @Override
+    public int getNbAccounts() {
+        return job.getNbAccounts();
+    }
+
+    @Override
+    public int getNbProcessed() {
+        return job.getNbProcessed();
+    }
+
+    @Override
+    public int getNbSucceeded() {
+        return job.getNbSucceeded();
+    }
+
+    @Override
+    public int getNbNothingToDo() {
+        return job.getNbNothingToDo();
+    }
+
+    @Override
+    public int getNbFailed() {
+        return job.getNbFailed();
+    }
+
+    @Override
+    public DateTime getCreatedDate() {
+        return job.getCreatedDate();
+    }
+
+    @Override
+    public DateTime getUpdatedDate() {
+        return job.getUpdatedDate();
+    }
+
+    @Override
+    public DateTime getCompletedDate() {
+        return job.getCompletedDate();
+    }
+
+    @Override
+    public double getThroughput() {
+        final DateTime end = job.getCompletedDate() != null ? job.getCompletedDate() : now;
+        final long elapsedMs = end.getMillis() - job.getCreatedDate().getMillis();
+        return elapsedMs <= 0 ? 0 : job.getNbProcessed() * 1000.0 / elapsedMs;
+    }
+}
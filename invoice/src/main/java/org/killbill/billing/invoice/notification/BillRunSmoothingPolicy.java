@@ -0,0 +1,73 @@
+/*
+ * Copyright 2014-2019 Groupon, Inc
+ * Copyright 2014-2019 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.invoice.notification;
+
+import java.util.UUID;
+
+import javax.inject.Inject;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.killbill.billing.callcontext.InternalTenantContext;
+import org.killbill.billing.util.config.definition.InvoiceConfig;
+
+/**
+ * Spreads the next billing date notifications of a tenant over a window (org.killbill.invoice.billRun.smoothingWindow),
+ * to avoid all the accounts aligned on the same billing day being invoiced at the same instant.
+ * <p/>
+ * The offset is derived from the account id, so an account is always notified at the same time of its billing day, and
+ * it is bounded so that the notification stays on the same local day: only the notification time changes, the target
+ * date (hence the invoice date and the service periods) remains the billing date.
+ */
+public class BillRunSmoothingPolicy {
+
+    private final InvoiceConfig invoiceConfig;
+
+    @Inject
+    public BillRunSmoothingPolicy(final InvoiceConfig invoiceConfig) {
+        this.invoiceConfig = invoiceConfig;
+    }
+
+    public DateTime getNotificationTime(final UUID accountId, final DateTime billingDateTime, final InternalTenantContext context) {
+        final long windowMillis = invoiceConfig.getBillRunSmoothingWindow(context).getMillis();
+        if (windowMillis <= 0 || accountId == null) {
+            return billingDateTime;
+        }
+
+        final DateTimeZone timeZone = context.getFixedOffsetTimeZone() != null ? context.getFixedOffsetTimeZone() : DateTimeZone.UTC;
+        final DateTime startOfNextDay = billingDateTime.withZone(timeZone).plusDays(1).withTimeAtStartOfDay();
+        final long millisUntilNextDay = startOfNextDay.getMillis() - billingDateTime.getMillis();
+        final long range = Math.min(windowMillis, millisUntilNextDay);
+        if (range <= 1) {
+            return billingDateTime;
+        }
+
+        return billingDateTime.plus(getAccountOffset(accountId, range));
+    }
+
+    static long getAccountOffset(final UUID accountId, final long range) {
+        // Mix the bits (64-bit finalizer of MurmurHash3), as account ids can be close to each other
+        long hash = accountId.getMostSignificantBits() ^ accountId.getLeastSignificantBits();
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return (hash & Long.MAX_VALUE) % range;
+    }
+}
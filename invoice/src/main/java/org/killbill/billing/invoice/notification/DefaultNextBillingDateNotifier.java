@@ -26,6 +26,7 @@ import org.killbill.billing.invoice.api.DefaultInvoiceService;
 import org.killbill.billing.platform.api.KillbillService.KILLBILL_SERVICES;
 import org.killbill.billing.subscription.api.SubscriptionBaseInternalApi;
 import org.killbill.billing.util.callcontext.InternalCallContextFactory;
+import org.killbill.billing.util.metrics.BillingMetrics;
 import org.killbill.clock.Clock;
 import org.killbill.notificationq.api.NotificationEvent;
 import org.killbill.notificationq.api.NotificationQueue;
@@ -46,11 +47,16 @@ public class DefaultNextBillingDateNotifier extends RetryableService implements
 
     private static final Logger log = LoggerFactory.getLogger(DefaultNextBillingDateNotifier.class);
 
+    static final String LAG_METRIC_NAME = "killbill.invoice.nextBillingDate.lag";
+    // Bill-run throughput: one notification per account and effective date (see DefaultNextBillingDatePoster)
+    static final String ACCOUNTS_METRIC_NAME = "killbill.invoice.nextBillingDate.accounts";
+
     private final Clock clock;
     private final NotificationQueueService notificationQueueService;
     private final SubscriptionBaseInternalApi subscriptionApi;
     private final InvoiceListener listener;
     private final InternalCallContextFactory internalCallContextFactory;
+    private final BillingMetrics billingMetrics;
 
     private NotificationQueue nextBillingQueue;
 
@@ -59,13 +65,15 @@ public class DefaultNextBillingDateNotifier extends RetryableService implements
                                           final NotificationQueueService notificationQueueService,
                                           final SubscriptionBaseInternalApi subscriptionApi,
                                           final InvoiceListener listener,
-                                          final InternalCallContextFactory internalCallContextFactory) {
+                                          final InternalCallContextFactory internalCallContextFactory,
+                                          final BillingMetrics billingMetrics) {
         super(notificationQueueService);
         this.clock = clock;
         this.notificationQueueService = notificationQueueService;
         this.subscriptionApi = subscriptionApi;
         this.listener = listener;
         this.internalCallContextFactory = internalCallContextFactory;
+        this.billingMetrics = billingMetrics;
     }
 
     @Override
@@ -80,6 +88,9 @@ public class DefaultNextBillingDateNotifier extends RetryableService implements
 
                 final NextBillingDateNotificationKey key = (NextBillingDateNotificationKey) notificationKey;
 
+                // How late the notification is picked up compared to its (possibly spread) effective date
+                billingMetrics.recordLag(LAG_METRIC_NAME, eventDate, clock.getUTCNow());
+
                 // Just to ensure compatibility with json that might not have that targetDate field (old versions < 0.13.6)
                 final DateTime targetDate = key.getTargetDate() != null ? key.getTargetDate() : eventDate;
                 final UUID firstSubscriptionId = key.getUuidKeys().iterator().next();
@@ -89,6 +100,7 @@ public class DefaultNextBillingDateNotifier extends RetryableService implements
                 } else {
                     final boolean isRescheduled = key.isRescheduled() == Boolean.TRUE; // Handle null value (old versions < 0.19.7)
                     processEventForInvoiceGeneration(firstSubscriptionId, targetDate, isRescheduled, userToken, accountRecordId, tenantRecordId);
+                    billingMetrics.markMeter(ACCOUNTS_METRIC_NAME);
                 }
             }
         };
@@ -119,6 +131,7 @@ public class DefaultNextBillingDateNotifier extends RetryableService implements
     }
 
     private void processEventForInvoiceGeneration(final UUID subscriptionId, final DateTime eventDateTime, final boolean isRescheduled, final UUID userToken, final Long accountRecordId, final Long tenantRecordId) {
+        // Notifications ready at the same time for the same account are merged by the InvoiceTriggerCoalescer (if enabled)
         listener.handleNextBillingDateEvent(subscriptionId, eventDateTime, isRescheduled, userToken, accountRecordId, tenantRecordId);
     }
 
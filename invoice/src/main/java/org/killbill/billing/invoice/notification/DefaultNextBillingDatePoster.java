@@ -45,10 +45,13 @@ public class DefaultNextBillingDatePoster implements NextBillingDatePoster {
     private static Joiner JOINER = Joiner.on(",");
 
     private final NotificationQueueService notificationQueueService;
+    private final BillRunSmoothingPolicy billRunSmoothingPolicy;
 
     @Inject
-    public DefaultNextBillingDatePoster(final NotificationQueueService notificationQueueService) {
+    public DefaultNextBillingDatePoster(final NotificationQueueService notificationQueueService,
+                                        final BillRunSmoothingPolicy billRunSmoothingPolicy) {
         this.notificationQueueService = notificationQueueService;
+        this.billRunSmoothingPolicy = billRunSmoothingPolicy;
     }
 
     @Override
@@ -58,7 +61,9 @@ public class DefaultNextBillingDatePoster implements NextBillingDatePoster {
                                                              final DateTime futureNotificationTime,
                                                              final boolean isRescheduled,
                                                              final InternalCallContext internalCallContext) {
-        insertNextBillingFromTransactionInternal(entitySqlDaoWrapperFactory, subscriptionIds, Boolean.FALSE, isRescheduled, futureNotificationTime, futureNotificationTime, internalCallContext);
+        // The target date remains the billing date, only the time at which the notification fires is spread
+        final DateTime smoothedNotificationTime = billRunSmoothingPolicy.getNotificationTime(accountId, futureNotificationTime, internalCallContext);
+        insertNextBillingFromTransactionInternal(entitySqlDaoWrapperFactory, subscriptionIds, Boolean.FALSE, isRescheduled, smoothedNotificationTime, futureNotificationTime, internalCallContext);
     }
 
     @Override
@@ -68,7 +73,8 @@ public class DefaultNextBillingDatePoster implements NextBillingDatePoster {
                                                                    final DateTime futureNotificationTime,
                                                                    final DateTime targetDate,
                                                                    final InternalCallContext internalCallContext) {
-        insertNextBillingFromTransactionInternal(entitySqlDaoWrapperFactory, subscriptionIds, Boolean.TRUE, null, futureNotificationTime, targetDate, internalCallContext);
+        final DateTime smoothedNotificationTime = billRunSmoothingPolicy.getNotificationTime(accountId, futureNotificationTime, internalCallContext);
+        insertNextBillingFromTransactionInternal(entitySqlDaoWrapperFactory, subscriptionIds, Boolean.TRUE, null, smoothedNotificationTime, targetDate, internalCallContext);
     }
 
     private void insertNextBillingFromTransactionInternal(final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory,
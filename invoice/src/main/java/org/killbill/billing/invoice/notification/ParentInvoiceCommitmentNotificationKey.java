@@ -17,6 +17,7 @@
 
 package org.killbill.billing.invoice.notification;
 
+import java.util.List;
 import java.util.UUID;
 
 import org.killbill.notificationq.DefaultUUIDNotificationKey;
@@ -26,9 +27,66 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 
 public class ParentInvoiceCommitmentNotificationKey extends DefaultUUIDNotificationKey {
 
+    // Only set to retry the child accounts which couldn't be refreshed when the parent invoice was committed (see ParentInvoiceCommitPipeline)
+    private final List<UUID> childAccountIds;
+    private final Integer retryNb;
+
+    public ParentInvoiceCommitmentNotificationKey(final UUID uuidKey) {
+        this(uuidKey, null, null);
+    }
+
     @JsonCreator
-    public ParentInvoiceCommitmentNotificationKey(@JsonProperty("uuidKey") final UUID uuidKey) {
+    public ParentInvoiceCommitmentNotificationKey(@JsonProperty("uuidKey") final UUID uuidKey,
+                                                  @JsonProperty("childAccountIds") final List<UUID> childAccountIds,
+                                                  @JsonProperty("retryNb") final Integer retryNb) {
         super(uuidKey);
+        this.childAccountIds = childAccountIds;
+        this.retryNb = retryNb;
+    }
+
+    public List<UUID> getChildAccountIds() {
+        return childAccountIds;
+    }
+
+    public Integer getRetryNb() {
+        return retryNb;
     }
 
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("ParentInvoiceCommitmentNotificationKey{");
+        sb.append("uuidKey=").append(getUuidKey());
+        sb.append(", childAccountIds=").append(childAccountIds);
+        sb.append(", retryNb=").append(retryNb);
+        sb.append('}');
+        return sb.toString();
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        if (!super.equals(o)) {
+            return false;
+        }
+
+        final ParentInvoiceCommitmentNotificationKey that = (ParentInvoiceCommitmentNotificationKey) o;
+
+        if (childAccountIds != null ? !childAccountIds.equals(that.childAccountIds) : that.childAccountIds != null) {
+            return false;
+        }
+        return retryNb != null ? retryNb.equals(that.retryNb) : that.retryNb == null;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = super.hashCode();
+        result = 31 * result + (childAccountIds != null ? childAccountIds.hashCode() : 0);
+        result = 31 * result + (retryNb != null ? retryNb.hashCode() : 0);
+        return result;
+    }
 }
@@ -21,6 +21,7 @@ import java.util.UUID;
 
 import org.joda.time.DateTime;
 import org.killbill.billing.invoice.InvoiceListener;
+import org.killbill.billing.invoice.ParentInvoiceCommitPipeline;
 import org.killbill.billing.invoice.api.DefaultInvoiceService;
 import org.killbill.billing.platform.api.KillbillService.KILLBILL_SERVICES;
 import org.killbill.billing.util.callcontext.InternalCallContextFactory;
@@ -44,14 +45,20 @@ public class ParentInvoiceCommitmentNotifier implements NextBillingDateNotifier
 
     private final NotificationQueueService notificationQueueService;
     private final InvoiceListener listener;
+    private final ParentInvoiceCommitPipeline parentInvoiceCommitPipeline;
+    private final InvoiceConfig invoiceConfig;
 
     private NotificationQueue commitInvoiceQueue;
 
     @Inject
     public ParentInvoiceCommitmentNotifier(final NotificationQueueService notificationQueueService,
-                                           final InvoiceListener listener) {
+                                           final InvoiceListener listener,
+                                           final ParentInvoiceCommitPipeline parentInvoiceCommitPipeline,
+                                           final InvoiceConfig invoiceConfig) {
         this.notificationQueueService = notificationQueueService;
         this.listener = listener;
+        this.parentInvoiceCommitPipeline = parentInvoiceCommitPipeline;
+        this.invoiceConfig = invoiceConfig;
     }
 
     @Override
@@ -68,7 +75,14 @@ public class ParentInvoiceCommitmentNotifier implements NextBillingDateNotifier
 
                     final ParentInvoiceCommitmentNotificationKey key = (ParentInvoiceCommitmentNotificationKey) notificationKey;
 
-                    listener.handleParentInvoiceCommitmentEvent(key.getUuidKey(), userToken, accountRecordId, tenantRecordId);
+                    if (key.getChildAccountIds() != null) {
+                        // Retry of the child accounts which couldn't be refreshed when the parent invoice was committed
+                        parentInvoiceCommitPipeline.retryChildAccounts(key.getUuidKey(), key.getChildAccountIds(), key.getRetryNb(), userToken, accountRecordId, tenantRecordId);
+                    } else if (invoiceConfig.isParentCommitPipelineEnabled()) {
+                        parentInvoiceCommitPipeline.commitParentInvoice(key.getUuidKey(), userToken, accountRecordId, tenantRecordId);
+                    } else {
+                        listener.handleParentInvoiceCommitmentEvent(key.getUuidKey(), userToken, accountRecordId, tenantRecordId);
+                    }
 
                 } catch (IllegalArgumentException e) {
                     log.error("The key returned from the ParentInvoiceCommitmentQueue is not a valid UUID", e);
@@ -79,6 +93,7 @@ public class ParentInvoiceCommitmentNotifier implements NextBillingDateNotifier
         commitInvoiceQueue = notificationQueueService.createNotificationQueue(KILLBILL_SERVICES.INVOICE_SERVICE.getServiceName(),
                                                                               PARENT_INVOICE_COMMITMENT_NOTIFIER_QUEUE,
                                                                               notificationQueueHandler);
+        parentInvoiceCommitPipeline.initialize();
     }
 
     @Override
@@ -92,6 +107,11 @@ public class ParentInvoiceCommitmentNotifier implements NextBillingDateNotifier
             commitInvoiceQueue.stopQueue();
             notificationQueueService.deleteNotificationQueue(commitInvoiceQueue.getServiceName(), commitInvoiceQueue.getQueueName());
         }
+        try {
+            parentInvoiceCommitPipeline.stop();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 
 }
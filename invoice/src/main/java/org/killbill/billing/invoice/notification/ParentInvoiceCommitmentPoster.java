@@ -19,6 +19,7 @@ package org.killbill.billing.invoice.notification;
 
 import java.io.IOException;
 import java.util.Iterator;
+import java.util.List;
 import java.util.UUID;
 
 import org.joda.time.DateTime;
@@ -95,4 +96,26 @@ public class ParentInvoiceCommitmentPoster {
         }
     }
 
+    public void insertChildAccountsRetry(final UUID parentInvoiceId,
+                                         final List<UUID> childAccountIds,
+                                         final int retryNb,
+                                         final DateTime futureNotificationTime,
+                                         final InternalCallContext internalCallContext) {
+        try {
+            final NotificationQueue commitInvoiceQueue = notificationQueueService.getNotificationQueue(KILLBILL_SERVICES.INVOICE_SERVICE.getServiceName(),
+                                                                                                       ParentInvoiceCommitmentNotifier.PARENT_INVOICE_COMMITMENT_NOTIFIER_QUEUE);
+
+            log.info("Queuing retry #{} at {} of {} child accounts for parent invoiceId {}", retryNb, futureNotificationTime, childAccountIds.size(), parentInvoiceId);
+            commitInvoiceQueue.recordFutureNotification(futureNotificationTime,
+                                                        new ParentInvoiceCommitmentNotificationKey(parentInvoiceId, childAccountIds, retryNb),
+                                                        internalCallContext.getUserToken(),
+                                                        internalCallContext.getAccountRecordId(),
+                                                        internalCallContext.getTenantRecordId());
+        } catch (final NoSuchNotificationQueue e) {
+            log.error("Attempting to put items on a non-existent queue (ParentInvoiceCommitmentNotifier).", e);
+        } catch (final IOException e) {
+            log.error("Failed to serialize notificationKey for invoiceId {}", parentInvoiceId);
+        }
+    }
+
 }
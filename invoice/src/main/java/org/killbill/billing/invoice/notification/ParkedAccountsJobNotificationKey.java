@@ -0,0 +1,125 @@
+/*
+ * Copyright 2014-2019 Groupon, Inc
+ * Copyright 2014-2019 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.invoice.notification;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.killbill.notificationq.DefaultUUIDNotificationKey;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class ParkedAccountsJobNotificationKey extends DefaultUUIDNotificationKey {
+
+    public enum ParkedAccountsJobStep {
+        // Fetch the next page of parked accounts, starting after fromRecordId
+        ENUMERATE,
+        // Re-invoice the chunk of accounts of the page starting after fromRecordId
+        PROCESS
+    }
+
+    private final ParkedAccountsJobStep step;
+    private final Long fromRecordId;
+    private final List<UUID> accountIds;
+    private final List<Long> accountRecordIds;
+
+    @JsonCreator
+    public ParkedAccountsJobNotificationKey(@JsonProperty("uuidKey") final UUID jobId,
+                                            @JsonProperty("step") final ParkedAccountsJobStep step,
+                                            @JsonProperty("fromRecordId") final Long fromRecordId,
+                                            @JsonProperty("accountIds") final List<UUID> accountIds,
+                                            @JsonProperty("accountRecordIds") final List<Long> accountRecordIds) {
+        super(jobId);
+        this.step = step;
+        this.fromRecordId = fromRecordId;
+        this.accountIds = accountIds;
+        this.accountRecordIds = accountRecordIds;
+    }
+
+    public static ParkedAccountsJobNotificationKey enumerate(final UUID jobId, final Long fromRecordId) {
+        return new ParkedAccountsJobNotificationKey(jobId, ParkedAccountsJobStep.ENUMERATE, fromRecordId, null, null);
+    }
+
+    public static ParkedAccountsJobNotificationKey process(final UUID jobId, final Long fromRecordId, final List<UUID> accountIds, final List<Long> accountRecordIds) {
+        return new ParkedAccountsJobNotificationKey(jobId, ParkedAccountsJobStep.PROCESS, fromRecordId, accountIds, accountRecordIds);
+    }
+
+    public ParkedAccountsJobStep getStep() {
+        return step;
+    }
+
+    public Long getFromRecordId() {
+        return fromRecordId;
+    }
+
+    public List<UUID> getAccountIds() {
+        return accountIds;
+    }
+
+    public List<Long> getAccountRecordIds() {
+        return accountRecordIds;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("ParkedAccountsJobNotificationKey{");
+        sb.append("jobId=").append(getUuidKey());
+        sb.append(", step=").append(step);
+        sb.append(", fromRecordId=").append(fromRecordId);
+        sb.append(", nbAccounts=").append(accountIds == null ? 0 : accountIds.size());
+        sb.append('}');
+        return sb.toString();
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        if (!super.equals(o)) {
+            return false;
+        }
+
+        final ParkedAccountsJobNotificationKey that = (ParkedAccountsJobNotificationKey) o;
+
+        if (step != that.step) {
+            return false;
+        }
+        if (fromRecordId != null ? !fromRecordId.equals(that.fromRecordId) : that.fromRecordId != null) {
+            return false;
+        }
+        if (accountIds != null ? !accountIds.equals(that.accountIds) : that.accountIds != null) {
+            return false;
+        }
+        return accountRecordIds != null ? accountRecordIds.equals(that.accountRecordIds) : that.accountRecordIds == null;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = super.hashCode();
+        result = 31 * result + (step != null ? step.hashCode() : 0);
+        result = 31 * result + (fromRecordId != null ? fromRecordId.hashCode() : 0);
+        result = 31 * result + (accountIds != null ? accountIds.hashCode() : 0);
+        result = 31 * result + (accountRecordIds != null ? accountRecordIds.hashCode() : 0);
+        return result;
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2014-2019 Groupon, Inc
+ * Copyright 2014-2019 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.invoice.notification;
+
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+
+import org.joda.time.DateTime;
+import org.killbill.billing.invoice.ParkedAccountsJobProcessor;
+import org.killbill.billing.platform.api.KillbillService.KILLBILL_SERVICES;
+import org.killbill.notificationq.api.NotificationEvent;
+import org.killbill.notificationq.api.NotificationQueue;
+import org.killbill.notificationq.api.NotificationQueueService;
+import org.killbill.notificationq.api.NotificationQueueService.NoSuchNotificationQueue;
+import org.killbill.notificationq.api.NotificationQueueService.NotificationQueueAlreadyExists;
+import org.killbill.notificationq.api.NotificationQueueService.NotificationQueueHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.inject.Inject;
+
+public class ParkedAccountsJobNotifier {
+
+    private static final Logger log = LoggerFactory.getLogger(ParkedAccountsJobNotifier.class);
+
+    public static final String PARKED_ACCOUNTS_JOB_NOTIFIER_QUEUE = "parked-accounts-job-queue";
+
+    private final NotificationQueueService notificationQueueService;
+    private final ParkedAccountsJobProcessor processor;
+
+    private NotificationQueue parkedAccountsJobQueue;
+
+    @Inject
+    public ParkedAccountsJobNotifier(final NotificationQueueService notificationQueueService,
+                                     final ParkedAccountsJobProcessor processor) {
+        this.notificationQueueService = notificationQueueService;
+        this.processor = processor;
+    }
+
+    public void initialize() throws NotificationQueueAlreadyExists {
+        final NotificationQueueHandler notificationQueueHandler = new NotificationQueueHandler() {
+            @Override
+            public void handleReadyNotification(final NotificationEvent notificationKey, final DateTime eventDate, final UUID userToken, final Long accountRecordId, final Long tenantRecordId) {
+                if (!(notificationKey instanceof ParkedAccountsJobNotificationKey)) {
+                    log.error("Invoice service received an unexpected event type {}", notificationKey.getClass().getName());
+                    return;
+                }
+
+                try {
+                    processor.processNotification((ParkedAccountsJobNotificationKey) notificationKey, userToken, tenantRecordId);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException(e);
+                } catch (final ExecutionException e) {
+                    // Let the queue retry the chunk
+                    throw new RuntimeException(e.getCause());
+                }
+            }
+        };
+
+        processor.initialize();
+        parkedAccountsJobQueue = notificationQueueService.createNotificationQueue(KILLBILL_SERVICES.INVOICE_SERVICE.getServiceName(),
+                                                                                  PARKED_ACCOUNTS_JOB_NOTIFIER_QUEUE,
+                                                                                  notificationQueueHandler);
+    }
+
+    public void start() {
+        parkedAccountsJobQueue.startQueue();
+    }
+
+    public void stop() throws NoSuchNotificationQueue {
+        if (parkedAccountsJobQueue != null) {
+            parkedAccountsJobQueue.stopQueue();
+            notificationQueueService.deleteNotificationQueue(parkedAccountsJobQueue.getServiceName(), parkedAccountsJobQueue.getQueueName());
+        }
+        try {
+            processor.stop();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2014-2019 Groupon, Inc
+ * Copyright 2014-2019 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.invoice.tree;
+
+import java.math.BigDecimal;
+
+import javax.annotation.Nullable;
+
+import org.joda.time.LocalDate;
+import org.killbill.billing.invoice.api.InvoiceItem;
+import org.killbill.billing.invoice.api.InvoiceItemType;
+
+/**
+ * Hash key on the fields compared by {@code InvoiceItem#matches} (type, service period, rate and phase for catalog items):
+ * items that match have the same key, so candidates can be looked up instead of scanning all items.
+ */
+final class InvoiceItemKey {
+
+    private static final int NULL_DAY = -1;
+
+    private final InvoiceItemType type;
+    private final int startDay;
+    private final int endDay;
+    private final String phaseName;
+    private final BigDecimal rate;
+
+    private InvoiceItemKey(final InvoiceItem invoiceItem) {
+        this.type = invoiceItem.getInvoiceItemType();
+        this.startDay = dayKey(invoiceItem.getStartDate());
+        this.endDay = dayKey(invoiceItem.getEndDate());
+        this.phaseName = invoiceItem.getPhaseName();
+        // Rates are compared using compareTo
+        this.rate = invoiceItem.getRate() == null ? null : (invoiceItem.getRate().signum() == 0 ? BigDecimal.ZERO : invoiceItem.getRate().stripTrailingZeros());
+    }
+
+    static InvoiceItemKey of(final InvoiceItem invoiceItem) {
+        return new InvoiceItemKey(invoiceItem);
+    }
+
+    /**
+     * @return a primitive key for the date, following the natural order of dates
+     */
+    static int dayKey(@Nullable final LocalDate date) {
+        return date == null ? NULL_DAY : (date.getYear() << 9) | date.getDayOfYear();
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        final InvoiceItemKey that = (InvoiceItemKey) o;
+
+        if (startDay != that.startDay) {
+            return false;
+        }
+        if (endDay != that.endDay) {
+            return false;
+        }
+        if (type != that.type) {
+            return false;
+        }
+        if (phaseName != null ? !phaseName.equals(that.phaseName) : that.phaseName != null) {
+            return false;
+        }
+        return rate != null ? rate.equals(that.rate) : that.rate == null;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = type != null ? type.hashCode() : 0;
+        result = 31 * result + startDay;
+        result = 31 * result + endDay;
+        result = 31 * result + (phaseName != null ? phaseName.hashCode() : 0);
+        result = 31 * result + (rate != null ? rate.hashCode() : 0);
+        return result;
+    }
+}
@@ -18,9 +18,9 @@
 
 package org.killbill.billing.invoice.tree;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
 import java.util.UUID;
@@ -32,11 +32,7 @@ import org.killbill.billing.invoice.api.InvoiceItem;
 import org.killbill.billing.invoice.tree.Item.ItemAction;
 
 import com.google.common.base.Preconditions;
-import com.google.common.base.Predicate;
-import com.google.common.collect.Collections2;
-import com.google.common.collect.Iterables;
 import com.google.common.collect.LinkedListMultimap;
-import com.google.common.collect.Lists;
 import com.google.common.collect.Multimap;
 
 /**
@@ -46,7 +42,8 @@ public class ItemsInterval {
 
     // Parent (enclosing) interval
     private final ItemsNodeInterval interval;
-    private final LinkedList<Item> items;
+    // Intervals hold very few items (typically one or two), which are scanned without allocating predicates or views
+    private final List<Item> items;
 
     public ItemsInterval(final ItemsNodeInterval interval) {
         this(interval, null);
@@ -54,7 +51,7 @@ public class ItemsInterval {
 
     public ItemsInterval(final ItemsNodeInterval interval, final Item initialItem) {
         this.interval = interval;
-        this.items = Lists.newLinkedList();
+        this.items = new ArrayList<Item>(2);
         if (initialItem != null) {
             items.add(initialItem);
         }
@@ -73,23 +70,23 @@ public class ItemsInterval {
     }
 
     public Item getCancellingItemIfExists(final UUID targetId) {
-        return Iterables.tryFind(items,
-                                 new Predicate<Item>() {
-                                     @Override
-                                     public boolean apply(final Item input) {
-                                         return input.getAction() == ItemAction.CANCEL && input.getLinkedId().equals(targetId);
-                                     }
-                                 }).orNull();
+        for (int i = 0; i < items.size(); i++) {
+            final Item input = items.get(i);
+            if (input.getAction() == ItemAction.CANCEL && input.getLinkedId().equals(targetId)) {
+                return input;
+            }
+        }
+        return null;
     }
 
     public Item getCancelledItemIfExists(final UUID linkedId) {
-        return Iterables.tryFind(items,
-                                 new Predicate<Item>() {
-                                     @Override
-                                     public boolean apply(final Item input) {
-                                         return input.getAction() == ItemAction.ADD && input.getId().equals(linkedId);
-                                     }
-                                 }).orNull();
+        for (int i = 0; i < items.size(); i++) {
+            final Item input = items.get(i);
+            if (input.getAction() == ItemAction.ADD && input.getId().equals(linkedId)) {
+                return input;
+            }
+        }
+        return null;
     }
 
     public NodeInterval getNodeInterval() {
@@ -97,15 +94,15 @@ public class ItemsInterval {
     }
 
     public Item findItem(final UUID targetId) {
-        final Collection<Item> matchingItems = Collections2.<Item>filter(items,
-                                                                         new Predicate<Item>() {
-                                                                             @Override
-                                                                             public boolean apply(final Item input) {
-                                                                                 return input.getId().equals(targetId);
-                                                                             }
-                                                                         });
-        Preconditions.checkState(matchingItems.size() < 2, "Too many items matching id='%s' among items='%s'", targetId, items);
-        return matchingItems.size() == 1 ? matchingItems.iterator().next() : null;
+        Item matchingItem = null;
+        for (int i = 0; i < items.size(); i++) {
+            final Item input = items.get(i);
+            if (input.getId().equals(targetId)) {
+                Preconditions.checkState(matchingItem == null, "Too many items matching id='%s' among items='%s'", targetId, items);
+                matchingItem = input;
+            }
+        }
+        return matchingItem;
     }
 
     /**
@@ -218,8 +215,7 @@ public class ItemsInterval {
         //
         Preconditions.checkState(items.size() <= 2, "Double billing detected: %s", items);
 
-        final Collection<Item> addItems = findItems(ItemAction.ADD);
-        Preconditions.checkState(addItems.size() <= 1, "Double billing detected: %s", items);
+        Preconditions.checkState(countItems(ItemAction.ADD) <= 1, "Double billing detected: %s", items);
 
         final Item item = findItem(ItemAction.ADD);
 
@@ -261,19 +257,40 @@ public class ItemsInterval {
         parentItemsInterval.checkDoubleBilling(addItemsCancelled, addItemsToBeCancelled);
     }
 
+    // Only returns the item if it is the unique one for that action
     private Item findItem(final ItemAction itemAction) {
-        final Collection<Item> matchingItems = findItems(itemAction);
-        return matchingItems.size() == 1 ? matchingItems.iterator().next() : null;
+        Item matchingItem = null;
+        for (int i = 0; i < items.size(); i++) {
+            final Item input = items.get(i);
+            if (input.getAction() == itemAction) {
+                if (matchingItem != null) {
+                    return null;
+                }
+                matchingItem = input;
+            }
+        }
+        return matchingItem;
     }
 
-    private Collection<Item> findItems(final ItemAction itemAction) {
-        return Collections2.<Item>filter(items,
-                                         new Predicate<Item>() {
-                                             @Override
-                                             public boolean apply(final Item input) {
-                                                 return input.getAction() == itemAction;
-                                             }
-                                         });
+    private int countItems(final ItemAction itemAction) {
+        int count = 0;
+        for (int i = 0; i < items.size(); i++) {
+            if (items.get(i).getAction() == itemAction) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private List<Item> findItems(final ItemAction itemAction) {
+        final List<Item> matchingItems = new ArrayList<Item>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            final Item input = items.get(i);
+            if (input.getAction() == itemAction) {
+                matchingItems.add(input);
+            }
+        }
+        return matchingItems;
     }
 
     @Override
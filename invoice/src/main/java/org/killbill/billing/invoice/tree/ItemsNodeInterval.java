@@ -39,6 +39,8 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.Multimap;
 
 /**
  * Node in the SubscriptionItemTree
@@ -252,7 +254,20 @@ public class ItemsNodeInterval extends NodeInterval {
     // When we detect such nodes, we delete both the ADD in the parent interval and the CANCEL in the children (and cleanup the interval if it does not have items)
     //
     private void pruneAndValidateTree() {
-        final NodeInterval root = this;
+        // Index the intervals holding ADD items once, instead of searching the whole tree for each CANCEL item
+        final Multimap<UUID, ItemsInterval> addItemsIntervals = ArrayListMultimap.<UUID, ItemsInterval>create();
+        walkTree(new WalkCallback() {
+            @Override
+            public void onCurrentNode(final int depth, final NodeInterval curNode, final NodeInterval parent) {
+                final ItemsInterval curNodeItems = ((ItemsNodeInterval) curNode).getItemsInterval();
+                for (final Item curItem : curNodeItems.getItems()) {
+                    if (curItem.getAction() == ItemAction.ADD) {
+                        addItemsIntervals.put(curItem.getId(), curNodeItems);
+                    }
+                }
+            }
+        });
+
         walkTree(new WalkCallback() {
             @Override
             public void onCurrentNode(final int depth, final NodeInterval curNode, final NodeInterval parent) {
@@ -283,16 +298,15 @@ public class ItemsNodeInterval extends NodeInterval {
                                });
                     }
 
-                    // Sanity: make sure the CANCEL item points to an ADD item
-                    final NodeInterval nodeIntervalForCancelledItem = root.findNode(new SearchCallback() {
-                        @Override
-                        public boolean isMatch(final NodeInterval curNode) {
-                            final ItemsInterval curChildItems = ((ItemsNodeInterval) curNode).getItemsInterval();
-                            final Item cancelledItem = curChildItems.getCancelledItemIfExists(curCancelItem.getLinkedId());
-                            return cancelledItem != null;
+                    // Sanity: make sure the CANCEL item points to an ADD item (still in the tree, as pairs may have been pruned already)
+                    boolean foundCancelledItem = false;
+                    for (final ItemsInterval candidateItems : addItemsIntervals.get(curCancelItem.getLinkedId())) {
+                        if (candidateItems.getCancelledItemIfExists(curCancelItem.getLinkedId()) != null) {
+                            foundCancelledItem = true;
+                            break;
                         }
-                    });
-                    Preconditions.checkState(nodeIntervalForCancelledItem != null, "Missing cancelledItem for cancelItem=%s", curCancelItem);
+                    }
+                    Preconditions.checkState(foundCancelledItem, "Missing cancelledItem for cancelItem=%s", curCancelItem);
                 }
 
                 for (final Item curAddItem : curNodeItems.get_ADD_items()) {
@@ -19,35 +19,38 @@
 package org.killbill.billing.invoice.tree;
 
 import java.math.BigDecimal;
-import java.util.Comparator;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
-import javax.annotation.Nullable;
-
 import org.joda.time.LocalDate;
 import org.killbill.billing.invoice.api.InvoiceItem;
 import org.killbill.billing.invoice.tree.Item.ItemAction;
 
 import com.google.common.annotations.VisibleForTesting;
-import com.google.common.base.Function;
 import com.google.common.base.Preconditions;
-import com.google.common.base.Predicate;
-import com.google.common.collect.Collections2;
-import com.google.common.collect.Iterables;
-import com.google.common.collect.Ordering;
 
 /**
  * Tree of invoice items for a given subscription
  */
 public class SubscriptionItemTree {
 
-    private final List<Item> items = new LinkedList<Item>();
-    private final List<Item> existingFullyAdjustedItems = new LinkedList<Item>();
-    private final List<InvoiceItem> existingIgnoredItems = new LinkedList<InvoiceItem>();
-    private final List<InvoiceItem> remainingIgnoredItems = new LinkedList<InvoiceItem>();
-    private final List<InvoiceItem> pendingItemAdj = new LinkedList<InvoiceItem>();
+    // Low bits of the sort keys used in getView, see sortByStartDateAndType
+    private static final int SORT_KEY_INDEX_BITS = 24;
+    private static final long SORT_KEY_INDEX_MASK = (1L << SORT_KEY_INDEX_BITS) - 1;
+
+    private final List<Item> items = new ArrayList<Item>();
+    private final List<Item> existingFullyAdjustedItems = new ArrayList<Item>();
+    private final List<InvoiceItem> existingIgnoredItems = new ArrayList<InvoiceItem>();
+    private final Set<UUID> existingIgnoredItemIds = new HashSet<UUID>();
+    private final Map<InvoiceItemKey, List<InvoiceItem>> existingIgnoredItemsByKey = new HashMap<InvoiceItemKey, List<InvoiceItem>>();
+    private final List<InvoiceItem> remainingIgnoredItems = new ArrayList<InvoiceItem>();
+    private final List<InvoiceItem> pendingItemAdj = new ArrayList<InvoiceItem>();
 
     private final UUID targetInvoiceId;
     private final UUID subscriptionId;
@@ -56,26 +59,6 @@ public class SubscriptionItemTree {
     private boolean isBuilt = false;
     private boolean isMerged = false;
 
-    private static final Comparator<InvoiceItem> INVOICE_ITEM_COMPARATOR = new Comparator<InvoiceItem>() {
-        @Override
-        public int compare(final InvoiceItem o1, final InvoiceItem o2) {
-            int startDateComp = o1.getStartDate().compareTo(o2.getStartDate());
-            if (startDateComp != 0) {
-                return startDateComp;
-            }
-            int itemTypeComp =  (o1.getInvoiceItemType().ordinal()<o2.getInvoiceItemType().ordinal() ? -1 :
-                                 (o1.getInvoiceItemType().ordinal()==o2.getInvoiceItemType().ordinal() ? 0 : 1));
-            if (itemTypeComp != 0) {
-                return itemTypeComp;
-            }
-            Preconditions.checkState(false, "Unexpected list of items for subscription " + o1.getSubscriptionId() +
-                                            ", type(item1) = " + o1.getInvoiceItemType() + ", start(item1) = " + o1.getStartDate() +
-                                            ", type(item12) = " + o2.getInvoiceItemType() + ", start(item2) = " + o2.getStartDate());
-            // Never reached...
-            return 0;
-        }
-    };
-
     // targetInvoiceId is the new invoice id being generated
     public SubscriptionItemTree(final UUID subscriptionId, final UUID targetInvoiceId) {
         this.subscriptionId = subscriptionId;
@@ -94,7 +77,7 @@ public class SubscriptionItemTree {
             case RECURRING:
                 if (invoiceItem.getAmount().compareTo(BigDecimal.ZERO) == 0) {
                     // Nothing to repair -- https://github.com/killbill/killbill/issues/783
-                    existingIgnoredItems.add(invoiceItem);
+                    addExistingIgnoredItem(invoiceItem);
                 } else {
                     root.addExistingItem(new ItemsNodeInterval(root, new Item(invoiceItem, targetInvoiceId, ItemAction.ADD)));
                 }
@@ -105,7 +88,7 @@ public class SubscriptionItemTree {
                 break;
 
             case FIXED:
-                existingIgnoredItems.add(invoiceItem);
+                addExistingIgnoredItem(invoiceItem);
                 break;
 
             case ITEM_ADJ:
@@ -125,13 +108,7 @@ public class SubscriptionItemTree {
 
         for (final InvoiceItem item : pendingItemAdj) {
             // If the linked item was ignored, ignore this adjustment too
-            final InvoiceItem ignoredLinkedItem = Iterables.tryFind(existingIgnoredItems, new Predicate<InvoiceItem>() {
-                @Override
-                public boolean apply(final InvoiceItem input) {
-                    return input.getId().equals(item.getLinkedItemId());
-                }
-            }).orNull();
-            if (ignoredLinkedItem == null) {
+            if (!existingIgnoredItemIds.contains(item.getLinkedItemId())) {
                 final Item fullyAdjustedItem = root.addAdjustment(item, targetInvoiceId);
                 if (fullyAdjustedItem != null) {
                     existingFullyAdjustedItems.add(fullyAdjustedItem);
@@ -174,14 +151,13 @@ public class SubscriptionItemTree {
         Preconditions.checkState(!isBuilt, "Tree already built, unable to add new invoiceItem=%s", invoiceItem);
 
         // Check if it was an existing item ignored for tree purposes (e.g. FIXED or $0 RECURRING, both of which aren't repaired)
-        final InvoiceItem existingItem = Iterables.tryFind(existingIgnoredItems, new Predicate<InvoiceItem>() {
-            @Override
-            public boolean apply(final InvoiceItem input) {
-                return input.matches(invoiceItem);
+        final List<InvoiceItem> candidates = existingIgnoredItemsByKey.get(InvoiceItemKey.of(invoiceItem));
+        if (candidates != null) {
+            for (final InvoiceItem candidate : candidates) {
+                if (candidate.matches(invoiceItem)) {
+                    return;
+                }
             }
-        }).orNull();
-        if (existingItem != null) {
-            return;
         }
 
         switch (invoiceItem.getInvoiceItemType()) {
@@ -221,41 +197,92 @@ public class SubscriptionItemTree {
      */
     public List<InvoiceItem> getView() {
 
-        final List<InvoiceItem> tmp = new LinkedList<InvoiceItem>();
+        final List<InvoiceItem> tmp = new ArrayList<InvoiceItem>(remainingIgnoredItems.size() + items.size());
         tmp.addAll(remainingIgnoredItems);
-        tmp.addAll(Collections2.filter(Collections2.transform(items, new Function<Item, InvoiceItem>() {
-            @Override
-            public InvoiceItem apply(final Item input) {
-                final InvoiceItem resultingCandidate = input.toInvoiceItem();
-
-                // Post merge, the ADD items are the candidates for the resulting RECURRING items (see toInvoiceItem()).
-                // We will ignore any resulting item matching existing items on disk though as these are the result of full item adjustments.
-                // See https://github.com/killbill/killbill/issues/654
-                if (isMerged) {
-                    for (final Item existingAdjustedItem : existingFullyAdjustedItems) {
-                        // Note: we DO keep the item in case of partial matches, e.g. if the new proposed item end date is before
-                        // the existing (adjusted) item. See TestSubscriptionItemTree#testMaxedOutProRation
-                        final InvoiceItem fullyAdjustedInvoiceItem = existingAdjustedItem.toInvoiceItem();
-                        if (resultingCandidate.matches(fullyAdjustedInvoiceItem)) {
-                            return null;
-                        }
+
+        // Post merge, the ADD items are the candidates for the resulting RECURRING items (see toInvoiceItem()).
+        // We will ignore any resulting item matching existing items on disk though as these are the result of full item adjustments.
+        // See https://github.com/killbill/killbill/issues/654
+        final Map<InvoiceItemKey, List<InvoiceItem>> fullyAdjustedInvoiceItemsByKey = new HashMap<InvoiceItemKey, List<InvoiceItem>>();
+        if (isMerged) {
+            for (final Item existingAdjustedItem : existingFullyAdjustedItems) {
+                addToIndex(fullyAdjustedInvoiceItemsByKey, existingAdjustedItem.toInvoiceItem());
+            }
+        }
+
+        for (final Item item : items) {
+            final InvoiceItem resultingCandidate = item.toInvoiceItem();
+            if (resultingCandidate == null) {
+                continue;
+            }
+
+            // Note: we DO keep the item in case of partial matches, e.g. if the new proposed item end date is before
+            // the existing (adjusted) item. See TestSubscriptionItemTree#testMaxedOutProRation
+            boolean isFullyAdjusted = false;
+            final List<InvoiceItem> fullyAdjustedInvoiceItems = fullyAdjustedInvoiceItemsByKey.get(InvoiceItemKey.of(resultingCandidate));
+            if (fullyAdjustedInvoiceItems != null) {
+                for (final InvoiceItem fullyAdjustedInvoiceItem : fullyAdjustedInvoiceItems) {
+                    if (resultingCandidate.matches(fullyAdjustedInvoiceItem)) {
+                        isFullyAdjusted = true;
+                        break;
                     }
                 }
-
-                return resultingCandidate;
             }
-        }), new Predicate<InvoiceItem>() {
-            @Override
-            public boolean apply(@Nullable final InvoiceItem input) {
-                return input != null;
+
+            if (!isFullyAdjusted) {
+                tmp.add(resultingCandidate);
             }
-        }));
+        }
 
-        final List<InvoiceItem> result = Ordering.<InvoiceItem>from(INVOICE_ITEM_COMPARATOR).sortedCopy(tmp);
+        final List<InvoiceItem> result = sortByStartDateAndType(tmp);
         checkItemsListState(result);
         return result;
     }
 
+    // Sort by start date, then item type: each item is mapped to a primitive key (start day, type, index in the list),
+    // which avoids comparing LocalDate instances and lets us sort the keys in place.
+    private List<InvoiceItem> sortByStartDateAndType(final List<InvoiceItem> unsortedItems) {
+        Preconditions.checkState(unsortedItems.size() <= SORT_KEY_INDEX_MASK, "Too many items for subscription %s", subscriptionId);
+
+        final long[] sortKeys = new long[unsortedItems.size()];
+        for (int i = 0; i < sortKeys.length; i++) {
+            final InvoiceItem invoiceItem = unsortedItems.get(i);
+            sortKeys[i] = ((long) InvoiceItemKey.dayKey(invoiceItem.getStartDate()) << 32) |
+                          ((long) invoiceItem.getInvoiceItemType().ordinal() << SORT_KEY_INDEX_BITS) |
+                          i;
+        }
+        Arrays.sort(sortKeys);
+
+        final List<InvoiceItem> result = new ArrayList<InvoiceItem>(sortKeys.length);
+        for (int i = 0; i < sortKeys.length; i++) {
+            final InvoiceItem cur = unsortedItems.get((int) (sortKeys[i] & SORT_KEY_INDEX_MASK));
+            if (i > 0 && (sortKeys[i] >>> SORT_KEY_INDEX_BITS) == (sortKeys[i - 1] >>> SORT_KEY_INDEX_BITS)) {
+                final InvoiceItem prev = result.get(i - 1);
+                Preconditions.checkState(false, "Unexpected list of items for subscription " + prev.getSubscriptionId() +
+                                                ", type(item1) = " + prev.getInvoiceItemType() + ", start(item1) = " + prev.getStartDate() +
+                                                ", type(item12) = " + cur.getInvoiceItemType() + ", start(item2) = " + cur.getStartDate());
+            }
+            result.add(cur);
+        }
+        return result;
+    }
+
+    private void addExistingIgnoredItem(final InvoiceItem invoiceItem) {
+        existingIgnoredItems.add(invoiceItem);
+        existingIgnoredItemIds.add(invoiceItem.getId());
+        addToIndex(existingIgnoredItemsByKey, invoiceItem);
+    }
+
+    private static void addToIndex(final Map<InvoiceItemKey, List<InvoiceItem>> index, final InvoiceItem invoiceItem) {
+        final InvoiceItemKey key = InvoiceItemKey.of(invoiceItem);
+        List<InvoiceItem> invoiceItems = index.get(key);
+        if (invoiceItems == null) {
+            invoiceItems = new ArrayList<InvoiceItem>(1);
+            index.put(key, invoiceItems);
+        }
+        invoiceItems.add(invoiceItem);
+    }
+
     // Verify there is no double billing, and no double repair (credits)
     private void checkItemsListState(final List<InvoiceItem> orderedList) {
 
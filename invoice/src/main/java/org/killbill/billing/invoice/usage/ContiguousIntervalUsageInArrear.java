@@ -90,6 +90,8 @@ public abstract class ContiguousIntervalUsageInArrear {
     protected final LocalDate rawUsageStartDate;
     protected final InternalTenantContext internalTenantContext;
     protected final UsageDetailMode usageDetailMode;
+    // End date of the most recent closed (invoiced and no longer recomputed) period, if any
+    protected LocalDate closedPeriodEndDate;
     protected static final ObjectMapper objectMapper = new ObjectMapper();
 
     public ContiguousIntervalUsageInArrear(final Usage usage,
@@ -126,6 +128,17 @@ public abstract class ContiguousIntervalUsageInArrear {
      *                       then targetDate will define the endDate.
      */
     public ContiguousIntervalUsageInArrear build(final boolean closedInterval) {
+        return build(closedInterval, null);
+    }
+
+    /**
+     * Same as {@link #build(boolean)}, but periods ending on or before {@code closedPeriodEndDate} are skipped: these have been invoiced
+     * and are closed, so they are not recomputed (any new usage for them is reported as late usage instead).
+     *
+     * @param closedInterval      whether there was a last billing event referencing the usage section
+     * @param closedPeriodEndDate end date of the most recent closed period, if any
+     */
+    public ContiguousIntervalUsageInArrear build(final boolean closedInterval, @Nullable final LocalDate closedPeriodEndDate) {
         Preconditions.checkState(!isBuilt.get(), "!isBuilt");
         Preconditions.checkState((!closedInterval && billingEvents.size() >= 1) ||
                                  (closedInterval && billingEvents.size() >= 2),
@@ -136,8 +149,9 @@ public abstract class ContiguousIntervalUsageInArrear {
             return this;
         }
         final LocalDate endDate = closedInterval ? internalTenantContext.toLocalDate(billingEvents.get(billingEvents.size() - 1).getEffectiveDate()) : targetDate;
+        this.closedPeriodEndDate = closedPeriodEndDate;
 
-        if (startDate.compareTo(rawUsageStartDate) >= 0) {
+        if (startDate.compareTo(getRecomputeStartDate()) >= 0) {
             transitionTimes.add(startDate);
         }
 
@@ -170,7 +184,7 @@ public abstract class ContiguousIntervalUsageInArrear {
         LocalDate nextBillCycleDate = bid.getFutureBillingDateFor(numberOfPeriod);
         while (!nextBillCycleDate.isAfter(endDate)) {
             if (transitionTimes.isEmpty() || nextBillCycleDate.isAfter(transitionTimes.get(transitionTimes.size() - 1))) {
-                if (nextBillCycleDate.compareTo(rawUsageStartDate) >= 0) {
+                if (nextBillCycleDate.compareTo(getRecomputeStartDate()) >= 0) {
                     transitionTimes.add(nextBillCycleDate);
                 }
             }
@@ -179,6 +193,10 @@ public abstract class ContiguousIntervalUsageInArrear {
         }
     }
 
+    private LocalDate getRecomputeStartDate() {
+        return closedPeriodEndDate != null && closedPeriodEndDate.compareTo(rawUsageStartDate) > 0 ? closedPeriodEndDate : rawUsageStartDate;
+    }
+
     /**
      * Compute the missing usage invoice items based on what should be billed and what has been billed ($ amount comparison).
      *
@@ -189,8 +207,15 @@ public abstract class ContiguousIntervalUsageInArrear {
 
         Preconditions.checkState(isBuilt.get());
 
+        final Set<TrackingRecordId> existingTrackingIds = extractTrackingIds(allExistingTrackingIds);
+        final Set<TrackingRecordId> lateTrackingIds = getLateUsageTrackingIds(existingTrackingIds);
+        if (!lateTrackingIds.isEmpty()) {
+            log.debug("Ignoring late usage for closed periods: accountId='{}', subscriptionId='{}', usage='{}', closedPeriodEndDate='{}', trackingIds='{}'",
+                     accountId, getSubscriptionId(), usage.getName(), closedPeriodEndDate, lateTrackingIds);
+        }
+
         if (transitionTimes.size() < 2) {
-            return new UsageInArrearItemsAndNextNotificationDate(ImmutableList.<InvoiceItem>of(), ImmutableSet.of(), computeNextNotificationDate());
+            return new UsageInArrearItemsAndNextNotificationDate(ImmutableList.<InvoiceItem>of(), ImmutableSet.of(), lateTrackingIds, computeNextNotificationDate());
         }
 
         final List<InvoiceItem> result = Lists.newLinkedList();
@@ -200,8 +225,6 @@ public abstract class ContiguousIntervalUsageInArrear {
 
         final Set<TrackingRecordId> allTrackingIds = allUsageWithTracking.getTrackingIds();
 
-        final Set<TrackingRecordId> existingTrackingIds = extractTrackingIds(allExistingTrackingIds);
-
 
         final Set<TrackingRecordId> newTrackingIds = Sets.filter(allTrackingIds, new Predicate<TrackingRecordId>() {
             @Override
@@ -242,7 +265,38 @@ public abstract class ContiguousIntervalUsageInArrear {
 
         }
         final LocalDate nextNotificationDate = computeNextNotificationDate();
-        return new UsageInArrearItemsAndNextNotificationDate(result, newTrackingIds, nextNotificationDate);
+        return new UsageInArrearItemsAndNextNotificationDate(result, newTrackingIds, lateTrackingIds, nextNotificationDate);
+    }
+
+    // Raw usage recorded within a closed period which was never invoiced
+    private Set<TrackingRecordId> getLateUsageTrackingIds(final Set<TrackingRecordId> existingTrackingIds) {
+        if (closedPeriodEndDate == null || billingEvents.isEmpty()) {
+            return ImmutableSet.of();
+        }
+
+        // Index the existing records regardless of their invoice (see TrackingRecordId#isSimilarRecord), for a single lookup per raw usage record
+        final Set<TrackingRecordId> invoicedRecords = new HashSet<TrackingRecordId>();
+        for (final TrackingRecordId existingRecord : existingTrackingIds) {
+            invoicedRecords.add(new TrackingRecordId(existingRecord.getTrackingId(), null, existingRecord.getSubscriptionId(), existingRecord.getUnitType(), existingRecord.getRecordDate()));
+        }
+
+        final LocalDate startDate = internalTenantContext.toLocalDate(billingEvents.get(0).getEffectiveDate());
+        final Set<TrackingRecordId> result = new HashSet<TrackingRecordId>();
+        for (final RawUsage rawUsage : rawSubscriptionUsage) {
+            // Raw usage is sorted by date
+            if (rawUsage.getDate().compareTo(closedPeriodEndDate) >= 0) {
+                break;
+            }
+            if (rawUsage.getTrackingId() == null || rawUsage.getDate().compareTo(startDate) < 0) {
+                continue;
+            }
+
+            final boolean isInvoiced = invoicedRecords.contains(new TrackingRecordId(rawUsage.getTrackingId(), null, rawUsage.getSubscriptionId(), rawUsage.getUnitType(), rawUsage.getDate()));
+            if (!isInvoiced) {
+                result.add(new TrackingRecordId(rawUsage.getTrackingId(), invoiceId, rawUsage.getSubscriptionId(), rawUsage.getUnitType(), rawUsage.getDate()));
+            }
+        }
+        return result;
     }
 
     protected abstract void populateResults(final LocalDate startDate, final LocalDate endDate, final BigDecimal billedUsage, final BigDecimal toBeBilledUsage, final UsageInArrearAggregate toBeBilledUsageDetails, final boolean areAllBilledItemsWithDetails, final boolean isPeriodPreviouslyBilled, final List<InvoiceItem> result) throws InvoiceApiException;
@@ -503,11 +557,17 @@ public abstract class ContiguousIntervalUsageInArrear {
         private final List<InvoiceItem> invoiceItems;
         private final LocalDate nextNotificationDate;
         private final Set<TrackingRecordId> trackingIds;
+        private final Set<TrackingRecordId> lateTrackingIds;
 
         public UsageInArrearItemsAndNextNotificationDate(final List<InvoiceItem> invoiceItems, final Set<TrackingRecordId> trackingIds, final LocalDate nextNotificationDate) {
+            this(invoiceItems, trackingIds, ImmutableSet.<TrackingRecordId>of(), nextNotificationDate);
+        }
+
+        public UsageInArrearItemsAndNextNotificationDate(final List<InvoiceItem> invoiceItems, final Set<TrackingRecordId> trackingIds, final Set<TrackingRecordId> lateTrackingIds, final LocalDate nextNotificationDate) {
             this.invoiceItems = invoiceItems;
             this.nextNotificationDate = nextNotificationDate;
             this.trackingIds = trackingIds;
+            this.lateTrackingIds = lateTrackingIds;
         }
 
         public List<InvoiceItem> getInvoiceItems() {
@@ -521,6 +581,10 @@ public abstract class ContiguousIntervalUsageInArrear {
         public Set<TrackingRecordId> getTrackingIds() {
             return trackingIds;
         }
+
+        public Set<TrackingRecordId> getLateTrackingIds() {
+            return lateTrackingIds;
+        }
     }
 
     public static class RolledUpUnitsWithTracking {
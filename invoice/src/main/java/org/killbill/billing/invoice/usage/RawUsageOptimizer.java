@@ -17,10 +17,12 @@
 
 package org.killbill.billing.invoice.usage;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
 
 import javax.annotation.Nullable;
 import javax.inject.Inject;
@@ -38,12 +40,14 @@ import org.killbill.billing.invoice.model.UsageInvoiceItem;
 import org.killbill.billing.usage.InternalUserApi;
 import org.killbill.billing.usage.RawUsage;
 import org.killbill.billing.util.config.definition.InvoiceConfig;
+import org.killbill.billing.util.metrics.BillingMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Function;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Ordering;
@@ -63,19 +67,24 @@ public class RawUsageOptimizer {
     private final InternalUserApi usageApi;
     private final InvoiceConfig config;
     private final InvoiceDao invoiceDao;
+    private final BillingMetrics billingMetrics;
 
     @Inject
-    public RawUsageOptimizer(final InvoiceConfig config, final InvoiceDao invoiceDao, final InternalUserApi usageApi) {
+    public RawUsageOptimizer(final InvoiceConfig config, final InvoiceDao invoiceDao, final InternalUserApi usageApi, final BillingMetrics billingMetrics) {
         this.usageApi = usageApi;
         this.config = config;
         this.invoiceDao = invoiceDao;
+        this.billingMetrics = billingMetrics;
     }
 
     public RawUsageOptimizerResult getInArrearUsage(final LocalDate firstEventStartDate, final LocalDate targetDate, final Iterable<InvoiceItem> existingUsageItems, final Map<String, Usage> knownUsage, final InternalCallContext internalCallContext) {
         final LocalDate targetStartDate = config.getMaxRawUsagePreviousPeriod(internalCallContext) >= 0 ? getOptimizedRawUsageStartDate(firstEventStartDate, targetDate, existingUsageItems, knownUsage, internalCallContext) : firstEventStartDate;
         log.debug("ConsumableInArrear accountRecordId='{}', rawUsageStartDate='{}', firstEventStartDate='{}'",
                   internalCallContext.getAccountRecordId(), targetStartDate, firstEventStartDate);
+        final long startNanos = System.nanoTime();
         final List<RawUsage> rawUsageData = usageApi.getRawUsageForAccount(targetStartDate, targetDate, internalCallContext);
+        billingMetrics.recordDuration("killbill.invoice.usage.rawUsageFetch", System.nanoTime() - startNanos);
+        billingMetrics.recordValue("killbill.invoice.usage.rawUsageRecords", rawUsageData.size());
 
         final List<InvoiceTrackingModelDao> trackingIds = invoiceDao.getTrackingsByDateRange(targetStartDate, targetDate, internalCallContext);
         final Set<TrackingRecordId> existingTrackingIds = ImmutableSet.copyOf(Iterables.transform(trackingIds, new Function<InvoiceTrackingModelDao, TrackingRecordId>() {
@@ -84,7 +93,44 @@ public class RawUsageOptimizer {
                 return new TrackingRecordId(input.getTrackingId(), input.getInvoiceId(), input.getSubscriptionId(), input.getUnitType(), input.getRecordDate());
             }
         }));
-        return new RawUsageOptimizerResult(targetStartDate, rawUsageData, existingTrackingIds);
+        final Map<UUID, Map<String, LocalDate>> closedPeriodEndDates = getClosedPeriodEndDates(targetDate, existingUsageItems, knownUsage, internalCallContext);
+        return new RawUsageOptimizerResult(targetStartDate, rawUsageData, existingTrackingIds, closedPeriodEndDates);
+    }
+
+    //
+    // A usage period is closed once it has been invoiced and is at least 'org.killbill.invoice.usage.closedPeriods' billing periods old:
+    // for each subscription and usage section, we return the end date of the most recent closed period (periods before are never recomputed).
+    //
+    @VisibleForTesting
+    Map<UUID, Map<String, LocalDate>> getClosedPeriodEndDates(final LocalDate targetDate, final Iterable<InvoiceItem> existingUsageItems, final Map<String, Usage> knownUsage, final InternalCallContext internalCallContext) {
+        final int closedPeriods = config.getUsageClosedPeriods(internalCallContext);
+        if (closedPeriods < 0) {
+            return ImmutableMap.<UUID, Map<String, LocalDate>>of();
+        }
+
+        final Map<UUID, Map<String, LocalDate>> result = new HashMap<UUID, Map<String, LocalDate>>();
+        for (final InvoiceItem item : existingUsageItems) {
+            final Usage usage = knownUsage.get(item.getUsageName());
+            if (usage == null || item.getEndDate() == null) {
+                continue;
+            }
+
+            final LocalDate closedBoundary = InvoiceDateUtils.recedeByNPeriods(targetDate, usage.getBillingPeriod(), closedPeriods);
+            if (item.getEndDate().compareTo(closedBoundary) > 0) {
+                continue;
+            }
+
+            Map<String, LocalDate> perUsageClosedPeriodEndDates = result.get(item.getSubscriptionId());
+            if (perUsageClosedPeriodEndDates == null) {
+                perUsageClosedPeriodEndDates = new HashMap<String, LocalDate>();
+                result.put(item.getSubscriptionId(), perUsageClosedPeriodEndDates);
+            }
+            final LocalDate closedPeriodEndDate = perUsageClosedPeriodEndDates.get(item.getUsageName());
+            if (closedPeriodEndDate == null || closedPeriodEndDate.compareTo(item.getEndDate()) < 0) {
+                perUsageClosedPeriodEndDates.put(item.getUsageName(), item.getEndDate());
+            }
+        }
+        return result;
     }
 
     @VisibleForTesting
@@ -167,11 +213,17 @@ public class RawUsageOptimizer {
         private final LocalDate rawUsageStartDate;
         private final List<RawUsage> rawUsage;
         private final Set<TrackingRecordId> existingTrackingIds;
+        private final Map<UUID, Map<String, LocalDate>> closedPeriodEndDates;
 
         public RawUsageOptimizerResult(final LocalDate rawUsageStartDate, final List<RawUsage> rawUsage, final Set<TrackingRecordId> existingTrackingIds) {
+            this(rawUsageStartDate, rawUsage, existingTrackingIds, ImmutableMap.<UUID, Map<String, LocalDate>>of());
+        }
+
+        public RawUsageOptimizerResult(final LocalDate rawUsageStartDate, final List<RawUsage> rawUsage, final Set<TrackingRecordId> existingTrackingIds, final Map<UUID, Map<String, LocalDate>> closedPeriodEndDates) {
             this.rawUsageStartDate = rawUsageStartDate;
             this.rawUsage = rawUsage;
             this.existingTrackingIds = existingTrackingIds;
+            this.closedPeriodEndDates = closedPeriodEndDates;
         }
 
         public LocalDate getRawUsageStartDate() {
@@ -185,5 +237,10 @@ public class RawUsageOptimizer {
         public Set<TrackingRecordId> getExistingTrackingIds() {
             return existingTrackingIds;
         }
+
+        public Map<String, LocalDate> getClosedPeriodEndDates(final UUID subscriptionId) {
+            final Map<String, LocalDate> result = closedPeriodEndDates.get(subscriptionId);
+            return result != null ? result : ImmutableMap.<String, LocalDate>of();
+        }
     }
 }
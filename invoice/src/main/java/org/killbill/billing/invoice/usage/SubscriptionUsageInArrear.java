@@ -47,6 +47,7 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Function;
 import com.google.common.base.Predicate;
 import com.google.common.collect.Collections2;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Ordering;
@@ -82,6 +83,7 @@ public class SubscriptionUsageInArrear {
     private final LocalDate rawUsageStartDate;
     private final InternalTenantContext internalTenantContext;
     private final UsageDetailMode usageDetailMode;
+    private final Map<String, LocalDate> closedPeriodEndDates;
 
     public SubscriptionUsageInArrear(final UUID accountId,
                                      final UUID invoiceId,
@@ -92,6 +94,19 @@ public class SubscriptionUsageInArrear {
                                      final LocalDate rawUsageStartDate,
                                      final UsageDetailMode usageDetailMode,
                                      final InternalTenantContext internalTenantContext) {
+        this(accountId, invoiceId, subscriptionBillingEvents, rawUsage, existingTrackingIds, targetDate, rawUsageStartDate, ImmutableMap.<String, LocalDate>of(), usageDetailMode, internalTenantContext);
+    }
+
+    public SubscriptionUsageInArrear(final UUID accountId,
+                                     final UUID invoiceId,
+                                     final List<BillingEvent> subscriptionBillingEvents,
+                                     final List<RawUsage> rawUsage,
+                                     final Set<TrackingRecordId> existingTrackingIds,
+                                     final LocalDate targetDate,
+                                     final LocalDate rawUsageStartDate,
+                                     final Map<String, LocalDate> closedPeriodEndDates,
+                                     final UsageDetailMode usageDetailMode,
+                                     final InternalTenantContext internalTenantContext) {
 
         this.accountId = accountId;
         this.invoiceId = invoiceId;
@@ -107,6 +122,7 @@ public class SubscriptionUsageInArrear {
             }
         }));
         this.existingTrackingIds = existingTrackingIds;
+        this.closedPeriodEndDates = closedPeriodEndDates;
         this.usageDetailMode = usageDetailMode;
     }
 
@@ -127,6 +143,7 @@ public class SubscriptionUsageInArrear {
 
             result.addUsageInArrearItemsAndNextNotificationDate(usageInterval.getUsage().getName(), newItemsWithDetailsAndDate);
             result.addTrackingIds(newItemsWithDetailsAndDate.getTrackingIds());
+            result.addLateTrackingIds(newItemsWithDetailsAndDate.getLateTrackingIds());
         }
         return result;
     }
@@ -176,12 +193,12 @@ public class SubscriptionUsageInArrear {
                 final ContiguousIntervalUsageInArrear interval = inFlightInArrearUsageIntervals.remove(usageKey);
                 if (interval != null) {
                     interval.addBillingEvent(event);
-                    usageIntervals.add(interval.build(true));
+                    usageIntervals.add(interval.build(true, closedPeriodEndDates.get(usageKey.getUsageName())));
                 }
             }
         }
         for (final UsageKey usageKey : inFlightInArrearUsageIntervals.keySet()) {
-            usageIntervals.add(inFlightInArrearUsageIntervals.get(usageKey).build(false));
+            usageIntervals.add(inFlightInArrearUsageIntervals.get(usageKey).build(false, closedPeriodEndDates.get(usageKey.getUsageName())));
         }
         inFlightInArrearUsageIntervals.clear();
         return usageIntervals;
@@ -207,11 +224,13 @@ public class SubscriptionUsageInArrear {
         private final List<InvoiceItem> invoiceItems;
         private final Map<String, LocalDate> perUsageNotificationDates;
         private final Set<TrackingRecordId> trackingIds;
+        private final Set<TrackingRecordId> lateTrackingIds;
 
         public SubscriptionUsageInArrearItemsAndNextNotificationDate() {
             this.invoiceItems = new LinkedList<InvoiceItem>();
             this.perUsageNotificationDates = new HashMap<String, LocalDate>();
             this.trackingIds = new HashSet<>();
+            this.lateTrackingIds = new HashSet<>();
         }
 
         public void addUsageInArrearItemsAndNextNotificationDate(final String usageName, final UsageInArrearItemsAndNextNotificationDate input) {
@@ -228,6 +247,10 @@ public class SubscriptionUsageInArrear {
             trackingIds.addAll(input);
         }
 
+        public void addLateTrackingIds(final Set<TrackingRecordId> input) {
+            lateTrackingIds.addAll(input);
+        }
+
         public List<InvoiceItem> getInvoiceItems() {
             return invoiceItems;
         }
@@ -239,6 +262,10 @@ public class SubscriptionUsageInArrear {
         public Set<TrackingRecordId> getTrackingIds() {
             return trackingIds;
         }
+
+        public Set<TrackingRecordId> getLateTrackingIds() {
+            return lateTrackingIds;
+        }
     }
 
     private static class UsageKey {
@@ -251,6 +278,10 @@ public class SubscriptionUsageInArrear {
             this.catalogVersion = catalogVersion;
         }
 
+        public String getUsageName() {
+            return usageName;
+        }
+
         @Override
         public boolean equals(final Object o) {
             if (this == o) {
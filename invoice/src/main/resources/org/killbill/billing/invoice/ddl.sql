@@ -123,3 +123,164 @@ CREATE UNIQUE INDEX invoice_parent_children_id ON invoice_parent_children(id);
 CREATE INDEX invoice_parent_children_invoice_id ON invoice_parent_children(parent_invoice_id);
 CREATE INDEX invoice_parent_children_tenant_account_record_id ON invoice_parent_children(tenant_record_id, account_record_id);
 CREATE INDEX invoice_parent_children_child_invoice_id ON invoice_parent_children(child_invoice_id);
+
+DROP TABLE IF EXISTS invoice_parked_accounts_jobs;
+CREATE TABLE invoice_parked_accounts_jobs (
+    record_id serial unique,
+    id varchar(36) NOT NULL,
+    state varchar(32) NOT NULL,
+    enumeration_completed boolean NOT NULL default false,
+    last_enumerated_record_id bigint /*! unsigned */ not null default 0,
+    nb_accounts int NOT NULL default 0,
+    nb_processed int NOT NULL default 0,
+    nb_succeeded int NOT NULL default 0,
+    nb_nothing_to_do int NOT NULL default 0,
+    nb_failed int NOT NULL default 0,
+    created_by varchar(50) NOT NULL,
+    created_date datetime NOT NULL,
+    updated_date datetime NOT NULL,
+    completed_date datetime DEFAULT NULL,
+    tenant_record_id bigint /*! unsigned */ not null default 0,
+    PRIMARY KEY(record_id)
+) /*! CHARACTER SET utf8 COLLATE utf8_bin */;
+CREATE UNIQUE INDEX invoice_parked_accounts_jobs_id ON invoice_parked_accounts_jobs(id);
+CREATE INDEX invoice_parked_accounts_jobs_tenant_record_id ON invoice_parked_accounts_jobs(tenant_record_id);
+
+DROP TABLE IF EXISTS invoice_parked_accounts_job_chunks;
+CREATE TABLE invoice_parked_accounts_job_chunks (
+    record_id serial unique,
+    job_id varchar(36) NOT NULL,
+    from_record_id bigint /*! unsigned */ not null,
+    processed boolean NOT NULL default false,
+    created_date datetime NOT NULL,
+    updated_date datetime NOT NULL,
+    tenant_record_id bigint /*! unsigned */ not null default 0,
+    PRIMARY KEY(record_id)
+) /*! CHARACTER SET utf8 COLLATE utf8_bin */;
+CREATE UNIQUE INDEX invoice_parked_accounts_job_chunks_job_id_from_record_id ON invoice_parked_accounts_job_chunks(job_id, from_record_id);
+
+DROP TABLE IF EXISTS invoice_balances;
+CREATE TABLE invoice_balances (
+    record_id serial unique,
+    invoice_id varchar(36) NOT NULL,
+    balance numeric(15,9) NOT NULL,
+    parent_balance numeric(15,9) DEFAULT NULL,
+    in_account_balance bool NOT NULL,
+    written_off bool NOT NULL,
+    cba numeric(15,9) NOT NULL,
+    updated_date datetime NOT NULL,
+    account_record_id bigint /*! unsigned */ not null,
+    tenant_record_id bigint /*! unsigned */ not null default 0,
+    PRIMARY KEY(record_id)
+) /*! CHARACTER SET utf8 COLLATE utf8_bin */;
+CREATE UNIQUE INDEX invoice_balances_invoice_id ON invoice_balances(invoice_id);
+CREATE INDEX invoice_balances_tenant_account_record_id ON invoice_balances(tenant_record_id, account_record_id);
+
+DROP TABLE IF EXISTS invoice_account_balances;
+CREATE TABLE invoice_account_balances (
+    record_id serial unique,
+    balance numeric(15,9) NOT NULL,
+    cba numeric(15,9) NOT NULL,
+    updated_date datetime NOT NULL,
+    account_record_id bigint /*! unsigned */ not null,
+    tenant_record_id bigint /*! unsigned */ not null default 0,
+    PRIMARY KEY(record_id)
+) /*! CHARACTER SET utf8 COLLATE utf8_bin */;
+CREATE UNIQUE INDEX invoice_account_balances_account_record_id ON invoice_account_balances(account_record_id);
+CREATE INDEX invoice_account_balances_tenant_account_record_id ON invoice_account_balances(tenant_record_id, account_record_id);
+
+DROP TABLE IF EXISTS invoices_archive;
+CREATE TABLE invoices_archive (
+    record_id bigint /*! unsigned */ not null,
+    id varchar(36) NOT NULL,
+    account_id varchar(36) NOT NULL,
+    invoice_date date NOT NULL,
+    target_date date,
+    currency varchar(3) NOT NULL,
+    status varchar(15) NOT NULL,
+    migrated bool NOT NULL,
+    parent_invoice bool NOT NULL DEFAULT FALSE,
+    created_by varchar(50) NOT NULL,
+    created_date datetime NOT NULL,
+    archived_date datetime NOT NULL,
+    account_record_id bigint /*! unsigned */ not null,
+    tenant_record_id bigint /*! unsigned */ not null default 0,
+    PRIMARY KEY(record_id)
+) /*! CHARACTER SET utf8 COLLATE utf8_bin */;
+CREATE UNIQUE INDEX invoices_archive_id ON invoices_archive(id);
+CREATE INDEX invoices_archive_tenant_account_record_id ON invoices_archive(tenant_record_id, account_record_id);
+
+DROP TABLE IF EXISTS invoice_items_archive;
+CREATE TABLE invoice_items_archive (
+    record_id bigint /*! unsigned */ not null,
+    id varchar(36) NOT NULL,
+    type varchar(24) NOT NULL,
+    invoice_id varchar(36) NOT NULL,
+    account_id varchar(36) NOT NULL,
+    child_account_id varchar(36),
+    bundle_id varchar(36),
+    subscription_id varchar(36),
+    description varchar(255),
+    product_name varchar(255),
+    plan_name varchar(255),
+    phase_name varchar(255),
+    usage_name varchar(255),
+    start_date date,
+    end_date date,
+    amount numeric(15,9) NOT NULL,
+    rate numeric(15,9) NULL,
+    currency varchar(3) NOT NULL,
+    linked_item_id varchar(36),
+    quantity int,
+    item_details text,
+    created_by varchar(50) NOT NULL,
+    created_date datetime NOT NULL,
+    archived_date datetime NOT NULL,
+    account_record_id bigint /*! unsigned */ not null,
+    tenant_record_id bigint /*! unsigned */ not null default 0,
+    PRIMARY KEY(record_id)
+) /*! CHARACTER SET utf8 COLLATE utf8_bin */;
+CREATE UNIQUE INDEX invoice_items_archive_id ON invoice_items_archive(id);
+CREATE INDEX invoice_items_archive_invoice_id ON invoice_items_archive(invoice_id ASC);
+CREATE INDEX invoice_items_archive_subscription_id ON invoice_items_archive(subscription_id ASC);
+CREATE INDEX invoice_items_archive_tenant_account_record_id ON invoice_items_archive(tenant_record_id, account_record_id);
+
+DROP TABLE IF EXISTS invoice_payments_archive;
+CREATE TABLE invoice_payments_archive (
+    record_id bigint /*! unsigned */ not null,
+    id varchar(36) NOT NULL,
+    type varchar(24) NOT NULL,
+    invoice_id varchar(36) NOT NULL,
+    payment_id varchar(36),
+    payment_date datetime NOT NULL,
+    amount numeric(15,9) NOT NULL,
+    currency varchar(3) NOT NULL,
+    processed_currency varchar(3) NOT NULL,
+    payment_cookie_id varchar(255) DEFAULT NULL,
+    linked_invoice_payment_id varchar(36) DEFAULT NULL,
+    success bool DEFAULT true,
+    created_by varchar(50) NOT NULL,
+    created_date datetime NOT NULL,
+    archived_date datetime NOT NULL,
+    account_record_id bigint /*! unsigned */ not null,
+    tenant_record_id bigint /*! unsigned */ not null default 0,
+    PRIMARY KEY(record_id)
+) /*! CHARACTER SET utf8 COLLATE utf8_bin */;
+CREATE UNIQUE INDEX invoice_payments_archive_id ON invoice_payments_archive(id);
+CREATE INDEX invoice_payments_archive_invoice_id ON invoice_payments_archive(invoice_id);
+CREATE INDEX invoice_payments_archive_tenant_account_record_id ON invoice_payments_archive(tenant_record_id, account_record_id);
+
+DROP TABLE IF EXISTS invoice_archive_summaries;
+CREATE TABLE invoice_archive_summaries (
+    record_id serial unique,
+    archived_up_to date NOT NULL,
+    nb_invoices int NOT NULL,
+    balance numeric(15,9) NOT NULL,
+    cba numeric(15,9) NOT NULL,
+    updated_date datetime NOT NULL,
+    account_record_id bigint /*! unsigned */ not null,
+    tenant_record_id bigint /*! unsigned */ not null default 0,
+    PRIMARY KEY(record_id)
+) /*! CHARACTER SET utf8 COLLATE utf8_bin */;
+CREATE UNIQUE INDEX invoice_archive_summaries_account_record_id ON invoice_archive_summaries(account_record_id);
+CREATE INDEX invoice_archive_summaries_tenant_account_record_id ON invoice_archive_summaries(tenant_record_id, account_record_id);
@@ -0,0 +1,21 @@
+DROP TABLE IF EXISTS invoice_parked_accounts_jobs;
+CREATE TABLE invoice_parked_accounts_jobs (
+    record_id serial unique,
+    id varchar(36) NOT NULL,
+    state varchar(32) NOT NULL,
+    enumeration_completed boolean NOT NULL default false,
+    last_enumerated_record_id bigint /*! unsigned */ not null default 0,
+    nb_accounts int NOT NULL default 0,
+    nb_processed int NOT NULL default 0,
+    nb_succeeded int NOT NULL default 0,
+    nb_nothing_to_do int NOT NULL default 0,
+    nb_failed int NOT NULL default 0,
+    created_by varchar(50) NOT NULL,
+    created_date datetime NOT NULL,
+    updated_date datetime NOT NULL,
+    completed_date datetime DEFAULT NULL,
+    tenant_record_id bigint /*! unsigned */ not null default 0,
+    PRIMARY KEY(record_id)
+) /*! CHARACTER SET utf8 COLLATE utf8_bin */;
+CREATE UNIQUE INDEX invoice_parked_accounts_jobs_id ON invoice_parked_accounts_jobs(id);
+CREATE INDEX invoice_parked_accounts_jobs_tenant_record_id ON invoice_parked_accounts_jobs(tenant_record_id);
@@ -0,0 +1,29 @@
+DROP TABLE IF EXISTS invoice_balances;
+CREATE TABLE invoice_balances (
+    record_id serial unique,
+    invoice_id varchar(36) NOT NULL,
+    balance numeric(15,9) NOT NULL,
+    parent_balance numeric(15,9) DEFAULT NULL,
+    in_account_balance bool NOT NULL,
+    written_off bool NOT NULL,
+    cba numeric(15,9) NOT NULL,
+    updated_date datetime NOT NULL,
+    account_record_id bigint /*! unsigned */ not null,
+    tenant_record_id bigint /*! unsigned */ not null default 0,
+    PRIMARY KEY(record_id)
+) /*! CHARACTER SET utf8 COLLATE utf8_bin */;
+CREATE UNIQUE INDEX invoice_balances_invoice_id ON invoice_balances(invoice_id);
+CREATE INDEX invoice_balances_tenant_account_record_id ON invoice_balances(tenant_record_id, account_record_id);
+
+DROP TABLE IF EXISTS invoice_account_balances;
+CREATE TABLE invoice_account_balances (
+    record_id serial unique,
+    balance numeric(15,9) NOT NULL,
+    cba numeric(15,9) NOT NULL,
+    updated_date datetime NOT NULL,
+    account_record_id bigint /*! unsigned */ not null,
+    tenant_record_id bigint /*! unsigned */ not null default 0,
+    PRIMARY KEY(record_id)
+) /*! CHARACTER SET utf8 COLLATE utf8_bin */;
+CREATE UNIQUE INDEX invoice_account_balances_account_record_id ON invoice_account_balances(account_record_id);
+CREATE INDEX invoice_account_balances_tenant_account_record_id ON invoice_account_balances(tenant_record_id, account_record_id);
@@ -0,0 +1,12 @@
+DROP TABLE IF EXISTS invoice_parked_accounts_job_chunks;
+CREATE TABLE invoice_parked_accounts_job_chunks (
+    record_id serial unique,
+    job_id varchar(36) NOT NULL,
+    from_record_id bigint /*! unsigned */ not null,
+    processed boolean NOT NULL default false,
+    created_date datetime NOT NULL,
+    updated_date datetime NOT NULL,
+    tenant_record_id bigint /*! unsigned */ not null default 0,
+    PRIMARY KEY(record_id)
+) /*! CHARACTER SET utf8 COLLATE utf8_bin */;
+CREATE UNIQUE INDEX invoice_parked_accounts_job_chunks_job_id_from_record_id ON invoice_parked_accounts_job_chunks(job_id, from_record_id);
@@ -0,0 +1 @@
+CREATE INDEX invoice_items_archive_subscription_id ON invoice_items_archive(subscription_id ASC);
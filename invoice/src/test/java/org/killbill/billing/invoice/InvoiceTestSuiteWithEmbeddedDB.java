@@ -106,6 +106,8 @@ public abstract class InvoiceTestSuiteWithEmbeddedDB extends GuicyKillbillTestSu
     protected InvoiceConfig invoiceConfig;
     @Inject
     protected ParkedAccountsManager parkedAccountsManager;
+    @Inject
+    protected InvoiceTriggerCoalescer invoiceTriggerCoalescer;
 
     @Override
     protected KillbillConfigSource getConfigSource(final Map<String, String> extraProperties) {
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2014-2019 Groupon, Inc
+ * Copyright 2014-2019 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.invoice;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.UUID;
+
+import org.joda.time.LocalDate;
+import org.killbill.billing.catalog.api.Currency;
+import org.killbill.billing.invoice.api.Invoice;
+import org.killbill.billing.invoice.api.InvoiceApiException;
+import org.killbill.billing.invoice.api.InvoiceItem;
+import org.killbill.billing.invoice.api.InvoiceStatus;
+import org.killbill.billing.invoice.dao.InvoiceItemModelDao;
+import org.killbill.billing.invoice.generator.InvoiceWithMetadata;
+import org.killbill.billing.invoice.generator.InvoiceWithMetadata.SubscriptionFutureNotificationDates;
+import org.killbill.billing.invoice.generator.InvoiceWithMetadata.TrackingRecordId;
+import org.killbill.billing.invoice.model.DefaultInvoice;
+import org.killbill.billing.invoice.model.RecurringInvoiceItem;
+import org.killbill.billing.invoice.model.RepairAdjInvoiceItem;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+public class TestArchivedPeriodsFilter extends InvoiceTestSuiteNoDB {
+
+    private final UUID accountId = UUID.randomUUID();
+    private final UUID bundleId = UUID.randomUUID();
+    private final UUID subscriptionId = UUID.randomUUID();
+
+    @Test(groups = "fast")
+    public void testItemsOfArchivedInvoicesAreIgnored() throws InvoiceApiException {
+        final InvoiceItemModelDao archivedItem = new InvoiceItemModelDao(createRecurringItem(UUID.randomUUID(), subscriptionId, "plan-a", new LocalDate(2019, 1, 1), new LocalDate(2019, 2, 1), "10"));
+
+        final DefaultInvoice proposedInvoice = createInvoice();
+        proposedInvoice.addInvoiceItem(createRecurringItem(proposedInvoice.getId(), subscriptionId, "plan-a", new LocalDate(2019, 1, 1), new LocalDate(2019, 2, 1), "10"));
+        final InvoiceItem nextPeriodItem = createRecurringItem(proposedInvoice.getId(), subscriptionId, "plan-a", new LocalDate(2019, 2, 1), new LocalDate(2019, 3, 1), "10");
+        proposedInvoice.addInvoiceItem(nextPeriodItem);
+
+        final InvoiceWithMetadata result = ArchivedPeriodsFilter.filter(createInvoiceWithMetadata(proposedInvoice), ImmutableList.<Invoice>of(), ImmutableList.<InvoiceItemModelDao>of(archivedItem));
+        Assert.assertEquals(result.getInvoice().getInvoiceItems().size(), 1);
+        Assert.assertEquals(result.getInvoice().getInvoiceItems().get(0).getId(), nextPeriodItem.getId());
+    }
+
+    @Test(groups = "fast")
+    public void testOnlyArchivedItemsLeavesNothingToInvoice() throws InvoiceApiException {
+        final InvoiceItemModelDao archivedItem = new InvoiceItemModelDao(createRecurringItem(UUID.randomUUID(), subscriptionId, "plan-a", new LocalDate(2019, 1, 1), new LocalDate(2019, 2, 1), "10"));
+
+        final DefaultInvoice proposedInvoice = createInvoice();
+        proposedInvoice.addInvoiceItem(createRecurringItem(proposedInvoice.getId(), subscriptionId, "plan-a", new LocalDate(2019, 1, 1), new LocalDate(2019, 2, 1), "10"));
+
+        final InvoiceWithMetadata result = ArchivedPeriodsFilter.filter(createInvoiceWithMetadata(proposedInvoice), ImmutableList.<Invoice>of(), ImmutableList.<InvoiceItemModelDao>of(archivedItem));
+        Assert.assertNull(result.getInvoice());
+    }
+
+    @Test(groups = "fast", expectedExceptions = InvoiceApiException.class)
+    public void testBackdatedChangeInArchivedPeriodFails() throws InvoiceApiException {
+        final InvoiceItemModelDao archivedItem = new InvoiceItemModelDao(createRecurringItem(UUID.randomUUID(), subscriptionId, "plan-a", new LocalDate(2019, 1, 1), new LocalDate(2019, 2, 1), "10"));
+
+        // Change plan on 2019-01-15, backdated into the archived period: the archived item would need to be repaired
+        final DefaultInvoice proposedInvoice = createInvoice();
+        proposedInvoice.addInvoiceItem(createRecurringItem(proposedInvoice.getId(), subscriptionId, "plan-b", new LocalDate(2019, 1, 15), new LocalDate(2019, 2, 1), "11.29"));
+
+        ArchivedPeriodsFilter.filter(createInvoiceWithMetadata(proposedInvoice), ImmutableList.<Invoice>of(), ImmutableList.<InvoiceItemModelDao>of(archivedItem));
+    }
+
+    @Test(groups = "fast")
+    public void testRepairOfLiveItemIsKept() throws InvoiceApiException {
+        final InvoiceItemModelDao archivedItem = new InvoiceItemModelDao(createRecurringItem(UUID.randomUUID(), subscriptionId, "plan-a", new LocalDate(2019, 1, 1), new LocalDate(2019, 2, 1), "10"));
+
+        // The February invoice wasn't archived
+        final DefaultInvoice existingInvoice = createInvoice();
+        final InvoiceItem liveItem = createRecurringItem(existingInvoice.getId(), subscriptionId, "plan-a", new LocalDate(2019, 2, 1), new LocalDate(2019, 3, 1), "10");
+        existingInvoice.addInvoiceItem(liveItem);
+
+        // Change plan on 2019-02-15: repair of the live item and new item for the remaining of the period
+        final DefaultInvoice proposedInvoice = createInvoice();
+        proposedInvoice.addInvoiceItem(new RepairAdjInvoiceItem(proposedInvoice.getId(), accountId, new LocalDate(2019, 2, 15), new LocalDate(2019, 3, 1), new BigDecimal("-5"), Currency.USD, liveItem.getId()));
+        proposedInvoice.addInvoiceItem(createRecurringItem(proposedInvoice.getId(), subscriptionId, "plan-b", new LocalDate(2019, 2, 15), new LocalDate(2019, 3, 1), "11"));
+
+        final InvoiceWithMetadata result = ArchivedPeriodsFilter.filter(createInvoiceWithMetadata(proposedInvoice), ImmutableList.<Invoice>of(existingInvoice), ImmutableList.<InvoiceItemModelDao>of(archivedItem));
+        Assert.assertEquals(result.getInvoice().getInvoiceItems().size(), 2);
+    }
+
+    @Test(groups = "fast")
+    public void testPeriodNotArchivedForSubscriptionIsKept() throws InvoiceApiException {
+        final InvoiceItemModelDao archivedItem = new InvoiceItemModelDao(createRecurringItem(UUID.randomUUID(), subscriptionId, "plan-a", new LocalDate(2019, 1, 1), new LocalDate(2019, 2, 1), "10"));
+
+        // Backdated creation of another subscription, before the archived up to date of the account
+        final UUID otherSubscriptionId = UUID.randomUUID();
+        final DefaultInvoice proposedInvoice = createInvoice();
+        proposedInvoice.addInvoiceItem(createRecurringItem(proposedInvoice.getId(), otherSubscriptionId, "plan-a", new LocalDate(2019, 1, 1), new LocalDate(2019, 2, 1), "10"));
+
+        final InvoiceWithMetadata result = ArchivedPeriodsFilter.filter(createInvoiceWithMetadata(proposedInvoice), ImmutableList.<Invoice>of(), ImmutableList.<InvoiceItemModelDao>of(archivedItem));
+        Assert.assertEquals(result.getInvoice().getInvoiceItems().size(), 1);
+    }
+
+    private DefaultInvoice createInvoice() {
+        return new DefaultInvoice(accountId, new LocalDate(2019, 3, 1), new LocalDate(2019, 3, 1), Currency.USD, InvoiceStatus.COMMITTED);
+    }
+
+    private InvoiceItem createRecurringItem(final UUID invoiceId, final UUID subscriptionId, final String planName, final LocalDate startDate, final LocalDate endDate, final String amount) {
+        return new RecurringInvoiceItem(invoiceId, accountId, bundleId, subscriptionId, "product", planName, planName + "-evergreen", startDate, endDate,
+                                        new BigDecimal(amount), new BigDecimal("10"), Currency.USD);
+    }
+
+    private static InvoiceWithMetadata createInvoiceWithMetadata(final DefaultInvoice invoice) {
+        return new InvoiceWithMetadata(invoice, ImmutableSet.<TrackingRecordId>of(), new HashMap<UUID, SubscriptionFutureNotificationDates>());
+    }
+}
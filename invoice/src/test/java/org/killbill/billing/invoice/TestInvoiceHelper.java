@@ -82,6 +82,7 @@ import org.killbill.billing.util.callcontext.InternalCallContextFactory;
 import org.killbill.billing.util.config.definition.InvoiceConfig;
 import org.killbill.billing.util.currency.KillBillMoney;
 import org.killbill.billing.util.dao.NonEntityDao;
+import org.killbill.billing.util.metrics.BillingMetrics;
 import org.killbill.clock.Clock;
 import org.killbill.commons.locker.GlobalLocker;
 import org.killbill.notificationq.api.NotificationQueueService;
@@ -159,6 +160,7 @@ public class TestInvoiceHelper {
     private final Clock clock;
     private final NonEntityDao nonEntityDao;
     private final ParkedAccountsManager parkedAccountsManager;
+    private final InvoiceTriggerCoalescer invoiceTriggerCoalescer;
     private final MutableInternalCallContext internalCallContext;
     private final InternalCallContextFactory internalCallContextFactory;
     private final InvoiceConfig invoiceConfig;
@@ -173,7 +175,7 @@ public class TestInvoiceHelper {
     public TestInvoiceHelper(final InvoiceGenerator generator, final IDBI dbi,
                              final BillingInternalApi billingApi, final AccountInternalApi accountApi, final ImmutableAccountInternalApi immutableAccountApi, final InvoicePluginDispatcher invoicePluginDispatcher, final AccountUserApi accountUserApi, final SubscriptionBaseInternalApi subscriptionApi, final BusService busService,
                              final InvoiceDao invoiceDao, final GlobalLocker locker, final Clock clock, final NonEntityDao nonEntityDao, final NotificationQueueService notificationQueueService, final MutableInternalCallContext internalCallContext, final InvoiceConfig invoiceConfig,
-                             final ParkedAccountsManager parkedAccountsManager, final InternalCallContextFactory internalCallContextFactory) {
+                             final ParkedAccountsManager parkedAccountsManager, final InvoiceTriggerCoalescer invoiceTriggerCoalescer, final InternalCallContextFactory internalCallContextFactory) {
         this.generator = generator;
         this.billingApi = billingApi;
         this.accountApi = accountApi;
@@ -188,6 +190,7 @@ public class TestInvoiceHelper {
         this.nonEntityDao = nonEntityDao;
         this.notificationQueueService = notificationQueueService;
         this.parkedAccountsManager = parkedAccountsManager;
+        this.invoiceTriggerCoalescer = invoiceTriggerCoalescer;
         this.internalCallContext = internalCallContext;
         this.internalCallContextFactory = internalCallContextFactory;
         this.invoiceSqlDao = dbi.onDemand(InvoiceSqlDao.class);
@@ -237,7 +240,7 @@ public class TestInvoiceHelper {
     public Invoice generateInvoice(final UUID accountId, @Nullable final LocalDate targetDate, @Nullable final DryRunArguments dryRunArguments, final InternalCallContext internalCallContext) throws InvoiceApiException {
         final InvoiceDispatcher dispatcher = new InvoiceDispatcher(generator, accountApi, billingApi, subscriptionApi,
                                                                    invoiceDao, internalCallContextFactory, invoicePluginDispatcher, locker, busService.getBus(),
-                                                                   notificationQueueService, invoiceConfig, clock, parkedAccountsManager);
+                                                                   notificationQueueService, invoiceConfig, clock, parkedAccountsManager, invoiceTriggerCoalescer, new BillingMetrics());
 
         return dispatcher.processAccountFromNotificationOrBusEvent(accountId, targetDate, dryRunArguments, false, internalCallContext);
     }
@@ -26,6 +26,8 @@ import org.joda.time.DateTime;
 import org.killbill.billing.account.api.AccountInternalApi;
 import org.killbill.billing.invoice.api.InvoiceInternalApi;
 import org.killbill.billing.util.callcontext.InternalCallContextFactory;
+import org.killbill.billing.util.config.definition.RequestCacheConfig;
+import org.killbill.billing.util.metrics.BillingMetrics;
 import org.killbill.clock.Clock;
 import org.killbill.notificationq.api.NotificationQueueService;
 
@@ -40,8 +42,10 @@ public class TestInvoiceNotificationQListener extends InvoiceListener {
                                             final InternalCallContextFactory internalCallContextFactory,
                                             final InvoiceDispatcher dispatcher,
                                             final InvoiceInternalApi invoiceApi,
-                                            final NotificationQueueService notificationQueueService) {
-        super(accountApi, internalCallContextFactory, dispatcher, invoiceApi, notificationQueueService, clock);
+                                            final NotificationQueueService notificationQueueService,
+                                            final RequestCacheConfig requestCacheConfig,
+                                            final BillingMetrics billingMetrics) {
+        super(accountApi, internalCallContextFactory, dispatcher, invoiceApi, notificationQueueService, requestCacheConfig, billingMetrics, clock);
     }
 
     @Override
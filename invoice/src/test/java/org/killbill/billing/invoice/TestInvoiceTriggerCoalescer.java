@@ -0,0 +1,274 @@
+/*
+ * Copyright 2014-2019 Groupon, Inc
+ * Copyright 2014-2019 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.invoice;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.joda.time.LocalDate;
+import org.killbill.billing.ErrorCode;
+import org.killbill.billing.callcontext.InternalTenantContext;
+import org.killbill.billing.invoice.api.Invoice;
+import org.killbill.billing.invoice.api.InvoiceApiException;
+import org.killbill.billing.util.config.definition.InvoiceConfig;
+import org.killbill.billing.util.metrics.BillingMetrics;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static org.awaitility.Awaitility.await;
+
+public class TestInvoiceTriggerCoalescer extends InvoiceTestSuiteNoDB {
+
+    @Test(groups = "fast")
+    public void testNoCoalescingByDefault() throws Exception {
+        final BillingMetrics billingMetrics = new BillingMetrics();
+        final InvoiceTriggerCoalescer coalescer = new InvoiceTriggerCoalescer(createConfig(false), clock, billingMetrics);
+
+        final AtomicInteger nbRuns = new AtomicInteger(0);
+        final InvoiceTriggerCoalescer.InvoiceTrigger trigger = new InvoiceTriggerCoalescer.InvoiceTrigger() {
+            @Override
+            public Invoice run(final LocalDate targetDate, final boolean isRescheduled) throws InvoiceApiException {
+                Assert.assertNull(targetDate);
+                nbRuns.incrementAndGet();
+                return null;
+            }
+        };
+
+        final UUID accountId = UUID.randomUUID();
+        coalescer.coalesce(accountId, null, false, internalCallContext, trigger);
+        coalescer.coalesce(accountId, null, false, internalCallContext, trigger);
+
+        Assert.assertEquals(nbRuns.get(), 2);
+        Assert.assertEquals(billingMetrics.getCount(InvoiceTriggerCoalescer.TRIGGERS_METRIC_NAME), 0);
+    }
+
+    @Test(groups = "fast")
+    public void testTriggersMergedWhileRunInFlight() throws Exception {
+        final BillingMetrics billingMetrics = new BillingMetrics();
+        final InvoiceTriggerCoalescer coalescer = new InvoiceTriggerCoalescer(createConfig(true), clock, billingMetrics);
+        final BlockingTrigger trigger = new BlockingTrigger(null);
+
+        final UUID accountId = UUID.randomUUID();
+        final LocalDate today = internalCallContext.toLocalDate(clock.getUTCNow());
+        final LocalDate latestTargetDate = today.plusDays(3);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final Future<Invoice> leader = submit(executor, coalescer, accountId, today, true, trigger);
+            trigger.awaitFirstRunStarted();
+
+            final List<Future<Invoice>> followers = new ArrayList<Future<Invoice>>();
+            followers.add(submit(executor, coalescer, accountId, today.plusDays(1), true, trigger));
+            followers.add(submit(executor, coalescer, accountId, latestTargetDate, false, trigger));
+            followers.add(submit(executor, coalescer, accountId, null, true, trigger));
+            // One of the followers created the pending run, the two others were merged into it
+            awaitCoalesced(billingMetrics, 2);
+
+            trigger.releaseFirstRun();
+
+            Assert.assertSame(leader.get(), trigger.getInvoices().get(0));
+            for (final Future<Invoice> follower : followers) {
+                Assert.assertSame(follower.get(), trigger.getInvoices().get(1));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Assert.assertEquals(trigger.getTargetDates().size(), 2);
+        Assert.assertEquals(trigger.getTargetDates().get(0), today);
+        Assert.assertEquals(trigger.getTargetDates().get(1), latestTargetDate);
+        Assert.assertEquals(trigger.getIsRescheduled().get(0), Boolean.TRUE);
+        Assert.assertEquals(trigger.getIsRescheduled().get(1), Boolean.FALSE);
+        Assert.assertEquals(billingMetrics.getCount(InvoiceTriggerCoalescer.TRIGGERS_METRIC_NAME), 4);
+        Assert.assertEquals(billingMetrics.getCount(InvoiceTriggerCoalescer.RUNS_METRIC_NAME), 2);
+        Assert.assertEquals(billingMetrics.getCount(InvoiceTriggerCoalescer.COALESCED_METRIC_NAME), 2);
+
+        // No run in flight anymore: the next trigger runs right away
+        coalescer.coalesce(accountId, today, false, internalCallContext, trigger);
+        Assert.assertEquals(trigger.getTargetDates().size(), 3);
+    }
+
+    @Test(groups = "fast")
+    public void testFailureRethrownToMergedTriggers() throws Exception {
+        final BillingMetrics billingMetrics = new BillingMetrics();
+        final InvoiceTriggerCoalescer coalescer = new InvoiceTriggerCoalescer(createConfig(true), clock, billingMetrics);
+        final InvoiceApiException failure = new InvoiceApiException(ErrorCode.UNEXPECTED_ERROR, "Failed merged run");
+        final BlockingTrigger trigger = new BlockingTrigger(failure);
+
+        final UUID accountId = UUID.randomUUID();
+        final LocalDate today = internalCallContext.toLocalDate(clock.getUTCNow());
+
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final Future<Invoice> leader = submit(executor, coalescer, accountId, today, false, trigger);
+            trigger.awaitFirstRunStarted();
+
+            final List<Future<Invoice>> followers = new ArrayList<Future<Invoice>>();
+            for (int i = 0; i < 3; i++) {
+                followers.add(submit(executor, coalescer, accountId, today, false, trigger));
+            }
+            awaitCoalesced(billingMetrics, 2);
+
+            trigger.releaseFirstRun();
+
+            Assert.assertNotNull(leader.get());
+            for (final Future<Invoice> follower : followers) {
+                try {
+                    follower.get();
+                    Assert.fail("The failure of the merged run should have been rethrown");
+                } catch (final ExecutionException e) {
+                    Assert.assertSame(e.getCause(), failure);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Assert.assertEquals(billingMetrics.getCount(InvoiceTriggerCoalescer.RUNS_METRIC_NAME), 2);
+    }
+
+    @Test(groups = "fast")
+    public void testAccountsAreNotSerialized() throws Exception {
+        final BillingMetrics billingMetrics = new BillingMetrics();
+        final InvoiceTriggerCoalescer coalescer = new InvoiceTriggerCoalescer(createConfig(true), clock, billingMetrics);
+        final BlockingTrigger blockingTrigger = new BlockingTrigger(null);
+
+        final LocalDate today = internalCallContext.toLocalDate(clock.getUTCNow());
+
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final Future<Invoice> blockedRun = submit(executor, coalescer, UUID.randomUUID(), today, false, blockingTrigger);
+            blockingTrigger.awaitFirstRunStarted();
+
+            // Next billing date notifications of another account don't wait for the in-flight run (nor for a slot)
+            final AtomicInteger nbRuns = new AtomicInteger(0);
+            coalescer.coalesce(UUID.randomUUID(), today, false, internalCallContext, new InvoiceTriggerCoalescer.InvoiceTrigger() {
+                @Override
+                public Invoice run(final LocalDate targetDate, final boolean isRescheduled) throws InvoiceApiException {
+                    nbRuns.incrementAndGet();
+                    return null;
+                }
+            });
+            Assert.assertEquals(nbRuns.get(), 1);
+
+            blockingTrigger.releaseFirstRun();
+            Assert.assertNotNull(blockedRun.get());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Assert.assertEquals(billingMetrics.getCount(InvoiceTriggerCoalescer.COALESCED_METRIC_NAME), 0);
+    }
+
+    private InvoiceConfig createConfig(final boolean isTriggerCoalescingEnabled) {
+        final InvoiceConfig config = Mockito.mock(InvoiceConfig.class);
+        Mockito.when(config.isTriggerCoalescingEnabled(Mockito.<InternalTenantContext>any())).thenReturn(isTriggerCoalescingEnabled);
+        return config;
+    }
+
+    private Future<Invoice> submit(final ExecutorService executor,
+                                   final InvoiceTriggerCoalescer coalescer,
+                                   final UUID accountId,
+                                   final LocalDate targetDate,
+                                   final boolean isRescheduled,
+                                   final InvoiceTriggerCoalescer.InvoiceTrigger trigger) {
+        return executor.submit(new Callable<Invoice>() {
+            @Override
+            public Invoice call() throws Exception {
+                return coalescer.coalesce(accountId, targetDate, isRescheduled, internalCallContext, trigger);
+            }
+        });
+    }
+
+    private void awaitCoalesced(final BillingMetrics billingMetrics, final long nbCoalesced) {
+        await().atMost(1, MINUTES).until(new Callable<Boolean>() {
+            @Override
+            public Boolean call() throws Exception {
+                return billingMetrics.getCount(InvoiceTriggerCoalescer.COALESCED_METRIC_NAME) == nbCoalesced;
+            }
+        });
+    }
+
+    // Holds the first run until released, and fails the subsequent ones with the specified exception (if any)
+    private static final class BlockingTrigger implements InvoiceTriggerCoalescer.InvoiceTrigger {
+
+        private final InvoiceApiException subsequentRunsFailure;
+        private final CountDownLatch firstRunStarted = new CountDownLatch(1);
+        private final CountDownLatch firstRunReleased = new CountDownLatch(1);
+        private final List<LocalDate> targetDates = new CopyOnWriteArrayList<LocalDate>();
+        private final List<Boolean> isRescheduled = new CopyOnWriteArrayList<Boolean>();
+        private final List<Invoice> invoices = new CopyOnWriteArrayList<Invoice>();
+
+        private BlockingTrigger(final InvoiceApiException subsequentRunsFailure) {
+            this.subsequentRunsFailure = subsequentRunsFailure;
+        }
+
+        @Override
+        public Invoice run(final LocalDate targetDate, final boolean isRescheduled) throws InvoiceApiException {
+            final boolean isFirstRun = targetDates.isEmpty();
+            targetDates.add(targetDate);
+            this.isRescheduled.add(isRescheduled);
+            if (isFirstRun) {
+                firstRunStarted.countDown();
+                try {
+                    firstRunReleased.await();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException(e);
+                }
+            } else if (subsequentRunsFailure != null) {
+                throw subsequentRunsFailure;
+            }
+
+            final Invoice invoice = Mockito.mock(Invoice.class);
+            invoices.add(invoice);
+            return invoice;
+        }
+
+        private void awaitFirstRunStarted() throws InterruptedException {
+            firstRunStarted.await();
+        }
+
+        private void releaseFirstRun() {
+            firstRunReleased.countDown();
+        }
+
+        private List<LocalDate> getTargetDates() {
+            return targetDates;
+        }
+
+        private List<Boolean> getIsRescheduled() {
+            return isRescheduled;
+        }
+
+        private List<Invoice> getInvoices() {
+            return invoices;
+        }
+    }
+}
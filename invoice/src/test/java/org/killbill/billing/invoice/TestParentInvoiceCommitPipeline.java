@@ -0,0 +1,102 @@
+/*
+ * Copyright 2014-2019 Groupon, Inc
+ * Copyright 2014-2019 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.invoice;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.killbill.billing.util.config.definition.InvoiceConfig;
+import org.killbill.billing.util.metrics.BillingMetrics;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+
+public class TestParentInvoiceCommitPipeline extends InvoiceTestSuiteNoDB {
+
+    @Test(groups = "fast")
+    public void testChildAccountsProcessedConcurrentlyInBatches() throws Exception {
+        final ParentInvoiceCommitPipeline pipeline = new ParentInvoiceCommitPipeline(null, null, null, null, createConfig(3, 2), new BillingMetrics(), clock);
+        pipeline.initialize();
+        try {
+            final List<UUID> childAccountIds = new ArrayList<UUID>();
+            for (int i = 0; i < 7; i++) {
+                childAccountIds.add(UUID.randomUUID());
+            }
+            final UUID failingChildAccountId = childAccountIds.get(3);
+
+            final ConcurrentMap<UUID, AtomicInteger> nbRunsPerChildAccount = new ConcurrentHashMap<UUID, AtomicInteger>();
+            final Set<String> threadNames = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+            final List<UUID> failedChildAccountIds = pipeline.processChildAccounts(childAccountIds,
+                                                                                   new ParentInvoiceCommitPipeline.ChildAccountStep() {
+                                                                                       @Override
+                                                                                       public void process(final UUID childAccountId) throws Exception {
+                                                                                           nbRunsPerChildAccount.putIfAbsent(childAccountId, new AtomicInteger(0));
+                                                                                           nbRunsPerChildAccount.get(childAccountId).incrementAndGet();
+                                                                                           threadNames.add(Thread.currentThread().getName());
+                                                                                           if (childAccountId.equals(failingChildAccountId)) {
+                                                                                               throw new IllegalStateException("Simulated failure");
+                                                                                           }
+                                                                                       }
+                                                                                   });
+
+            // The failure doesn't prevent the other child accounts of the batch from being processed, and the failed one is returned to be retried
+            Assert.assertEquals(failedChildAccountIds, ImmutableList.<UUID>of(failingChildAccountId));
+            Assert.assertEquals(nbRunsPerChildAccount.size(), childAccountIds.size());
+            for (final AtomicInteger nbRuns : nbRunsPerChildAccount.values()) {
+                Assert.assertEquals(nbRuns.get(), 1);
+            }
+            for (final String threadName : threadNames) {
+                Assert.assertTrue(threadName.startsWith("parent-commit-th-"));
+            }
+        } finally {
+            pipeline.stop();
+        }
+    }
+
+    @Test(groups = "fast")
+    public void testChildAccountsProcessedInlineWhenNotInitialized() throws Exception {
+        final ParentInvoiceCommitPipeline pipeline = new ParentInvoiceCommitPipeline(null, null, null, null, createConfig(3, 2), new BillingMetrics(), clock);
+
+        final AtomicInteger nbRuns = new AtomicInteger();
+        final List<UUID> failedChildAccountIds = pipeline.processChildAccounts(ImmutableList.<UUID>of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID()),
+                                                                               new ParentInvoiceCommitPipeline.ChildAccountStep() {
+                                                                                   @Override
+                                                                                   public void process(final UUID childAccountId) {
+                                                                                       Assert.assertFalse(Thread.currentThread().getName().startsWith("parent-commit-th-"));
+                                                                                       nbRuns.incrementAndGet();
+                                                                                   }
+                                                                               });
+        Assert.assertTrue(failedChildAccountIds.isEmpty());
+        Assert.assertEquals(nbRuns.get(), 3);
+    }
+
+    private InvoiceConfig createConfig(final int nbThreads, final int batchSize) {
+        final InvoiceConfig config = Mockito.mock(InvoiceConfig.class);
+        Mockito.when(config.getParentCommitPipelineNbThreads()).thenReturn(nbThreads);
+        Mockito.when(config.getParentCommitPipelineBatchSize()).thenReturn(batchSize);
+        return config;
+    }
+}
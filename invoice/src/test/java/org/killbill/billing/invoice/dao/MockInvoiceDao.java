@@ -28,12 +28,14 @@ import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 
+import org.joda.time.DateTime;
 import org.joda.time.LocalDate;
 import org.killbill.billing.account.api.Account;
 import org.killbill.billing.callcontext.InternalCallContext;
 import org.killbill.billing.callcontext.InternalTenantContext;
 import org.killbill.billing.catalog.api.Currency;
 import org.killbill.billing.invoice.InvoiceDispatcher.FutureAccountNotifications;
+import org.killbill.billing.invoice.api.AccountBalanceLedger;
 import org.killbill.billing.invoice.api.Invoice;
 import org.killbill.billing.invoice.api.InvoiceApiException;
 import org.killbill.billing.invoice.api.InvoiceStatus;
@@ -424,6 +426,16 @@ public class MockInvoiceDao extends MockEntityDaoBase<InvoiceModelDao, Invoice,
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public Map<UUID, Collection<UUID>> commitParentInvoice(final UUID parentInvoiceId, final InternalCallContext context) throws InvoiceApiException {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void refreshChildAccountBalance(final UUID childAccountId, final Collection<UUID> childInvoiceIds, final InternalCallContext parentContext) {
+        throw new UnsupportedOperationException();
+    }
+
     public void updateInvoiceItemAmount(final UUID invoiceItemId, final BigDecimal amount, final InternalCallContext context) throws InvoiceApiException {
         throw new UnsupportedOperationException();
     }
@@ -442,4 +454,40 @@ public class MockInvoiceDao extends MockEntityDaoBase<InvoiceModelDao, Invoice,
     public List<InvoiceTrackingModelDao> getTrackingsByDateRange(final LocalDate startDate, final LocalDate endDate, final InternalCallContext context) {
         throw new UnsupportedOperationException();
     }
+
+    @Override
+    public void refreshAccountBalances(final InternalCallContext context) {
+        // Balances are always computed on the fly
+    }
+
+    @Override
+    public void refreshInvoiceBalance(final UUID invoiceId, final InternalCallContext context) {
+        // Balances are always computed on the fly
+    }
+
+    @Override
+    public AccountBalanceLedger verifyAccountBalances(final UUID accountId, final InternalTenantContext context) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<UUID> archiveInvoices(final LocalDate horizonDate, final DateTime paymentActivityDate, final InternalCallContext context) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<InvoiceModelDao> getArchivedInvoices(final InternalTenantContext context) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<InvoiceItemModelDao> getArchivedPeriodItems(final Collection<UUID> subscriptionIds, final LocalDate fromDate, final InternalTenantContext context) {
+        return ImmutableList.<InvoiceItemModelDao>of();
+    }
+
+    @Override
+    public InvoiceArchiveSummaryModelDao getArchiveSummary(final InternalTenantContext context) {
+        // No archived invoice
+        return null;
+    }
 }
@@ -48,6 +48,7 @@ import org.killbill.billing.catalog.api.Product;
 import org.killbill.billing.entity.EntityPersistenceException;
 import org.killbill.billing.invoice.InvoiceTestSuiteWithEmbeddedDB;
 import org.killbill.billing.invoice.MockBillingEventSet;
+import org.killbill.billing.invoice.api.AccountBalanceLedger;
 import org.killbill.billing.invoice.api.Invoice;
 import org.killbill.billing.invoice.api.InvoiceApiException;
 import org.killbill.billing.invoice.api.InvoiceItem;
@@ -87,6 +88,7 @@ import static org.killbill.billing.invoice.TestInvoiceHelper.TEN;
 import static org.killbill.billing.invoice.TestInvoiceHelper.TWENTY;
 import static org.killbill.billing.invoice.TestInvoiceHelper.ZERO;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
@@ -535,6 +537,126 @@ public class TestInvoiceDao extends InvoiceTestSuiteWithEmbeddedDB {
         assertEquals(balance.compareTo(rate1.add(rate2).subtract(payment1)), 0);
     }
 
+    @Test(groups = "slow")
+    public void testMaterializedAccountBalances() throws EntityPersistenceException, InvoiceApiException {
+        final UUID accountId = account.getId();
+        final UUID bundleId = UUID.randomUUID();
+        final LocalDate targetDate1 = new LocalDate(2011, 10, 6);
+        final Invoice invoice1 = new DefaultInvoice(accountId, clock.getUTCToday(), targetDate1, Currency.USD);
+        invoiceUtil.createInvoice(invoice1, context);
+
+        final LocalDate startDate = new LocalDate(2011, 3, 1);
+        final LocalDate endDate = startDate.plusMonths(1);
+        final BigDecimal rate1 = new BigDecimal("17.0");
+        final RecurringInvoiceItem item1 = new RecurringInvoiceItem(invoice1.getId(), accountId, bundleId, UUID.randomUUID(), "test product", "test plan", "test phase A", startDate,
+                                                                    endDate, rate1, rate1, Currency.USD);
+        invoiceUtil.createInvoiceItem(item1, context);
+
+        final BigDecimal payment1 = new BigDecimal("5.0");
+        final InvoicePayment payment = new DefaultInvoicePayment(InvoicePaymentType.ATTEMPT, UUID.randomUUID(), invoice1.getId(), new DateTime(), payment1, Currency.USD, Currency.USD, null, true);
+        invoiceUtil.createPayment(payment, context);
+
+        // Go through the DAO to generate some credit
+        final InvoiceItemModelDao credit = createCredit(accountId, clock.getUTCToday(), new BigDecimal("20.0"), false);
+        assertNotNull(credit);
+
+        final AccountBalanceLedger ledger = invoiceDao.verifyAccountBalances(accountId, context);
+        assertFalse(ledger.hasDrift());
+        assertTrue(ledger.getDriftedComputedInvoiceBalances().isEmpty());
+        assertEquals(ledger.getMaterializedBalance().compareTo(ledger.getComputedBalance()), 0);
+        assertEquals(ledger.getMaterializedCBA().compareTo(ledger.getComputedCBA()), 0);
+        assertEquals(invoiceDao.getAccountBalance(accountId, context).compareTo(ledger.getComputedBalance()), 0);
+        assertEquals(invoiceDao.getAccountCBA(accountId, context).compareTo(ledger.getComputedCBA()), 0);
+
+        // Subsequent writes only apply the difference for the invoices they touch
+        final InvoiceItemModelDao credit2 = createCredit(accountId, clock.getUTCToday(), new BigDecimal("3.0"), false);
+        assertNotNull(credit2);
+
+        final AccountBalanceLedger ledger2 = invoiceDao.verifyAccountBalances(accountId, context);
+        assertFalse(ledger2.hasDrift());
+        assertEquals(ledger2.getMaterializedCBA().compareTo(ledger.getComputedCBA().add(new BigDecimal("3.0"))), 0);
+        assertEquals(invoiceDao.getAccountBalance(accountId, context).compareTo(ledger2.getComputedBalance()), 0);
+    }
+
+    @Test(groups = "slow")
+    public void testArchiveInvoices() throws EntityPersistenceException, InvoiceApiException {
+        final UUID accountId = account.getId();
+        final UUID bundleId = UUID.randomUUID();
+
+        // Paid invoice
+        final LocalDate startDate1 = new LocalDate(2011, 3, 1);
+        final Invoice invoice1 = new DefaultInvoice(accountId, startDate1, startDate1, Currency.USD);
+        invoiceUtil.createInvoice(invoice1, context);
+        final BigDecimal rate = new BigDecimal("17.0");
+        final RecurringInvoiceItem item1 = new RecurringInvoiceItem(invoice1.getId(), accountId, bundleId, UUID.randomUUID(), "test product", "test plan", "test phase A", startDate1,
+                                                                    startDate1.plusMonths(1), rate, rate, Currency.USD);
+        invoiceUtil.createInvoiceItem(item1, context);
+        final InvoicePayment payment = new DefaultInvoicePayment(InvoicePaymentType.ATTEMPT, UUID.randomUUID(), invoice1.getId(), new DateTime(), rate, Currency.USD, Currency.USD, null, true);
+        invoiceUtil.createPayment(payment, context);
+        // Refunds and chargebacks are over for that payment
+        final DateTime paymentActivityDate = payment.getPaymentDate().plusDays(1);
+
+        // Unpaid invoice
+        final LocalDate startDate2 = new LocalDate(2011, 4, 1);
+        final Invoice invoice2 = new DefaultInvoice(accountId, startDate2, startDate2, Currency.USD);
+        invoiceUtil.createInvoice(invoice2, context);
+        final RecurringInvoiceItem item2 = new RecurringInvoiceItem(invoice2.getId(), accountId, bundleId, UUID.randomUUID(), "test product", "test plan", "test phase A", startDate2,
+                                                                    startDate2.plusMonths(1), rate, rate, Currency.USD);
+        invoiceUtil.createInvoiceItem(item2, context);
+
+        // Credit invoice (CREDIT_ADJ and CBA_ADJ items)
+        final InvoiceItemModelDao credit = createCredit(accountId, new LocalDate(2011, 5, 1), new BigDecimal("20.0"), false);
+
+        final BigDecimal accountBalance = invoiceDao.getAccountBalance(accountId, context);
+        final BigDecimal accountCBA = invoiceDao.getAccountCBA(accountId, context);
+
+        // Nothing before the horizon
+        assertTrue(invoiceDao.archiveInvoices(new LocalDate(2011, 2, 1), paymentActivityDate, context).isEmpty());
+        assertNull(invoiceDao.getArchiveSummary(context));
+
+        // The payment can still be refunded or charged back: only the credit invoice is archivable
+        final List<UUID> archivedCreditInvoiceIds = invoiceDao.archiveInvoices(new LocalDate(2012, 1, 1), payment.getPaymentDate(), context);
+        assertEquals(archivedCreditInvoiceIds.size(), 1);
+        assertTrue(archivedCreditInvoiceIds.contains(credit.getInvoiceId()));
+
+        final List<UUID> archivedInvoiceIds = invoiceDao.archiveInvoices(new LocalDate(2012, 1, 1), paymentActivityDate, context);
+        assertEquals(archivedInvoiceIds.size(), 2);
+        assertTrue(archivedInvoiceIds.contains(invoice1.getId()));
+        assertTrue(archivedInvoiceIds.contains(credit.getInvoiceId()));
+
+        // The default read paths skip the archived invoices
+        final List<InvoiceModelDao> invoices = invoiceDao.getInvoicesByAccount(false, context);
+        assertEquals(invoices.size(), 1);
+        assertEquals(invoices.get(0).getId(), invoice2.getId());
+
+        // The balance and the credit are carried forward
+        assertEquals(invoiceDao.getAccountBalance(accountId, context).compareTo(accountBalance), 0);
+        assertEquals(invoiceDao.getAccountCBA(accountId, context).compareTo(accountCBA), 0);
+        assertFalse(invoiceDao.verifyAccountBalances(accountId, context).hasDrift());
+
+        final InvoiceArchiveSummaryModelDao summary = invoiceDao.getArchiveSummary(context);
+        assertEquals(summary.getNbInvoices(), 2);
+        assertEquals(summary.getBalance().compareTo(BigDecimal.ZERO), 0);
+        assertEquals(summary.getCba().compareTo(new BigDecimal("20.0")), 0);
+        assertEquals(summary.getArchivedUpTo(), new LocalDate(2011, 5, 1));
+
+        final List<InvoiceModelDao> archivedInvoices = invoiceDao.getArchivedInvoices(context);
+        assertEquals(archivedInvoices.size(), 2);
+        assertEquals(archivedInvoices.get(0).getId(), invoice1.getId());
+        assertEquals(archivedInvoices.get(0).getInvoiceItems().size(), 1);
+        assertEquals(archivedInvoices.get(0).getInvoicePayments().size(), 1);
+        assertEquals(archivedInvoices.get(1).getId(), credit.getInvoiceId());
+        assertEquals(archivedInvoices.get(1).getInvoiceItems().size(), 2);
+
+        // Only the archived periods of the requested subscriptions, overlapping with the requested start date, are returned
+        assertEquals(invoiceDao.getArchivedPeriodItems(ImmutableList.<UUID>of(item1.getSubscriptionId()), startDate1, context).size(), 1);
+        assertTrue(invoiceDao.getArchivedPeriodItems(ImmutableList.<UUID>of(item1.getSubscriptionId()), item1.getEndDate(), context).isEmpty());
+        assertTrue(invoiceDao.getArchivedPeriodItems(ImmutableList.<UUID>of(item2.getSubscriptionId()), startDate1, context).isEmpty());
+
+        // Archiving again is a no-op
+        assertTrue(invoiceDao.archiveInvoices(new LocalDate(2012, 1, 1), paymentActivityDate, context).isEmpty());
+    }
+
     @Test(groups = "slow")
     public void testAccountBalanceWithCredit() throws EntityPersistenceException {
         final UUID accountId = account.getId();
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2014-2019 Groupon, Inc
+ * Copyright 2014-2019 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.invoice.dao;
+
+import java.sql.Connection;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.inject.Inject;
+
+import org.killbill.billing.invoice.InvoiceTestSuiteWithEmbeddedDB;
+import org.killbill.billing.invoice.dao.ParkedAccountsJobDao.ConnectionCallback;
+import org.killbill.billing.invoice.dao.ParkedAccountsJobModelDao.ParkedAccountsJobState;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestParkedAccountsJobDao extends InvoiceTestSuiteWithEmbeddedDB {
+
+    @Inject
+    private ParkedAccountsJobDao parkedAccountsJobDao;
+
+    @Test(groups = "slow")
+    public void testJobProgress() {
+        final AtomicInteger nbCallbacks = new AtomicInteger();
+        final ConnectionCallback callback = new ConnectionCallback() {
+            @Override
+            public void withConnection(final Connection connection) {
+                nbCallbacks.incrementAndGet();
+            }
+        };
+
+        final UUID jobId = UUID.randomUUID();
+        parkedAccountsJobDao.create(new ParkedAccountsJobModelDao(jobId, "test", clock.getUTCNow(), internalCallContext.getTenantRecordId()), callback);
+        Assert.assertEquals(nbCallbacks.get(), 1);
+
+        ParkedAccountsJobModelDao job = parkedAccountsJobDao.getById(jobId, internalCallContext.getTenantRecordId());
+        Assert.assertEquals(job.getState(), ParkedAccountsJobState.RUNNING);
+        Assert.assertFalse(job.isEnumerationCompleted());
+        Assert.assertEquals((long) job.getLastEnumeratedRecordId(), 0L);
+
+        // First (full) page
+        Assert.assertTrue(parkedAccountsJobDao.recordEnumeratedPage(jobId, 0L, 12L, 2, false, callback, internalCallContext.getTenantRecordId()));
+        Assert.assertEquals(nbCallbacks.get(), 2);
+        // Redelivery of the same notification
+        Assert.assertFalse(parkedAccountsJobDao.recordEnumeratedPage(jobId, 0L, 12L, 2, false, callback, internalCallContext.getTenantRecordId()));
+        Assert.assertEquals(nbCallbacks.get(), 2);
+
+        // Last page
+        Assert.assertTrue(parkedAccountsJobDao.recordEnumeratedPage(jobId, 12L, 15L, 1, true, callback, internalCallContext.getTenantRecordId()));
+
+        Assert.assertTrue(parkedAccountsJobDao.recordProcessedAccounts(jobId, 0L, 1, 1, 0, internalCallContext.getTenantRecordId()));
+        job = parkedAccountsJobDao.getById(jobId, internalCallContext.getTenantRecordId());
+        Assert.assertEquals(job.getState(), ParkedAccountsJobState.RUNNING);
+        Assert.assertTrue(job.isEnumerationCompleted());
+        Assert.assertEquals(job.getNbAccounts(), 3);
+        Assert.assertEquals(job.getNbProcessed(), 2);
+
+        // Redelivery of the same chunk: not counted twice, so the job doesn't complete early
+        Assert.assertFalse(parkedAccountsJobDao.recordProcessedAccounts(jobId, 0L, 1, 1, 0, internalCallContext.getTenantRecordId()));
+        job = parkedAccountsJobDao.getById(jobId, internalCallContext.getTenantRecordId());
+        Assert.assertEquals(job.getState(), ParkedAccountsJobState.RUNNING);
+        Assert.assertEquals(job.getNbProcessed(), 2);
+
+        Assert.assertTrue(parkedAccountsJobDao.recordProcessedAccounts(jobId, 12L, 0, 0, 1, internalCallContext.getTenantRecordId()));
+        job = parkedAccountsJobDao.getById(jobId, internalCallContext.getTenantRecordId());
+        Assert.assertEquals(job.getState(), ParkedAccountsJobState.COMPLETED);
+        Assert.assertNotNull(job.getCompletedDate());
+        Assert.assertEquals(job.getNbProcessed(), 3);
+        Assert.assertEquals(job.getNbSucceeded(), 1);
+        Assert.assertEquals(job.getNbNothingToDo(), 1);
+        Assert.assertEquals(job.getNbFailed(), 1);
+        Assert.assertEquals((long) job.getLastEnumeratedRecordId(), 15L);
+    }
+
+    @Test(groups = "slow")
+    public void testEmptyJob() {
+        final ConnectionCallback noop = new ConnectionCallback() {
+            @Override
+            public void withConnection(final Connection connection) {
+            }
+        };
+
+        final UUID jobId = UUID.randomUUID();
+        parkedAccountsJobDao.create(new ParkedAccountsJobModelDao(jobId, "test", clock.getUTCNow(), internalCallContext.getTenantRecordId()), noop);
+        Assert.assertTrue(parkedAccountsJobDao.recordEnumeratedPage(jobId, 0L, 0L, 0, true, noop, internalCallContext.getTenantRecordId()));
+
+        final ParkedAccountsJobModelDao job = parkedAccountsJobDao.getById(jobId, internalCallContext.getTenantRecordId());
+        Assert.assertEquals(job.getState(), ParkedAccountsJobState.COMPLETED);
+        Assert.assertEquals(job.getNbAccounts(), 0);
+    }
+}
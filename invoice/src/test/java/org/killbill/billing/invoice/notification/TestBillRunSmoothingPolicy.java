@@ -0,0 +1,87 @@
+/*
+ * Copyright 2014-2019 Groupon, Inc
+ * Copyright 2014-2019 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.invoice.notification;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.killbill.billing.callcontext.InternalTenantContext;
+import org.killbill.billing.invoice.InvoiceTestSuiteNoDB;
+import org.killbill.billing.util.config.definition.InvoiceConfig;
+import org.mockito.Mockito;
+import org.skife.config.TimeSpan;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestBillRunSmoothingPolicy extends InvoiceTestSuiteNoDB {
+
+    private final DateTimeZone accountTimeZone = DateTimeZone.forOffsetHours(-8);
+
+    @Test(groups = "fast")
+    public void testNoSmoothingByDefault() {
+        final BillRunSmoothingPolicy policy = new BillRunSmoothingPolicy(createConfig("0s"));
+        final InternalTenantContext context = new InternalTenantContext(1L, 1L, accountTimeZone, new DateTime(2019, 1, 1, 0, 0, accountTimeZone));
+
+        final DateTime billingDateTime = new DateTime(2019, 5, 1, 0, 0, accountTimeZone);
+        Assert.assertEquals(policy.getNotificationTime(UUID.randomUUID(), billingDateTime, context), billingDateTime);
+    }
+
+    @Test(groups = "fast")
+    public void testSpreadWithinWindowAndBillingDay() {
+        final BillRunSmoothingPolicy policy = new BillRunSmoothingPolicy(createConfig("4h"));
+        final InternalTenantContext context = new InternalTenantContext(1L, 1L, accountTimeZone, new DateTime(2019, 1, 1, 0, 0, accountTimeZone));
+
+        final DateTime billingDateTime = new DateTime(2019, 5, 1, 0, 0, accountTimeZone);
+        final Set<Long> hours = new HashSet<Long>();
+        for (int i = 0; i < 200; i++) {
+            final UUID accountId = UUID.randomUUID();
+            final DateTime notificationTime = policy.getNotificationTime(accountId, billingDateTime, context);
+
+            Assert.assertFalse(notificationTime.isBefore(billingDateTime));
+            Assert.assertTrue(notificationTime.isBefore(billingDateTime.plusHours(4)));
+            // Deterministic per account
+            Assert.assertEquals(policy.getNotificationTime(accountId, billingDateTime, context), notificationTime);
+            hours.add((notificationTime.getMillis() - billingDateTime.getMillis()) / 3600000L);
+        }
+        // Accounts are spread over the whole window
+        Assert.assertEquals(hours.size(), 4);
+    }
+
+    @Test(groups = "fast")
+    public void testNeverMovedToTheNextDay() {
+        final BillRunSmoothingPolicy policy = new BillRunSmoothingPolicy(createConfig("4h"));
+        // Reference time late in the day: only 30 minutes are left on the billing day
+        final InternalTenantContext context = new InternalTenantContext(1L, 1L, accountTimeZone, new DateTime(2019, 1, 1, 23, 30, accountTimeZone));
+
+        final DateTime billingDateTime = context.toUTCDateTime(new DateTime(2019, 5, 1, 0, 0, accountTimeZone).toLocalDate());
+        for (int i = 0; i < 200; i++) {
+            final DateTime notificationTime = policy.getNotificationTime(UUID.randomUUID(), billingDateTime, context);
+            Assert.assertFalse(notificationTime.isBefore(billingDateTime));
+            Assert.assertEquals(context.toLocalDate(notificationTime), context.toLocalDate(billingDateTime));
+        }
+    }
+
+    private InvoiceConfig createConfig(final String smoothingWindow) {
+        final InvoiceConfig config = Mockito.mock(InvoiceConfig.class);
+        Mockito.when(config.getBillRunSmoothingWindow(Mockito.<InternalTenantContext>any())).thenReturn(new TimeSpan(smoothingWindow));
+        return config;
+    }
+}
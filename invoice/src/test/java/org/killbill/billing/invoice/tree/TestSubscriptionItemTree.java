@@ -1522,6 +1522,44 @@ public class TestSubscriptionItemTree extends InvoiceTestSuiteNoDB {
         verifyResult(tree.getView(), expectedResult);
     }
 
+    @Test(groups = "fast", description = "Merge over many service periods, with a plan change on the last ones")
+    public void testMergeWithManyPeriods() {
+        final LocalDate startDate = new LocalDate(2010, 1, 1);
+        final int nbPeriods = 120;
+        final int changePeriod = 100;
+
+        final BigDecimal monthlyRate1 = new BigDecimal("10.00");
+        final BigDecimal monthlyRate2 = new BigDecimal("20.00");
+        final BigDecimal fixedAmount = new BigDecimal("5.00");
+
+        final SubscriptionItemTree tree = new SubscriptionItemTree(subscriptionId, invoiceId);
+        final List<InvoiceItem> existingItems = new ArrayList<InvoiceItem>();
+        for (int i = 0; i < nbPeriods; i++) {
+            final InvoiceItem monthly = new RecurringInvoiceItem(invoiceId, accountId, bundleId, subscriptionId, productName, planName, phaseName, startDate.plusMonths(i), startDate.plusMonths(i + 1), monthlyRate1, monthlyRate1, currency);
+            existingItems.add(monthly);
+            tree.addItem(monthly);
+        }
+        tree.addItem(new FixedPriceInvoiceItem(invoiceId, accountId, bundleId, subscriptionId, productName, planName, phaseName, startDate, fixedAmount, currency));
+        tree.flatten(true);
+
+        final List<InvoiceItem> expectedResult = Lists.newLinkedList();
+        for (int i = 0; i < nbPeriods; i++) {
+            final BigDecimal rate = i < changePeriod ? monthlyRate1 : monthlyRate2;
+            final InvoiceItem proposed = new RecurringInvoiceItem(invoiceId, accountId, bundleId, subscriptionId, productName, planName, phaseName, startDate.plusMonths(i), startDate.plusMonths(i + 1), rate, rate, currency);
+            tree.mergeProposedItem(proposed);
+            if (i >= changePeriod) {
+                final InvoiceItem existing = existingItems.get(i);
+                expectedResult.add(proposed);
+                expectedResult.add(new RepairAdjInvoiceItem(invoiceId, accountId, existing.getStartDate(), existing.getEndDate(), monthlyRate1.negate(), currency, existing.getId()));
+            }
+        }
+        // Already invoiced
+        tree.mergeProposedItem(new FixedPriceInvoiceItem(invoiceId, accountId, bundleId, subscriptionId, productName, planName, phaseName, startDate, fixedAmount, currency));
+        tree.buildForMerge();
+
+        verifyResult(tree.getView(), expectedResult);
+    }
+
     private void printTreeJSON(final SubscriptionItemTree tree) throws IOException {
         final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
         tree.getRoot().jsonSerializeTree(OBJECT_MAPPER, outputStream);
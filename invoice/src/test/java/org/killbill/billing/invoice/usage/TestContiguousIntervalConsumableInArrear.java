@@ -529,6 +529,47 @@ public class TestContiguousIntervalConsumableInArrear extends TestUsageInArrearB
         assertEquals(res.getTransitionTimes().size(), 0);
     }
 
+    @Test(groups = "fast")
+    public void testWithClosedPeriod() throws Exception {
+
+        final LocalDate startDate = new LocalDate(2014, 03, 20);
+        final LocalDate closedPeriodEndDate = new LocalDate(2014, 04, 15);
+        final LocalDate endDate = new LocalDate(2014, 05, 15);
+
+        final List<RawUsage> rawUsages = new ArrayList<RawUsage>();
+        // Late usage for the closed period
+        rawUsages.add(new DefaultRawUsage(subscriptionId, new LocalDate(2014, 03, 21), "unit", 130L, "tracking-1"));
+        rawUsages.add(new DefaultRawUsage(subscriptionId, new LocalDate(2014, 04, 20), "unit", 199L, "tracking-2"));
+
+        final DefaultTieredBlock block = createDefaultTieredBlock("unit", 100, 10, BigDecimal.ONE);
+        final DefaultTier tier = createDefaultTierWithBlocks(block);
+        final DefaultUsage usage = createConsumableInArrearUsage(usageName, BillingPeriod.MONTHLY, TierBlockPolicy.ALL_TIERS, tier);
+
+        final BillingEvent event1 = createMockBillingEvent(startDate.toDateTimeAtStartOfDay(DateTimeZone.UTC), BillingPeriod.MONTHLY, Collections.<Usage>emptyList());
+        final BillingEvent event2 = createMockBillingEvent(endDate.toDateTimeAtStartOfDay(DateTimeZone.UTC), BillingPeriod.MONTHLY, Collections.<Usage>emptyList());
+
+        final ContiguousIntervalUsageInArrear intervalConsumableInArrear = new ContiguousIntervalConsumableUsageInArrear(usage, accountId, invoiceId, rawUsages, EMPTY_EXISTING_TRACKING_IDS, endDate, startDate, usageDetailMode, internalCallContext);
+        intervalConsumableInArrear.addBillingEvent(event1);
+        intervalConsumableInArrear.addBillingEvent(event2);
+        intervalConsumableInArrear.build(true, closedPeriodEndDate);
+
+        // The closed period isn't recomputed
+        assertEquals(intervalConsumableInArrear.getTransitionTimes().size(), 2);
+        assertEquals(intervalConsumableInArrear.getTransitionTimes().get(0), closedPeriodEndDate);
+        assertEquals(intervalConsumableInArrear.getTransitionTimes().get(1), endDate);
+
+        final UsageInArrearItemsAndNextNotificationDate result = intervalConsumableInArrear.computeMissingItemsAndNextNotificationDate(ImmutableList.<InvoiceItem>of());
+        assertEquals(result.getInvoiceItems().size(), 1);
+        assertEquals(result.getInvoiceItems().get(0).getStartDate(), closedPeriodEndDate);
+        assertEquals(result.getInvoiceItems().get(0).getEndDate(), endDate);
+        assertEquals(result.getTrackingIds().size(), 1);
+        assertEquals(result.getTrackingIds().iterator().next().getTrackingId(), "tracking-2");
+
+        // ...but the late usage is reported
+        assertEquals(result.getLateTrackingIds().size(), 1);
+        assertEquals(result.getLateTrackingIds().iterator().next().getTrackingId(), "tracking-1");
+    }
+
     @Test(groups = "fast")
     public void testBilledUsage() throws Exception {
 
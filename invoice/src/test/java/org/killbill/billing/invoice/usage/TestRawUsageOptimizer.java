@@ -22,8 +22,10 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 
 import org.joda.time.LocalDate;
+import org.killbill.billing.callcontext.InternalTenantContext;
 import org.killbill.billing.catalog.DefaultTier;
 import org.killbill.billing.catalog.DefaultTieredBlock;
 import org.killbill.billing.catalog.DefaultUsage;
@@ -33,6 +35,9 @@ import org.killbill.billing.catalog.api.TierBlockPolicy;
 import org.killbill.billing.catalog.api.Usage;
 import org.killbill.billing.invoice.api.InvoiceItem;
 import org.killbill.billing.invoice.model.UsageInvoiceItem;
+import org.killbill.billing.util.config.definition.InvoiceConfig;
+import org.killbill.billing.util.metrics.BillingMetrics;
+import org.mockito.Mockito;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
@@ -126,6 +131,36 @@ public class TestRawUsageOptimizer extends TestUsageInArrearBase {
         Assert.assertEquals(result.compareTo(new LocalDate(2014, 06, 15)), 0, "142 got " + result);
     }
 
+    @Test(groups = "fast")
+    public void testClosedPeriodEndDates() {
+
+        final LocalDate firstEventStartDate = new LocalDate(2014, 03, 15);
+
+        final List<InvoiceItem> invoiceItems = new ArrayList<InvoiceItem>();
+        for (int i = 0; i < 5; i++) {
+            invoiceItems.add(createUsageItem(firstEventStartDate.plusMonths(i)));
+        }
+        final LocalDate targetDate = invoiceItems.get(invoiceItems.size() - 1).getEndDate();
+
+        final Map<String, Usage> knownUsage = new HashMap<String, Usage>();
+        final DefaultTieredBlock block = createDefaultTieredBlock("unit", 100, 1000, BigDecimal.ONE);
+        final DefaultTier tier = createDefaultTierWithBlocks(block);
+        final DefaultUsage usage = createConsumableInArrearUsage(usageName, BillingPeriod.MONTHLY, TierBlockPolicy.ALL_TIERS, tier);
+        knownUsage.put(usageName, usage);
+
+        // Disabled by default
+        Assert.assertTrue(rawUsageOptimizer.getClosedPeriodEndDates(targetDate, invoiceItems, knownUsage, internalCallContext).isEmpty());
+
+        final InvoiceConfig config = Mockito.mock(InvoiceConfig.class);
+        Mockito.when(config.getUsageClosedPeriods(Mockito.<InternalTenantContext>any())).thenReturn(2);
+        final RawUsageOptimizer optimizer = new RawUsageOptimizer(config, null, null, new BillingMetrics());
+
+        final Map<UUID, Map<String, LocalDate>> result = optimizer.getClosedPeriodEndDates(targetDate, invoiceItems, knownUsage, internalCallContext);
+        // The largest endDate for ii is 2014-08-15, periods ending 2 months before are closed
+        Assert.assertEquals(result.size(), 1);
+        Assert.assertEquals(result.get(subscriptionId).get(usageName).compareTo(new LocalDate(2014, 06, 15)), 0);
+    }
+
     private InvoiceItem createUsageItem(final LocalDate startDate) {
         return new UsageInvoiceItem(invoiceId, accountId, bundleId, subscriptionId, productName, planName, phaseName, usageName, startDate, startDate.plusMonths(1), BigDecimal.TEN, Currency.USD);
     }
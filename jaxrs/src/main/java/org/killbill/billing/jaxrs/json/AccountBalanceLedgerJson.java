@@ -0,0 +1,126 @@
+/*
+ * Copyright 2014-2019 Groupon, Inc
+ * Copyright 2014-2019 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.killbill.billing.jaxrs.json;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.UUID;
+
+import org.joda.time.DateTime;
+import org.killbill.billing.invoice.api.AccountBalanceLedger;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.annotations.ApiModel;
+
+@ApiModel(value="AccountBalanceLedger")
+public class AccountBalanceLedgerJson {
+
+    private final UUID accountId;
+    private final BigDecimal materializedBalance;
+    private final BigDecimal computedBalance;
+    private final BigDecimal materializedCBA;
+    private final BigDecimal computedCBA;
+    private final Map<UUID, BigDecimal> driftedMaterializedInvoiceBalances;
+    private final Map<UUID, BigDecimal> driftedComputedInvoiceBalances;
+    private final DateTime materializedDate;
+    private final Boolean drift;
+
+    @JsonCreator
+    public AccountBalanceLedgerJson(@JsonProperty("accountId") final UUID accountId,
+                                    @JsonProperty("materializedBalance") final BigDecimal materializedBalance,
+                                    @JsonProperty("computedBalance") final BigDecimal computedBalance,
+                                    @JsonProperty("materializedCBA") final BigDecimal materializedCBA,
+                                    @JsonProperty("computedCBA") final BigDecimal computedCBA,
+                                    @JsonProperty("driftedMaterializedInvoiceBalances") final Map<UUID, BigDecimal> driftedMaterializedInvoiceBalances,
+                                    @JsonProperty("driftedComputedInvoiceBalances") final Map<UUID, BigDecimal> driftedComputedInvoiceBalances,
+                                    @JsonProperty("materializedDate") final DateTime materializedDate,
+                                    @JsonProperty("drift") final Boolean drift) {
+        this.accountId = accountId;
+        this.materializedBalance = materializedBalance;
+        this.computedBalance = computedBalance;
+        this.materializedCBA = materializedCBA;
+        this.computedCBA = computedCBA;
+        this.driftedMaterializedInvoiceBalances = driftedMaterializedInvoiceBalances;
+        this.driftedComputedInvoiceBalances = driftedComputedInvoiceBalances;
+        this.materializedDate = materializedDate;
+        this.drift = drift;
+    }
+
+    public AccountBalanceLedgerJson(final AccountBalanceLedger ledger) {
+        this(ledger.getAccountId(),
+             ledger.getMaterializedBalance(),
+             ledger.getComputedBalance(),
+             ledger.getMaterializedCBA(),
+             ledger.getComputedCBA(),
+             ledger.getDriftedMaterializedInvoiceBalances(),
+             ledger.getDriftedComputedInvoiceBalances(),
+             ledger.getMaterializedDate(),
+             ledger.hasDrift());
+    }
+
+    public UUID getAccountId() {
+        return accountId;
+    }
+
+    public BigDecimal getMaterializedBalance() {
+        return materializedBalance;
+    }
+
+    public BigDecimal getComputedBalance() {
+        return computedBalance;
+    }
+
+    public BigDecimal getMaterializedCBA() {
+        return materializedCBA;
+    }
+
+    public BigDecimal getComputedCBA() {
+        return computedCBA;
+    }
+
+    public Map<UUID, BigDecimal> getDriftedMaterializedInvoiceBalances() {
+        return driftedMaterializedInvoiceBalances;
+    }
+
+    public Map<UUID, BigDecimal> getDriftedComputedInvoiceBalances() {
+        return driftedComputedInvoiceBalances;
+    }
+
+    public DateTime getMaterializedDate() {
+        return materializedDate;
+    }
+
+    public Boolean getDrift() {
+        return drift;
+    }
+
+    @Override
+    public String toString() {
+        return "AccountBalanceLedgerJson{" +
+               "accountId=" + accountId +
+               ", materializedBalance=" + materializedBalance +
+               ", computedBalance=" + computedBalance +
+               ", materializedCBA=" + materializedCBA +
+               ", computedCBA=" + computedCBA +
+               ", driftedMaterializedInvoiceBalances=" + driftedMaterializedInvoiceBalances +
+               ", driftedComputedInvoiceBalances=" + driftedComputedInvoiceBalances +
+               ", materializedDate=" + materializedDate +
+               ", drift=" + drift +
+               '}';
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2014-2019 Groupon, Inc
+ * Copyright 2014-2019 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.jaxrs.json;
+
+import org.joda.time.DateTime;
+import org.killbill.billing.invoice.api.BillRunLoadBucket;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.annotations.ApiModel;
+
+@ApiModel(value="BillRunLoadBucket")
+public class BillRunLoadBucketJson {
+
+    private final DateTime startDate;
+    private final DateTime endDate;
+    private final Integer nbNotifications;
+    private final Integer nbAccounts;
+
+    @JsonCreator
+    public BillRunLoadBucketJson(@JsonProperty("startDate") final DateTime startDate,
+                                 @JsonProperty("endDate") final DateTime endDate,
+                                 @JsonProperty("nbNotifications") final Integer nbNotifications,
+                                 @JsonProperty("nbAccounts") final Integer nbAccounts) {
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.nbNotifications = nbNotifications;
+        this.nbAccounts = nbAccounts;
+    }
+
+    public BillRunLoadBucketJson(final BillRunLoadBucket bucket) {
+        this(bucket.getStartDate(),
+             bucket.getEndDate(),
+             bucket.getNbNotifications(),
+             bucket.getNbAccounts());
+    }
+
+    public DateTime getStartDate() {
+        return startDate;
+    }
+
+    public DateTime getEndDate() {
+        return endDate;
+    }
+
+    public Integer getNbNotifications() {
+        return nbNotifications;
+    }
+
+    public Integer getNbAccounts() {
+        return nbAccounts;
+    }
+
+    @Override
+    public String toString() {
+        return "BillRunLoadBucketJson{" +
+               "startDate=" + startDate +
+               ", endDate=" + endDate +
+               ", nbNotifications=" + nbNotifications +
+               ", nbAccounts=" + nbAccounts +
+               '}';
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2014-2019 Groupon, Inc
+ * Copyright 2014-2019 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.jaxrs.json;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.joda.time.DateTime;
+import org.joda.time.LocalDate;
+import org.killbill.billing.invoice.api.Invoice;
+import org.killbill.billing.invoice.api.InvoiceArchive;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.annotations.ApiModel;
+
+@ApiModel(value="InvoiceArchive")
+public class InvoiceArchiveJson {
+
+    private final UUID accountId;
+    private final LocalDate archivedUpTo;
+    private final Integer nbInvoices;
+    private final BigDecimal balance;
+    private final BigDecimal cba;
+    private final DateTime updatedDate;
+    private final List<InvoiceJson> invoices;
+
+    @JsonCreator
+    public InvoiceArchiveJson(@JsonProperty("accountId") final UUID accountId,
+                              @JsonProperty("archivedUpTo") final LocalDate archivedUpTo,
+                              @JsonProperty("nbInvoices") final Integer nbInvoices,
+                              @JsonProperty("balance") final BigDecimal balance,
+                              @JsonProperty("cba") final BigDecimal cba,
+                              @JsonProperty("updatedDate") final DateTime updatedDate,
+                              @JsonProperty("invoices") final List<InvoiceJson> invoices) {
+        this.accountId = accountId;
+        this.archivedUpTo = archivedUpTo;
+        this.nbInvoices = nbInvoices;
+        this.balance = balance;
+        this.cba = cba;
+        this.updatedDate = updatedDate;
+        this.invoices = invoices;
+    }
+
+    public InvoiceArchiveJson(final InvoiceArchive archive) {
+        this(archive.getAccountId(),
+             archive.getArchivedUpTo(),
+             archive.getNbInvoices(),
+             archive.getBalance(),
+             archive.getCBA(),
+             archive.getUpdatedDate(),
+             toInvoicesJson(archive.getInvoices()));
+    }
+
+    private static List<InvoiceJson> toInvoicesJson(final List<Invoice> invoices) {
+        final List<InvoiceJson> result = new ArrayList<InvoiceJson>(invoices.size());
+        for (final Invoice invoice : invoices) {
+            result.add(new InvoiceJson(invoice, true, null, null));
+        }
+        return result;
+    }
+
+    public UUID getAccountId() {
+        return accountId;
+    }
+
+    public LocalDate getArchivedUpTo() {
+        return archivedUpTo;
+    }
+
+    public Integer getNbInvoices() {
+        return nbInvoices;
+    }
+
+    public BigDecimal getBalance() {
+        return balance;
+    }
+
+    public BigDecimal getCba() {
+        return cba;
+    }
+
+    public DateTime getUpdatedDate() {
+        return updatedDate;
+    }
+
+    public List<InvoiceJson> getInvoices() {
+        return invoices;
+    }
+
+    @Override
+    public String toString() {
+        return "InvoiceArchiveJson{" +
+               "accountId=" + accountId +
+               ", archivedUpTo=" + archivedUpTo +
+               ", nbInvoices=" + nbInvoices +
+               ", balance=" + balance +
+               ", cba=" + cba +
+               ", updatedDate=" + updatedDate +
+               ", invoices=" + invoices +
+               '}';
+    }
+}
@@ -25,6 +25,7 @@ import javax.annotation.Nullable;
 
 import org.apache.shiro.util.CollectionUtils;
 import org.joda.time.LocalDate;
+import org.killbill.billing.ObjectType;
 import org.killbill.billing.catalog.api.Currency;
 import org.killbill.billing.invoice.api.Invoice;
 import org.killbill.billing.invoice.api.InvoiceItem;
@@ -36,8 +37,10 @@ import org.killbill.billing.util.audit.AuditLog;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.base.Predicate;
+import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Multimap;
 import io.swagger.annotations.ApiModel;
 import io.swagger.annotations.ApiModelProperty;
 
@@ -114,6 +117,18 @@ public class InvoiceJson extends JsonBase {
              toAuditLogJson(auditLogs));
     }
 
+    // Objects whose audit logs are rendered by InvoiceJson(input, withItems, childItems, accountAuditLogs)
+    public static Multimap<ObjectType, UUID> getAuditedObjectIds(final Invoice input, final boolean withItems, @Nullable final List<InvoiceItem> childItems) {
+        final Multimap<ObjectType, UUID> objectIds = HashMultimap.<ObjectType, UUID>create();
+        objectIds.put(ObjectType.INVOICE, input.getId());
+        if (withItems || !CollectionUtils.isEmpty(childItems)) {
+            for (final InvoiceItem item : input.getInvoiceItems()) {
+                objectIds.put(ObjectType.INVOICE_ITEM, item.getId());
+            }
+        }
+        return objectIds;
+    }
+
     public InvoiceJson(final Invoice input, final boolean withItems, final List<InvoiceItem> childItems, @Nullable final AccountAuditLogs accountAuditLogs) {
         super(toAuditLogJson(accountAuditLogs == null ? null : accountAuditLogs.getAuditLogsForInvoice(input.getId())));
         this.items = new ArrayList<InvoiceItemJson>(input.getInvoiceItems().size());
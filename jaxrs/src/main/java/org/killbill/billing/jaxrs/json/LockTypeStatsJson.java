@@ -0,0 +1,211 @@
+/*
+ * Copyright 2014-2019 Groupon, Inc
+ * Copyright 2014-2019 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.jaxrs.json;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map.Entry;
+
+import org.killbill.billing.util.globallocker.LockTypeStats;
+import org.killbill.billing.util.globallocker.LockTypeStats.CallSiteStats;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.annotations.ApiModel;
+
+@ApiModel(value="LockTypeStats")
+public class LockTypeStatsJson {
+
+    private final String lockType;
+    private final Long nbAcquisitions;
+    private final Long nbFailures;
+    private final Long nbRetries;
+    private final Long nbCurrentlyHeld;
+    private final Long totalWaitTimeMs;
+    private final Long avgWaitTimeMs;
+    private final Long maxWaitTimeMs;
+    private final Long totalFailedWaitTimeMs;
+    private final Long totalHoldTimeMs;
+    private final Long maxHoldTimeMs;
+    private final List<CallSiteStatsJson> callSites;
+
+    @JsonCreator
+    public LockTypeStatsJson(@JsonProperty("lockType") final String lockType,
+                             @JsonProperty("nbAcquisitions") final Long nbAcquisitions,
+                             @JsonProperty("nbFailures") final Long nbFailures,
+                             @JsonProperty("nbRetries") final Long nbRetries,
+                             @JsonProperty("nbCurrentlyHeld") final Long nbCurrentlyHeld,
+                             @JsonProperty("totalWaitTimeMs") final Long totalWaitTimeMs,
+                             @JsonProperty("avgWaitTimeMs") final Long avgWaitTimeMs,
+                             @JsonProperty("maxWaitTimeMs") final Long maxWaitTimeMs,
+                             @JsonProperty("totalFailedWaitTimeMs") final Long totalFailedWaitTimeMs,
+                             @JsonProperty("totalHoldTimeMs") final Long totalHoldTimeMs,
+                             @JsonProperty("maxHoldTimeMs") final Long maxHoldTimeMs,
+                             @JsonProperty("callSites") final List<CallSiteStatsJson> callSites) {
+        this.lockType = lockType;
+        this.nbAcquisitions = nbAcquisitions;
+        this.nbFailures = nbFailures;
+        this.nbRetries = nbRetries;
+        this.nbCurrentlyHeld = nbCurrentlyHeld;
+        this.totalWaitTimeMs = totalWaitTimeMs;
+        this.avgWaitTimeMs = avgWaitTimeMs;
+        this.maxWaitTimeMs = maxWaitTimeMs;
+        this.totalFailedWaitTimeMs = totalFailedWaitTimeMs;
+        this.totalHoldTimeMs = totalHoldTimeMs;
+        this.maxHoldTimeMs = maxHoldTimeMs;
+        this.callSites = callSites;
+    }
+
+    public LockTypeStatsJson(final LockTypeStats stats) {
+        this(stats.getLockType(),
+             stats.getNbAcquisitions(),
+             stats.getNbFailures(),
+             stats.getNbRetries(),
+             stats.getNbCurrentlyHeld(),
+             stats.getTotalWaitTimeMs(),
+             stats.getAvgWaitTimeMs(),
+             stats.getMaxWaitTimeMs(),
+             stats.getTotalFailedWaitTimeMs(),
+             stats.getTotalHoldTimeMs(),
+             stats.getMaxHoldTimeMs(),
+             toCallSitesJson(stats));
+    }
+
+    private static List<CallSiteStatsJson> toCallSitesJson(final LockTypeStats stats) {
+        final List<CallSiteStatsJson> result = new ArrayList<CallSiteStatsJson>();
+        for (final Entry<String, CallSiteStats> entry : stats.getCallSites().entrySet()) {
+            result.add(new CallSiteStatsJson(entry.getKey(), entry.getValue()));
+        }
+        return result;
+    }
+
+    public String getLockType() {
+        return lockType;
+    }
+
+    public Long getNbAcquisitions() {
+        return nbAcquisitions;
+    }
+
+    public Long getNbFailures() {
+        return nbFailures;
+    }
+
+    public Long getNbRetries() {
+        return nbRetries;
+    }
+
+    public Long getNbCurrentlyHeld() {
+        return nbCurrentlyHeld;
+    }
+
+    public Long getTotalWaitTimeMs() {
+        return totalWaitTimeMs;
+    }
+
+    public Long getAvgWaitTimeMs() {
+        return avgWaitTimeMs;
+    }
+
+    public Long getMaxWaitTimeMs() {
+        return maxWaitTimeMs;
+    }
+
+    public Long getTotalFailedWaitTimeMs() {
+        return totalFailedWaitTimeMs;
+    }
+
+    public Long getTotalHoldTimeMs() {
+        return totalHoldTimeMs;
+    }
+
+    public Long getMaxHoldTimeMs() {
+        return maxHoldTimeMs;
+    }
+
+    public List<CallSiteStatsJson> getCallSites() {
+        return callSites;
+    }
+
+    @Override
+    public String toString() {
+        return "LockTypeStatsJson{" +
+               "lockType='" + lockType + '\'' +
+               ", nbAcquisitions=" + nbAcquisitions +
+               ", nbFailures=" + nbFailures +
+               ", nbRetries=" + nbRetries +
+               ", nbCurrentlyHeld=" + nbCurrentlyHeld +
+               ", totalWaitTimeMs=" + totalWaitTimeMs +
+               ", avgWaitTimeMs=" + avgWaitTimeMs +
+               ", maxWaitTimeMs=" + maxWaitTimeMs +
+               ", totalFailedWaitTimeMs=" + totalFailedWaitTimeMs +
+               ", totalHoldTimeMs=" + totalHoldTimeMs +
+               ", maxHoldTimeMs=" + maxHoldTimeMs +
+               ", callSites=" + callSites +
+               '}';
+    }
+
+    public static class CallSiteStatsJson {
+
+        private final String callSite;
+        private final Long nbHolds;
+        private final Long totalHoldTimeMs;
+        private final Long maxHoldTimeMs;
+
+        @JsonCreator
+        public CallSiteStatsJson(@JsonProperty("callSite") final String callSite,
+                                 @JsonProperty("nbHolds") final Long nbHolds,
+                                 @JsonProperty("totalHoldTimeMs") final Long totalHoldTimeMs,
+                                 @JsonProperty("maxHoldTimeMs") final Long maxHoldTimeMs) {
+            this.callSite = callSite;
+            this.nbHolds = nbHolds;
+            this.totalHoldTimeMs = totalHoldTimeMs;
+            this.maxHoldTimeMs = maxHoldTimeMs;
+        }
+
+        public CallSiteStatsJson(final String callSite, final CallSiteStats stats) {
+            this(callSite, stats.getNbHolds(), stats.getTotalHoldTimeMs(), stats.getMaxHoldTimeMs());
+        }
+
+        public String getCallSite() {
+            return callSite;
+        }
+
+        public Long getNbHolds() {
+            return nbHolds;
+        }
+
+        public Long getTotalHoldTimeMs() {
+            return totalHoldTimeMs;
+        }
+
+        public Long getMaxHoldTimeMs() {
+            return maxHoldTimeMs;
+        }
+
+        @Override
+        public String toString() {
+            return "CallSiteStatsJson{" +
+                   "callSite='" + callSite + '\'' +
+                   ", nbHolds=" + nbHolds +
+                   ", totalHoldTimeMs=" + totalHoldTimeMs +
+                   ", maxHoldTimeMs=" + maxHoldTimeMs +
+                   '}';
+        }
+    }
+}
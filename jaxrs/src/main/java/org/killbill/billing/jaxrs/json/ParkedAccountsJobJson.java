@@ -0,0 +1,152 @@
+/*
+ * Copyright 2014-2019 Groupon, Inc
+ * Copyright 2014-2019 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.jaxrs.json;
+
+import java.util.UUID;
+
+import org.joda.time.DateTime;
+import org.killbill.billing.invoice.api.ParkedAccountsJob;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.annotations.ApiModel;
+
+@ApiModel(value="ParkedAccountsJob")
+public class ParkedAccountsJobJson {
+
+    private final UUID jobId;
+    private final String state;
+    private final Boolean enumerationCompleted;
+    private final Integer nbAccounts;
+    private final Integer nbProcessed;
+    private final Integer nbSucceeded;
+    private final Integer nbNothingToDo;
+    private final Integer nbFailed;
+    private final DateTime createdDate;
+    private final DateTime updatedDate;
+    private final DateTime completedDate;
+    private final Double throughput;
+
+    @JsonCreator
+    public ParkedAccountsJobJson(@JsonProperty("jobId") final UUID jobId,
+                                 @JsonProperty("state") final String state,
+                                 @JsonProperty("enumerationCompleted") final Boolean enumerationCompleted,
+                                 @JsonProperty("nbAccounts") final Integer nbAccounts,
+                                 @JsonProperty("nbProcessed") final Integer nbProcessed,
+                                 @JsonProperty("nbSucceeded") final Integer nbSucceeded,
+                                 @JsonProperty("nbNothingToDo") final Integer nbNothingToDo,
+                                 @JsonProperty("nbFailed") final Integer nbFailed,
+                                 @JsonProperty("createdDate") final DateTime createdDate,
+                                 @JsonProperty("updatedDate") final DateTime updatedDate,
+                                 @JsonProperty("completedDate") final DateTime completedDate,
+                                 @JsonProperty("throughput") final Double throughput) {
+        this.jobId = jobId;
+        this.state = state;
+        this.enumerationCompleted = enumerationCompleted;
+        this.nbAccounts = nbAccounts;
+        this.nbProcessed = nbProcessed;
+        this.nbSucceeded = nbSucceeded;
+        this.nbNothingToDo = nbNothingToDo;
+        this.nbFailed = nbFailed;
+        this.createdDate = createdDate;
+        this.updatedDate = updatedDate;
+        this.completedDate = completedDate;
+        this.throughput = throughput;
+    }
+
+    public ParkedAccountsJobJson(final ParkedAccountsJob job) {
+        this(job.getId(),
+             job.getState(),
+             job.isEnumerationCompleted(),
+             job.getNbAccounts(),
+             job.getNbProcessed(),
+             job.getNbSucceeded(),
+             job.getNbNothingToDo(),
+             job.getNbFailed(),
+             job.getCreatedDate(),
+             job.getUpdatedDate(),
+             job.getCompletedDate(),
+             job.getThroughput());
+    }
+
+    public UUID getJobId() {
+        return jobId;
+    }
+
+    public String getState() {
+        return state;
+    }
+
+    public Boolean getEnumerationCompleted() {
+        return enumerationCompleted;
+    }
+
+    public Integer getNbAccounts() {
+        return nbAccounts;
+    }
+
+    public Integer getNbProcessed() {
+        return nbProcessed;
+    }
+
+    public Integer getNbSucceeded() {
+        return nbSucceeded;
+    }
+
+    public Integer getNbNothingToDo() {
+        return nbNothingToDo;
+    }
+
+    public Integer getNbFailed() {
+        return nbFailed;
+    }
+
+    public DateTime getCreatedDate() {
+        return createdDate;
+    }
+
+    public DateTime getUpdatedDate() {
+        return updatedDate;
+    }
+
+    public DateTime getCompletedDate() {
+        return completedDate;
+    }
+
+    public Double getThroughput() {
+        return throughput;
+    }
+
+    @Override
+    public String toString() {
+        return "ParkedAccountsJobJson{" +
+               "jobId=" + jobId +
+               ", state='" + state + '\'' +
+               ", enumerationCompleted=" + enumerationCompleted +
+               ", nbAccounts=" + nbAccounts +
+               ", nbProcessed=" + nbProcessed +
+               ", nbSucceeded=" + nbSucceeded +
+               ", nbNothingToDo=" + nbNothingToDo +
+               ", nbFailed=" + nbFailed +
+               ", createdDate=" + createdDate +
+               ", updatedDate=" + updatedDate +
+               ", completedDate=" + completedDate +
+               ", throughput=" + throughput +
+               '}';
+    }
+}
@@ -22,6 +22,7 @@ import java.util.UUID;
 
 import javax.annotation.Nullable;
 
+import org.killbill.billing.ObjectType;
 import org.killbill.billing.catalog.api.Currency;
 import org.killbill.billing.payment.api.Payment;
 import org.killbill.billing.payment.api.PaymentAttempt;
@@ -32,8 +33,10 @@ import org.killbill.billing.util.audit.AuditLog;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.base.Function;
+import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Multimap;
 import io.swagger.annotations.ApiModel;
 import io.swagger.annotations.ApiModelProperty;
 
@@ -102,6 +105,21 @@ public class PaymentJson extends JsonBase {
              toAuditLogJson(accountAuditLogs == null ? null : accountAuditLogs.getAuditLogsForPayment(dp.getId())));
     }
 
+    // Objects whose audit logs are rendered by PaymentJson(dp, accountAuditLogs)
+    public static Multimap<ObjectType, UUID> getAuditedObjectIds(final Payment dp) {
+        final Multimap<ObjectType, UUID> objectIds = HashMultimap.<ObjectType, UUID>create();
+        objectIds.put(ObjectType.PAYMENT, dp.getId());
+        for (final PaymentTransaction paymentTransaction : dp.getTransactions()) {
+            objectIds.put(ObjectType.TRANSACTION, paymentTransaction.getId());
+        }
+        if (dp.getPaymentAttempts() != null) {
+            for (final PaymentAttempt paymentAttempt : dp.getPaymentAttempts()) {
+                objectIds.put(ObjectType.PAYMENT_ATTEMPT, paymentAttempt.getId());
+            }
+        }
+        return objectIds;
+    }
+
     private static List<PaymentTransactionJson> getTransactions(final Iterable<PaymentTransaction> transactions, final String paymentExternalKey, @Nullable final AccountAuditLogs accountAuditLogs) {
         return ImmutableList.copyOf(Iterables.transform(transactions,
                                                         new Function<PaymentTransaction, PaymentTransactionJson>() {
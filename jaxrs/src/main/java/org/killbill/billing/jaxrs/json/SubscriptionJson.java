@@ -47,6 +47,8 @@ import org.killbill.billing.util.audit.AuditLog;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Multimap;
 import io.swagger.annotations.ApiModel;
 import io.swagger.annotations.ApiModelProperty;
 
@@ -343,6 +345,17 @@ public class SubscriptionJson extends JsonBase {
         this.prices = prices;
     }
 
+    // Objects whose audit logs are rendered by SubscriptionJson(subscription, currency, accountAuditLogs)
+    public static Multimap<ObjectType, UUID> getAuditedObjectIds(final Subscription subscription) {
+        final Multimap<ObjectType, UUID> objectIds = HashMultimap.<ObjectType, UUID>create();
+        objectIds.put(ObjectType.SUBSCRIPTION, subscription.getId());
+        for (final SubscriptionEvent subscriptionEvent : subscription.getSubscriptionEvents()) {
+            // See EventSubscriptionJson#getAuditLogsForSubscriptionEvent
+            objectIds.put(subscriptionEvent.getSubscriptionEventType().getObjectType(), subscriptionEvent.getId());
+        }
+        return objectIds;
+    }
+
     public SubscriptionJson(final Subscription subscription, @Nullable final Currency currency, @Nullable final AccountAuditLogs accountAuditLogs) throws CatalogApiException {
         super(toAuditLogJson(accountAuditLogs == null ? null : accountAuditLogs.getAuditLogsForSubscription(subscription.getId())));
         this.startDate = subscription.getEffectiveStartDate();
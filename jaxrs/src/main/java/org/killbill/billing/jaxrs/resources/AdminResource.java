@@ -19,8 +19,13 @@ package org.killbill.billing.jaxrs.resources;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 import java.util.UUID;
 
 import javax.annotation.Nullable;
@@ -41,6 +46,7 @@ import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
 import javax.ws.rs.core.StreamingOutput;
+import javax.ws.rs.core.UriInfo;
 
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
@@ -51,7 +57,20 @@ import org.killbill.billing.account.api.ImmutableAccountData;
 import org.killbill.billing.catalog.api.Catalog;
 import org.killbill.billing.invoice.api.InvoiceApiException;
 import org.killbill.billing.invoice.api.InvoiceUserApi;
+import org.killbill.billing.invoice.api.AccountBalanceLedger;
+import org.killbill.billing.invoice.api.AccountBalanceLedgerInternalApi;
+import org.killbill.billing.invoice.api.BillRunLoadBucket;
+import org.killbill.billing.invoice.api.BillRunLoadInternalApi;
+import org.killbill.billing.invoice.api.InvoiceArchivalInternalApi;
+import org.killbill.billing.invoice.api.InvoiceArchive;
+import org.killbill.billing.invoice.api.ParkedAccountsJob;
+import org.killbill.billing.invoice.api.ParkedAccountsJobInternalApi;
 import org.killbill.billing.jaxrs.json.AdminPaymentJson;
+import org.killbill.billing.jaxrs.json.AccountBalanceLedgerJson;
+import org.killbill.billing.jaxrs.json.BillRunLoadBucketJson;
+import org.killbill.billing.jaxrs.json.InvoiceArchiveJson;
+import org.killbill.billing.jaxrs.json.LockTypeStatsJson;
+import org.killbill.billing.jaxrs.json.ParkedAccountsJobJson;
 import org.killbill.billing.jaxrs.util.Context;
 import org.killbill.billing.jaxrs.util.JaxrsUriBuilder;
 import org.killbill.billing.payment.api.AdminPaymentApi;
@@ -77,6 +96,10 @@ import org.killbill.billing.util.callcontext.CallContext;
 import org.killbill.billing.util.callcontext.TenantContext;
 import org.killbill.billing.util.config.tenant.PerTenantConfig;
 import org.killbill.billing.util.entity.Pagination;
+import org.killbill.billing.util.globallocker.GlobalLockerStats;
+import org.killbill.billing.util.globallocker.LockTypeStats;
+import org.killbill.billing.util.metrics.BillingMetrics;
+import org.killbill.billing.util.metrics.MetricsTextFormat;
 import org.killbill.billing.util.tag.Tag;
 import org.killbill.billing.util.tag.dao.SystemTags;
 import org.killbill.bus.api.BusEvent;
@@ -89,6 +112,7 @@ import org.killbill.notificationq.api.NotificationQueue;
 import org.killbill.notificationq.api.NotificationQueueService;
 
 import com.fasterxml.jackson.core.JsonGenerator;
+import com.google.common.base.Charsets;
 import com.google.common.base.Function;
 import com.google.common.base.Predicate;
 import com.google.common.base.Strings;
@@ -103,6 +127,7 @@ import io.swagger.annotations.ApiResponses;
 
 import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
 import static javax.ws.rs.core.MediaType.APPLICATION_OCTET_STREAM;
+import static javax.ws.rs.core.MediaType.TEXT_PLAIN;
 
 @Singleton
 @Path(JaxrsResource.ADMIN_PATH)
@@ -119,6 +144,12 @@ public class AdminResource extends JaxRsResourceBase {
     private final PersistentBus persistentBus;
     private final NotificationQueueService notificationQueueService;
     private final KillbillHealthcheck killbillHealthcheck;
+    private final GlobalLockerStats globalLockerStats;
+    private final BillingMetrics billingMetrics;
+    private final ParkedAccountsJobInternalApi parkedAccountsJobApi;
+    private final AccountBalanceLedgerInternalApi accountBalanceLedgerApi;
+    private final InvoiceArchivalInternalApi invoiceArchivalApi;
+    private final BillRunLoadInternalApi billRunLoadApi;
 
     @Inject
     public AdminResource(final JaxrsUriBuilder uriBuilder,
@@ -136,6 +167,12 @@ public class AdminResource extends JaxRsResourceBase {
                          final PersistentBus persistentBus,
                          final NotificationQueueService notificationQueueService,
                          final KillbillHealthcheck killbillHealthcheck,
+                         final GlobalLockerStats globalLockerStats,
+                         final ParkedAccountsJobInternalApi parkedAccountsJobApi,
+                         final AccountBalanceLedgerInternalApi accountBalanceLedgerApi,
+                         final InvoiceArchivalInternalApi invoiceArchivalApi,
+                         final BillRunLoadInternalApi billRunLoadApi,
+                         final BillingMetrics billingMetrics,
                          final Clock clock,
                          final Context context) {
         super(uriBuilder, tagUserApi, customFieldUserApi, auditUserApi, accountUserApi, paymentApi, invoicePaymentApi, null, clock, context);
@@ -147,6 +184,12 @@ public class AdminResource extends JaxRsResourceBase {
         this.persistentBus = persistentBus;
         this.notificationQueueService = notificationQueueService;
         this.killbillHealthcheck = killbillHealthcheck;
+        this.globalLockerStats = globalLockerStats;
+        this.parkedAccountsJobApi = parkedAccountsJobApi;
+        this.accountBalanceLedgerApi = accountBalanceLedgerApi;
+        this.invoiceArchivalApi = invoiceArchivalApi;
+        this.billRunLoadApi = billRunLoadApi;
+        this.billingMetrics = billingMetrics;
     }
 
     @GET
@@ -371,6 +414,10 @@ public class AdminResource extends JaxRsResourceBase {
         final CacheController<UUID, Integer> accountBCDCacheController = cacheControllerDispatcher.getCacheController(CacheType.ACCOUNT_BCD);
         accountBCDCacheController.remove(accountId);
 
+        // clear account-control-tags cache by account record id
+        final CacheController<Long, List> accountControlTagsCacheController = cacheControllerDispatcher.getCacheController(CacheType.ACCOUNT_CONTROL_TAGS);
+        accountControlTagsCacheController.remove(accountRecordId);
+
         return Response.status(Status.NO_CONTENT).build();
     }
 
@@ -427,6 +474,117 @@ public class AdminResource extends JaxRsResourceBase {
         return Response.status(Status.NO_CONTENT).build();
     }
 
+    @POST
+    @Path("/" + INVOICES + "/" + JOBS)
+    @Produces(APPLICATION_JSON)
+    @ApiOperation(value = "Start an asynchronous invoice generation job for all parked accounts")
+    @ApiResponses(value = {@ApiResponse(code = 201, message = "Job started successfully")})
+    public Response startParkedAccountsJob(@HeaderParam(HDR_CREATED_BY) final String createdBy,
+                                           @HeaderParam(HDR_REASON) final String reason,
+                                           @HeaderParam(HDR_COMMENT) final String comment,
+                                           @javax.ws.rs.core.Context final HttpServletRequest request,
+                                           @javax.ws.rs.core.Context final UriInfo uriInfo) {
+        final CallContext callContext = context.createCallContextNoAccountId(createdBy, reason, comment, request);
+        final UUID jobId = parkedAccountsJobApi.startParkedAccountsJob(callContext);
+        return uriBuilder.buildResponse(uriInfo, AdminResource.class, "getParkedAccountsJob", jobId, request);
+    }
+
+    @GET
+    @Path("/" + INVOICES + "/" + JOBS + "/{jobId:" + UUID_PATTERN + "}")
+    @Produces(APPLICATION_JSON)
+    @ApiOperation(value = "Retrieve the progress of a parked accounts invoice generation job", response = ParkedAccountsJobJson.class)
+    @ApiResponses(value = {@ApiResponse(code = 200, message = "Successful operation"),
+                           @ApiResponse(code = 404, message = "Job not found")})
+    public Response getParkedAccountsJob(@PathParam("jobId") final UUID jobId,
+                                         @javax.ws.rs.core.Context final HttpServletRequest request) {
+        final TenantContext tenantContext = context.createTenantContextNoAccountId(request);
+        final ParkedAccountsJob job = parkedAccountsJobApi.getParkedAccountsJob(jobId, tenantContext);
+        if (job == null) {
+            return Response.status(Status.NOT_FOUND).build();
+        }
+        return Response.status(Status.OK).entity(new ParkedAccountsJobJson(job)).build();
+    }
+
+    @GET
+    @Path("/" + INVOICES + "/" + BALANCES + "/{accountId:" + UUID_PATTERN + "}")
+    @Produces(APPLICATION_JSON)
+    @ApiOperation(value = "Verify the materialized balances of an account against balances recomputed from scratch", response = AccountBalanceLedgerJson.class)
+    @ApiResponses(value = {@ApiResponse(code = 200, message = "Successful operation"),
+                           @ApiResponse(code = 400, message = "Invalid account id supplied")})
+    public Response verifyAccountBalances(@PathParam("accountId") final UUID accountId,
+                                          @javax.ws.rs.core.Context final HttpServletRequest request) {
+        final TenantContext tenantContext = context.createTenantContextWithAccountId(accountId, request);
+        final AccountBalanceLedger ledger = accountBalanceLedgerApi.verifyAccountBalanceLedger(accountId, tenantContext);
+        return Response.status(Status.OK).entity(new AccountBalanceLedgerJson(ledger)).build();
+    }
+
+    @PUT
+    @Path("/" + INVOICES + "/" + BALANCES + "/{accountId:" + UUID_PATTERN + "}")
+    @Produces(APPLICATION_JSON)
+    @ApiOperation(value = "Rebuild the materialized balances of an account", response = AccountBalanceLedgerJson.class)
+    @ApiResponses(value = {@ApiResponse(code = 200, message = "Successful operation"),
+                           @ApiResponse(code = 400, message = "Invalid account id supplied")})
+    public Response rebuildAccountBalances(@PathParam("accountId") final UUID accountId,
+                                           @HeaderParam(HDR_CREATED_BY) final String createdBy,
+                                           @HeaderParam(HDR_REASON) final String reason,
+                                           @HeaderParam(HDR_COMMENT) final String comment,
+                                           @javax.ws.rs.core.Context final HttpServletRequest request) {
+        final CallContext callContext = context.createCallContextWithAccountId(accountId, createdBy, reason, comment, request);
+        final AccountBalanceLedger ledger = accountBalanceLedgerApi.rebuildAccountBalanceLedger(accountId, callContext);
+        return Response.status(Status.OK).entity(new AccountBalanceLedgerJson(ledger)).build();
+    }
+
+    @GET
+    @Path("/" + INVOICES + "/" + BILL_RUN_LOAD)
+    @Produces(APPLICATION_JSON)
+    @ApiOperation(value = "Retrieve the projected density of the upcoming next billing date notifications", response = BillRunLoadBucketJson.class, responseContainer = "List")
+    @ApiResponses(value = {@ApiResponse(code = 200, message = "Successful operation"),
+                           @ApiResponse(code = 400, message = "Invalid period or bucket size supplied")})
+    public Response getBillRunLoad(@QueryParam("from") final String fromOrNull,
+                                   @QueryParam("to") final String toOrNull,
+                                   @QueryParam("bucketMinutes") @DefaultValue("60") final Integer bucketMinutes,
+                                   @javax.ws.rs.core.Context final HttpServletRequest request) {
+        final TenantContext tenantContext = context.createTenantContextNoAccountId(request);
+        final DateTime from = Strings.isNullOrEmpty(fromOrNull) ? clock.getUTCNow() : DATE_TIME_FORMATTER.parseDateTime(fromOrNull).toDateTime(DateTimeZone.UTC);
+        final DateTime to = Strings.isNullOrEmpty(toOrNull) ? from.plusDays(31) : DATE_TIME_FORMATTER.parseDateTime(toOrNull).toDateTime(DateTimeZone.UTC);
+
+        final List<BillRunLoadBucket> buckets = billRunLoadApi.getProjectedLoad(from, to, bucketMinutes, tenantContext);
+        final List<BillRunLoadBucketJson> result = new ArrayList<BillRunLoadBucketJson>(buckets.size());
+        for (final BillRunLoadBucket bucket : buckets) {
+            result.add(new BillRunLoadBucketJson(bucket));
+        }
+        return Response.status(Status.OK).entity(result).build();
+    }
+
+    @GET
+    @Path("/" + INVOICES + "/" + ARCHIVES + "/{accountId:" + UUID_PATTERN + "}")
+    @Produces(APPLICATION_JSON)
+    @ApiOperation(value = "Retrieve the archived invoices of an account", response = InvoiceArchiveJson.class)
+    @ApiResponses(value = {@ApiResponse(code = 200, message = "Successful operation"),
+                           @ApiResponse(code = 400, message = "Invalid account id supplied")})
+    public Response getInvoiceArchive(@PathParam("accountId") final UUID accountId,
+                                      @javax.ws.rs.core.Context final HttpServletRequest request) {
+        final TenantContext tenantContext = context.createTenantContextWithAccountId(accountId, request);
+        final InvoiceArchive archive = invoiceArchivalApi.getInvoiceArchive(accountId, tenantContext);
+        return Response.status(Status.OK).entity(new InvoiceArchiveJson(archive)).build();
+    }
+
+    @POST
+    @Path("/" + INVOICES + "/" + ARCHIVES + "/{accountId:" + UUID_PATTERN + "}")
+    @Produces(APPLICATION_JSON)
+    @ApiOperation(value = "Archive the closed invoices of an account older than the tenant archival horizon", response = InvoiceArchiveJson.class)
+    @ApiResponses(value = {@ApiResponse(code = 200, message = "Successful operation"),
+                           @ApiResponse(code = 400, message = "Invalid account id supplied")})
+    public Response archiveInvoices(@PathParam("accountId") final UUID accountId,
+                                    @HeaderParam(HDR_CREATED_BY) final String createdBy,
+                                    @HeaderParam(HDR_REASON) final String reason,
+                                    @HeaderParam(HDR_COMMENT) final String comment,
+                                    @javax.ws.rs.core.Context final HttpServletRequest request) throws InvoiceApiException {
+        final CallContext callContext = context.createCallContextWithAccountId(accountId, createdBy, reason, comment, request);
+        final InvoiceArchive archive = invoiceArchivalApi.archiveInvoices(accountId, callContext);
+        return Response.status(Status.OK).entity(new InvoiceArchiveJson(archive)).build();
+    }
+
     @PUT
     @Path("/" + HEALTHCHECK)
     @Produces(APPLICATION_JSON)
@@ -447,6 +605,46 @@ public class AdminResource extends JaxRsResourceBase {
         return Response.status(Status.NO_CONTENT).build();
     }
 
+    @GET
+    @Path("/" + LOCKS)
+    @Produces(APPLICATION_JSON)
+    @ApiOperation(value = "Retrieve global lock contention statistics per lock type", response = LockTypeStatsJson.class, responseContainer = "List")
+    @ApiResponses(value = {@ApiResponse(code = 200, message = "Successful operation")})
+    public Response getGlobalLockStats(@javax.ws.rs.core.Context final HttpServletRequest request) {
+        final Collection<LockTypeStats> stats = globalLockerStats.getAllStats().values();
+        final List<LockTypeStatsJson> result = new ArrayList<LockTypeStatsJson>(stats.size());
+        for (final LockTypeStats lockTypeStats : stats) {
+            result.add(new LockTypeStatsJson(lockTypeStats));
+        }
+        return Response.status(Status.OK).entity(result).build();
+    }
+
+    @DELETE
+    @Path("/" + LOCKS)
+    @Produces(APPLICATION_JSON)
+    @ApiOperation(value = "Reset global lock contention statistics")
+    @ApiResponses(value = {@ApiResponse(code = 204, message = "Successful operation")})
+    public Response resetGlobalLockStats(@javax.ws.rs.core.Context final HttpServletRequest request) {
+        globalLockerStats.reset();
+        return Response.status(Status.NO_CONTENT).build();
+    }
+
+    @GET
+    @Path("/" + METRICS)
+    @Produces(TEXT_PLAIN)
+    @ApiOperation(value = "Retrieve the core metrics using the Prometheus text exposition format")
+    @ApiResponses(value = {@ApiResponse(code = 200, message = "Successful operation")})
+    public Response getMetrics(@javax.ws.rs.core.Context final HttpServletRequest request) {
+        final StreamingOutput output = new StreamingOutput() {
+            @Override
+            public void write(final OutputStream output) throws IOException, WebApplicationException {
+                final Writer writer = new OutputStreamWriter(output, Charsets.UTF_8);
+                billingMetrics.writeTextFormat(writer);
+            }
+        };
+        return Response.status(Status.OK).type(MetricsTextFormat.CONTENT_TYPE).entity(output).build();
+    }
+
     private Iterable<NotificationEventWithMetadata<NotificationEvent>> getNotifications(@Nullable final String queueName,
                                                                                         @Nullable final String serviceName,
                                                                                         final boolean includeInProcessing,
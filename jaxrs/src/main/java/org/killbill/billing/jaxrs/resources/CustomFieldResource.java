@@ -19,12 +19,17 @@
 package org.killbill.billing.jaxrs.resources;
 
 import java.net.URI;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.UUID;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.DELETE;
 import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
@@ -35,6 +40,7 @@ import javax.ws.rs.core.Response.Status;
 import org.killbill.billing.ObjectType;
 import org.killbill.billing.account.api.AccountApiException;
 import org.killbill.billing.account.api.AccountUserApi;
+import org.killbill.billing.customfield.BulkCustomFieldUserApi;
 import org.killbill.billing.jaxrs.json.AuditLogJson;
 import org.killbill.billing.jaxrs.json.CustomFieldJson;
 import org.killbill.billing.jaxrs.util.Context;
@@ -48,8 +54,10 @@ import org.killbill.billing.util.api.CustomFieldUserApi;
 import org.killbill.billing.util.api.TagUserApi;
 import org.killbill.billing.util.audit.AuditLog;
 import org.killbill.billing.util.audit.AuditLogWithHistory;
+import org.killbill.billing.util.callcontext.CallContext;
 import org.killbill.billing.util.callcontext.TenantContext;
 import org.killbill.billing.util.customfield.CustomField;
+import org.killbill.billing.util.customfield.StringCustomField;
 import org.killbill.billing.util.entity.Pagination;
 import org.killbill.clock.Clock;
 import org.killbill.commons.metrics.TimedResource;
@@ -70,10 +78,13 @@ import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
 @Api(value = JaxrsResource.CUSTOM_FIELDS_PATH, description = "Operations on custom fields", tags="CustomField")
 public class CustomFieldResource extends JaxRsResourceBase {
 
+    private final BulkCustomFieldUserApi bulkCustomFieldUserApi;
+
     @Inject
     public CustomFieldResource(final JaxrsUriBuilder uriBuilder,
                                final TagUserApi tagUserApi,
                                final CustomFieldUserApi customFieldUserApi,
+                               final BulkCustomFieldUserApi bulkCustomFieldUserApi,
                                final AuditUserApi auditUserApi,
                                final AccountUserApi accountUserApi,
                                final PaymentApi paymentApi,
@@ -81,6 +92,7 @@ public class CustomFieldResource extends JaxRsResourceBase {
                                final Clock clock,
                                final Context context) {
         super(uriBuilder, tagUserApi, customFieldUserApi, auditUserApi, accountUserApi, paymentApi, invoicePaymentApi, null, clock, context);
+        this.bulkCustomFieldUserApi = bulkCustomFieldUserApi;
     }
 
     @TimedResource
@@ -136,6 +148,63 @@ public class CustomFieldResource extends JaxRsResourceBase {
                                                 nextPageUri);
     }
 
+    @TimedResource
+    @POST
+    @Path("/" + BULK)
+    @Consumes(APPLICATION_JSON)
+    @Produces(APPLICATION_JSON)
+    @ApiOperation(value = "Add custom fields to a list of objects")
+    @ApiResponses(value = {@ApiResponse(code = 201, message = "Custom fields created successfully"),
+                           @ApiResponse(code = 400, message = "Invalid custom fields supplied")})
+    public Response createCustomFieldsInBulk(final List<CustomFieldJson> customFields,
+                                             @HeaderParam(HDR_CREATED_BY) final String createdBy,
+                                             @HeaderParam(HDR_REASON) final String reason,
+                                             @HeaderParam(HDR_COMMENT) final String comment,
+                                             @javax.ws.rs.core.Context final HttpServletRequest request) throws CustomFieldApiException {
+        verifyNonNullOrEmpty(customFields, "CustomFieldJson list needs to be set");
+
+        final CallContext callContext = context.createCallContextNoAccountId(createdBy, reason, comment, request);
+        final List<CustomField> input = new LinkedList<CustomField>();
+        for (final CustomFieldJson cur : customFields) {
+            verifyNonNullOrEmpty(cur.getObjectId(), "CustomFieldJson objectId needs to be set",
+                                 cur.getObjectType(), "CustomFieldJson objectType needs to be set",
+                                 cur.getName(), "CustomFieldJson name needs to be set",
+                                 cur.getValue(), "CustomFieldJson value needs to be set");
+            input.add(new StringCustomField(cur.getName(), cur.getValue(), cur.getObjectType(), cur.getObjectId(), callContext.getCreatedDate()));
+        }
+
+        bulkCustomFieldUserApi.addCustomFieldsToObjects(input, callContext);
+        return Response.status(Status.CREATED).build();
+    }
+
+    @TimedResource
+    @DELETE
+    @Path("/" + BULK)
+    @Consumes(APPLICATION_JSON)
+    @Produces(APPLICATION_JSON)
+    @ApiOperation(value = "Remove custom fields from a list of objects")
+    @ApiResponses(value = {@ApiResponse(code = 204, message = "Successful operation"),
+                           @ApiResponse(code = 400, message = "Invalid custom fields supplied")})
+    public Response deleteCustomFieldsInBulk(final List<CustomFieldJson> customFields,
+                                             @HeaderParam(HDR_CREATED_BY) final String createdBy,
+                                             @HeaderParam(HDR_REASON) final String reason,
+                                             @HeaderParam(HDR_COMMENT) final String comment,
+                                             @javax.ws.rs.core.Context final HttpServletRequest request) throws CustomFieldApiException {
+        verifyNonNullOrEmpty(customFields, "CustomFieldJson list needs to be set");
+
+        final CallContext callContext = context.createCallContextNoAccountId(createdBy, reason, comment, request);
+        final List<CustomField> input = new LinkedList<CustomField>();
+        for (final CustomFieldJson cur : customFields) {
+            verifyNonNullOrEmpty(cur.getCustomFieldId(), "CustomFieldJson id needs to be set",
+                                 cur.getObjectId(), "CustomFieldJson objectId needs to be set",
+                                 cur.getObjectType(), "CustomFieldJson objectType needs to be set");
+            input.add(new StringCustomField(cur.getCustomFieldId(), cur.getName(), cur.getValue(), cur.getObjectType(), cur.getObjectId(), callContext.getCreatedDate()));
+        }
+
+        bulkCustomFieldUserApi.removeCustomFieldsFromObjects(input, callContext);
+        return Response.status(Status.NO_CONTENT).build();
+    }
+
     @TimedResource
     @GET
     @Path("/{customFieldId:" + UUID_PATTERN + "}/" + AUDIT_LOG_WITH_HISTORY)
@@ -95,6 +95,7 @@ import org.killbill.billing.util.api.TagApiException;
 import org.killbill.billing.util.api.TagDefinitionApiException;
 import org.killbill.billing.util.api.TagUserApi;
 import org.killbill.billing.util.audit.AccountAuditLogs;
+import org.killbill.billing.util.audit.api.TargetedAuditUserApi;
 import org.killbill.billing.util.callcontext.CallContext;
 import org.killbill.billing.util.callcontext.TenantContext;
 import org.killbill.billing.util.customfield.CustomField;
@@ -135,6 +136,7 @@ public class InvoiceResource extends JaxRsResourceBase {
     private final InvoiceUserApi invoiceApi;
     private final TenantUserApi tenantApi;
     private final Locale defaultLocale;
+    private final TargetedAuditUserApi targetedAuditUserApi;
 
     private static final Ordering<InvoicePaymentJson> INVOICE_PAYMENT_ORDERING = Ordering.from(new Comparator<InvoicePaymentJson>() {
         @Override
@@ -154,11 +156,13 @@ public class InvoiceResource extends JaxRsResourceBase {
                            final CustomFieldUserApi customFieldUserApi,
                            final AuditUserApi auditUserApi,
                            final TenantUserApi tenantApi,
+                           final TargetedAuditUserApi targetedAuditUserApi,
                            final Context context) {
         super(uriBuilder, tagUserApi, customFieldUserApi, auditUserApi, accountUserApi, paymentApi, invoicePaymentApi, null, clock, context);
         this.invoiceApi = invoiceApi;
         this.tenantApi = tenantApi;
         this.defaultLocale = Locale.getDefault();
+        this.targetedAuditUserApi = targetedAuditUserApi;
     }
 
     @TimedResource
@@ -180,7 +184,7 @@ public class InvoiceResource extends JaxRsResourceBase {
         }
 
         final List<InvoiceItem> childInvoiceItems = withChildrenItems ? invoiceApi.getInvoiceItemsByParentInvoice(invoice.getId(), tenantContext) : null;
-        final AccountAuditLogs accountAuditLogs = auditUserApi.getAccountAuditLogs(invoice.getAccountId(), auditMode.getLevel(), tenantContext);
+        final AccountAuditLogs accountAuditLogs = targetedAuditUserApi.getAccountAuditLogs(invoice.getAccountId(), InvoiceJson.getAuditedObjectIds(invoice, withItems, childInvoiceItems), auditMode.getLevel(), tenantContext);
 
         final InvoiceJson json = new InvoiceJson(invoice, withItems, childInvoiceItems, accountAuditLogs);
         return Response.status(Status.OK).entity(json).build();
@@ -201,7 +205,7 @@ public class InvoiceResource extends JaxRsResourceBase {
         final TenantContext tenantContext = context.createTenantContextNoAccountId(request);
         final Invoice invoice = invoiceApi.getInvoiceByNumber(invoiceNumber, tenantContext);
         final List<InvoiceItem> childInvoiceItems = withChildrenItems ? invoiceApi.getInvoiceItemsByParentInvoice(invoice.getId(), tenantContext) : null;
-        final AccountAuditLogs accountAuditLogs = auditUserApi.getAccountAuditLogs(invoice.getAccountId(), auditMode.getLevel(), tenantContext);
+        final AccountAuditLogs accountAuditLogs = targetedAuditUserApi.getAccountAuditLogs(invoice.getAccountId(), InvoiceJson.getAuditedObjectIds(invoice, withItems, childInvoiceItems), auditMode.getLevel(), tenantContext);
 
         final InvoiceJson json = new InvoiceJson(invoice, withItems, childInvoiceItems, accountAuditLogs);
         return Response.status(Status.OK).entity(json).build();
@@ -223,7 +227,7 @@ public class InvoiceResource extends JaxRsResourceBase {
         final TenantContext tenantContext = context.createTenantContextNoAccountId(request);
         final Invoice invoice = invoiceApi.getInvoiceByInvoiceItem(invoiceItemId, tenantContext);
         final List<InvoiceItem> childInvoiceItems = withChildrenItems ? invoiceApi.getInvoiceItemsByParentInvoice(invoice.getId(), tenantContext) : null;
-        final AccountAuditLogs accountAuditLogs = auditUserApi.getAccountAuditLogs(invoice.getAccountId(), auditMode.getLevel(), tenantContext);
+        final AccountAuditLogs accountAuditLogs = targetedAuditUserApi.getAccountAuditLogs(invoice.getAccountId(), InvoiceJson.getAuditedObjectIds(invoice, withItems, childInvoiceItems), auditMode.getLevel(), tenantContext);
 
         final InvoiceJson json = new InvoiceJson(invoice, withItems, childInvoiceItems, accountAuditLogs);
         return Response.status(Status.OK).entity(json).build();
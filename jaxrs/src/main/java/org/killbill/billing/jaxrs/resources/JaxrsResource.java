@@ -225,6 +225,8 @@ public interface JaxrsResource {
     String CUSTOM_FIELDS = "customFields";
     String CUSTOM_FIELDS_PATH = PREFIX + "/" + CUSTOM_FIELDS;
 
+    String BULK = "bulk";
+
     String EMAILS = "emails";
     String EMAIL_NOTIFICATIONS = "emailNotifications";
 
@@ -291,6 +293,12 @@ public interface JaxrsResource {
 
     String CACHE = "cache";
     String HEALTHCHECK = "healthcheck";
+    String LOCKS = "locks";
+    String METRICS = "metrics";
+    String JOBS = "jobs";
+    String BALANCES = "balances";
+    String ARCHIVES = "archives";
+    String BILL_RUN_LOAD = "billRunLoad";
 
     String QUERY_INCLUDED_DELETED = "includedDeleted";
     String AUDIT_LOG = "auditLogs";
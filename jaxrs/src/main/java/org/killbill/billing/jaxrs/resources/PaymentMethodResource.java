@@ -62,6 +62,7 @@ import org.killbill.billing.util.api.CustomFieldUserApi;
 import org.killbill.billing.util.api.TagUserApi;
 import org.killbill.billing.util.audit.AccountAuditLogs;
 import org.killbill.billing.util.audit.AuditLogWithHistory;
+import org.killbill.billing.util.audit.api.TargetedAuditUserApi;
 import org.killbill.billing.util.callcontext.CallContext;
 import org.killbill.billing.util.callcontext.TenantContext;
 import org.killbill.billing.util.customfield.CustomField;
@@ -72,6 +73,7 @@ import org.killbill.commons.metrics.TimedResource;
 import com.google.common.base.Function;
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableMultimap;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import io.swagger.annotations.Api;
@@ -87,6 +89,8 @@ import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
 @Api(value = JaxrsResource.PAYMENT_METHODS_PATH, description = "Operations on payment methods", tags="PaymentMethod")
 public class PaymentMethodResource extends JaxRsResourceBase {
 
+    private final TargetedAuditUserApi targetedAuditUserApi;
+
     @Inject
     public PaymentMethodResource(final AccountUserApi accountUserApi,
                                  final JaxrsUriBuilder uriBuilder,
@@ -96,8 +100,10 @@ public class PaymentMethodResource extends JaxRsResourceBase {
                                  final PaymentApi paymentApi,
                                  final InvoicePaymentApi invoicePaymentApi,
                                  final Clock clock,
+                                 final TargetedAuditUserApi targetedAuditUserApi,
                                  final Context context) {
         super(uriBuilder, tagUserApi, customFieldUserApi, auditUserApi, accountUserApi, paymentApi, invoicePaymentApi, null, clock, context);
+        this.targetedAuditUserApi = targetedAuditUserApi;
     }
 
     @TimedResource(name = "getPaymentMethod")
@@ -118,7 +124,7 @@ public class PaymentMethodResource extends JaxRsResourceBase {
 
         final PaymentMethod paymentMethod = paymentApi.getPaymentMethodById(paymentMethodId, includedDeleted, withPluginInfo, pluginProperties, tenantContext);
         final Account account = accountUserApi.getAccountById(paymentMethod.getAccountId(), tenantContext);
-        final AccountAuditLogs accountAuditLogs = auditUserApi.getAccountAuditLogs(paymentMethod.getAccountId(), auditMode.getLevel(), tenantContext);
+        final AccountAuditLogs accountAuditLogs = targetedAuditUserApi.getAccountAuditLogs(paymentMethod.getAccountId(), ImmutableMultimap.<ObjectType, UUID>of(ObjectType.PAYMENT_METHOD, paymentMethod.getId()), auditMode.getLevel(), tenantContext);
         final PaymentMethodJson json = PaymentMethodJson.toPaymentMethodJson(account, paymentMethod, accountAuditLogs);
 
         return Response.status(Status.OK).entity(json).build();
@@ -140,7 +146,7 @@ public class PaymentMethodResource extends JaxRsResourceBase {
 
         final PaymentMethod paymentMethod = paymentApi.getPaymentMethodByExternalKey(externalKey, includedDeleted, withPluginInfo, pluginProperties, tenantContext);
         final Account account = accountUserApi.getAccountById(paymentMethod.getAccountId(), tenantContext);
-        final AccountAuditLogs accountAuditLogs = auditUserApi.getAccountAuditLogs(paymentMethod.getAccountId(), auditMode.getLevel(), tenantContext);
+        final AccountAuditLogs accountAuditLogs = targetedAuditUserApi.getAccountAuditLogs(paymentMethod.getAccountId(), ImmutableMultimap.<ObjectType, UUID>of(ObjectType.PAYMENT_METHOD, paymentMethod.getId()), auditMode.getLevel(), tenantContext);
         final PaymentMethodJson json = PaymentMethodJson.toPaymentMethodJson(account, paymentMethod, accountAuditLogs);
         return Response.status(Status.OK).entity(json).build();
     }
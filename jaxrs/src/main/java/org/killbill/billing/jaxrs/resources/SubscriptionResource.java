@@ -94,6 +94,7 @@ import org.killbill.billing.util.api.TagApiException;
 import org.killbill.billing.util.api.TagDefinitionApiException;
 import org.killbill.billing.util.api.TagUserApi;
 import org.killbill.billing.util.audit.AccountAuditLogs;
+import org.killbill.billing.util.audit.api.TargetedAuditUserApi;
 import org.killbill.billing.util.callcontext.CallContext;
 import org.killbill.billing.util.callcontext.TenantContext;
 import org.killbill.billing.util.userrequest.CompletionUserRequestBase;
@@ -127,6 +128,7 @@ public class SubscriptionResource extends JaxRsResourceBase {
     private final KillbillEventHandler killbillHandler;
     private final EntitlementApi entitlementApi;
     private final SubscriptionApi subscriptionApi;
+    private final TargetedAuditUserApi targetedAuditUserApi;
 
     @Inject
     public SubscriptionResource(final KillbillEventHandler killbillHandler,
@@ -140,11 +142,13 @@ public class SubscriptionResource extends JaxRsResourceBase {
                                 final PaymentApi paymentApi,
                                 final InvoicePaymentApi invoicePaymentApi,
                                 final Clock clock,
+                                final TargetedAuditUserApi targetedAuditUserApi,
                                 final Context context) {
         super(uriBuilder, tagUserApi, customFieldUserApi, auditUserApi, accountUserApi, paymentApi, invoicePaymentApi, subscriptionApi, clock, context);
         this.killbillHandler = killbillHandler;
         this.entitlementApi = entitlementApi;
         this.subscriptionApi = subscriptionApi;
+        this.targetedAuditUserApi = targetedAuditUserApi;
     }
 
     @TimedResource
@@ -160,7 +164,7 @@ public class SubscriptionResource extends JaxRsResourceBase {
         final TenantContext context = this.context.createTenantContextNoAccountId(request);
         final Subscription subscription = subscriptionApi.getSubscriptionForEntitlementId(subscriptionId, context);
         final Account account = accountUserApi.getAccountById(subscription.getAccountId(), context);
-        final AccountAuditLogs accountAuditLogs = auditUserApi.getAccountAuditLogs(subscription.getAccountId(), auditMode.getLevel(), context);
+        final AccountAuditLogs accountAuditLogs = targetedAuditUserApi.getAccountAuditLogs(subscription.getAccountId(), SubscriptionJson.getAuditedObjectIds(subscription), auditMode.getLevel(), context);
         final SubscriptionJson json = new SubscriptionJson(subscription, account.getCurrency(), accountAuditLogs);
         return Response.status(Status.OK).entity(json).build();
     }
@@ -25,8 +25,12 @@ import java.util.Map;
 import java.util.UUID;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.DELETE;
 import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
@@ -40,6 +44,7 @@ import org.killbill.billing.account.api.AccountUserApi;
 import org.killbill.billing.jaxrs.json.AuditLogJson;
 import org.killbill.billing.payment.api.InvoicePaymentApi;
 import org.killbill.billing.payment.api.PaymentApi;
+import org.killbill.billing.tag.BulkTagUserApi;
 import org.killbill.billing.util.api.AuditLevel;
 import org.killbill.billing.util.audit.AuditLogWithHistory;
 import org.killbill.clock.Clock;
@@ -51,6 +56,7 @@ import org.killbill.billing.util.api.CustomFieldUserApi;
 import org.killbill.billing.util.api.TagApiException;
 import org.killbill.billing.util.api.TagUserApi;
 import org.killbill.billing.util.audit.AuditLog;
+import org.killbill.billing.util.callcontext.CallContext;
 import org.killbill.billing.util.callcontext.TenantContext;
 import org.killbill.billing.util.entity.Pagination;
 import org.killbill.billing.util.tag.Tag;
@@ -73,9 +79,12 @@ import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
 @Api(value = JaxrsResource.TAGS_PATH, description = "Operations on tags", tags="Tag")
 public class TagResource extends JaxRsResourceBase {
 
+    private final BulkTagUserApi bulkTagUserApi;
+
     @Inject
     public TagResource(final JaxrsUriBuilder uriBuilder,
                        final TagUserApi tagUserApi,
+                       final BulkTagUserApi bulkTagUserApi,
                        final CustomFieldUserApi customFieldUserApi,
                        final AuditUserApi auditUserApi,
                        final AccountUserApi accountUserApi,
@@ -84,6 +93,7 @@ public class TagResource extends JaxRsResourceBase {
                        final Clock clock,
                        final Context context) {
         super(uriBuilder, tagUserApi, customFieldUserApi, auditUserApi, accountUserApi, paymentApi, invoicePaymentApi, null, clock, context);
+        this.bulkTagUserApi = bulkTagUserApi;
     }
 
     @TimedResource
@@ -152,6 +162,55 @@ public class TagResource extends JaxRsResourceBase {
                                                 nextPageUri);
     }
 
+    @TimedResource
+    @POST
+    @Path("/" + BULK)
+    @Consumes(APPLICATION_JSON)
+    @Produces(APPLICATION_JSON)
+    @ApiOperation(value = "Add a tag to a list of objects")
+    @ApiResponses(value = {@ApiResponse(code = 201, message = "Tags created successfully"),
+                           @ApiResponse(code = 400, message = "Invalid tag definition or object type supplied")})
+    public Response createTagsInBulk(final List<UUID> objectIds,
+                                     @QueryParam(QUERY_TAG) final UUID tagDefinitionId,
+                                     @QueryParam(QUERY_OBJECT_TYPE) final ObjectType objectType,
+                                     @HeaderParam(HDR_CREATED_BY) final String createdBy,
+                                     @HeaderParam(HDR_REASON) final String reason,
+                                     @HeaderParam(HDR_COMMENT) final String comment,
+                                     @javax.ws.rs.core.Context final HttpServletRequest request) throws TagApiException {
+        verifyNonNullOrEmpty(objectIds, "Object ids need to be set",
+                             tagDefinitionId, "Tag definition id needs to be set",
+                             objectType, "Object type needs to be set");
+
+        final CallContext callContext = context.createCallContextNoAccountId(createdBy, reason, comment, request);
+        bulkTagUserApi.addTagToObjects(objectIds, objectType, tagDefinitionId, callContext);
+        return Response.status(Status.CREATED).build();
+    }
+
+    @TimedResource
+    @DELETE
+    @Path("/" + BULK)
+    @Consumes(APPLICATION_JSON)
+    @Produces(APPLICATION_JSON)
+    @ApiOperation(value = "Remove a tag from a list of objects")
+    @ApiResponses(value = {@ApiResponse(code = 204, message = "Successful operation"),
+                           @ApiResponse(code = 400, message = "Invalid tag definition or object type supplied, or account without a default payment method (AUTO_PAY_OFF tag only)")})
+    public Response deleteTagsInBulk(final List<UUID> objectIds,
+                                     @QueryParam(QUERY_TAG) final UUID tagDefinitionId,
+                                     @QueryParam(QUERY_OBJECT_TYPE) final ObjectType objectType,
+                                     @HeaderParam(HDR_CREATED_BY) final String createdBy,
+                                     @HeaderParam(HDR_REASON) final String reason,
+                                     @HeaderParam(HDR_COMMENT) final String comment,
+                                     @javax.ws.rs.core.Context final HttpServletRequest request) throws TagApiException {
+        verifyNonNullOrEmpty(objectIds, "Object ids need to be set",
+                             tagDefinitionId, "Tag definition id needs to be set",
+                             objectType, "Object type needs to be set");
+
+        // Removing AUTO_PAY_OFF also checks the accounts have a default payment method
+        final CallContext callContext = context.createCallContextNoAccountId(createdBy, reason, comment, request);
+        bulkTagUserApi.removeTagFromObjects(objectIds, objectType, tagDefinitionId, callContext);
+        return Response.status(Status.NO_CONTENT).build();
+    }
+
     @TimedResource
     @GET
     @Path("/{tagId:" + UUID_PATTERN + "}/" + AUDIT_LOG_WITH_HISTORY)
@@ -45,6 +45,7 @@ import org.killbill.billing.entitlement.api.BlockingStateType;
 import org.killbill.billing.junction.BillingEvent;
 import org.killbill.billing.junction.BlockingInternalApi;
 import org.killbill.billing.subscription.api.SubscriptionBase;
+import org.killbill.billing.subscription.api.SubscriptionBaseAccountGraph;
 import org.killbill.billing.subscription.api.SubscriptionBaseTransitionType;
 
 import com.google.common.annotations.VisibleForTesting;
@@ -75,6 +76,20 @@ public class BlockingCalculator {
      * @param billingEvents the original list of billing events to update (without overdue events)
      */
     public boolean insertBlockingEvents(final SortedSet<BillingEvent> billingEvents, final Set<UUID> skippedSubscriptions, final Map<UUID, List<SubscriptionBase>> subscriptionsForAccount, final Catalog catalog, final InternalTenantContext context) throws CatalogApiException {
+        return insertBlockingEvents(billingEvents, skippedSubscriptions, subscriptionsForAccount, null, catalog, context);
+    }
+
+    /**
+     * Same as above, re-using the account bundles and subscriptions to compute the blocking states.
+     *
+     * @param billingEvents the original list of billing events to update (without overdue events)
+     * @param accountGraph  bundles and subscriptions for the account
+     */
+    public boolean insertBlockingEvents(final SortedSet<BillingEvent> billingEvents, final Set<UUID> skippedSubscriptions, final SubscriptionBaseAccountGraph accountGraph, final Catalog catalog, final InternalTenantContext context) throws CatalogApiException {
+        return insertBlockingEvents(billingEvents, skippedSubscriptions, accountGraph.getSubscriptionsByBundleId(), accountGraph, catalog, context);
+    }
+
+    private boolean insertBlockingEvents(final SortedSet<BillingEvent> billingEvents, final Set<UUID> skippedSubscriptions, final Map<UUID, List<SubscriptionBase>> subscriptionsForAccount, @Nullable final SubscriptionBaseAccountGraph accountGraph, final Catalog catalog, final InternalTenantContext context) throws CatalogApiException {
         if (billingEvents.size() <= 0) {
             return false;
         }
@@ -82,7 +97,9 @@ public class BlockingCalculator {
         final SortedSet<BillingEvent> billingEventsToAdd = new TreeSet<BillingEvent>();
         final SortedSet<BillingEvent> billingEventsToRemove = new TreeSet<BillingEvent>();
 
-        final List<BlockingState> blockingEvents = blockingApi.getBlockingAllForAccount(catalog, context);
+        final List<BlockingState> blockingEvents = accountGraph != null ?
+                                                   blockingApi.getBlockingAllForAccount(catalog, accountGraph, context) :
+                                                   blockingApi.getBlockingAllForAccount(catalog, context);
 
         final Iterable<BlockingState> accountBlockingEvents = Iterables.filter(blockingEvents, new Predicate<BlockingState>() {
             @Override
@@ -186,6 +203,11 @@ public class BlockingCalculator {
         final SortedSet<BillingEvent> result = new TreeSet<BillingEvent>();
 
         for (final DisabledDuration duration : disabledDuration) {
+            if (duration.getEnd() != null && duration.getStart().compareTo(duration.getEnd()) == 0) {
+                // Zero-length duration: nothing is blocked (and the disable/re-enable pair would share the same date)
+                continue;
+            }
+
             // The first one before the blocked duration
             final BillingEvent precedingInitialEvent = precedingBillingEventForSubscription(duration.getStart(), subscriptionBillingEvents);
             // The last one during of before the duration
@@ -0,0 +1,299 @@
+/*
+ * Copyright 2014-2019 Groupon, Inc
+ * Copyright 2014-2019 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.junction.plumbing.billing;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import javax.annotation.Nullable;
+
+import org.joda.time.Chronology;
+import org.joda.time.DateTime;
+import org.killbill.billing.catalog.api.BillingAlignment;
+import org.killbill.billing.catalog.api.BillingPeriod;
+import org.killbill.billing.catalog.api.Catalog;
+import org.killbill.billing.catalog.api.CatalogApiException;
+import org.killbill.billing.catalog.api.Currency;
+import org.killbill.billing.catalog.api.Plan;
+import org.killbill.billing.catalog.api.PlanPhase;
+import org.killbill.billing.catalog.api.Usage;
+import org.killbill.billing.junction.BillingEvent;
+import org.killbill.billing.subscription.api.SubscriptionBaseTransitionType;
+
+/**
+ * Flattened {@code BillingEvent} stored by {@link CompactBillingEventSet}: dates are kept as epoch millis
+ * (the {@code DateTime} is rebuilt on access), the ordering is a primitive and ids, prices and catalog
+ * dates are the instances interned by the owning set.
+ */
+public class CompactBillingEvent implements BillingEvent {
+
+    private final UUID subscriptionId;
+    private final UUID bundleId;
+
+    private final int billCycleDayLocal;
+    private final BillingAlignment billingAlignment;
+
+    private final long effectiveDateMillis;
+    private final Chronology effectiveDateChronology;
+    private final long lastChangePlanDateMillis;
+    // Null when there is no last change plan date
+    private final Chronology lastChangePlanDateChronology;
+
+    private final PlanPhase planPhase;
+    private final Plan plan;
+    private final BillingPeriod billingPeriod;
+
+    private final BigDecimal fixedPrice;
+    private final Currency currency;
+    private final String description;
+    private final SubscriptionBaseTransitionType type;
+    private final long totalOrdering;
+
+    private final boolean isCancelledOrBlocked;
+
+    private final DateTime catalogEffectiveDate;
+    private final Catalog catalog;
+
+    public CompactBillingEvent(final UUID subscriptionId,
+                               final UUID bundleId,
+                               final DateTime effectiveDate,
+                               final Plan plan,
+                               final PlanPhase planPhase,
+                               @Nullable final BigDecimal fixedPrice,
+                               final Currency currency,
+                               final BillingPeriod billingPeriod,
+                               @Nullable final DateTime lastChangePlanDate,
+                               final int billCycleDayLocal,
+                               @Nullable final BillingAlignment billingAlignment,
+                               final String description,
+                               final long totalOrdering,
+                               final SubscriptionBaseTransitionType type,
+                               final boolean isCancelledOrBlocked,
+                               final DateTime catalogEffectiveDate,
+                               final Catalog catalog) {
+        this.subscriptionId = subscriptionId;
+        this.bundleId = bundleId;
+        this.billCycleDayLocal = billCycleDayLocal;
+        this.billingAlignment = billingAlignment;
+        this.effectiveDateMillis = effectiveDate.getMillis();
+        this.effectiveDateChronology = effectiveDate.getChronology();
+        this.lastChangePlanDateMillis = lastChangePlanDate != null ? lastChangePlanDate.getMillis() : 0L;
+        this.lastChangePlanDateChronology = lastChangePlanDate != null ? lastChangePlanDate.getChronology() : null;
+        this.planPhase = planPhase;
+        this.plan = plan;
+        this.billingPeriod = billingPeriod;
+        this.fixedPrice = fixedPrice;
+        this.currency = currency;
+        this.description = description;
+        this.type = type;
+        this.totalOrdering = totalOrdering;
+        this.isCancelledOrBlocked = isCancelledOrBlocked;
+        this.catalogEffectiveDate = catalogEffectiveDate;
+        this.catalog = catalog;
+    }
+
+    @Override
+    public UUID getSubscriptionId() {
+        return subscriptionId;
+    }
+
+    @Override
+    public UUID getBundleId() {
+        return bundleId;
+    }
+
+    @Override
+    public int getBillCycleDayLocal() {
+        return billCycleDayLocal;
+    }
+
+    @Override
+    public BillingAlignment getBillingAlignment() {
+        return billingAlignment;
+    }
+
+    @Override
+    public DateTime getEffectiveDate() {
+        return new DateTime(effectiveDateMillis, effectiveDateChronology);
+    }
+
+    long getEffectiveDateMillis() {
+        return effectiveDateMillis;
+    }
+
+    @Override
+    public PlanPhase getPlanPhase() {
+        return planPhase;
+    }
+
+    @Override
+    public Plan getPlan() {
+        return plan;
+    }
+
+    @Override
+    public BillingPeriod getBillingPeriod() {
+        return billingPeriod;
+    }
+
+    @Override
+    public String getDescription() {
+        return description;
+    }
+
+    @Override
+    public BigDecimal getFixedPrice() {
+        return fixedPrice;
+    }
+
+    @Override
+    public BigDecimal getRecurringPrice(final DateTime requestedDate) throws CatalogApiException {
+        final PlanPhase effectivePlanPhase = catalog.findPhase(planPhase.getName(), requestedDate, getLastChangePlanDate());
+        return DefaultBillingEvent.computeRecurringPrice(isCancelledOrBlocked, effectivePlanPhase, currency);
+    }
+
+    @Override
+    public Currency getCurrency() {
+        return currency;
+    }
+
+    @Override
+    public DateTime getLastChangePlanDate() {
+        return lastChangePlanDateChronology != null ? new DateTime(lastChangePlanDateMillis, lastChangePlanDateChronology) : null;
+    }
+
+    @Override
+    public SubscriptionBaseTransitionType getTransitionType() {
+        return type;
+    }
+
+    @Override
+    public Long getTotalOrdering() {
+        return totalOrdering;
+    }
+
+    @Override
+    public List<Usage> getUsages() throws CatalogApiException {
+        final PlanPhase effectivePlanPhase = catalog.findPhase(planPhase.getName(), getEffectiveDate(), getLastChangePlanDate());
+        return DefaultBillingEvent.computeUsages(isCancelledOrBlocked, effectivePlanPhase);
+    }
+
+    @Override
+    public DateTime getCatalogEffectiveDate() {
+        return catalogEffectiveDate;
+    }
+
+    @Override
+    public int compareTo(final BillingEvent e1) {
+        if (!subscriptionId.equals(e1.getSubscriptionId())) { // First order by subscription
+            return subscriptionId.compareTo(e1.getSubscriptionId());
+        }
+
+        // Avoid materializing the dates when comparing two compact events (hot path when sorting the set)
+        final long otherEffectiveDateMillis = e1 instanceof CompactBillingEvent ? ((CompactBillingEvent) e1).getEffectiveDateMillis() : e1.getEffectiveDate().getMillis();
+        if (effectiveDateMillis != otherEffectiveDateMillis) { // Secondly order by date
+            return effectiveDateMillis < otherEffectiveDateMillis ? -1 : 1;
+        } else { // dates and subscriptions are the same
+            return DefaultBillingEvent.compareEventsAtSameDate(type, totalOrdering, e1.getTransitionType(), e1.getTotalOrdering());
+        }
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        final CompactBillingEvent that = (CompactBillingEvent) o;
+
+        if (subscriptionId != null ? !subscriptionId.equals(that.subscriptionId) : that.subscriptionId != null) {
+            return false;
+        }
+        if (bundleId != null ? !bundleId.equals(that.bundleId) : that.bundleId != null) {
+            return false;
+        }
+        if (billCycleDayLocal != that.billCycleDayLocal) {
+            return false;
+        }
+        if (billingPeriod != that.billingPeriod) {
+            return false;
+        }
+        if (currency != that.currency) {
+            return false;
+        }
+        if (fixedPrice != null ? !fixedPrice.equals(that.fixedPrice) : that.fixedPrice != null) {
+            return false;
+        }
+        if (description != null ? !description.equals(that.description) : that.description != null) {
+            return false;
+        }
+        if (effectiveDateMillis != that.effectiveDateMillis ||
+            (effectiveDateChronology != null ? !effectiveDateChronology.equals(that.effectiveDateChronology) : that.effectiveDateChronology != null)) {
+            return false;
+        }
+        if (plan != null ? !plan.equals(that.plan) : that.plan != null) {
+            return false;
+        }
+        if (planPhase != null ? !planPhase.equals(that.planPhase) : that.planPhase != null) {
+            return false;
+        }
+        if (totalOrdering != that.totalOrdering) {
+            return false;
+        }
+        if (type != that.type) {
+            return false;
+        }
+
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 31 * billCycleDayLocal;
+        result = 31 * result + (subscriptionId != null ? subscriptionId.hashCode() : 0);
+        result = 31 * result + (bundleId != null ? bundleId.hashCode() : 0);
+        result = 31 * result + (fixedPrice != null ? fixedPrice.hashCode() : 0);
+        result = 31 * result + (int) (effectiveDateMillis ^ (effectiveDateMillis >>> 32));
+        result = 31 * result + (planPhase != null ? planPhase.hashCode() : 0);
+        result = 31 * result + (plan != null ? plan.hashCode() : 0);
+        result = 31 * result + (currency != null ? currency.hashCode() : 0);
+        result = 31 * result + (description != null ? description.hashCode() : 0);
+        result = 31 * result + (billingPeriod != null ? billingPeriod.hashCode() : 0);
+        result = 31 * result + (type != null ? type.hashCode() : 0);
+        result = 31 * result + (int) (totalOrdering ^ (totalOrdering >>> 32));
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        // Same fields as DefaultBillingEvent#toString, as these events are printed in the logs in junction and invoice
+        final StringBuilder sb = new StringBuilder();
+        sb.append("CompactBillingEvent");
+        sb.append("{type=").append(type);
+        sb.append(", effectiveDate=").append(getEffectiveDate());
+        sb.append(", planPhaseName=").append(planPhase.getName());
+        sb.append(", subscriptionId=").append(subscriptionId);
+        sb.append(", totalOrdering=").append(totalOrdering);
+        sb.append('}');
+        return sb.toString();
+    }
+}
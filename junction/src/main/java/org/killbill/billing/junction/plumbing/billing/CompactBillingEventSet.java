@@ -0,0 +1,340 @@
+/*
+ * Copyright 2014-2019 Groupon, Inc
+ * Copyright 2014-2019 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.junction.plumbing.billing;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.UUID;
+
+import org.killbill.billing.catalog.api.CatalogApiException;
+import org.killbill.billing.catalog.api.Usage;
+import org.killbill.billing.junction.BillingEvent;
+import org.killbill.billing.junction.BillingEventSet;
+
+import com.google.common.base.Function;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Sets;
+
+/**
+ * Array-backed {@code BillingEventSet}, used instead of {@link DefaultBillingEventSet} to keep the per-run footprint low:
+ * <ul>
+ * <li>events are stored in a single sorted array (no tree node per event); as they are mostly added in order, insertion is
+ * typically an append</li>
+ * <li>{@code DefaultBillingEvent} instances are flattened into {@link CompactBillingEvent}</li>
+ * <li>ids, prices and catalog effective dates are interned, so that all events of a subscription (or catalog version) share them</li>
+ * </ul>
+ * As with {@code TreeSet}, events are deduplicated using {@code compareTo}. The set isn't thread safe and range views
+ * ({@code headSet}, {@code tailSet}, {@code subSet}) are read-only snapshots.
+ */
+public class CompactBillingEventSet extends AbstractSet<BillingEvent> implements BillingEventSet {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private final boolean accountAutoInvoiceOff;
+    private final boolean accountAutoInvoiceDraft;
+    private final boolean accountAutoInvoiceReuseDraft;
+    private final List<UUID> subscriptionIdsWithAutoInvoiceOff;
+
+    private final Map<Object, Object> internedValues;
+
+    private BillingEvent[] events;
+    private int size;
+    private int modCount;
+
+    public CompactBillingEventSet(final boolean accountAutoInvoiceOff, final boolean accountAutoInvoiceDraft, final boolean accountAutoInvoiceReuseDraft) {
+        this.accountAutoInvoiceOff = accountAutoInvoiceOff;
+        this.accountAutoInvoiceDraft = accountAutoInvoiceDraft;
+        this.accountAutoInvoiceReuseDraft = accountAutoInvoiceReuseDraft;
+        this.subscriptionIdsWithAutoInvoiceOff = new ArrayList<UUID>();
+        this.internedValues = new HashMap<Object, Object>();
+        this.events = new BillingEvent[DEFAULT_CAPACITY];
+        this.size = 0;
+        this.modCount = 0;
+    }
+
+    @Override
+    public boolean isAccountAutoInvoiceOff() {
+        return accountAutoInvoiceOff;
+    }
+
+    @Override
+    public boolean isAccountAutoInvoiceDraft() {
+        return accountAutoInvoiceDraft;
+    }
+
+    @Override
+    public boolean isAccountAutoInvoiceReuseDraft() {
+        return accountAutoInvoiceReuseDraft;
+    }
+
+    @Override
+    public List<UUID> getSubscriptionIdsWithAutoInvoiceOff() {
+        return subscriptionIdsWithAutoInvoiceOff;
+    }
+
+    @Override
+    public Map<String, Usage> getUsages() {
+        final Iterable<Usage> allUsages = Iterables.concat(Iterables.transform(this, new Function<BillingEvent, List<Usage>>() {
+            @Override
+            public List<Usage> apply(final BillingEvent input) {
+                try {
+                    return input.getUsages();
+                } catch (final CatalogApiException e) {
+                    throw new IllegalStateException(String.format("Failed to retrieve usage section for billing event %s", input), e);
+                }
+            }
+        }));
+        if (!allUsages.iterator().hasNext()) {
+            return Collections.emptyMap();
+        }
+        final Map<String, Usage> result = new HashMap<String, Usage>();
+        for (Usage cur : Sets.<Usage>newHashSet(allUsages)) {
+            result.put(cur.getName(), cur);
+        }
+        return result;
+    }
+
+    @Override
+    public boolean add(final BillingEvent event) {
+        final int index;
+        if (size == 0 || event.compareTo(events[size - 1]) > 0) {
+            // Fast path: events are mostly added in order
+            index = size;
+        } else {
+            final int position = Arrays.binarySearch(events, 0, size, event);
+            if (position >= 0) {
+                // Same as TreeSet: the first event added wins
+                return false;
+            }
+            index = -(position + 1);
+        }
+
+        if (size == events.length) {
+            events = Arrays.copyOf(events, size + (size >> 1));
+        }
+        if (index < size) {
+            System.arraycopy(events, index, events, index + 1, size - index);
+        }
+        events[index] = compact(event);
+        size++;
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public boolean remove(final Object o) {
+        final int index = indexOf(o);
+        if (index < 0) {
+            return false;
+        }
+        removeAt(index);
+        return true;
+    }
+
+    @Override
+    public boolean contains(final Object o) {
+        return indexOf(o) >= 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public void clear() {
+        // Interned values are kept, as the set is typically re-populated with the same events (see DefaultInternalBillingApi)
+        Arrays.fill(events, 0, size, null);
+        size = 0;
+        modCount++;
+    }
+
+    @Override
+    public Iterator<BillingEvent> iterator() {
+        return new Iterator<BillingEvent>() {
+
+            private int cursor = 0;
+            private int lastReturned = -1;
+            private int expectedModCount = modCount;
+
+            @Override
+            public boolean hasNext() {
+                return cursor < size;
+            }
+
+            @Override
+            public BillingEvent next() {
+                checkForComodification();
+                if (cursor >= size) {
+                    throw new NoSuchElementException();
+                }
+                lastReturned = cursor++;
+                return events[lastReturned];
+            }
+
+            @Override
+            public void remove() {
+                if (lastReturned < 0) {
+                    throw new IllegalStateException();
+                }
+                checkForComodification();
+                removeAt(lastReturned);
+                cursor = lastReturned;
+                lastReturned = -1;
+                expectedModCount = modCount;
+            }
+
+            private void checkForComodification() {
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+            }
+        };
+    }
+
+    @Override
+    public Comparator<? super BillingEvent> comparator() {
+        // Natural ordering
+        return null;
+    }
+
+    @Override
+    public BillingEvent first() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        return events[0];
+    }
+
+    @Override
+    public BillingEvent last() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        return events[size - 1];
+    }
+
+    @Override
+    public SortedSet<BillingEvent> headSet(final BillingEvent toElement) {
+        return snapshot(0, insertionPoint(toElement));
+    }
+
+    @Override
+    public SortedSet<BillingEvent> tailSet(final BillingEvent fromElement) {
+        return snapshot(insertionPoint(fromElement), size);
+    }
+
+    @Override
+    public SortedSet<BillingEvent> subSet(final BillingEvent fromElement, final BillingEvent toElement) {
+        if (fromElement.compareTo(toElement) > 0) {
+            throw new IllegalArgumentException("fromElement > toElement");
+        }
+        return snapshot(insertionPoint(fromElement), insertionPoint(toElement));
+    }
+
+    private SortedSet<BillingEvent> snapshot(final int fromIndex, final int toIndex) {
+        final SortedSet<BillingEvent> result = new TreeSet<BillingEvent>();
+        result.addAll(Arrays.asList(events).subList(fromIndex, toIndex));
+        return Collections.unmodifiableSortedSet(result);
+    }
+
+    // Index of the first event greater than or equal to the specified one
+    private int insertionPoint(final BillingEvent event) {
+        final int index = Arrays.binarySearch(events, 0, size, event);
+        return index >= 0 ? index : -(index + 1);
+    }
+
+    private int indexOf(final Object o) {
+        if (!(o instanceof BillingEvent)) {
+            return -1;
+        }
+        final int index = Arrays.binarySearch(events, 0, size, o);
+        return index >= 0 ? index : -1;
+    }
+
+    private void removeAt(final int index) {
+        final int numMoved = size - index - 1;
+        if (numMoved > 0) {
+            System.arraycopy(events, index + 1, events, index, numMoved);
+        }
+        events[--size] = null;
+        modCount++;
+    }
+
+    private BillingEvent compact(final BillingEvent event) {
+        if (!(event instanceof DefaultBillingEvent)) {
+            // Already compact, or a custom implementation
+            return event;
+        }
+
+        final DefaultBillingEvent defaultBillingEvent = (DefaultBillingEvent) event;
+        return new CompactBillingEvent(intern(defaultBillingEvent.getSubscriptionId()),
+                                       intern(defaultBillingEvent.getBundleId()),
+                                       defaultBillingEvent.getEffectiveDate(),
+                                       defaultBillingEvent.getPlan(),
+                                       defaultBillingEvent.getPlanPhase(),
+                                       intern(defaultBillingEvent.getFixedPrice()),
+                                       defaultBillingEvent.getCurrency(),
+                                       defaultBillingEvent.getBillingPeriod(),
+                                       defaultBillingEvent.getLastChangePlanDate(),
+                                       defaultBillingEvent.getBillCycleDayLocal(),
+                                       defaultBillingEvent.getBillingAlignment(),
+                                       defaultBillingEvent.getDescription(),
+                                       defaultBillingEvent.getTotalOrdering(),
+                                       defaultBillingEvent.getTransitionType(),
+                                       defaultBillingEvent.isCancelledOrBlocked(),
+                                       intern(defaultBillingEvent.getCatalogEffectiveDate()),
+                                       defaultBillingEvent.getCatalog());
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T intern(final T value) {
+        if (value == null) {
+            return null;
+        }
+        final Object interned = internedValues.get(value);
+        if (interned != null) {
+            return (T) interned;
+        }
+        internedValues.put(value, value);
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return "CompactBillingEventSet [accountAutoInvoiceOff=" + accountAutoInvoiceOff
+               + ", subscriptionIdsWithAutoInvoiceOff=" + subscriptionIdsWithAutoInvoiceOff + ", Events="
+               + super.toString() + "]";
+    }
+}
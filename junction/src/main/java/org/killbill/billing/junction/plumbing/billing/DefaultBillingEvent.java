@@ -209,6 +209,14 @@ public class DefaultBillingEvent implements BillingEvent {
     }
 
 
+    boolean isCancelledOrBlocked() {
+        return isCancelledOrBlocked;
+    }
+
+    Catalog getCatalog() {
+        return catalog;
+    }
+
     @Override
     public BigDecimal getRecurringPrice(final DateTime requestedDate) throws CatalogApiException {
         final PlanPhase effectivePlanPhase = catalog.findPhase(planPhase.getName(), requestedDate, lastChangePlanDate);
@@ -231,7 +239,7 @@ public class DefaultBillingEvent implements BillingEvent {
         return (effectivePlanPhase.getFixed() != null && effectivePlanPhase.getFixed().getPrice() != null) ? effectivePlanPhase.getFixed().getPrice().getPrice(currency) : null;
     }
 
-    private static BigDecimal computeRecurringPrice(final boolean isCancelledOrBlocked, final PlanPhase effectivePlanPhase, final Currency currency) throws CatalogApiException {
+    static BigDecimal computeRecurringPrice(final boolean isCancelledOrBlocked, final PlanPhase effectivePlanPhase, final Currency currency) throws CatalogApiException {
         if (isCancelledOrBlocked) {
             return null;
         }
@@ -242,7 +250,7 @@ public class DefaultBillingEvent implements BillingEvent {
         return effectivePlanPhase.getRecurring() != null ? effectivePlanPhase.getRecurring().getBillingPeriod() : BillingPeriod.NO_BILLING_PERIOD;
     }
 
-    private static List<Usage> computeUsages(final boolean isCancelledOrBlocked, final PlanPhase effectivePlanPhase) {
+    static List<Usage> computeUsages(final boolean isCancelledOrBlocked, final PlanPhase effectivePlanPhase) {
         if (isCancelledOrBlocked) {
             return ImmutableList.<Usage>of();
         }
@@ -271,44 +279,34 @@ public class DefaultBillingEvent implements BillingEvent {
             if (!getEffectiveDate().equals(e1.getEffectiveDate())) { // Secondly order by date
                 return getEffectiveDate().compareTo(e1.getEffectiveDate());
             } else { // dates and subscriptions are the same
-                // If an subscription event and an overdue event happen at the exact same time,
-                // we assume we want the subscription event before the overdue event when entering
-                // the overdue period, and vice-versa when exiting the overdue period
-                if (SubscriptionBaseTransitionType.START_BILLING_DISABLED.equals(getTransitionType())) {
-                    if (SubscriptionBaseTransitionType.END_BILLING_DISABLED.equals(e1.getTransitionType())) {
-                        // Make sure to always have START before END
-                        return -1;
-                    } else {
-                        return 1;
-                    }
-                } else if (SubscriptionBaseTransitionType.START_BILLING_DISABLED.equals(e1.getTransitionType())) {
-                    if (SubscriptionBaseTransitionType.END_BILLING_DISABLED.equals(getTransitionType())) {
-                        // Make sure to always have START before END
-                        return 1;
-                    } else {
-                        return -1;
-                    }
-                } else if (SubscriptionBaseTransitionType.END_BILLING_DISABLED.equals(getTransitionType())) {
-                    if (SubscriptionBaseTransitionType.START_BILLING_DISABLED.equals(e1.getTransitionType())) {
-                        // Make sure to always have START before END
-                        return 1;
-                    } else {
-                        return -1;
-                    }
-                } else if (SubscriptionBaseTransitionType.END_BILLING_DISABLED.equals(e1.getTransitionType())) {
-                    if (SubscriptionBaseTransitionType.START_BILLING_DISABLED.equals(getTransitionType())) {
-                        // Make sure to always have START before END
-                        return -1;
-                    } else {
-                        return 1;
-                    }
-                } else {
-                    return getTotalOrdering().compareTo(e1.getTotalOrdering());
-                }
+                return compareEventsAtSameDate(getTransitionType(), getTotalOrdering(), e1.getTransitionType(), e1.getTotalOrdering());
             }
         }
     }
 
+    static int compareEventsAtSameDate(final SubscriptionBaseTransitionType type, final Long totalOrdering, final SubscriptionBaseTransitionType otherType, final Long otherTotalOrdering) {
+        // If an subscription event and an overdue event happen at the exact same time,
+        // we assume we want the subscription event before the overdue event when entering
+        // the overdue period, and vice-versa when exiting the overdue period.
+        // Blocking durations are merged and zero-length ones skipped (see BlockingCalculator), so a START_BILLING_DISABLED
+        // and an END_BILLING_DISABLED never share a date: ranking END < subscription event < START is a total order.
+        final int rankComparison = sameDateRank(type) - sameDateRank(otherType);
+        if (rankComparison != 0) {
+            return rankComparison;
+        }
+        return totalOrdering.compareTo(otherTotalOrdering);
+    }
+
+    private static int sameDateRank(final SubscriptionBaseTransitionType type) {
+        if (SubscriptionBaseTransitionType.END_BILLING_DISABLED.equals(type)) {
+            return 0;
+        } else if (SubscriptionBaseTransitionType.START_BILLING_DISABLED.equals(type)) {
+            return 2;
+        } else {
+            return 1;
+        }
+    }
+
     @Override
     public boolean equals(final Object o) {
         if (this == o) {
@@ -49,6 +49,7 @@ import org.killbill.billing.junction.BillingEvent;
 import org.killbill.billing.junction.BillingEventSet;
 import org.killbill.billing.junction.BillingInternalApi;
 import org.killbill.billing.subscription.api.SubscriptionBase;
+import org.killbill.billing.subscription.api.SubscriptionBaseAccountGraph;
 import org.killbill.billing.subscription.api.SubscriptionBaseInternalApi;
 import org.killbill.billing.subscription.api.SubscriptionBaseTransitionType;
 import org.killbill.billing.subscription.api.user.SubscriptionBaseApiException;
@@ -104,20 +105,20 @@ public class DefaultInternalBillingApi implements BillingInternalApi {
         final boolean found_INVOICING_REUSE_DRAFT = is_AUTO_INVOICING_REUSE_DRAFT(accountTags);
 
         final Set<UUID> skippedSubscriptions = new HashSet<UUID>();
-        final DefaultBillingEventSet result;
+        final CompactBillingEventSet result;
 
         if (found_AUTO_INVOICING_OFF) {
-            result = new DefaultBillingEventSet(true, found_INVOICING_DRAFT, found_INVOICING_REUSE_DRAFT); // billing is off, we are done
+            result = new CompactBillingEventSet(true, found_INVOICING_DRAFT, found_INVOICING_REUSE_DRAFT); // billing is off, we are done
             log.info("Account is AUTO_INVOICING_OFF: no billing event for accountId='{}'", accountId);
             return result;
         }
 
-        final Map<UUID, List<SubscriptionBase>> subscriptionsForAccount = subscriptionApi.getSubscriptionsForAccount(fullCatalog, context);
-
-
-        final List<SubscriptionBaseBundle> bundles = subscriptionApi.getBundlesForAccount(accountId, context);
+        // Bundles and subscriptions are loaded once, and shared with the blocking states computation
+        final SubscriptionBaseAccountGraph accountGraph = subscriptionApi.getAccountGraph(fullCatalog, context);
+        final Map<UUID, List<SubscriptionBase>> subscriptionsForAccount = accountGraph.getSubscriptionsByBundleId();
+        final List<SubscriptionBaseBundle> bundles = accountGraph.getBundles();
         final ImmutableAccountData account = accountApi.getImmutableAccountDataById(accountId, context);
-        result = new DefaultBillingEventSet(false, found_INVOICING_DRAFT, found_INVOICING_REUSE_DRAFT);
+        result = new CompactBillingEventSet(false, found_INVOICING_DRAFT, found_INVOICING_REUSE_DRAFT);
         addBillingEventsForBundles(bundles, account, dryRunArguments, context, result, skippedSubscriptions, subscriptionsForAccount, fullCatalog, tagsForAccount);
         if (result.isEmpty()) {
             log.info("No billing event for accountId='{}'", accountId);
@@ -129,7 +130,7 @@ public class DefaultInternalBillingApi implements BillingInternalApi {
         // Pretty-print the events, before and after the blocking calculator does its magic
         final StringBuilder logStringBuilder = new StringBuilder("Computed billing events for accountId='").append(accountId).append("'");
         eventsToString(logStringBuilder, result);
-        if (blockCalculator.insertBlockingEvents(result, skippedSubscriptions, subscriptionsForAccount, fullCatalog, context)) {
+        if (blockCalculator.insertBlockingEvents(result, skippedSubscriptions, accountGraph, fullCatalog, context)) {
             logStringBuilder.append("\nBilling Events After Blocking");
             eventsToString(logStringBuilder, result);
         }
@@ -148,7 +149,7 @@ public class DefaultInternalBillingApi implements BillingInternalApi {
                                             final ImmutableAccountData account,
                                             final DryRunArguments dryRunArguments,
                                             final InternalCallContext context,
-                                            final DefaultBillingEventSet result,
+                                            final CompactBillingEventSet result,
                                             final Set<UUID> skipSubscriptionsSet,
                                             final Map<UUID, List<SubscriptionBase>> subscriptionsForAccount,
                                             final Catalog catalog,
@@ -170,7 +171,7 @@ public class DefaultInternalBillingApi implements BillingInternalApi {
                                             final ImmutableAccountData account,
                                             final DryRunArguments dryRunArguments,
                                             final InternalCallContext context,
-                                            final DefaultBillingEventSet result,
+                                            final CompactBillingEventSet result,
                                             final Set<UUID> skipSubscriptionsSet,
                                             final Map<UUID, List<SubscriptionBase>> subscriptionsForAccount,
                                             final Catalog catalog,
@@ -273,7 +274,7 @@ public class DefaultInternalBillingApi implements BillingInternalApi {
                                                  final SubscriptionBase baseSubscription,
                                                  final int currentAccountBCD,
                                                  final InternalCallContext context,
-                                                 final DefaultBillingEventSet result,
+                                                 final CompactBillingEventSet result,
                                                  final Set<UUID> skipSubscriptionsSet,
                                                  final Catalog catalog) throws CatalogApiException {
         final Map<UUID, Integer> bcdCache = new HashMap<UUID, Integer>();
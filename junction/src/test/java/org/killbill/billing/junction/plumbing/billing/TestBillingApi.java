@@ -53,6 +53,7 @@ import org.killbill.billing.junction.JunctionTestSuiteNoDB;
 import org.killbill.billing.mock.MockEffectiveSubscriptionEvent;
 import org.killbill.billing.mock.MockSubscription;
 import org.killbill.billing.subscription.api.SubscriptionBase;
+import org.killbill.billing.subscription.api.SubscriptionBaseAccountGraph;
 import org.killbill.billing.subscription.api.SubscriptionBaseTransitionType;
 import org.killbill.billing.subscription.api.user.SubscriptionBillingEvent;
 import org.killbill.billing.subscription.api.user.DefaultSubscriptionBillingEvent;
@@ -113,6 +114,10 @@ public class TestBillingApi extends JunctionTestSuiteNoDB {
         Mockito.when(subscriptionInternalApi.getSubscriptionsForAccount(Mockito.<Catalog>any(), Mockito.<InternalTenantContext>any())).thenReturn(ImmutableMap.<UUID, List<SubscriptionBase>>builder()
                                                                                                                                                           .put(bunId, subscriptions)
                                                                                                                                                           .build());
+        final SubscriptionBaseAccountGraph accountGraph = Mockito.mock(SubscriptionBaseAccountGraph.class);
+        Mockito.when(accountGraph.getBundles()).thenReturn(bundles);
+        Mockito.when(accountGraph.getSubscriptionsByBundleId()).thenReturn(ImmutableMap.<UUID, List<SubscriptionBase>>of(bunId, subscriptions));
+        Mockito.when(subscriptionInternalApi.getAccountGraph(Mockito.<Catalog>any(), Mockito.<InternalTenantContext>any())).thenReturn(accountGraph);
         Mockito.when(subscriptionInternalApi.getSubscriptionFromId(Mockito.<UUID>any(), Mockito.<InternalTenantContext>any())).thenReturn(subscription);
         Mockito.when(subscriptionInternalApi.getBundleFromId(Mockito.<UUID>any(), Mockito.<InternalTenantContext>any())).thenReturn(bundle);
         Mockito.when(subscriptionInternalApi.getBaseSubscription(Mockito.<UUID>any(), Mockito.<InternalTenantContext>any())).thenReturn(subscription);
@@ -0,0 +1,270 @@
+/*
+ * Copyright 2014-2019 Groupon, Inc
+ * Copyright 2014-2019 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.junction.plumbing.billing;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.UUID;
+
+import org.joda.time.Chronology;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.killbill.billing.catalog.DefaultPrice;
+import org.killbill.billing.catalog.MockInternationalPrice;
+import org.killbill.billing.catalog.MockPlan;
+import org.killbill.billing.catalog.MockPlanPhase;
+import org.killbill.billing.catalog.api.BillingPeriod;
+import org.killbill.billing.catalog.api.Catalog;
+import org.killbill.billing.catalog.api.CatalogApiException;
+import org.killbill.billing.catalog.api.Currency;
+import org.killbill.billing.catalog.api.PhaseType;
+import org.killbill.billing.catalog.api.Plan;
+import org.killbill.billing.catalog.api.PlanPhase;
+import org.killbill.billing.junction.BillingEvent;
+import org.killbill.billing.junction.JunctionTestSuiteNoDB;
+import org.killbill.billing.subscription.api.SubscriptionBaseTransitionType;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class TestCompactBillingEventSet extends JunctionTestSuiteNoDB {
+
+    private static final UUID ID_ZERO = new UUID(0L, 0L);
+    private static final UUID ID_ONE = new UUID(0L, 1L);
+
+    private final Plan plan = new MockPlan();
+    private final PlanPhase planPhase = new MockPlanPhase(new MockInternationalPrice(new DefaultPrice(BigDecimal.TEN, Currency.USD)),
+                                                          new MockInternationalPrice(new DefaultPrice(BigDecimal.ZERO, Currency.USD)),
+                                                          BillingPeriod.MONTHLY, PhaseType.EVERGREEN);
+
+    private Catalog catalog;
+
+    @BeforeMethod(groups = "fast")
+    public void beforeMethod() throws Exception {
+        if (hasFailed()) {
+            return;
+        }
+
+        super.beforeMethod();
+
+        catalog = Mockito.mock(Catalog.class);
+        Mockito.when(catalog.findPhase(Mockito.anyString(), Mockito.<DateTime>any(), Mockito.<DateTime>any())).thenReturn(planPhase);
+    }
+
+    @Test(groups = "fast")
+    public void testOrderingAndDeduplication() throws CatalogApiException {
+        final BillingEvent event0 = createEvent(ID_ZERO, new DateTime("2012-01-01T00:02:04.000Z"), SubscriptionBaseTransitionType.CREATE, 1L);
+        final BillingEvent event1 = createEvent(ID_ZERO, new DateTime("2012-01-02T00:02:04.000Z"), SubscriptionBaseTransitionType.START_BILLING_DISABLED, 2L);
+        final BillingEvent event2 = createEvent(ID_ZERO, new DateTime("2012-01-02T00:02:04.000Z"), SubscriptionBaseTransitionType.CHANGE, 3L);
+        final BillingEvent event3 = createEvent(ID_ONE, new DateTime("2012-01-01T00:02:04.000Z"), SubscriptionBaseTransitionType.CREATE, 4L);
+
+        final CompactBillingEventSet set = new CompactBillingEventSet(false, false, false);
+        set.add(event3);
+        set.add(event1);
+        set.add(event0);
+        set.add(event2);
+        // Duplicate (same ordering)
+        set.add(createEvent(ID_ZERO, new DateTime("2012-01-01T00:02:04.000Z"), SubscriptionBaseTransitionType.CREATE, 1L));
+
+        Assert.assertEquals(set.size(), 4);
+        final Iterator<BillingEvent> it = set.iterator();
+        // Subscription events come before overdue events entering the blocked period
+        checkEvent(it.next(), event0);
+        checkEvent(it.next(), event2);
+        checkEvent(it.next(), event1);
+        checkEvent(it.next(), event3);
+        Assert.assertFalse(it.hasNext());
+
+        checkEvent(set.first(), event0);
+        checkEvent(set.last(), event3);
+        final SortedSet<BillingEvent> headSet = set.headSet(event3);
+        Assert.assertEquals(headSet.size(), 3);
+        checkEvent(headSet.last(), event1);
+    }
+
+    @Test(groups = "fast")
+    public void testRemove() throws CatalogApiException {
+        final BillingEvent event0 = createEvent(ID_ZERO, new DateTime("2012-01-01T00:02:04.000Z"), SubscriptionBaseTransitionType.CREATE, 1L);
+        final BillingEvent event1 = createEvent(ID_ZERO, new DateTime("2012-02-01T00:02:04.000Z"), SubscriptionBaseTransitionType.PHASE, 2L);
+        final BillingEvent event2 = createEvent(ID_ONE, new DateTime("2012-01-01T00:02:04.000Z"), SubscriptionBaseTransitionType.CREATE, 3L);
+
+        final CompactBillingEventSet set = new CompactBillingEventSet(false, false, false);
+        set.add(event2);
+        set.add(event0);
+        set.add(event1);
+
+        // Lookups work both with the original and the stored events
+        Assert.assertTrue(set.contains(event1));
+        Assert.assertTrue(set.remove(event1));
+        Assert.assertFalse(set.contains(event1));
+        Assert.assertFalse(set.remove(event1));
+
+        final Iterator<BillingEvent> it = set.iterator();
+        final BillingEvent stored = it.next();
+        it.remove();
+        Assert.assertFalse(set.contains(stored));
+        Assert.assertEquals(set.size(), 1);
+        checkEvent(set.first(), event2);
+
+        set.clear();
+        Assert.assertTrue(set.isEmpty());
+    }
+
+    @Test(groups = "fast")
+    public void testEventsAreCompacted() throws CatalogApiException {
+        final DateTime effectiveDate = new DateTime("2012-01-01T00:02:04.000Z", DateTimeZone.UTC);
+        final BillingEvent event0 = createEvent(new UUID(0L, 0L), effectiveDate, SubscriptionBaseTransitionType.CREATE, 1L);
+        final BillingEvent event1 = createEvent(new UUID(0L, 0L), effectiveDate.plusMonths(1), SubscriptionBaseTransitionType.PHASE, 2L);
+
+        final CompactBillingEventSet set = new CompactBillingEventSet(false, false, false);
+        set.add(event0);
+        set.add(event1);
+
+        final Iterator<BillingEvent> it = set.iterator();
+        final BillingEvent compactEvent0 = it.next();
+        final BillingEvent compactEvent1 = it.next();
+        Assert.assertTrue(compactEvent0 instanceof CompactBillingEvent);
+        checkEvent(compactEvent0, event0);
+        Assert.assertEquals(compactEvent0.getRecurringPrice(effectiveDate), event0.getRecurringPrice(effectiveDate));
+        Assert.assertEquals(compactEvent0.getUsages(), event0.getUsages());
+
+        // Shared across events
+        Assert.assertSame(compactEvent0.getSubscriptionId(), compactEvent1.getSubscriptionId());
+        Assert.assertSame(compactEvent0.getFixedPrice(), compactEvent1.getFixedPrice());
+        Assert.assertSame(compactEvent0.getCatalogEffectiveDate(), compactEvent1.getCatalogEffectiveDate());
+    }
+
+    @Test(groups = "fast")
+    public void testSameDateOrdering() throws CatalogApiException {
+        final DateTime effectiveDate = new DateTime("2012-01-31T00:02:04.000Z");
+        final BillingEvent start1 = createEvent(ID_ZERO, effectiveDate, SubscriptionBaseTransitionType.START_BILLING_DISABLED, 1L);
+        final BillingEvent start2 = createEvent(ID_ZERO, effectiveDate, SubscriptionBaseTransitionType.START_BILLING_DISABLED, 2L);
+        final BillingEvent end1 = createEvent(ID_ZERO, effectiveDate, SubscriptionBaseTransitionType.END_BILLING_DISABLED, 3L);
+        final BillingEvent end2 = createEvent(ID_ZERO, effectiveDate, SubscriptionBaseTransitionType.END_BILLING_DISABLED, 4L);
+        final BillingEvent create = createEvent(ID_ZERO, effectiveDate, SubscriptionBaseTransitionType.CREATE, 5L);
+
+        // Antisymmetric, including between events of the same type
+        Assert.assertTrue(start1.compareTo(start2) < 0);
+        Assert.assertTrue(start2.compareTo(start1) > 0);
+        Assert.assertTrue(end1.compareTo(end2) < 0);
+        Assert.assertTrue(end2.compareTo(end1) > 0);
+        Assert.assertTrue(end2.compareTo(create) < 0);
+        Assert.assertTrue(create.compareTo(end2) > 0);
+        Assert.assertTrue(create.compareTo(start1) < 0);
+        Assert.assertTrue(start1.compareTo(create) > 0);
+
+        final CompactBillingEventSet set = new CompactBillingEventSet(false, false, false);
+        Assert.assertTrue(set.add(start2));
+        Assert.assertTrue(set.add(create));
+        Assert.assertTrue(set.add(end2));
+        Assert.assertTrue(set.add(start1));
+        Assert.assertTrue(set.add(end1));
+        // Out of order duplicate
+        Assert.assertFalse(set.add(createEvent(ID_ZERO, effectiveDate, SubscriptionBaseTransitionType.END_BILLING_DISABLED, 4L)));
+
+        Assert.assertEquals(set.size(), 5);
+        final Iterator<BillingEvent> it = set.iterator();
+        checkEvent(it.next(), end1);
+        checkEvent(it.next(), end2);
+        checkEvent(it.next(), create);
+        checkEvent(it.next(), start1);
+        checkEvent(it.next(), start2);
+        Assert.assertFalse(it.hasNext());
+    }
+
+    @Test(groups = "fast")
+    public void testRetainedObjects() throws Exception {
+        final int nbSubscriptions = 200;
+        final int nbEventsPerSubscription = 10;
+        final int nbEvents = nbSubscriptions * nbEventsPerSubscription;
+
+        final SortedSet<BillingEvent> defaultBillingEventSet = new DefaultBillingEventSet(false, false, false);
+        populate(defaultBillingEventSet, nbSubscriptions, nbEventsPerSubscription);
+        Assert.assertEquals(defaultBillingEventSet.size(), nbEvents);
+        // One TreeMap entry per event
+        final int defaultRetainedObjects = countRetainedObjects(defaultBillingEventSet) + nbEvents;
+
+        final SortedSet<BillingEvent> compactBillingEventSet = new CompactBillingEventSet(false, false, false);
+        populate(compactBillingEventSet, nbSubscriptions, nbEventsPerSubscription);
+        Assert.assertEquals(compactBillingEventSet.size(), nbEvents);
+        // A single backing array
+        final int compactRetainedObjects = countRetainedObjects(compactBillingEventSet) + 1;
+
+        // The event itself, its tree entry, its dates and its boxed ordering
+        Assert.assertTrue(defaultRetainedObjects >= 4 * nbEvents, "DefaultBillingEventSet retains " + defaultRetainedObjects + " objects");
+        // Only the event itself, the ids being shared per subscription (and the other values across subscriptions)
+        Assert.assertTrue(compactRetainedObjects <= nbEvents + nbSubscriptions + 10, "CompactBillingEventSet retains " + compactRetainedObjects + " objects");
+    }
+
+    private void populate(final SortedSet<BillingEvent> set, final int nbSubscriptions, final int nbEventsPerSubscription) throws CatalogApiException {
+        final DateTime startDate = new DateTime("2012-01-01T00:02:04.000Z", DateTimeZone.UTC);
+        long totalOrdering = 1000;
+        for (int i = 0; i < nbSubscriptions; i++) {
+            final UUID subscriptionId = UUID.randomUUID();
+            for (int j = 0; j < nbEventsPerSubscription; j++) {
+                set.add(createEvent(UUID.fromString(subscriptionId.toString()), startDate.plusMonths(j), SubscriptionBaseTransitionType.CHANGE, totalOrdering++));
+            }
+        }
+    }
+
+    // Distinct (by identity) events and values they reference, ignoring catalog objects, chronologies and enums which are shared singletons
+    private int countRetainedObjects(final Iterable<BillingEvent> events) throws IllegalAccessException {
+        final Set<Object> retained = Collections.<Object>newSetFromMap(new IdentityHashMap<Object, Boolean>());
+        for (final BillingEvent event : events) {
+            retained.add(event);
+            for (final Field field : event.getClass().getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers()) || field.getType().isPrimitive()) {
+                    continue;
+                }
+                field.setAccessible(true);
+                final Object value = field.get(event);
+                if (value == null || value instanceof Enum || value instanceof Plan || value instanceof PlanPhase || value instanceof Catalog || value instanceof Chronology) {
+                    continue;
+                }
+                retained.add(value);
+            }
+        }
+        return retained.size();
+    }
+
+    private void checkEvent(final BillingEvent actual, final BillingEvent expected) {
+        Assert.assertEquals(actual.compareTo(expected), 0);
+        Assert.assertEquals(actual.getSubscriptionId(), expected.getSubscriptionId());
+        Assert.assertEquals(actual.getEffectiveDate(), expected.getEffectiveDate());
+        Assert.assertEquals(actual.getLastChangePlanDate(), expected.getLastChangePlanDate());
+        Assert.assertEquals(actual.getTransitionType(), expected.getTransitionType());
+        Assert.assertEquals(actual.getTotalOrdering(), expected.getTotalOrdering());
+        Assert.assertEquals(actual.getPlanPhase(), expected.getPlanPhase());
+        Assert.assertEquals(actual.getFixedPrice(), expected.getFixedPrice());
+        Assert.assertEquals(actual.getCatalogEffectiveDate(), expected.getCatalogEffectiveDate());
+    }
+
+    private BillingEvent createEvent(final UUID subscriptionId, final DateTime effectiveDate, final SubscriptionBaseTransitionType type, final long totalOrdering) throws CatalogApiException {
+        return new DefaultBillingEvent(subscriptionId, subscriptionId, effectiveDate,
+                                       plan, planPhase, planPhase.getFixed().getPrice().getPrice(Currency.USD),
+                                       Currency.USD, BillingPeriod.MONTHLY, effectiveDate, 1,
+                                       type.toString(), totalOrdering, type, false, catalog);
+    }
+}
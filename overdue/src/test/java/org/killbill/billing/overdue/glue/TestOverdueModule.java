@@ -40,6 +40,7 @@ import org.killbill.billing.overdue.caching.OverdueCacheInvalidationCallback;
 import org.killbill.billing.overdue.caching.OverdueConfigCache;
 import org.killbill.billing.overdue.wrapper.OverdueWrapper;
 import org.killbill.billing.platform.api.KillbillConfigSource;
+import org.killbill.billing.subscription.api.SubscriptionBaseAccountGraph;
 import org.killbill.billing.tenant.api.TenantInternalApi.CacheInvalidationCallback;
 import org.killbill.billing.util.email.templates.TemplateModule;
 import org.killbill.billing.util.glue.AuditModule;
@@ -103,6 +104,11 @@ public class TestOverdueModule extends DefaultOverdueModule {
             throw new UnsupportedOperationException();
         }
 
+        @Override
+        public List<BlockingState> getBlockingAllForAccount(final Catalog catalog, final SubscriptionBaseAccountGraph accountGraph, final InternalTenantContext context) {
+            throw new UnsupportedOperationException();
+        }
+
         @Override
         public void setBlockingState(final BlockingState state, final InternalCallContext context) {
             blockingState = state;
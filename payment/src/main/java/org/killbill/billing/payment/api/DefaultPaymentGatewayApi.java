@@ -43,6 +43,7 @@ import org.killbill.billing.util.PluginProperties;
 import org.killbill.billing.util.callcontext.CallContext;
 import org.killbill.billing.util.callcontext.InternalCallContextFactory;
 import org.killbill.billing.util.config.definition.PaymentConfig;
+import org.killbill.billing.util.metrics.BillingMetrics;
 
 import com.google.common.base.Joiner;
 
@@ -62,13 +63,14 @@ public class DefaultPaymentGatewayApi extends DefaultApiBase implements PaymentG
                                     final PaymentGatewayProcessor paymentGatewayProcessor,
                                     final ControlPluginRunner controlPluginRunner,
                                     final PaymentExecutors executors,
-                                    final InternalCallContextFactory internalCallContextFactory) {
+                                    final InternalCallContextFactory internalCallContextFactory,
+                                    final BillingMetrics billingMetrics) {
         super(paymentConfig, internalCallContextFactory);
         this.paymentGatewayProcessor = paymentGatewayProcessor;
         this.controlPluginRunner = controlPluginRunner;
         final long paymentPluginTimeoutSec = TimeUnit.SECONDS.convert(paymentConfig.getPaymentPluginTimeout().getPeriod(), paymentConfig.getPaymentPluginTimeout().getUnit());
-        this.paymentPluginFormDispatcher = new PluginDispatcher<HostedPaymentPageFormDescriptor>(paymentPluginTimeoutSec, executors);
-        this.paymentPluginNotificationDispatcher = new PluginDispatcher<GatewayNotification>(paymentPluginTimeoutSec, executors);
+        this.paymentPluginFormDispatcher = new PluginDispatcher<HostedPaymentPageFormDescriptor>(paymentPluginTimeoutSec, executors, billingMetrics);
+        this.paymentPluginNotificationDispatcher = new PluginDispatcher<GatewayNotification>(paymentPluginTimeoutSec, executors, billingMetrics);
     }
 
     @Override
@@ -18,30 +18,23 @@
 
 package org.killbill.billing.payment.bus;
 
-import java.math.BigDecimal;
-import java.util.LinkedList;
-import java.util.List;
-
-import org.killbill.billing.ErrorCode;
 import org.killbill.billing.account.api.Account;
 import org.killbill.billing.account.api.AccountApiException;
 import org.killbill.billing.account.api.AccountInternalApi;
 import org.killbill.billing.callcontext.InternalCallContext;
 import org.killbill.billing.events.InvoiceCreationInternalEvent;
 import org.killbill.billing.events.PaymentInternalEvent;
-import org.killbill.billing.payment.api.InvoicePaymentInternalApi;
-import org.killbill.billing.payment.api.PaymentApiException;
-import org.killbill.billing.payment.api.PaymentOptions;
-import org.killbill.billing.payment.api.PluginProperty;
+import org.killbill.billing.payment.core.batch.InvoicePaymentBatcher;
+import org.killbill.billing.payment.core.batch.InvoicePaymentRequest;
 import org.killbill.billing.payment.core.janitor.Janitor;
 import org.killbill.billing.util.callcontext.CallOrigin;
 import org.killbill.billing.util.callcontext.InternalCallContextFactory;
 import org.killbill.billing.util.callcontext.UserType;
-import org.killbill.billing.util.config.definition.PaymentConfig;
+import org.killbill.billing.util.metrics.BillingMetrics;
+import org.killbill.clock.Clock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.common.collect.ImmutableList;
 import com.google.common.eventbus.AllowConcurrentEvents;
 import com.google.common.eventbus.Subscribe;
 import com.google.inject.Inject;
@@ -51,28 +44,37 @@ public class PaymentBusEventHandler {
     private static final Logger log = LoggerFactory.getLogger(PaymentBusEventHandler.class);
 
     private final AccountInternalApi accountApi;
-    private final InvoicePaymentInternalApi invoicePaymentInternalApi;
+    private final InvoicePaymentBatcher invoicePaymentBatcher;
     private final InternalCallContextFactory internalCallContextFactory;
-    private final PaymentConfig paymentConfig;
     private final Janitor janitor;
+    private final BillingMetrics billingMetrics;
+    private final Clock clock;
 
     @Inject
-    public PaymentBusEventHandler(final PaymentConfig paymentConfig,
-                                  final AccountInternalApi accountApi,
-                                  final InvoicePaymentInternalApi invoicePaymentInternalApi,
+    public PaymentBusEventHandler(final AccountInternalApi accountApi,
+                                  final InvoicePaymentBatcher invoicePaymentBatcher,
                                   final Janitor janitor,
-                                  final InternalCallContextFactory internalCallContextFactory) {
-        this.paymentConfig = paymentConfig;
+                                  final InternalCallContextFactory internalCallContextFactory,
+                                  final BillingMetrics billingMetrics,
+                                  final Clock clock) {
         this.accountApi = accountApi;
-        this.invoicePaymentInternalApi = invoicePaymentInternalApi;
+        this.invoicePaymentBatcher = invoicePaymentBatcher;
         this.janitor = janitor;
         this.internalCallContextFactory = internalCallContextFactory;
+        this.billingMetrics = billingMetrics;
+        this.clock = clock;
     }
 
     @AllowConcurrentEvents
     @Subscribe
     public void processPaymentEvent(final PaymentInternalEvent event) {
-        janitor.processPaymentEvent(event);
+        billingMetrics.recordLag("killbill.payment.listener.PaymentInternalEvent.lag", event.getEffectiveDate(), clock.getUTCNow());
+        final long startNanos = System.nanoTime();
+        try {
+            janitor.processPaymentEvent(event);
+        } finally {
+            billingMetrics.recordDuration("killbill.payment.listener.PaymentInternalEvent", System.nanoTime() - startNanos);
+        }
     }
 
     @AllowConcurrentEvents
@@ -80,47 +82,25 @@ public class PaymentBusEventHandler {
     public void processInvoiceEvent(final InvoiceCreationInternalEvent event) {
         log.info("Received invoice creation notification for accountId='{}', invoiceId='{}'", event.getAccountId(), event.getInvoiceId());
 
-        final InternalCallContext internalContext = internalCallContextFactory.createInternalCallContext(event.getSearchKey2(), event.getSearchKey1(), "PaymentRequestProcessor", CallOrigin.INTERNAL, UserType.SYSTEM, event.getUserToken());
+        final long startNanos = System.nanoTime();
+        try {
+            processInvoiceEventInternal(event);
+        } finally {
+            billingMetrics.recordDuration("killbill.payment.listener.InvoiceCreationInternalEvent", System.nanoTime() - startNanos);
+        }
+    }
 
-        final BigDecimal amountToBePaid = null; // We let the plugin compute how much should be paid
-        final List<String> paymentControlPluginNames = paymentConfig.getPaymentControlPluginNames(internalContext) != null ? new LinkedList<String>(paymentConfig.getPaymentControlPluginNames(internalContext)) : new LinkedList<String>();
+    private void processInvoiceEventInternal(final InvoiceCreationInternalEvent event) {
+        final InternalCallContext internalContext = internalCallContextFactory.createInternalCallContext(event.getSearchKey2(), event.getSearchKey1(), "PaymentRequestProcessor", CallOrigin.INTERNAL, UserType.SYSTEM, event.getUserToken());
 
         final Account account;
         try {
             account = accountApi.getAccountById(event.getAccountId(), internalContext);
-
-            invoicePaymentInternalApi.createPurchaseForInvoicePayment(false,
-                                                                      account,
-                                                                      event.getInvoiceId(),
-                                                                      account.getPaymentMethodId(),
-                                                                      null,
-                                                                      amountToBePaid,
-                                                                      account.getCurrency(),
-                                                                      null,
-                                                                      null,
-                                                                      null,
-                                                                      ImmutableList.<PluginProperty>of(),
-                                                                      new PaymentOptions() {
-                                                                   @Override
-                                                                   public boolean isExternalPayment() {
-                                                                       return false;
-                                                                   }
-
-                                                                   @Override
-                                                                   public List<String> getPaymentControlPluginNames() {
-                                                                       return paymentControlPluginNames;
-                                                                   }
-                                                               },
-                                                                      internalContext);
         } catch (final AccountApiException e) {
             log.warn("Failed to process invoice payment", e);
-        } catch (final PaymentApiException e) {
-            // Log as warn unless nothing left to be paid
-            if (e.getCode() != ErrorCode.PAYMENT_PLUGIN_API_ABORTED.getCode()) {
-                log.warn("Failed to process invoice payment", e);
-            }
+            return;
         }
+
+        invoicePaymentBatcher.processInvoicePayment(new InvoicePaymentRequest(account, event.getInvoiceId(), internalContext));
     }
 }
-
-
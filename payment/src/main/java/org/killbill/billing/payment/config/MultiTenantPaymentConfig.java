@@ -159,11 +159,66 @@ public class MultiTenantPaymentConfig extends MultiTenantConfigBase implements P
         return staticConfig.getPaymentPluginTimeout();
     }
 
+    @Override
+    public TimeSpan getPaymentPluginPaginationTimeout() {
+        return staticConfig.getPaymentPluginPaginationTimeout();
+    }
+
+    @Override
+    public int getPaymentPluginPaginationThreadNb() {
+        return staticConfig.getPaymentPluginPaginationThreadNb();
+    }
+
     @Override
     public int getPaymentPluginThreadNb() {
         return staticConfig.getPaymentPluginThreadNb();
     }
 
+    @Override
+    public boolean isRetryPlannerEnabled() {
+        return staticConfig.isRetryPlannerEnabled();
+    }
+
+    @Override
+    public TimeSpan getRetryPlannerBucket() {
+        return staticConfig.getRetryPlannerBucket();
+    }
+
+    @Override
+    public int getRetryPlannerMaxPerPluginPerBucket() {
+        return staticConfig.getRetryPlannerMaxPerPluginPerBucket();
+    }
+
+    @Override
+    public int getRetryPlannerMaxConcurrentPerPlugin() {
+        return staticConfig.getRetryPlannerMaxConcurrentPerPlugin();
+    }
+
+    @Override
+    public boolean isInvoicePaymentBatchEnabled() {
+        return staticConfig.isInvoicePaymentBatchEnabled();
+    }
+
+    @Override
+    public int getInvoicePaymentBatchSize() {
+        return staticConfig.getInvoicePaymentBatchSize();
+    }
+
+    @Override
+    public int getInvoicePaymentBatchThreadNb() {
+        return staticConfig.getInvoicePaymentBatchThreadNb();
+    }
+
+    @Override
+    public int getMainBusThreadNb() {
+        return staticConfig.getMainBusThreadNb();
+    }
+
+    @Override
+    public TimeSpan getInvoicePaymentBatchMaxDelay() {
+        return staticConfig.getInvoicePaymentBatchMaxDelay();
+    }
+
     @Override
     public int getMaxGlobalLockRetries() {
         return staticConfig.getMaxGlobalLockRetries();
@@ -39,13 +39,23 @@ public class PaymentExecutors {
     private static final String PLUGIN_THREAD_PREFIX = "Plugin-th-";
     private static final String PAYMENT_PLUGIN_TH_GROUP_NAME = "pay-plugin-grp";
 
+    private static final String PLUGIN_PAGINATION_THREAD_PREFIX = "PluginPagination-th-";
+    private static final String PLUGIN_PAGINATION_TH_GROUP_NAME = "pay-plugin-pagination-grp";
+
+    private static final String INVOICE_BATCH_THREAD_PREFIX = "InvoiceBatch-th-";
+    private static final String INVOICE_BATCH_TH_GROUP_NAME = "pay-invoice-batch-grp";
+
     public static final String JANITOR_EXECUTOR_NAMED = "JanitorExecutor";
     public static final String PLUGIN_EXECUTOR_NAMED = "PluginExecutor";
+    public static final String INVOICE_BATCH_EXECUTOR_NAMED = "InvoicePaymentBatchExecutor";
 
     private final PaymentConfig paymentConfig;
 
     private volatile ThreadPoolExecutor pluginExecutorService;
+    private volatile ExecutorService pluginPaginationExecutorService;
     private volatile ScheduledExecutorService janitorExecutorService;
+    private volatile ScheduledExecutorService invoiceBatchExecutorService;
+    private volatile ExecutorService invoiceBatchWorkersExecutorService;
 
     @Inject
     public PaymentExecutors(PaymentConfig paymentConfig) {
@@ -56,29 +66,56 @@ public class PaymentExecutors {
     public void initialize() {
         this.pluginExecutorService = createPluginExecutorService();
         this.pluginExecutorService.prestartAllCoreThreads();
+        this.pluginPaginationExecutorService = createPluginPaginationExecutorService();
         this.janitorExecutorService = createJanitorExecutorService();
+        this.invoiceBatchExecutorService = createInvoiceBatchExecutorService();
+        this.invoiceBatchWorkersExecutorService = createInvoiceBatchWorkersExecutorService();
     }
 
 
     public void stop() throws InterruptedException {
         pluginExecutorService.shutdownNow();
+        pluginPaginationExecutorService.shutdownNow();
         janitorExecutorService.shutdownNow();
+        invoiceBatchExecutorService.shutdownNow();
+        invoiceBatchWorkersExecutorService.shutdownNow();
 
         pluginExecutorService.awaitTermination(TIMEOUT_EXECUTOR_SEC, TimeUnit.SECONDS);
         pluginExecutorService = null;
 
+        pluginPaginationExecutorService.awaitTermination(TIMEOUT_EXECUTOR_SEC, TimeUnit.SECONDS);
+        pluginPaginationExecutorService = null;
+
         janitorExecutorService.awaitTermination(TIMEOUT_EXECUTOR_SEC, TimeUnit.SECONDS);
         janitorExecutorService = null;
+
+        invoiceBatchExecutorService.awaitTermination(TIMEOUT_EXECUTOR_SEC, TimeUnit.SECONDS);
+        invoiceBatchExecutorService = null;
+
+        invoiceBatchWorkersExecutorService.awaitTermination(TIMEOUT_EXECUTOR_SEC, TimeUnit.SECONDS);
+        invoiceBatchWorkersExecutorService = null;
     }
 
     public ExecutorService getPluginExecutorService() {
         return pluginExecutorService;
     }
 
+    public ExecutorService getPluginPaginationExecutorService() {
+        return pluginPaginationExecutorService;
+    }
+
     public ScheduledExecutorService getJanitorExecutorService() {
         return janitorExecutorService;
     }
 
+    public ScheduledExecutorService getInvoiceBatchExecutorService() {
+        return invoiceBatchExecutorService;
+    }
+
+    public ExecutorService getInvoiceBatchWorkersExecutorService() {
+        return invoiceBatchWorkersExecutorService;
+    }
+
     private ThreadPoolExecutor createPluginExecutorService() {
         final int minThreadNb = DEFAULT_MIN_PLUGIN_THREADS < paymentConfig.getPaymentPluginThreadNb() ? DEFAULT_MIN_PLUGIN_THREADS : paymentConfig.getPaymentPluginThreadNb();
         return new WithProfilingThreadPoolExecutor(minThreadNb,
@@ -98,7 +135,47 @@ public class PaymentExecutors {
 
     }
 
+    // Separate from the plugin executor, so that the plugin calls of a page of payments don't queue up ahead of the live payments
+    private ExecutorService createPluginPaginationExecutorService() {
+        return new WithProfilingThreadPoolExecutor(paymentConfig.getPaymentPluginPaginationThreadNb(),
+                                                   paymentConfig.getPaymentPluginPaginationThreadNb(),
+                                                   0,
+                                                   TimeUnit.MILLISECONDS,
+                                                   new LinkedBlockingQueue<Runnable>(),
+                                                   new ThreadFactory() {
+
+                                                       @Override
+                                                       public Thread newThread(final Runnable r) {
+                                                           final Thread th = new Thread(new ThreadGroup(PLUGIN_PAGINATION_TH_GROUP_NAME), r);
+                                                           th.setName(PLUGIN_PAGINATION_THREAD_PREFIX + th.getId());
+                                                           return th;
+                                                       }
+                                                   });
+    }
+
     private ScheduledExecutorService createJanitorExecutorService() {
         return Executors.newSingleThreadScheduledExecutor("PaymentJanitor");
     }
+
+    private ScheduledExecutorService createInvoiceBatchExecutorService() {
+        return Executors.newSingleThreadScheduledExecutor("PaymentInvoiceBatch");
+    }
+
+    // Separate from the plugin executor, which the payments of the batches submit their plugin calls to
+    private ExecutorService createInvoiceBatchWorkersExecutorService() {
+        return new WithProfilingThreadPoolExecutor(paymentConfig.getInvoicePaymentBatchThreadNb(),
+                                                   paymentConfig.getInvoicePaymentBatchThreadNb(),
+                                                   0,
+                                                   TimeUnit.MILLISECONDS,
+                                                   new LinkedBlockingQueue<Runnable>(),
+                                                   new ThreadFactory() {
+
+                                                       @Override
+                                                       public Thread newThread(final Runnable r) {
+                                                           final Thread th = new Thread(new ThreadGroup(INVOICE_BATCH_TH_GROUP_NAME), r);
+                                                           th.setName(INVOICE_BATCH_THREAD_PREFIX + th.getId());
+                                                           return th;
+                                                       }
+                                                   });
+    }
 }
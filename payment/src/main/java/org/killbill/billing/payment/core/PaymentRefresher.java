@@ -22,14 +22,22 @@ import java.util.Collection;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import javax.annotation.Nullable;
 import javax.inject.Inject;
 
+import org.apache.shiro.util.ThreadContext;
 import org.killbill.billing.ErrorCode;
 import org.killbill.billing.account.api.AccountInternalApi;
 import org.killbill.billing.callcontext.InternalTenantContext;
@@ -49,6 +57,7 @@ import org.killbill.billing.payment.dao.PaymentModelDao;
 import org.killbill.billing.payment.dao.PaymentTransactionModelDao;
 import org.killbill.billing.payment.dao.PluginPropertySerializer;
 import org.killbill.billing.payment.dao.PluginPropertySerializer.PluginPropertySerializerException;
+import org.killbill.billing.payment.dispatcher.CallableWithRequestData;
 import org.killbill.billing.payment.plugin.api.PaymentPluginApi;
 import org.killbill.billing.payment.plugin.api.PaymentPluginApiException;
 import org.killbill.billing.payment.plugin.api.PaymentTransactionInfoPlugin;
@@ -56,14 +65,17 @@ import org.killbill.billing.payment.retry.DefaultRetryService;
 import org.killbill.billing.payment.retry.PaymentRetryNotificationKey;
 import org.killbill.billing.platform.api.KillbillService.KILLBILL_SERVICES;
 import org.killbill.billing.tag.TagInternalApi;
+import org.killbill.billing.util.UUIDs;
 import org.killbill.billing.util.callcontext.InternalCallContextFactory;
 import org.killbill.billing.util.callcontext.TenantContext;
+import org.killbill.billing.util.config.definition.PaymentConfig;
 import org.killbill.billing.util.entity.DefaultPagination;
 import org.killbill.billing.util.entity.Pagination;
 import org.killbill.billing.util.entity.dao.DefaultPaginationHelper.EntityPaginationBuilder;
 import org.killbill.billing.util.entity.dao.DefaultPaginationHelper.SourcePaginationBuilder;
 import org.killbill.clock.Clock;
 import org.killbill.commons.locker.GlobalLocker;
+import org.killbill.commons.request.Request;
 import org.killbill.notificationq.api.NotificationEvent;
 import org.killbill.notificationq.api.NotificationEventWithMetadata;
 import org.killbill.notificationq.api.NotificationQueue;
@@ -71,10 +83,12 @@ import org.killbill.notificationq.api.NotificationQueueService;
 import org.killbill.notificationq.api.NotificationQueueService.NoSuchNotificationQueue;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
 
 import com.google.common.base.Function;
 import com.google.common.base.Optional;
 import com.google.common.base.Predicate;
+import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.Collections2;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableList;
@@ -84,7 +98,7 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Ordering;
 
-import static org.killbill.billing.util.entity.dao.DefaultPaginationHelper.getEntityPagination;
+import static org.killbill.billing.util.entity.dao.DefaultPaginationHelper.getEntityPaginationByPage;
 import static org.killbill.billing.util.entity.dao.DefaultPaginationHelper.getEntityPaginationFromPlugins;
 
 public class PaymentRefresher extends ProcessorBase {
@@ -96,6 +110,8 @@ public class PaymentRefresher extends ProcessorBase {
 
     private final NotificationQueueService notificationQueueService;
     private final IncompletePaymentTransactionTask incompletePaymentTransactionTask;
+    private final PaymentExecutors paymentExecutors;
+    private final PaymentConfig paymentConfig;
 
     @Inject
     public PaymentRefresher(final PaymentPluginServiceRegistration paymentPluginServiceRegistration,
@@ -107,10 +123,14 @@ public class PaymentRefresher extends ProcessorBase {
                             final InvoiceInternalApi invoiceApi,
                             final Clock clock,
                             final NotificationQueueService notificationQueueService,
-                            final IncompletePaymentTransactionTask incompletePaymentTransactionTask) {
+                            final IncompletePaymentTransactionTask incompletePaymentTransactionTask,
+                            final PaymentExecutors paymentExecutors,
+                            final PaymentConfig paymentConfig) {
         super(paymentPluginServiceRegistration, accountUserApi, paymentDao, tagUserApi, locker, internalCallContextFactory, invoiceApi, clock);
         this.notificationQueueService = notificationQueueService;
         this.incompletePaymentTransactionTask = incompletePaymentTransactionTask;
+        this.paymentExecutors = paymentExecutors;
+        this.paymentConfig = paymentConfig;
     }
 
     protected void onJanitorChange(final PaymentTransactionModelDao curPaymentTransactionModelDao,
@@ -240,38 +260,44 @@ public class PaymentRefresher extends ProcessorBase {
         final Map<UUID, Optional<PaymentPluginApi>> paymentMethodIdToPaymentPluginApi = new HashMap<UUID, Optional<PaymentPluginApi>>();
 
         try {
-            return getEntityPagination(limit,
-                                       new SourcePaginationBuilder<PaymentModelDao, PaymentApiException>() {
-                                           @Override
-                                           public Pagination<PaymentModelDao> build() {
-                                               // Find all payments for all accounts
-                                               return paymentDao.get(offset, limit, internalTenantContext);
-                                           }
-                                       },
-                                       new Function<PaymentModelDao, Payment>() {
-                                           @Override
-                                           public Payment apply(final PaymentModelDao paymentModelDao) {
-                                               final PaymentPluginApi pluginApi;
-                                               if (!withPluginInfo) {
-                                                   pluginApi = null;
-                                               } else {
-                                                   if (paymentMethodIdToPaymentPluginApi.get(paymentModelDao.getPaymentMethodId()) == null) {
-                                                       try {
-                                                           final PaymentPluginApi paymentProviderPlugin = getPaymentProviderPlugin(paymentModelDao.getPaymentMethodId(), true, internalTenantContext);
-                                                           paymentMethodIdToPaymentPluginApi.put(paymentModelDao.getPaymentMethodId(), Optional.<PaymentPluginApi>of(paymentProviderPlugin));
-                                                       } catch (final PaymentApiException e) {
-                                                           log.warn("Unable to retrieve PaymentPluginApi for paymentMethodId='{}'", paymentModelDao.getPaymentMethodId(), e);
-                                                           // We use Optional to avoid printing the log line for each result
-                                                           paymentMethodIdToPaymentPluginApi.put(paymentModelDao.getPaymentMethodId(), Optional.<PaymentPluginApi>absent());
-                                                       }
-                                                   }
-                                                   pluginApi = paymentMethodIdToPaymentPluginApi.get(paymentModelDao.getPaymentMethodId()).orNull();
-                                               }
-                                               final List<PaymentTransactionInfoPlugin> pluginInfo = getPaymentTransactionInfoPluginsIfNeeded(pluginApi, paymentModelDao, tenantContext);
-                                               return toPayment(paymentModelDao.getId(), pluginInfo, withAttempts, internalTenantContext);
-                                           }
-                                       }
-                                      );
+            return getEntityPaginationByPage(limit,
+                                             new SourcePaginationBuilder<PaymentModelDao, PaymentApiException>() {
+                                                 @Override
+                                                 public Pagination<PaymentModelDao> build() {
+                                                     // Find all payments for all accounts
+                                                     return paymentDao.get(offset, limit, internalTenantContext);
+                                                 }
+                                             },
+                                             new Function<List<PaymentModelDao>, List<Payment>>() {
+                                                 @Override
+                                                 public List<Payment> apply(final List<PaymentModelDao> paymentModelDaos) {
+                                                     final Map<UUID, List<PaymentTransactionInfoPlugin>> pluginInfo;
+                                                     if (!withPluginInfo) {
+                                                         pluginInfo = null;
+                                                     } else {
+                                                         pluginInfo = getPaymentTransactionInfoPluginsIfNeeded(paymentModelDaos,
+                                                                                                               new Function<PaymentModelDao, PaymentPluginApi>() {
+                                                                                                                   @Override
+                                                                                                                   public PaymentPluginApi apply(final PaymentModelDao paymentModelDao) {
+                                                                                                                       if (paymentMethodIdToPaymentPluginApi.get(paymentModelDao.getPaymentMethodId()) == null) {
+                                                                                                                           try {
+                                                                                                                               final PaymentPluginApi paymentProviderPlugin = getPaymentProviderPlugin(paymentModelDao.getPaymentMethodId(), true, internalTenantContext);
+                                                                                                                               paymentMethodIdToPaymentPluginApi.put(paymentModelDao.getPaymentMethodId(), Optional.<PaymentPluginApi>of(paymentProviderPlugin));
+                                                                                                                           } catch (final PaymentApiException e) {
+                                                                                                                               log.warn("Unable to retrieve PaymentPluginApi for paymentMethodId='{}'", paymentModelDao.getPaymentMethodId(), e);
+                                                                                                                               // We use Optional to avoid printing the log line for each result
+                                                                                                                               paymentMethodIdToPaymentPluginApi.put(paymentModelDao.getPaymentMethodId(), Optional.<PaymentPluginApi>absent());
+                                                                                                                           }
+                                                                                                                       }
+                                                                                                                       return paymentMethodIdToPaymentPluginApi.get(paymentModelDao.getPaymentMethodId()).orNull();
+                                                                                                                   }
+                                                                                                               },
+                                                                                                               tenantContext);
+                                                     }
+                                                     return toPayments(paymentModelDaos, pluginInfo, withAttempts, internalTenantContext);
+                                                 }
+                                             }
+                                            );
         } catch (final PaymentApiException e) {
             log.warn("Unable to get payments", e);
             return new DefaultPagination<Payment>(offset, limit, null, null, ImmutableSet.<Payment>of().iterator());
@@ -281,22 +307,34 @@ public class PaymentRefresher extends ProcessorBase {
     public Pagination<Payment> getPayments(final Long offset, final Long limit, final String pluginName, final boolean withPluginInfo, final boolean withAttempts, final Iterable<PluginProperty> properties, final TenantContext tenantContext, final InternalTenantContext internalTenantContext) throws PaymentApiException {
         final PaymentPluginApi pluginApi = withPluginInfo ? getPaymentPluginApi(pluginName) : null;
 
-        return getEntityPagination(limit,
-                                   new SourcePaginationBuilder<PaymentModelDao, PaymentApiException>() {
-                                       @Override
-                                       public Pagination<PaymentModelDao> build() {
-                                           // Find all payments for all accounts
-                                           return paymentDao.getPayments(pluginName, offset, limit, internalTenantContext);
-                                       }
-                                   },
-                                   new Function<PaymentModelDao, Payment>() {
-                                       @Override
-                                       public Payment apply(final PaymentModelDao paymentModelDao) {
-                                           final List<PaymentTransactionInfoPlugin> pluginInfo = getPaymentTransactionInfoPluginsIfNeeded(pluginApi, paymentModelDao, tenantContext);
-                                           return toPayment(paymentModelDao.getId(), pluginInfo, withAttempts, internalTenantContext);
-                                       }
-                                   }
-                                  );
+        return getEntityPaginationByPage(limit,
+                                         new SourcePaginationBuilder<PaymentModelDao, PaymentApiException>() {
+                                             @Override
+                                             public Pagination<PaymentModelDao> build() {
+                                                 // Find all payments for all accounts
+                                                 return paymentDao.getPayments(pluginName, offset, limit, internalTenantContext);
+                                             }
+                                         },
+                                         new Function<List<PaymentModelDao>, List<Payment>>() {
+                                             @Override
+                                             public List<Payment> apply(final List<PaymentModelDao> paymentModelDaos) {
+                                                 final Map<UUID, List<PaymentTransactionInfoPlugin>> pluginInfo;
+                                                 if (pluginApi == null) {
+                                                     pluginInfo = null;
+                                                 } else {
+                                                     pluginInfo = getPaymentTransactionInfoPluginsIfNeeded(paymentModelDaos,
+                                                                                                           new Function<PaymentModelDao, PaymentPluginApi>() {
+                                                                                                               @Override
+                                                                                                               public PaymentPluginApi apply(final PaymentModelDao paymentModelDao) {
+                                                                                                                   return pluginApi;
+                                                                                                               }
+                                                                                                           },
+                                                                                                           tenantContext);
+                                                 }
+                                                 return toPayments(paymentModelDaos, pluginInfo, withAttempts, internalTenantContext);
+                                             }
+                                         }
+                                        );
     }
 
     public Pagination<Payment> searchPayments(final String searchKey, final Long offset, final Long limit, final boolean withPluginInfo, final boolean withAttempts, final Iterable<PluginProperty> properties, final TenantContext tenantContext, final InternalTenantContext internalTenantContext) {
@@ -314,20 +352,20 @@ public class PaymentRefresher extends ProcessorBase {
                                                  );
         } else {
             try {
-                return getEntityPagination(limit,
-                                           new SourcePaginationBuilder<PaymentModelDao, PaymentApiException>() {
-                                               @Override
-                                               public Pagination<PaymentModelDao> build() {
-                                                   return paymentDao.searchPayments(searchKey, offset, limit, internalTenantContext);
-                                               }
-                                           },
-                                           new Function<PaymentModelDao, Payment>() {
-                                               @Override
-                                               public Payment apply(final PaymentModelDao paymentModelDao) {
-                                                   return toPayment(paymentModelDao.getId(), null, withAttempts, internalTenantContext);
-                                               }
-                                           }
-                                          );
+                return getEntityPaginationByPage(limit,
+                                                 new SourcePaginationBuilder<PaymentModelDao, PaymentApiException>() {
+                                                     @Override
+                                                     public Pagination<PaymentModelDao> build() {
+                                                         return paymentDao.searchPayments(searchKey, offset, limit, internalTenantContext);
+                                                     }
+                                                 },
+                                                 new Function<List<PaymentModelDao>, List<Payment>>() {
+                                                     @Override
+                                                     public List<Payment> apply(final List<PaymentModelDao> paymentModelDaos) {
+                                                         return toPayments(paymentModelDaos, null, withAttempts, internalTenantContext);
+                                                     }
+                                                 }
+                                                );
             } catch (final PaymentApiException e) {
                 log.warn("Unable to search through payments", e);
                 return new DefaultPagination<Payment>(offset, limit, null, null, ImmutableSet.<Payment>of().iterator());
@@ -357,10 +395,22 @@ public class PaymentRefresher extends ProcessorBase {
             }
         }
 
+        final Map<UUID, Iterable<PaymentTransactionInfoPlugin>> pluginInfo = new HashMap<UUID, Iterable<PaymentTransactionInfoPlugin>>();
+        for (final UUID paymentId : payments.keySet()) {
+            pluginInfo.put(paymentId, withPluginInfo ? payments.get(paymentId) : ImmutableList.<PaymentTransactionInfoPlugin>of());
+        }
+
+        final Map<UUID, Payment> paymentsById = new HashMap<UUID, Payment>();
+        for (final Payment payment : toPayments(paymentDao.getPaymentsByIds(payments.keySet(), internalTenantContext), pluginInfo, withAttempts, internalTenantContext)) {
+            paymentsById.put(payment.getId(), payment);
+        }
+
         final Collection<Payment> results = new LinkedList<Payment>();
         for (final UUID paymentId : payments.keys()) {
-            final Payment result = toPayment(paymentId, withPluginInfo ? payments.get(paymentId) : ImmutableList.<PaymentTransactionInfoPlugin>of(), withAttempts, internalTenantContext);
-            if (result != null) {
+            final Payment result = paymentsById.get(paymentId);
+            if (result == null) {
+                log.warn("Unable to find payment id " + paymentId);
+            } else {
                 results.add(result);
             }
         }
@@ -370,18 +420,70 @@ public class PaymentRefresher extends ProcessorBase {
                                               results.iterator());
     }
 
-    // Used in bulk get APIs (getPayments / searchPayments)
-    private Payment toPayment(final UUID paymentId,
-                              @Nullable final Iterable<PaymentTransactionInfoPlugin> pluginTransactions,
-                              final boolean withAttempts,
-                              final InternalTenantContext tenantContext) {
-        final PaymentModelDao paymentModelDao = paymentDao.getPayment(paymentId, tenantContext);
-        if (paymentModelDao == null) {
-            log.warn("Unable to find payment id " + paymentId);
-            return null;
+    // Used in bulk get APIs (getPayments / searchPayments): the whole page is hydrated using a fixed number of queries
+    private List<Payment> toPayments(final List<PaymentModelDao> paymentModelDaos,
+                                     @Nullable final Map<UUID, ? extends Iterable<PaymentTransactionInfoPlugin>> pluginTransactionsByPaymentId,
+                                     final boolean withAttempts,
+                                     final InternalTenantContext tenantContext) {
+        if (paymentModelDaos.isEmpty()) {
+            return ImmutableList.<Payment>of();
         }
 
-        return toPayment(paymentModelDao, pluginTransactions, withAttempts, tenantContext);
+        final Collection<UUID> paymentIds = new HashSet<UUID>();
+        for (final PaymentModelDao paymentModelDao : paymentModelDaos) {
+            paymentIds.add(paymentModelDao.getId());
+        }
+
+        final Multimap<UUID, PaymentTransactionModelDao> transactionsByPaymentId = ArrayListMultimap.<UUID, PaymentTransactionModelDao>create();
+        for (final PaymentTransactionModelDao paymentTransactionModelDao : paymentDao.getTransactionsForPayments(paymentIds, tenantContext)) {
+            transactionsByPaymentId.put(paymentTransactionModelDao.getPaymentId(), paymentTransactionModelDao);
+        }
+
+        final Multimap<String, PaymentAttemptModelDao> attemptsByPaymentExternalKey = ArrayListMultimap.<String, PaymentAttemptModelDao>create();
+        if (withAttempts) {
+            final Collection<String> paymentExternalKeys = new HashSet<String>();
+            for (final PaymentModelDao paymentModelDao : paymentModelDaos) {
+                if (transactionsByPaymentId.containsKey(paymentModelDao.getId())) {
+                    paymentExternalKeys.add(paymentModelDao.getExternalKey());
+                }
+            }
+            for (final PaymentAttemptModelDao paymentAttemptModelDao : paymentDao.getPaymentAttemptsByPaymentExternalKeys(paymentExternalKeys, tenantContext)) {
+                attemptsByPaymentExternalKey.put(paymentAttemptModelDao.getPaymentExternalKey(), paymentAttemptModelDao);
+            }
+        }
+
+        // Pages typically contain several payments per account: resolve the account context and the scheduled retries only once per account
+        final Map<UUID, InternalTenantContext> tenantContextByAccountId = new HashMap<UUID, InternalTenantContext>();
+        final Map<UUID, List<NotificationEventWithMetadata<NotificationEvent>>> futureRetriesByAccountId = new HashMap<UUID, List<NotificationEventWithMetadata<NotificationEvent>>>();
+
+        final List<Payment> payments = new ArrayList<Payment>(paymentModelDaos.size());
+        for (final PaymentModelDao paymentModelDao : paymentModelDaos) {
+            InternalTenantContext tenantContextWithAccountRecordId = tenantContextByAccountId.get(paymentModelDao.getAccountId());
+            if (tenantContextWithAccountRecordId == null) {
+                tenantContextWithAccountRecordId = getInternalTenantContextWithAccountRecordId(paymentModelDao.getAccountId(), tenantContext);
+                tenantContextByAccountId.put(paymentModelDao.getAccountId(), tenantContextWithAccountRecordId);
+            }
+
+            final Collection<PaymentTransactionModelDao> transactionsForPayment = transactionsByPaymentId.get(paymentModelDao.getId());
+            List<NotificationEventWithMetadata<NotificationEvent>> futureRetries = null;
+            if (withAttempts && !transactionsForPayment.isEmpty()) {
+                futureRetries = futureRetriesByAccountId.get(paymentModelDao.getAccountId());
+                if (futureRetries == null) {
+                    futureRetries = getFutureRetryNotifications(tenantContextWithAccountRecordId);
+                    futureRetriesByAccountId.put(paymentModelDao.getAccountId(), futureRetries);
+                }
+            }
+
+            payments.add(toPayment(paymentModelDao,
+                                   transactionsForPayment,
+                                   pluginTransactionsByPaymentId == null ? null : pluginTransactionsByPaymentId.get(paymentModelDao.getId()),
+                                   withAttempts,
+                                   ImmutableList.<PaymentAttemptModelDao>copyOf(attemptsByPaymentExternalKey.get(paymentModelDao.getExternalKey())),
+                                   futureRetries,
+                                   tenantContextWithAccountRecordId));
+        }
+
+        return payments;
     }
 
     // Used in single get APIs (getPayment / getPaymentByExternalKey)
@@ -402,6 +504,17 @@ public class PaymentRefresher extends ProcessorBase {
 
     // Used in bulk get API (getAccountPayments)
     private Payment toPayment(final PaymentModelDao curPaymentModelDao, final Collection<PaymentTransactionModelDao> allTransactionsModelDao, @Nullable final Iterable<PaymentTransactionInfoPlugin> pluginTransactions, final boolean withAttempts, final InternalTenantContext internalTenantContext) {
+        return toPayment(curPaymentModelDao, allTransactionsModelDao, pluginTransactions, withAttempts, null, null, internalTenantContext);
+    }
+
+    // Past attempts and scheduled retries are looked-up if not specified
+    private Payment toPayment(final PaymentModelDao curPaymentModelDao,
+                              final Collection<PaymentTransactionModelDao> allTransactionsModelDao,
+                              @Nullable final Iterable<PaymentTransactionInfoPlugin> pluginTransactions,
+                              final boolean withAttempts,
+                              @Nullable final List<PaymentAttemptModelDao> pastPaymentAttempts,
+                              @Nullable final Iterable<NotificationEventWithMetadata<NotificationEvent>> futureRetries,
+                              final InternalTenantContext internalTenantContext) {
         // Need to filter for optimized codepaths looking up by account_record_id
         final Collection<PaymentTransactionModelDao> transactionsModelDao = new LinkedList<PaymentTransactionModelDao>(Collections2.filter(allTransactionsModelDao, new Predicate<PaymentTransactionModelDao>() {
             @Override
@@ -452,13 +565,13 @@ public class PaymentRefresher extends ProcessorBase {
                                   curPaymentModelDao.getExternalKey(),
                                   sortedTransactions,
                                   (withAttempts && !sortedTransactions.isEmpty()) ?
-                                  getPaymentAttempts(paymentDao.getPaymentAttempts(curPaymentModelDao.getExternalKey(), internalTenantContext),
-                                                     internalTenantContext) : null
+                                  getPaymentAttempts(pastPaymentAttempts != null ? pastPaymentAttempts : paymentDao.getPaymentAttempts(curPaymentModelDao.getExternalKey(), internalTenantContext),
+                                                     futureRetries != null ? futureRetries : getFutureRetryNotifications(internalTenantContext)) : null
         );
     }
 
     private List<PaymentAttempt> getPaymentAttempts(final List<PaymentAttemptModelDao> pastPaymentAttempts,
-                                                    final InternalTenantContext internalTenantContext) {
+                                                    final Iterable<NotificationEventWithMetadata<NotificationEvent>> futureRetries) {
 
         final List<PaymentAttempt> paymentAttempts = new ArrayList<PaymentAttempt>();
 
@@ -482,40 +595,42 @@ public class PaymentRefresher extends ProcessorBase {
             paymentAttempts.add(paymentAttempt);
         }
 
-        // Get Future Payment Attempts from Notification Queue and add them to the list
+        // Add Future Payment Attempts (from the Notification Queue) to the list
+        for (final NotificationEventWithMetadata<NotificationEvent> notificationEvent : futureRetries) {
+            // Last Attempt
+            final PaymentAttemptModelDao lastPaymentAttempt = getLastPaymentAttempt(pastPaymentAttempts,
+                                                                                    ((PaymentRetryNotificationKey) notificationEvent.getEvent()).getAttemptId());
+
+            if (lastPaymentAttempt != null) {
+                final PaymentAttempt futurePaymentAttempt = new DefaultPaymentAttempt(lastPaymentAttempt.getAccountId(), // accountId
+                                                                                      lastPaymentAttempt.getPaymentMethodId(), // paymentMethodId
+                                                                                      ((PaymentRetryNotificationKey) notificationEvent.getEvent()).getAttemptId(), // id
+                                                                                      null, // createdDate
+                                                                                      null, // updatedDate
+                                                                                      notificationEvent.getEffectiveDate(), // effectiveDate
+                                                                                      lastPaymentAttempt.getPaymentExternalKey(), // paymentExternalKey
+                                                                                      null, // transactionId
+                                                                                      lastPaymentAttempt.getTransactionExternalKey(), // transactionExternalKey
+                                                                                      lastPaymentAttempt.getTransactionType(), // transactionType
+                                                                                      SCHEDULED, // stateName
+                                                                                      lastPaymentAttempt.getAmount(), // amount
+                                                                                      lastPaymentAttempt.getCurrency(), // currency
+                                                                                      ((PaymentRetryNotificationKey) notificationEvent.getEvent()).getPaymentControlPluginNames().get(0), // pluginName,
+                                                                                      buildPluginProperties(lastPaymentAttempt)); // pluginProperties
+                paymentAttempts.add(futurePaymentAttempt);
+            }
+        }
+        return paymentAttempts;
+    }
+
+    private List<NotificationEventWithMetadata<NotificationEvent>> getFutureRetryNotifications(final InternalTenantContext internalTenantContext) {
         try {
             final NotificationQueue retryQueue = notificationQueueService.getNotificationQueue(KILLBILL_SERVICES.PAYMENT_SERVICE.getServiceName(), DefaultRetryService.QUEUE_NAME);
-            final Iterable<NotificationEventWithMetadata<NotificationEvent>> notificationEventWithMetadatas =
-                    retryQueue.getFutureNotificationForSearchKeys(internalTenantContext.getAccountRecordId(), internalTenantContext.getTenantRecordId());
-
-            for (final NotificationEventWithMetadata<NotificationEvent> notificationEvent : notificationEventWithMetadatas) {
-                // Last Attempt
-                final PaymentAttemptModelDao lastPaymentAttempt = getLastPaymentAttempt(pastPaymentAttempts,
-                                                                                        ((PaymentRetryNotificationKey) notificationEvent.getEvent()).getAttemptId());
-
-                if (lastPaymentAttempt != null) {
-                    final PaymentAttempt futurePaymentAttempt = new DefaultPaymentAttempt(lastPaymentAttempt.getAccountId(), // accountId
-                                                                                          lastPaymentAttempt.getPaymentMethodId(), // paymentMethodId
-                                                                                          ((PaymentRetryNotificationKey) notificationEvent.getEvent()).getAttemptId(), // id
-                                                                                          null, // createdDate
-                                                                                          null, // updatedDate
-                                                                                          notificationEvent.getEffectiveDate(), // effectiveDate
-                                                                                          lastPaymentAttempt.getPaymentExternalKey(), // paymentExternalKey
-                                                                                          null, // transactionId
-                                                                                          lastPaymentAttempt.getTransactionExternalKey(), // transactionExternalKey
-                                                                                          lastPaymentAttempt.getTransactionType(), // transactionType
-                                                                                          SCHEDULED, // stateName
-                                                                                          lastPaymentAttempt.getAmount(), // amount
-                                                                                          lastPaymentAttempt.getCurrency(), // currency
-                                                                                          ((PaymentRetryNotificationKey) notificationEvent.getEvent()).getPaymentControlPluginNames().get(0), // pluginName,
-                                                                                          buildPluginProperties(lastPaymentAttempt)); // pluginProperties
-                    paymentAttempts.add(futurePaymentAttempt);
-                }
-            }
+            return ImmutableList.<NotificationEventWithMetadata<NotificationEvent>>copyOf(retryQueue.getFutureNotificationForSearchKeys(internalTenantContext.getAccountRecordId(), internalTenantContext.getTenantRecordId()));
         } catch (final NoSuchNotificationQueue noSuchNotificationQueue) {
             log.error("ERROR Loading Notification Queue - " + noSuchNotificationQueue.getMessage());
+            return ImmutableList.<NotificationEventWithMetadata<NotificationEvent>>of();
         }
-        return paymentAttempts;
     }
 
     private PaymentAttemptModelDao getLastPaymentAttempt(final List<PaymentAttemptModelDao> pastPaymentAttempts, final UUID attemptId) {
@@ -550,7 +665,7 @@ public class PaymentRefresher extends ProcessorBase {
         return tenantContextWithAccountRecordId;
     }
 
-    // Used in bulk get API (getAccountPayments / getPayments)
+    // Used in bulk get APIs (getAccountPayments / getPayments)
     private List<PaymentTransactionInfoPlugin> getPaymentTransactionInfoPluginsIfNeeded(@Nullable final PaymentPluginApi pluginApi, final PaymentModelDao paymentModelDao, final TenantContext context) {
         if (pluginApi == null) {
             return null;
@@ -564,6 +679,57 @@ public class PaymentRefresher extends ProcessorBase {
         }
     }
 
+    // Used in bulk get APIs (getPayments): the plugins are invoked concurrently (on the pagination threads, not on the ones of the live payments),
+    // payments whose info isn't retrieved before the deadline are returned without plugin info
+    private Map<UUID, List<PaymentTransactionInfoPlugin>> getPaymentTransactionInfoPluginsIfNeeded(final List<PaymentModelDao> paymentModelDaos,
+                                                                                                   final Function<PaymentModelDao, PaymentPluginApi> pluginApiResolver,
+                                                                                                   final TenantContext context) {
+        final Map<UUID, Future<List<PaymentTransactionInfoPlugin>>> pluginInfoFutures = new LinkedHashMap<UUID, Future<List<PaymentTransactionInfoPlugin>>>();
+        for (final PaymentModelDao paymentModelDao : paymentModelDaos) {
+            final PaymentPluginApi pluginApi = pluginApiResolver.apply(paymentModelDao);
+            if (pluginApi == null || pluginInfoFutures.containsKey(paymentModelDao.getId())) {
+                continue;
+            }
+
+            final Callable<List<PaymentTransactionInfoPlugin>> task = new Callable<List<PaymentTransactionInfoPlugin>>() {
+                @Override
+                public List<PaymentTransactionInfoPlugin> call() throws Exception {
+                    return getPaymentTransactionInfoPluginsIfNeeded(pluginApi, paymentModelDao, context);
+                }
+            };
+            // Wrap the callable to keep the original requestId
+            final Callable<List<PaymentTransactionInfoPlugin>> callableWithRequestData = new CallableWithRequestData<List<PaymentTransactionInfoPlugin>>(Request.getPerThreadRequestData(),
+                                                                                                                                                        UUIDs.getRandom(),
+                                                                                                                                                        ThreadContext.getSecurityManager(),
+                                                                                                                                                        ThreadContext.getSubject(),
+                                                                                                                                                        MDC.getCopyOfContextMap(),
+                                                                                                                                                        task);
+            pluginInfoFutures.put(paymentModelDao.getId(), paymentExecutors.getPluginPaginationExecutorService().submit(callableWithRequestData));
+        }
+
+        final Map<UUID, List<PaymentTransactionInfoPlugin>> pluginInfo = new HashMap<UUID, List<PaymentTransactionInfoPlugin>>();
+        final long deadlineNanos = System.nanoTime() + paymentConfig.getPaymentPluginPaginationTimeout().getMillis() * 1000000L;
+        for (final Entry<UUID, Future<List<PaymentTransactionInfoPlugin>>> entry : pluginInfoFutures.entrySet()) {
+            try {
+                final List<PaymentTransactionInfoPlugin> paymentTransactionInfoPlugins = entry.getValue().get(Math.max(0L, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+                if (paymentTransactionInfoPlugins != null) {
+                    pluginInfo.put(entry.getKey(), paymentTransactionInfoPlugins);
+                }
+            } catch (final TimeoutException e) {
+                log.warn("Timeout retrieving plugin info for paymentId='{}', returning payment without plugin info", entry.getKey());
+                entry.getValue().cancel(true);
+            } catch (final ExecutionException e) {
+                log.warn("Unable to retrieve plugin info for paymentId='{}'", entry.getKey(), e.getCause());
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("Interrupted while retrieving plugin info for paymentId='{}', returning payment without plugin info", entry.getKey());
+                entry.getValue().cancel(true);
+            }
+        }
+
+        return pluginInfo;
+    }
+
     List<PaymentTransactionInfoPlugin> getPaymentTransactionInfoPlugins(final PaymentPluginApi plugin, final PaymentModelDao paymentModelDao, final Iterable<PluginProperty> properties, final TenantContext context) throws PaymentApiException {
         try {
             return plugin.getPaymentInfo(paymentModelDao.getAccountId(), paymentModelDao.getId(), properties, context);
@@ -280,6 +280,12 @@ public class PluginControlPaymentProcessor extends ProcessorBase {
 
     public void retryPaymentTransaction(final UUID attemptId, final List<String> paymentControlPluginNames, final InternalCallContext internalCallContext) {
         final PaymentAttemptModelDao attempt = paymentDao.getPaymentAttempt(attemptId, internalCallContext);
+        retryPaymentTransaction(attempt, paymentControlPluginNames, internalCallContext);
+    }
+
+    // Attempt already loaded by the caller (e.g. by the retry planner to resolve the payment plugin)
+    public void retryPaymentTransaction(final PaymentAttemptModelDao attempt, final List<String> paymentControlPluginNames, final InternalCallContext internalCallContext) {
+        final UUID attemptId = attempt.getId();
         log.info("Retrying attemptId='{}', paymentExternalKey='{}', transactionExternalKey='{}'. paymentControlPluginNames='{}'",
                  attemptId, attempt.getPaymentExternalKey(), attempt.getTransactionExternalKey(), paymentControlPluginNames);
 
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2014-2019 Groupon, Inc
+ * Copyright 2014-2019 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.payment.core.batch;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.killbill.billing.payment.plugin.api.PaymentPluginApi;
+import org.killbill.billing.payment.plugin.api.PaymentPluginApiException;
+import org.killbill.billing.util.callcontext.CallContext;
+
+/**
+ * Optional extension for payment plugins which can take advantage of invoice payments being collected in batches.
+ * <p>
+ * When batching is enabled, the invoice payments of a batch targeting this plugin are bracketed by
+ * {@link #beginBatch} and {@link #endBatch}, e.g. to pipeline or pre-authorize the gateway requests. Each payment
+ * still goes through the regular purchase call (and payment state machine) in between. If {@link #beginBatch}
+ * fails, the payments are processed one at a time as for any other plugin.
+ * <p>
+ * The payments of a batch are made concurrently by the invoice batch worker threads: {@link #beginBatch} is called
+ * before the first one is submitted, and {@link #endBatch} by the worker completing the last one. Both calls should
+ * return quickly.
+ */
+public interface BatchPaymentPluginApi extends PaymentPluginApi {
+
+    /**
+     * @param batchId    unique id for this batch
+     * @param accountIds ids of the accounts about to be charged (in processing order, an account may appear more than once)
+     * @param context    call context for the tenant
+     */
+    void beginBatch(UUID batchId, List<UUID> accountIds, CallContext context) throws PaymentPluginApiException;
+
+    /**
+     * @param batchId id passed to {@link #beginBatch}
+     * @param context call context for the tenant
+     */
+    void endBatch(UUID batchId, CallContext context) throws PaymentPluginApiException;
+}
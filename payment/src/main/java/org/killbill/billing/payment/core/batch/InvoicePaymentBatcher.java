@@ -0,0 +1,373 @@
+/*
+ * Copyright 2014-2019 Groupon, Inc
+ * Copyright 2014-2019 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.payment.core.batch;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+
+import org.killbill.billing.ErrorCode;
+import org.killbill.billing.account.api.Account;
+import org.killbill.billing.callcontext.InternalCallContext;
+import org.killbill.billing.payment.api.InvoicePaymentInternalApi;
+import org.killbill.billing.payment.api.PaymentApiException;
+import org.killbill.billing.payment.api.PaymentOptions;
+import org.killbill.billing.payment.api.PluginProperty;
+import org.killbill.billing.payment.core.PaymentExecutors;
+import org.killbill.billing.payment.core.PaymentPluginServiceRegistration;
+import org.killbill.billing.payment.dao.PaymentDao;
+import org.killbill.billing.payment.dao.PaymentMethodModelDao;
+import org.killbill.billing.payment.plugin.api.PaymentPluginApi;
+import org.killbill.billing.payment.plugin.api.PaymentPluginApiException;
+import org.killbill.billing.util.UUIDs;
+import org.killbill.billing.util.batch.BatchCollector;
+import org.killbill.billing.util.batch.BatchCollector.BatchDispatcher;
+import org.killbill.billing.util.callcontext.CallContext;
+import org.killbill.billing.util.callcontext.InternalCallContextFactory;
+import org.killbill.billing.util.config.definition.PaymentConfig;
+import org.killbill.billing.util.metrics.BillingMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Triggers the payments for new invoices.
+ * <p>
+ * When batching is enabled, the bus dispatch threads hand their invoice payment over and wait until it has been
+ * processed: the bus event is only acknowledged once the payment has been attempted, and failures are still retried
+ * by the bus. As each waiting dispatch thread holds a single payment, a batch is never larger than the number of main
+ * bus threads (batching is disabled with a single thread), and it is dispatched once full or once the maximum delay
+ * has elapsed.
+ * <p>
+ * The thread dispatching a batch only groups its payments per tenant and payment plugin (payment methods being resolved
+ * in bulk): the payments of each group are then made concurrently by the invoice batch workers, plugins implementing
+ * {@link BatchPaymentPluginApi} being notified before the first and after the last payment of their group. Each payment
+ * goes through the regular invoice payment path, where the invoice payment control plugin aborts the ones which don't
+ * require any payment.
+ */
+public class InvoicePaymentBatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(InvoicePaymentBatcher.class);
+
+    private final PaymentConfig paymentConfig;
+    private final InvoicePaymentInternalApi invoicePaymentInternalApi;
+    private final PaymentPluginServiceRegistration paymentPluginServiceRegistration;
+    private final PaymentDao paymentDao;
+    private final PaymentExecutors paymentExecutors;
+    private final InternalCallContextFactory internalCallContextFactory;
+    private final BillingMetrics billingMetrics;
+
+    private final BatchCollector<InvoicePaymentRequest> batchCollector;
+
+    private volatile boolean isStarted = false;
+
+    @Inject
+    public InvoicePaymentBatcher(final PaymentConfig paymentConfig,
+                                 final InvoicePaymentInternalApi invoicePaymentInternalApi,
+                                 final PaymentPluginServiceRegistration paymentPluginServiceRegistration,
+                                 final PaymentDao paymentDao,
+                                 final PaymentExecutors paymentExecutors,
+                                 final InternalCallContextFactory internalCallContextFactory,
+                                 final BillingMetrics billingMetrics) {
+        this.paymentConfig = paymentConfig;
+        this.invoicePaymentInternalApi = invoicePaymentInternalApi;
+        this.paymentPluginServiceRegistration = paymentPluginServiceRegistration;
+        this.paymentDao = paymentDao;
+        this.paymentExecutors = paymentExecutors;
+        this.internalCallContextFactory = internalCallContextFactory;
+        this.billingMetrics = billingMetrics;
+        this.batchCollector = new BatchCollector<InvoicePaymentRequest>("invoice payment",
+                                                                        new BatchDispatcher<InvoicePaymentRequest>() {
+                                                                            @Override
+                                                                            public void dispatch(final List<InvoicePaymentRequest> batch) {
+                                                                                dispatchBatch(batch);
+                                                                            }
+                                                                        });
+    }
+
+    public void initialize() {
+        isStarted = true;
+    }
+
+    public void stop() {
+        isStarted = false;
+
+        // Don't leave the bus threads waiting (the workers may be stopping already: process the remaining payments inline)
+        for (final InvoicePaymentRequest request : batchCollector.drainPendingItems()) {
+            processPayment(request);
+        }
+    }
+
+    public void processInvoicePayment(final InvoicePaymentRequest request) {
+        final int batchSize = paymentConfig.isInvoicePaymentBatchEnabled() ? BatchCollector.getBatchSize(paymentConfig.getInvoicePaymentBatchSize(), paymentConfig.getMainBusThreadNb()) : 1;
+        if (!isStarted || batchSize <= 1) {
+            processPayment(request);
+        } else {
+            // The thread filling up the batch only dispatches it
+            batchCollector.add(request, batchSize, paymentConfig.getInvoicePaymentBatchMaxDelay().getMillis(), paymentExecutors.getInvoiceBatchExecutorService());
+        }
+
+        final Exception failure;
+        try {
+            failure = request.awaitCompletion();
+        } catch (final InterruptedException e) {
+            // The bus will retry the event
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the invoice payment batch, request=" + request, e);
+        }
+        if (failure != null) {
+            throw (RuntimeException) failure;
+        }
+    }
+
+    private void dispatchBatch(final List<InvoicePaymentRequest> batch) {
+        billingMetrics.recordValue("killbill.payment.invoice.batch.size", batch.size());
+        for (final Map<String, List<InvoicePaymentRequest>> requestsByPlugin : groupByTenantAndPlugin(batch).values()) {
+            for (final Map.Entry<String, List<InvoicePaymentRequest>> entry : requestsByPlugin.entrySet()) {
+                processGroup(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    // Requests without any (valid) default payment method are grouped under the null plugin name
+    private Map<Long, Map<String, List<InvoicePaymentRequest>>> groupByTenantAndPlugin(final List<InvoicePaymentRequest> requests) {
+        final Map<Long, List<InvoicePaymentRequest>> requestsByTenant = new LinkedHashMap<Long, List<InvoicePaymentRequest>>();
+        for (final InvoicePaymentRequest request : requests) {
+            final Long tenantRecordId = request.getInternalCallContext().getTenantRecordId();
+            if (requestsByTenant.get(tenantRecordId) == null) {
+                requestsByTenant.put(tenantRecordId, new LinkedList<InvoicePaymentRequest>());
+            }
+            requestsByTenant.get(tenantRecordId).add(request);
+        }
+
+        final Map<Long, Map<String, List<InvoicePaymentRequest>>> requestsByTenantAndPlugin = new LinkedHashMap<Long, Map<String, List<InvoicePaymentRequest>>>();
+        for (final Map.Entry<Long, List<InvoicePaymentRequest>> entry : requestsByTenant.entrySet()) {
+            final Map<UUID, String> pluginNameByPaymentMethodId = getPluginNames(entry.getValue());
+
+            final Map<String, List<InvoicePaymentRequest>> requestsByPlugin = new LinkedHashMap<String, List<InvoicePaymentRequest>>();
+            for (final InvoicePaymentRequest request : entry.getValue()) {
+                final UUID paymentMethodId = request.getAccount().getPaymentMethodId();
+                final String pluginName = paymentMethodId == null ? null : pluginNameByPaymentMethodId.get(paymentMethodId);
+                if (requestsByPlugin.get(pluginName) == null) {
+                    requestsByPlugin.put(pluginName, new LinkedList<InvoicePaymentRequest>());
+                }
+                requestsByPlugin.get(pluginName).add(request);
+            }
+            requestsByTenantAndPlugin.put(entry.getKey(), requestsByPlugin);
+        }
+        return requestsByTenantAndPlugin;
+    }
+
+    // All requests belong to the same tenant: their default payment methods are retrieved in a single query
+    private Map<UUID, String> getPluginNames(final List<InvoicePaymentRequest> requests) {
+        final Set<UUID> paymentMethodIds = new HashSet<UUID>();
+        for (final InvoicePaymentRequest request : requests) {
+            if (request.getAccount().getPaymentMethodId() != null) {
+                paymentMethodIds.add(request.getAccount().getPaymentMethodId());
+            }
+        }
+
+        final Map<UUID, String> pluginNameByPaymentMethodId = new HashMap<UUID, String>();
+        if (paymentMethodIds.isEmpty()) {
+            return pluginNameByPaymentMethodId;
+        }
+        for (final PaymentMethodModelDao paymentMethodModelDao : paymentDao.getPaymentMethodsByIds(paymentMethodIds, requests.get(0).getInternalCallContext())) {
+            pluginNameByPaymentMethodId.put(paymentMethodModelDao.getId(), paymentMethodModelDao.getPluginName());
+        }
+        return pluginNameByPaymentMethodId;
+    }
+
+    // All requests belong to the same tenant and target the same plugin: the payments are made concurrently by the workers,
+    // and the plugin batch (if any) is ended by the worker processing the last one
+    private void processGroup(@Nullable final String pluginName, final List<InvoicePaymentRequest> requests) {
+        final PaymentGroup group;
+        try {
+            group = new PaymentGroup(pluginName, requests);
+            group.begin();
+        } catch (final RuntimeException e) {
+            // Make sure nobody is left waiting
+            for (final InvoicePaymentRequest request : requests) {
+                request.fail(e);
+            }
+            return;
+        }
+
+        for (final InvoicePaymentRequest request : requests) {
+            submitPayment(group, request);
+        }
+    }
+
+    private void submitPayment(final PaymentGroup group, final InvoicePaymentRequest request) {
+        final Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    processPayment(request);
+                } finally {
+                    // Make sure nobody is left waiting, whatever happened
+                    if (!request.isCompleted()) {
+                        request.fail(new IllegalStateException("Invoice payment batch aborted for " + request));
+                    }
+                    group.onPaymentProcessed();
+                }
+            }
+        };
+
+        final ExecutorService executor = paymentExecutors.getInvoiceBatchWorkersExecutorService();
+        if (executor != null) {
+            try {
+                executor.submit(task);
+                return;
+            } catch (final RejectedExecutionException e) {
+                log.warn("Unable to submit invoice payment {} for plugin {}, processing it right away", request, group.pluginName, e);
+            }
+        }
+        task.run();
+    }
+
+    @Nullable
+    private BatchPaymentPluginApi getBatchPaymentPluginApi(@Nullable final String pluginName) {
+        if (pluginName == null) {
+            return null;
+        }
+
+        try {
+            final PaymentPluginApi pluginApi = paymentPluginServiceRegistration.getPaymentPluginApi(pluginName);
+            return pluginApi instanceof BatchPaymentPluginApi ? (BatchPaymentPluginApi) pluginApi : null;
+        } catch (final PaymentApiException e) {
+            // The error will be reported by the regular payment path
+            return null;
+        }
+    }
+
+    // The invoice payment control plugin (priorCall) aborts the payments of invoices with nothing owed, or delegated to the parent account
+    private void processPayment(final InvoicePaymentRequest request) {
+        final InternalCallContext internalContext = request.getInternalCallContext();
+        final Account account = request.getAccount();
+
+        final BigDecimal amountToBePaid = null; // We let the plugin compute how much should be paid
+        final List<String> paymentControlPluginNames = paymentConfig.getPaymentControlPluginNames(internalContext) != null ? new LinkedList<String>(paymentConfig.getPaymentControlPluginNames(internalContext)) : new LinkedList<String>();
+
+        try {
+            invoicePaymentInternalApi.createPurchaseForInvoicePayment(false,
+                                                                      account,
+                                                                      request.getInvoiceId(),
+                                                                      account.getPaymentMethodId(),
+                                                                      null,
+                                                                      amountToBePaid,
+                                                                      account.getCurrency(),
+                                                                      null,
+                                                                      null,
+                                                                      null,
+                                                                      ImmutableList.<PluginProperty>of(),
+                                                                      new PaymentOptions() {
+                                                                   @Override
+                                                                   public boolean isExternalPayment() {
+                                                                       return false;
+                                                                   }
+
+                                                                   @Override
+                                                                   public List<String> getPaymentControlPluginNames() {
+                                                                       return paymentControlPluginNames;
+                                                                   }
+                                                               },
+                                                                      internalContext);
+            request.complete();
+        } catch (final PaymentApiException e) {
+            // Log as warn unless nothing left to be paid
+            if (e.getCode() != ErrorCode.PAYMENT_PLUGIN_API_ABORTED.getCode()) {
+                log.warn("Failed to process invoice payment", e);
+            }
+            request.complete();
+        } catch (final RuntimeException e) {
+            request.fail(e);
+        }
+    }
+
+    private final class PaymentGroup {
+
+        private final String pluginName;
+        private final BatchPaymentPluginApi batchPluginApi;
+        private final UUID batchId;
+        private final List<UUID> accountIds;
+        private final CallContext callContext;
+        private final AtomicInteger remainingPayments;
+        private final long startNanos;
+
+        // Set before the payments are submitted to the workers
+        private boolean isBatchStarted;
+
+        private PaymentGroup(@Nullable final String pluginName, final List<InvoicePaymentRequest> requests) {
+            this.pluginName = pluginName;
+            this.batchPluginApi = getBatchPaymentPluginApi(pluginName);
+            this.batchId = UUIDs.randomUUID();
+            this.accountIds = new LinkedList<UUID>();
+            for (final InvoicePaymentRequest request : requests) {
+                accountIds.add(request.getAccount().getId());
+            }
+            this.callContext = batchPluginApi == null ? null : internalCallContextFactory.createCallContext(requests.get(0).getInternalCallContext());
+            this.remainingPayments = new AtomicInteger(requests.size());
+            this.startNanos = System.nanoTime();
+        }
+
+        private void begin() {
+            if (batchPluginApi == null) {
+                return;
+            }
+
+            try {
+                batchPluginApi.beginBatch(batchId, accountIds, callContext);
+                isBatchStarted = true;
+            } catch (final PaymentPluginApiException e) {
+                log.warn("Plugin {} failed to begin batchId='{}', processing payments one at a time", pluginName, batchId, e);
+            } catch (final RuntimeException e) {
+                log.warn("Plugin {} failed to begin batchId='{}', processing payments one at a time", pluginName, batchId, e);
+            }
+        }
+
+        private void onPaymentProcessed() {
+            if (remainingPayments.decrementAndGet() > 0) {
+                return;
+            }
+
+            if (isBatchStarted) {
+                try {
+                    batchPluginApi.endBatch(batchId, callContext);
+                } catch (final PaymentPluginApiException e) {
+                    log.warn("Plugin {} failed to end batchId='{}'", pluginName, batchId, e);
+                } catch (final RuntimeException e) {
+                    log.warn("Plugin {} failed to end batchId='{}'", pluginName, batchId, e);
+                }
+            }
+            billingMetrics.recordDuration("killbill.payment.invoice.batch.group", System.nanoTime() - startNanos);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2014-2019 Groupon, Inc
+ * Copyright 2014-2019 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.payment.core.batch;
+
+import java.util.UUID;
+
+import org.killbill.billing.account.api.Account;
+import org.killbill.billing.callcontext.InternalCallContext;
+import org.killbill.billing.util.batch.BatchItem;
+
+public class InvoicePaymentRequest extends BatchItem {
+
+    private final Account account;
+    private final UUID invoiceId;
+    private final InternalCallContext internalCallContext;
+
+    public InvoicePaymentRequest(final Account account, final UUID invoiceId, final InternalCallContext internalCallContext) {
+        this.account = account;
+        this.invoiceId = invoiceId;
+        this.internalCallContext = internalCallContext;
+    }
+
+    public Account getAccount() {
+        return account;
+    }
+
+    public UUID getInvoiceId() {
+        return invoiceId;
+    }
+
+    public InternalCallContext getInternalCallContext() {
+        return internalCallContext;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("InvoicePaymentRequest{");
+        sb.append("accountId=").append(account.getId());
+        sb.append(", invoiceId=").append(invoiceId);
+        sb.append('}');
+        return sb.toString();
+    }
+}
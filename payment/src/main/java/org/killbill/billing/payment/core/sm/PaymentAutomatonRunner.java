@@ -73,6 +73,7 @@ import org.killbill.billing.payment.dao.PaymentTransactionModelDao;
 import org.killbill.billing.payment.dispatcher.PluginDispatcher;
 import org.killbill.billing.util.callcontext.CallContext;
 import org.killbill.billing.util.config.definition.PaymentConfig;
+import org.killbill.billing.util.metrics.BillingMetrics;
 import org.killbill.bus.api.PersistentBus;
 import org.killbill.clock.Clock;
 import org.killbill.commons.locker.GlobalLocker;
@@ -99,7 +100,8 @@ public class PaymentAutomatonRunner {
                                   final Clock clock,
                                   final PaymentExecutors executors,
                                   final PersistentBus eventBus,
-                                  final PaymentStateMachineHelper paymentSMHelper) {
+                                  final PaymentStateMachineHelper paymentSMHelper,
+                                  final BillingMetrics billingMetrics) {
         this.paymentSMHelper = paymentSMHelper;
         this.paymentDao = paymentDao;
         this.locker = locker;
@@ -108,7 +110,7 @@ public class PaymentAutomatonRunner {
         this.eventBus = eventBus;
         this.paymentConfig = paymentConfig;
         final long paymentPluginTimeoutSec = TimeUnit.SECONDS.convert(paymentConfig.getPaymentPluginTimeout().getPeriod(), paymentConfig.getPaymentPluginTimeout().getUnit());
-        this.paymentPluginDispatcher = new PluginDispatcher<OperationResult>(paymentPluginTimeoutSec, executors);
+        this.paymentPluginDispatcher = new PluginDispatcher<OperationResult>(paymentPluginTimeoutSec, executors, billingMetrics);
     }
 
     public PaymentStateContext buildPaymentStateContext(final boolean isApiPayment,
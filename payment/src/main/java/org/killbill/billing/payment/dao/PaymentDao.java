@@ -19,6 +19,7 @@
 package org.killbill.billing.payment.dao;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -53,6 +54,8 @@ public interface PaymentDao extends EntityDao<PaymentModelDao, Payment, PaymentA
 
     public List<PaymentAttemptModelDao> getPaymentAttempts(String paymentExternalKey, InternalTenantContext context);
 
+    public List<PaymentAttemptModelDao> getPaymentAttemptsByPaymentExternalKeys(Collection<String> paymentExternalKeys, InternalTenantContext context);
+
     public List<PaymentAttemptModelDao> getPaymentAttemptByTransactionExternalKey(String externalKey, InternalTenantContext context);
 
     public List<PaymentTransactionModelDao> getPaymentTransactionsByExternalKey(String transactionExternalKey, InternalTenantContext context);
@@ -87,12 +90,18 @@ public interface PaymentDao extends EntityDao<PaymentModelDao, Payment, PaymentA
 
     public List<PaymentTransactionModelDao> getTransactionsForPayment(UUID paymentId, InternalTenantContext context);
 
+    public List<PaymentTransactionModelDao> getTransactionsForPayments(Collection<UUID> paymentIds, InternalTenantContext context);
+
+    public List<PaymentModelDao> getPaymentsByIds(Collection<UUID> paymentIds, InternalTenantContext context);
+
     public PaymentAttemptModelDao getPaymentAttempt(UUID attemptId, InternalTenantContext context);
 
     public PaymentMethodModelDao insertPaymentMethod(PaymentMethodModelDao paymentMethod, InternalCallContext context);
 
     public PaymentMethodModelDao getPaymentMethod(UUID paymentMethodId, InternalTenantContext context);
 
+    public List<PaymentMethodModelDao> getPaymentMethodsByIds(Collection<UUID> paymentMethodIds, InternalTenantContext context);
+
     public PaymentMethodModelDao getPaymentMethodByExternalKey(String paymentMethodExternalKey, InternalTenantContext context);
 
     public PaymentMethodModelDao getPaymentMethodIncludedDeleted(UUID paymentMethodId, InternalTenantContext context);
@@ -18,6 +18,7 @@
 
 package org.killbill.billing.payment.dao;
 
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 
@@ -35,6 +36,7 @@ import org.killbill.billing.util.entity.dao.Audited;
 import org.killbill.billing.util.entity.dao.EntitySqlDao;
 import org.killbill.commons.jdbi.template.KillBillSqlDaoStringTemplate;
 import org.skife.jdbi.v2.sqlobject.customizers.Define;
+import org.skife.jdbi.v2.unstable.BindIn;
 
 @KillBillSqlDaoStringTemplate
 public interface PaymentMethodSqlDao extends EntitySqlDao<PaymentMethodModelDao, PaymentMethod> {
@@ -59,6 +61,10 @@ public interface PaymentMethodSqlDao extends EntitySqlDao<PaymentMethodModelDao,
     PaymentMethodModelDao getPaymentMethodIncludedDelete(@Bind("id") final String paymentMethodId,
                                                          @SmartBindBean final InternalTenantContext context);
 
+    @SqlQuery
+    List<PaymentMethodModelDao> getByIds(@BindIn("ids") final Collection<String> ids,
+                                         @SmartBindBean final InternalTenantContext context);
+
     @SqlQuery
     List<PaymentMethodModelDao> getForAccount(@SmartBindBean final InternalTenantContext context);
 
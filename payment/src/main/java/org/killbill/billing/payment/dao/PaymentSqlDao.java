@@ -62,6 +62,10 @@ public interface PaymentSqlDao extends EntitySqlDao<PaymentModelDao, Payment> {
     public PaymentModelDao getPaymentByExternalKey(@Bind("externalKey") final String externalKey,
                                                    @SmartBindBean final InternalTenantContext context);
 
+    @SqlQuery
+    public List<PaymentModelDao> getByIds(@BindIn("ids") final Collection<String> ids,
+                                          @SmartBindBean final InternalTenantContext context);
+
     @SqlQuery
     public List<PaymentModelDao> getPaymentsByStatesAcrossTenants(@BindIn("states") final Collection<String> states,
                                                                   @Bind("createdBeforeDate") final Date createdBeforeDate,
@@ -72,6 +72,10 @@ public interface TransactionSqlDao extends EntitySqlDao<PaymentTransactionModelD
     @SqlQuery
     public List<PaymentTransactionModelDao> getByPaymentId(@Bind("paymentId") final UUID paymentId,
                                                            @SmartBindBean final InternalTenantContext context);
+
+    @SqlQuery
+    public List<PaymentTransactionModelDao> getByPaymentIds(@BindIn("paymentIds") final Collection<String> paymentIds,
+                                                            @SmartBindBean final InternalTenantContext context);
 }
 
 
@@ -42,6 +42,7 @@ public class PaymentPluginDispatcher {
         final UUID accountId = account != null ? account.getId() : null;
         final String accountExternalKey = account != null ? account.getExternalKey() : "";
 
+        final long startNanos = System.nanoTime();
         try {
             log.debug("Calling plugin(s) {}", pluginNames);
             final ReturnType result = pluginDispatcher.dispatchWithTimeout(callable);
@@ -50,6 +51,7 @@ public class PaymentPluginDispatcher {
         } catch (final TimeoutException e) {
             final String errorMessage = String.format("Call TIMEOUT for accountId='%s' accountExternalKey='%s' plugin='%s'", accountId, accountExternalKey, pluginNames);
             log.warn(errorMessage);
+            pluginDispatcher.recordPluginTimeout(pluginNames);
             throw new PaymentApiException(ErrorCode.PAYMENT_PLUGIN_TIMEOUT, accountId, errorMessage);
         } catch (final InterruptedException e) {
             Thread.currentThread().interrupt();
@@ -67,6 +69,8 @@ public class PaymentPluginDispatcher {
                 // Unwraps the ExecutionException (e.getCause()), since it's a dispatch implementation detail
                 throw new PaymentApiException(e.getCause(), ErrorCode.PAYMENT_INTERNAL_ERROR, MoreObjects.firstNonNull(e.getMessage(), ""));
             }
+        } finally {
+            pluginDispatcher.recordPluginCall(pluginNames, System.nanoTime() - startNanos);
         }
     }
 }
@@ -25,26 +25,36 @@ import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
+import javax.annotation.Nullable;
+
 import org.apache.shiro.util.ThreadContext;
 import org.killbill.billing.payment.core.PaymentExecutors;
 import org.killbill.billing.util.UUIDs;
+import org.killbill.billing.util.metrics.BillingMetrics;
 import org.killbill.commons.profiling.Profiling;
 import org.killbill.commons.profiling.ProfilingData;
 import org.killbill.commons.request.Request;
 import org.slf4j.MDC;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
 
 public class PluginDispatcher<ReturnType> {
 
     private final TimeUnit DEFAULT_PLUGIN_TIMEOUT_UNIT = TimeUnit.SECONDS;
 
+    private static final String PLUGIN_METRIC_PREFIX = "killbill.payment.plugin.";
+    private static final Splitter PLUGIN_NAMES_SPLITTER = Splitter.on(',').trimResults().omitEmptyStrings();
+
     private final long timeoutSeconds;
     private final PaymentExecutors paymentExecutors;
+    private final BillingMetrics billingMetrics;
 
-    public PluginDispatcher(final long timeoutSeconds, final PaymentExecutors paymentExecutors) {
+    public PluginDispatcher(final long timeoutSeconds, final PaymentExecutors paymentExecutors, final BillingMetrics billingMetrics) {
         this.timeoutSeconds = timeoutSeconds;
         this.paymentExecutors = paymentExecutors;
+        this.billingMetrics = billingMetrics;
     }
 
     // TODO Once we switch fully to automata, should this throw PaymentPluginApiException instead?
@@ -79,6 +89,23 @@ public class PluginDispatcher<ReturnType> {
         return pluginDispatcherResult.getReturnType();
     }
 
+    // A call can go through several (control) plugins, e.g. "plugin1, plugin2": it is recorded once per plugin, to keep one metric per plugin
+    public void recordPluginCall(@Nullable final String pluginNames, final long durationNanos) {
+        for (final String pluginName : splitPluginNames(pluginNames)) {
+            billingMetrics.recordDuration(PLUGIN_METRIC_PREFIX + pluginName, durationNanos);
+        }
+    }
+
+    public void recordPluginTimeout(@Nullable final String pluginNames) {
+        for (final String pluginName : splitPluginNames(pluginNames)) {
+            billingMetrics.incrementCounter(PLUGIN_METRIC_PREFIX + pluginName + ".timeouts");
+        }
+    }
+
+    private static Iterable<String> splitPluginNames(@Nullable final String pluginNames) {
+        return pluginNames == null ? ImmutableList.<String>of() : PLUGIN_NAMES_SPLITTER.split(pluginNames);
+    }
+
     public interface PluginDispatcherReturnType<ReturnType> {
         public ReturnType getReturnType();
     }
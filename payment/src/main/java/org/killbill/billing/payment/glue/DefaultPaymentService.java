@@ -24,6 +24,7 @@ import org.killbill.billing.payment.api.PaymentService;
 import org.killbill.billing.payment.bus.PaymentBusEventHandler;
 import org.killbill.billing.payment.caching.StateMachineConfigCache;
 import org.killbill.billing.payment.core.PaymentExecutors;
+import org.killbill.billing.payment.core.batch.InvoicePaymentBatcher;
 import org.killbill.billing.payment.core.janitor.Janitor;
 import org.killbill.billing.payment.invoice.PaymentTagHandler;
 import org.killbill.billing.payment.retry.DefaultRetryService;
@@ -48,6 +49,7 @@ public class DefaultPaymentService implements PaymentService {
     private final DefaultRetryService retryService;
     private final Janitor janitor;
     private final PaymentExecutors paymentExecutors;
+    private final InvoicePaymentBatcher invoicePaymentBatcher;
     private final StateMachineConfigCache stateMachineConfigCache;
 
     @Inject
@@ -58,6 +60,7 @@ public class DefaultPaymentService implements PaymentService {
                                  final PersistentBus eventBus,
                                  final Janitor janitor,
                                  final PaymentExecutors paymentExecutors,
+                                 final InvoicePaymentBatcher invoicePaymentBatcher,
                                  final StateMachineConfigCache stateMachineConfigCache) {
         this.paymentBusEventHandler = paymentBusEventHandler;
         this.tagHandler = tagHandler;
@@ -66,6 +69,7 @@ public class DefaultPaymentService implements PaymentService {
         this.retryService = retryService;
         this.janitor = janitor;
         this.paymentExecutors = paymentExecutors;
+        this.invoicePaymentBatcher = invoicePaymentBatcher;
         this.stateMachineConfigCache = stateMachineConfigCache;
     }
 
@@ -94,6 +98,7 @@ public class DefaultPaymentService implements PaymentService {
             log.error("Failed to register bus handlers", e);
         }
         paymentExecutors.initialize();
+        invoicePaymentBatcher.initialize();
         retryService.initialize();
         janitor.initialize();
     }
@@ -114,6 +119,7 @@ public class DefaultPaymentService implements PaymentService {
         }
         retryService.stop();
         janitor.stop();
+        invoicePaymentBatcher.stop();
         try {
             paymentExecutors.stop();
         } catch (InterruptedException e) {
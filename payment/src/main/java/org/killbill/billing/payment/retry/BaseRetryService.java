@@ -98,12 +98,15 @@ public abstract class BaseRetryService implements RetryService {
 
         private final NotificationQueueService notificationQueueService;
         private final InternalCallContextFactory internalCallContextFactory;
+        private final RetryPlanner retryPlanner;
 
         @Inject
         public RetryServiceScheduler(final NotificationQueueService notificationQueueService,
-                                     final InternalCallContextFactory internalCallContextFactory) {
+                                     final InternalCallContextFactory internalCallContextFactory,
+                                     final RetryPlanner retryPlanner) {
             this.notificationQueueService = notificationQueueService;
             this.internalCallContextFactory = internalCallContextFactory;
+            this.retryPlanner = retryPlanner;
         }
 
         public boolean scheduleRetry(final ObjectType objectType, final UUID objectId, final UUID attemptId, final Long tenantRecordId, final List<String> paymentControlPluginNames, final DateTime timeOfRetry) {
@@ -117,11 +120,12 @@ public abstract class BaseRetryService implements RetryService {
                 final NotificationQueue retryQueue = notificationQueueService.getNotificationQueue(KILLBILL_SERVICES.PAYMENT_SERVICE.getServiceName(), getQueueName());
                 final NotificationEvent key = new PaymentRetryNotificationKey(attemptId, paymentControlPluginNames);
                 if (retryQueue != null) {
-                    log.debug("Scheduling retry timeOfRetry={}, key={}", timeOfRetry, key);
+                    final DateTime plannedTimeOfRetry = retryPlanner.isEnabled() ? retryPlanner.planRetry(attemptId, timeOfRetry, context) : timeOfRetry;
+                    log.debug("Scheduling retry timeOfRetry={}, plannedTimeOfRetry={}, key={}", timeOfRetry, plannedTimeOfRetry, key);
                     if (transactionalDao == null) {
-                        retryQueue.recordFutureNotification(timeOfRetry, key, context.getUserToken(), context.getAccountRecordId(), context.getTenantRecordId());
+                        retryQueue.recordFutureNotification(plannedTimeOfRetry, key, context.getUserToken(), context.getAccountRecordId(), context.getTenantRecordId());
                     } else {
-                        retryQueue.recordFutureNotificationFromTransaction(transactionalDao.getHandle().getConnection(), timeOfRetry, key, context.getUserToken(), context.getAccountRecordId(), context.getTenantRecordId());
+                        retryQueue.recordFutureNotificationFromTransaction(transactionalDao.getHandle().getConnection(), plannedTimeOfRetry, key, context.getUserToken(), context.getAccountRecordId(), context.getTenantRecordId());
                     }
                 }
             } catch (final NoSuchNotificationQueue e) {
@@ -20,23 +20,45 @@ package org.killbill.billing.payment.retry;
 import java.util.List;
 import java.util.UUID;
 
+import javax.inject.Named;
+
+import org.killbill.billing.ObjectType;
 import org.killbill.billing.callcontext.InternalCallContext;
 import org.killbill.billing.payment.core.PluginControlPaymentProcessor;
+import org.killbill.billing.payment.dao.PaymentAttemptModelDao;
+import org.killbill.billing.payment.dao.PaymentDao;
 import org.killbill.billing.util.callcontext.InternalCallContextFactory;
 import org.killbill.notificationq.api.NotificationQueueService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.google.inject.Inject;
 
+import static org.killbill.billing.payment.glue.PaymentModule.RETRYABLE_NAMED;
+
 public class DefaultRetryService extends BaseRetryService implements RetryService {
 
+    private static final Logger log = LoggerFactory.getLogger(DefaultRetryService.class);
+
     public static final String QUEUE_NAME = "retry";
 
     private final PluginControlPaymentProcessor processor;
+    private final PaymentDao paymentDao;
+    private final RetryPlanner retryPlanner;
+    private final RetryServiceScheduler retryServiceScheduler;
 
     @Inject
-    public DefaultRetryService(final NotificationQueueService notificationQueueService, final InternalCallContextFactory internalCallContextFactory, final PluginControlPaymentProcessor processor) {
+    public DefaultRetryService(final NotificationQueueService notificationQueueService,
+                               final InternalCallContextFactory internalCallContextFactory,
+                               final PluginControlPaymentProcessor processor,
+                               final PaymentDao paymentDao,
+                               final RetryPlanner retryPlanner,
+                               @Named(RETRYABLE_NAMED) final RetryServiceScheduler retryServiceScheduler) {
         super(notificationQueueService, internalCallContextFactory);
         this.processor = processor;
+        this.paymentDao = paymentDao;
+        this.retryPlanner = retryPlanner;
+        this.retryServiceScheduler = retryServiceScheduler;
     }
 
     @Override
@@ -46,14 +68,36 @@ public class DefaultRetryService extends BaseRetryService implements RetryServic
 
     @Override
     public void retryPaymentTransaction(final UUID attemptId, final List<String> paymentControlPluginNames, final InternalCallContext context) {
-        processor.retryPaymentTransaction(attemptId, paymentControlPluginNames, context);
+        if (!retryPlanner.isEnabled()) {
+            processor.retryPaymentTransaction(attemptId, paymentControlPluginNames, context);
+            return;
+        }
+
+        // Load the attempt once, to find out the payment plugin and to run the retry
+        final PaymentAttemptModelDao attempt = paymentDao.getPaymentAttempt(attemptId, context);
+        if (attempt == null) {
+            log.warn("Unable to retry attemptId='{}': attempt not found", attemptId);
+            return;
+        }
+
+        final String pluginName = retryPlanner.getPluginName(attempt, context);
+        final boolean dispatched = retryPlanner.tryDispatch(pluginName, new Runnable() {
+            @Override
+            public void run() {
+                processor.retryPaymentTransaction(attempt, paymentControlPluginNames, context);
+            }
+        });
+        if (!dispatched) {
+            log.info("Too many concurrent retries for pluginName='{}', rescheduling attemptId='{}'", pluginName, attemptId);
+            retryServiceScheduler.scheduleRetry(ObjectType.PAYMENT_ATTEMPT, attemptId, attemptId, context.getTenantRecordId(), paymentControlPluginNames, retryPlanner.getNextBucketTime());
+        }
     }
 
     public static class DefaultRetryServiceScheduler extends RetryServiceScheduler {
 
         @Inject
-        public DefaultRetryServiceScheduler(final NotificationQueueService notificationQueueService, final InternalCallContextFactory internalCallContextFactory) {
-            super(notificationQueueService, internalCallContextFactory);
+        public DefaultRetryServiceScheduler(final NotificationQueueService notificationQueueService, final InternalCallContextFactory internalCallContextFactory, final RetryPlanner retryPlanner) {
+            super(notificationQueueService, internalCallContextFactory, retryPlanner);
         }
 
         @Override
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2014-2019 Groupon, Inc
+ * Copyright 2014-2019 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.payment.retry;
+
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.inject.Inject;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.killbill.billing.callcontext.InternalTenantContext;
+import org.killbill.billing.payment.dao.PaymentAttemptModelDao;
+import org.killbill.billing.payment.dao.PaymentDao;
+import org.killbill.billing.payment.dao.PaymentMethodModelDao;
+import org.killbill.billing.util.config.definition.PaymentConfig;
+import org.killbill.clock.Clock;
+
+/**
+ * Spreads payment retries over time to avoid retry waves hitting the payment gateways (e.g. after a spike of declines,
+ * all retries would otherwise be scheduled at the same time).
+ * <p>
+ * The planner keeps an index of the retries planned per time bucket and payment plugin: when a bucket is full for a given
+ * plugin, the retry is moved to the next one; within a bucket, retries are evenly spaced. When the retries fire, the number
+ * of concurrent retries per plugin is bounded, additional retries being rescheduled.
+ * <p>
+ * The index only covers the retries scheduled by this node, and is not rebuilt on restart.
+ */
+public class RetryPlanner {
+
+    // For attempts without (known) payment method
+    static final String UNKNOWN_PLUGIN_NAME = "";
+
+    private final PaymentConfig paymentConfig;
+    private final PaymentDao paymentDao;
+    private final Clock clock;
+
+    // Number of retries planned per bucket (start of the bucket, in millis) and plugin name
+    private final ConcurrentNavigableMap<Long, ConcurrentMap<String, AtomicInteger>> plannedRetries = new ConcurrentSkipListMap<Long, ConcurrentMap<String, AtomicInteger>>();
+    private final ConcurrentMap<String, Semaphore> dispatchPermits = new ConcurrentHashMap<String, Semaphore>();
+
+    @Inject
+    public RetryPlanner(final PaymentConfig paymentConfig, final PaymentDao paymentDao, final Clock clock) {
+        this.paymentConfig = paymentConfig;
+        this.paymentDao = paymentDao;
+        this.clock = clock;
+    }
+
+    public boolean isEnabled() {
+        return paymentConfig.isRetryPlannerEnabled();
+    }
+
+    public DateTime planRetry(final UUID attemptId, final DateTime requestedTimeOfRetry, final InternalTenantContext context) {
+        final PaymentAttemptModelDao attempt = paymentDao.getPaymentAttempt(attemptId, context);
+        if (attempt == null) {
+            return requestedTimeOfRetry;
+        }
+        return planRetry(getPluginName(attempt, context), requestedTimeOfRetry);
+    }
+
+    public DateTime planRetry(final String pluginName, final DateTime requestedTimeOfRetry) {
+        final long bucketMillis = paymentConfig.getRetryPlannerBucket().getMillis();
+        final int maxPerBucket = paymentConfig.getRetryPlannerMaxPerPluginPerBucket();
+        if (bucketMillis <= 0 || maxPerBucket <= 0) {
+            return requestedTimeOfRetry;
+        }
+
+        // Forget about past buckets
+        final long nowMillis = clock.getUTCNow().getMillis();
+        plannedRetries.headMap(nowMillis - nowMillis % bucketMillis).clear();
+
+        final long requestedMillis = requestedTimeOfRetry.getMillis();
+        long bucketStart = requestedMillis - requestedMillis % bucketMillis;
+        while (true) {
+            final int position = getPlannedRetriesCounter(bucketStart, pluginName).getAndIncrement();
+            if (position < maxPerBucket) {
+                // Never retry earlier than requested
+                final long plannedMillis = Math.max(requestedMillis, bucketStart + position * bucketMillis / maxPerBucket);
+                return new DateTime(plannedMillis, DateTimeZone.UTC);
+            }
+            bucketStart += bucketMillis;
+        }
+    }
+
+    // Returns false (without running the retry) if too many retries are already running for that plugin
+    public boolean tryDispatch(final String pluginName, final Runnable retry) {
+        final Semaphore permits = getDispatchPermits(pluginName);
+        if (!permits.tryAcquire()) {
+            return false;
+        }
+
+        try {
+            retry.run();
+        } finally {
+            permits.release();
+        }
+        return true;
+    }
+
+    public DateTime getNextBucketTime() {
+        return clock.getUTCNow().plus(paymentConfig.getRetryPlannerBucket().getMillis());
+    }
+
+    public String getPluginName(final PaymentAttemptModelDao attempt, final InternalTenantContext context) {
+        if (attempt.getPaymentMethodId() == null) {
+            return UNKNOWN_PLUGIN_NAME;
+        }
+
+        final PaymentMethodModelDao paymentMethodModelDao = paymentDao.getPaymentMethodIncludedDeleted(attempt.getPaymentMethodId(), context);
+        return paymentMethodModelDao == null ? UNKNOWN_PLUGIN_NAME : paymentMethodModelDao.getPluginName();
+    }
+
+    private AtomicInteger getPlannedRetriesCounter(final Long bucketStart, final String pluginName) {
+        ConcurrentMap<String, AtomicInteger> retriesPerPlugin = plannedRetries.get(bucketStart);
+        if (retriesPerPlugin == null) {
+            final ConcurrentMap<String, AtomicInteger> newRetriesPerPlugin = new ConcurrentHashMap<String, AtomicInteger>();
+            retriesPerPlugin = plannedRetries.putIfAbsent(bucketStart, newRetriesPerPlugin);
+            if (retriesPerPlugin == null) {
+                retriesPerPlugin = newRetriesPerPlugin;
+            }
+        }
+
+        AtomicInteger counter = retriesPerPlugin.get(pluginName);
+        if (counter == null) {
+            final AtomicInteger newCounter = new AtomicInteger();
+            counter = retriesPerPlugin.putIfAbsent(pluginName, newCounter);
+            if (counter == null) {
+                counter = newCounter;
+            }
+        }
+        return counter;
+    }
+
+    private Semaphore getDispatchPermits(final String pluginName) {
+        Semaphore permits = dispatchPermits.get(pluginName);
+        if (permits == null) {
+            final Semaphore newPermits = new Semaphore(Math.max(1, paymentConfig.getRetryPlannerMaxConcurrentPerPlugin()));
+            permits = dispatchPermits.putIfAbsent(pluginName, newPermits);
+            if (permits == null) {
+                permits = newPermits;
+            }
+        }
+        return permits;
+    }
+}
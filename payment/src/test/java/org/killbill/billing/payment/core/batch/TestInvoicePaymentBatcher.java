@@ -0,0 +1,319 @@
+/*
+ * Copyright 2014-2019 Groupon, Inc
+ * Copyright 2014-2019 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.payment.core.batch;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.joda.time.DateTime;
+import org.killbill.billing.account.api.Account;
+import org.killbill.billing.callcontext.InternalCallContext;
+import org.killbill.billing.callcontext.InternalTenantContext;
+import org.killbill.billing.catalog.api.Currency;
+import org.killbill.billing.payment.PaymentTestSuiteNoDB;
+import org.killbill.billing.payment.api.InvoicePaymentInternalApi;
+import org.killbill.billing.payment.api.PaymentOptions;
+import org.killbill.billing.payment.api.PluginProperty;
+import org.killbill.billing.payment.core.PaymentPluginServiceRegistration;
+import org.killbill.billing.payment.dao.PaymentDao;
+import org.killbill.billing.payment.dao.PaymentMethodModelDao;
+import org.killbill.billing.util.callcontext.CallContext;
+import org.killbill.billing.util.config.definition.PaymentConfig;
+import org.killbill.billing.util.metrics.BillingMetrics;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.skife.config.TimeSpan;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+
+public class TestInvoicePaymentBatcher extends PaymentTestSuiteNoDB {
+
+    private PaymentConfig batchPaymentConfig;
+    private InvoicePaymentInternalApi mockInvoicePaymentInternalApi;
+    private PaymentDao mockPaymentDao;
+    private InvoicePaymentBatcher invoicePaymentBatcher;
+    private Set<String> paymentThreadNames;
+
+    @BeforeMethod(groups = "fast")
+    public void beforeMethod() throws Exception {
+        if (hasFailed()) {
+            return;
+        }
+        super.beforeMethod();
+
+        batchPaymentConfig = Mockito.mock(PaymentConfig.class);
+        Mockito.when(batchPaymentConfig.isInvoicePaymentBatchEnabled()).thenReturn(true);
+        Mockito.when(batchPaymentConfig.getMainBusThreadNb()).thenReturn(30);
+        Mockito.when(batchPaymentConfig.getPaymentControlPluginNames(Mockito.<InternalCallContext>any())).thenReturn(ImmutableList.<String>of());
+        mockInvoicePaymentInternalApi = Mockito.mock(InvoicePaymentInternalApi.class);
+        mockPaymentDao = Mockito.mock(PaymentDao.class);
+        Mockito.when(mockPaymentDao.getPaymentMethodsByIds(Mockito.<Collection<UUID>>any(), Mockito.<InternalTenantContext>any())).thenReturn(ImmutableList.<PaymentMethodModelDao>of());
+
+        paymentThreadNames = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+        Mockito.when(createPurchaseForInvoicePayment(null)).thenAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(final InvocationOnMock invocation) {
+                paymentThreadNames.add(Thread.currentThread().getName());
+                return null;
+            }
+        });
+
+        invoicePaymentBatcher = new InvoicePaymentBatcher(batchPaymentConfig,
+                                                          mockInvoicePaymentInternalApi,
+                                                          paymentPluginServiceRegistration,
+                                                          mockPaymentDao,
+                                                          paymentExecutors,
+                                                          internalCallContextFactory,
+                                                          new BillingMetrics());
+        invoicePaymentBatcher.initialize();
+    }
+
+    @Test(groups = "fast")
+    public void testFullBatchProcessedByWorkers() throws Exception {
+        Mockito.when(batchPaymentConfig.getInvoicePaymentBatchSize()).thenReturn(3);
+        // Large enough so that only the batch size triggers the processing
+        Mockito.when(batchPaymentConfig.getInvoicePaymentBatchMaxDelay()).thenReturn(new TimeSpan("1h"));
+
+        final Account accountWithCredit = createAccount();
+        final Account account = createAccount();
+        final UUID invoiceIdToPay = UUID.randomUUID();
+        processConcurrently(ImmutableList.<InvoicePaymentRequest>of(new InvoicePaymentRequest(accountWithCredit, UUID.randomUUID(), internalCallContext),
+                                                                   new InvoicePaymentRequest(accountWithCredit, UUID.randomUUID(), internalCallContext),
+                                                                   new InvoicePaymentRequest(account, invoiceIdToPay, internalCallContext)));
+
+        // All payments go through the payment control state machine (which aborts the ones without balance)
+        verifyPurchaseCalls(invoiceIdToPay, 1);
+        verifyPurchaseCalls(null, 3);
+        // Payment methods are resolved in bulk
+        Mockito.verify(mockPaymentDao, Mockito.times(1)).getPaymentMethodsByIds(Mockito.<Collection<UUID>>any(), Mockito.<InternalTenantContext>any());
+        Mockito.verify(mockPaymentDao, Mockito.never()).getPaymentMethod(Mockito.<UUID>any(), Mockito.<InternalTenantContext>any());
+        // Neither the bus threads nor the thread filling up the batch make the payments
+        for (final String threadName : paymentThreadNames) {
+            Assert.assertTrue(threadName.startsWith("InvoiceBatch-th-"), threadName);
+        }
+    }
+
+    @Test(groups = "fast")
+    public void testBatchSizeCappedByBusThreads() throws Exception {
+        Mockito.when(batchPaymentConfig.getInvoicePaymentBatchSize()).thenReturn(100);
+        Mockito.when(batchPaymentConfig.getMainBusThreadNb()).thenReturn(2);
+        // The batch can only be dispatched because it is full
+        Mockito.when(batchPaymentConfig.getInvoicePaymentBatchMaxDelay()).thenReturn(new TimeSpan("1h"));
+
+        processConcurrently(ImmutableList.<InvoicePaymentRequest>of(new InvoicePaymentRequest(createAccount(), UUID.randomUUID(), internalCallContext),
+                                                                   new InvoicePaymentRequest(createAccount(), UUID.randomUUID(), internalCallContext)));
+
+        verifyPurchaseCalls(null, 2);
+    }
+
+    @Test(groups = "fast")
+    public void testBatchingDisabledWithSingleBusThread() throws Exception {
+        Mockito.when(batchPaymentConfig.getInvoicePaymentBatchSize()).thenReturn(100);
+        Mockito.when(batchPaymentConfig.getMainBusThreadNb()).thenReturn(1);
+        Mockito.when(batchPaymentConfig.getInvoicePaymentBatchMaxDelay()).thenReturn(new TimeSpan("1h"));
+
+        final UUID invoiceId = UUID.randomUUID();
+        invoicePaymentBatcher.processInvoicePayment(new InvoicePaymentRequest(createAccount(), invoiceId, internalCallContext));
+
+        verifyPurchaseCalls(invoiceId, 1);
+        // Made by the bus thread itself
+        Assert.assertEquals(paymentThreadNames.size(), 1);
+        Assert.assertTrue(paymentThreadNames.contains(Thread.currentThread().getName()));
+    }
+
+    @Test(groups = "fast")
+    public void testBatchProcessedAfterMaxDelay() throws Exception {
+        Mockito.when(batchPaymentConfig.getInvoicePaymentBatchSize()).thenReturn(100);
+        Mockito.when(batchPaymentConfig.getInvoicePaymentBatchMaxDelay()).thenReturn(new TimeSpan("100ms"));
+
+        final UUID invoiceId = UUID.randomUUID();
+        invoicePaymentBatcher.processInvoicePayment(new InvoicePaymentRequest(createAccount(), invoiceId, internalCallContext));
+
+        verifyPurchaseCalls(invoiceId, 1);
+    }
+
+    @Test(groups = "fast")
+    public void testFailureReportedToBusThread() throws Exception {
+        Mockito.when(batchPaymentConfig.getInvoicePaymentBatchSize()).thenReturn(2);
+        Mockito.when(batchPaymentConfig.getInvoicePaymentBatchMaxDelay()).thenReturn(new TimeSpan("100ms"));
+        Mockito.when(createPurchaseForInvoicePayment(null)).thenThrow(new IllegalStateException("Database unavailable"));
+
+        try {
+            invoicePaymentBatcher.processInvoicePayment(new InvoicePaymentRequest(createAccount(), UUID.randomUUID(), internalCallContext));
+            Assert.fail("Failure should be propagated so that the bus retries the event");
+        } catch (final IllegalStateException e) {
+            Assert.assertEquals(e.getMessage(), "Database unavailable");
+        }
+    }
+
+    @Test(groups = "fast")
+    public void testBatchPluginNotifiedAroundGroup() throws Exception {
+        Mockito.when(batchPaymentConfig.getInvoicePaymentBatchSize()).thenReturn(3);
+        Mockito.when(batchPaymentConfig.getInvoicePaymentBatchMaxDelay()).thenReturn(new TimeSpan("1h"));
+
+        final List<Account> accounts = ImmutableList.<Account>of(createAccount(), createAccount(), createAccount());
+        final List<PaymentMethodModelDao> paymentMethods = new LinkedList<PaymentMethodModelDao>();
+        for (final Account account : accounts) {
+            paymentMethods.add(new PaymentMethodModelDao(account.getPaymentMethodId(), null, null, null, account.getId(), "batchPlugin", true));
+        }
+        Mockito.when(mockPaymentDao.getPaymentMethodsByIds(Mockito.<Collection<UUID>>any(), Mockito.<InternalTenantContext>any())).thenReturn(paymentMethods);
+
+        final List<String> calls = Collections.synchronizedList(new LinkedList<String>());
+        final BatchPaymentPluginApi batchPluginApi = Mockito.mock(BatchPaymentPluginApi.class);
+        Mockito.doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(final InvocationOnMock invocation) {
+                calls.add("beginBatch");
+                return null;
+            }
+        }).when(batchPluginApi).beginBatch(Mockito.<UUID>any(), Mockito.<List<UUID>>any(), Mockito.<CallContext>any());
+        Mockito.doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(final InvocationOnMock invocation) {
+                calls.add("endBatch");
+                return null;
+            }
+        }).when(batchPluginApi).endBatch(Mockito.<UUID>any(), Mockito.<CallContext>any());
+        Mockito.when(createPurchaseForInvoicePayment(null)).thenAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(final InvocationOnMock invocation) {
+                paymentThreadNames.add(Thread.currentThread().getName());
+                calls.add("purchase");
+                return null;
+            }
+        });
+        final PaymentPluginServiceRegistration mockPaymentPluginServiceRegistration = Mockito.mock(PaymentPluginServiceRegistration.class);
+        Mockito.when(mockPaymentPluginServiceRegistration.getPaymentPluginApi("batchPlugin")).thenReturn(batchPluginApi);
+
+        invoicePaymentBatcher = new InvoicePaymentBatcher(batchPaymentConfig,
+                                                          mockInvoicePaymentInternalApi,
+                                                          mockPaymentPluginServiceRegistration,
+                                                          mockPaymentDao,
+                                                          paymentExecutors,
+                                                          internalCallContextFactory,
+                                                          new BillingMetrics());
+        invoicePaymentBatcher.initialize();
+
+        final List<InvoicePaymentRequest> requests = new LinkedList<InvoicePaymentRequest>();
+        for (final Account account : accounts) {
+            requests.add(new InvoicePaymentRequest(account, UUID.randomUUID(), internalCallContext));
+        }
+        processConcurrently(requests);
+
+        // The payments of the group are made by the workers, within a single plugin batch
+        Assert.assertEquals(calls, ImmutableList.<String>of("beginBatch", "purchase", "purchase", "purchase", "endBatch"));
+        for (final String threadName : paymentThreadNames) {
+            Assert.assertTrue(threadName.startsWith("InvoiceBatch-th-"), threadName);
+        }
+    }
+
+    @Test(groups = "fast")
+    public void testInterruptReportedToBusThread() throws Exception {
+        Mockito.when(batchPaymentConfig.getInvoicePaymentBatchSize()).thenReturn(100);
+        Mockito.when(batchPaymentConfig.getInvoicePaymentBatchMaxDelay()).thenReturn(new TimeSpan("1h"));
+
+        Thread.currentThread().interrupt();
+        try {
+            invoicePaymentBatcher.processInvoicePayment(new InvoicePaymentRequest(createAccount(), UUID.randomUUID(), internalCallContext));
+            Assert.fail("Interruption should be propagated so that the bus retries the event");
+        } catch (final IllegalStateException e) {
+            Assert.assertTrue(e.getCause() instanceof InterruptedException);
+            // The interrupt flag is restored (and cleared here)
+            Assert.assertTrue(Thread.interrupted());
+        } finally {
+            invoicePaymentBatcher.stop();
+        }
+    }
+
+    // Each bus thread waits for its payment to be processed
+    private void processConcurrently(final List<InvoicePaymentRequest> requests) throws Exception {
+        final ExecutorService busThreads = Executors.newFixedThreadPool(requests.size());
+        try {
+            final List<Future<Void>> futures = new LinkedList<Future<Void>>();
+            for (final InvoicePaymentRequest request : requests) {
+                futures.add(busThreads.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        invoicePaymentBatcher.processInvoicePayment(request);
+                        return null;
+                    }
+                }));
+            }
+            for (final Future<Void> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            busThreads.shutdownNow();
+        }
+    }
+
+    private Object createPurchaseForInvoicePayment(final UUID invoiceId) throws Exception {
+        return mockInvoicePaymentInternalApi.createPurchaseForInvoicePayment(Mockito.anyBoolean(),
+                                                                             Mockito.<Account>any(),
+                                                                             invoiceId == null ? Mockito.<UUID>any() : Mockito.eq(invoiceId),
+                                                                             Mockito.<UUID>any(),
+                                                                             Mockito.<UUID>any(),
+                                                                             Mockito.<BigDecimal>any(),
+                                                                             Mockito.<Currency>any(),
+                                                                             Mockito.<DateTime>any(),
+                                                                             Mockito.<String>any(),
+                                                                             Mockito.<String>any(),
+                                                                             Mockito.<Iterable<PluginProperty>>any(),
+                                                                             Mockito.<PaymentOptions>any(),
+                                                                             Mockito.<InternalCallContext>any());
+    }
+
+    private void verifyPurchaseCalls(final UUID invoiceId, final int times) throws Exception {
+        Mockito.verify(mockInvoicePaymentInternalApi, Mockito.times(times)).createPurchaseForInvoicePayment(Mockito.anyBoolean(),
+                                                                                                          Mockito.<Account>any(),
+                                                                                                          invoiceId == null ? Mockito.<UUID>any() : Mockito.eq(invoiceId),
+                                                                                                          Mockito.<UUID>any(),
+                                                                                                          Mockito.<UUID>any(),
+                                                                                                          Mockito.<BigDecimal>any(),
+                                                                                                          Mockito.<Currency>any(),
+                                                                                                          Mockito.<DateTime>any(),
+                                                                                                          Mockito.<String>any(),
+                                                                                                          Mockito.<String>any(),
+                                                                                                          Mockito.<Iterable<PluginProperty>>any(),
+                                                                                                          Mockito.<PaymentOptions>any(),
+                                                                                                          Mockito.<InternalCallContext>any());
+    }
+
+    private Account createAccount() {
+        final Account account = Mockito.mock(Account.class);
+        Mockito.when(account.getId()).thenReturn(UUID.randomUUID());
+        Mockito.when(account.getPaymentMethodId()).thenReturn(UUID.randomUUID());
+        Mockito.when(account.getCurrency()).thenReturn(Currency.USD);
+        return account;
+    }
+}
@@ -58,6 +58,7 @@ import org.killbill.billing.tag.TagInternalApi;
 import org.killbill.billing.util.callcontext.InternalCallContextFactory;
 import org.killbill.billing.util.dao.NonEntityDao;
 import org.killbill.billing.util.globallocker.LockerType;
+import org.killbill.billing.util.metrics.BillingMetrics;
 import org.killbill.commons.locker.GlobalLock;
 import org.killbill.commons.locker.GlobalLocker;
 import org.killbill.commons.locker.LockFailedException;
@@ -179,7 +180,8 @@ public class TestRetryablePayment extends PaymentTestSuiteNoDB {
                 retrySMHelper,
                 controlPluginRunner,
                 eventBus,
-                paymentRefresher);
+                paymentRefresher,
+                new BillingMetrics());
 
         paymentStateContext =
                 new PaymentStateControlContext(ImmutableList.<String>of(MockPaymentControlProviderPlugin.PLUGIN_NAME),
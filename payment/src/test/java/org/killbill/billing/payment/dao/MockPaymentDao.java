@@ -20,6 +20,7 @@ package org.killbill.billing.payment.dao;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
@@ -135,6 +136,19 @@ public class MockPaymentDao extends MockEntityDaoBase<PaymentModelDao, Payment,
         return null;
     }
 
+    @Override
+    public List<PaymentAttemptModelDao> getPaymentAttemptsByPaymentExternalKeys(final Collection<String> paymentExternalKeys, final InternalTenantContext context) {
+        synchronized (this) {
+            final List<PaymentAttemptModelDao> result = new ArrayList<PaymentAttemptModelDao>();
+            for (PaymentAttemptModelDao cur : attempts.values()) {
+                if (paymentExternalKeys.contains(cur.getPaymentExternalKey())) {
+                    result.add(cur);
+                }
+            }
+            return result;
+        }
+    }
+
     @Override
     public List<PaymentAttemptModelDao> getPaymentAttempts(final String paymentExternalKey, final InternalTenantContext context) {
         synchronized (this) {
@@ -281,6 +295,19 @@ public class MockPaymentDao extends MockEntityDaoBase<PaymentModelDao, Payment,
         }
     }
 
+    @Override
+    public List<PaymentModelDao> getPaymentsByIds(final Collection<UUID> paymentIds, final InternalTenantContext context) {
+        synchronized (this) {
+            final List<PaymentModelDao> result = new ArrayList<PaymentModelDao>();
+            for (final UUID paymentId : paymentIds) {
+                if (payments.get(paymentId) != null) {
+                    result.add(payments.get(paymentId));
+                }
+            }
+            return result;
+        }
+    }
+
     @Override
     public PaymentTransactionModelDao getPaymentTransaction(final UUID transactionId, final InternalTenantContext context) {
         synchronized (this) {
@@ -334,6 +361,18 @@ public class MockPaymentDao extends MockEntityDaoBase<PaymentModelDao, Payment,
         }
     }
 
+    @Override
+    public List<PaymentTransactionModelDao> getTransactionsForPayments(final Collection<UUID> paymentIds, final InternalTenantContext context) {
+        synchronized (this) {
+            return ImmutableList.copyOf(Iterables.filter(transactions.values(), new Predicate<PaymentTransactionModelDao>() {
+                @Override
+                public boolean apply(final PaymentTransactionModelDao input) {
+                    return paymentIds.contains(input.getPaymentId());
+                }
+            }));
+        }
+    }
+
     @Override
     public PaymentAttemptModelDao getPaymentAttempt(final UUID attemptId, final InternalTenantContext context) {
         synchronized (this) {
@@ -368,6 +407,19 @@ public class MockPaymentDao extends MockEntityDaoBase<PaymentModelDao, Payment,
         }
     }
 
+    @Override
+    public List<PaymentMethodModelDao> getPaymentMethodsByIds(final Collection<UUID> paymentMethodIds, final InternalTenantContext context) {
+        synchronized (this) {
+            final List<PaymentMethodModelDao> result = new ArrayList<PaymentMethodModelDao>();
+            for (final PaymentMethodModelDao cur : paymentMethods) {
+                if (paymentMethodIds.contains(cur.getId())) {
+                    result.add(cur);
+                }
+            }
+            return result;
+        }
+    }
+
     @Override
     public PaymentMethodModelDao getPaymentMethodByExternalKey(final String paymentMethodExternalKey, final InternalTenantContext context) {
         synchronized (this) {
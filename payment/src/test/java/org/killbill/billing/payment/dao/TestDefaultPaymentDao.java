@@ -18,6 +18,7 @@
 package org.killbill.billing.payment.dao;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
@@ -103,6 +104,60 @@ public class TestDefaultPaymentDao extends PaymentTestSuiteWithEmbeddedDB {
         Assert.assertEquals(ImmutableList.<PaymentModelDao>copyOf(paymentDao.searchPayments("_ERRORED", 0L, 100L, internalCallContext).iterator()).size(), runNb);
     }
 
+    @Test(groups = "slow")
+    public void testBulkLookupsForPaymentsPage() throws Exception {
+        final List<PaymentModelDao> specifiedPaymentModelDaos = new ArrayList<PaymentModelDao>();
+        final List<UUID> specifiedTransactionIds = new ArrayList<UUID>();
+        for (int i = 0; i < 2; i++) {
+            final Account account = testHelper.createTestAccount(UUID.randomUUID().toString(), true);
+            for (int j = 0; j < 2; j++) {
+                final PaymentModelDao paymentModelDao = generatePaymentModelDao(account.getId());
+                final PaymentTransactionModelDao firstTransactionModelDao = generatePaymentTransactionModelDao(paymentModelDao.getId());
+                paymentDao.insertPaymentWithFirstTransaction(paymentModelDao, firstTransactionModelDao, internalCallContext);
+                final PaymentTransactionModelDao secondTransactionModelDao = generatePaymentTransactionModelDao(paymentModelDao.getId());
+                paymentDao.updatePaymentWithNewTransaction(paymentModelDao.getId(), secondTransactionModelDao, internalCallContext);
+
+                final PaymentAttemptModelDao attempt = new PaymentAttemptModelDao(account.getId(), account.getPaymentMethodId(), clock.getUTCNow(), clock.getUTCNow(), paymentModelDao.getExternalKey(),
+                                                                                  firstTransactionModelDao.getId(), firstTransactionModelDao.getTransactionExternalKey(), TransactionType.CAPTURE, "SUCCESS", BigDecimal.ONE, Currency.EUR,
+                                                                                  ImmutableList.<String>of("whatever"), null);
+                paymentDao.insertPaymentAttemptWithProperties(attempt, internalCallContext);
+
+                specifiedPaymentModelDaos.add(paymentModelDao);
+                specifiedTransactionIds.add(firstTransactionModelDao.getId());
+                specifiedTransactionIds.add(secondTransactionModelDao.getId());
+            }
+        }
+
+        final List<UUID> paymentIds = new ArrayList<UUID>();
+        final List<String> paymentExternalKeys = new ArrayList<String>();
+        for (final PaymentModelDao paymentModelDao : specifiedPaymentModelDaos) {
+            paymentIds.add(paymentModelDao.getId());
+            paymentExternalKeys.add(paymentModelDao.getExternalKey());
+        }
+
+        // The queries span several accounts (only the tenant is checked)
+        final List<PaymentModelDao> paymentModelDaos = paymentDao.getPaymentsByIds(paymentIds, internalCallContext);
+        Assert.assertEquals(paymentModelDaos.size(), 4);
+        for (int i = 0; i < paymentModelDaos.size(); i++) {
+            verifyPayment(paymentModelDaos.get(i), specifiedPaymentModelDaos.get(i));
+        }
+
+        final List<PaymentTransactionModelDao> transactionModelDaos = paymentDao.getTransactionsForPayments(paymentIds, internalCallContext);
+        Assert.assertEquals(transactionModelDaos.size(), 8);
+        for (final PaymentTransactionModelDao transactionModelDao : transactionModelDaos) {
+            Assert.assertTrue(specifiedTransactionIds.contains(transactionModelDao.getId()));
+        }
+        Assert.assertEquals(paymentDao.getTransactionsForPayments(ImmutableList.<UUID>of(paymentIds.get(0)), internalCallContext).size(), 2);
+
+        final List<PaymentAttemptModelDao> attemptModelDaos = paymentDao.getPaymentAttemptsByPaymentExternalKeys(paymentExternalKeys, internalCallContext);
+        Assert.assertEquals(attemptModelDaos.size(), 4);
+
+        // Empty pages don't hit the database
+        Assert.assertTrue(paymentDao.getPaymentsByIds(ImmutableList.<UUID>of(), internalCallContext).isEmpty());
+        Assert.assertTrue(paymentDao.getTransactionsForPayments(ImmutableList.<UUID>of(), internalCallContext).isEmpty());
+        Assert.assertTrue(paymentDao.getPaymentAttemptsByPaymentExternalKeys(ImmutableList.<String>of(), internalCallContext).isEmpty());
+    }
+
     private void verifyPaymentAndTransactions(final InternalCallContext accountCallContext, final PaymentModelDao specifiedFirstPaymentModelDao, final PaymentTransactionModelDao... specifiedFirstPaymentTransactionModelDaos) {
         for (final PaymentTransactionModelDao specifiedFirstPaymentTransactionModelDao : specifiedFirstPaymentTransactionModelDaos) {
             final PaymentTransactionModelDao firstTransactionModelDao = paymentDao.getPaymentTransaction(specifiedFirstPaymentTransactionModelDao.getId(), accountCallContext);
@@ -28,6 +28,7 @@ import org.killbill.billing.payment.PaymentTestSuiteNoDB;
 import org.killbill.billing.payment.api.PaymentApiException;
 import org.killbill.billing.payment.dispatcher.PluginDispatcher.PluginDispatcherReturnType;
 import org.killbill.billing.util.UUIDs;
+import org.killbill.billing.util.metrics.BillingMetrics;
 import org.killbill.commons.request.Request;
 import org.killbill.commons.request.RequestData;
 import org.slf4j.MDC;
@@ -48,11 +49,30 @@ public class TestPluginDispatcher extends PaymentTestSuiteNoDB {
         }
         super.beforeMethod();
         eventBus.start();
-        voidPluginDispatcher = new PluginDispatcher<Void>(10, paymentExecutors);
-        stringPluginDispatcher = new PluginDispatcher<String>(1, paymentExecutors);
+        voidPluginDispatcher = new PluginDispatcher<Void>(10, paymentExecutors, new BillingMetrics());
+        stringPluginDispatcher = new PluginDispatcher<String>(1, paymentExecutors, new BillingMetrics());
     }
 
 
+    @Test(groups = "fast")
+    public void testRecordPluginMetrics() throws Exception {
+        final BillingMetrics billingMetrics = new BillingMetrics();
+        final PluginDispatcher<Void> pluginDispatcher = new PluginDispatcher<Void>(1, paymentExecutors, billingMetrics);
+
+        pluginDispatcher.recordPluginCall("plugin1, plugin2", TimeUnit.MILLISECONDS.toNanos(10));
+        pluginDispatcher.recordPluginCall("plugin1", TimeUnit.MILLISECONDS.toNanos(10));
+        pluginDispatcher.recordPluginTimeout("plugin2,plugin3");
+        pluginDispatcher.recordPluginCall(null, TimeUnit.MILLISECONDS.toNanos(10));
+
+        // One metric per plugin, never per list of plugins
+        Assert.assertEquals(billingMetrics.getCount("killbill.payment.plugin.plugin1"), 2);
+        Assert.assertEquals(billingMetrics.getCount("killbill.payment.plugin.plugin2"), 1);
+        Assert.assertEquals(billingMetrics.getCount("killbill.payment.plugin.plugin2.timeouts"), 1);
+        Assert.assertEquals(billingMetrics.getCount("killbill.payment.plugin.plugin3.timeouts"), 1);
+        Assert.assertEquals(billingMetrics.getCount("killbill.payment.plugin.plugin1, plugin2"), 0);
+        Assert.assertEquals(billingMetrics.getMetricRegistry().getTimers().size(), 2);
+    }
+
     @Test(groups = "fast")
     public void testDispatchWithTimeout() throws TimeoutException, PaymentApiException {
         boolean gotIt = false;
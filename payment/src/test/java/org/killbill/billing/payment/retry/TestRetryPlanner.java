@@ -0,0 +1,123 @@
+/*
+ * Copyright 2014-2019 Groupon, Inc
+ * Copyright 2014-2019 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.payment.retry;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.killbill.billing.payment.PaymentTestSuiteNoDB;
+import org.killbill.billing.util.config.definition.PaymentConfig;
+import org.mockito.Mockito;
+import org.skife.config.TimeSpan;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class TestRetryPlanner extends PaymentTestSuiteNoDB {
+
+    private RetryPlanner retryPlanner;
+
+    @BeforeMethod(groups = "fast")
+    public void beforeMethod() throws Exception {
+        if (hasFailed()) {
+            return;
+        }
+        super.beforeMethod();
+
+        final PaymentConfig plannerConfig = Mockito.mock(PaymentConfig.class);
+        Mockito.when(plannerConfig.isRetryPlannerEnabled()).thenReturn(true);
+        Mockito.when(plannerConfig.getRetryPlannerBucket()).thenReturn(new TimeSpan("1m"));
+        Mockito.when(plannerConfig.getRetryPlannerMaxPerPluginPerBucket()).thenReturn(4);
+        Mockito.when(plannerConfig.getRetryPlannerMaxConcurrentPerPlugin()).thenReturn(1);
+        retryPlanner = new RetryPlanner(plannerConfig, paymentDao, clock);
+    }
+
+    @Test(groups = "fast")
+    public void testRetriesSpreadOverBuckets() {
+        final DateTime bucketStart = new DateTime(2020, 5, 1, 10, 0, 0, 0, DateTimeZone.UTC);
+        clock.setTime(bucketStart.minusHours(1));
+
+        // Evenly spaced within the bucket
+        Assert.assertEquals(retryPlanner.planRetry("gateway-a", bucketStart).compareTo(bucketStart), 0);
+        Assert.assertEquals(retryPlanner.planRetry("gateway-a", bucketStart).compareTo(bucketStart.plusSeconds(15)), 0);
+        Assert.assertEquals(retryPlanner.planRetry("gateway-a", bucketStart).compareTo(bucketStart.plusSeconds(30)), 0);
+        Assert.assertEquals(retryPlanner.planRetry("gateway-a", bucketStart).compareTo(bucketStart.plusSeconds(45)), 0);
+
+        // Bucket is full for that gateway: moved to the next one
+        Assert.assertEquals(retryPlanner.planRetry("gateway-a", bucketStart).compareTo(bucketStart.plusMinutes(1)), 0);
+
+        // Other gateways are not impacted
+        Assert.assertEquals(retryPlanner.planRetry("gateway-b", bucketStart).compareTo(bucketStart), 0);
+
+        // Never earlier than requested
+        Assert.assertEquals(retryPlanner.planRetry("gateway-b", bucketStart.plusSeconds(50)).compareTo(bucketStart.plusSeconds(50)), 0);
+    }
+
+    @Test(groups = "fast")
+    public void testConcurrentRetriesBoundedPerPlugin() throws Exception {
+        final CountDownLatch retryStarted = new CountDownLatch(1);
+        final CountDownLatch retryCanComplete = new CountDownLatch(1);
+        final AtomicBoolean firstDispatched = new AtomicBoolean(false);
+
+        final Thread firstRetry = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                firstDispatched.set(retryPlanner.tryDispatch("gateway-a", new Runnable() {
+                    @Override
+                    public void run() {
+                        retryStarted.countDown();
+                        try {
+                            retryCanComplete.await();
+                        } catch (final InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                }));
+            }
+        });
+        firstRetry.start();
+        Assert.assertTrue(retryStarted.await(10, TimeUnit.SECONDS));
+
+        final AtomicBoolean ran = new AtomicBoolean(false);
+        final Runnable retry = new Runnable() {
+            @Override
+            public void run() {
+                ran.set(true);
+            }
+        };
+
+        // Only one concurrent retry allowed for gateway-a
+        Assert.assertFalse(retryPlanner.tryDispatch("gateway-a", retry));
+        Assert.assertFalse(ran.get());
+
+        // Other gateways are not impacted
+        Assert.assertTrue(retryPlanner.tryDispatch("gateway-b", retry));
+        Assert.assertTrue(ran.get());
+
+        retryCanComplete.countDown();
+        firstRetry.join(10000);
+        Assert.assertTrue(firstDispatched.get());
+
+        ran.set(false);
+        Assert.assertTrue(retryPlanner.tryDispatch("gateway-a", retry));
+        Assert.assertTrue(ran.get());
+    }
+}
@@ -28,14 +28,18 @@ import javax.ws.rs.PUT;
 
 import org.aopalliance.intercept.MethodInterceptor;
 import org.aopalliance.intercept.MethodInvocation;
+import org.killbill.billing.callcontext.RequestReadCache;
 import org.killbill.billing.jaxrs.resources.JaxrsResource;
+import org.killbill.billing.util.config.definition.RequestCacheConfig;
 import org.killbill.billing.util.entity.dao.DBRouterUntyped;
 import org.killbill.billing.util.glue.KillbillApiAopModule;
+import org.killbill.billing.util.metrics.BillingMetrics;
 import org.killbill.commons.profiling.Profiling.WithProfilingCallback;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.inject.AbstractModule;
+import com.google.inject.Inject;
 import com.google.inject.matcher.Matcher;
 import com.google.inject.matcher.Matchers;
 
@@ -70,15 +74,46 @@ public class JaxRSAopModule extends AbstractModule {
 
     @Override
     protected void configure() {
+        final JaxRsMethodInterceptor interceptor = new JaxRsMethodInterceptor();
+        requestInjection(interceptor);
         bindInterceptor(Matchers.subclassesOf(JaxrsResource.class),
                         API_RESOURCE_METHOD_MATCHER,
-                        new JaxRsMethodInterceptor());
+                        interceptor);
     }
 
     public static class JaxRsMethodInterceptor implements MethodInterceptor {
 
+        private RequestCacheConfig requestCacheConfig;
+        private BillingMetrics billingMetrics;
+
+        @Inject
+        public void setRequestCacheConfig(final RequestCacheConfig requestCacheConfig) {
+            this.requestCacheConfig = requestCacheConfig;
+        }
+
+        @Inject
+        public void setBillingMetrics(final BillingMetrics billingMetrics) {
+            this.billingMetrics = billingMetrics;
+        }
+
         @Override
         public Object invoke(final MethodInvocation invocation) throws Throwable {
+            final RequestReadCache requestReadCache = requestCacheConfig != null && requestCacheConfig.isRequestReadCacheEnabled() ? RequestReadCache.open() : null;
+            try {
+                return invokeWithRODBIRouting(invocation);
+            } finally {
+                if (requestReadCache != null) {
+                    requestReadCache.close();
+                    if (billingMetrics != null) {
+                        billingMetrics.incrementCounter("killbill.cache.request.reads", requestReadCache.getNbReads());
+                        billingMetrics.incrementCounter("killbill.cache.request.hits", requestReadCache.getNbHits());
+                        billingMetrics.incrementCounter("killbill.cache.request.invalidations", requestReadCache.getNbInvalidations());
+                    }
+                }
+            }
+        }
+
+        private Object invokeWithRODBIRouting(final MethodInvocation invocation) throws Throwable {
             return DBRouterUntyped.withRODBIAllowed(isRODBIAllowed(invocation),
                                                     new WithProfilingCallback<Object, Throwable>() {
                                                         @Override
@@ -83,6 +83,7 @@ import org.killbill.billing.util.glue.GlobalLockerModule;
 import org.killbill.billing.util.glue.IDBISetup;
 import org.killbill.billing.util.glue.KillBillShiroAopModule;
 import org.killbill.billing.util.glue.KillbillApiAopModule;
+import org.killbill.billing.util.glue.MetricsModule;
 import org.killbill.billing.util.glue.NodesModule;
 import org.killbill.billing.util.glue.NonEntityDaoModule;
 import org.killbill.billing.util.glue.RecordIdModule;
@@ -186,6 +187,7 @@ public class KillbillServerModule extends KillbillPlatformModule {
         install(new KillbillApiAopModule());
         install(new JaxRSAopModule());
         install(new KillBillShiroWebModule(servletContext, skifeConfigSource));
+        install(new MetricsModule(configSource));
         install(new NonEntityDaoModule(configSource));
         install(new PaymentModule(configSource));
         install(new RecordIdModule(configSource));
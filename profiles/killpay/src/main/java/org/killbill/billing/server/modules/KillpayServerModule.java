@@ -63,6 +63,7 @@ import org.killbill.billing.util.glue.ExportModule;
 import org.killbill.billing.util.glue.GlobalLockerModule;
 import org.killbill.billing.util.glue.KillBillShiroAopModule;
 import org.killbill.billing.util.glue.KillbillApiAopModule;
+import org.killbill.billing.util.glue.MetricsModule;
 import org.killbill.billing.util.glue.NodesModule;
 import org.killbill.billing.util.glue.NonEntityDaoModule;
 import org.killbill.billing.util.glue.RecordIdModule;
@@ -93,6 +94,7 @@ public class KillpayServerModule extends KillbillServerModule {
         install(new KillbillApiAopModule());
         install(new JaxRSAopModule());
         install(new KillBillShiroWebModule(servletContext, skifeConfigSource));
+        install(new MetricsModule(configSource));
         install(new NonEntityDaoModule(configSource));
         install(new PaymentModule(configSource));
         install(new RecordIdModule(configSource));
@@ -49,6 +49,7 @@ import org.killbill.billing.entitlement.api.EntitlementSpecifier;
 import org.killbill.billing.events.EffectiveSubscriptionInternalEvent;
 import org.killbill.billing.invoice.api.DryRunArguments;
 import org.killbill.billing.subscription.api.SubscriptionBase;
+import org.killbill.billing.subscription.api.SubscriptionBaseAccountGraph;
 import org.killbill.billing.subscription.api.SubscriptionBaseApiService;
 import org.killbill.billing.subscription.api.SubscriptionBaseInternalApi;
 import org.killbill.billing.subscription.api.SubscriptionBaseWithAddOns;
@@ -56,6 +57,7 @@ import org.killbill.billing.subscription.api.SubscriptionBaseWithAddOnsSpecifier
 import org.killbill.billing.subscription.api.user.SubscriptionBillingEvent;
 import org.killbill.billing.subscription.api.user.DefaultEffectiveSubscriptionEvent;
 import org.killbill.billing.subscription.api.user.DefaultSubscriptionBase;
+import org.killbill.billing.subscription.api.user.DefaultSubscriptionBaseAccountGraph;
 import org.killbill.billing.subscription.api.user.DefaultSubscriptionBaseBundle;
 import org.killbill.billing.subscription.api.user.DefaultSubscriptionStatusDryRun;
 import org.killbill.billing.subscription.api.user.SubscriptionBaseApiException;
@@ -279,14 +281,22 @@ public class DefaultSubscriptionInternalApi extends DefaultSubscriptionBaseCreat
 
     @Override
     public Map<UUID, List<SubscriptionBase>> getSubscriptionsForAccount(final Catalog catalog, final InternalTenantContext context) throws SubscriptionBaseApiException {
+        return getAccountGraph(catalog, context).getSubscriptionsByBundleId();
+    }
+
+    @Override
+    public SubscriptionBaseAccountGraph getAccountGraph(final Catalog catalog, final InternalTenantContext context) throws SubscriptionBaseApiException {
         try {
-            final Map<UUID, List<DefaultSubscriptionBase>> internalSubscriptions = dao.getSubscriptionsForAccount(catalog, context);
+            final SubscriptionBaseAccountGraph internalAccountGraph = dao.getAccountGraph(catalog, context);
             final Map<UUID, List<SubscriptionBase>> result = new HashMap<UUID, List<SubscriptionBase>>();
-            for (final UUID bundleId : internalSubscriptions.keySet()) {
-                final List<DefaultSubscriptionBase> subscriptionsForApiUse = createSubscriptionsForApiUse(internalSubscriptions.get(bundleId));
-                result.put(bundleId, new ArrayList<SubscriptionBase>(subscriptionsForApiUse));
+            for (final UUID bundleId : internalAccountGraph.getSubscriptionsByBundleId().keySet()) {
+                final List<SubscriptionBase> subscriptionsForApiUse = new ArrayList<SubscriptionBase>();
+                for (final SubscriptionBase internalSubscription : internalAccountGraph.getSubscriptionsByBundleId().get(bundleId)) {
+                    subscriptionsForApiUse.add(createSubscriptionForApiUse(internalSubscription));
+                }
+                result.put(bundleId, subscriptionsForApiUse);
             }
-            return result;
+            return new DefaultSubscriptionBaseAccountGraph(internalAccountGraph.getBundles(), result);
         } catch (final CatalogApiException e) {
             throw new SubscriptionBaseApiException(e);
         }
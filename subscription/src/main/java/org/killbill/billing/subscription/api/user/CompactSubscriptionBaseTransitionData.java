@@ -0,0 +1,102 @@
+/*
+ * Copyright 2014-2019 Groupon, Inc
+ * Copyright 2014-2019 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.subscription.api.user;
+
+import java.util.UUID;
+
+import org.joda.time.DateTime;
+import org.killbill.billing.catalog.api.Plan;
+import org.killbill.billing.catalog.api.PlanPhase;
+import org.killbill.billing.catalog.api.PriceList;
+import org.killbill.billing.entitlement.api.Entitlement.EntitlementState;
+import org.killbill.billing.subscription.events.SubscriptionBaseEvent.EventType;
+import org.killbill.billing.subscription.events.user.ApiEventType;
+
+// Transition whose plan, phase and price list are shared with the other transitions of the subscription version
+public class CompactSubscriptionBaseTransitionData extends SubscriptionBaseTransitionData {
+
+    private final SubscriptionBaseTransitionCatalogObjects catalogObjects;
+    // Index of the previous transition in catalogObjects (-1 if none)
+    private final int previousIndex;
+    private final int nextIndex;
+
+    public CompactSubscriptionBaseTransitionData(final UUID eventId,
+                                                 final UUID subscriptionId,
+                                                 final UUID bundleId,
+                                                 final String bundleExternalKey,
+                                                 final EventType eventType,
+                                                 final ApiEventType apiEventType,
+                                                 final DateTime effectiveTransitionTime,
+                                                 final UUID previousEventId,
+                                                 final DateTime previousEventCreatedDate,
+                                                 final EntitlementState previousState,
+                                                 final Integer previousBillingCycleDayLocal,
+                                                 final UUID nextEventId,
+                                                 final DateTime nextEventCreatedDate,
+                                                 final EntitlementState nextState,
+                                                 final Integer nextBillingCycleDayLocal,
+                                                 final Long totalOrdering,
+                                                 final DateTime createdDate,
+                                                 final UUID userToken,
+                                                 final Boolean isFromDisk,
+                                                 final SubscriptionBaseTransitionCatalogObjects catalogObjects,
+                                                 final int previousIndex,
+                                                 final int nextIndex) {
+        super(eventId, subscriptionId, bundleId, bundleExternalKey, eventType, apiEventType, effectiveTransitionTime,
+              previousEventId, previousEventCreatedDate, previousState, null, null, null, previousBillingCycleDayLocal,
+              nextEventId, nextEventCreatedDate, nextState, null, null, null, nextBillingCycleDayLocal,
+              totalOrdering, createdDate, userToken, isFromDisk);
+        this.catalogObjects = catalogObjects;
+        this.previousIndex = previousIndex;
+        this.nextIndex = nextIndex;
+    }
+
+    SubscriptionBaseTransitionCatalogObjects getCatalogObjects() {
+        return catalogObjects;
+    }
+
+    @Override
+    public Plan getPreviousPlan() {
+        return catalogObjects.getPlan(previousIndex);
+    }
+
+    @Override
+    public PlanPhase getPreviousPhase() {
+        return catalogObjects.getPhase(previousIndex);
+    }
+
+    @Override
+    public PriceList getPreviousPriceList() {
+        return catalogObjects.getPriceList(previousIndex);
+    }
+
+    @Override
+    public Plan getNextPlan() {
+        return catalogObjects.getPlan(nextIndex);
+    }
+
+    @Override
+    public PlanPhase getNextPhase() {
+        return catalogObjects.getPhase(nextIndex);
+    }
+
+    @Override
+    public PriceList getNextPriceList() {
+        return catalogObjects.getPriceList(nextIndex);
+    }
+}
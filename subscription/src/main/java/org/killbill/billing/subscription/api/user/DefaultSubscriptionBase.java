@@ -684,6 +684,19 @@ public class DefaultSubscriptionBase extends EntityBase implements SubscriptionB
     }
 
     public void rebuildTransitions(final List<SubscriptionBaseEvent> inputEvents, final Catalog catalog) throws CatalogApiException {
+        rebuildTransitions(inputEvents, catalog, null);
+    }
+
+    /**
+     * Rebuild the transitions from the events. The catalog objects (plans, phases and price lists) of the transitions
+     * are resolved once per subscription version and shared across rebuilds of that version when a cache is specified.
+     *
+     * @param inputEvents      the subscription events
+     * @param catalog          the catalog
+     * @param transitionsCache optional cache of the compact transitions, to re-use the catalog objects resolved for the same subscription version
+     * @throws CatalogApiException if a plan, phase or price list cannot be found in the catalog
+     */
+    public void rebuildTransitions(final List<SubscriptionBaseEvent> inputEvents, final Catalog catalog, @Nullable final SubscriptionBaseTransitionsCache transitionsCache) throws CatalogApiException {
 
         if (inputEvents == null) {
             return;
@@ -714,35 +727,35 @@ public class DefaultSubscriptionBase extends EntityBase implements SubscriptionB
 
         removeEverythingPastCancelEvent(events);
 
-        final UUID nextUserToken = null;
+        final List<SubscriptionBaseEvent> activeEvents = new ArrayList<SubscriptionBaseEvent>(inputEvents.size());
+        for (final SubscriptionBaseEvent cur : inputEvents) {
+            if (cur.isActive()) {
+                activeEvents.add(cur);
+            }
+        }
+
+        final int nbTransitions = activeEvents.size();
+        final String[] planNames = new String[nbTransitions];
+        final String[] phaseNames = new String[nbTransitions];
+        final DateTime[] effectiveDates = new DateTime[nbTransitions];
+        final ApiEventType[] apiEventTypes = new ApiEventType[nbTransitions];
+        final boolean[] fromDisk = new boolean[nbTransitions];
+        final EntitlementState[] states = new EntitlementState[nbTransitions];
+        final Integer[] billingCycleDayLocals = new Integer[nbTransitions];
+        // Index of the previous transition (-1 for the first transition, or after a CREATE / TRANSFER)
+        final int[] previousIndexes = new int[nbTransitions];
 
-        UUID nextEventId;
-        DateTime nextCreatedDate;
         EntitlementState nextState = null;
         String nextPlanName = null;
         String nextPhaseName = null;
         Integer nextBillingCycleDayLocal = null;
 
-        UUID prevEventId = null;
-        DateTime prevCreatedDate = null;
-        EntitlementState previousState = null;
-        PriceList previousPriceList = null;
-        Plan previousPlan = null;
-        PlanPhase previousPhase = null;
-        Integer previousBillingCycleDayLocal = null;
-
-        transitions = new LinkedList<SubscriptionBaseTransition>();
-
-        for (final SubscriptionBaseEvent cur : inputEvents) {
-            if (!cur.isActive()) {
-                continue;
-            }
+        for (int i = 0; i < nbTransitions; i++) {
+            final SubscriptionBaseEvent cur = activeEvents.get(i);
 
             ApiEventType apiEventType = null;
             boolean isFromDisk = true;
-
-            nextEventId = cur.getId();
-            nextCreatedDate = cur.getCreatedDate();
+            int previousIndex = i - 1;
 
             switch (cur.getType()) {
 
@@ -764,12 +777,7 @@ public class DefaultSubscriptionBase extends EntityBase implements SubscriptionB
                     switch (apiEventType) {
                         case TRANSFER:
                         case CREATE:
-                            prevEventId = null;
-                            prevCreatedDate = null;
-                            previousState = null;
-                            previousPlan = null;
-                            previousPhase = null;
-                            previousPriceList = null;
+                            previousIndex = -1;
                             nextState = EntitlementState.ACTIVE;
                             nextPlanName = userEV.getEventPlan();
                             nextPhaseName = userEV.getEventPlanPhase();
@@ -796,36 +804,47 @@ public class DefaultSubscriptionBase extends EntityBase implements SubscriptionB
                             "Unexpected Event type = %s", cur.getType()));
             }
 
-            final Plan nextPlan = (nextPlanName != null) ? catalog.findPlan(nextPlanName, cur.getEffectiveDate(), getAlignStartDate()) : null;
-            final PlanPhase nextPhase = (nextPlan != null && nextPhaseName != null) ? nextPlan.findPhase(nextPhaseName) : null;
-            final PriceList nextPriceList = (nextPlan != null) ? catalog.findPriceListForPlan(nextPlanName, cur.getEffectiveDate(), getAlignStartDate()) : null;
+            planNames[i] = nextPlanName;
+            phaseNames[i] = nextPlanName != null ? nextPhaseName : null;
+            effectiveDates[i] = cur.getEffectiveDate();
+            apiEventTypes[i] = apiEventType;
+            fromDisk[i] = isFromDisk;
+            states[i] = nextState;
+            billingCycleDayLocals[i] = nextBillingCycleDayLocal;
+            previousIndexes[i] = previousIndex;
+        }
+
+        final SubscriptionBaseTransitionCatalogObjects catalogObjects = transitionsCache != null ?
+                                                                        transitionsCache.getCatalogObjects(id, catalog, getAlignStartDate(), planNames, phaseNames, effectiveDates) :
+                                                                        new SubscriptionBaseTransitionCatalogObjects(catalog, getAlignStartDate(), planNames, phaseNames, effectiveDates);
 
-            final SubscriptionBaseTransitionData transition = new SubscriptionBaseTransitionData(
-                    cur.getId(), id, bundleId, bundleExternalKey, cur.getType(), apiEventType,
+        final UUID nextUserToken = null;
+        transitions = new LinkedList<SubscriptionBaseTransition>();
+        for (int i = 0; i < nbTransitions; i++) {
+            final SubscriptionBaseEvent cur = activeEvents.get(i);
+            final int previousIndex = previousIndexes[i];
+            final SubscriptionBaseEvent previousEvent = previousIndex >= 0 ? activeEvents.get(previousIndex) : null;
+
+            final SubscriptionBaseTransitionData transition = new CompactSubscriptionBaseTransitionData(
+                    cur.getId(), id, bundleId, bundleExternalKey, cur.getType(), apiEventTypes[i],
                     cur.getEffectiveDate(),
-                    prevEventId, prevCreatedDate,
-                    previousState, previousPlan, previousPhase,
-                    previousPriceList,
-                    previousBillingCycleDayLocal,
-                    nextEventId, nextCreatedDate,
-                    nextState, nextPlan, nextPhase,
-                    nextPriceList,
-                    nextBillingCycleDayLocal,
+                    previousEvent != null ? previousEvent.getId() : null,
+                    previousEvent != null ? previousEvent.getCreatedDate() : null,
+                    previousIndex >= 0 ? states[previousIndex] : null,
+                    // Unlike the other previous values, the BCD is not reset by a CREATE / TRANSFER
+                    i > 0 ? billingCycleDayLocals[i - 1] : null,
+                    cur.getId(), cur.getCreatedDate(),
+                    states[i],
+                    billingCycleDayLocals[i],
                     cur.getTotalOrdering(),
                     cur.getCreatedDate(),
                     nextUserToken,
-                    isFromDisk);
+                    fromDisk[i],
+                    catalogObjects,
+                    previousIndex,
+                    i);
 
             transitions.add(transition);
-
-            previousState = nextState;
-            previousPlan = nextPlan;
-            previousPhase = nextPhase;
-            previousPriceList = nextPriceList;
-            prevEventId = nextEventId;
-            prevCreatedDate = nextCreatedDate;
-            previousBillingCycleDayLocal = nextBillingCycleDayLocal;
-
         }
     }
 
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2014-2019 Groupon, Inc
+ * Copyright 2014-2019 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.subscription.api.user;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.killbill.billing.subscription.api.SubscriptionBase;
+import org.killbill.billing.subscription.api.SubscriptionBaseAccountGraph;
+
+public class DefaultSubscriptionBaseAccountGraph implements SubscriptionBaseAccountGraph {
+
+    private final List<SubscriptionBaseBundle> bundles;
+    private final Map<UUID, List<SubscriptionBase>> subscriptionsByBundleId;
+
+    public DefaultSubscriptionBaseAccountGraph(final List<SubscriptionBaseBundle> bundles, final Map<UUID, List<SubscriptionBase>> subscriptionsByBundleId) {
+        this.bundles = bundles;
+        this.subscriptionsByBundleId = subscriptionsByBundleId;
+    }
+
+    @Override
+    public List<SubscriptionBaseBundle> getBundles() {
+        return bundles;
+    }
+
+    @Override
+    public Map<UUID, List<SubscriptionBase>> getSubscriptionsByBundleId() {
+        return subscriptionsByBundleId;
+    }
+}
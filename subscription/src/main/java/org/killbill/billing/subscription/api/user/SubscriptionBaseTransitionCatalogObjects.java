@@ -0,0 +1,100 @@
+/*
+ * Copyright 2014-2019 Groupon, Inc
+ * Copyright 2014-2019 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.subscription.api.user;
+
+import java.util.Arrays;
+
+import org.joda.time.DateTime;
+import org.killbill.billing.catalog.api.Catalog;
+import org.killbill.billing.catalog.api.CatalogApiException;
+import org.killbill.billing.catalog.api.Plan;
+import org.killbill.billing.catalog.api.PlanPhase;
+import org.killbill.billing.catalog.api.PriceList;
+
+/**
+ * Compact form of the transitions of a subscription version: the plan and phase names of each transition,
+ * along with the matching catalog objects.
+ * <p/>
+ * The catalog objects are resolved once, when the instance is built, so that catalog errors surface as a
+ * CatalogApiException from rebuildTransitions. Instances are immutable and shared by the transitions of a
+ * subscription version, and across rebuilds of that version (see SubscriptionBaseTransitionsCache).
+ */
+public class SubscriptionBaseTransitionCatalogObjects {
+
+    private final Catalog catalog;
+    private final DateTime alignStartDate;
+    private final String[] planNames;
+    private final String[] phaseNames;
+    private final DateTime[] effectiveDates;
+    private final Plan[] plans;
+    private final PlanPhase[] phases;
+    private final PriceList[] priceLists;
+
+    public SubscriptionBaseTransitionCatalogObjects(final Catalog catalog,
+                                                    final DateTime alignStartDate,
+                                                    final String[] planNames,
+                                                    final String[] phaseNames,
+                                                    final DateTime[] effectiveDates) throws CatalogApiException {
+        this.catalog = catalog;
+        this.alignStartDate = alignStartDate;
+        this.planNames = planNames;
+        this.phaseNames = phaseNames;
+        this.effectiveDates = effectiveDates;
+        this.plans = new Plan[planNames.length];
+        this.phases = new PlanPhase[planNames.length];
+        this.priceLists = new PriceList[planNames.length];
+
+        for (int i = 0; i < planNames.length; i++) {
+            if (planNames[i] == null) {
+                continue;
+            }
+            plans[i] = catalog.findPlan(planNames[i], effectiveDates[i], alignStartDate);
+            priceLists[i] = catalog.findPriceListForPlan(planNames[i], effectiveDates[i], alignStartDate);
+            phases[i] = phaseNames[i] != null ? plans[i].findPhase(phaseNames[i]) : null;
+        }
+    }
+
+    // Whether these catalog objects can be re-used for that subscription version
+    public boolean matches(final Catalog otherCatalog,
+                           final DateTime otherAlignStartDate,
+                           final String[] otherPlanNames,
+                           final String[] otherPhaseNames,
+                           final DateTime[] otherEffectiveDates) {
+        return catalog == otherCatalog &&
+               (alignStartDate == null ? otherAlignStartDate == null : otherAlignStartDate != null && alignStartDate.compareTo(otherAlignStartDate) == 0) &&
+               Arrays.equals(planNames, otherPlanNames) &&
+               Arrays.equals(phaseNames, otherPhaseNames) &&
+               Arrays.equals(effectiveDates, otherEffectiveDates);
+    }
+
+    public int size() {
+        return planNames.length;
+    }
+
+    public Plan getPlan(final int index) {
+        return index < 0 ? null : plans[index];
+    }
+
+    public PlanPhase getPhase(final int index) {
+        return index < 0 ? null : phases[index];
+    }
+
+    public PriceList getPriceList(final int index) {
+        return index < 0 ? null : priceLists[index];
+    }
+}
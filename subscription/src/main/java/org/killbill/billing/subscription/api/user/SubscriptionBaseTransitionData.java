@@ -298,15 +298,15 @@ public class SubscriptionBaseTransitionData implements SubscriptionBaseTransitio
         sb.append(", eventType=").append(eventType);
         sb.append(", effectiveTransitionTime=").append(effectiveTransitionTime);
         sb.append(", previousState=").append(previousState);
-        sb.append(", previousPriceList=").append(previousPriceList);
+        sb.append(", previousPriceList=").append(getPreviousPriceList());
         sb.append(", previousBillingCycleDayLocal=").append(previousBillingCycleDayLocal);
-        sb.append(", previousPlan=").append(previousPlan);
-        sb.append(", previousPhase=").append(previousPhase);
+        sb.append(", previousPlan=").append(getPreviousPlan());
+        sb.append(", previousPhase=").append(getPreviousPhase());
         sb.append(", nextState=").append(nextState);
-        sb.append(", nextPriceList=").append(nextPriceList);
+        sb.append(", nextPriceList=").append(getNextPriceList());
         sb.append(", nextBillingCycleDayLocal=").append(nextBillingCycleDayLocal);
-        sb.append(", nextPlan=").append(nextPlan);
-        sb.append(", nextPhase=").append(nextPhase);
+        sb.append(", nextPlan=").append(getNextPlan());
+        sb.append(", nextPhase=").append(getNextPhase());
         sb.append(", isFromDisk=").append(isFromDisk);
         sb.append(", remainingEventsForUserOperation=").append(remainingEventsForUserOperation);
         sb.append(", userToken=").append(userToken);
@@ -314,12 +314,13 @@ public class SubscriptionBaseTransitionData implements SubscriptionBaseTransitio
         return sb.toString();
     }
 
+    // Catalog objects are derived from the persisted event (plan and phase names) and are not compared
     @Override
     public boolean equals(final Object o) {
         if (this == o) {
             return true;
         }
-        if (o == null || getClass() != o.getClass()) {
+        if (!(o instanceof SubscriptionBaseTransitionData)) {
             return false;
         }
 
@@ -346,30 +347,12 @@ public class SubscriptionBaseTransitionData implements SubscriptionBaseTransitio
         if (isFromDisk != null ? !isFromDisk.equals(that.isFromDisk) : that.isFromDisk != null) {
             return false;
         }
-        if (nextPhase != null ? !nextPhase.equals(that.nextPhase) : that.nextPhase != null) {
-            return false;
-        }
-        if (nextPlan != null ? !nextPlan.equals(that.nextPlan) : that.nextPlan != null) {
-            return false;
-        }
-        if (nextPriceList != null ? !nextPriceList.equals(that.nextPriceList) : that.nextPriceList != null) {
-            return false;
-        }
         if (nextBillingCycleDayLocal != null ? !nextBillingCycleDayLocal.equals(that.nextBillingCycleDayLocal) : that.nextBillingCycleDayLocal != null) {
             return false;
         }
         if (nextState != that.nextState) {
             return false;
         }
-        if (previousPhase != null ? !previousPhase.equals(that.previousPhase) : that.previousPhase != null) {
-            return false;
-        }
-        if (previousPlan != null ? !previousPlan.equals(that.previousPlan) : that.previousPlan != null) {
-            return false;
-        }
-        if (previousPriceList != null ? !previousPriceList.equals(that.previousPriceList) : that.previousPriceList != null) {
-            return false;
-        }
         if (previousBillingCycleDayLocal != null ? !previousBillingCycleDayLocal.equals(that.previousBillingCycleDayLocal) : that.previousBillingCycleDayLocal != null) {
             return false;
         }
@@ -402,15 +385,9 @@ public class SubscriptionBaseTransitionData implements SubscriptionBaseTransitio
         result = 31 * result + (apiEventType != null ? apiEventType.hashCode() : 0);
         result = 31 * result + (effectiveTransitionTime != null ? effectiveTransitionTime.hashCode() : 0);
         result = 31 * result + (previousState != null ? previousState.hashCode() : 0);
-        result = 31 * result + (previousPriceList != null ? previousPriceList.hashCode() : 0);
         result = 31 * result + (previousBillingCycleDayLocal != null ? previousBillingCycleDayLocal.hashCode() : 0);
-        result = 31 * result + (previousPlan != null ? previousPlan.hashCode() : 0);
-        result = 31 * result + (previousPhase != null ? previousPhase.hashCode() : 0);
         result = 31 * result + (nextState != null ? nextState.hashCode() : 0);
-        result = 31 * result + (nextPriceList != null ? nextPriceList.hashCode() : 0);
         result = 31 * result + (nextBillingCycleDayLocal != null ? nextBillingCycleDayLocal.hashCode() : 0);
-        result = 31 * result + (nextPlan != null ? nextPlan.hashCode() : 0);
-        result = 31 * result + (nextPhase != null ? nextPhase.hashCode() : 0);
         result = 31 * result + (isFromDisk != null ? isFromDisk.hashCode() : 0);
         result = 31 * result + (remainingEventsForUserOperation != null ? remainingEventsForUserOperation.hashCode() : 0);
         result = 31 * result + (userToken != null ? userToken.hashCode() : 0);
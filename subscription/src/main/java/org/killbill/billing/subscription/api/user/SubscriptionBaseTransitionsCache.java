@@ -0,0 +1,61 @@
+/*
+ * Copyright 2014-2019 Groupon, Inc
+ * Copyright 2014-2019 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.subscription.api.user;
+
+import java.util.UUID;
+
+import org.joda.time.DateTime;
+import org.killbill.billing.catalog.api.Catalog;
+import org.killbill.billing.catalog.api.CatalogApiException;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Bounded cache of the compact transitions of the latest version of each subscription, so that reloading
+ * a subscription whose events didn't change doesn't resolve the catalog objects again.
+ */
+public class SubscriptionBaseTransitionsCache {
+
+    private final Cache<UUID, SubscriptionBaseTransitionCatalogObjects> catalogObjectsPerSubscription;
+
+    public SubscriptionBaseTransitionsCache(final int maxSize) {
+        this.catalogObjectsPerSubscription = CacheBuilder.newBuilder().maximumSize(maxSize).<UUID, SubscriptionBaseTransitionCatalogObjects>build();
+    }
+
+    public SubscriptionBaseTransitionCatalogObjects getCatalogObjects(final UUID subscriptionId,
+                                                                      final Catalog catalog,
+                                                                      final DateTime alignStartDate,
+                                                                      final String[] planNames,
+                                                                      final String[] phaseNames,
+                                                                      final DateTime[] effectiveDates) throws CatalogApiException {
+        final SubscriptionBaseTransitionCatalogObjects cached = catalogObjectsPerSubscription.getIfPresent(subscriptionId);
+        if (cached != null && cached.matches(catalog, alignStartDate, planNames, phaseNames, effectiveDates)) {
+            return cached;
+        }
+
+        // New subscription version (or new catalog): replace the previous entry
+        final SubscriptionBaseTransitionCatalogObjects catalogObjects = new SubscriptionBaseTransitionCatalogObjects(catalog, alignStartDate, planNames, phaseNames, effectiveDates);
+        catalogObjectsPerSubscription.put(subscriptionId, catalogObjects);
+        return catalogObjects;
+    }
+
+    public long size() {
+        return catalogObjectsPerSubscription.size();
+    }
+}
@@ -29,6 +29,7 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
 import java.util.UUID;
 
@@ -40,8 +41,10 @@ import org.joda.time.DateTime;
 import org.killbill.billing.ErrorCode;
 import org.killbill.billing.callcontext.InternalCallContext;
 import org.killbill.billing.callcontext.InternalTenantContext;
+import org.killbill.billing.callcontext.RequestReadCache;
 import org.killbill.billing.catalog.api.Catalog;
 import org.killbill.billing.catalog.api.CatalogApiException;
+import org.killbill.billing.catalog.api.CatalogInternalApi;
 import org.killbill.billing.catalog.api.Plan;
 import org.killbill.billing.catalog.api.Product;
 import org.killbill.billing.catalog.api.ProductCategory;
@@ -50,6 +53,7 @@ import org.killbill.billing.entitlement.api.SubscriptionApiException;
 import org.killbill.billing.entity.EntityPersistenceException;
 import org.killbill.billing.platform.api.KillbillService.KILLBILL_SERVICES;
 import org.killbill.billing.subscription.api.SubscriptionBase;
+import org.killbill.billing.subscription.api.SubscriptionBaseAccountGraph;
 import org.killbill.billing.subscription.api.SubscriptionBaseTransitionType;
 import org.killbill.billing.subscription.api.SubscriptionBaseWithAddOns;
 import org.killbill.billing.subscription.api.svcs.DefaultSubscriptionInternalApi;
@@ -59,10 +63,12 @@ import org.killbill.billing.subscription.api.transfer.TransferCancelData;
 import org.killbill.billing.subscription.api.user.DefaultEffectiveSubscriptionEvent;
 import org.killbill.billing.subscription.api.user.DefaultRequestedSubscriptionEvent;
 import org.killbill.billing.subscription.api.user.DefaultSubscriptionBase;
+import org.killbill.billing.subscription.api.user.DefaultSubscriptionBaseAccountGraph;
 import org.killbill.billing.subscription.api.user.DefaultSubscriptionBaseBundle;
 import org.killbill.billing.subscription.api.user.SubscriptionBaseApiException;
 import org.killbill.billing.subscription.api.user.SubscriptionBaseBundle;
 import org.killbill.billing.subscription.api.user.SubscriptionBaseTransitionData;
+import org.killbill.billing.subscription.api.user.SubscriptionBaseTransitionsCache;
 import org.killbill.billing.subscription.api.user.SubscriptionBuilder;
 import org.killbill.billing.subscription.engine.addon.AddonUtils;
 import org.killbill.billing.subscription.engine.core.DefaultSubscriptionBaseService;
@@ -85,6 +91,7 @@ import org.killbill.billing.subscription.events.user.ApiEventType;
 import org.killbill.billing.subscription.exceptions.SubscriptionBaseError;
 import org.killbill.billing.util.cache.CacheControllerDispatcher;
 import org.killbill.billing.util.callcontext.InternalCallContextFactory;
+import org.killbill.billing.util.config.definition.SubscriptionConfig;
 import org.killbill.billing.util.dao.NonEntityDao;
 import org.killbill.billing.util.entity.Entity;
 import org.killbill.billing.util.entity.Pagination;
@@ -95,6 +102,7 @@ import org.killbill.billing.util.entity.dao.EntitySqlDao;
 import org.killbill.billing.util.entity.dao.EntitySqlDaoTransactionWrapper;
 import org.killbill.billing.util.entity.dao.EntitySqlDaoTransactionalJdbiWrapper;
 import org.killbill.billing.util.entity.dao.EntitySqlDaoWrapperFactory;
+import org.killbill.billing.util.metrics.BillingMetrics;
 import org.killbill.bus.api.BusEvent;
 import org.killbill.bus.api.PersistentBus;
 import org.killbill.bus.api.PersistentBus.EventBusException;
@@ -122,21 +130,28 @@ public class DefaultSubscriptionDao extends EntityDaoBase<SubscriptionBundleMode
 
     private static final Logger log = LoggerFactory.getLogger(DefaultSubscriptionDao.class);
 
+    private static final String ACCOUNT_GRAPH_REQUEST_CACHE = "SubscriptionAccountGraph";
+
     private final Clock clock;
     private final NotificationQueueService notificationQueueService;
     private final AddonUtils addonUtils;
     private final PersistentBus eventBus;
+    private final CatalogInternalApi catalogInternalApi;
+    private final SubscriptionBaseTransitionsCache transitionsCache;
 
     @Inject
     public DefaultSubscriptionDao(final IDBI dbi, @Named(MAIN_RO_IDBI_NAMED) final IDBI roDbi, final Clock clock, final AddonUtils addonUtils,
                                   final NotificationQueueService notificationQueueService, final PersistentBus eventBus,
                                   final CacheControllerDispatcher cacheControllerDispatcher, final NonEntityDao nonEntityDao,
-                                  final InternalCallContextFactory internalCallContextFactory) {
-        super(new EntitySqlDaoTransactionalJdbiWrapper(dbi, roDbi, clock, cacheControllerDispatcher, nonEntityDao, internalCallContextFactory), BundleSqlDao.class);
+                                  final InternalCallContextFactory internalCallContextFactory, final CatalogInternalApi catalogInternalApi,
+                                  final SubscriptionConfig subscriptionConfig, final BillingMetrics billingMetrics) {
+        super(new EntitySqlDaoTransactionalJdbiWrapper(dbi, roDbi, clock, cacheControllerDispatcher, nonEntityDao, internalCallContextFactory, billingMetrics), BundleSqlDao.class);
         this.clock = clock;
         this.notificationQueueService = notificationQueueService;
         this.addonUtils = addonUtils;
         this.eventBus = eventBus;
+        this.catalogInternalApi = catalogInternalApi;
+        this.transitionsCache = subscriptionConfig.getTransitionsCacheSize() > 0 ? new SubscriptionBaseTransitionsCache(subscriptionConfig.getTransitionsCacheSize()) : null;
     }
 
     @Override
@@ -400,63 +415,106 @@ public class DefaultSubscriptionDao extends EntityDaoBase<SubscriptionBundleMode
 
     @Override
     public Map<UUID, List<DefaultSubscriptionBase>> getSubscriptionsForAccount(final Catalog catalog, final InternalTenantContext context) throws CatalogApiException {
-        final Map<UUID, List<DefaultSubscriptionBase>> subscriptionsFromAccountId = getSubscriptionsFromAccountId(context);
-
-        final List<SubscriptionBaseEvent> eventsForAccount = getEventsForAccountId(context);
+        return buildSubscriptionsForAccount(getAccountGraphModels(context), catalog, context);
+    }
 
-        final Map<UUID, List<DefaultSubscriptionBase>> result = new HashMap<UUID, List<DefaultSubscriptionBase>>();
-        for (final UUID bundleId : subscriptionsFromAccountId.keySet()) {
+    @Override
+    public SubscriptionBaseAccountGraph getAccountGraph(final Catalog catalog, final InternalTenantContext context) throws CatalogApiException {
+        final AccountGraphModels accountGraphModels = getAccountGraphModels(context);
+        final Map<UUID, List<DefaultSubscriptionBase>> subscriptionsForAccount = buildSubscriptionsForAccount(accountGraphModels, catalog, context);
 
-            final List<DefaultSubscriptionBase> subscriptionsForBundle = subscriptionsFromAccountId.get(bundleId);
-            final Multimap<UUID, SubscriptionBaseEvent> eventsForSubscriptions = ArrayListMultimap.create();
+        final List<SubscriptionBaseBundle> bundles = new ArrayList<SubscriptionBaseBundle>(accountGraphModels.bundleModels.size());
+        for (final SubscriptionBundleModelDao bundleModel : accountGraphModels.bundleModels) {
+            bundles.add(SubscriptionBundleModelDao.toSubscriptionBundle(bundleModel));
+        }
+        final Map<UUID, List<SubscriptionBase>> subscriptionsByBundleId = new HashMap<UUID, List<SubscriptionBase>>();
+        for (final Entry<UUID, List<DefaultSubscriptionBase>> entry : subscriptionsForAccount.entrySet()) {
+            subscriptionsByBundleId.put(entry.getKey(), new ArrayList<SubscriptionBase>(entry.getValue()));
+        }
+        return new DefaultSubscriptionBaseAccountGraph(bundles, subscriptionsByBundleId);
+    }
 
-            for (final SubscriptionBase cur : subscriptionsForBundle) {
-                final Collection<SubscriptionBaseEvent> events = Collections2.filter(eventsForAccount, new Predicate<SubscriptionBaseEvent>() {
-                    @Override
-                    public boolean apply(final SubscriptionBaseEvent input) {
-                        return input.getSubscriptionId().equals(cur.getId());
+    private Map<UUID, List<DefaultSubscriptionBase>> buildSubscriptionsForAccount(final AccountGraphModels accountGraphModels, final Catalog catalog, final InternalTenantContext context) throws CatalogApiException {
+        // Hash indexes on the parent ids, to join the three sets in linear time
+        final Map<UUID, SubscriptionBundleModelDao> bundlesById = new HashMap<UUID, SubscriptionBundleModelDao>();
+        for (final SubscriptionBundleModelDao bundleModel : accountGraphModels.bundleModels) {
+            bundlesById.put(bundleModel.getId(), bundleModel);
+        }
+        final Multimap<UUID, SubscriptionBaseEvent> eventsForSubscriptions = ArrayListMultimap.create();
+        for (final SubscriptionBaseEvent event : accountGraphModels.events) {
+            eventsForSubscriptions.put(event.getSubscriptionId(), event);
+        }
 
-                    }
-                });
-                eventsForSubscriptions.putAll(cur.getId(), ImmutableList.copyOf(events));
+        final Map<UUID, List<DefaultSubscriptionBase>> subscriptionsFromAccountId = new HashMap<UUID, List<DefaultSubscriptionBase>>();
+        for (final SubscriptionModelDao subscriptionModel : accountGraphModels.subscriptionModels) {
+            final SubscriptionBundleModelDao bundleModel = bundlesById.get(subscriptionModel.getBundleId());
+            if (subscriptionsFromAccountId.get(subscriptionModel.getBundleId()) == null) {
+                subscriptionsFromAccountId.put(subscriptionModel.getBundleId(), new LinkedList<DefaultSubscriptionBase>());
             }
+            subscriptionsFromAccountId.get(subscriptionModel.getBundleId()).add(SubscriptionModelDao.toSubscription(subscriptionModel, bundleModel.getExternalKey()));
+        }
+
+        // Load all the overridden plans used by the account at once, instead of one at a time when building the subscriptions
+        catalogInternalApi.preloadOverriddenPlans(getEventPlanNames(accountGraphModels.events), context);
 
-            result.put(bundleId, buildBundleSubscriptions(subscriptionsForBundle, eventsForSubscriptions, null, catalog, context));
+        final Map<UUID, List<DefaultSubscriptionBase>> result = new HashMap<UUID, List<DefaultSubscriptionBase>>();
+        for (final Entry<UUID, List<DefaultSubscriptionBase>> entry : subscriptionsFromAccountId.entrySet()) {
+            result.put(entry.getKey(), buildBundleSubscriptions(entry.getValue(), eventsForSubscriptions, null, catalog, context));
         }
         return result;
     }
 
-    private Map<UUID, List<DefaultSubscriptionBase>> getSubscriptionsFromAccountId(final InternalTenantContext context) {
-        final List<DefaultSubscriptionBase> allSubscriptions = transactionalSqlDao.execute(true, new EntitySqlDaoTransactionWrapper<List<DefaultSubscriptionBase>>() {
-            @Override
-            public List<DefaultSubscriptionBase> inTransaction(final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory) throws Exception {
+    // Retrieve the bundles, subscriptions and events of the account in a single transaction
+    private AccountGraphModels getAccountGraphModels(final InternalTenantContext context) {
+        // The rows are shared for the duration of the request (the subscriptions themselves are rebuilt for each caller)
+        final RequestReadCache requestReadCache = context.getRequestReadCache();
+        if (requestReadCache != null) {
+            final AccountGraphModels cached = requestReadCache.get(ACCOUNT_GRAPH_REQUEST_CACHE, context, null);
+            if (cached != null) {
+                return cached;
+            }
+        }
 
-                final List<SubscriptionBundleModelDao> bundleModels = entitySqlDaoWrapperFactory.become(BundleSqlDao.class).getByAccountRecordId(context);
+        final AccountGraphModels accountGraphModels = getAccountGraphModelsFromDisk(context);
+        if (requestReadCache != null) {
+            requestReadCache.put(ACCOUNT_GRAPH_REQUEST_CACHE, context, null, accountGraphModels);
+        }
+        return accountGraphModels;
+    }
 
+    private AccountGraphModels getAccountGraphModelsFromDisk(final InternalTenantContext context) {
+        return transactionalSqlDao.execute(true, new EntitySqlDaoTransactionWrapper<AccountGraphModels>() {
+            @Override
+            public AccountGraphModels inTransaction(final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory) throws Exception {
+                final List<SubscriptionBundleModelDao> bundleModels = entitySqlDaoWrapperFactory.become(BundleSqlDao.class).getByAccountRecordId(context);
                 final List<SubscriptionModelDao> subscriptionModels = entitySqlDaoWrapperFactory.become(SubscriptionSqlDao.class).getByAccountRecordId(context);
-                return new ArrayList<DefaultSubscriptionBase>(Collections2.transform(subscriptionModels, new Function<SubscriptionModelDao, DefaultSubscriptionBase>() {
-                    @Override
-                    public DefaultSubscriptionBase apply(final SubscriptionModelDao input) {
-                        final SubscriptionBundleModelDao bundleModel = Iterables.find(bundleModels, new Predicate<SubscriptionBundleModelDao>() {
-                            @Override
-                            public boolean apply(final SubscriptionBundleModelDao bundleInput) {
-                                return bundleInput.getId().equals(input.getBundleId());
-                            }
-                        });
-                        return SubscriptionModelDao.toSubscription(input, bundleModel.getExternalKey());
-                    }
-                }));
+                final List<SubscriptionEventModelDao> eventModels = entitySqlDaoWrapperFactory.become(SubscriptionEventSqlDao.class).getByAccountRecordId(context);
+                return new AccountGraphModels(bundleModels, subscriptionModels, filterSubscriptionBaseEvents(eventModels));
             }
         });
+    }
 
-        final Map<UUID, List<DefaultSubscriptionBase>> result = new HashMap<UUID, List<DefaultSubscriptionBase>>();
-        for (final DefaultSubscriptionBase subscriptionBase : allSubscriptions) {
-            if (result.get(subscriptionBase.getBundleId()) == null) {
-                result.put(subscriptionBase.getBundleId(), new LinkedList<DefaultSubscriptionBase>());
+    private static final class AccountGraphModels {
+
+        private final List<SubscriptionBundleModelDao> bundleModels;
+        private final List<SubscriptionModelDao> subscriptionModels;
+        private final List<SubscriptionBaseEvent> events;
+
+        private AccountGraphModels(final List<SubscriptionBundleModelDao> bundleModels, final List<SubscriptionModelDao> subscriptionModels, final List<SubscriptionBaseEvent> events) {
+            this.bundleModels = ImmutableList.<SubscriptionBundleModelDao>copyOf(bundleModels);
+            this.subscriptionModels = ImmutableList.<SubscriptionModelDao>copyOf(subscriptionModels);
+            this.events = ImmutableList.<SubscriptionBaseEvent>copyOf(events);
+        }
+    }
+
+    private Set<String> getEventPlanNames(final Iterable<SubscriptionBaseEvent> events) {
+        final Set<String> planNames = new HashSet<String>();
+        for (final SubscriptionBaseEvent event : events) {
+            if (event instanceof ApiEvent && ((ApiEvent) event).getEventPlan() != null) {
+                planNames.add(((ApiEvent) event).getEventPlan());
             }
-            result.get(subscriptionBase.getBundleId()).add(subscriptionBase);
         }
-        return result;
+        return planNames;
     }
 
     @Override
@@ -755,16 +813,6 @@ public class DefaultSubscriptionDao extends EntityDaoBase<SubscriptionBundleMode
         }));
     }
 
-    private List<SubscriptionBaseEvent> getEventsForAccountId(final InternalTenantContext context) {
-        return transactionalSqlDao.execute(true, new EntitySqlDaoTransactionWrapper<List<SubscriptionBaseEvent>>() {
-            @Override
-            public List<SubscriptionBaseEvent> inTransaction(final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory) throws Exception {
-                final List<SubscriptionEventModelDao> models = entitySqlDaoWrapperFactory.become(SubscriptionEventSqlDao.class).getByAccountRecordId(context);
-                return filterSubscriptionBaseEvents(models);
-            }
-        });
-    }
-
     private void cancelSubscriptionFromTransaction(final DefaultSubscriptionBase subscription, final SubscriptionBaseEvent cancelEvent, final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory, final Catalog catalog, final InternalCallContext context, final int seqId)
             throws EntityPersistenceException {
         final UUID subscriptionId = subscription.getId();
@@ -1057,7 +1105,7 @@ public class DefaultSubscriptionDao extends EntityDaoBase<SubscriptionBundleMode
         final DefaultSubscriptionBase result = new DefaultSubscriptionBase(new SubscriptionBuilder(((DefaultSubscriptionBase) shellSubscription)), null, clock);
 
         if (!events.isEmpty()) {
-            result.rebuildTransitions(events, catalog);
+            result.rebuildTransitions(events, catalog, transitionsCache);
         }
         return result;
     }
@@ -1098,7 +1146,7 @@ public class DefaultSubscriptionDao extends EntityDaoBase<SubscriptionBundleMode
         try {
             // We need to rehydrate the subscription, as some events might have been canceled on disk (e.g. future PHASE after while doing a change plan)
             final List<SubscriptionBaseEvent> activeSubscriptionEvents = getEventsForSubscriptionInTransaction(entitySqlDaoWrapperFactory, subscription.getId(), context);
-            subscription.rebuildTransitions(activeSubscriptionEvents, catalog);
+            subscription.rebuildTransitions(activeSubscriptionEvents, catalog, transitionsCache);
             notifyBusOfEffectiveImmediateChange(entitySqlDaoWrapperFactory, subscription, immediateEvent, seqId, context);
         } catch (final CatalogApiException e) {
             log.warn("Failed to post effective event for subscriptionId='{}'", subscription.getId(), e);
@@ -23,9 +23,12 @@ import java.util.UUID;
 
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
+import org.killbill.billing.catalog.api.CatalogApiException;
 import org.killbill.billing.entitlement.api.Entitlement.EntitlementState;
 import org.killbill.billing.subscription.SubscriptionTestSuiteNoDB;
 import org.killbill.billing.subscription.events.SubscriptionBaseEvent;
+import org.killbill.billing.subscription.events.bcd.BCDEventBuilder;
+import org.killbill.billing.subscription.events.bcd.BCDEventData;
 import org.killbill.billing.subscription.events.phase.PhaseEventBuilder;
 import org.killbill.billing.subscription.events.phase.PhaseEventData;
 import org.killbill.billing.subscription.events.user.ApiEventBuilder;
@@ -130,4 +133,152 @@ public class TestDefaultSubscriptionBase extends SubscriptionTestSuiteNoDB {
         Assert.assertEquals(subscriptionBase.getAllTransitions().get(1).getNextState(), EntitlementState.CANCELLED);
         Assert.assertEquals(subscriptionBase.getAllTransitions().get(1).getEffectiveTransitionTime(), new DateTime(2012, 6, 1, 0, 0, DateTimeZone.UTC));
     }
+
+    @Test(groups = "fast")
+    public void testCompactTransitionsWithLongHistory() throws Exception {
+        final DateTime startDate = new DateTime(2012, 5, 1, 0, 0, DateTimeZone.UTC);
+        final DefaultSubscriptionBase subscriptionBase = new DefaultSubscriptionBase(new SubscriptionBuilder().setAlignStartDate(startDate));
+        final List<SubscriptionBaseEvent> inputEvents = createLongHistory(UUID.randomUUID(), startDate, 120);
+
+        final SubscriptionBaseTransitionsCache transitionsCache = new SubscriptionBaseTransitionsCache(10);
+        subscriptionBase.rebuildTransitions(inputEvents, catalog, transitionsCache);
+
+        final List<SubscriptionBaseTransition> transitions = subscriptionBase.getAllTransitions();
+        Assert.assertEquals(transitions.size(), 122);
+        final SubscriptionBaseTransitionCatalogObjects catalogObjects = getCatalogObjects(transitions.get(0));
+        Assert.assertEquals(catalogObjects.size(), 122);
+
+        Assert.assertEquals(transitions.get(0).getNextPhase().getName(), "laser-scope-monthly-discount");
+        Assert.assertEquals(transitions.get(121).getNextPlan().getName(), "laser-scope-monthly");
+        Assert.assertEquals(transitions.get(121).getNextPhase().getName(), "laser-scope-monthly-evergreen");
+        Assert.assertEquals(transitions.get(121).getPreviousBillingCycleDayLocal(), (Integer) 7);
+        Assert.assertEquals(transitions.get(121).getNextBillingCycleDayLocal(), (Integer) 8);
+
+        // Materialized transitions are identical, and the catalog objects are shared by all transitions
+        for (final SubscriptionBaseTransition transition : transitions) {
+            Assert.assertSame(getCatalogObjects(transition), catalogObjects);
+            final SubscriptionBaseTransitionData materialized = new SubscriptionBaseTransitionData((SubscriptionBaseTransitionData) transition, 0);
+            Assert.assertEquals(materialized, transition);
+            Assert.assertEquals(materialized.hashCode(), transition.hashCode());
+            Assert.assertEquals(materialized.getNextPlan(), transition.getNextPlan());
+            Assert.assertEquals(materialized.getPreviousPhase(), transition.getPreviousPhase());
+        }
+
+        // Same subscription version: the resolved catalog objects are re-used
+        final DefaultSubscriptionBase reloadedSubscriptionBase = new DefaultSubscriptionBase(new SubscriptionBuilder().setAlignStartDate(startDate));
+        reloadedSubscriptionBase.rebuildTransitions(createLongHistory(inputEvents.get(0).getSubscriptionId(), startDate, 120), catalog, transitionsCache);
+        Assert.assertSame(getCatalogObjects(reloadedSubscriptionBase.getAllTransitions().get(0)), catalogObjects);
+
+        // New subscription version
+        reloadedSubscriptionBase.rebuildTransitions(createLongHistory(inputEvents.get(0).getSubscriptionId(), startDate, 121), catalog, transitionsCache);
+        Assert.assertNotSame(getCatalogObjects(reloadedSubscriptionBase.getAllTransitions().get(0)), catalogObjects);
+        Assert.assertEquals(transitionsCache.size(), 1);
+    }
+
+    @Test(groups = "fast")
+    public void testRebuildTransitionsWithUnknownPlan() throws Exception {
+        final DateTime startDate = new DateTime(2012, 5, 1, 0, 0, DateTimeZone.UTC);
+        final DefaultSubscriptionBase subscriptionBase = new DefaultSubscriptionBase(new SubscriptionBuilder().setAlignStartDate(startDate));
+        final UUID subscriptionId = UUID.randomUUID();
+        final List<SubscriptionBaseEvent> inputEvents = new LinkedList<SubscriptionBaseEvent>();
+        inputEvents.add(new ApiEventCreate(new ApiEventBuilder().setApiEventType(CREATE)
+                                                                .setEventPlan("unknown-plan-monthly")
+                                                                .setEventPlanPhase("unknown-plan-monthly-evergreen")
+                                                                .setEventPriceList("DEFAULT")
+                                                                .setFromDisk(true)
+                                                                .setUuid(UUID.randomUUID())
+                                                                .setSubscriptionId(subscriptionId)
+                                                                .setCreatedDate(startDate)
+                                                                .setUpdatedDate(startDate)
+                                                                .setEffectiveDate(startDate)
+                                                                .setTotalOrdering(1)
+                                                                .setActive(true)));
+
+        // Catalog errors are reported when rebuilding the transitions, not when accessing them
+        try {
+            subscriptionBase.rebuildTransitions(inputEvents, catalog, new SubscriptionBaseTransitionsCache(10));
+            Assert.fail("Plan shouldn't have been found");
+        } catch (final CatalogApiException e) {
+            Assert.assertTrue(subscriptionBase.getAllTransitions().isEmpty());
+        }
+    }
+
+    @Test(groups = "external", enabled = false, description = "Benchmark of the transitions rebuild for subscriptions with long event histories")
+    public void benchmarkRebuildTransitionsWithLongHistory() throws Exception {
+        // Convenience method to measure the rebuild time, run it manually
+        final int nbSubscriptions = 100;
+        final int nbMonths = 240;
+        final DateTime startDate = new DateTime(2000, 5, 1, 0, 0, DateTimeZone.UTC);
+
+        final List<UUID> subscriptionIds = new LinkedList<UUID>();
+        for (int i = 0; i < nbSubscriptions; i++) {
+            subscriptionIds.add(UUID.randomUUID());
+        }
+
+        final SubscriptionBaseTransitionsCache transitionsCache = new SubscriptionBaseTransitionsCache(nbSubscriptions);
+        for (int run = 0; run < 3; run++) {
+            // No cache: all catalog objects resolved on each rebuild
+            long ini = System.nanoTime();
+            for (final UUID subscriptionId : subscriptionIds) {
+                final DefaultSubscriptionBase subscriptionBase = new DefaultSubscriptionBase(new SubscriptionBuilder().setAlignStartDate(startDate));
+                subscriptionBase.rebuildTransitions(createLongHistory(subscriptionId, startDate, nbMonths), catalog);
+                Assert.assertEquals(subscriptionBase.getAllTransitions().size(), nbMonths + 2);
+            }
+            final long uncachedNanos = System.nanoTime() - ini;
+
+            // Reload of unchanged subscriptions: catalog objects are re-used (resolved during the first run only)
+            ini = System.nanoTime();
+            for (final UUID subscriptionId : subscriptionIds) {
+                final DefaultSubscriptionBase subscriptionBase = new DefaultSubscriptionBase(new SubscriptionBuilder().setAlignStartDate(startDate));
+                subscriptionBase.rebuildTransitions(createLongHistory(subscriptionId, startDate, nbMonths), catalog, transitionsCache);
+                Assert.assertEquals(subscriptionBase.getAllTransitions().size(), nbMonths + 2);
+                Assert.assertEquals(subscriptionBase.getLastTransitionForCurrentPlan().getNextPhase().getName(), "laser-scope-monthly-evergreen");
+            }
+            final long cachedNanos = System.nanoTime() - ini;
+
+            log.info("Rebuilt {} subscriptions with {} events: uncached={}ms, cached={}ms",
+                     nbSubscriptions, nbMonths + 2, uncachedNanos / 1000000, cachedNanos / 1000000);
+        }
+        Assert.assertEquals(transitionsCache.size(), nbSubscriptions);
+    }
+
+    private SubscriptionBaseTransitionCatalogObjects getCatalogObjects(final SubscriptionBaseTransition transition) {
+        return ((CompactSubscriptionBaseTransitionData) transition).getCatalogObjects();
+    }
+
+    // CREATE, PHASE and monthly BCD_UPDATE events
+    private List<SubscriptionBaseEvent> createLongHistory(final UUID subscriptionId, final DateTime startDate, final int nbMonths) {
+        final List<SubscriptionBaseEvent> inputEvents = new LinkedList<SubscriptionBaseEvent>();
+        inputEvents.add(new ApiEventCreate(new ApiEventBuilder().setApiEventType(CREATE)
+                                                                .setEventPlan("laser-scope-monthly")
+                                                                .setEventPlanPhase("laser-scope-monthly-discount")
+                                                                .setEventPriceList("DEFAULT")
+                                                                .setFromDisk(true)
+                                                                .setUuid(new UUID(subscriptionId.getMostSignificantBits(), 0))
+                                                                .setSubscriptionId(subscriptionId)
+                                                                .setCreatedDate(startDate)
+                                                                .setUpdatedDate(startDate)
+                                                                .setEffectiveDate(startDate)
+                                                                .setTotalOrdering(1)
+                                                                .setActive(true)));
+        inputEvents.add(new PhaseEventData(new PhaseEventBuilder().setPhaseName("laser-scope-monthly-evergreen")
+                                                                  .setUuid(new UUID(subscriptionId.getMostSignificantBits(), 1))
+                                                                  .setSubscriptionId(subscriptionId)
+                                                                  .setCreatedDate(startDate)
+                                                                  .setUpdatedDate(startDate)
+                                                                  .setEffectiveDate(startDate.plusMonths(1))
+                                                                  .setTotalOrdering(2)
+                                                                  .setActive(true)));
+        for (int i = 0; i < nbMonths; i++) {
+            inputEvents.add(new BCDEventData(new BCDEventBuilder().setBillCycleDayLocal(i % 28 + 1)
+                                                                  .setUuid(new UUID(subscriptionId.getMostSignificantBits(), i + 2))
+                                                                  .setSubscriptionId(subscriptionId)
+                                                                  .setCreatedDate(startDate)
+                                                                  .setUpdatedDate(startDate)
+                                                                  .setEffectiveDate(startDate.plusMonths(1).plusDays(1).plusMonths(i))
+                                                                  .setTotalOrdering(i + 3)
+                                                                  .setActive(true)));
+        }
+        return inputEvents;
+    }
 }
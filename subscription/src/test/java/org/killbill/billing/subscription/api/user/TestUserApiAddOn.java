@@ -39,6 +39,8 @@ import org.killbill.billing.entitlement.api.Entitlement.EntitlementState;
 import org.killbill.billing.entitlement.api.EntitlementAOStatusDryRun;
 import org.killbill.billing.entitlement.api.EntitlementAOStatusDryRun.DryRunChangeReason;
 import org.killbill.billing.subscription.SubscriptionTestSuiteWithEmbeddedDB;
+import org.killbill.billing.subscription.api.SubscriptionBase;
+import org.killbill.billing.subscription.api.SubscriptionBaseAccountGraph;
 import org.killbill.billing.subscription.api.SubscriptionBaseTransitionType;
 import org.testng.annotations.Test;
 
@@ -76,6 +78,36 @@ public class TestUserApiAddOn extends SubscriptionTestSuiteWithEmbeddedDB {
         assertListenerStatus();
     }
 
+    @Test(groups = "slow")
+    public void testAccountGraph() throws SubscriptionBaseApiException {
+        final DefaultSubscriptionBase baseSubscription = testUtil.createSubscription(bundle, "Shotgun", BillingPeriod.ANNUAL, PriceListSet.DEFAULT_PRICELIST_NAME);
+        final DefaultSubscriptionBase aoSubscription = testUtil.createSubscription(bundle, "Telescopic-Scope", BillingPeriod.MONTHLY, PriceListSet.DEFAULT_PRICELIST_NAME);
+
+        final SubscriptionBaseBundle otherBundle = subscriptionInternalApi.createBundleForAccount(bundle.getAccountId(), "other-bundle", false, internalCallContext);
+        final DefaultSubscriptionBase otherSubscription = testUtil.createSubscription(otherBundle, "Pistol", BillingPeriod.MONTHLY, PriceListSet.DEFAULT_PRICELIST_NAME);
+
+        final SubscriptionBaseAccountGraph accountGraph = subscriptionInternalApi.getAccountGraph(catalog, internalCallContext);
+        assertEquals(accountGraph.getBundles().size(), 2);
+        assertEquals(accountGraph.getBundles().get(0).getId(), bundle.getId());
+        assertEquals(accountGraph.getBundles().get(1).getId(), otherBundle.getId());
+
+        assertEquals(accountGraph.getSubscriptionsByBundleId().size(), 2);
+        final List<SubscriptionBase> bundleSubscriptions = accountGraph.getSubscriptionsByBundleId().get(bundle.getId());
+        assertEquals(bundleSubscriptions.size(), 2);
+        // Base plan first
+        assertEquals(bundleSubscriptions.get(0).getId(), baseSubscription.getId());
+        assertEquals(bundleSubscriptions.get(1).getId(), aoSubscription.getId());
+        assertEquals(bundleSubscriptions.get(1).getCurrentPlan().getName(), aoSubscription.getCurrentPlan().getName());
+        assertEquals(bundleSubscriptions.get(1).getAllTransitions().size(), aoSubscription.getAllTransitions().size());
+
+        final List<SubscriptionBase> otherBundleSubscriptions = accountGraph.getSubscriptionsByBundleId().get(otherBundle.getId());
+        assertEquals(otherBundleSubscriptions.size(), 1);
+        assertEquals(otherBundleSubscriptions.get(0).getId(), otherSubscription.getId());
+        assertEquals(((DefaultSubscriptionBase) otherBundleSubscriptions.get(0)).getBundleExternalKey(), otherBundle.getExternalKey());
+
+        assertListenerStatus();
+    }
+
     @Test(groups = "slow")
     public void testCreateCancelAddonAndThenBP() throws SubscriptionBaseApiException {
         final String baseProduct = "Shotgun";
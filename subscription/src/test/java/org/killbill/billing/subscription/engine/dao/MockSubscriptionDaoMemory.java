@@ -40,11 +40,13 @@ import org.killbill.billing.dao.MockNonEntityDao;
 import org.killbill.billing.entitlement.api.SubscriptionApiException;
 import org.killbill.billing.platform.api.KillbillService.KILLBILL_SERVICES;
 import org.killbill.billing.subscription.api.SubscriptionBase;
+import org.killbill.billing.subscription.api.SubscriptionBaseAccountGraph;
 import org.killbill.billing.subscription.api.SubscriptionBaseWithAddOns;
 import org.killbill.billing.subscription.api.transfer.BundleTransferData;
 import org.killbill.billing.subscription.api.transfer.TransferCancelData;
 import org.killbill.billing.subscription.api.user.DefaultEffectiveSubscriptionEvent;
 import org.killbill.billing.subscription.api.user.DefaultSubscriptionBase;
+import org.killbill.billing.subscription.api.user.DefaultSubscriptionBaseAccountGraph;
 import org.killbill.billing.subscription.api.user.DefaultSubscriptionBaseBundle;
 import org.killbill.billing.subscription.api.user.SubscriptionBaseBundle;
 import org.killbill.billing.subscription.api.user.SubscriptionBaseTransitionData;
@@ -252,6 +254,15 @@ public class MockSubscriptionDaoMemory extends MockEntityDaoBase<SubscriptionBun
         return results;
     }
 
+    @Override
+    public SubscriptionBaseAccountGraph getAccountGraph(final Catalog catalog, final InternalTenantContext context) {
+        final Map<UUID, List<SubscriptionBase>> subscriptionsByBundleId = new HashMap<UUID, List<SubscriptionBase>>();
+        for (final Map.Entry<UUID, List<DefaultSubscriptionBase>> entry : getSubscriptionsForAccount(catalog, context).entrySet()) {
+            subscriptionsByBundleId.put(entry.getKey(), new ArrayList<SubscriptionBase>(entry.getValue()));
+        }
+        return new DefaultSubscriptionBaseAccountGraph(new ArrayList<SubscriptionBaseBundle>(bundles), subscriptionsByBundleId);
+    }
+
     @Override
     public List<SubscriptionBaseEvent> getEventsForSubscription(final UUID subscriptionId, final InternalTenantContext context) {
         synchronized (events) {
@@ -41,6 +41,7 @@ import org.killbill.billing.subscription.events.user.ApiEventBuilder;
 import org.killbill.billing.subscription.events.user.ApiEventCreate;
 import org.killbill.billing.util.UUIDs;
 import org.killbill.billing.util.entity.dao.DBRouterUntyped;
+import org.killbill.billing.util.metrics.BillingMetrics;
 import org.killbill.commons.profiling.Profiling.WithProfilingCallback;
 import org.mockito.Mockito;
 import org.skife.jdbi.v2.IDBI;
@@ -197,7 +198,10 @@ public class TestSubscriptionDao extends SubscriptionTestSuiteWithEmbeddedDB {
                                                                            bus,
                                                                            controlCacheDispatcher,
                                                                            nonEntityDao,
-                                                                           internalCallContextFactory);
+                                                                           internalCallContextFactory,
+                                                                           catalogInternalApi,
+                                                                           config,
+                                                                           new BillingMetrics());
         Mockito.verify(dbiSpy, Mockito.times(0)).open();
         Mockito.verify(roDbiSpy, Mockito.times(0)).open();
 
@@ -16,12 +16,14 @@
 
 package org.killbill.billing.util.audit.api;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
 import javax.inject.Inject;
 
 import org.killbill.billing.ObjectType;
+import org.killbill.billing.callcontext.InternalTenantContext;
 import org.killbill.billing.util.api.AuditLevel;
 import org.killbill.billing.util.api.AuditUserApi;
 import org.killbill.billing.util.audit.AccountAuditLogs;
@@ -35,8 +37,9 @@ import org.killbill.billing.util.callcontext.TenantContext;
 import org.killbill.billing.util.dao.TableName;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Multimap;
 
-public class DefaultAuditUserApi implements AuditUserApi {
+public class DefaultAuditUserApi implements AuditUserApi, TargetedAuditUserApi {
 
     private final AuditDao auditDao;
     private final InternalCallContextFactory internalCallContextFactory;
@@ -57,6 +60,27 @@ public class DefaultAuditUserApi implements AuditUserApi {
         return auditDao.getAuditLogsForAccountRecordId(auditLevel, internalCallContextFactory.createInternalTenantContext(accountId, tenantContext));
     }
 
+    @Override
+    public AccountAuditLogs getAccountAuditLogs(final UUID accountId, final Multimap<ObjectType, UUID> objectIds, final AuditLevel auditLevel, final TenantContext tenantContext) {
+        // Optimization - bail early
+        if (AuditLevel.NONE.equals(auditLevel) || objectIds.isEmpty()) {
+            return new DefaultAccountAuditLogs(accountId);
+        }
+
+        final InternalTenantContext internalTenantContext = internalCallContextFactory.createInternalTenantContextWithoutAccountRecordId(tenantContext);
+
+        // DefaultAccountAuditLogs expects the entries to be grouped by object type
+        final List<AuditLog> auditLogs = new ArrayList<AuditLog>();
+        for (final ObjectType objectType : objectIds.keySet()) {
+            final TableName tableName = getTableNameFromObjectType(objectType);
+            if (tableName != null) {
+                auditLogs.addAll(auditDao.getAuditLogsForIds(tableName, objectIds.get(objectType), auditLevel, internalTenantContext));
+            }
+        }
+
+        return new DefaultAccountAuditLogs(accountId, auditLevel, auditLogs.iterator());
+    }
+
     @Override
     public AccountAuditLogsForObjectType getAccountAuditLogs(final UUID accountId, final ObjectType objectType, final AuditLevel auditLevel, final TenantContext tenantContext) {
         // Optimization - bail early
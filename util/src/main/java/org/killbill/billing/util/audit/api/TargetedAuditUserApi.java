@@ -0,0 +1,42 @@
+/*
+ * Copyright 2014-2019 Groupon, Inc
+ * Copyright 2014-2019 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.audit.api;
+
+import java.util.UUID;
+
+import org.killbill.billing.ObjectType;
+import org.killbill.billing.util.api.AuditLevel;
+import org.killbill.billing.util.audit.AccountAuditLogs;
+import org.killbill.billing.util.callcontext.TenantContext;
+
+import com.google.common.collect.Multimap;
+
+public interface TargetedAuditUserApi {
+
+    /**
+     * Retrieve the audit logs of a subset of the objects of an account. Unlike AuditUserApi#getAccountAuditLogs,
+     * only the audit logs of the specified objects are looked-up (one query per object type).
+     *
+     * @param accountId   the account id
+     * @param objectIds   the ids of the objects to audit, per object type
+     * @param auditLevel  audit level (verbosity)
+     * @param context     the tenant context
+     * @return the audit logs for these objects, any other object of the account won't have any audit log
+     */
+    public AccountAuditLogs getAccountAuditLogs(UUID accountId, Multimap<ObjectType, UUID> objectIds, AuditLevel auditLevel, TenantContext context);
+}
@@ -16,6 +16,7 @@
 
 package org.killbill.billing.util.audit.dao;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -38,5 +39,8 @@ public interface AuditDao {
 
     public List<AuditLog> getAuditLogsForId(TableName tableName, UUID objectId, AuditLevel auditLevel, InternalTenantContext context);
 
+    // Only look-up the audit logs for the specified objects (instead of all the audit logs for the account)
+    public List<AuditLog> getAuditLogsForIds(TableName tableName, Collection<UUID> objectIds, AuditLevel auditLevel, InternalTenantContext context);
+
     List<AuditLogWithHistory> getAuditLogsWithHistoryForId(HistorySqlDao sqlDao, TableName tableName, UUID objectId, AuditLevel auditLevel, InternalTenantContext context);
 }
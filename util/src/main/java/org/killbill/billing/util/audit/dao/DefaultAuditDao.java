@@ -18,8 +18,11 @@
 
 package org.killbill.billing.util.audit.dao;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -50,10 +53,12 @@ import org.killbill.billing.util.entity.dao.EntitySqlDao;
 import org.killbill.billing.util.entity.dao.EntitySqlDaoTransactionWrapper;
 import org.killbill.billing.util.entity.dao.EntitySqlDaoTransactionalJdbiWrapper;
 import org.killbill.billing.util.entity.dao.EntitySqlDaoWrapperFactory;
+import org.killbill.billing.util.metrics.BillingMetrics;
 import org.killbill.clock.Clock;
 import org.skife.jdbi.v2.IDBI;
 
 import com.google.common.base.Function;
+import com.google.common.base.Functions;
 import com.google.common.collect.Collections2;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterators;
@@ -67,9 +72,10 @@ public class DefaultAuditDao implements AuditDao {
     private final EntitySqlDaoTransactionalJdbiWrapper transactionalSqlDao;
 
     @Inject
-    public DefaultAuditDao(final IDBI dbi, @Named(MAIN_RO_IDBI_NAMED) final IDBI roDbi, final Clock clock, final CacheControllerDispatcher cacheControllerDispatcher, final NonEntityDao nonEntityDao, final InternalCallContextFactory internalCallContextFactory) {
+    public DefaultAuditDao(final IDBI dbi, @Named(MAIN_RO_IDBI_NAMED) final IDBI roDbi, final Clock clock, final CacheControllerDispatcher cacheControllerDispatcher, final NonEntityDao nonEntityDao, final InternalCallContextFactory internalCallContextFactory,
+                           final BillingMetrics billingMetrics) {
         this.dbRouter = new DBRouter<NonEntitySqlDao>(dbi, roDbi, NonEntitySqlDao.class);
-        this.transactionalSqlDao = new EntitySqlDaoTransactionalJdbiWrapper(dbi, roDbi, clock, cacheControllerDispatcher, nonEntityDao, internalCallContextFactory);
+        this.transactionalSqlDao = new EntitySqlDaoTransactionalJdbiWrapper(dbi, roDbi, clock, cacheControllerDispatcher, nonEntityDao, internalCallContextFactory, billingMetrics);
     }
 
     @Override
@@ -180,6 +186,61 @@ public class DefaultAuditDao implements AuditDao {
         }
     }
 
+    @Override
+    public List<AuditLog> getAuditLogsForIds(final TableName tableName, final Collection<UUID> objectIds, final AuditLevel auditLevel, final InternalTenantContext context) {
+        if (objectIds.isEmpty() || AuditLevel.NONE.equals(auditLevel)) {
+            return ImmutableList.<AuditLog>of();
+        }
+
+        final Collection<String> ids = ImmutableList.<String>copyOf(Collections2.transform(objectIds, Functions.toStringFunction()));
+        final NonEntitySqlDao nonEntitySqlDao = dbRouter.onDemand(true);
+
+        // For tables with history, audit logs point to history record ids (e.g. ACCOUNT_HISTORY), otherwise to the record ids of the table itself
+        final String auditTableName;
+        final Map<Long, UUID> targetRecordIdToObjectId;
+        if (tableName.hasHistoryTable()) {
+            auditTableName = tableName.getHistoryTableName().name(); // upper cased
+            targetRecordIdToObjectId = RecordIdIdMappings.toMap(nonEntitySqlDao.getHistoryRecordIdIdMappingsForIds(tableName.getTableName(),
+                                                                                                                   tableName.getHistoryTableName().getTableName(),
+                                                                                                                   ids,
+                                                                                                                   context));
+        } else {
+            auditTableName = tableName.name();
+            targetRecordIdToObjectId = RecordIdIdMappings.toMap(nonEntitySqlDao.getRecordIdIdMappingsForIds(tableName.getTableName(),
+                                                                                                            ids,
+                                                                                                            context));
+        }
+
+        if (targetRecordIdToObjectId.isEmpty()) {
+            return ImmutableList.<AuditLog>of();
+        }
+
+        final List<AuditLogModelDao> auditLogModelDaos = transactionalSqlDao.execute(true, new EntitySqlDaoTransactionWrapper<List<AuditLogModelDao>>() {
+            @Override
+            public List<AuditLogModelDao> inTransaction(final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory) throws Exception {
+                return entitySqlDaoWrapperFactory.become(EntitySqlDao.class).getAuditLogsForTargetRecordIds(auditTableName,
+                                                                                                            targetRecordIdToObjectId.keySet(),
+                                                                                                            context);
+            }
+        });
+
+        // Group the entries per object (preserving the ordering of the query) to filter them as in getAuditLogsForId
+        final Map<UUID, List<AuditLog>> auditLogsPerObjectId = new LinkedHashMap<UUID, List<AuditLog>>();
+        for (final AuditLogModelDao auditLogModelDao : auditLogModelDaos) {
+            final UUID objectId = targetRecordIdToObjectId.get(auditLogModelDao.getTargetRecordId());
+            if (auditLogsPerObjectId.get(objectId) == null) {
+                auditLogsPerObjectId.put(objectId, new ArrayList<AuditLog>());
+            }
+            auditLogsPerObjectId.get(objectId).add(new DefaultAuditLog(auditLogModelDao, tableName.getObjectType(), objectId));
+        }
+
+        final List<AuditLog> auditLogs = new ArrayList<AuditLog>(auditLogModelDaos.size());
+        for (final List<AuditLog> auditLogsForObjectId : auditLogsPerObjectId.values()) {
+            auditLogs.addAll(filterAuditLogs(auditLevel, auditLogsForObjectId));
+        }
+        return auditLogs;
+    }
+
     @Override
     public List<AuditLogWithHistory> getAuditLogsWithHistoryForId(final HistorySqlDao transactional, final TableName tableName, final UUID objectId, final AuditLevel auditLevel, final InternalTenantContext context) {
         final TableName historyTableName = tableName.getHistoryTableName();
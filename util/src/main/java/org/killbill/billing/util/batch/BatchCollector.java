@@ -0,0 +1,161 @@
+/*
+ * Copyright 2014-2019 Groupon, Inc
+ * Copyright 2014-2019 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.batch;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nullable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Collects the items handed over by the bus dispatch threads into batches, each dispatch thread then waiting for the
+ * completion of its own item (see {@link BatchItem}): the bus event is only acknowledged once its item was processed,
+ * and failures are still retried by the bus.
+ * <p>
+ * A batch is dispatched by the thread filling it up, or by the flush executor once the maximum delay has elapsed. As each
+ * waiting dispatch thread holds a single item, a batch can't be larger than the number of bus threads (see {@link #getBatchSize}).
+ *
+ * @param <T> the items
+ */
+public class BatchCollector<T extends BatchItem> {
+
+    private static final Logger log = LoggerFactory.getLogger(BatchCollector.class);
+
+    public interface BatchDispatcher<T> {
+
+        // Called from a dispatch thread or from the flush executor: the items may be completed asynchronously
+        void dispatch(List<T> batch);
+    }
+
+    private final String name;
+    private final BatchDispatcher<T> dispatcher;
+
+    private final Object pendingItemsLock = new Object();
+
+    // Guarded by pendingItemsLock
+    private List<T> pendingItems = new LinkedList<T>();
+    private long batchGeneration = 0;
+
+    public BatchCollector(final String name, final BatchDispatcher<T> dispatcher) {
+        this.name = name;
+        this.dispatcher = dispatcher;
+    }
+
+    /**
+     * @param configuredBatchSize configured batch size, 0 to use the number of bus threads
+     * @param busThreadNb         number of bus dispatch threads handing items over
+     * @return the effective batch size, 1 meaning no batching
+     */
+    public static int getBatchSize(final int configuredBatchSize, final int busThreadNb) {
+        final int batchSize = configuredBatchSize <= 0 ? busThreadNb : Math.min(configuredBatchSize, busThreadNb);
+        return Math.max(1, batchSize);
+    }
+
+    // Returns once the item was added (and its batch dispatched, if full)
+    public void add(final T item, final int batchSize, final long maxDelayMillis, @Nullable final ScheduledExecutorService flushExecutor) {
+        if (batchSize <= 1) {
+            dispatch(ImmutableList.<T>of(item));
+            return;
+        }
+
+        List<T> fullBatch = null;
+        synchronized (pendingItemsLock) {
+            pendingItems.add(item);
+            if (pendingItems.size() >= batchSize || !scheduleFlushIfFirst(maxDelayMillis, flushExecutor)) {
+                fullBatch = drain();
+            }
+        }
+
+        if (fullBatch != null) {
+            dispatch(fullBatch);
+        }
+    }
+
+    // To be called on shutdown, so that nobody is left waiting
+    public List<T> drainPendingItems() {
+        synchronized (pendingItemsLock) {
+            return drain();
+        }
+    }
+
+    // Needs to be called with pendingItemsLock held, returns false if the flush couldn't be scheduled
+    private boolean scheduleFlushIfFirst(final long maxDelayMillis, @Nullable final ScheduledExecutorService flushExecutor) {
+        if (pendingItems.size() != 1) {
+            return true;
+        }
+        if (flushExecutor == null) {
+            return false;
+        }
+
+        final long generation = batchGeneration;
+        try {
+            flushExecutor.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    final List<T> batch;
+                    synchronized (pendingItemsLock) {
+                        if (generation != batchGeneration) {
+                            // Already dispatched (batch was full)
+                            return;
+                        }
+                        batch = drain();
+                    }
+                    dispatch(batch);
+                }
+            }, maxDelayMillis, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (final RejectedExecutionException e) {
+            log.warn("Unable to schedule {} batch, dispatching it right away", name, e);
+            return false;
+        }
+    }
+
+    // Needs to be called with pendingItemsLock held
+    private List<T> drain() {
+        final List<T> batch = pendingItems;
+        pendingItems = new LinkedList<T>();
+        batchGeneration++;
+        return batch;
+    }
+
+    private void dispatch(final List<T> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            dispatcher.dispatch(batch);
+        } catch (final RuntimeException e) {
+            log.warn("Failed to dispatch {} batch of {} items", name, batch.size(), e);
+            // Make sure nobody is left waiting
+            for (final T item : batch) {
+                if (!item.isCompleted()) {
+                    item.fail(e);
+                }
+            }
+        }
+    }
+}
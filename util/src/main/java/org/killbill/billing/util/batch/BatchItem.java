@@ -0,0 +1,49 @@
+/*
+ * Copyright 2014-2019 Groupon, Inc
+ * Copyright 2014-2019 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.batch;
+
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Item handed over to a {@link BatchCollector} by a bus dispatch thread, which then waits for its completion.
+ */
+public class BatchItem {
+
+    private final CountDownLatch completionLatch = new CountDownLatch(1);
+
+    private volatile Exception failure;
+
+    public void complete() {
+        completionLatch.countDown();
+    }
+
+    public void fail(final Exception e) {
+        failure = e;
+        completionLatch.countDown();
+    }
+
+    public boolean isCompleted() {
+        return completionLatch.getCount() == 0;
+    }
+
+    // Returns the failure (if any), for the dispatch thread to rethrow so that the bus event is retried
+    public Exception awaitCompletion() throws InterruptedException {
+        completionLatch.await();
+        return failure;
+    }
+}
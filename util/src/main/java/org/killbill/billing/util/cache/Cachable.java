@@ -50,6 +50,7 @@ public @interface Cachable {
     String OVERRIDDEN_PLAN_CACHE_NAME = "overridden-plan";
     String ACCOUNT_IMMUTABLE_CACHE_NAME = "account-immutable";
     String ACCOUNT_BCD_CACHE_NAME = "account-bcd";
+    String ACCOUNT_CONTROL_TAGS_CACHE_NAME = "account-control-tags";
     String ACCOUNT_ID_FROM_BUNDLE_ID_CACHE_NAME = "account-id-from-bundle-id";
     String BUNDLE_ID_FROM_SUBSCRIPTION_ID_CACHE_NAME = "bundle-id-from-subscription-id";
 
@@ -103,6 +104,9 @@ public @interface Cachable {
         /* Account BCD config cache */
         ACCOUNT_BCD(ACCOUNT_BCD_CACHE_NAME, UUID.class, Integer.class, false),
 
+        /* Mapping from 'accountRecordId (Long)' -> active control tags of the account and its objects 'List<TagModelDao>' */
+        ACCOUNT_CONTROL_TAGS(ACCOUNT_CONTROL_TAGS_CACHE_NAME, Long.class, List.class, false),
+
         /* Bundle id to Account id cache */
         ACCOUNT_ID_FROM_BUNDLE_ID(ACCOUNT_ID_FROM_BUNDLE_ID_CACHE_NAME, UUID.class, UUID.class, false),
 
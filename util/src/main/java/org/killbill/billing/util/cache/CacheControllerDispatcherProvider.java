@@ -28,6 +28,7 @@ import javax.inject.Inject;
 import javax.inject.Provider;
 
 import org.killbill.billing.util.cache.Cachable.CacheType;
+import org.killbill.billing.util.metrics.BillingMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -40,12 +41,15 @@ public class CacheControllerDispatcherProvider implements Provider<CacheControll
 
     private final CacheManager cacheManager;
     private final Set<BaseCacheLoader> cacheLoaders;
+    private final BillingMetrics billingMetrics;
 
     @Inject
     public CacheControllerDispatcherProvider(final CacheManager cacheManager,
-                                             final Set<BaseCacheLoader> cacheLoaders) {
+                                             final Set<BaseCacheLoader> cacheLoaders,
+                                             final BillingMetrics billingMetrics) {
         this.cacheManager = cacheManager;
         this.cacheLoaders = cacheLoaders;
+        this.billingMetrics = billingMetrics;
     }
 
     @Override
@@ -61,7 +65,7 @@ public class CacheControllerDispatcherProvider implements Provider<CacheControll
             }
             Preconditions.checkState(!cache.isClosed(), "Cache '%s' should not be closed", cacheType.getCacheName());
 
-            final CacheController<Object, Object> killBillCacheController = new KillBillCacheController<Object, Object>(cache, cacheLoader);
+            final CacheController<Object, Object> killBillCacheController = new KillBillCacheController<Object, Object>(cache, cacheLoader, billingMetrics);
             cacheControllers.put(cacheType, killBillCacheController);
         }
 
@@ -26,7 +26,10 @@ import javax.cache.Cache;
 import javax.cache.Cache.Entry;
 import javax.cache.CacheException;
 
+import javax.annotation.Nullable;
+
 import org.killbill.billing.util.cache.Cachable.CacheType;
+import org.killbill.billing.util.metrics.BillingMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -40,10 +43,20 @@ public class KillBillCacheController<K, V> implements CacheController<K, V> {
 
     private final Cache<K, V> cache;
     private final BaseCacheLoader<K, V> baseCacheLoader;
+    private final BillingMetrics billingMetrics;
+    private final String hitsMetricName;
+    private final String missesMetricName;
 
     public KillBillCacheController(final Cache<K, V> cache, final BaseCacheLoader<K, V> baseCacheLoader) {
+        this(cache, baseCacheLoader, null);
+    }
+
+    public KillBillCacheController(final Cache<K, V> cache, final BaseCacheLoader<K, V> baseCacheLoader, @Nullable final BillingMetrics billingMetrics) {
         this.cache = cache;
         this.baseCacheLoader = baseCacheLoader;
+        this.billingMetrics = billingMetrics;
+        this.hitsMetricName = "killbill.cache." + baseCacheLoader.getCacheType().getCacheName() + ".hits";
+        this.missesMetricName = "killbill.cache." + baseCacheLoader.getCacheType().getCacheName() + ".misses";
     }
 
     @Override
@@ -72,8 +85,10 @@ public class KillBillCacheController<K, V> implements CacheController<K, V> {
         V value;
         try {
             if (!isKeyInCache(key)) {
+                recordLookup(missesMetricName);
                 value = computeAndCacheValue(key, cacheLoaderArgument);
             } else {
+                recordLookup(hitsMetricName);
                 value = cache.get(key);
             }
         } catch (final CacheException e) {
@@ -129,6 +144,12 @@ public class KillBillCacheController<K, V> implements CacheController<K, V> {
         return baseCacheLoader.getCacheType();
     }
 
+    private void recordLookup(final String metricName) {
+        if (billingMetrics != null) {
+            billingMetrics.incrementCounter(metricName);
+        }
+    }
+
     private V computeAndCacheValue(final K key, final CacheLoaderArgument cacheLoaderArgument) {
         final V value = computeValue(key, cacheLoaderArgument);
         if (value == null) {
@@ -18,6 +18,11 @@
 
 package org.killbill.billing.util.callcontext;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.UUID;
 
 import javax.annotation.Nullable;
@@ -212,6 +217,42 @@ public class InternalCallContextFactory {
                                          context.getUpdatedDate());
     }
 
+    /**
+     * Create internal call callcontexts for many objects of the same type at once (e.g. bulk APIs), the tenant and account record ids
+     * being resolved using set-based queries
+     *
+     * @param objectIds  the ids of the rows in the table pointed by object type where to look for account_record_id
+     * @param objectType the object type pointed by these objectIds
+     * @param context    original call callcontext
+     * @return internal call callcontexts by object id (objects of the same account share the same internal call callcontext)
+     */
+    public Map<UUID, InternalCallContext> createInternalCallContexts(final Collection<UUID> objectIds, final ObjectType objectType, final CallContext context) {
+        final Long tenantRecordId = getTenantRecordIdSafe(context);
+        final Map<UUID, Long> accountRecordIds = getAccountRecordIdsSafe(objectIds, objectType, tenantRecordId);
+
+        final Map<Long, InternalCallContext> internalCallContextsByAccountRecordId = new HashMap<Long, InternalCallContext>();
+        final Map<UUID, InternalCallContext> internalCallContexts = new LinkedHashMap<UUID, InternalCallContext>();
+        for (final UUID objectId : objectIds) {
+            final Long accountRecordId = accountRecordIds.get(objectId);
+            InternalCallContext internalCallContext = internalCallContextsByAccountRecordId.get(accountRecordId);
+            if (internalCallContext == null) {
+                internalCallContext = createInternalCallContext(tenantRecordId,
+                                                                accountRecordId,
+                                                                context.getUserName(),
+                                                                context.getCallOrigin(),
+                                                                context.getUserType(),
+                                                                context.getUserToken(),
+                                                                context.getReasonCode(),
+                                                                context.getComments(),
+                                                                context.getCreatedDate(),
+                                                                context.getUpdatedDate());
+                internalCallContextsByAccountRecordId.put(accountRecordId, internalCallContext);
+            }
+            internalCallContexts.put(objectId, internalCallContext);
+        }
+        return internalCallContexts;
+    }
+
     // Used by the payment retry service
     public InternalCallContext createInternalCallContext(final UUID objectId, final ObjectType objectType, final String userName,
                                                          final CallOrigin callOrigin, final UserType userType, @Nullable final UUID userToken, final Long tenantRecordId) {
@@ -363,10 +404,37 @@ public class InternalCallContextFactory {
         }
     }
 
+    // Safe method to retrieve the record ids from many objects of the same type (objects which don't exist or belong to another tenant are ignored)
+    public Map<UUID, Long> getRecordIdsFromObjects(final Collection<UUID> objectIds, final ObjectType objectType, final TenantContext context) {
+        final Long realTenantRecordId = getTenantRecordIdSafe(context);
+        final Map<UUID, Long> tenantRecordIds = getTenantRecordIdsUnsafe(objectIds, objectType);
+
+        final Collection<UUID> objectIdsForTenant = new ArrayList<UUID>(objectIds.size());
+        for (final UUID objectId : objectIds) {
+            if (realTenantRecordId != null && realTenantRecordId.equals(tenantRecordIds.get(objectId))) {
+                objectIdsForTenant.add(objectId);
+            }
+        }
+        return nonEntityDao.retrieveRecordIdsFromObjects(objectIdsForTenant, objectType, recordIdCacheController);
+    }
+
     //
     // Safe NonEntityDao private wrappers
     //
 
+    private Map<UUID, Long> getAccountRecordIdsSafe(final Collection<UUID> objectIds, final ObjectType objectType, final Long tenantRecordId) throws ObjectDoesNotExist {
+        final Map<UUID, Long> tenantRecordIds = getTenantRecordIdsUnsafe(objectIds, objectType);
+        for (final UUID objectId : objectIds) {
+            final Long objectTenantRecordId = tenantRecordIds.get(objectId);
+            if (objectTenantRecordId == null) {
+                throw new ObjectDoesNotExist(String.format("Object id=%s type=%s doesn't exist!", objectId, objectType));
+            } else if (!objectTenantRecordId.equals(tenantRecordId)) {
+                throw new IllegalStateException(String.format("Object id=%s type=%s doesn't belong to tenant recordId=%s", objectId, objectType, tenantRecordId));
+            }
+        }
+        return nonEntityDao.retrieveAccountRecordIdsFromObjects(objectIds, objectType, accountRecordIdCacheController);
+    }
+
     private Long getAccountRecordIdSafe(final UUID objectId, final ObjectType objectType, final TenantContext context) {
         if (objectBelongsToTheRightTenant(objectId, objectType, context)) {
             return getAccountRecordIdUnsafe(objectId, objectType);
@@ -434,6 +502,10 @@ public class InternalCallContextFactory {
         return nonEntityDao.retrieveTenantRecordIdFromObject(objectId, objectType, tenantRecordIdCacheController);
     }
 
+    private Map<UUID, Long> getTenantRecordIdsUnsafe(final Collection<UUID> objectIds, final ObjectType objectType) {
+        return nonEntityDao.retrieveTenantRecordIdsFromObjects(objectIds, objectType, tenantRecordIdCacheController);
+    }
+
     public static final class ObjectDoesNotExist extends IllegalStateException {
 
         public ObjectDoesNotExist(final String s) {
@@ -27,4 +27,9 @@ public interface CatalogConfig extends KillbillConfig {
     @Default("SpyCarBasic.xml")
     @Description("Default Catalog location, either in the classpath or in the filesystem. For multi-tenancy, one should use APIs to load per-tenant catalog")
     String getCatalogURI();
+
+    @Config("org.killbill.catalog.overriddenPlans.maxCachedPerTenant")
+    @Default("10000")
+    @Description("Maximum number of materialized overridden (custom priced) plans kept in memory per tenant")
+    int getMaxCachedOverriddenPlansPerTenant();
 }
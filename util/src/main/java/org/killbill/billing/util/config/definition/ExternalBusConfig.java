@@ -0,0 +1,60 @@
+/*
+ * Copyright 2014-2019 Groupon, Inc
+ * Copyright 2014-2019 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.config.definition;
+
+import java.util.List;
+
+import org.killbill.billing.callcontext.InternalTenantContext;
+import org.skife.config.Config;
+import org.skife.config.Default;
+import org.skife.config.Description;
+import org.skife.config.Param;
+import org.skife.config.TimeSpan;
+
+public interface ExternalBusConfig extends KillbillConfig {
+
+    @Config("org.killbill.billing.beatrix.extbus.skippedEventTypes")
+    @Default("")
+    @Description("ExtBusEventTypes which should not be posted to the external bus (e.g. because no plugin consumes them)")
+    List<String> getSkippedEventTypes();
+
+    @Config("org.killbill.billing.beatrix.extbus.skippedEventTypes")
+    @Default("")
+    @Description("ExtBusEventTypes which should not be posted to the external bus (e.g. because no plugin consumes them)")
+    List<String> getSkippedEventTypes(@Param("dummy") final InternalTenantContext tenantContext);
+
+    @Config("org.killbill.billing.beatrix.extbus.batch.enabled")
+    @Default("false")
+    @Description("Whether external bus events should be posted in batches, sharing a single transaction")
+    boolean isBatchEnabled();
+
+    @Config("org.killbill.billing.beatrix.extbus.batch.size")
+    @Default("0")
+    @Description("Maximum number of external bus events posted in a single transaction, 0 to use the number of main bus threads (it is capped by it anyway)")
+    int getBatchSize();
+
+    @Config("org.killbill.billing.beatrix.extbus.batch.maxDelay")
+    @Default("10ms")
+    @Description("Maximum time an external bus event waits for its batch to fill up (i.e. when fewer events than main bus threads are in flight)")
+    TimeSpan getBatchMaxDelay();
+
+    @Config("org.killbill.persistent.bus.main.nbThreads")
+    @Default("30")
+    @Description("Number of dispatch threads of the main bus, each of them waits for the batch of its external bus event")
+    int getMainBusThreadNb();
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2014-2019 Groupon, Inc
+ * Copyright 2014-2019 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.config.definition;
+
+import org.skife.config.Config;
+import org.skife.config.Default;
+import org.skife.config.Description;
+import org.skife.config.TimeSpan;
+
+public interface GlobalLockerConfig extends KillbillConfig {
+
+    @Config("org.killbill.billing.util.globalLocker.instrumentation.enabled")
+    @Default("true")
+    @Description("Whether global lock acquisitions should be instrumented (wait/hold times, failures, call sites)")
+    public boolean isInstrumentationEnabled();
+
+    @Config("org.killbill.billing.util.globalLocker.backoff.initial")
+    @Default("50ms")
+    @Description("Initial back-off between two attempts to acquire a global lock")
+    public TimeSpan getInitialBackoff();
+
+    @Config("org.killbill.billing.util.globalLocker.backoff.max")
+    @Default("2s")
+    @Description("Maximum back-off between two attempts to acquire a global lock")
+    public TimeSpan getMaxBackoff();
+
+    @Config("org.killbill.billing.util.globalLocker.backoff.multiplier")
+    @Default("2.0")
+    @Description("Multiplier applied to the back-off after each failed attempt")
+    public double getBackoffMultiplier();
+
+    @Config("org.killbill.billing.util.globalLocker.callSite.enabled")
+    @Default("true")
+    @Description("Whether the call site of the lock holder should be recorded")
+    public boolean isCallSiteTrackingEnabled();
+
+    @Config("org.killbill.billing.util.globalLocker.callSite.max")
+    @Default("200")
+    @Description("Maximum number of distinct call sites tracked per lock type")
+    public int getMaxTrackedCallSites();
+}
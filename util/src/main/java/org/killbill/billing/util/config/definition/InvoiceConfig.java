@@ -83,6 +83,36 @@ public interface InvoiceConfig extends KillbillConfig {
     @Description("Maximum number of past billing periods we use to fetch raw usage data (usage optimization)")
     int getMaxRawUsagePreviousPeriod(@Param("dummy") final InternalTenantContext tenantContext);
 
+    @Config("org.killbill.invoice.usage.closedPeriods")
+    @Default("-1")
+    @Description("Number of billing periods after which an invoiced usage period is closed and no longer recomputed (disabled if negative)")
+    int getUsageClosedPeriods();
+
+    @Config("org.killbill.invoice.usage.closedPeriods")
+    @Default("-1")
+    @Description("Number of billing periods after which an invoiced usage period is closed and no longer recomputed (disabled if negative)")
+    int getUsageClosedPeriods(@Param("dummy") final InternalTenantContext tenantContext);
+
+    @Config("org.killbill.invoice.archival.horizonMonths")
+    @Default("-1")
+    @Description("Number of months after which closed invoices can be moved to the archive tables (disabled if 0 or negative)")
+    int getArchivalHorizonMonths();
+
+    @Config("org.killbill.invoice.archival.horizonMonths")
+    @Default("-1")
+    @Description("Number of months after which closed invoices can be moved to the archive tables (disabled if 0 or negative)")
+    int getArchivalHorizonMonths(@Param("dummy") final InternalTenantContext tenantContext);
+
+    @Config("org.killbill.invoice.archival.paymentActivityMonths")
+    @Default("18")
+    @Description("Number of months during which a payment can still be refunded or charged back: invoices with more recent payments are not archived")
+    int getArchivalPaymentActivityMonths();
+
+    @Config("org.killbill.invoice.archival.paymentActivityMonths")
+    @Default("18")
+    @Description("Number of months during which a payment can still be refunded or charged back: invoices with more recent payments are not archived")
+    int getArchivalPaymentActivityMonths(@Param("dummy") final InternalTenantContext tenantContext);
+
     @Config("org.killbill.invoice.globalLock.retries")
     @Default("50")
     @Description("Maximum number of times the system will retry to grab global lock (with a 100ms wait each time)")
@@ -132,4 +162,54 @@ public interface InvoiceConfig extends KillbillConfig {
     @Default("AGGREGATE")
     @Description("How the result for an item will be reported (aggregate mode or detail mode). ")
     UsageDetailMode getItemResultBehaviorMode(@Param("dummy") final InternalTenantContext tenantContext);
+
+    @Config("org.killbill.invoice.triggerCoalescing.enabled")
+    @Default("false")
+    @Description("Whether invoice triggers received for an account while an invoice run is in flight should be merged into a single follow-up run")
+    boolean isTriggerCoalescingEnabled();
+
+    @Config("org.killbill.invoice.triggerCoalescing.enabled")
+    @Default("false")
+    @Description("Whether invoice triggers received for an account while an invoice run is in flight should be merged into a single follow-up run")
+    boolean isTriggerCoalescingEnabled(@Param("dummy") final InternalTenantContext tenantContext);
+
+    @Config("org.killbill.invoice.billRun.smoothingWindow")
+    @Default("0s")
+    @Description("Window over which next billing date notifications are spread, deterministically per account, within the billing day (ignored if set to 0s)")
+    TimeSpan getBillRunSmoothingWindow();
+
+    @Config("org.killbill.invoice.billRun.smoothingWindow")
+    @Default("0s")
+    @Description("Window over which next billing date notifications are spread, deterministically per account, within the billing day (ignored if set to 0s)")
+    TimeSpan getBillRunSmoothingWindow(@Param("dummy") final InternalTenantContext tenantContext);
+
+    @Config("org.killbill.invoice.parkedAccountsJob.chunkSize")
+    @Default("100")
+    @Description("Number of parked accounts enumerated and dispatched per chunk by the parked accounts reprocessing job")
+    int getParkedAccountsJobChunkSize();
+
+    @Config("org.killbill.invoice.parkedAccountsJob.nbThreads")
+    @Default("4")
+    @Description("Number of worker threads (per node) used by the parked accounts reprocessing job")
+    int getParkedAccountsJobNbThreads();
+
+    @Config("org.killbill.invoice.parentCommit.pipeline.enabled")
+    @Default("false")
+    @Description("Whether the child account balances are refreshed concurrently, outside of the commit transaction, when parent invoices are auto-committed")
+    boolean isParentCommitPipelineEnabled();
+
+    @Config("org.killbill.invoice.parentCommit.pipeline.nbThreads")
+    @Default("4")
+    @Description("Number of worker threads (per node) refreshing the child accounts of committed parent invoices")
+    int getParentCommitPipelineNbThreads();
+
+    @Config("org.killbill.invoice.parentCommit.pipeline.batchSize")
+    @Default("50")
+    @Description("Number of child accounts handed over to a worker at once by the parent invoice commit pipeline")
+    int getParentCommitPipelineBatchSize();
+
+    @Config("org.killbill.invoice.parentCommit.pipeline.retrySchedule")
+    @Default("5m,1h,1d")
+    @Description("Delays before the child accounts which couldn't be refreshed by the parent invoice commit pipeline are retried")
+    List<TimeSpan> getParentCommitPipelineRetrySchedule();
 }
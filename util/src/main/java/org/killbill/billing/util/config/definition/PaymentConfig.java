@@ -120,11 +120,66 @@ public interface PaymentConfig extends KillbillConfig {
     @Description("Timeout for each payment attempt")
     TimeSpan getPaymentPluginTimeout();
 
+    @Config("org.killbill.payment.plugin.pagination.timeout")
+    @Default("10s")
+    @Description("Maximum time to wait for the plugins to return the transaction info of a page of payments (payments not retrieved in time are returned without plugin info)")
+    TimeSpan getPaymentPluginPaginationTimeout();
+
+    @Config("org.killbill.payment.plugin.pagination.threads.nb")
+    @Default("10")
+    @Description("Number of threads retrieving the plugin transaction info of the payment pages (separate from the payment plugin threads)")
+    int getPaymentPluginPaginationThreadNb();
+
     @Config("org.killbill.payment.plugin.threads.nb")
     @Default("100")
     @Description("Number of threads for plugin executor dispatcher")
     int getPaymentPluginThreadNb();
 
+    @Config("org.killbill.payment.retry.planner.enabled")
+    @Default("false")
+    @Description("Whether payment retries should be spread over time buckets, per payment plugin, to avoid retry waves")
+    boolean isRetryPlannerEnabled();
+
+    @Config("org.killbill.payment.retry.planner.bucket")
+    @Default("1m")
+    @Description("Size of the time buckets used to plan payment retries")
+    TimeSpan getRetryPlannerBucket();
+
+    @Config("org.killbill.payment.retry.planner.maxPerPluginPerBucket")
+    @Default("500")
+    @Description("Maximum number of payment retries planned per payment plugin in a time bucket (additional retries are moved to the next bucket)")
+    int getRetryPlannerMaxPerPluginPerBucket();
+
+    @Config("org.killbill.payment.retry.planner.maxConcurrentPerPlugin")
+    @Default("10")
+    @Description("Maximum number of payment retries running concurrently per payment plugin (additional retries are rescheduled)")
+    int getRetryPlannerMaxConcurrentPerPlugin();
+
+    @Config("org.killbill.payment.invoice.batch.enabled")
+    @Default("false")
+    @Description("Whether payments for new invoices should be collected in batches (grouped per payment plugin) instead of one at a time")
+    boolean isInvoicePaymentBatchEnabled();
+
+    @Config("org.killbill.payment.invoice.batch.size")
+    @Default("50")
+    @Description("Maximum number of invoice payments collected in a batch before it is processed (capped by the number of main bus threads)")
+    int getInvoicePaymentBatchSize();
+
+    @Config("org.killbill.payment.invoice.batch.threads.nb")
+    @Default("10")
+    @Description("Number of threads processing the invoice payment batches, one payment plugin group at a time")
+    int getInvoicePaymentBatchThreadNb();
+
+    @Config("org.killbill.persistent.bus.main.nbThreads")
+    @Default("30")
+    @Description("Number of dispatch threads of the main bus, each of them waits for the batch of its invoice payment")
+    int getMainBusThreadNb();
+
+    @Config("org.killbill.payment.invoice.batch.maxDelay")
+    @Default("1s")
+    @Description("Maximum time an invoice payment waits for its batch to fill up before the batch is processed")
+    TimeSpan getInvoicePaymentBatchMaxDelay();
+
     @Config("org.killbill.payment.globalLock.retries")
     @Default("50")
     @Description("Maximum number of times the system will retry to grab global lock (with a 100ms wait each time)")
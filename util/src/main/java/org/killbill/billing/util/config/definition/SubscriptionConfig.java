@@ -17,5 +17,14 @@
 
 package org.killbill.billing.util.config.definition;
 
+import org.skife.config.Config;
+import org.skife.config.Default;
+import org.skife.config.Description;
+
 public interface SubscriptionConfig extends KillbillConfig {
+
+    @Config("org.killbill.subscription.transitionsCache.size")
+    @Default("10000")
+    @Description("Maximum number of subscriptions whose resolved transitions are cached (0 to disable)")
+    public int getTransitionsCacheSize();
 }
@@ -17,11 +17,16 @@
 package org.killbill.billing.util.customfield.api;
 
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 import org.killbill.billing.ObjectType;
 import org.killbill.billing.callcontext.InternalCallContext;
+import org.killbill.billing.customfield.BulkCustomFieldUserApi;
 import org.killbill.billing.util.api.AuditLevel;
 import org.killbill.billing.util.api.CustomFieldApiException;
 import org.killbill.billing.util.api.CustomFieldUserApi;
@@ -45,7 +50,7 @@ import com.google.inject.Inject;
 
 import static org.killbill.billing.util.entity.dao.DefaultPaginationHelper.getEntityPaginationNoException;
 
-public class DefaultCustomFieldUserApi implements CustomFieldUserApi {
+public class DefaultCustomFieldUserApi implements CustomFieldUserApi, BulkCustomFieldUserApi {
 
     private static final Function<CustomFieldModelDao, CustomField> CUSTOM_FIELD_MODEL_DAO_CUSTOM_FIELD_FUNCTION = new Function<CustomFieldModelDao, CustomField>() {
         @Override
@@ -107,6 +112,59 @@ public class DefaultCustomFieldUserApi implements CustomFieldUserApi {
         }
     }
 
+    @Override
+    public void addCustomFieldsToObjects(final List<CustomField> customFields, final CallContext context) throws CustomFieldApiException {
+        if (!customFields.isEmpty()) {
+            final Map<UUID, InternalCallContext> internalCallContexts = createInternalCallContexts(customFields, context);
+            final Iterable<CustomFieldModelDao> transformed = Iterables.transform(customFields, new Function<CustomField, CustomFieldModelDao>() {
+                @Override
+                public CustomFieldModelDao apply(final CustomField input) {
+                    // Respect user-specified ID
+                    // TODO See https://github.com/killbill/killbill/issues/35
+                    if (input.getId() != null) {
+                        return new CustomFieldModelDao(input.getId(), context.getCreatedDate(), context.getCreatedDate(), input.getFieldName(), input.getFieldValue(), input.getObjectId(), input.getObjectType());
+                    } else {
+                        return new CustomFieldModelDao(context.getCreatedDate(), input.getFieldName(), input.getFieldValue(), input.getObjectId(), input.getObjectType());
+                    }
+                }
+            });
+            customFieldDao.createCustomFields(transformed, internalCallContexts);
+        }
+    }
+
+    @Override
+    public void removeCustomFieldsFromObjects(final List<CustomField> customFields, final CallContext context) throws CustomFieldApiException {
+        if (!customFields.isEmpty()) {
+            final Map<UUID, InternalCallContext> internalCallContexts = createInternalCallContexts(customFields, context);
+            final Iterable<UUID> customFieldIds = Iterables.transform(customFields, new Function<CustomField, UUID>() {
+                @Override
+                public UUID apply(final CustomField input) {
+                    return input.getId();
+                }
+            });
+            customFieldDao.deleteCustomFields(customFieldIds, internalCallContexts);
+        }
+    }
+
+    // Resolve the account of all the objects with one set-based lookup per object type
+    private Map<UUID, InternalCallContext> createInternalCallContexts(final Iterable<CustomField> customFields, final CallContext context) {
+        final Map<ObjectType, Set<UUID>> objectIdsByType = new HashMap<ObjectType, Set<UUID>>();
+        for (final CustomField customField : customFields) {
+            Set<UUID> objectIds = objectIdsByType.get(customField.getObjectType());
+            if (objectIds == null) {
+                objectIds = new LinkedHashSet<UUID>();
+                objectIdsByType.put(customField.getObjectType(), objectIds);
+            }
+            objectIds.add(customField.getObjectId());
+        }
+
+        final Map<UUID, InternalCallContext> internalCallContexts = new HashMap<UUID, InternalCallContext>();
+        for (final Map.Entry<ObjectType, Set<UUID>> entry : objectIdsByType.entrySet()) {
+            internalCallContexts.putAll(internalCallContextFactory.createInternalCallContexts(entry.getValue(), entry.getKey(), context));
+        }
+        return internalCallContexts;
+    }
+
     @Override
     public void updateCustomFields(final List<CustomField> customFields, final CallContext context) throws CustomFieldApiException {
         if (!customFields.isEmpty()) {
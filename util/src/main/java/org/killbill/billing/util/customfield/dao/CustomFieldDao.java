@@ -17,6 +17,7 @@
 package org.killbill.billing.util.customfield.dao;
 
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import org.killbill.billing.ObjectType;
@@ -43,5 +44,10 @@ public interface CustomFieldDao extends EntityDao<CustomFieldModelDao, CustomFie
 
     void updateCustomFields(Iterable<CustomFieldModelDao> customFieldIds, InternalCallContext context) throws CustomFieldApiException;
 
+    // Set-based variants for fields spanning many objects (one transaction, batched inserts/updates with their history and audit rows)
+    void createCustomFields(Iterable<CustomFieldModelDao> customFields, Map<UUID, InternalCallContext> contextsByObjectId) throws CustomFieldApiException;
+
+    void deleteCustomFields(Iterable<UUID> customFieldIds, Map<UUID, InternalCallContext> contextsByObjectId) throws CustomFieldApiException;
+
     List<AuditLogWithHistory> getCustomFieldAuditLogsWithHistoryForId(UUID customFieldId, AuditLevel auditLevel, InternalTenantContext context);
 }
@@ -16,6 +16,7 @@
 
 package org.killbill.billing.util.customfield.dao;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -29,12 +30,24 @@ import org.killbill.billing.util.entity.dao.EntitySqlDao;
 import org.killbill.commons.jdbi.binder.SmartBindBean;
 import org.killbill.commons.jdbi.template.KillBillSqlDaoStringTemplate;
 import org.skife.jdbi.v2.sqlobject.Bind;
+import org.skife.jdbi.v2.sqlobject.SqlBatch;
 import org.skife.jdbi.v2.sqlobject.SqlQuery;
 import org.skife.jdbi.v2.sqlobject.SqlUpdate;
+import org.skife.jdbi.v2.unstable.BindIn;
 
 @KillBillSqlDaoStringTemplate
 public interface CustomFieldSqlDao extends EntitySqlDao<CustomFieldModelDao, CustomField> {
 
+    @SqlBatch
+    @Audited(ChangeType.INSERT)
+    void create(@SmartBindBean Iterable<CustomFieldModelDao> customFields,
+                @SmartBindBean InternalCallContext context);
+
+    @SqlBatch
+    @Audited(ChangeType.DELETE)
+    void markCustomFieldsAsDeleted(@SmartBindBean Iterable<CustomFieldModelDao> customFields,
+                                   @SmartBindBean InternalCallContext context);
+
     @SqlUpdate
     @Audited(ChangeType.UPDATE)
     void updateValue(@Bind("id") String customFieldId,
@@ -51,4 +64,12 @@ public interface CustomFieldSqlDao extends EntitySqlDao<CustomFieldModelDao, Cus
     List<CustomFieldModelDao> getCustomFieldsForObject(@Bind("objectId") UUID objectId,
                                                        @Bind("objectType") ObjectType objectType,
                                                        @SmartBindBean InternalTenantContext internalTenantContext);
+
+    @SqlQuery
+    List<CustomFieldModelDao> getCustomFieldsForObjects(@BindIn("objectIds") Collection<String> objectIds,
+                                                        @SmartBindBean InternalTenantContext internalTenantContext);
+
+    @SqlQuery
+    List<CustomFieldModelDao> getCustomFieldsForIds(@BindIn("ids") Collection<String> customFieldIds,
+                                                    @SmartBindBean InternalTenantContext internalTenantContext);
 }
@@ -18,8 +18,12 @@
 
 package org.killbill.billing.util.customfield.dao;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import javax.annotation.Nullable;
@@ -51,6 +55,7 @@ import org.killbill.billing.util.entity.dao.EntitySqlDao;
 import org.killbill.billing.util.entity.dao.EntitySqlDaoTransactionWrapper;
 import org.killbill.billing.util.entity.dao.EntitySqlDaoTransactionalJdbiWrapper;
 import org.killbill.billing.util.entity.dao.EntitySqlDaoWrapperFactory;
+import org.killbill.billing.util.metrics.BillingMetrics;
 import org.killbill.billing.util.tag.dao.TagSqlDao;
 import org.killbill.bus.api.PersistentBus;
 import org.killbill.clock.Clock;
@@ -58,6 +63,7 @@ import org.skife.jdbi.v2.IDBI;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.base.Preconditions;
 import com.google.common.base.Predicate;
 import com.google.common.collect.Collections2;
 import com.google.common.collect.ImmutableList;
@@ -70,13 +76,16 @@ public class DefaultCustomFieldDao extends EntityDaoBase<CustomFieldModelDao, Cu
 
     private static final Logger log = LoggerFactory.getLogger(DefaultCustomFieldDao.class);
 
+    private static final int MAX_IDS_PER_QUERY = 1000;
+
     private final PersistentBus bus;
     private final AuditDao auditDao;
 
     @Inject
     public DefaultCustomFieldDao(final IDBI dbi, @Named(MAIN_RO_IDBI_NAMED) final IDBI roDbi, final Clock clock, final CacheControllerDispatcher controllerDispatcher,
-                                 final NonEntityDao nonEntityDao, final InternalCallContextFactory internalCallContextFactory, final PersistentBus bus, final AuditDao auditDao) {
-        super(new EntitySqlDaoTransactionalJdbiWrapper(dbi, roDbi, clock, controllerDispatcher, nonEntityDao, internalCallContextFactory), CustomFieldSqlDao.class);
+                                 final NonEntityDao nonEntityDao, final InternalCallContextFactory internalCallContextFactory, final PersistentBus bus, final AuditDao auditDao,
+                                 final BillingMetrics billingMetrics) {
+        super(new EntitySqlDaoTransactionalJdbiWrapper(dbi, roDbi, clock, controllerDispatcher, nonEntityDao, internalCallContextFactory, billingMetrics), CustomFieldSqlDao.class);
         this.bus = bus;
         this.auditDao = auditDao;
     }
@@ -172,6 +181,106 @@ public class DefaultCustomFieldDao extends EntityDaoBase<CustomFieldModelDao, Cu
         });
     }
 
+    @Override
+    public void createCustomFields(final Iterable<CustomFieldModelDao> customFields, final Map<UUID, InternalCallContext> contextsByObjectId) throws CustomFieldApiException {
+        if (contextsByObjectId.isEmpty()) {
+            return;
+        }
+
+        transactionalSqlDao.execute(false, CustomFieldApiException.class, new EntitySqlDaoTransactionWrapper<Void>() {
+            @Override
+            public Void inTransaction(final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory) throws Exception {
+                final InternalCallContext anyContext = contextsByObjectId.values().iterator().next();
+                final CustomFieldSqlDao sqlDao = entitySqlDaoWrapperFactory.become(CustomFieldSqlDao.class);
+
+                // Fields already present, and the ones of this call, grouped per object
+                final Map<UUID, List<CustomFieldModelDao>> customFieldsByObjectId = new HashMap<UUID, List<CustomFieldModelDao>>();
+                for (final List<String> chunk : Iterables.partition(toStrings(contextsByObjectId.keySet()), MAX_IDS_PER_QUERY)) {
+                    for (final CustomFieldModelDao existing : sqlDao.getCustomFieldsForObjects(chunk, anyContext)) {
+                        addToGroup(customFieldsByObjectId, existing.getObjectId(), existing);
+                    }
+                }
+
+                final Map<InternalCallContext, List<CustomFieldModelDao>> customFieldsByContext = new LinkedHashMap<InternalCallContext, List<CustomFieldModelDao>>();
+                for (final CustomFieldModelDao customField : customFields) {
+                    final InternalCallContext context = contextsByObjectId.get(customField.getObjectId());
+                    Preconditions.checkNotNull(context, "No context for objectId='%s'", customField.getObjectId());
+
+                    final List<CustomFieldModelDao> customFieldsForObject = customFieldsByObjectId.get(customField.getObjectId());
+                    if (customFieldsForObject != null) {
+                        for (final CustomFieldModelDao cur : customFieldsForObject) {
+                            if (customField.isSame(cur)) {
+                                throw generateAlreadyExistsException(customField, context);
+                            }
+                        }
+                    }
+                    addToGroup(customFieldsByObjectId, customField.getObjectId(), customField);
+                    addToGroup(customFieldsByContext, context, customField);
+                }
+
+                // The audited batch binds a single context, hence one batch per account
+                for (final Map.Entry<InternalCallContext, List<CustomFieldModelDao>> entry : customFieldsByContext.entrySet()) {
+                    sqlDao.create(entry.getValue(), entry.getKey());
+                    for (final CustomFieldModelDao customField : entry.getValue()) {
+                        postBusEventFromTransaction(customField, customField, ChangeType.INSERT, entitySqlDaoWrapperFactory, entry.getKey());
+                    }
+                }
+                return null;
+            }
+        });
+    }
+
+    @Override
+    public void deleteCustomFields(final Iterable<UUID> customFieldIds, final Map<UUID, InternalCallContext> contextsByObjectId) throws CustomFieldApiException {
+        if (contextsByObjectId.isEmpty()) {
+            return;
+        }
+
+        transactionalSqlDao.execute(false, CustomFieldApiException.class, new EntitySqlDaoTransactionWrapper<Void>() {
+            @Override
+            public Void inTransaction(final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory) throws Exception {
+                final InternalCallContext anyContext = contextsByObjectId.values().iterator().next();
+                final CustomFieldSqlDao sqlDao = entitySqlDaoWrapperFactory.become(CustomFieldSqlDao.class);
+
+                final Map<InternalCallContext, List<CustomFieldModelDao>> customFieldsByContext = new LinkedHashMap<InternalCallContext, List<CustomFieldModelDao>>();
+                for (final List<String> chunk : Iterables.partition(toStrings(customFieldIds), MAX_IDS_PER_QUERY)) {
+                    for (final CustomFieldModelDao customField : sqlDao.getCustomFieldsForIds(chunk, anyContext)) {
+                        // Like the single object variant, unknown fields are ignored
+                        final InternalCallContext context = contextsByObjectId.get(customField.getObjectId());
+                        if (context != null) {
+                            addToGroup(customFieldsByContext, context, customField);
+                        }
+                    }
+                }
+
+                for (final Map.Entry<InternalCallContext, List<CustomFieldModelDao>> entry : customFieldsByContext.entrySet()) {
+                    sqlDao.markCustomFieldsAsDeleted(entry.getValue(), entry.getKey());
+                    for (final CustomFieldModelDao customField : entry.getValue()) {
+                        postBusEventFromTransaction(customField, customField, ChangeType.DELETE, entitySqlDaoWrapperFactory, entry.getKey());
+                    }
+                }
+                return null;
+            }
+        });
+    }
+
+    private static List<String> toStrings(final Iterable<UUID> ids) {
+        final List<String> result = new ArrayList<String>();
+        for (final UUID id : ids) {
+            result.add(id.toString());
+        }
+        return result;
+    }
+
+    private static <K> void addToGroup(final Map<K, List<CustomFieldModelDao>> customFieldsByKey, final K key, final CustomFieldModelDao customField) {
+        List<CustomFieldModelDao> customFields = customFieldsByKey.get(key);
+        if (customFields == null) {
+            customFields = new ArrayList<CustomFieldModelDao>();
+            customFieldsByKey.put(key, customFields);
+        }
+        customFields.add(customField);
+    }
+
     @Override
     public List<AuditLogWithHistory> getCustomFieldAuditLogsWithHistoryForId(final UUID customFieldId, final AuditLevel auditLevel, final InternalTenantContext context) {
         return transactionalSqlDao.execute(true, new EntitySqlDaoTransactionWrapper<List<AuditLogWithHistory>>() {
@@ -18,6 +18,12 @@
 
 package org.killbill.billing.util.dao;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 import javax.annotation.Nullable;
@@ -38,11 +44,16 @@ import org.skife.jdbi.v2.IDBI;
 import org.skife.jdbi.v2.sqlobject.SqlObjectBuilder;
 
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterables;
 
 import static org.killbill.billing.util.glue.IDBISetup.MAIN_RO_IDBI_NAMED;
 
 public class DefaultNonEntityDao implements NonEntityDao {
 
+    // Keep the IN lists reasonably small (e.g. Oracle is limited to 1000 expressions)
+    private static final int MAX_IDS_PER_QUERY = 1000;
+
     private final DBRouter<NonEntitySqlDao> dbRouter;
     private final WithCaching<String, Long> withCachingObjectId;
     private final WithCaching<String, UUID> withCachingRecordId;
@@ -137,6 +148,62 @@ public class DefaultNonEntityDao implements NonEntityDao {
         }, objectIdOrNull, objectType, tableName, cache);
     }
 
+    @Override
+    public Map<UUID, Long> retrieveRecordIdsFromObjects(final Collection<UUID> objectIds, final ObjectType objectType, @Nullable final CacheController<String, Long> cache) {
+        final TableName tableName = TableName.fromObjectType(objectType);
+        Preconditions.checkNotNull(tableName, "%s is not a valid ObjectType", objectType);
+
+        return withBulkCaching(new BulkOperationRetrieval() {
+            @Override
+            public List<RecordIdIdMappings> doRetrieve(final NonEntitySqlDao nonEntitySqlDao, final Collection<String> objectIds) {
+                return nonEntitySqlDao.getRecordIdsFromObjects(tableName.getTableName(), objectIds);
+            }
+        }, objectIds, objectType, tableName, cache);
+    }
+
+    @Override
+    public Map<UUID, Long> retrieveAccountRecordIdsFromObjects(final Collection<UUID> objectIds, final ObjectType objectType, @Nullable final CacheController<String, Long> cache) {
+        final TableName tableName = TableName.fromObjectType(objectType);
+        Preconditions.checkNotNull(tableName, "%s is not a valid ObjectType", objectType);
+
+        switch (tableName) {
+            case TENANT:
+            case TAG_DEFINITIONS:
+            case TAG_DEFINITION_HISTORY:
+                return ImmutableMap.<UUID, Long>of();
+            default:
+                break;
+        }
+
+        return withBulkCaching(new BulkOperationRetrieval() {
+            @Override
+            public List<RecordIdIdMappings> doRetrieve(final NonEntitySqlDao nonEntitySqlDao, final Collection<String> objectIds) {
+                if (tableName == TableName.ACCOUNT) {
+                    return nonEntitySqlDao.getAccountRecordIdsFromAccounts(objectIds);
+                } else {
+                    return nonEntitySqlDao.getAccountRecordIdsFromObjectsOtherThanAccount(tableName.getTableName(), objectIds);
+                }
+            }
+        }, objectIds, objectType, tableName, cache);
+    }
+
+    @Override
+    public Map<UUID, Long> retrieveTenantRecordIdsFromObjects(final Collection<UUID> objectIds, final ObjectType objectType, @Nullable final CacheController<String, Long> cache) {
+        final TableName tableName = TableName.fromObjectType(objectType);
+        Preconditions.checkNotNull(tableName, "%s is not a valid ObjectType", objectType);
+
+        return withBulkCaching(new BulkOperationRetrieval() {
+            @Override
+            public List<RecordIdIdMappings> doRetrieve(final NonEntitySqlDao nonEntitySqlDao, final Collection<String> objectIds) {
+                if (tableName == TableName.TENANT) {
+                    return nonEntitySqlDao.getTenantRecordIdsFromTenants(objectIds);
+                } else {
+                    return nonEntitySqlDao.getTenantRecordIdsFromObjectsOtherThanTenant(tableName.getTableName(), objectIds);
+                }
+            }
+        }, objectIds, objectType, tableName, cache);
+    }
+
     @Override
     public UUID retrieveIdFromObject(final Long recordId, final ObjectType objectType, @Nullable final CacheController<String, UUID> cache) {
         return retrieveIdFromObjectInTransaction(recordId, objectType, cache, null);
@@ -176,6 +243,61 @@ public class DefaultNonEntityDao implements NonEntityDao {
         public TypeOut doRetrieve(final ObjectType objectType);
     }
 
+    private interface BulkOperationRetrieval {
+
+        public List<RecordIdIdMappings> doRetrieve(final NonEntitySqlDao nonEntitySqlDao, final Collection<String> objectIds);
+    }
+
+    // Cached values are served from the cache, the other ones are looked-up using one IN query per chunk of ids (and then added to the cache)
+    private Map<UUID, Long> withBulkCaching(final BulkOperationRetrieval op, final Collection<UUID> objectIds, final ObjectType objectType, final TableName tableName, @Nullable final CacheController<String, Long> cache) {
+        final Map<UUID, Long> result = new HashMap<UUID, Long>();
+        final Set<String> missingObjectIds = new LinkedHashSet<String>();
+        for (final UUID objectId : objectIds) {
+            if (objectId == null) {
+                continue;
+            }
+            if (cache != null) {
+                final String key = getCacheKey(objectId.toString(), tableName, cache);
+                if (cache.isKeyInCache(key)) {
+                    final Long value = cache.get(key, new CacheLoaderArgument(objectType));
+                    if (value != null) {
+                        result.put(objectId, value);
+                        continue;
+                    }
+                }
+            }
+            missingObjectIds.add(objectId.toString());
+        }
+
+        if (missingObjectIds.isEmpty()) {
+            return result;
+        }
+
+        final Profiling<List<RecordIdIdMappings>, RuntimeException> prof = new Profiling<List<RecordIdIdMappings>, RuntimeException>();
+        final NonEntitySqlDao nonEntitySqlDao = dbRouter.onDemand(true);
+        for (final List<String> chunk : Iterables.partition(missingObjectIds, MAX_IDS_PER_QUERY)) {
+            final List<RecordIdIdMappings> mappings = prof.executeWithProfiling(ProfilingFeatureType.DAO_DETAILS, "NonEntityDao (type = " + objectType + ") bulk cache miss", new WithProfilingCallback<List<RecordIdIdMappings>, RuntimeException>() {
+                @Override
+                public List<RecordIdIdMappings> execute() throws RuntimeException {
+                    return op.doRetrieve(nonEntitySqlDao, chunk);
+                }
+            });
+            for (final RecordIdIdMappings mapping : mappings) {
+                result.put(mapping.getId(), mapping.getRecordId());
+                if (cache != null) {
+                    cache.putIfAbsent(getCacheKey(mapping.getId().toString(), tableName, cache), mapping.getRecordId());
+                }
+            }
+        }
+        return result;
+    }
+
+    private static <TypeIn, TypeOut> TypeIn getCacheKey(final TypeIn objectOrRecordId, final TableName tableName, final CacheController<TypeIn, TypeOut> cache) {
+        return (cache.getCacheType().isKeyPrefixedWithTableName()) ?
+               (TypeIn) (tableName + CacheControllerDispatcher.CACHE_KEY_SEPARATOR + objectOrRecordId.toString()) :
+               objectOrRecordId;
+    }
+
     // 'cache' will be null for the CacheLoader classes -- or if cache is not configured.
     private class WithCaching<TypeIn, TypeOut> {
 
@@ -186,9 +308,7 @@ public class DefaultNonEntityDao implements NonEntityDao {
                 return null;
             }
             if (cache != null) {
-                final TypeIn key = (cache.getCacheType().isKeyPrefixedWithTableName()) ?
-                                   (TypeIn) (tableName + CacheControllerDispatcher.CACHE_KEY_SEPARATOR + objectOrRecordId.toString()) :
-                                   objectOrRecordId;
+                final TypeIn key = getCacheKey(objectOrRecordId, tableName, cache);
                 return cache.get(key, new CacheLoaderArgument(objectType));
             }
             final TypeOut result;
@@ -18,6 +18,7 @@
 
 package org.killbill.billing.util.dao;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.killbill.billing.callcontext.InternalCallContext;
@@ -27,9 +28,11 @@ import org.killbill.billing.util.entity.dao.EntityModelDao;
 import org.skife.jdbi.v2.sqlobject.Bind;
 import org.killbill.commons.jdbi.binder.SmartBindBean;
 import org.skife.jdbi.v2.sqlobject.GetGeneratedKeys;
+import org.skife.jdbi.v2.sqlobject.SqlBatch;
 import org.skife.jdbi.v2.sqlobject.SqlQuery;
 import org.skife.jdbi.v2.sqlobject.SqlUpdate;
 import org.skife.jdbi.v2.sqlobject.customizers.Define;
+import org.skife.jdbi.v2.unstable.BindIn;
 
 public interface HistorySqlDao<M extends EntityModelDao<E>, E extends Entity> {
 
@@ -43,4 +46,13 @@ public interface HistorySqlDao<M extends EntityModelDao<E>, E extends Entity> {
     @GetGeneratedKeys
     public Long addHistoryFromTransaction(@EntityHistoryBinder EntityHistoryModelDao<M, E> history,
                                           @SmartBindBean InternalCallContext context);
+
+    @SqlBatch
+    public void addHistoriesFromTransaction(@EntityHistoryBinder Iterable<EntityHistoryModelDao<M, E>> histories,
+                                            @SmartBindBean InternalCallContext context);
+
+    // Latest history record id of each target, i.e. the history rows just inserted by addHistoriesFromTransaction
+    @SqlQuery
+    public List<RecordIdIdMappings> getLatestHistoryRecordIdsForTargetRecordIds(@BindIn("targetRecordIds") final Collection<Long> targetRecordIds,
+                                                                                @SmartBindBean InternalTenantContext context);
 }
@@ -18,6 +18,8 @@
 
 package org.killbill.billing.util.dao;
 
+import java.util.Collection;
+import java.util.Map;
 import java.util.UUID;
 
 import javax.annotation.Nullable;
@@ -41,6 +43,14 @@ public interface NonEntityDao {
 
     public Long retrieveTenantRecordIdFromObjectInTransaction(final UUID objectId, final ObjectType objectType, @Nullable final CacheController<String, Long> cache, @Nullable final Handle handle);
 
+    // Set-based counterparts of the methods above, for objects of a single type: unknown ids are absent from the returned map and the
+    // values looked-up in the database are added to the cache
+    public Map<UUID, Long> retrieveRecordIdsFromObjects(final Collection<UUID> objectIds, final ObjectType objectType, @Nullable final CacheController<String, Long> cache);
+
+    public Map<UUID, Long> retrieveAccountRecordIdsFromObjects(final Collection<UUID> objectIds, final ObjectType objectType, @Nullable final CacheController<String, Long> cache);
+
+    public Map<UUID, Long> retrieveTenantRecordIdsFromObjects(final Collection<UUID> objectIds, final ObjectType objectType, @Nullable final CacheController<String, Long> cache);
+
     public UUID retrieveIdFromObject(final Long recordId, final ObjectType objectType, @Nullable final CacheController<String, UUID> cache);
 
     public UUID retrieveIdFromObjectInTransaction(final Long recordId, final ObjectType objectType, @Nullable final CacheController<String, UUID> cache, @Nullable final Handle handle);
@@ -18,6 +18,8 @@
 
 package org.killbill.billing.util.dao;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 
 import org.killbill.billing.callcontext.InternalTenantContext;
@@ -28,6 +30,7 @@ import org.skife.jdbi.v2.sqlobject.SqlQuery;
 import org.skife.jdbi.v2.sqlobject.customizers.Define;
 import org.skife.jdbi.v2.sqlobject.mixins.CloseMe;
 import org.skife.jdbi.v2.sqlobject.mixins.Transactional;
+import org.skife.jdbi.v2.unstable.BindIn;
 
 @KillBillSqlDaoStringTemplate
 public interface NonEntitySqlDao extends Transactional<NonEntitySqlDao>, CloseMe {
@@ -53,6 +56,21 @@ public interface NonEntitySqlDao extends Transactional<NonEntitySqlDao>, CloseMe
     @SqlQuery
     public Long getTenantRecordIdFromObjectOtherThanTenant(@Bind("id") String id, @Define("tableName") final String tableName);
 
+    @SqlQuery
+    public List<RecordIdIdMappings> getRecordIdsFromObjects(@Define("tableName") final String tableName, @BindIn("ids") final Collection<String> ids);
+
+    @SqlQuery
+    public List<RecordIdIdMappings> getAccountRecordIdsFromAccounts(@BindIn("ids") final Collection<String> ids);
+
+    @SqlQuery
+    public List<RecordIdIdMappings> getAccountRecordIdsFromObjectsOtherThanAccount(@Define("tableName") final String tableName, @BindIn("ids") final Collection<String> ids);
+
+    @SqlQuery
+    public List<RecordIdIdMappings> getTenantRecordIdsFromTenants(@BindIn("ids") final Collection<String> ids);
+
+    @SqlQuery
+    public List<RecordIdIdMappings> getTenantRecordIdsFromObjectsOtherThanTenant(@Define("tableName") final String tableName, @BindIn("ids") final Collection<String> ids);
+
     @SqlQuery
     public Long getLastHistoryRecordId(@Bind("targetRecordId") Long targetRecordId, @Define("tableName") final String tableName);
 
@@ -77,4 +95,15 @@ public interface NonEntitySqlDao extends Transactional<NonEntitySqlDao>, CloseMe
     @SqlQuery
     public Iterable<RecordIdIdMappings> getRecordIdIdMappings(@Define("tableName") String tableName,
                                                               @SmartBindBean final InternalTenantContext context);
+
+    @SqlQuery
+    public Iterable<RecordIdIdMappings> getHistoryRecordIdIdMappingsForIds(@Define("tableName") String tableName,
+                                                                           @Define("historyTableName") String historyTableName,
+                                                                           @BindIn("ids") final Collection<String> ids,
+                                                                           @SmartBindBean final InternalTenantContext context);
+
+    @SqlQuery
+    public Iterable<RecordIdIdMappings> getRecordIdIdMappingsForIds(@Define("tableName") String tableName,
+                                                                    @BindIn("ids") final Collection<String> ids,
+                                                                    @SmartBindBean final InternalTenantContext context);
 }
@@ -98,6 +98,21 @@ public class DefaultPaginationHelper {
                                                             Predicates.<E>notNull()));
     }
 
+    // Unlike getEntityPagination, the page is fully materialized (it is bounded by limit) so that the function can hydrate all the
+    // records at once (bulk queries, concurrent plugin calls, ...). The function is expected to preserve the ordering of the page.
+    public static <E extends Entity, O, T extends BillingExceptionBase> Pagination<E> getEntityPaginationByPage(final Long limit,
+                                                                                                                final SourcePaginationBuilder<O, T> sourcePaginationBuilder,
+                                                                                                                final Function<List<O>, List<E>> pageFunction) throws T {
+        final Pagination<O> modelsDao = sourcePaginationBuilder.build();
+        // Required to close database connections
+        final List<O> page = ImmutableList.<O>copyOf(modelsDao);
+
+        return new DefaultPagination<E>(modelsDao,
+                                        limit,
+                                        Iterators.<E>filter(pageFunction.apply(page).iterator(),
+                                                            Predicates.<E>notNull()));
+    }
+
     public static <E extends Entity, O, T extends BillingExceptionBase> Pagination<E> getEntityPaginationNoException(final Long limit,
                                                                                                                      final SourcePaginationBuilder<O, T> sourcePaginationBuilder,
                                                                                                                      final Function<O, E> function) {
@@ -18,6 +18,7 @@
 
 package org.killbill.billing.util.entity.dao;
 
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 
@@ -38,6 +39,7 @@ import org.killbill.commons.jdbi.binder.SmartBindBean;
 import org.skife.jdbi.v2.sqlobject.SqlQuery;
 import org.skife.jdbi.v2.sqlobject.SqlUpdate;
 import org.skife.jdbi.v2.sqlobject.customizers.Define;
+import org.skife.jdbi.v2.unstable.BindIn;
 import org.skife.jdbi.v2.sqlobject.mixins.CloseMe;
 import org.skife.jdbi.v2.sqlobject.mixins.Transactional;
 
@@ -53,6 +55,11 @@ public interface EntitySqlDao<M extends EntityModelDao<E>, E extends Entity> ext
     public M getById(@Bind("id") final String id,
                      @SmartBindBean final InternalTenantContext context);
 
+    // Used to load the entities of batch calls for the history and audit tables (same semantics as getById)
+    @SqlQuery
+    public List<M> getByIdsForAudit(@BindIn("ids") final Collection<String> ids,
+                                    @SmartBindBean final InternalTenantContext context);
+
     @SqlQuery
     public M getByRecordId(@Bind("recordId") final Long recordId,
                            @SmartBindBean final InternalTenantContext context);
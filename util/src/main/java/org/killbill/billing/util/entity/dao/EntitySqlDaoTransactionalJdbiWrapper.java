@@ -20,10 +20,12 @@ package org.killbill.billing.util.entity.dao;
 
 import javax.annotation.Nullable;
 
+import org.killbill.billing.callcontext.RequestReadCache;
 import org.killbill.billing.util.cache.CacheControllerDispatcher;
 import org.killbill.billing.util.callcontext.InternalCallContextFactory;
 import org.killbill.billing.util.dao.NonEntityDao;
 import org.killbill.billing.util.entity.Entity;
+import org.killbill.billing.util.metrics.BillingMetrics;
 import org.killbill.clock.Clock;
 import org.skife.jdbi.v2.Handle;
 import org.skife.jdbi.v2.IDBI;
@@ -44,13 +46,15 @@ public class EntitySqlDaoTransactionalJdbiWrapper {
     private final CacheControllerDispatcher cacheControllerDispatcher;
     private final NonEntityDao nonEntityDao;
     private final InternalCallContextFactory internalCallContextFactory;
+    private final BillingMetrics billingMetrics;
 
     public EntitySqlDaoTransactionalJdbiWrapper(final IDBI dbi, final IDBI roDbi, final Clock clock, final CacheControllerDispatcher cacheControllerDispatcher,
-                                                final NonEntityDao nonEntityDao, final InternalCallContextFactory internalCallContextFactory) {
+                                                final NonEntityDao nonEntityDao, final InternalCallContextFactory internalCallContextFactory, final BillingMetrics billingMetrics) {
         this.clock = clock;
         this.cacheControllerDispatcher = cacheControllerDispatcher;
         this.nonEntityDao = nonEntityDao;
         this.internalCallContextFactory = internalCallContextFactory;
+        this.billingMetrics = billingMetrics;
         this.dbRouter = new DBRouterUntyped(dbi, roDbi);
     }
 
@@ -70,7 +74,7 @@ public class EntitySqlDaoTransactionalJdbiWrapper {
 
         @Override
         public ReturnType inTransaction(final EntitySqlDao<M, E> transactionalSqlDao, final TransactionStatus status) throws Exception {
-            final EntitySqlDaoWrapperFactory factoryEntitySqlDao = new EntitySqlDaoWrapperFactory(h, clock, cacheControllerDispatcher, internalCallContextFactory);
+            final EntitySqlDaoWrapperFactory factoryEntitySqlDao = new EntitySqlDaoWrapperFactory(h, clock, cacheControllerDispatcher, internalCallContextFactory, billingMetrics);
             return entitySqlDaoTransactionWrapper.inTransaction(factoryEntitySqlDao);
         }
     }
@@ -87,6 +91,12 @@ public class EntitySqlDaoTransactionalJdbiWrapper {
     public <ReturnType> ReturnType execute(final boolean requestedRO, final EntitySqlDaoTransactionWrapper<ReturnType> entitySqlDaoTransactionWrapper) {
         final String debugInfo = logger.isDebugEnabled() ? getDebugInfo() : null;
 
+        // Rows cached for the current request may be modified by this transaction
+        final RequestReadCache requestReadCache = requestedRO ? null : RequestReadCache.getCurrent();
+        if (requestReadCache != null) {
+            requestReadCache.invalidateAll();
+        }
+
         final Handle handle = dbRouter.getHandle(requestedRO);
         logger.debug("DBI handle created, transaction: {}", debugInfo);
         try {
@@ -101,6 +111,11 @@ public class EntitySqlDaoTransactionalJdbiWrapper {
         } finally {
             handle.close();
             logger.debug("DBI handle closed,  transaction: {}", debugInfo);
+
+            // Rows cached while this transaction was in flight may not reflect its outcome
+            if (requestReadCache != null) {
+                requestReadCache.invalidateAll();
+            }
         }
     }
 
@@ -27,6 +27,7 @@ import java.lang.reflect.Type;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.SQLWarning;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -35,6 +36,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.annotation.Nullable;
 
@@ -51,8 +53,10 @@ import org.killbill.billing.util.cache.CacheLoaderArgument;
 import org.killbill.billing.util.callcontext.InternalCallContextFactory;
 import org.killbill.billing.util.dao.EntityAudit;
 import org.killbill.billing.util.dao.EntityHistoryModelDao;
+import org.killbill.billing.util.dao.RecordIdIdMappings;
 import org.killbill.billing.util.dao.TableName;
 import org.killbill.billing.util.entity.Entity;
+import org.killbill.billing.util.metrics.BillingMetrics;
 import org.killbill.clock.Clock;
 import org.killbill.commons.profiling.Profiling;
 import org.killbill.commons.profiling.Profiling.WithProfilingCallback;
@@ -84,8 +88,13 @@ import com.google.common.collect.Iterables;
  */
 public class EntitySqlDaoWrapperInvocationHandler<S extends EntitySqlDao<M, E>, M extends EntityModelDao<E>, E extends Entity> implements InvocationHandler {
 
+    private static final int MAX_IDS_PER_QUERY = 1000;
+
     private final Logger logger = LoggerFactory.getLogger(EntitySqlDaoWrapperInvocationHandler.class);
 
+    // Metric names per SqlDao class and method: built once, as instances are short-lived and invoke is on the hot path
+    private static final ConcurrentMap<Class<?>, ConcurrentMap<Method, String>> metricNamesBySqlDaoClass = new ConcurrentHashMap<Class<?>, ConcurrentMap<Method, String>>();
+
     private final Map<String, Annotation[][]> parameterAnnotationsByMethod = new ConcurrentHashMap<String, Annotation[][]>();
 
     private final Class<S> sqlDaoClass;
@@ -95,6 +104,7 @@ public class EntitySqlDaoWrapperInvocationHandler<S extends EntitySqlDao<M, E>,
     private final CacheControllerDispatcher cacheControllerDispatcher;
     private final Clock clock;
     private final InternalCallContextFactory internalCallContextFactory;
+    private final BillingMetrics billingMetrics;
     private final Profiling<Object, Throwable> prof;
 
     public EntitySqlDaoWrapperInvocationHandler(final Class<S> sqlDaoClass,
@@ -103,18 +113,21 @@ public class EntitySqlDaoWrapperInvocationHandler<S extends EntitySqlDao<M, E>,
                                                 final Clock clock,
                                                 // Special DAO that don't require caching can invoke EntitySqlDaoWrapperInvocationHandler with no caching (e.g NoCachingTenantDao)
                                                 @Nullable final CacheControllerDispatcher cacheControllerDispatcher,
-                                                final InternalCallContextFactory internalCallContextFactory) {
+                                                final InternalCallContextFactory internalCallContextFactory,
+                                                final BillingMetrics billingMetrics) {
         this.sqlDaoClass = sqlDaoClass;
         this.sqlDao = sqlDao;
         this.handle = handle;
         this.clock = clock;
         this.cacheControllerDispatcher = cacheControllerDispatcher;
         this.internalCallContextFactory = internalCallContextFactory;
+        this.billingMetrics = billingMetrics;
         this.prof = new Profiling<Object, Throwable>();
     }
 
     @Override
     public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+        final long startNanos = System.nanoTime();
         try {
             return prof.executeWithProfiling(ProfilingFeatureType.DAO, getProfilingId(null, method), new WithProfilingCallback<Object, Throwable>() {
                 @Override
@@ -152,6 +165,8 @@ public class EntitySqlDaoWrapperInvocationHandler<S extends EntitySqlDao<M, E>,
             } else {
                 errorDuringTransaction(t, method);
             }
+        } finally {
+            billingMetrics.recordDuration(getMetricName(method), System.nanoTime() - startNanos);
         }
 
         // Never reached
@@ -321,9 +336,13 @@ public class EntitySqlDaoWrapperInvocationHandler<S extends EntitySqlDao<M, E>,
         final Map<String, M> deletedEntities = new HashMap<String, M>();
         // Unfortunately, we cannot just look at DELETE as "markAsInactive" operations are often treated as UPDATE
         if (changeType == ChangeType.UPDATE || changeType == ChangeType.DELETE) {
-            for (final String entityId : entityIds) {
-                deletedEntities.put(entityId, sqlDao.getById(entityId, context));
-                printSQLWarnings();
+            if (entityIds.size() > 1) {
+                deletedEntities.putAll(getByIds(entityIds, context));
+            } else {
+                for (final String entityId : entityIds) {
+                    deletedEntities.put(entityId, sqlDao.getById(entityId, context));
+                    printSQLWarnings();
+                }
             }
         }
 
@@ -335,6 +354,12 @@ public class EntitySqlDaoWrapperInvocationHandler<S extends EntitySqlDao<M, E>,
             }
         });
 
+        // Batch calls: history and audit rows are written with set-based statements as well
+        if (entityIds.size() > 1) {
+            updateHistoriesAndAudits(entityIds, deletedEntities, changeType, context);
+            return obj;
+        }
+
         M m = null;
         for (final String entityId : entityIds) {
             m = updateHistoryAndAudit(entityId, deletedEntities.get(entityId), changeType, context);
@@ -432,6 +457,84 @@ public class EntitySqlDaoWrapperInvocationHandler<S extends EntitySqlDao<M, E>,
         return (M) reHydratedEntity;
     }
 
+    private void updateHistoriesAndAudits(final List<String> entityIds, final Map<String, M> deletedEntities, final ChangeType changeType, final InternalCallContext context) throws Throwable {
+        prof.executeWithProfiling(ProfilingFeatureType.DAO_DETAILS, getProfilingId("histories/audits", null), new WithProfilingCallback<Object, Throwable>() {
+            @Override
+            public Void execute() throws Throwable {
+                final Map<String, M> reHydratedEntities;
+                if (changeType == ChangeType.DELETE) {
+                    reHydratedEntities = deletedEntities;
+                } else {
+                    // See note above regarding "markAsInactive" operations
+                    reHydratedEntities = new HashMap<String, M>(deletedEntities);
+                    reHydratedEntities.putAll(getByIds(entityIds, context));
+                }
+
+                final List<M> entities = new ArrayList<M>(entityIds.size());
+                for (final String entityId : entityIds) {
+                    final M reHydratedEntity = reHydratedEntities.get(entityId);
+                    Preconditions.checkNotNull(reHydratedEntity, "reHydratedEntity cannot be null");
+                    entities.add(reHydratedEntity);
+                }
+
+                final TableName tableName = entities.get(0).getTableName();
+                if (TableName.ACCOUNT.equals(tableName) && ChangeType.INSERT.equals(changeType)) {
+                    // The audit context needs to be built for each account (see insertAudits)
+                    for (final M entity : entities) {
+                        updateHistoryAndAudit(entity.getId().toString(), entity, changeType, context);
+                    }
+                    return null;
+                }
+
+                final Map<UUID, Long> historyRecordIdsByEntityId = new HashMap<UUID, Long>();
+                if (tableName.getHistoryTableName() != null) {
+                    final List<EntityHistoryModelDao<M, E>> histories = new ArrayList<EntityHistoryModelDao<M, E>>(entities.size());
+                    final List<Long> entityRecordIds = new ArrayList<Long>(entities.size());
+                    for (final M entity : entities) {
+                        histories.add(new EntityHistoryModelDao<M, E>(entity, entity.getRecordId(), changeType, null, context.getCreatedDate()));
+                        entityRecordIds.add(entity.getRecordId());
+                    }
+                    sqlDao.addHistoriesFromTransaction(histories, context);
+                    printSQLWarnings();
+
+                    // The history rows we just inserted are the latest ones for each target
+                    for (final List<Long> chunk : Iterables.partition(entityRecordIds, MAX_IDS_PER_QUERY)) {
+                        for (final RecordIdIdMappings mapping : sqlDao.getLatestHistoryRecordIdsForTargetRecordIds(chunk, context)) {
+                            historyRecordIdsByEntityId.put(mapping.getId(), mapping.getRecordId());
+                        }
+                    }
+                    printSQLWarnings();
+                }
+
+                final TableName destinationTableName = MoreObjects.firstNonNull(tableName.getHistoryTableName(), tableName);
+                final List<EntityAudit> audits = new ArrayList<EntityAudit>(entities.size());
+                for (final M entity : entities) {
+                    final Long historyRecordId = tableName.getHistoryTableName() != null ? historyRecordIdsByEntityId.get(entity.getId()) : entity.getRecordId();
+                    Preconditions.checkNotNull(historyRecordId, "historyRecordId cannot be null");
+                    audits.add(new EntityAudit(destinationTableName, historyRecordId, changeType, context.getCreatedDate()));
+                }
+                sqlDao.insertAuditsFromTransaction(audits, context);
+                printSQLWarnings();
+
+                for (final M entity : entities) {
+                    invalidateAuditCaches(tableName, entity.getRecordId());
+                }
+                return null;
+            }
+        });
+    }
+
+    private Map<String, M> getByIds(final Collection<String> entityIds, final InternalTenantContext context) {
+        final Map<String, M> entities = new HashMap<String, M>();
+        for (final List<String> chunk : Iterables.partition(entityIds, MAX_IDS_PER_QUERY)) {
+            for (final M entity : sqlDao.getByIdsForAudit(chunk, context)) {
+                entities.put(entity.getId().toString(), entity);
+            }
+        }
+        printSQLWarnings();
+        return entities;
+    }
+
     private List<String> retrieveEntityIdsFromArguments(final Method method, final Object[] args) {
         final Annotation[][] parameterAnnotations = getAnnotations(method);
 
@@ -477,6 +580,21 @@ public class EntitySqlDaoWrapperInvocationHandler<S extends EntitySqlDao<M, E>,
         return parameterAnnotations;
     }
 
+    private String getMetricName(final Method method) {
+        ConcurrentMap<Method, String> metricNamesByMethod = metricNamesBySqlDaoClass.get(sqlDaoClass);
+        if (metricNamesByMethod == null) {
+            metricNamesBySqlDaoClass.putIfAbsent(sqlDaoClass, new ConcurrentHashMap<Method, String>());
+            metricNamesByMethod = metricNamesBySqlDaoClass.get(sqlDaoClass);
+        }
+
+        String metricName = metricNamesByMethod.get(method);
+        if (metricName == null) {
+            metricName = "killbill.dao." + sqlDaoClass.getSimpleName() + "." + method.getName();
+            metricNamesByMethod.put(method, metricName);
+        }
+        return metricName;
+    }
+
     private Builder<String> extractEntityIdsFromBatchArgument(final Iterable arg) {
         final Iterator iterator = arg.iterator();
         final Builder<String> entityIds = new Builder<String>();
@@ -526,6 +644,10 @@ public class EntitySqlDaoWrapperInvocationHandler<S extends EntitySqlDao<M, E>,
         sqlDao.insertAuditFromTransaction(audit, context);
         printSQLWarnings();
 
+        invalidateAuditCaches(tableName, entityRecordId);
+    }
+
+    private void invalidateAuditCaches(final TableName tableName, final Long entityRecordId) {
         // We need to invalidate the caches. There is a small window of doom here where caches will be stale.
         // TODO Knowledge on how the key is constructed is also in AuditSqlDao
         if (tableName.getHistoryTableName() != null) {
@@ -17,12 +17,22 @@
 package org.killbill.billing.util.export.dao;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.Reader;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.TimeZone;
 
 import org.killbill.billing.util.api.ColumnInfo;
-import org.killbill.billing.util.api.DatabaseExportOutputStream;
 
 import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.SerializationFeature;
@@ -30,19 +40,32 @@ import com.fasterxml.jackson.dataformat.csv.CsvMapper;
 import com.fasterxml.jackson.dataformat.csv.CsvSchema;
 import com.fasterxml.jackson.dataformat.csv.CsvSchema.ColumnType;
 
-public class CSVExportOutputStream extends OutputStream implements DatabaseExportOutputStream {
+public class CSVExportOutputStream extends OutputStream implements ResultSetExportOutputStream {
 
     private static final CsvMapper mapper = new CsvMapper();
 
+    private static final char COLUMN_SEPARATOR = '|';
+    private static final char LINE_SEPARATOR = '\n';
+    private static final int BUFFER_SIZE = 64 * 1024;
+
     private final OutputStream delegate;
+    // Used by the ResultSet path only: each row is encoded in this buffer, then handed over to the delegate in a single write
+    private final ExportBuffer buffer;
+    // Same format as Jackson's StdDateFormat (used by the Map path)
+    private final DateFormat dateFormat;
 
     private String currentTableName;
+    private List<ColumnInfo> currentColumns;
+    private ExportColumnType[] currentColumnTypes;
     private CsvSchema currentCSVSchema;
     private ObjectWriter writer;
     private boolean shouldWriteHeader = false;
 
     public CSVExportOutputStream(final OutputStream delegate) {
         this.delegate = delegate;
+        this.buffer = new ExportBuffer(BUFFER_SIZE, delegate);
+        this.dateFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSZ");
+        this.dateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
 
         // To be mysqlimport friendly with datetime type
         mapper.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
@@ -61,12 +84,17 @@ public class CSVExportOutputStream extends OutputStream implements DatabaseExpor
     @Override
     public void newTable(final String tableName, final List<ColumnInfo> columnsForTable) {
         currentTableName = tableName;
+        currentColumns = columnsForTable;
+        currentColumnTypes = new ExportColumnType[columnsForTable.size()];
+        for (int i = 0; i < columnsForTable.size(); i++) {
+            currentColumnTypes[i] = ExportColumnType.fromColumnInfo(columnsForTable.get(i));
+        }
 
         final CsvSchema.Builder builder = CsvSchema.builder();
         // Remove quoting of character which applies (somewhat arbitrarily, Tatu???) for string whose length is greater than MAX_QUOTE_CHECK = 24 -- See CVSWriter#_mayNeedQuotes
         builder.disableQuoteChar();
 
-        builder.setColumnSeparator('|');
+        builder.setColumnSeparator(COLUMN_SEPARATOR);
 
         for (final ColumnInfo columnInfo : columnsForTable) {
             builder.addColumn(columnInfo.getColumnName(), getColumnTypeFromSqlType(columnInfo.getDataType()));
@@ -93,6 +121,105 @@ public class CSVExportOutputStream extends OutputStream implements DatabaseExpor
         write(bytes);
     }
 
+    @Override
+    public void write(final ResultSet resultSet) throws IOException, SQLException {
+        if (shouldWriteHeader) {
+            buffer.writeUtf8("-- ");
+            buffer.writeUtf8(currentTableName);
+            buffer.writeByte(' ');
+            for (int i = 0; i < currentColumns.size(); i++) {
+                if (i > 0) {
+                    buffer.writeByte(COLUMN_SEPARATOR);
+                }
+                buffer.writeUtf8(currentColumns.get(i).getColumnName());
+            }
+            buffer.writeByte(LINE_SEPARATOR);
+            shouldWriteHeader = false;
+        }
+
+        for (int i = 0; i < currentColumnTypes.length; i++) {
+            if (i > 0) {
+                buffer.writeByte(COLUMN_SEPARATOR);
+            }
+            writeColumn(resultSet, i + 1, currentColumnTypes[i]);
+        }
+        buffer.writeByte(LINE_SEPARATOR);
+
+        buffer.drainTo(delegate);
+    }
+
+    private void writeColumn(final ResultSet resultSet, final int columnIndex, final ExportColumnType columnType) throws IOException, SQLException {
+        switch (columnType) {
+            case INTEGER:
+            case STRING:
+                final String string = resultSet.getString(columnIndex);
+                if (string != null) {
+                    buffer.writeUtf8(string);
+                }
+                break;
+            case TEXT:
+                final Reader reader = resultSet.getCharacterStream(columnIndex);
+                if (reader != null) {
+                    try {
+                        buffer.writeUtf8(reader);
+                    } finally {
+                        reader.close();
+                    }
+                }
+                break;
+            case BINARY:
+                final InputStream inputStream = resultSet.getBinaryStream(columnIndex);
+                if (inputStream != null) {
+                    try {
+                        buffer.writeBase64(inputStream);
+                    } finally {
+                        inputStream.close();
+                    }
+                }
+                break;
+            case TIMESTAMP:
+                final Timestamp timestamp = resultSet.getTimestamp(columnIndex);
+                if (timestamp != null) {
+                    buffer.writeUtf8(dateFormat.format(timestamp));
+                }
+                break;
+            default:
+                writeObject(resultSet.getObject(columnIndex));
+                break;
+        }
+    }
+
+    // Mirror the Jackson serialization of the Map path
+    private void writeObject(final Object value) throws IOException, SQLException {
+        if (value == null) {
+            return;
+        }
+
+        if (value instanceof byte[]) {
+            buffer.writeBase64((byte[]) value);
+        } else if (value instanceof Blob) {
+            final InputStream inputStream = ((Blob) value).getBinaryStream();
+            try {
+                buffer.writeBase64(inputStream);
+            } finally {
+                inputStream.close();
+            }
+        } else if (value instanceof Clob) {
+            final Reader reader = ((Clob) value).getCharacterStream();
+            try {
+                buffer.writeUtf8(reader);
+            } finally {
+                reader.close();
+            }
+        } else if (value instanceof java.sql.Date || value instanceof java.sql.Time) {
+            buffer.writeUtf8(value.toString());
+        } else if (value instanceof Date) {
+            buffer.writeUtf8(dateFormat.format((Date) value));
+        } else {
+            buffer.writeUtf8(value.toString());
+        }
+    }
+
     private ColumnType getColumnTypeFromSqlType(final String dataType) {
         if (dataType == null) {
             return ColumnType.STRING;
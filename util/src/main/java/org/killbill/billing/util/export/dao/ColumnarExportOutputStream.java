@@ -0,0 +1,276 @@
+/*
+ * Copyright 2014-2019 Groupon, Inc
+ * Copyright 2014-2019 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.export.dao;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import org.killbill.billing.util.api.ColumnInfo;
+
+/**
+ * Columnar binary export format, an alternative to {@link CSVExportOutputStream} for large accounts.
+ * <p>
+ * Rows are buffered per column and written by groups of rows. All integers are big-endian:
+ * <pre>
+ * table      := magic("KBC1") name columnCount:int4 (name type:int1)* rowGroup* 0:int4
+ * rowGroup   := rowCount:int4 (chunkLength:int4 chunk)*     -- one chunk per column, in the column order
+ * chunk      := value*                                     -- one value per row
+ * value      := 0:int1                                     -- null
+ *             | 1:int1 int8                                -- INTEGER, TIMESTAMP (epoch millis)
+ *             | 1:int1 length:int4 byte*                   -- BINARY (raw), other types (UTF-8)
+ * name       := length:int4 utf8*
+ * </pre>
+ * Tables without any row are not written. The type is the ordinal of {@link ExportColumnType}.
+ * The stream must be closed to terminate the last table.
+ */
+public class ColumnarExportOutputStream implements ResultSetExportOutputStream, Flushable, Closeable {
+
+    static final byte[] MAGIC = {'K', 'B', 'C', '1'};
+    static final int DEFAULT_ROWS_PER_GROUP = 4096;
+
+    private static final int NULL_VALUE = 0;
+    private static final int PRESENT_VALUE = 1;
+
+    private final OutputStream delegate;
+    private final int rowsPerGroup;
+    private final ExportBuffer headerBuffer;
+
+    // Re-used across tables
+    private ExportBuffer[] columnBuffers = new ExportBuffer[0];
+
+    private String currentTableName;
+    private List<ColumnInfo> currentColumns;
+    private ExportColumnType[] currentColumnTypes;
+    private int rowsInGroup = 0;
+    private boolean headerWritten = false;
+
+    public ColumnarExportOutputStream(final OutputStream delegate) {
+        this(delegate, DEFAULT_ROWS_PER_GROUP);
+    }
+
+    public ColumnarExportOutputStream(final OutputStream delegate, final int rowsPerGroup) {
+        this.delegate = delegate;
+        this.rowsPerGroup = rowsPerGroup;
+        this.headerBuffer = new ExportBuffer(4 * 1024, delegate);
+    }
+
+    @Override
+    public void newTable(final String tableName, final List<ColumnInfo> columnsForTable) {
+        try {
+            finishTable();
+        } catch (final IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        currentTableName = tableName;
+        currentColumns = columnsForTable;
+        currentColumnTypes = new ExportColumnType[columnsForTable.size()];
+        for (int i = 0; i < columnsForTable.size(); i++) {
+            currentColumnTypes[i] = ExportColumnType.fromColumnInfo(columnsForTable.get(i));
+        }
+
+        if (columnBuffers.length < columnsForTable.size()) {
+            final int previousLength = columnBuffers.length;
+            columnBuffers = Arrays.copyOf(columnBuffers, columnsForTable.size());
+            for (int i = previousLength; i < columnBuffers.length; i++) {
+                // No spill: the chunk length needs to be known before the chunk is written
+                columnBuffers[i] = new ExportBuffer(16 * 1024, null);
+            }
+        }
+    }
+
+    @Override
+    public void write(final Map<String, Object> row) throws IOException {
+        for (int i = 0; i < currentColumnTypes.length; i++) {
+            try {
+                writeObject(columnBuffers[i], currentColumnTypes[i], row.get(currentColumns.get(i).getColumnName()));
+            } catch (final SQLException e) {
+                throw new IOException(e);
+            }
+        }
+        endRow();
+    }
+
+    @Override
+    public void write(final ResultSet resultSet) throws IOException, SQLException {
+        for (int i = 0; i < currentColumnTypes.length; i++) {
+            writeColumn(columnBuffers[i], currentColumnTypes[i], resultSet, i + 1);
+        }
+        endRow();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        delegate.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        finishTable();
+        delegate.close();
+    }
+
+    private void writeColumn(final ExportBuffer buffer, final ExportColumnType columnType, final ResultSet resultSet, final int columnIndex) throws IOException, SQLException {
+        switch (columnType) {
+            case INTEGER:
+                final long longValue = resultSet.getLong(columnIndex);
+                if (resultSet.wasNull()) {
+                    buffer.writeByte(NULL_VALUE);
+                } else {
+                    buffer.writeByte(PRESENT_VALUE);
+                    buffer.writeLong(longValue);
+                }
+                break;
+            case TIMESTAMP:
+                writeObject(buffer, columnType, resultSet.getTimestamp(columnIndex));
+                break;
+            case STRING:
+                writeObject(buffer, columnType, resultSet.getString(columnIndex));
+                break;
+            case TEXT:
+                writeObject(buffer, columnType, resultSet.getCharacterStream(columnIndex));
+                break;
+            case BINARY:
+                writeObject(buffer, columnType, resultSet.getBinaryStream(columnIndex));
+                break;
+            default:
+                writeObject(buffer, columnType, resultSet.getObject(columnIndex));
+                break;
+        }
+    }
+
+    private void writeObject(final ExportBuffer buffer, final ExportColumnType columnType, final Object value) throws IOException, SQLException {
+        if (value == null) {
+            buffer.writeByte(NULL_VALUE);
+            return;
+        }
+        buffer.writeByte(PRESENT_VALUE);
+
+        if (columnType == ExportColumnType.INTEGER) {
+            buffer.writeLong(value instanceof Number ? ((Number) value).longValue() : Long.parseLong(value.toString()));
+            return;
+        } else if (columnType == ExportColumnType.TIMESTAMP && value instanceof Date) {
+            buffer.writeLong(((Date) value).getTime());
+            return;
+        }
+
+        // Length-prefixed value: reserve the length, stream the value, then patch the length
+        final int lengthPosition = buffer.size();
+        buffer.writeInt(0);
+        if (value instanceof InputStream) {
+            writeAndClose(buffer, (InputStream) value);
+        } else if (value instanceof Blob) {
+            writeAndClose(buffer, ((Blob) value).getBinaryStream());
+        } else if (value instanceof byte[]) {
+            buffer.writeBytes((byte[]) value, 0, ((byte[]) value).length);
+        } else if (value instanceof Reader) {
+            writeAndClose(buffer, (Reader) value);
+        } else if (value instanceof Clob) {
+            writeAndClose(buffer, ((Clob) value).getCharacterStream());
+        } else {
+            buffer.writeUtf8(value.toString());
+        }
+        buffer.setInt(lengthPosition, buffer.size() - lengthPosition - 4);
+    }
+
+    private void writeAndClose(final ExportBuffer buffer, final InputStream inputStream) throws IOException {
+        try {
+            buffer.writeBytes(inputStream);
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    private void writeAndClose(final ExportBuffer buffer, final Reader reader) throws IOException {
+        try {
+            buffer.writeUtf8(reader);
+        } finally {
+            reader.close();
+        }
+    }
+
+    private void endRow() throws IOException {
+        rowsInGroup++;
+        if (rowsInGroup >= rowsPerGroup) {
+            writeRowGroup();
+        }
+    }
+
+    private void writeRowGroup() throws IOException {
+        if (!headerWritten) {
+            writeTableHeader();
+        }
+
+        headerBuffer.writeInt(rowsInGroup);
+        headerBuffer.drainTo(delegate);
+        for (int i = 0; i < currentColumnTypes.length; i++) {
+            headerBuffer.writeInt(columnBuffers[i].size());
+            headerBuffer.drainTo(delegate);
+            columnBuffers[i].drainTo(delegate);
+        }
+        rowsInGroup = 0;
+    }
+
+    private void writeTableHeader() throws IOException {
+        headerBuffer.writeBytes(MAGIC, 0, MAGIC.length);
+        writeName(currentTableName);
+        headerBuffer.writeInt(currentColumns.size());
+        for (int i = 0; i < currentColumns.size(); i++) {
+            writeName(currentColumns.get(i).getColumnName());
+            headerBuffer.writeByte(currentColumnTypes[i].ordinal());
+        }
+        headerWritten = true;
+    }
+
+    private void writeName(final String name) throws IOException {
+        final byte[] bytes = name.getBytes("UTF-8");
+        headerBuffer.writeInt(bytes.length);
+        headerBuffer.writeBytes(bytes, 0, bytes.length);
+    }
+
+    private void finishTable() throws IOException {
+        if (currentColumnTypes == null) {
+            return;
+        }
+
+        if (rowsInGroup > 0) {
+            writeRowGroup();
+        }
+        if (headerWritten) {
+            headerBuffer.writeInt(0);
+            headerBuffer.drainTo(delegate);
+        }
+
+        currentTableName = null;
+        currentColumns = null;
+        currentColumnTypes = null;
+        headerWritten = false;
+    }
+}
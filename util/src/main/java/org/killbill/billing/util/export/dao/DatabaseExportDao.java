@@ -19,6 +19,8 @@ package org.killbill.billing.util.export.dao;
 import java.io.IOException;
 import java.sql.Blob;
 import java.sql.Clob;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -150,19 +152,58 @@ public class DatabaseExportDao {
                     .append(tableName)
                     .append(" where ")
                     .append(tableType.getAccountRecordIdColumnName())
-                    .append(" = :accountRecordId and ")
+                    .append(" = ? and ")
                     .append(tableType.getTenantRecordIdColumnName())
-                    .append("  = :tenantRecordId");
+                    .append("  = ?");
 
         // Notify the stream that we're about to write data for a different table
         out.newTable(tableName, columnsForTable);
 
+        if (out instanceof ResultSetExportOutputStream) {
+            exportResultSet((ResultSetExportOutputStream) out, queryBuilder.toString(), context);
+        } else {
+            exportRows(out, queryBuilder.toString(), context);
+        }
+    }
+
+    // Hand over the JDBC ResultSet to the stream, which reads the values (and streams the LOBs) itself
+    private void exportResultSet(final ResultSetExportOutputStream out, final String query, final InternalTenantContext context) {
+        dbi.withHandle(new HandleCallback<Void>() {
+            @Override
+            public Void withHandle(final Handle handle) throws Exception {
+                final PreparedStatement statement = handle.getConnection().prepareStatement(query);
+                try {
+                    statement.setLong(1, context.getAccountRecordId());
+                    statement.setLong(2, context.getTenantRecordId());
+
+                    final ResultSet resultSet = statement.executeQuery();
+                    try {
+                        while (resultSet.next()) {
+                            try {
+                                out.write(resultSet);
+                            } catch (final IOException e) {
+                                logger.warn("Unable to write row #{} for query {}", resultSet.getRow(), query, e);
+                                throw e;
+                            }
+                        }
+                    } finally {
+                        resultSet.close();
+                    }
+                } finally {
+                    statement.close();
+                }
+                return null;
+            }
+        });
+    }
+
+    private void exportRows(final DatabaseExportOutputStream out, final String query, final InternalTenantContext context) {
         dbi.withHandle(new HandleCallback<Void>() {
             @Override
             public Void withHandle(final Handle handle) throws Exception {
-                final ResultIterator<Map<String, Object>> iterator = handle.createQuery(queryBuilder.toString())
-                                                                           .bind("accountRecordId", context.getAccountRecordId())
-                                                                           .bind("tenantRecordId", context.getTenantRecordId())
+                final ResultIterator<Map<String, Object>> iterator = handle.createQuery(query)
+                                                                           .bind(0, context.getAccountRecordId())
+                                                                           .bind(1, context.getTenantRecordId())
                                                                            .iterator();
                 try {
                     while (iterator.hasNext()) {
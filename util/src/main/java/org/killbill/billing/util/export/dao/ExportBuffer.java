@@ -0,0 +1,238 @@
+/*
+ * Copyright 2014-2019 Groupon, Inc
+ * Copyright 2014-2019 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.export.dao;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.util.Arrays;
+
+import javax.annotation.Nullable;
+
+/**
+ * Reusable byte buffer used by the export writers to encode values without intermediate String or byte[] allocations.
+ * <p>
+ * When a spill stream is configured, the buffer is drained into it instead of growing (this keeps memory bounded
+ * when streaming large LOBs). Without a spill stream, the buffer grows as needed and supports patching (see {@link #setInt}).
+ */
+class ExportBuffer {
+
+    private static final byte[] BASE64_ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".getBytes();
+    private static final char BASE64_PAD = '=';
+
+    // Scratch buffers for LOB streaming -- the binary one is a multiple of 3 to base64 encode full chunks
+    private final byte[] byteChunk = new byte[3 * 1024];
+    private final char[] charChunk = new char[1024];
+
+    private final OutputStream spill;
+
+    private byte[] bytes;
+    private int size;
+
+    ExportBuffer(final int initialCapacity, @Nullable final OutputStream spill) {
+        this.bytes = new byte[initialCapacity];
+        this.spill = spill;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void reset() {
+        size = 0;
+    }
+
+    void writeTo(final OutputStream out) throws IOException {
+        out.write(bytes, 0, size);
+    }
+
+    void drainTo(final OutputStream out) throws IOException {
+        writeTo(out);
+        reset();
+    }
+
+    void writeByte(final int b) throws IOException {
+        ensureCapacity(1);
+        bytes[size++] = (byte) b;
+    }
+
+    void writeBytes(final byte[] src, final int offset, final int length) throws IOException {
+        ensureCapacity(length);
+        System.arraycopy(src, offset, bytes, size, length);
+        size += length;
+    }
+
+    void writeInt(final int v) throws IOException {
+        ensureCapacity(4);
+        setInt(size, v);
+        size += 4;
+    }
+
+    void setInt(final int position, final int v) {
+        bytes[position] = (byte) (v >>> 24);
+        bytes[position + 1] = (byte) (v >>> 16);
+        bytes[position + 2] = (byte) (v >>> 8);
+        bytes[position + 3] = (byte) v;
+    }
+
+    void writeLong(final long v) throws IOException {
+        writeInt((int) (v >>> 32));
+        writeInt((int) v);
+    }
+
+    void writeUtf8(final CharSequence value) throws IOException {
+        final int length = value.length();
+        for (int i = 0; i < length; i++) {
+            final char c = value.charAt(i);
+            if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                writeCodePoint(Character.toCodePoint(c, value.charAt(++i)));
+            } else {
+                writeChar(c);
+            }
+        }
+    }
+
+    void writeUtf8(final char[] value, final int offset, final int length) throws IOException {
+        final int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            final char c = value[i];
+            if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(value[i + 1])) {
+                writeCodePoint(Character.toCodePoint(c, value[++i]));
+            } else {
+                writeChar(c);
+            }
+        }
+    }
+
+    /**
+     * Stream the content of the reader as UTF-8, without materializing it.
+     */
+    void writeUtf8(final Reader reader) throws IOException {
+        int carry = 0;
+        int read;
+        while ((read = reader.read(charChunk, carry, charChunk.length - carry)) != -1) {
+            final int available = carry + read;
+            // Don't split a surrogate pair across two chunks
+            final int encodable = available > 0 && Character.isHighSurrogate(charChunk[available - 1]) ? available - 1 : available;
+            writeUtf8(charChunk, 0, encodable);
+            carry = available - encodable;
+            if (carry > 0) {
+                charChunk[0] = charChunk[available - 1];
+            }
+        }
+        writeUtf8(charChunk, 0, carry);
+    }
+
+    /**
+     * Stream the content of the input stream, without materializing it.
+     */
+    void writeBytes(final InputStream inputStream) throws IOException {
+        int read;
+        while ((read = inputStream.read(byteChunk)) != -1) {
+            writeBytes(byteChunk, 0, read);
+        }
+    }
+
+    void writeBase64(final byte[] value) throws IOException {
+        final int fullLength = value.length - value.length % 3;
+        writeBase64Triplets(value, 0, fullLength);
+        writeBase64Tail(value, fullLength, value.length - fullLength);
+    }
+
+    /**
+     * Stream the content of the input stream as base64 (standard alphabet, padded, no line feeds), without materializing it.
+     */
+    void writeBase64(final InputStream inputStream) throws IOException {
+        int carry = 0;
+        int read;
+        while ((read = inputStream.read(byteChunk, carry, byteChunk.length - carry)) != -1) {
+            final int available = carry + read;
+            final int fullLength = available - available % 3;
+            writeBase64Triplets(byteChunk, 0, fullLength);
+            carry = available - fullLength;
+            System.arraycopy(byteChunk, fullLength, byteChunk, 0, carry);
+        }
+        writeBase64Tail(byteChunk, 0, carry);
+    }
+
+    private void writeBase64Triplets(final byte[] src, final int offset, final int length) throws IOException {
+        for (int i = offset; i < offset + length; i += 3) {
+            final int triplet = ((src[i] & 0xFF) << 16) | ((src[i + 1] & 0xFF) << 8) | (src[i + 2] & 0xFF);
+            ensureCapacity(4);
+            bytes[size++] = BASE64_ALPHABET[(triplet >>> 18) & 0x3F];
+            bytes[size++] = BASE64_ALPHABET[(triplet >>> 12) & 0x3F];
+            bytes[size++] = BASE64_ALPHABET[(triplet >>> 6) & 0x3F];
+            bytes[size++] = BASE64_ALPHABET[triplet & 0x3F];
+        }
+    }
+
+    private void writeBase64Tail(final byte[] src, final int offset, final int length) throws IOException {
+        if (length == 0) {
+            return;
+        }
+
+        final int b0 = src[offset] & 0xFF;
+        final int b1 = length > 1 ? src[offset + 1] & 0xFF : 0;
+        ensureCapacity(4);
+        bytes[size++] = BASE64_ALPHABET[b0 >>> 2];
+        bytes[size++] = BASE64_ALPHABET[((b0 & 0x03) << 4) | (b1 >>> 4)];
+        bytes[size++] = length > 1 ? BASE64_ALPHABET[(b1 & 0x0F) << 2] : (byte) BASE64_PAD;
+        bytes[size++] = (byte) BASE64_PAD;
+    }
+
+    private void writeChar(final char c) throws IOException {
+        if (c < 0x80) {
+            ensureCapacity(1);
+            bytes[size++] = (byte) c;
+        } else if (c < 0x800) {
+            ensureCapacity(2);
+            bytes[size++] = (byte) (0xC0 | (c >> 6));
+            bytes[size++] = (byte) (0x80 | (c & 0x3F));
+        } else if (Character.isSurrogate(c)) {
+            // Unpaired surrogate, same replacement as String#getBytes
+            ensureCapacity(1);
+            bytes[size++] = (byte) '?';
+        } else {
+            ensureCapacity(3);
+            bytes[size++] = (byte) (0xE0 | (c >> 12));
+            bytes[size++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+            bytes[size++] = (byte) (0x80 | (c & 0x3F));
+        }
+    }
+
+    private void writeCodePoint(final int codePoint) throws IOException {
+        ensureCapacity(4);
+        bytes[size++] = (byte) (0xF0 | (codePoint >> 18));
+        bytes[size++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+        bytes[size++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+        bytes[size++] = (byte) (0x80 | (codePoint & 0x3F));
+    }
+
+    private void ensureCapacity(final int length) throws IOException {
+        if (size + length <= bytes.length) {
+            return;
+        }
+
+        if (spill != null && length <= bytes.length) {
+            drainTo(spill);
+        } else {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + length));
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2014-2019 Groupon, Inc
+ * Copyright 2014-2019 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.export.dao;
+
+import java.sql.Types;
+import java.util.Locale;
+
+import org.killbill.billing.util.api.ColumnInfo;
+
+/**
+ * How a column is read from the ResultSet, derived from the DATA_TYPE reported by information_schema.columns.
+ * <p>
+ * MySQL and PostgreSQL report type names while H2 reports the java.sql.Types code: both are handled.
+ */
+enum ExportColumnType {
+    /* Integral types, read with getString (preserves unsigned bigint) */
+    INTEGER,
+    /* Short character types, read with getString */
+    STRING,
+    /* Large character types, streamed with getCharacterStream */
+    TEXT,
+    /* Binary types, streamed with getBinaryStream */
+    BINARY,
+    /* Date and time types with a time component, read with getTimestamp */
+    TIMESTAMP,
+    /* Anything else (boolean, decimal, date, ...), read with getObject */
+    OTHER;
+
+    static ExportColumnType fromColumnInfo(final ColumnInfo columnInfo) {
+        return fromDataType(columnInfo.getDataType());
+    }
+
+    static ExportColumnType fromDataType(final String dataType) {
+        if (dataType == null) {
+            return OTHER;
+        }
+
+        final String normalizedDataType = dataType.trim().toLowerCase(Locale.ENGLISH);
+        if (normalizedDataType.matches("-?[0-9]+")) {
+            return fromSqlType(Integer.valueOf(normalizedDataType));
+        }
+
+        if ("bigint".equals(normalizedDataType) ||
+            "int".equals(normalizedDataType) ||
+            "integer".equals(normalizedDataType) ||
+            "mediumint".equals(normalizedDataType) ||
+            "smallint".equals(normalizedDataType)) {
+            return INTEGER;
+        } else if ("char".equals(normalizedDataType) ||
+                   "character".equals(normalizedDataType) ||
+                   "varchar".equals(normalizedDataType) ||
+                   "character varying".equals(normalizedDataType) ||
+                   "enum".equals(normalizedDataType) ||
+                   "set".equals(normalizedDataType)) {
+            return STRING;
+        } else if ("text".equals(normalizedDataType) ||
+                   "tinytext".equals(normalizedDataType) ||
+                   "mediumtext".equals(normalizedDataType) ||
+                   "longtext".equals(normalizedDataType) ||
+                   "clob".equals(normalizedDataType)) {
+            return TEXT;
+        } else if ("blob".equals(normalizedDataType) ||
+                   "tinyblob".equals(normalizedDataType) ||
+                   "mediumblob".equals(normalizedDataType) ||
+                   "longblob".equals(normalizedDataType) ||
+                   "binary".equals(normalizedDataType) ||
+                   "varbinary".equals(normalizedDataType) ||
+                   "bytea".equals(normalizedDataType)) {
+            return BINARY;
+        } else if ("datetime".equals(normalizedDataType) ||
+                   "timestamp".equals(normalizedDataType) ||
+                   "timestamp without time zone".equals(normalizedDataType)) {
+            return TIMESTAMP;
+        } else {
+            return OTHER;
+        }
+    }
+
+    private static ExportColumnType fromSqlType(final int sqlType) {
+        switch (sqlType) {
+            case Types.BIGINT:
+            case Types.INTEGER:
+            case Types.SMALLINT:
+                return INTEGER;
+            case Types.CHAR:
+            case Types.VARCHAR:
+            case Types.NCHAR:
+            case Types.NVARCHAR:
+                return STRING;
+            case Types.CLOB:
+            case Types.NCLOB:
+            case Types.LONGVARCHAR:
+            case Types.LONGNVARCHAR:
+                return TEXT;
+            case Types.BLOB:
+            case Types.BINARY:
+            case Types.VARBINARY:
+            case Types.LONGVARBINARY:
+                return BINARY;
+            case Types.TIMESTAMP:
+                return TIMESTAMP;
+            default:
+                return OTHER;
+        }
+    }
+}
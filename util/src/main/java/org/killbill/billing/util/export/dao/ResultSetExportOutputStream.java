@@ -0,0 +1,39 @@
+/*
+ * Copyright 2014-2019 Groupon, Inc
+ * Copyright 2014-2019 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.export.dao;
+
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.killbill.billing.util.api.DatabaseExportOutputStream;
+
+/**
+ * Export stream able to consume rows straight from the JDBC ResultSet, without building an intermediate Map per row.
+ * <p>
+ * The columns of the ResultSet are in the order of the ColumnInfo list passed to {@link #newTable}.
+ */
+public interface ResultSetExportOutputStream extends DatabaseExportOutputStream {
+
+    /**
+     * Write the current row of the ResultSet. Implementations must not move the cursor.
+     *
+     * @param resultSet the ResultSet, positioned on the row to write
+     */
+    public void write(ResultSet resultSet) throws IOException, SQLException;
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2014-2019 Groupon, Inc
+ * Copyright 2014-2019 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.globallocker;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.killbill.billing.util.config.definition.GlobalLockerConfig;
+import org.killbill.billing.util.metrics.BillingMetrics;
+
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Registry of the contention statistics recorded by the {@link InstrumentedGlobalLocker}, per lock type.
+ * The statistics are also exported through {@link BillingMetrics} (see {@link LockTypeStats} for the metric names).
+ */
+@Singleton
+public class GlobalLockerStats {
+
+    private final ConcurrentMap<String, LockTypeStats> statsPerLockType = new ConcurrentHashMap<String, LockTypeStats>();
+    private final int maxTrackedCallSites;
+    private final BillingMetrics billingMetrics;
+
+    @Inject
+    public GlobalLockerStats(final GlobalLockerConfig config, final BillingMetrics billingMetrics) {
+        this(config.getMaxTrackedCallSites(), billingMetrics);
+    }
+
+    public GlobalLockerStats(final int maxTrackedCallSites, final BillingMetrics billingMetrics) {
+        this.maxTrackedCallSites = maxTrackedCallSites;
+        this.billingMetrics = billingMetrics;
+    }
+
+    public LockTypeStats getStats(final String lockType) {
+        LockTypeStats stats = statsPerLockType.get(lockType);
+        if (stats == null) {
+            final LockTypeStats newStats = new LockTypeStats(lockType, maxTrackedCallSites, billingMetrics);
+            if (statsPerLockType.putIfAbsent(lockType, newStats) == null) {
+                // Only the instance actually used is exported
+                newStats.registerGauges();
+            }
+            stats = statsPerLockType.get(lockType);
+        }
+        return stats;
+    }
+
+    public Map<String, LockTypeStats> getAllStats() {
+        return ImmutableMap.<String, LockTypeStats>copyOf(statsPerLockType);
+    }
+
+    public void reset() {
+        statsPerLockType.clear();
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2014-2019 Groupon, Inc
+ * Copyright 2014-2019 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.globallocker;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.killbill.billing.util.config.definition.GlobalLockerConfig;
+import org.killbill.commons.locker.GlobalLock;
+import org.killbill.commons.locker.GlobalLocker;
+import org.killbill.commons.locker.LockFailedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * GlobalLocker decorator which records wait time, hold time, holder call site and failures per lock type,
+ * and retries with a jittered exponential back-off (instead of the fixed back-off of the underlying implementation).
+ */
+public class InstrumentedGlobalLocker implements GlobalLocker {
+
+    private static final Logger logger = LoggerFactory.getLogger(InstrumentedGlobalLocker.class);
+
+    private static final String UNKNOWN_CALL_SITE = "UNKNOWN";
+
+    private final GlobalLocker delegate;
+    private final GlobalLockerStats globalLockerStats;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    private final double backoffMultiplier;
+    private final boolean trackCallSites;
+
+    public InstrumentedGlobalLocker(final GlobalLocker delegate, final GlobalLockerStats globalLockerStats, final GlobalLockerConfig config) {
+        this(delegate,
+             globalLockerStats,
+             config.getInitialBackoff().getMillis(),
+             config.getMaxBackoff().getMillis(),
+             config.getBackoffMultiplier(),
+             config.isCallSiteTrackingEnabled());
+    }
+
+    public InstrumentedGlobalLocker(final GlobalLocker delegate,
+                                    final GlobalLockerStats globalLockerStats,
+                                    final long initialBackoffMillis,
+                                    final long maxBackoffMillis,
+                                    final double backoffMultiplier,
+                                    final boolean trackCallSites) {
+        this.delegate = delegate;
+        this.globalLockerStats = globalLockerStats;
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = Math.max(initialBackoffMillis, maxBackoffMillis);
+        this.backoffMultiplier = Math.max(1.0, backoffMultiplier);
+        this.trackCallSites = trackCallSites;
+    }
+
+    @Override
+    public GlobalLock lockWithNumberOfTries(final String service, final String lockKey, final int retry) throws LockFailedException {
+        final LockTypeStats stats = globalLockerStats.getStats(service);
+        final int nbTries = Math.max(retry, 1);
+        final long startNanos = System.nanoTime();
+
+        long backoffMillis = initialBackoffMillis;
+        LockFailedException lastException = null;
+        int attempt = 0;
+        while (attempt < nbTries) {
+            attempt++;
+            try {
+                final GlobalLock lock = delegate.lockWithNumberOfTries(service, lockKey, 1);
+                final long acquiredNanos = System.nanoTime();
+                stats.recordAcquisition(acquiredNanos - startNanos, attempt - 1);
+                return new InstrumentedGlobalLock(lock, stats, trackCallSites ? findCallSite() : null, acquiredNanos);
+            } catch (final LockFailedException e) {
+                lastException = e;
+            }
+
+            if (attempt < nbTries) {
+                if (!sleepWithJitter(backoffMillis)) {
+                    break;
+                }
+                backoffMillis = Math.min(maxBackoffMillis, (long) (backoffMillis * backoffMultiplier));
+            }
+        }
+
+        stats.recordFailure(System.nanoTime() - startNanos, attempt - 1);
+        logger.warn("Failed to acquire lock service='{}', lockKey='{}' after {} attempts", service, lockKey, attempt);
+        throw lastException;
+    }
+
+    @Override
+    public boolean isFree(final String service, final String lockKey) {
+        return delegate.isFree(service, lockKey);
+    }
+
+    // Equal jitter: sleep between backoff/2 and backoff, to spread competing nodes without collapsing to 0
+    private boolean sleepWithJitter(final long backoffMillis) {
+        if (backoffMillis <= 0) {
+            return true;
+        }
+        final long halfBackoff = backoffMillis / 2;
+        final long sleepMillis = halfBackoff + ThreadLocalRandom.current().nextLong(backoffMillis - halfBackoff + 1);
+        try {
+            TimeUnit.MILLISECONDS.sleep(sleepMillis);
+            return true;
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static String findCallSite() {
+        final StackTraceElement[] stackTrace = Thread.currentThread().getStackTrace();
+        for (final StackTraceElement element : stackTrace) {
+            final String className = element.getClassName();
+            if (className.startsWith("java.") ||
+                className.startsWith("sun.") ||
+                className.startsWith("org.killbill.commons.locker") ||
+                className.startsWith(InstrumentedGlobalLocker.class.getPackage().getName()) ||
+                // Guice AOP generated classes
+                className.contains("$$EnhancerByGuice$$")) {
+                continue;
+            }
+            return className + "#" + element.getMethodName();
+        }
+        return UNKNOWN_CALL_SITE;
+    }
+
+    private static final class InstrumentedGlobalLock implements GlobalLock {
+
+        private final GlobalLock delegate;
+        private final LockTypeStats stats;
+        private final String callSite;
+        private final long acquiredNanos;
+        private final AtomicBoolean released = new AtomicBoolean(false);
+
+        private InstrumentedGlobalLock(final GlobalLock delegate, final LockTypeStats stats, final String callSite, final long acquiredNanos) {
+            this.delegate = delegate;
+            this.stats = stats;
+            this.callSite = callSite;
+            this.acquiredNanos = acquiredNanos;
+        }
+
+        @Override
+        public void release() {
+            try {
+                delegate.release();
+            } finally {
+                if (released.compareAndSet(false, true)) {
+                    stats.recordRelease(callSite, System.nanoTime() - acquiredNanos);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright 2014-2019 Groupon, Inc
+ * Copyright 2014-2019 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.globallocker;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.killbill.billing.util.metrics.BillingMetrics;
+
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Contention statistics for a given lock type (i.e. the service name passed to the GlobalLocker, such as ACCNT_INV_PAY).
+ * <p/>
+ * All times are exposed in milliseconds. Wait and hold times are also recorded as timers in {@link BillingMetrics}
+ * ({@code killbill.lock.<lockType>.wait}, {@code .wait.failed} and {@code .hold}), along with the number of retries
+ * ({@code .retries}) and the number of locks currently held ({@code .held}).
+ */
+public class LockTypeStats {
+
+    // Bucket used once we reach the maximum number of tracked call sites, to avoid unbounded growth
+    static final String OTHER_CALL_SITES = "OTHER";
+
+    private final String lockType;
+    private final int maxTrackedCallSites;
+    private final BillingMetrics billingMetrics;
+    // Metric names, computed once as they are recorded on each lock operation
+    private final String waitMetricName;
+    private final String failedWaitMetricName;
+    private final String holdMetricName;
+    private final String retriesMetricName;
+
+    private final AtomicLong nbAcquisitions = new AtomicLong(0);
+    private final AtomicLong nbFailures = new AtomicLong(0);
+    private final AtomicLong nbRetries = new AtomicLong(0);
+    private final AtomicLong nbHeld = new AtomicLong(0);
+    private final AtomicLong totalWaitNanos = new AtomicLong(0);
+    private final AtomicLong maxWaitNanos = new AtomicLong(0);
+    private final AtomicLong totalFailedWaitNanos = new AtomicLong(0);
+    private final AtomicLong totalHoldNanos = new AtomicLong(0);
+    private final AtomicLong maxHoldNanos = new AtomicLong(0);
+
+    private final ConcurrentMap<String, CallSiteStats> callSites = new ConcurrentHashMap<String, CallSiteStats>();
+
+    public LockTypeStats(final String lockType, final int maxTrackedCallSites, final BillingMetrics billingMetrics) {
+        this.lockType = lockType;
+        this.maxTrackedCallSites = maxTrackedCallSites;
+        this.billingMetrics = billingMetrics;
+
+        final String metricPrefix = "killbill.lock." + lockType;
+        this.waitMetricName = metricPrefix + ".wait";
+        this.failedWaitMetricName = metricPrefix + ".wait.failed";
+        this.holdMetricName = metricPrefix + ".hold";
+        this.retriesMetricName = metricPrefix + ".retries";
+    }
+
+    void registerGauges() {
+        billingMetrics.registerGauge("killbill.lock." + lockType + ".held", nbHeld);
+    }
+
+    void recordAcquisition(final long waitNanos, final int retries) {
+        nbAcquisitions.incrementAndGet();
+        nbHeld.incrementAndGet();
+        nbRetries.addAndGet(retries);
+        totalWaitNanos.addAndGet(waitNanos);
+        updateMax(maxWaitNanos, waitNanos);
+        billingMetrics.recordDuration(waitMetricName, waitNanos);
+        recordRetries(retries);
+    }
+
+    void recordFailure(final long waitNanos, final int retries) {
+        nbFailures.incrementAndGet();
+        nbRetries.addAndGet(retries);
+        totalFailedWaitNanos.addAndGet(waitNanos);
+        billingMetrics.recordDuration(failedWaitMetricName, waitNanos);
+        recordRetries(retries);
+    }
+
+    void recordRelease(final String callSite, final long holdNanos) {
+        nbHeld.decrementAndGet();
+        totalHoldNanos.addAndGet(holdNanos);
+        updateMax(maxHoldNanos, holdNanos);
+        billingMetrics.recordDuration(holdMetricName, holdNanos);
+        if (callSite != null) {
+            getCallSiteStats(callSite).record(holdNanos);
+        }
+    }
+
+    private void recordRetries(final int retries) {
+        if (retries > 0) {
+            billingMetrics.incrementCounter(retriesMetricName, retries);
+        }
+    }
+
+    private CallSiteStats getCallSiteStats(final String callSite) {
+        CallSiteStats callSiteStats = callSites.get(callSite);
+        if (callSiteStats == null) {
+            final String key = callSites.size() < maxTrackedCallSites ? callSite : OTHER_CALL_SITES;
+            callSites.putIfAbsent(key, new CallSiteStats());
+            callSiteStats = callSites.get(key);
+        }
+        return callSiteStats;
+    }
+
+    private static void updateMax(final AtomicLong max, final long value) {
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    private static long toMillis(final long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    public String getLockType() {
+        return lockType;
+    }
+
+    public long getNbAcquisitions() {
+        return nbAcquisitions.get();
+    }
+
+    public long getNbFailures() {
+        return nbFailures.get();
+    }
+
+    public long getNbRetries() {
+        return nbRetries.get();
+    }
+
+    public long getNbCurrentlyHeld() {
+        return nbHeld.get();
+    }
+
+    public long getTotalWaitTimeMs() {
+        return toMillis(totalWaitNanos.get());
+    }
+
+    public long getAvgWaitTimeMs() {
+        final long nb = nbAcquisitions.get();
+        return nb == 0 ? 0 : toMillis(totalWaitNanos.get() / nb);
+    }
+
+    public long getMaxWaitTimeMs() {
+        return toMillis(maxWaitNanos.get());
+    }
+
+    public long getTotalFailedWaitTimeMs() {
+        return toMillis(totalFailedWaitNanos.get());
+    }
+
+    public long getTotalHoldTimeMs() {
+        return toMillis(totalHoldNanos.get());
+    }
+
+    public long getMaxHoldTimeMs() {
+        return toMillis(maxHoldNanos.get());
+    }
+
+    public Map<String, CallSiteStats> getCallSites() {
+        return ImmutableMap.<String, CallSiteStats>copyOf(callSites);
+    }
+
+    public static class CallSiteStats {
+
+        private final AtomicLong nbHolds = new AtomicLong(0);
+        private final AtomicLong totalHoldNanos = new AtomicLong(0);
+        private final AtomicLong maxHoldNanos = new AtomicLong(0);
+
+        void record(final long holdNanos) {
+            nbHolds.incrementAndGet();
+            totalHoldNanos.addAndGet(holdNanos);
+            updateMax(maxHoldNanos, holdNanos);
+        }
+
+        public long getNbHolds() {
+            return nbHolds.get();
+        }
+
+        public long getTotalHoldTimeMs() {
+            return toMillis(totalHoldNanos.get());
+        }
+
+        public long getMaxHoldTimeMs() {
+            return toMillis(maxHoldNanos.get());
+        }
+    }
+}
@@ -21,6 +21,7 @@ package org.killbill.billing.util.glue;
 import org.killbill.billing.platform.api.KillbillConfigSource;
 import org.killbill.billing.util.api.AuditUserApi;
 import org.killbill.billing.util.audit.api.DefaultAuditUserApi;
+import org.killbill.billing.util.audit.api.TargetedAuditUserApi;
 import org.killbill.billing.util.audit.dao.AuditDao;
 import org.killbill.billing.util.audit.dao.DefaultAuditDao;
 
@@ -35,7 +36,9 @@ public class AuditModule extends KillBillModule {
     }
 
     protected void installUserApi() {
-        bind(AuditUserApi.class).to(DefaultAuditUserApi.class).asEagerSingleton();
+        bind(DefaultAuditUserApi.class).asEagerSingleton();
+        bind(AuditUserApi.class).to(DefaultAuditUserApi.class);
+        bind(TargetedAuditUserApi.class).to(DefaultAuditUserApi.class);
     }
 
     @Override
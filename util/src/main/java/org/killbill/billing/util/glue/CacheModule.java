@@ -22,6 +22,7 @@ import javax.cache.CacheManager;
 
 import org.killbill.billing.platform.api.KillbillConfigSource;
 import org.killbill.billing.util.cache.AccountBCDCacheLoader;
+import org.killbill.billing.util.cache.AccountControlTagsCacheLoader;
 import org.killbill.billing.util.cache.AccountIdFromBundleIdCacheLoader;
 import org.killbill.billing.util.cache.AccountRecordIdCacheLoader;
 import org.killbill.billing.util.cache.AuditLogCacheLoader;
@@ -43,6 +44,7 @@ import org.killbill.billing.util.cache.TenantRecordIdCacheLoader;
 import org.killbill.billing.util.cache.TenantStateMachineConfigCacheLoader;
 import org.killbill.billing.util.config.definition.EhCacheConfig;
 import org.killbill.billing.util.config.definition.RedisCacheConfig;
+import org.killbill.billing.util.config.definition.RequestCacheConfig;
 import org.redisson.api.RedissonClient;
 import org.skife.config.ConfigurationObjectFactory;
 
@@ -66,6 +68,9 @@ public class CacheModule extends KillBillModule {
         final RedisCacheConfig redisCacheConfig = new ConfigurationObjectFactory(skifeConfigSource).build(RedisCacheConfig.class);
         bind(RedisCacheConfig.class).toInstance(redisCacheConfig);
 
+        final RequestCacheConfig requestCacheConfig = new ConfigurationObjectFactory(skifeConfigSource).build(RequestCacheConfig.class);
+        bind(RequestCacheConfig.class).toInstance(requestCacheConfig);
+
         if (redisCacheConfig.isRedisCachingEnabled()) {
             bind(RedissonClient.class).annotatedWith(Names.named(REDIS_CACHE_CLIENT)).toProvider(RedissonCacheClientProvider.class).asEagerSingleton();
             bind(CacheManager.class).toProvider(Redis107CacheManagerProvider.class).asEagerSingleton();
@@ -80,6 +85,7 @@ public class CacheModule extends KillBillModule {
         final Multibinder<BaseCacheLoader> resultSetMapperSetBinder = Multibinder.newSetBinder(binder(), BaseCacheLoader.class);
         resultSetMapperSetBinder.addBinding().to(ImmutableAccountCacheLoader.class).asEagerSingleton();
         resultSetMapperSetBinder.addBinding().to(AccountBCDCacheLoader.class).asEagerSingleton();
+        resultSetMapperSetBinder.addBinding().to(AccountControlTagsCacheLoader.class).asEagerSingleton();
         resultSetMapperSetBinder.addBinding().to(RecordIdCacheLoader.class).asEagerSingleton();
         resultSetMapperSetBinder.addBinding().to(AccountRecordIdCacheLoader.class).asEagerSingleton();
         resultSetMapperSetBinder.addBinding().to(TenantRecordIdCacheLoader.class).asEagerSingleton();
@@ -18,6 +18,7 @@
 
 package org.killbill.billing.util.glue;
 
+import org.killbill.billing.customfield.BulkCustomFieldUserApi;
 import org.killbill.billing.platform.api.KillbillConfigSource;
 import org.killbill.billing.util.api.CustomFieldUserApi;
 import org.killbill.billing.util.customfield.api.DefaultCustomFieldUserApi;
@@ -37,7 +38,9 @@ public class CustomFieldModule extends KillBillModule {
     }
 
     protected void installCustomFieldUserApi() {
-        bind(CustomFieldUserApi.class).to(DefaultCustomFieldUserApi.class).asEagerSingleton();
+        bind(DefaultCustomFieldUserApi.class).asEagerSingleton();
+        bind(CustomFieldUserApi.class).to(DefaultCustomFieldUserApi.class);
+        bind(BulkCustomFieldUserApi.class).to(DefaultCustomFieldUserApi.class);
     }
 
     protected void installCustomFieldDao() {
@@ -23,11 +23,15 @@ import java.io.IOException;
 import javax.sql.DataSource;
 
 import org.killbill.billing.platform.api.KillbillConfigSource;
+import org.killbill.billing.util.config.definition.GlobalLockerConfig;
+import org.killbill.billing.util.globallocker.GlobalLockerStats;
+import org.killbill.billing.util.globallocker.InstrumentedGlobalLocker;
 import org.killbill.commons.embeddeddb.EmbeddedDB;
 import org.killbill.commons.locker.GlobalLocker;
 import org.killbill.commons.locker.memory.MemoryGlobalLocker;
 import org.killbill.commons.locker.mysql.MySqlGlobalLocker;
 import org.killbill.commons.locker.postgresql.PostgreSQLGlobalLocker;
+import org.skife.config.ConfigurationObjectFactory;
 
 import com.google.inject.Provides;
 import com.google.inject.Singleton;
@@ -41,17 +45,31 @@ public class GlobalLockerModule extends KillBillModule {
     @Provides
     @Singleton
     // Note: we need to inject the pooled DataSource here, not the (direct) one from EmbeddedDB
-    protected GlobalLocker provideGlobalLocker(final DataSource dataSource, final EmbeddedDB embeddedDB) throws IOException {
+    protected GlobalLocker provideGlobalLocker(final DataSource dataSource,
+                                               final EmbeddedDB embeddedDB,
+                                               final GlobalLockerConfig globalLockerConfig,
+                                               final GlobalLockerStats globalLockerStats) throws IOException {
+        final GlobalLocker globalLocker;
         if (EmbeddedDB.DBEngine.MYSQL.equals(embeddedDB.getDBEngine())) {
-            return new MySqlGlobalLocker(dataSource);
+            globalLocker = new MySqlGlobalLocker(dataSource);
         } else if (EmbeddedDB.DBEngine.POSTGRESQL.equals(embeddedDB.getDBEngine())) {
-            return new PostgreSQLGlobalLocker(dataSource);
+            globalLocker = new PostgreSQLGlobalLocker(dataSource);
         } else {
-            return new MemoryGlobalLocker();
+            globalLocker = new MemoryGlobalLocker();
+        }
+
+        if (globalLockerConfig.isInstrumentationEnabled()) {
+            return new InstrumentedGlobalLocker(globalLocker, globalLockerStats, globalLockerConfig);
+        } else {
+            return globalLocker;
         }
     }
 
     @Override
     protected void configure() {
+        final ConfigurationObjectFactory factory = new ConfigurationObjectFactory(skifeConfigSource);
+        final GlobalLockerConfig globalLockerConfig = factory.build(GlobalLockerConfig.class);
+        bind(GlobalLockerConfig.class).toInstance(globalLockerConfig);
+        bind(GlobalLockerStats.class).asEagerSingleton();
     }
 }
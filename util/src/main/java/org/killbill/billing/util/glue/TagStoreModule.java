@@ -19,6 +19,7 @@
 package org.killbill.billing.util.glue;
 
 import org.killbill.billing.platform.api.KillbillConfigSource;
+import org.killbill.billing.tag.BulkTagUserApi;
 import org.killbill.billing.tag.TagInternalApi;
 import org.killbill.billing.util.api.TagUserApi;
 import org.killbill.billing.util.tag.DefaultTagInternalApi;
@@ -42,7 +43,9 @@ public class TagStoreModule extends KillBillModule {
     }
 
     protected void installUserApi() {
-        bind(TagUserApi.class).to(DefaultTagUserApi.class).asEagerSingleton();
+        bind(DefaultTagUserApi.class).asEagerSingleton();
+        bind(TagUserApi.class).to(DefaultTagUserApi.class);
+        bind(BulkTagUserApi.class).to(DefaultTagUserApi.class);
     }
 
     protected void installInternalApi() {
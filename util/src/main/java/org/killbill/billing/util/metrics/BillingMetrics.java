@@ -0,0 +1,122 @@
+/*
+ * Copyright 2014-2019 Groupon, Inc
+ * Copyright 2014-2019 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.joda.time.DateTime;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+
+/**
+ * Thin facade over the shared {@link MetricRegistry}, so that core modules can record
+ * latencies, sizes and counts without depending on the metrics library directly.
+ * <p>
+ * Metric names are dot-separated (e.g. {@code killbill.invoice.generation}); they are
+ * sanitized when rendered by {@link MetricsTextFormat}.
+ */
+@Singleton
+public class BillingMetrics {
+
+    private final MetricRegistry metricRegistry;
+
+    @Inject
+    public BillingMetrics(final MetricRegistry metricRegistry) {
+        this.metricRegistry = metricRegistry;
+    }
+
+    // For tests and classes built outside of Guice
+    public BillingMetrics() {
+        this(new MetricRegistry());
+    }
+
+    public void recordDuration(final String name, final long durationNanos) {
+        metricRegistry.timer(name).update(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    // Time elapsed since the effective date of an event when it is handled (bus events don't record when they were posted).
+    // Events handled ahead of their effective date (e.g. future requested changes) aren't late: they are ignored
+    public void recordLag(final String name, @Nullable final DateTime effectiveDate, final DateTime now) {
+        if (effectiveDate == null || effectiveDate.isAfter(now)) {
+            return;
+        }
+        recordDuration(name, TimeUnit.MILLISECONDS.toNanos(now.getMillis() - effectiveDate.getMillis()));
+    }
+
+    public void recordValue(final String name, final long value) {
+        metricRegistry.histogram(name).update(value);
+    }
+
+    public void incrementCounter(final String name) {
+        incrementCounter(name, 1);
+    }
+
+    public void incrementCounter(final String name, final long n) {
+        metricRegistry.counter(name).inc(n);
+    }
+
+    // Rate of events (e.g. accounts processed per second), see MetricsTextFormat
+    public void markMeter(final String name) {
+        markMeter(name, 1);
+    }
+
+    public void markMeter(final String name, final long n) {
+        metricRegistry.meter(name).mark(n);
+    }
+
+    // Replaces any gauge previously registered under that name
+    public void registerGauge(final String name, final AtomicLong value) {
+        metricRegistry.remove(name);
+        metricRegistry.register(name, new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return value.get();
+            }
+        });
+    }
+
+    public long getCount(final String name) {
+        if (metricRegistry.getCounters().containsKey(name)) {
+            return metricRegistry.getCounters().get(name).getCount();
+        } else if (metricRegistry.getTimers().containsKey(name)) {
+            return metricRegistry.getTimers().get(name).getCount();
+        } else if (metricRegistry.getHistograms().containsKey(name)) {
+            return metricRegistry.getHistograms().get(name).getCount();
+        } else if (metricRegistry.getMeters().containsKey(name)) {
+            return metricRegistry.getMeters().get(name).getCount();
+        } else {
+            return 0;
+        }
+    }
+
+    public void writeTextFormat(final Writer writer) throws IOException {
+        new MetricsTextFormat(metricRegistry).write(writer);
+    }
+
+    public MetricRegistry getMetricRegistry() {
+        return metricRegistry;
+    }
+}
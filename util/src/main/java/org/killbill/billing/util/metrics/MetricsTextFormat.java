@@ -0,0 +1,138 @@
+/*
+ * Copyright 2014-2019 Groupon, Inc
+ * Copyright 2014-2019 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map.Entry;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Snapshot;
+import com.codahale.metrics.Timer;
+
+/**
+ * Renders a {@link MetricRegistry} using the Prometheus text exposition format (version 0.0.4).
+ * <ul>
+ * <li>counters and numeric gauges are exported as-is</li>
+ * <li>histograms are exported as summaries</li>
+ * <li>timers are exported as summaries, in seconds</li>
+ * <li>meters are exported as totals, along with their one-minute rate per second</li>
+ * </ul>
+ */
+public class MetricsTextFormat {
+
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static final double[] QUANTILES = {0.5, 0.75, 0.95, 0.99};
+    private static final double NANOS_PER_SECOND = 1000000000.0;
+
+    private final MetricRegistry metricRegistry;
+
+    public MetricsTextFormat(final MetricRegistry metricRegistry) {
+        this.metricRegistry = metricRegistry;
+    }
+
+    public void write(final Writer writer) throws IOException {
+        for (final Entry<String, Gauge> entry : metricRegistry.getGauges().entrySet()) {
+            final Object value = entry.getValue().getValue();
+            if (value instanceof Number) {
+                writeSample(writer, sanitize(entry.getKey()), "gauge", ((Number) value).doubleValue());
+            } else if (value instanceof Boolean) {
+                writeSample(writer, sanitize(entry.getKey()), "gauge", (Boolean) value ? 1 : 0);
+            }
+        }
+
+        for (final Entry<String, Counter> entry : metricRegistry.getCounters().entrySet()) {
+            writeSample(writer, sanitize(entry.getKey()), "counter", entry.getValue().getCount());
+        }
+
+        for (final Entry<String, Histogram> entry : metricRegistry.getHistograms().entrySet()) {
+            writeSummary(writer, sanitize(entry.getKey()), entry.getValue().getSnapshot(), entry.getValue().getCount(), 1.0);
+        }
+
+        for (final Entry<String, Timer> entry : metricRegistry.getTimers().entrySet()) {
+            writeSummary(writer, sanitize(entry.getKey()) + "_seconds", entry.getValue().getSnapshot(), entry.getValue().getCount(), NANOS_PER_SECOND);
+        }
+
+        for (final Entry<String, Meter> entry : metricRegistry.getMeters().entrySet()) {
+            writeSample(writer, sanitize(entry.getKey()) + "_total", "counter", entry.getValue().getCount());
+            writeSample(writer, sanitize(entry.getKey()) + "_per_second", "gauge", entry.getValue().getOneMinuteRate());
+        }
+
+        writer.flush();
+    }
+
+    private void writeSample(final Writer writer, final String name, final String type, final double value) throws IOException {
+        writer.write("# TYPE ");
+        writer.write(name);
+        writer.write(' ');
+        writer.write(type);
+        writer.write('\n');
+        writer.write(name);
+        writer.write(' ');
+        writer.write(formatValue(value));
+        writer.write('\n');
+    }
+
+    private void writeSummary(final Writer writer, final String name, final Snapshot snapshot, final long count, final double divisor) throws IOException {
+        writer.write("# TYPE ");
+        writer.write(name);
+        writer.write(" summary\n");
+        for (final double quantile : QUANTILES) {
+            writer.write(name);
+            writer.write("{quantile=\"");
+            writer.write(formatValue(quantile));
+            writer.write("\"} ");
+            writer.write(formatValue(snapshot.getValue(quantile) / divisor));
+            writer.write('\n');
+        }
+        writer.write(name);
+        writer.write("_count ");
+        writer.write(formatValue(count));
+        writer.write('\n');
+    }
+
+    static String sanitize(final String name) {
+        final StringBuilder sanitized = new StringBuilder(name.length());
+        for (int i = 0; i < name.length(); i++) {
+            final char c = name.charAt(i);
+            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_' || c == ':' || (i > 0 && c >= '0' && c <= '9')) {
+                sanitized.append(c);
+            } else {
+                sanitized.append('_');
+            }
+        }
+        return sanitized.toString();
+    }
+
+    static String formatValue(final double value) {
+        if (Double.isNaN(value)) {
+            return "NaN";
+        } else if (Double.isInfinite(value)) {
+            return value > 0 ? "+Inf" : "-Inf";
+        } else if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        } else {
+            return Double.toString(value);
+        }
+    }
+}
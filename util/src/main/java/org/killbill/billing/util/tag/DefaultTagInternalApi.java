@@ -16,7 +16,9 @@
 
 package org.killbill.billing.util.tag;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import javax.inject.Inject;
@@ -76,6 +78,20 @@ public class DefaultTagInternalApi implements TagInternalApi {
         return toTagList(tagDao.getTagsForAccountType(objectType, includedDeleted, internalTenantContext));
     }
 
+    @Override
+    public List<Tag> getControlTagsForAccountType(final ObjectType objectType, final InternalTenantContext context) {
+        return toTagList(tagDao.getControlTagsForAccountType(objectType, context));
+    }
+
+    @Override
+    public Map<Long, Tag> getTagsForTagDefinition(final UUID tagDefinitionId, final ObjectType objectType, final Long fromRecordId, final Long limit, final InternalTenantContext context) {
+        final Map<Long, Tag> result = new LinkedHashMap<Long, Tag>();
+        for (final TagModelDao input : tagDao.getTagsForTagDefinition(tagDefinitionId, objectType, fromRecordId, limit, context)) {
+            result.put(input.getRecordId(), toTag(input));
+        }
+        return result;
+    }
+
     @Override
     public void addTag(final UUID objectId, final ObjectType objectType, final UUID tagDefinitionId, final InternalCallContext context)
             throws TagApiException {
@@ -100,12 +116,16 @@ public class DefaultTagInternalApi implements TagInternalApi {
         return ImmutableList.<Tag>copyOf(Iterables.transform(input, new Function<TagModelDao, Tag>() {
             @Override
             public Tag apply(final TagModelDao input) {
-                return TagModelDaoHelper.isControlTag(input.getTagDefinitionId()) ?
-                       new DefaultControlTag(ControlTagType.getTypeFromId(input.getTagDefinitionId()), input.getObjectType(), input.getObjectId(), input.getCreatedDate()) :
-                       new DescriptiveTag(input.getTagDefinitionId(), input.getObjectType(), input.getObjectId(), input.getCreatedDate());
+                return toTag(input);
             }
         }));
     }
 
+    private Tag toTag(final TagModelDao input) {
+        return TagModelDaoHelper.isControlTag(input.getTagDefinitionId()) ?
+               new DefaultControlTag(ControlTagType.getTypeFromId(input.getTagDefinitionId()), input.getObjectType(), input.getObjectId(), input.getCreatedDate()) :
+               new DescriptiveTag(input.getTagDefinitionId(), input.getObjectType(), input.getObjectId(), input.getCreatedDate());
+    }
+
 
 }
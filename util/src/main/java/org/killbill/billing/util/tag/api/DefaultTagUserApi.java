@@ -23,7 +23,10 @@ import java.util.UUID;
 
 import org.killbill.billing.ErrorCode;
 import org.killbill.billing.ObjectType;
+import org.killbill.billing.account.api.Account;
+import org.killbill.billing.account.api.AccountInternalApi;
 import org.killbill.billing.callcontext.InternalCallContext;
+import org.killbill.billing.tag.BulkTagUserApi;
 import org.killbill.billing.util.api.AuditLevel;
 import org.killbill.billing.util.api.TagApiException;
 import org.killbill.billing.util.api.TagDefinitionApiException;
@@ -55,7 +58,7 @@ import com.google.inject.Inject;
 
 import static org.killbill.billing.util.entity.dao.DefaultPaginationHelper.getEntityPaginationNoException;
 
-public class DefaultTagUserApi implements TagUserApi {
+public class DefaultTagUserApi implements TagUserApi, BulkTagUserApi {
 
     private static final Joiner JOINER = Joiner.on(",");
 
@@ -71,12 +74,14 @@ public class DefaultTagUserApi implements TagUserApi {
     private final InternalCallContextFactory internalCallContextFactory;
     private final TagDefinitionDao tagDefinitionDao;
     private final TagDao tagDao;
+    private final AccountInternalApi accountInternalApi;
 
     @Inject
-    public DefaultTagUserApi(final InternalCallContextFactory internalCallContextFactory, final TagDefinitionDao tagDefinitionDao, final TagDao tagDao) {
+    public DefaultTagUserApi(final InternalCallContextFactory internalCallContextFactory, final TagDefinitionDao tagDefinitionDao, final TagDao tagDao, final AccountInternalApi accountInternalApi) {
         this.internalCallContextFactory = internalCallContextFactory;
         this.tagDefinitionDao = tagDefinitionDao;
         this.tagDao = tagDao;
+        this.accountInternalApi = accountInternalApi;
     }
 
     @Override
@@ -155,6 +160,37 @@ public class DefaultTagUserApi implements TagUserApi {
         tagDao.deleteTag(objectId, objectType, tagDefinitionId, internalCallContextFactory.createInternalCallContext(objectId, objectType, context));
     }
 
+    @Override
+    public void addTagToObjects(final Collection<UUID> objectIds, final ObjectType objectType, final UUID tagDefinitionId, final CallContext context) throws TagApiException {
+        if (SystemTags.isSystemTag(tagDefinitionId)) {
+            // TODO Create a proper ErrorCode instaed
+            throw new IllegalStateException(String.format("Failed to add tag for tagDefinitionId='%s': System tags are reserved for the system.", tagDefinitionId));
+        }
+
+        if (!objectIds.isEmpty()) {
+            tagDao.createTags(tagDefinitionId, objectType, internalCallContextFactory.createInternalCallContexts(objectIds, objectType, context));
+        }
+    }
+
+    @Override
+    public void removeTagFromObjects(final Collection<UUID> objectIds, final ObjectType objectType, final UUID tagDefinitionId, final CallContext context) throws TagApiException {
+        if (!objectIds.isEmpty()) {
+            if (objectType == ObjectType.ACCOUNT && ControlTagType.AUTO_PAY_OFF.getId().equals(tagDefinitionId)) {
+                checkAccountsHaveDefaultPaymentMethod(objectIds, context);
+            }
+            tagDao.deleteTags(tagDefinitionId, objectType, internalCallContextFactory.createInternalCallContexts(objectIds, objectType, context));
+        }
+    }
+
+    // Same check as AccountResource#deleteAccountTags: the AUTO_PAY_OFF tag can only be removed if the account has a default payment method
+    private void checkAccountsHaveDefaultPaymentMethod(final Collection<UUID> accountIds, final CallContext context) throws TagApiException {
+        for (final Account account : accountInternalApi.getAccountsByIds(accountIds, internalCallContextFactory.createInternalTenantContextWithoutAccountRecordId(context))) {
+            if (account.getPaymentMethodId() == null) {
+                throw new TagApiException(ErrorCode.TAG_CANNOT_BE_REMOVED, ControlTagType.AUTO_PAY_OFF, " the account does not have a default payment method");
+            }
+        }
+    }
+
     @Override
     public Pagination<Tag> searchTags(final String searchKey, final Long offset, final Long limit, final TenantContext context) {
         return getEntityPaginationNoException(limit,
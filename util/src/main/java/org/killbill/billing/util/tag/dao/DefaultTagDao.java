@@ -18,8 +18,13 @@
 
 package org.killbill.billing.util.tag.dao;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import javax.inject.Named;
@@ -29,13 +34,18 @@ import org.killbill.billing.ErrorCode;
 import org.killbill.billing.ObjectType;
 import org.killbill.billing.callcontext.InternalCallContext;
 import org.killbill.billing.callcontext.InternalTenantContext;
+import org.killbill.billing.callcontext.RequestReadCache;
 import org.killbill.billing.events.TagInternalEvent;
 import org.killbill.billing.util.api.AuditLevel;
 import org.killbill.billing.util.api.TagApiException;
 import org.killbill.billing.util.audit.AuditLogWithHistory;
 import org.killbill.billing.util.audit.ChangeType;
 import org.killbill.billing.util.audit.dao.AuditDao;
+import org.killbill.billing.util.cache.AccountControlTagsCacheLoader;
+import org.killbill.billing.util.cache.Cachable.CacheType;
+import org.killbill.billing.util.cache.CacheController;
 import org.killbill.billing.util.cache.CacheControllerDispatcher;
+import org.killbill.billing.util.cache.CacheLoaderArgument;
 import org.killbill.billing.util.callcontext.InternalCallContextFactory;
 import org.killbill.billing.util.dao.NonEntityDao;
 import org.killbill.billing.util.dao.TableName;
@@ -47,6 +57,7 @@ import org.killbill.billing.util.entity.dao.EntitySqlDao;
 import org.killbill.billing.util.entity.dao.EntitySqlDaoTransactionWrapper;
 import org.killbill.billing.util.entity.dao.EntitySqlDaoTransactionalJdbiWrapper;
 import org.killbill.billing.util.entity.dao.EntitySqlDaoWrapperFactory;
+import org.killbill.billing.util.metrics.BillingMetrics;
 import org.killbill.billing.util.tag.ControlTagType;
 import org.killbill.billing.util.tag.Tag;
 import org.killbill.billing.util.tag.api.user.TagEventBuilder;
@@ -59,6 +70,7 @@ import org.slf4j.LoggerFactory;
 import com.google.common.base.Predicate;
 import com.google.common.collect.Collections2;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.inject.Inject;
 
@@ -68,17 +80,24 @@ public class DefaultTagDao extends EntityDaoBase<TagModelDao, Tag, TagApiExcepti
 
     private static final Logger log = LoggerFactory.getLogger(DefaultTagDao.class);
 
+    private static final String TAGS_FOR_ACCOUNT_REQUEST_CACHE = "TagsForAccount";
+
+    private static final int MAX_IDS_PER_QUERY = 1000;
+
     private final TagEventBuilder tagEventBuilder;
     private final PersistentBus bus;
     private final AuditDao auditDao;
+    private final CacheController<Long, List> controlTagsCacheController;
 
     @Inject
     public DefaultTagDao(final IDBI dbi, @Named(MAIN_RO_IDBI_NAMED) final IDBI roDbi, final TagEventBuilder tagEventBuilder, final PersistentBus bus, final Clock clock,
-                         final CacheControllerDispatcher controllerDispatcher, final NonEntityDao nonEntityDao, final InternalCallContextFactory internalCallContextFactory, final AuditDao auditDao) {
-        super(new EntitySqlDaoTransactionalJdbiWrapper(dbi, roDbi, clock, controllerDispatcher, nonEntityDao, internalCallContextFactory), TagSqlDao.class);
+                         final CacheControllerDispatcher controllerDispatcher, final NonEntityDao nonEntityDao, final InternalCallContextFactory internalCallContextFactory, final AuditDao auditDao,
+                         final BillingMetrics billingMetrics) {
+        super(new EntitySqlDaoTransactionalJdbiWrapper(dbi, roDbi, clock, controllerDispatcher, nonEntityDao, internalCallContextFactory, billingMetrics), TagSqlDao.class);
         this.tagEventBuilder = tagEventBuilder;
         this.bus = bus;
         this.auditDao = auditDao;
+        this.controlTagsCacheController = controllerDispatcher != null ? controllerDispatcher.<Long, List>getCacheController(CacheType.ACCOUNT_CONTROL_TAGS) : null;
     }
 
     @Override
@@ -96,6 +115,17 @@ public class DefaultTagDao extends EntityDaoBase<TagModelDao, Tag, TagApiExcepti
         });
     }
 
+    @Override
+    public List<TagModelDao> getTagsForTagDefinition(final UUID tagDefinitionId, final ObjectType objectType, final Long fromRecordId, final Long limit, final InternalTenantContext internalTenantContext) {
+        return transactionalSqlDao.execute(true, new EntitySqlDaoTransactionWrapper<List<TagModelDao>>() {
+            @Override
+            public List<TagModelDao> inTransaction(final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory) throws Exception {
+                final TagSqlDao tagSqlDao = entitySqlDaoWrapperFactory.become(TagSqlDao.class);
+                return tagSqlDao.getTagsForTagDefinitionAfterRecordId(tagDefinitionId, objectType, fromRecordId, limit, internalTenantContext);
+            }
+        });
+    }
+
     @Override
     public List<TagModelDao> getTagsForAccountType(final ObjectType objectType, final boolean includedDeleted, final InternalTenantContext internalTenantContext) {
         final List<TagModelDao> allTags = getTagsForAccount(includedDeleted, internalTenantContext);
@@ -109,7 +139,15 @@ public class DefaultTagDao extends EntityDaoBase<TagModelDao, Tag, TagApiExcepti
 
     @Override
     public List<TagModelDao> getTagsForAccount(final boolean includedDeleted, final InternalTenantContext internalTenantContext) {
-        return transactionalSqlDao.execute(true, new EntitySqlDaoTransactionWrapper<List<TagModelDao>>() {
+        final RequestReadCache requestReadCache = internalTenantContext.getRequestReadCache();
+        if (requestReadCache != null) {
+            final List<TagModelDao> cachedTags = requestReadCache.get(TAGS_FOR_ACCOUNT_REQUEST_CACHE, internalTenantContext, includedDeleted);
+            if (cachedTags != null) {
+                return new ArrayList<TagModelDao>(cachedTags);
+            }
+        }
+
+        final List<TagModelDao> tags = transactionalSqlDao.execute(true, new EntitySqlDaoTransactionWrapper<List<TagModelDao>>() {
             @Override
             public List<TagModelDao> inTransaction(final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory) throws Exception {
                 final TagSqlDao tagSqlDao = entitySqlDaoWrapperFactory.become(TagSqlDao.class);
@@ -120,6 +158,71 @@ public class DefaultTagDao extends EntityDaoBase<TagModelDao, Tag, TagApiExcepti
                 }
             }
         });
+        if (requestReadCache != null) {
+            requestReadCache.put(TAGS_FOR_ACCOUNT_REQUEST_CACHE, internalTenantContext, includedDeleted, ImmutableList.<TagModelDao>copyOf(tags));
+        }
+        return tags;
+    }
+
+    @Override
+    public List<TagModelDao> getControlTagsForAccountType(final ObjectType objectType, final InternalTenantContext internalTenantContext) {
+        final List<TagModelDao> controlTags;
+        if (controlTagsCacheController == null || internalTenantContext.getAccountRecordId() == null) {
+            controlTags = loadControlTags(internalTenantContext);
+        } else {
+            controlTags = controlTagsCacheController.get(internalTenantContext.getAccountRecordId(), createControlTagsCacheLoaderArgument(internalTenantContext));
+        }
+
+        if (controlTags == null) {
+            return ImmutableList.<TagModelDao>of();
+        }
+
+        return ImmutableList.<TagModelDao>copyOf(Collections2.filter(controlTags, new Predicate<TagModelDao>() {
+            @Override
+            public boolean apply(final TagModelDao input) {
+                return input.getObjectType() == objectType;
+            }
+        }));
+    }
+
+    private List<TagModelDao> loadControlTags(final InternalTenantContext internalTenantContext) {
+        final List<TagModelDao> allTags = getTagsForAccount(false, internalTenantContext);
+        // Keep a serializable list, as it may be stored in the cache
+        return new ArrayList<TagModelDao>(Collections2.filter(allTags, new Predicate<TagModelDao>() {
+            @Override
+            public boolean apply(final TagModelDao input) {
+                return ControlTagType.getTypeFromId(input.getTagDefinitionId()) != null;
+            }
+        }));
+    }
+
+    private CacheLoaderArgument createControlTagsCacheLoaderArgument(final InternalTenantContext internalTenantContext) {
+        final AccountControlTagsCacheLoader.LoaderCallback loaderCallback = new AccountControlTagsCacheLoader.LoaderCallback() {
+            @Override
+            public List loadControlTags(final Long accountRecordId, final InternalTenantContext context) {
+                return DefaultTagDao.this.loadControlTags(context);
+            }
+        };
+        final Object[] args = new Object[1];
+        args[0] = loaderCallback;
+        final ObjectType irrelevant = null;
+        return new CacheLoaderArgument(irrelevant, args, internalTenantContext);
+    }
+
+    // The cached control tags of the account are dropped twice: before the tag event is posted (so that bus handlers
+    // never see the previous tags), and once the change is committed (to discard any entry re-loaded in between)
+    private void invalidateControlTags(final UUID tagDefinitionId, final InternalCallContext context) {
+        if (controlTagsCacheController != null &&
+            context.getAccountRecordId() != null &&
+            ControlTagType.getTypeFromId(tagDefinitionId) != null) {
+            controlTagsCacheController.remove(context.getAccountRecordId());
+        }
+    }
+
+    private void invalidateControlTags(final UUID tagDefinitionId, final Collection<InternalCallContext> contexts) {
+        for (final InternalCallContext context : ImmutableSet.<InternalCallContext>copyOf(contexts)) {
+            invalidateControlTags(tagDefinitionId, context);
+        }
     }
 
     @Override
@@ -137,9 +240,13 @@ public class DefaultTagDao extends EntityDaoBase<TagModelDao, Tag, TagApiExcepti
     protected void postBusEventFromTransaction(final TagModelDao tag, final TagModelDao savedTag, final ChangeType changeType,
                                                final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory, final InternalCallContext context)
             throws BillingExceptionBase {
+        final TagDefinitionModelDao tagDefinition = getTagDefinitionFromTransaction(tag.getTagDefinitionId(), entitySqlDaoWrapperFactory, context);
+        postBusEventFromTransaction(tag, tagDefinition, changeType, entitySqlDaoWrapperFactory, context);
+    }
 
+    private void postBusEventFromTransaction(final TagModelDao tag, final TagDefinitionModelDao tagDefinition, final ChangeType changeType,
+                                             final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory, final InternalCallContext context) {
         final TagInternalEvent tagEvent;
-        final TagDefinitionModelDao tagDefinition = getTagDefinitionFromTransaction(tag.getTagDefinitionId(), entitySqlDaoWrapperFactory, context);
         final boolean isControlTag = ControlTagType.getTypeFromId(tagDefinition.getId()) != null;
         switch (changeType) {
             case INSERT:
@@ -160,6 +267,10 @@ public class DefaultTagDao extends EntityDaoBase<TagModelDao, Tag, TagApiExcepti
                 return;
         }
 
+        if (isControlTag) {
+            invalidateControlTags(tagDefinition.getId(), context);
+        }
+
         try {
             bus.postFromTransaction(tagEvent, entitySqlDaoWrapperFactory.getHandle().getConnection());
         } catch (final PersistentBus.EventBusException e) {
@@ -204,6 +315,7 @@ public class DefaultTagDao extends EntityDaoBase<TagModelDao, Tag, TagApiExcepti
 
         validateApplicableObjectTypes(entity.getTagDefinitionId(), entity.getObjectType());
         transactionalSqlDao.execute(false, TagApiException.class, getCreateEntitySqlDaoTransactionWrapper(entity, context));
+        invalidateControlTags(entity.getTagDefinitionId(), context);
     }
 
     private void validateApplicableObjectTypes(final UUID tagDefinitionId, final ObjectType objectType) throws TagApiException {
@@ -250,7 +362,102 @@ public class DefaultTagDao extends EntityDaoBase<TagModelDao, Tag, TagApiExcepti
                 return null;
             }
         });
+        invalidateControlTags(tagDefinitionId, context);
+
+    }
+
+    @Override
+    public void createTags(final UUID tagDefinitionId, final ObjectType objectType, final Map<UUID, InternalCallContext> contextsByObjectId) throws TagApiException {
+        if (contextsByObjectId.isEmpty()) {
+            return;
+        }
+
+        validateApplicableObjectTypes(tagDefinitionId, objectType);
+        transactionalSqlDao.execute(false, TagApiException.class, new EntitySqlDaoTransactionWrapper<Void>() {
+            @Override
+            public Void inTransaction(final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory) throws Exception {
+                final InternalCallContext anyContext = contextsByObjectId.values().iterator().next();
+                final TagDefinitionModelDao tagDefinition = getTagDefinitionFromTransaction(tagDefinitionId, entitySqlDaoWrapperFactory, anyContext);
+                final TagSqlDao transactional = entitySqlDaoWrapperFactory.become(TagSqlDao.class);
+
+                // Be lenient (see DefaultTagUserApi#addTag): objects which already have the tag are skipped
+                final Map<UUID, TagModelDao> existingTags = getTagsForObjects(transactional, contextsByObjectId.keySet(), objectType, tagDefinitionId, anyContext);
+                final Map<InternalCallContext, List<TagModelDao>> tagsByContext = new LinkedHashMap<InternalCallContext, List<TagModelDao>>();
+                for (final Map.Entry<UUID, InternalCallContext> entry : contextsByObjectId.entrySet()) {
+                    if (!existingTags.containsKey(entry.getKey())) {
+                        addToContextGroup(tagsByContext, entry.getValue(), new TagModelDao(entry.getValue().getCreatedDate(), tagDefinitionId, entry.getKey(), objectType));
+                    }
+                }
+
+                // The audited batch binds a single context, hence one batch per account
+                for (final Map.Entry<InternalCallContext, List<TagModelDao>> entry : tagsByContext.entrySet()) {
+                    transactional.create(entry.getValue(), entry.getKey());
+                    for (final TagModelDao tag : entry.getValue()) {
+                        postBusEventFromTransaction(tag, tagDefinition, ChangeType.INSERT, entitySqlDaoWrapperFactory, entry.getKey());
+                    }
+                }
+                return null;
+            }
+        });
+        invalidateControlTags(tagDefinitionId, contextsByObjectId.values());
+    }
+
+    @Override
+    public void deleteTags(final UUID tagDefinitionId, final ObjectType objectType, final Map<UUID, InternalCallContext> contextsByObjectId) throws TagApiException {
+        if (contextsByObjectId.isEmpty()) {
+            return;
+        }
+
+        transactionalSqlDao.execute(false, TagApiException.class, new EntitySqlDaoTransactionWrapper<Void>() {
+            @Override
+            public Void inTransaction(final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory) throws Exception {
+                final InternalCallContext anyContext = contextsByObjectId.values().iterator().next();
+                final TagDefinitionModelDao tagDefinition = getTagDefinitionFromTransaction(tagDefinitionId, entitySqlDaoWrapperFactory, anyContext);
+                final TagSqlDao transactional = entitySqlDaoWrapperFactory.become(TagSqlDao.class);
+
+                final Map<UUID, TagModelDao> existingTags = getTagsForObjects(transactional, contextsByObjectId.keySet(), objectType, tagDefinitionId, anyContext);
+                final Map<InternalCallContext, List<TagModelDao>> tagsByContext = new LinkedHashMap<InternalCallContext, List<TagModelDao>>();
+                for (final Map.Entry<UUID, InternalCallContext> entry : contextsByObjectId.entrySet()) {
+                    final TagModelDao tag = existingTags.get(entry.getKey());
+                    if (tag == null) {
+                        throw new TagApiException(ErrorCode.TAG_DOES_NOT_EXIST, tagDefinition.getName());
+                    }
+                    addToContextGroup(tagsByContext, entry.getValue(), tag);
+                }
+
+                for (final Map.Entry<InternalCallContext, List<TagModelDao>> entry : tagsByContext.entrySet()) {
+                    transactional.markTagsAsDeleted(entry.getValue(), entry.getKey());
+                    for (final TagModelDao tag : entry.getValue()) {
+                        postBusEventFromTransaction(tag, tagDefinition, ChangeType.DELETE, entitySqlDaoWrapperFactory, entry.getKey());
+                    }
+                }
+                return null;
+            }
+        });
+        invalidateControlTags(tagDefinitionId, contextsByObjectId.values());
+    }
 
+    private Map<UUID, TagModelDao> getTagsForObjects(final TagSqlDao transactional, final Collection<UUID> objectIds, final ObjectType objectType, final UUID tagDefinitionId, final InternalTenantContext context) {
+        final Map<UUID, TagModelDao> tagsByObjectId = new HashMap<UUID, TagModelDao>();
+        for (final List<UUID> chunk : Iterables.partition(objectIds, MAX_IDS_PER_QUERY)) {
+            final List<String> objectIdsAsStrings = new ArrayList<String>(chunk.size());
+            for (final UUID objectId : chunk) {
+                objectIdsAsStrings.add(objectId.toString());
+            }
+            for (final TagModelDao tag : transactional.getTagsForObjectsAndTagDefinition(objectIdsAsStrings, objectType, tagDefinitionId, context)) {
+                tagsByObjectId.put(tag.getObjectId(), tag);
+            }
+        }
+        return tagsByObjectId;
+    }
+
+    private static void addToContextGroup(final Map<InternalCallContext, List<TagModelDao>> tagsByContext, final InternalCallContext context, final TagModelDao tag) {
+        List<TagModelDao> tags = tagsByContext.get(context);
+        if (tags == null) {
+            tags = new ArrayList<TagModelDao>();
+            tagsByContext.put(context, tags);
+        }
+        tags.add(tag);
     }
 
     @Override
@@ -17,6 +17,7 @@
 package org.killbill.billing.util.tag.dao;
 
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import org.killbill.billing.ObjectType;
@@ -33,14 +34,25 @@ public interface TagDao extends EntityDao<TagModelDao, Tag, TagApiException> {
 
     void deleteTag(UUID objectId, ObjectType objectType, UUID tagDefinition, InternalCallContext context) throws TagApiException;
 
+    // Set-based variants of create/deleteTag (one transaction, batched inserts/updates with their history and audit rows)
+    void createTags(UUID tagDefinitionId, ObjectType objectType, Map<UUID, InternalCallContext> contextsByObjectId) throws TagApiException;
+
+    void deleteTags(UUID tagDefinitionId, ObjectType objectType, Map<UUID, InternalCallContext> contextsByObjectId) throws TagApiException;
+
     Pagination<TagModelDao> searchTags(String searchKey, Long offset, Long limit, InternalTenantContext context);
 
     List<TagModelDao> getTagsForObject(UUID objectId, ObjectType objectType, boolean includedDeleted, InternalTenantContext internalTenantContext);
 
+    // Keyset pagination (ordered by record id) over the active tags of a given definition, across accounts
+    List<TagModelDao> getTagsForTagDefinition(UUID tagDefinitionId, ObjectType objectType, Long fromRecordId, Long limit, InternalTenantContext internalTenantContext);
+
     List<TagModelDao> getTagsForAccountType(ObjectType objectType, boolean includedDeleted, InternalTenantContext internalTenantContext);
 
     List<TagModelDao> getTagsForAccount(boolean includedDeleted, InternalTenantContext internalTenantContext);
 
+    // Active control tags (e.g. WRITTEN_OFF, AUTO_PAY_OFF) of the account and its objects, cached per account
+    List<TagModelDao> getControlTagsForAccountType(ObjectType objectType, InternalTenantContext internalTenantContext);
+
     List<AuditLogWithHistory> getTagAuditLogsWithHistoryForId(UUID tagId, AuditLevel auditLevel, InternalTenantContext context);
 
 }
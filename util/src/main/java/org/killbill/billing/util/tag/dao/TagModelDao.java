@@ -16,6 +16,10 @@
 
 package org.killbill.billing.util.tag.dao;
 
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
 import java.util.UUID;
 
 import org.joda.time.DateTime;
@@ -27,7 +31,7 @@ import org.killbill.billing.util.entity.dao.EntityModelDao;
 import org.killbill.billing.util.entity.dao.EntityModelDaoBase;
 import org.killbill.billing.util.tag.Tag;
 
-public class TagModelDao extends EntityModelDaoBase implements EntityModelDao<Tag> {
+public class TagModelDao extends EntityModelDaoBase implements EntityModelDao<Tag>, Externalizable {
 
     private UUID tagDefinitionId;
     private UUID objectId;
@@ -152,4 +156,42 @@ public class TagModelDao extends EntityModelDaoBase implements EntityModelDao<Ta
         return TableName.TAG_HISTORY;
     }
 
+    @Override
+    public void readExternal(final ObjectInput in) throws IOException, ClassNotFoundException {
+        this.id = new UUID(in.readLong(), in.readLong());
+        this.createdDate = new DateTime(in.readUTF());
+        this.updatedDate = new DateTime(in.readUTF());
+        this.tagDefinitionId = new UUID(in.readLong(), in.readLong());
+        this.objectId = new UUID(in.readLong(), in.readLong());
+        this.objectType = ObjectType.valueOf(in.readUTF());
+        this.isActive = in.readBoolean();
+        setRecordId(in.readBoolean() ? in.readLong() : null);
+        setAccountRecordId(in.readBoolean() ? in.readLong() : null);
+        setTenantRecordId(in.readBoolean() ? in.readLong() : null);
+    }
+
+    @Override
+    public void writeExternal(final ObjectOutput oo) throws IOException {
+        oo.writeLong(id.getMostSignificantBits());
+        oo.writeLong(id.getLeastSignificantBits());
+        oo.writeUTF(createdDate.toString());
+        oo.writeUTF(updatedDate.toString());
+        oo.writeLong(tagDefinitionId.getMostSignificantBits());
+        oo.writeLong(tagDefinitionId.getLeastSignificantBits());
+        oo.writeLong(objectId.getMostSignificantBits());
+        oo.writeLong(objectId.getLeastSignificantBits());
+        oo.writeUTF(objectType.name());
+        oo.writeBoolean(isActive == Boolean.TRUE);
+        // Record ids aren't set on tags which haven't been persisted yet
+        writeNullableLong(oo, getRecordId());
+        writeNullableLong(oo, getAccountRecordId());
+        writeNullableLong(oo, getTenantRecordId());
+    }
+
+    private static void writeNullableLong(final ObjectOutput oo, final Long value) throws IOException {
+        oo.writeBoolean(value != null);
+        if (value != null) {
+            oo.writeLong(value);
+        }
+    }
 }
@@ -16,13 +16,16 @@
 
 package org.killbill.billing.util.tag.dao;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
 import org.skife.jdbi.v2.sqlobject.Bind;
 import org.killbill.commons.jdbi.binder.SmartBindBean;
+import org.skife.jdbi.v2.sqlobject.SqlBatch;
 import org.skife.jdbi.v2.sqlobject.SqlQuery;
 import org.skife.jdbi.v2.sqlobject.SqlUpdate;
+import org.skife.jdbi.v2.unstable.BindIn;
 
 import org.killbill.billing.ObjectType;
 import org.killbill.billing.callcontext.InternalCallContext;
@@ -36,6 +39,16 @@ import org.killbill.billing.util.tag.Tag;
 @KillBillSqlDaoStringTemplate
 public interface TagSqlDao extends EntitySqlDao<TagModelDao, Tag> {
 
+    @SqlBatch
+    @Audited(ChangeType.INSERT)
+    void create(@SmartBindBean Iterable<TagModelDao> tags,
+                @SmartBindBean InternalCallContext context);
+
+    @SqlBatch
+    @Audited(ChangeType.DELETE)
+    void markTagsAsDeleted(@SmartBindBean Iterable<TagModelDao> tags,
+                           @SmartBindBean InternalCallContext context);
+
     @SqlUpdate
     @Audited(ChangeType.DELETE)
     void markTagAsDeleted(@Bind("id") String tagId,
@@ -46,6 +59,19 @@ public interface TagSqlDao extends EntitySqlDao<TagModelDao, Tag> {
                                        @Bind("objectType") ObjectType objectType,
                                        @SmartBindBean InternalTenantContext internalTenantContext);
 
+    @SqlQuery
+    List<TagModelDao> getTagsForObjectsAndTagDefinition(@BindIn("objectIds") Collection<String> objectIds,
+                                                        @Bind("objectType") ObjectType objectType,
+                                                        @Bind("tagDefinitionId") UUID tagDefinitionId,
+                                                        @SmartBindBean InternalTenantContext internalTenantContext);
+
+    @SqlQuery
+    List<TagModelDao> getTagsForTagDefinitionAfterRecordId(@Bind("tagDefinitionId") UUID tagDefinitionId,
+                                                           @Bind("objectType") ObjectType objectType,
+                                                           @Bind("fromRecordId") Long fromRecordId,
+                                                           @Bind("rowCount") Long rowCount,
+                                                           @SmartBindBean InternalTenantContext internalTenantContext);
+
     @SqlQuery
     List<TagModelDao> getTagsForObjectIncludedDeleted(@Bind("objectId") UUID objectId,
                                                       @Bind("objectType") ObjectType objectType,
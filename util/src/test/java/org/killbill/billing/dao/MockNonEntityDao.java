@@ -18,6 +18,7 @@
 
 package org.killbill.billing.dao;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
@@ -82,6 +83,21 @@ public class MockNonEntityDao implements NonEntityDao {
         return null;
     }
 
+    @Override
+    public Map<UUID, Long> retrieveRecordIdsFromObjects(final Collection<UUID> objectIds, final ObjectType objectType, @Nullable final CacheController<String, Long> cache) {
+        return new HashMap<UUID, Long>();
+    }
+
+    @Override
+    public Map<UUID, Long> retrieveAccountRecordIdsFromObjects(final Collection<UUID> objectIds, final ObjectType objectType, @Nullable final CacheController<String, Long> cache) {
+        return filterMappings(accountRecordIdMappings, objectIds);
+    }
+
+    @Override
+    public Map<UUID, Long> retrieveTenantRecordIdsFromObjects(final Collection<UUID> objectIds, final ObjectType objectType, @Nullable final CacheController<String, Long> cache) {
+        return filterMappings(tenantRecordIdMappings, objectIds);
+    }
+
     @Override
     public UUID retrieveIdFromObject(final Long recordId, final ObjectType objectType, @Nullable final CacheController<String, UUID> cache) {
         if (objectType == ACCOUNT) {
@@ -105,4 +121,14 @@ public class MockNonEntityDao implements NonEntityDao {
     public Long retrieveHistoryTargetRecordId(final Long recordId, final TableName tableName) {
         return null;
     }
+
+    private static Map<UUID, Long> filterMappings(final Map<UUID, Long> mappings, final Collection<UUID> objectIds) {
+        final Map<UUID, Long> result = new HashMap<UUID, Long>();
+        for (final UUID objectId : objectIds) {
+            if (mappings.get(objectId) != null) {
+                result.put(objectId, mappings.get(objectId));
+            }
+        }
+        return result;
+    }
 }
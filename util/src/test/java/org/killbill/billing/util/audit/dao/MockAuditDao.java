@@ -17,6 +17,7 @@
 package org.killbill.billing.util.audit.dao;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -84,6 +85,15 @@ public class MockAuditDao implements AuditDao {
         }
     }
 
+    @Override
+    public List<AuditLog> getAuditLogsForIds(final TableName tableName, final Collection<UUID> objectIds, final AuditLevel auditLevel, final InternalTenantContext context) {
+        final List<AuditLog> auditLogs = new ArrayList<AuditLog>();
+        for (final UUID objectId : objectIds) {
+            auditLogs.addAll(getAuditLogsForId(tableName, objectId, auditLevel, context));
+        }
+        return auditLogs;
+    }
+
     @Override
     public List<AuditLogWithHistory> getAuditLogsWithHistoryForId(final HistorySqlDao sqlDao, final TableName tableName, final UUID objectId, final AuditLevel auditLevel, final InternalTenantContext context) {
         throw new UnsupportedOperationException();
@@ -39,6 +39,10 @@ import org.killbill.billing.util.tag.Tag;
 import org.killbill.billing.util.tag.dao.TagDefinitionModelDao;
 import org.killbill.billing.util.tag.dao.TagModelDao;
 
+import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+
 public class TestDefaultAuditDao extends UtilTestSuiteWithEmbeddedDB {
 
     private TagModelDao tag;
@@ -74,6 +78,33 @@ public class TestDefaultAuditDao extends UtilTestSuiteWithEmbeddedDB {
         }
     }
 
+    @Test(groups = "slow")
+    public void testRetrieveAuditsForIds() throws Exception {
+        addTag();
+        final TagModelDao firstTag = tag;
+        addTag();
+        final TagModelDao secondTag = tag;
+
+        for (final AuditLevel level : AuditLevel.values()) {
+            final List<AuditLog> auditLogs = auditDao.getAuditLogsForIds(TableName.TAG, ImmutableList.<UUID>of(firstTag.getId(), secondTag.getId()), level, internalCallContext);
+            if (AuditLevel.NONE.equals(level)) {
+                Assert.assertEquals(auditLogs.size(), 0);
+                continue;
+            }
+
+            Assert.assertEquals(auditLogs.size(), 2);
+            verifyAuditLogsForTag(ImmutableList.<AuditLog>copyOf(Iterables.filter(auditLogs, new Predicate<AuditLog>() {
+                @Override
+                public boolean apply(final AuditLog input) {
+                    return input.getAuditedEntityId().equals(secondTag.getId());
+                }
+            })), level);
+        }
+
+        // Unknown ids are ignored
+        Assert.assertEquals(auditDao.getAuditLogsForIds(TableName.TAG, ImmutableList.<UUID>of(UUID.randomUUID()), AuditLevel.FULL, internalCallContext).size(), 0);
+    }
+
     @Test(groups = "slow")
     public void testVerifyAuditCachesAreCleared() throws Exception {
         addTag();
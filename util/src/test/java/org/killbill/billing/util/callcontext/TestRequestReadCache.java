@@ -0,0 +1,110 @@
+/*
+ * Copyright 2014-2019 Groupon, Inc
+ * Copyright 2014-2019 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.callcontext;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.killbill.billing.callcontext.InternalTenantContext;
+import org.killbill.billing.callcontext.RequestReadCache;
+import org.killbill.billing.util.UtilTestSuiteNoDB;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestRequestReadCache extends UtilTestSuiteNoDB {
+
+    @Test(groups = "fast")
+    public void testNoCacheOutsideRequest() {
+        Assert.assertNull(RequestReadCache.getCurrent());
+        Assert.assertNull(new InternalTenantContext(1L, 2L, null, null).getRequestReadCache());
+    }
+
+    @Test(groups = "fast")
+    public void testReadsAndInvalidation() {
+        final RequestReadCache requestReadCache = RequestReadCache.open();
+        Assert.assertNotNull(requestReadCache);
+        try {
+            // Nested scopes share the outermost cache
+            Assert.assertNull(RequestReadCache.open());
+
+            final InternalTenantContext context = new InternalTenantContext(1L, 2L, null, null);
+            final InternalTenantContext otherAccountContext = new InternalTenantContext(1L, 3L, null, null);
+            Assert.assertSame(context.getRequestReadCache(), requestReadCache);
+
+            Assert.assertNull(requestReadCache.get("ns", context, "key"));
+            requestReadCache.put("ns", context, "key", "value");
+            Assert.assertEquals(requestReadCache.get("ns", context, "key"), "value");
+            // Entries are scoped by namespace and account
+            Assert.assertNull(requestReadCache.get("other", context, "key"));
+            Assert.assertNull(requestReadCache.get("ns", otherAccountContext, "key"));
+
+            Assert.assertEquals(requestReadCache.getNbReads(), 4);
+            Assert.assertEquals(requestReadCache.getNbHits(), 1);
+
+            requestReadCache.invalidateAll();
+            Assert.assertNull(requestReadCache.get("ns", context, "key"));
+            Assert.assertEquals(requestReadCache.getNbInvalidations(), 1);
+
+            // Nothing to clear, not counted
+            requestReadCache.invalidateAll();
+            Assert.assertEquals(requestReadCache.getNbInvalidations(), 1);
+        } finally {
+            requestReadCache.close();
+        }
+
+        Assert.assertNull(RequestReadCache.getCurrent());
+        Assert.assertTrue(requestReadCache.isClosed());
+    }
+
+    @Test(groups = "fast")
+    public void testContextHandedOverToAnotherThread() throws Exception {
+        final RequestReadCache requestReadCache = RequestReadCache.open();
+        try {
+            final InternalTenantContext context = new InternalTenantContext(1L, 2L, null, null);
+            requestReadCache.put("ns", context, "key", "value");
+
+            // Writes on another thread wouldn't invalidate the request cache, so reads there must not use it either
+            final AtomicReference<RequestReadCache> cacheSeenByOtherThread = new AtomicReference<RequestReadCache>(requestReadCache);
+            final Thread otherThread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    cacheSeenByOtherThread.set(context.getRequestReadCache());
+                }
+            });
+            otherThread.start();
+            otherThread.join();
+
+            Assert.assertNull(cacheSeenByOtherThread.get());
+            Assert.assertSame(context.getRequestReadCache(), requestReadCache);
+        } finally {
+            requestReadCache.close();
+        }
+    }
+
+    @Test(groups = "fast")
+    public void testContextOutlivingRequest() {
+        final RequestReadCache requestReadCache = RequestReadCache.open();
+        final InternalTenantContext context = new InternalTenantContext(1L, 2L, null, null);
+        requestReadCache.put("ns", context, "key", "value");
+        requestReadCache.close();
+
+        // Contexts kept around (e.g. by a notification) don't use a closed cache
+        Assert.assertNull(context.getRequestReadCache());
+        requestReadCache.put("ns", context, "key", "value");
+        Assert.assertNull(requestReadCache.get("ns", context, "key"));
+    }
+}
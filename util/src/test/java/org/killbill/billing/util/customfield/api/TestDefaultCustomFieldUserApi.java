@@ -126,6 +126,61 @@ public class TestDefaultCustomFieldUserApi extends UtilTestSuiteWithEmbeddedDB {
     }
 
 
+    @Test(groups = "slow")
+    public void testCustomFieldsInBulk() throws Exception {
+        final UUID otherAccountId = UUID.randomUUID();
+        final ImmutableAccountData immutableAccountData = Mockito.mock(ImmutableAccountData.class);
+        Mockito.when(immutableAccountInternalApi.getImmutableAccountDataByRecordId(Mockito.<Long>eq(accountRecordId + 1), Mockito.<InternalTenantContext>any())).thenReturn(immutableAccountData);
+        dbi.withHandle(new HandleCallback<Void>() {
+            @Override
+            public Void withHandle(final Handle handle) throws Exception {
+                handle.execute("insert into accounts (record_id, id, external_key, email, name, first_name_length, reference_time, time_zone, created_date, created_by, updated_date, updated_by) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                               accountRecordId + 1, otherAccountId.toString(), otherAccountId.toString(), "yo@t.com", "toto", 4, new Date(), "UTC", new Date(), "i", new Date(), "j");
+                return null;
+            }
+        });
+
+        final CustomField customField1 = new StringCustomField("bulk1", "value1", ObjectType.ACCOUNT, accountId, callContext.getCreatedDate());
+        final CustomField customField2 = new StringCustomField("bulk2", "value2", ObjectType.ACCOUNT, accountId, callContext.getCreatedDate());
+        final CustomField customField3 = new StringCustomField("bulk1", "value1", ObjectType.ACCOUNT, otherAccountId, callContext.getCreatedDate());
+        eventsListener.pushExpectedEvents(NextEvent.CUSTOM_FIELD, NextEvent.CUSTOM_FIELD, NextEvent.CUSTOM_FIELD);
+        customFieldUserApi.addCustomFieldsToObjects(ImmutableList.<CustomField>of(customField1, customField2, customField3), callContext);
+        assertListenerStatus();
+
+        Assert.assertEquals(customFieldUserApi.getCustomFieldsForAccount(accountId, callContext).size(), 2);
+        Assert.assertEquals(customFieldUserApi.getCustomFieldsForAccount(otherAccountId, callContext).size(), 1);
+
+        // Each row is attached to the account of its object
+        dbi.withHandle(new HandleCallback<Void>() {
+            @Override
+            public Void withHandle(final Handle handle) throws Exception {
+                final List<Map<String, Object>> values = handle.select("select account_record_id from custom_fields where object_id = ?", otherAccountId.toString());
+                Assert.assertEquals(values.size(), 1);
+                Assert.assertEquals(Long.valueOf(values.get(0).get("account_record_id").toString()), Long.valueOf(accountRecordId + 1));
+                return null;
+            }
+        });
+
+        // Verify operation is transactional: nothing is inserted if one of the fields already exists
+        final CustomField customField4 = new StringCustomField("bulk4", "value4", ObjectType.ACCOUNT, otherAccountId, callContext.getCreatedDate());
+        try {
+            customFieldUserApi.addCustomFieldsToObjects(ImmutableList.<CustomField>of(customField4, customField2), callContext);
+            Assert.fail("Adding an existing custom field should fail");
+        } catch (final CustomFieldApiException e) {
+            Assert.assertEquals(e.getCode(), ErrorCode.CUSTOM_FIELD_ALREADY_EXISTS.getCode());
+        }
+        Assert.assertEquals(customFieldUserApi.getCustomFieldsForAccount(otherAccountId, callContext).size(), 1);
+
+        eventsListener.pushExpectedEvents(NextEvent.CUSTOM_FIELD, NextEvent.CUSTOM_FIELD);
+        customFieldUserApi.removeCustomFieldsFromObjects(ImmutableList.<CustomField>of(customField1, customField3), callContext);
+        assertListenerStatus();
+
+        final List<CustomField> all = customFieldUserApi.getCustomFieldsForAccount(accountId, callContext);
+        Assert.assertEquals(all.size(), 1);
+        Assert.assertEquals(all.get(0).getId(), customField2.getId());
+        Assert.assertEquals(customFieldUserApi.getCustomFieldsForAccount(otherAccountId, callContext).size(), 0);
+    }
+
     @Test(groups = "slow")
     public void testCustomFieldUpdate() throws Exception {
 
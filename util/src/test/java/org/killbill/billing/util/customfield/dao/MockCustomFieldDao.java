@@ -18,6 +18,7 @@ package org.killbill.billing.util.customfield.dao;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import org.killbill.billing.ObjectType;
@@ -64,6 +65,18 @@ public class MockCustomFieldDao extends MockEntityDaoBase<CustomFieldModelDao, C
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public void createCustomFields(final Iterable<CustomFieldModelDao> customFields, final Map<UUID, InternalCallContext> contextsByObjectId) throws CustomFieldApiException {
+        for (final CustomFieldModelDao customField : customFields) {
+            create(customField, contextsByObjectId.get(customField.getObjectId()));
+        }
+    }
+
+    @Override
+    public void deleteCustomFields(final Iterable<UUID> customFieldIds, final Map<UUID, InternalCallContext> contextsByObjectId) throws CustomFieldApiException {
+        throw new UnsupportedOperationException();
+    }
+
     @Override
     public List<AuditLogWithHistory> getCustomFieldAuditLogsWithHistoryForId(final UUID customFieldId, final AuditLevel auditLevel, final InternalTenantContext context) {
         throw new UnsupportedOperationException();
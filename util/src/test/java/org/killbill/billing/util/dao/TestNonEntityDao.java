@@ -18,6 +18,7 @@ package org.killbill.billing.util.dao;
 
 import java.io.IOException;
 import java.util.Date;
+import java.util.Map;
 import java.util.UUID;
 
 import org.skife.jdbi.v2.Handle;
@@ -27,6 +28,10 @@ import org.testng.annotations.Test;
 
 import org.killbill.billing.ObjectType;
 import org.killbill.billing.util.UtilTestSuiteWithEmbeddedDB;
+import org.killbill.billing.util.cache.Cachable.CacheType;
+import org.killbill.billing.util.cache.CacheController;
+
+import com.google.common.collect.ImmutableList;
 
 public class TestNonEntityDao extends UtilTestSuiteWithEmbeddedDB {
 
@@ -91,6 +96,53 @@ public class TestNonEntityDao extends UtilTestSuiteWithEmbeddedDB {
         Assert.assertEquals(resultTenantRecordId, tenantRecordId);
     }
 
+    @Test(groups = "slow")
+    public void testRetrieveRecordIdsFromObjects() throws IOException {
+        insertAccount();
+
+        final UUID unknownAccountId = UUID.randomUUID();
+        final Map<UUID, Long> resultRecordIds = nonEntityDao.retrieveRecordIdsFromObjects(ImmutableList.<UUID>of(accountId, unknownAccountId), ObjectType.ACCOUNT, null);
+        Assert.assertEquals(resultRecordIds.size(), 1);
+        Assert.assertEquals(resultRecordIds.get(accountId), accountRecordId);
+    }
+
+    @Test(groups = "slow")
+    public void testRetrieveAccountRecordIdsFromObjects() throws IOException {
+        insertTagDefinition();
+        insertTag();
+
+        final Map<UUID, Long> resultAccountRecordIds = nonEntityDao.retrieveAccountRecordIdsFromObjects(ImmutableList.<UUID>of(tagId), ObjectType.TAG, null);
+        Assert.assertEquals(resultAccountRecordIds.size(), 1);
+        Assert.assertEquals(resultAccountRecordIds.get(tagId), accountRecordId);
+
+        Assert.assertTrue(nonEntityDao.retrieveAccountRecordIdsFromObjects(ImmutableList.<UUID>of(tagDefinitionId), ObjectType.TAG_DEFINITION, null).isEmpty());
+    }
+
+    @Test(groups = "slow")
+    public void testRetrieveTenantRecordIdsFromObjects() throws IOException {
+        insertTenant();
+        insertAccount();
+
+        Assert.assertEquals(nonEntityDao.retrieveTenantRecordIdsFromObjects(ImmutableList.<UUID>of(tenantId), ObjectType.TENANT, null).get(tenantId), tenantRecordId);
+        Assert.assertEquals(nonEntityDao.retrieveTenantRecordIdsFromObjects(ImmutableList.<UUID>of(accountId), ObjectType.ACCOUNT, null).get(accountId), tenantRecordId);
+    }
+
+    @Test(groups = "slow")
+    public void testRetrieveRecordIdsFromObjectsFillsCache() throws IOException {
+        insertAccount();
+
+        final CacheController<String, Long> cache = controlCacheDispatcher.getCacheController(CacheType.RECORD_ID);
+        cache.remove(accountId.toString());
+        Assert.assertFalse(cache.isKeyInCache(accountId.toString()));
+
+        final Map<UUID, Long> resultRecordIds = nonEntityDao.retrieveRecordIdsFromObjects(ImmutableList.<UUID>of(accountId), ObjectType.ACCOUNT, cache);
+        Assert.assertEquals(resultRecordIds.get(accountId), accountRecordId);
+        Assert.assertTrue(cache.isKeyInCache(accountId.toString()));
+
+        // Served from the cache
+        Assert.assertEquals(nonEntityDao.retrieveRecordIdsFromObjects(ImmutableList.<UUID>of(accountId), ObjectType.ACCOUNT, cache).get(accountId), accountRecordId);
+    }
+
     private void insertAccount() throws IOException {
         dbi.withHandle(new HandleCallback<Void>() {
             @Override
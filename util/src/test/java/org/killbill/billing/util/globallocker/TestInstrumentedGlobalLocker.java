@@ -0,0 +1,99 @@
+/*
+ * Copyright 2014-2019 Groupon, Inc
+ * Copyright 2014-2019 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.globallocker;
+
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.killbill.billing.util.UtilTestSuiteNoDB;
+import org.killbill.billing.util.metrics.BillingMetrics;
+import org.killbill.commons.locker.GlobalLock;
+import org.killbill.commons.locker.LockFailedException;
+import org.killbill.commons.locker.memory.MemoryGlobalLocker;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestInstrumentedGlobalLocker extends UtilTestSuiteNoDB {
+
+    @Test(groups = "fast")
+    public void testRecordAcquisitionAndRelease() throws Exception {
+        final BillingMetrics billingMetrics = new BillingMetrics();
+        final GlobalLockerStats stats = new GlobalLockerStats(10, billingMetrics);
+        final InstrumentedGlobalLocker instrumentedLocker = new InstrumentedGlobalLocker(new MemoryGlobalLocker(), stats, 1L, 10L, 2.0, true);
+
+        final GlobalLock lock = instrumentedLocker.lockWithNumberOfTries(LockerType.ACCNT_INV_PAY.toString(), UUID.randomUUID().toString(), 3);
+        final LockTypeStats lockTypeStats = stats.getStats(LockerType.ACCNT_INV_PAY.toString());
+        Assert.assertEquals(lockTypeStats.getNbAcquisitions(), 1);
+        Assert.assertEquals(lockTypeStats.getNbCurrentlyHeld(), 1);
+
+        lock.release();
+        // Releasing twice should not be double counted
+        lock.release();
+
+        Assert.assertEquals(lockTypeStats.getNbCurrentlyHeld(), 0);
+        Assert.assertEquals(lockTypeStats.getNbFailures(), 0);
+        Assert.assertEquals(lockTypeStats.getCallSites().size(), 1);
+        final String callSite = lockTypeStats.getCallSites().keySet().iterator().next();
+        Assert.assertEquals(callSite, TestInstrumentedGlobalLocker.class.getName() + "#testRecordAcquisitionAndRelease");
+        Assert.assertEquals(lockTypeStats.getCallSites().get(callSite).getNbHolds(), 1);
+
+        // Exported through the metrics registry
+        Assert.assertEquals(billingMetrics.getCount("killbill.lock.ACCNT_INV_PAY.wait"), 1);
+        Assert.assertEquals(billingMetrics.getCount("killbill.lock.ACCNT_INV_PAY.hold"), 1);
+        Assert.assertEquals(billingMetrics.getMetricRegistry().getGauges().get("killbill.lock.ACCNT_INV_PAY.held").getValue(), (Object) 0L);
+    }
+
+    @Test(groups = "fast")
+    public void testRecordFailureWithRetries() throws Exception {
+        final BillingMetrics billingMetrics = new BillingMetrics();
+        final GlobalLockerStats stats = new GlobalLockerStats(10, billingMetrics);
+        final InstrumentedGlobalLocker instrumentedLocker = new InstrumentedGlobalLocker(new MemoryGlobalLocker(), stats, 1L, 10L, 2.0, false);
+        final String lockKey = UUID.randomUUID().toString();
+
+        final GlobalLock lock = instrumentedLocker.lockWithNumberOfTries(LockerType.ACCNT_INV_PAY.toString(), lockKey, 1);
+
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.submit(new Callable<GlobalLock>() {
+                @Override
+                public GlobalLock call() throws Exception {
+                    return instrumentedLocker.lockWithNumberOfTries(LockerType.ACCNT_INV_PAY.toString(), lockKey, 4);
+                }
+            }).get();
+            Assert.fail("Lock should not have been acquired");
+        } catch (final ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof LockFailedException);
+        } finally {
+            executor.shutdownNow();
+            lock.release();
+        }
+
+        final LockTypeStats lockTypeStats = stats.getStats(LockerType.ACCNT_INV_PAY.toString());
+        Assert.assertEquals(lockTypeStats.getNbAcquisitions(), 1);
+        Assert.assertEquals(lockTypeStats.getNbFailures(), 1);
+        Assert.assertEquals(lockTypeStats.getNbRetries(), 3);
+        Assert.assertEquals(lockTypeStats.getNbCurrentlyHeld(), 0);
+        Assert.assertTrue(lockTypeStats.getCallSites().isEmpty());
+
+        Assert.assertEquals(billingMetrics.getCount("killbill.lock.ACCNT_INV_PAY.wait.failed"), 1);
+        Assert.assertEquals(billingMetrics.getCount("killbill.lock.ACCNT_INV_PAY.retries"), 3);
+    }
+}
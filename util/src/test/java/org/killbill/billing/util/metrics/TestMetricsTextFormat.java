@@ -0,0 +1,78 @@
+/*
+ * Copyright 2014-2019 Groupon, Inc
+ * Copyright 2014-2019 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.metrics;
+
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.killbill.billing.util.UtilTestSuiteNoDB;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestMetricsTextFormat extends UtilTestSuiteNoDB {
+
+    @Test(groups = "fast")
+    public void testWriteTextFormat() throws Exception {
+        final BillingMetrics billingMetrics = new BillingMetrics();
+        billingMetrics.incrementCounter("killbill.cache.record-id.hits", 3);
+        billingMetrics.recordValue("killbill.invoice.generation.items", 12);
+        billingMetrics.recordDuration("killbill.dao.AccountSqlDao.getById", TimeUnit.MILLISECONDS.toNanos(500));
+        billingMetrics.markMeter("killbill.invoice.nextBillingDate.accounts", 2);
+
+        final StringWriter writer = new StringWriter();
+        billingMetrics.writeTextFormat(writer);
+        final String output = writer.toString();
+
+        Assert.assertTrue(output.contains("# TYPE killbill_cache_record_id_hits counter\nkillbill_cache_record_id_hits 3\n"), output);
+        Assert.assertTrue(output.contains("# TYPE killbill_invoice_generation_items summary\n"), output);
+        Assert.assertTrue(output.contains("killbill_invoice_generation_items{quantile=\"0.5\"} 12\n"), output);
+        Assert.assertTrue(output.contains("killbill_invoice_generation_items_count 1\n"), output);
+        Assert.assertTrue(output.contains("killbill_dao_AccountSqlDao_getById_seconds{quantile=\"0.99\"} 0.5\n"), output);
+        Assert.assertTrue(output.contains("killbill_dao_AccountSqlDao_getById_seconds_count 1\n"), output);
+        Assert.assertTrue(output.contains("# TYPE killbill_invoice_nextBillingDate_accounts_total counter\nkillbill_invoice_nextBillingDate_accounts_total 2\n"), output);
+        Assert.assertTrue(output.contains("# TYPE killbill_invoice_nextBillingDate_accounts_per_second gauge\n"), output);
+
+        Assert.assertEquals(billingMetrics.getCount("killbill.cache.record-id.hits"), 3);
+        Assert.assertEquals(billingMetrics.getCount("killbill.dao.AccountSqlDao.getById"), 1);
+        Assert.assertEquals(billingMetrics.getCount("killbill.invoice.nextBillingDate.accounts"), 2);
+        Assert.assertEquals(billingMetrics.getCount("unknown"), 0);
+    }
+
+    @Test(groups = "fast")
+    public void testRecordLag() throws Exception {
+        final BillingMetrics billingMetrics = new BillingMetrics();
+        final DateTime now = new DateTime(2019, 3, 1, 0, 0, 5, DateTimeZone.UTC);
+        billingMetrics.recordLag("killbill.invoice.listener.lag", now.minusSeconds(5), now);
+        // Not late: handled ahead of its effective date
+        billingMetrics.recordLag("killbill.invoice.listener.lag", now.plusDays(1), now);
+        billingMetrics.recordLag("killbill.invoice.listener.lag", null, now);
+
+        Assert.assertEquals(billingMetrics.getCount("killbill.invoice.listener.lag"), 1);
+        Assert.assertEquals(billingMetrics.getMetricRegistry().getTimers().get("killbill.invoice.listener.lag").getSnapshot().getMax(), TimeUnit.SECONDS.toNanos(5));
+    }
+
+    @Test(groups = "fast")
+    public void testSanitize() throws Exception {
+        Assert.assertEquals(MetricsTextFormat.sanitize("killbill.payment.plugin.__EXTERNAL_PAYMENT__"), "killbill_payment_plugin___EXTERNAL_PAYMENT__");
+        Assert.assertEquals(MetricsTextFormat.sanitize("1st.metric"), "_st_metric");
+        Assert.assertEquals(MetricsTextFormat.formatValue(Double.POSITIVE_INFINITY), "+Inf");
+        Assert.assertEquals(MetricsTextFormat.formatValue(0.25), "0.25");
+    }
+}
@@ -18,6 +18,7 @@
 package org.killbill.billing.util.tag.api;
 
 import org.killbill.billing.ObjectType;
+import org.killbill.billing.account.api.AccountInternalApi;
 import org.killbill.billing.callcontext.DefaultCallContext;
 import org.killbill.billing.callcontext.InternalCallContext;
 import org.killbill.billing.util.UtilTestSuiteNoDB;
@@ -47,7 +48,7 @@ public class TestDefaultTagUserApiWithMockDao extends UtilTestSuiteNoDB {
         final TagDao tagDao = Mockito.mock(TagDao.class);
         final InternalCallContextFactory internalCallContextFactory = Mockito.mock(InternalCallContextFactory.class);
         tagDefinitionDao = Mockito.mock(TagDefinitionDao.class);
-        tagUserApi = new DefaultTagUserApi(internalCallContextFactory, tagDefinitionDao, tagDao);
+        tagUserApi = new DefaultTagUserApi(internalCallContextFactory, tagDefinitionDao, tagDao, Mockito.mock(AccountInternalApi.class));
         context = Mockito.mock(DefaultCallContext.class);
     }
 
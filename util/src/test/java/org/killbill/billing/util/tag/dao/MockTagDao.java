@@ -31,6 +31,7 @@ import org.killbill.billing.util.api.TagApiException;
 import org.killbill.billing.util.audit.AuditLogWithHistory;
 import org.killbill.billing.util.entity.Pagination;
 import org.killbill.billing.util.entity.dao.MockEntityDaoBase;
+import org.killbill.billing.util.tag.ControlTagType;
 import org.killbill.billing.util.tag.Tag;
 
 import com.google.common.base.Predicate;
@@ -70,6 +71,20 @@ public class MockTagDao extends MockEntityDaoBase<TagModelDao, Tag, TagApiExcept
         }
     }
 
+    @Override
+    public void createTags(final UUID tagDefinitionId, final ObjectType objectType, final Map<UUID, InternalCallContext> contextsByObjectId) throws TagApiException {
+        for (final Map.Entry<UUID, InternalCallContext> entry : contextsByObjectId.entrySet()) {
+            create(new TagModelDao(entry.getValue().getCreatedDate(), tagDefinitionId, entry.getKey(), objectType), entry.getValue());
+        }
+    }
+
+    @Override
+    public void deleteTags(final UUID tagDefinitionId, final ObjectType objectType, final Map<UUID, InternalCallContext> contextsByObjectId) {
+        for (final Map.Entry<UUID, InternalCallContext> entry : contextsByObjectId.entrySet()) {
+            deleteTag(entry.getKey(), objectType, tagDefinitionId, entry.getValue());
+        }
+    }
+
     @Override
     public Pagination<TagModelDao> searchTags(final String searchKey, final Long offset, final Long limit, final InternalTenantContext context) {
         throw new UnsupportedOperationException();
@@ -94,6 +109,11 @@ public class MockTagDao extends MockEntityDaoBase<TagModelDao, Tag, TagApiExcept
         }));
     }
 
+    @Override
+    public List<TagModelDao> getTagsForTagDefinition(final UUID tagDefinitionId, final ObjectType objectType, final Long fromRecordId, final Long limit, final InternalTenantContext internalTenantContext) {
+        throw new UnsupportedOperationException();
+    }
+
     @Override
     public List<TagModelDao> getTagsForAccountType(final ObjectType objectType, final boolean includedDeleted, final InternalTenantContext internalTenantContext) {
         throw new UnsupportedOperationException();
@@ -108,6 +128,16 @@ public class MockTagDao extends MockEntityDaoBase<TagModelDao, Tag, TagApiExcept
         return tagStore.get(getAccountId(internalTenantContext.getAccountRecordId()));
     }
 
+    @Override
+    public List<TagModelDao> getControlTagsForAccountType(final ObjectType objectType, final InternalTenantContext internalTenantContext) {
+        return ImmutableList.<TagModelDao>copyOf(Collections2.filter(getTagsForAccount(false, internalTenantContext), new Predicate<TagModelDao>() {
+            @Override
+            public boolean apply(final TagModelDao input) {
+                return objectType.equals(input.getObjectType()) && ControlTagType.getTypeFromId(input.getTagDefinitionId()) != null;
+            }
+        }));
+    }
+
     @Override
     public List<AuditLogWithHistory> getTagAuditLogsWithHistoryForId(final UUID tagId, final AuditLevel auditLevel, final InternalTenantContext context) {
         throw new UnsupportedOperationException();
@@ -16,22 +16,40 @@
 
 package org.killbill.billing.util.tag.dao;
 
+import java.sql.Connection;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
 import org.killbill.billing.ErrorCode;
 import org.killbill.billing.ObjectType;
 import org.killbill.billing.api.TestApiListener.NextEvent;
+import org.killbill.billing.callcontext.InternalCallContext;
 import org.killbill.billing.util.UtilTestSuiteWithEmbeddedDB;
 import org.killbill.billing.util.api.TagApiException;
 import org.killbill.billing.util.api.TagDefinitionApiException;
+import org.killbill.billing.util.cache.Cachable.CacheType;
+import org.killbill.billing.util.cache.CacheController;
+import org.killbill.billing.util.metrics.BillingMetrics;
 import org.killbill.billing.util.tag.ControlTagType;
 import org.killbill.billing.util.tag.DescriptiveTag;
 import org.killbill.billing.util.tag.Tag;
+import org.killbill.billing.util.tag.api.user.TagEventBuilder;
+import org.killbill.bus.api.BusEvent;
+import org.killbill.bus.api.PersistentBus;
+import org.skife.jdbi.v2.Handle;
+import org.skife.jdbi.v2.tweak.HandleCallback;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 
 import static org.testng.Assert.assertEquals;
 
@@ -185,4 +203,175 @@ public class TestDefaultTagDao extends UtilTestSuiteWithEmbeddedDB {
         }
     }
 
+    @Test(groups = "slow")
+    public void testCreateAndDeleteTagsInBulk() throws TagApiException {
+        final Map<UUID, InternalCallContext> contextsByInvoiceId = new LinkedHashMap<UUID, InternalCallContext>();
+        for (int i = 0; i < 5; i++) {
+            contextsByInvoiceId.put(UUID.randomUUID(), internalCallContext);
+        }
+        final UUID alreadyTaggedInvoiceId = contextsByInvoiceId.keySet().iterator().next();
+
+        eventsListener.pushExpectedEvent(NextEvent.TAG);
+        tagDao.create(new TagModelDao(internalCallContext.getCreatedDate(), ControlTagType.WRITTEN_OFF.getId(), alreadyTaggedInvoiceId, ObjectType.INVOICE), internalCallContext);
+        assertListenerStatus();
+
+        // The invoice already tagged is skipped
+        eventsListener.pushExpectedEvents(NextEvent.TAG, NextEvent.TAG, NextEvent.TAG, NextEvent.TAG);
+        tagDao.createTags(ControlTagType.WRITTEN_OFF.getId(), ObjectType.INVOICE, contextsByInvoiceId);
+        assertListenerStatus();
+
+        final List<TagModelDao> controlTags = tagDao.getControlTagsForAccountType(ObjectType.INVOICE, internalCallContext);
+        Assert.assertEquals(controlTags.size(), 5);
+        for (final UUID invoiceId : contextsByInvoiceId.keySet()) {
+            final List<TagModelDao> tags = tagDao.getTagsForObject(invoiceId, ObjectType.INVOICE, false, internalCallContext);
+            Assert.assertEquals(tags.size(), 1);
+            Assert.assertEquals(tags.get(0).getTagDefinitionId(), ControlTagType.WRITTEN_OFF.getId());
+        }
+        // Each tag gets its own history and audit rows
+        Assert.assertEquals(countAuditLogs("TAG_HISTORY", "INSERT"), 5);
+
+        eventsListener.pushExpectedEvents(NextEvent.TAG, NextEvent.TAG, NextEvent.TAG, NextEvent.TAG, NextEvent.TAG);
+        tagDao.deleteTags(ControlTagType.WRITTEN_OFF.getId(), ObjectType.INVOICE, contextsByInvoiceId);
+        assertListenerStatus();
+
+        Assert.assertEquals(tagDao.getControlTagsForAccountType(ObjectType.INVOICE, internalCallContext).size(), 0);
+        Assert.assertEquals(countAuditLogs("TAG_HISTORY", "DELETE"), 5);
+
+        // Nothing is deleted if one of the objects doesn't have the tag
+        try {
+            tagDao.deleteTags(ControlTagType.WRITTEN_OFF.getId(), ObjectType.INVOICE, contextsByInvoiceId);
+            Assert.fail("Deleting the same tags again should fail");
+        } catch (final TagApiException e) {
+            Assert.assertEquals(e.getCode(), ErrorCode.TAG_DOES_NOT_EXIST.getCode());
+        }
+    }
+
+    private int countAuditLogs(final String tableName, final String changeType) {
+        return dbi.withHandle(new HandleCallback<Integer>() {
+            @Override
+            public Integer withHandle(final Handle handle) throws Exception {
+                return handle.select("select record_id from audit_log where table_name = ? and change_type = ?", tableName, changeType).size();
+            }
+        });
+    }
+
+    @Test(groups = "slow")
+    public void testControlTagsCacheInvalidation() throws TagApiException {
+        final UUID invoiceId = UUID.randomUUID();
+        final CacheController<Long, List> controlTagsCache = controlCacheDispatcher.getCacheController(CacheType.ACCOUNT_CONTROL_TAGS);
+
+        // Nothing yet, but the (empty) result is now cached
+        Assert.assertEquals(tagDao.getControlTagsForAccountType(ObjectType.INVOICE, internalCallContext).size(), 0);
+        Assert.assertTrue(controlTagsCache.isKeyInCache(internalCallContext.getAccountRecordId()));
+
+        eventsListener.pushExpectedEvent(NextEvent.TAG);
+        final Tag tag = new DescriptiveTag(ControlTagType.WRITTEN_OFF.getId(), ObjectType.INVOICE, invoiceId, internalCallContext.getCreatedDate());
+        tagDao.create(new TagModelDao(tag), internalCallContext);
+        assertListenerStatus();
+        Assert.assertFalse(controlTagsCache.isKeyInCache(internalCallContext.getAccountRecordId()));
+
+        final List<TagModelDao> controlTags = tagDao.getControlTagsForAccountType(ObjectType.INVOICE, internalCallContext);
+        Assert.assertEquals(controlTags.size(), 1);
+        Assert.assertEquals(controlTags.get(0).getObjectId(), invoiceId);
+        Assert.assertEquals(controlTags.get(0).getTagDefinitionId(), ControlTagType.WRITTEN_OFF.getId());
+        Assert.assertEquals(tagDao.getControlTagsForAccountType(ObjectType.ACCOUNT, internalCallContext).size(), 0);
+        Assert.assertTrue(controlTagsCache.isKeyInCache(internalCallContext.getAccountRecordId()));
+
+        eventsListener.pushExpectedEvent(NextEvent.TAG);
+        tagDao.deleteTag(invoiceId, ObjectType.INVOICE, ControlTagType.WRITTEN_OFF.getId(), internalCallContext);
+        assertListenerStatus();
+        Assert.assertFalse(controlTagsCache.isKeyInCache(internalCallContext.getAccountRecordId()));
+        Assert.assertEquals(tagDao.getControlTagsForAccountType(ObjectType.INVOICE, internalCallContext).size(), 0);
+    }
+
+    @Test(groups = "slow")
+    public void testControlTagsCacheHit() throws TagApiException {
+        final UUID invoiceId = UUID.randomUUID();
+        final CacheController<Long, List> controlTagsCache = controlCacheDispatcher.getCacheController(CacheType.ACCOUNT_CONTROL_TAGS);
+
+        eventsListener.pushExpectedEvent(NextEvent.TAG);
+        final Tag tag = new DescriptiveTag(ControlTagType.WRITTEN_OFF.getId(), ObjectType.INVOICE, invoiceId, internalCallContext.getCreatedDate());
+        tagDao.create(new TagModelDao(tag), internalCallContext);
+        assertListenerStatus();
+
+        Assert.assertEquals(tagDao.getControlTagsForAccountType(ObjectType.INVOICE, internalCallContext).size(), 1);
+        Assert.assertTrue(controlTagsCache.isKeyInCache(internalCallContext.getAccountRecordId()));
+
+        // Deactivate the tag behind the back of the DAO: the cached entry is still returned
+        dbi.withHandle(new HandleCallback<Integer>() {
+            @Override
+            public Integer withHandle(final Handle handle) throws Exception {
+                return handle.update("update tags set is_active = false where id = ?", tag.getId().toString());
+            }
+        });
+        final List<TagModelDao> cachedControlTags = tagDao.getControlTagsForAccountType(ObjectType.INVOICE, internalCallContext);
+        Assert.assertEquals(cachedControlTags.size(), 1);
+        Assert.assertEquals(cachedControlTags.get(0).getObjectId(), invoiceId);
+        Assert.assertEquals(tagDao.getTagsForObject(invoiceId, ObjectType.INVOICE, false, internalCallContext).size(), 0);
+
+        // Once the entry is gone, the tags are re-loaded from the database
+        controlTagsCache.remove(internalCallContext.getAccountRecordId());
+        Assert.assertEquals(tagDao.getControlTagsForAccountType(ObjectType.INVOICE, internalCallContext).size(), 0);
+    }
+
+    @Test(groups = "slow")
+    public void testControlTagsCacheInvalidationInBulk() throws TagApiException {
+        final CacheController<Long, List> controlTagsCache = controlCacheDispatcher.getCacheController(CacheType.ACCOUNT_CONTROL_TAGS);
+        final Map<UUID, InternalCallContext> contextsByInvoiceId = new LinkedHashMap<UUID, InternalCallContext>();
+        for (int i = 0; i < 3; i++) {
+            contextsByInvoiceId.put(UUID.randomUUID(), internalCallContext);
+        }
+
+        Assert.assertEquals(tagDao.getControlTagsForAccountType(ObjectType.INVOICE, internalCallContext).size(), 0);
+        Assert.assertTrue(controlTagsCache.isKeyInCache(internalCallContext.getAccountRecordId()));
+
+        eventsListener.pushExpectedEvents(NextEvent.TAG, NextEvent.TAG, NextEvent.TAG);
+        tagDao.createTags(ControlTagType.WRITTEN_OFF.getId(), ObjectType.INVOICE, contextsByInvoiceId);
+        assertListenerStatus();
+        Assert.assertFalse(controlTagsCache.isKeyInCache(internalCallContext.getAccountRecordId()));
+
+        Assert.assertEquals(tagDao.getControlTagsForAccountType(ObjectType.INVOICE, internalCallContext).size(), 3);
+        Assert.assertTrue(controlTagsCache.isKeyInCache(internalCallContext.getAccountRecordId()));
+
+        eventsListener.pushExpectedEvents(NextEvent.TAG, NextEvent.TAG, NextEvent.TAG);
+        tagDao.deleteTags(ControlTagType.WRITTEN_OFF.getId(), ObjectType.INVOICE, contextsByInvoiceId);
+        assertListenerStatus();
+        Assert.assertFalse(controlTagsCache.isKeyInCache(internalCallContext.getAccountRecordId()));
+        Assert.assertEquals(tagDao.getControlTagsForAccountType(ObjectType.INVOICE, internalCallContext).size(), 0);
+    }
+
+    @Test(groups = "slow")
+    public void testControlTagsCacheInvalidatedBeforeBusEvent() throws Exception {
+        final CacheController<Long, List> controlTagsCache = controlCacheDispatcher.getCacheController(CacheType.ACCOUNT_CONTROL_TAGS);
+        final List<Boolean> cachedWhenPosted = new ArrayList<Boolean>();
+        final PersistentBus bus = Mockito.mock(PersistentBus.class);
+        Mockito.doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(final InvocationOnMock invocation) throws Throwable {
+                cachedWhenPosted.add(controlTagsCache.isKeyInCache(internalCallContext.getAccountRecordId()));
+                return null;
+            }
+        }).when(bus).postFromTransaction(Mockito.<BusEvent>any(), Mockito.<Connection>any());
+        final DefaultTagDao tagDaoWithBus = new DefaultTagDao(dbi, roDbi, new TagEventBuilder(), bus, clock, controlCacheDispatcher, nonEntityDao,
+                                                              internalCallContextFactory, auditDao, new BillingMetrics());
+
+        final UUID invoiceId = UUID.randomUUID();
+        final Map<UUID, InternalCallContext> contextsByInvoiceId = ImmutableMap.<UUID, InternalCallContext>of(UUID.randomUUID(), internalCallContext,
+                                                                                                             UUID.randomUUID(), internalCallContext);
+
+        // Each bus handler must see the new tags, i.e. the (stale) entry is dropped within the transaction
+        tagDaoWithBus.getControlTagsForAccountType(ObjectType.INVOICE, internalCallContext);
+        tagDaoWithBus.create(new TagModelDao(internalCallContext.getCreatedDate(), ControlTagType.WRITTEN_OFF.getId(), invoiceId, ObjectType.INVOICE), internalCallContext);
+
+        tagDaoWithBus.getControlTagsForAccountType(ObjectType.INVOICE, internalCallContext);
+        tagDaoWithBus.deleteTag(invoiceId, ObjectType.INVOICE, ControlTagType.WRITTEN_OFF.getId(), internalCallContext);
+
+        tagDaoWithBus.getControlTagsForAccountType(ObjectType.INVOICE, internalCallContext);
+        tagDaoWithBus.createTags(ControlTagType.WRITTEN_OFF.getId(), ObjectType.INVOICE, contextsByInvoiceId);
+
+        tagDaoWithBus.getControlTagsForAccountType(ObjectType.INVOICE, internalCallContext);
+        tagDaoWithBus.deleteTags(ControlTagType.WRITTEN_OFF.getId(), ObjectType.INVOICE, contextsByInvoiceId);
+
+        Assert.assertEquals(cachedWhenPosted, ImmutableList.<Boolean>of(false, false, false, false, false, false));
+    }
 }